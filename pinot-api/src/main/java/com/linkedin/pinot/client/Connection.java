@@ -95,6 +95,32 @@ public class Connection {
     return new ResultSetGroupFuture(responseFuture);
   }
 
+  /**
+   * Executes a selection PQL statement, streaming the selected rows instead of fetching all of them at once. Only
+   * selection queries without ordering can be streamed.
+   *
+   * @param statement The statement to execute
+   * @return A result set reading the rows as they are streamed by the broker, which must be closed once done
+   * @throws PinotClientException If an exception occurs while processing the query
+   */
+  public StreamingResultSet executeStreaming(String statement) throws PinotClientException {
+    return executeStreaming(null, statement);
+  }
+
+  /**
+   * Executes a selection PQL statement, streaming the selected rows instead of fetching all of them at once. Only
+   * selection queries without ordering can be streamed.
+   *
+   * @param tableName The table queried by the statement, used to select the broker
+   * @param statement The statement to execute
+   * @return A result set reading the rows as they are streamed by the broker, which must be closed once done
+   * @throws PinotClientException If an exception occurs while processing the query
+   */
+  public StreamingResultSet executeStreaming(String tableName, String statement) throws PinotClientException {
+    String brokerHostPort = _brokerSelector.selectBroker(tableName);
+    return _transport.executeStreamingQuery(brokerHostPort, statement);
+  }
+
   /**
    * Returns the list of brokers to which this connection can connect to.
    *
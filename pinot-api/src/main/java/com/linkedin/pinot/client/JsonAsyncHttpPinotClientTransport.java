@@ -17,6 +17,11 @@ package com.linkedin.pinot.client;
 
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.Response;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -58,6 +63,42 @@ class JsonAsyncHttpPinotClientTransport implements PinotClientTransport {
     }
   }
 
+  @Override
+  public StreamingResultSet executeStreamingQuery(String brokerAddress, String query) {
+    try {
+      final JSONObject json = new JSONObject();
+      json.put("pql", query);
+      json.put("streaming", true);
+
+      final String url = "http://" + brokerAddress + "/query";
+
+      // The response body is read from the socket on the caller's thread as rows are consumed, so a slow consumer
+      // slows down the broker through TCP flow control instead of blocking the shared HTTP client threads.
+      LOGGER.debug("Sending streaming query {} to {}", query, url);
+      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      OutputStream outputStream = connection.getOutputStream();
+      try {
+        outputStream.write(json.toString().getBytes("UTF-8"));
+      } finally {
+        outputStream.close();
+      }
+
+      int statusCode = connection.getResponseCode();
+      if (statusCode != 200) {
+        connection.disconnect();
+        throw new PinotClientException("Pinot returned HTTP status " + statusCode + ", expected 200");
+      }
+
+      return new StreamingResultSet(new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8")));
+    } catch (PinotClientException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new PinotClientException(e);
+    }
+  }
+
   private static class BrokerResponseFuture implements Future<BrokerResponse> {
     private final Future<Response> _response;
     private final String _query;
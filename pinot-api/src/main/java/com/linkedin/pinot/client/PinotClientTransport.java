@@ -24,4 +24,5 @@ import java.util.concurrent.Future;
 interface PinotClientTransport {
   BrokerResponse executeQuery(String brokerAddress, String query) throws PinotClientException;
   Future<BrokerResponse> executeQueryAsync(String brokerAddress, String query) throws PinotClientException;
+  StreamingResultSet executeStreamingQuery(String brokerAddress, String query) throws PinotClientException;
 }
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.client;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+/**
+ * Streaming selection result set, which reads the rows of a selection query lazily as the broker streams them.
+ *
+ * Unlike {@link ResultSet}, the rows are not all held in memory and the number of rows is not known upfront; rows are
+ * iterated with {@link #next()}, similarly to a cursor:
+ *
+ * <pre>{@code StreamingResultSet resultSet = connection.executeStreaming("select foo, bar from baz limit 100000");
+ * try {
+ *   while (resultSet.next()) {
+ *     System.out.println("foo: " + resultSet.getString(0));
+ *   }
+ * } finally {
+ *   resultSet.close();
+ * }}</pre>
+ */
+public class StreamingResultSet implements Closeable {
+  private final BufferedReader _reader;
+  private final JSONArray _columnsArray;
+  private JSONArray _currentRow;
+  private JSONObject _trailer;
+
+  StreamingResultSet(BufferedReader reader) {
+    _reader = reader;
+    try {
+      JSONObject header = new JSONObject(readLine());
+      if (!header.has("columns")) {
+        // Not a stream, the broker sent back a regular response
+        BrokerResponse brokerResponse = BrokerResponse.fromJson(header);
+        if (brokerResponse.hasExceptions()) {
+          throw new PinotClientException("Query had processing exceptions: \n" + brokerResponse.getExceptions());
+        }
+        throw new PinotClientException("Only selection queries without ordering can be streamed");
+      }
+      _columnsArray = header.getJSONArray("columns");
+    } catch (JSONException e) {
+      closeQuietly();
+      throw new PinotClientException(e);
+    } catch (RuntimeException e) {
+      closeQuietly();
+      throw e;
+    }
+  }
+
+  /**
+   * Moves to the next row of the result set.
+   *
+   * @return true if there is a row to read, false if all the rows have been read
+   * @throws PinotClientException If the query had processing exceptions or the stream could not be read
+   */
+  public boolean next() {
+    if (_trailer != null) {
+      return false;
+    }
+    try {
+      String line = readLine();
+      if (line.startsWith("[")) {
+        _currentRow = new JSONArray(line);
+        return true;
+      }
+      _currentRow = null;
+      _trailer = new JSONObject(line);
+      close();
+      JSONArray exceptions = _trailer.getJSONArray("exceptions");
+      if (exceptions.length() != 0) {
+        throw new PinotClientException("Query had processing exceptions: \n" + exceptions);
+      }
+      return false;
+    } catch (JSONException e) {
+      closeQuietly();
+      throw new PinotClientException(e);
+    }
+  }
+
+  /**
+   * Returns the number of columns in this result set.
+   *
+   * @return The number of columns in this result set
+   */
+  public int getColumnCount() {
+    return _columnsArray.length();
+  }
+
+  /**
+   * Returns the column name at a given index.
+   *
+   * @param columnIndex The index of the column for which to retrieve the name
+   * @return The name of the column at the given column index
+   */
+  public String getColumnName(int columnIndex) {
+    try {
+      return _columnsArray.getString(columnIndex);
+    } catch (JSONException e) {
+      throw new PinotClientException(e);
+    }
+  }
+
+  /**
+   * Obtains the String value for the given column of the current row.
+   *
+   * @param columnIndex The index of the column for which to fetch the value
+   * @return The String value for the given column
+   */
+  public String getString(int columnIndex) {
+    if (_currentRow == null) {
+      throw new PinotClientException("No current row, next() must be called and return true before reading values");
+    }
+    try {
+      return _currentRow.getString(columnIndex);
+    } catch (JSONException e) {
+      throw new PinotClientException(e);
+    }
+  }
+
+  /**
+   * Obtains the integer value for the given column of the current row.
+   *
+   * @param columnIndex The index of the column for which to fetch the value
+   * @return The integer value for the given column
+   */
+  public int getInt(int columnIndex) {
+    return Integer.parseInt(getString(columnIndex));
+  }
+
+  /**
+   * Obtains the long value for the given column of the current row.
+   *
+   * @param columnIndex The index of the column for which to fetch the value
+   * @return The long value for the given column
+   */
+  public long getLong(int columnIndex) {
+    return Long.parseLong(getString(columnIndex));
+  }
+
+  /**
+   * Obtains the float value for the given column of the current row.
+   *
+   * @param columnIndex The index of the column for which to fetch the value
+   * @return The float value for the given column
+   */
+  public float getFloat(int columnIndex) {
+    return Float.parseFloat(getString(columnIndex));
+  }
+
+  /**
+   * Obtains the double value for the given column of the current row.
+   *
+   * @param columnIndex The index of the column for which to fetch the value
+   * @return The double value for the given column
+   */
+  public double getDouble(int columnIndex) {
+    return Double.parseDouble(getString(columnIndex));
+  }
+
+  /**
+   * Returns the number of documents scanned by the query, only available once all the rows have been read.
+   *
+   * @return The number of documents scanned
+   */
+  public long getNumDocsScanned() {
+    return getTrailerLong("numDocsScanned");
+  }
+
+  /**
+   * Returns the total number of documents of the queried table, only available once all the rows have been read.
+   *
+   * @return The total number of documents
+   */
+  public long getTotalDocs() {
+    return getTrailerLong("totalDocs");
+  }
+
+  @Override
+  public void close() {
+    try {
+      _reader.close();
+    } catch (IOException e) {
+      throw new PinotClientException(e);
+    }
+  }
+
+  private long getTrailerLong(String key) {
+    if (_trailer == null) {
+      throw new PinotClientException("Query statistics are only available once all the rows have been read");
+    }
+    try {
+      return _trailer.getLong(key);
+    } catch (JSONException e) {
+      throw new PinotClientException(e);
+    }
+  }
+
+  private String readLine() {
+    try {
+      String line = _reader.readLine();
+      if (line == null) {
+        closeQuietly();
+        throw new PinotClientException("Unexpected end of the result stream");
+      }
+      return line;
+    } catch (IOException e) {
+      closeQuietly();
+      throw new PinotClientException(e);
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      _reader.close();
+    } catch (IOException e) {
+      // Ignored, already handling a failure
+    }
+  }
+}
@@ -59,6 +59,12 @@ public class PreparedStatementTest {
       return null;
     }
 
+    @Override
+    public StreamingResultSet executeStreamingQuery(String brokerAddress, String query)
+        throws PinotClientException {
+      return null;
+    }
+
     public String getLastQuery() {
       return _lastQuery;
     }
@@ -142,6 +142,12 @@ public class ResultSetGroupTest {
         throws PinotClientException {
       return null;
     }
+
+    @Override
+    public StreamingResultSet executeStreamingQuery(String brokerAddress, String query)
+        throws PinotClientException {
+      return null;
+    }
   }
 
   class DummyJsonTransportFactory implements PinotClientTransportFactory {
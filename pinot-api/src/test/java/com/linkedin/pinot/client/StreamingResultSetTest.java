@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.client;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests reading a streamed selection result given hardcoded broker output.
+ */
+public class StreamingResultSetTest {
+  @Test
+  public void testReadRows() {
+    StreamingResultSet resultSet = getResultSet("{\"columns\":[\"playerName\",\"runs\"]}\n"
+        + "[\"Babe Ruth\",\"2174\"]\n"
+        + "[\"Ty Cobb\",\"2246\"]\n"
+        + "{\"numDocsScanned\":2,\"totalDocs\":97889,\"timeUsedMs\":12,\"exceptions\":[]}\n");
+
+    Assert.assertEquals(resultSet.getColumnCount(), 2);
+    Assert.assertEquals(resultSet.getColumnName(0), "playerName");
+    Assert.assertEquals(resultSet.getColumnName(1), "runs");
+
+    Assert.assertTrue(resultSet.next());
+    Assert.assertEquals(resultSet.getString(0), "Babe Ruth");
+    Assert.assertEquals(resultSet.getInt(1), 2174);
+    Assert.assertTrue(resultSet.next());
+    Assert.assertEquals(resultSet.getString(0), "Ty Cobb");
+    Assert.assertEquals(resultSet.getLong(1), 2246L);
+    Assert.assertFalse(resultSet.next());
+    Assert.assertFalse(resultSet.next());
+
+    Assert.assertEquals(resultSet.getNumDocsScanned(), 2L);
+    Assert.assertEquals(resultSet.getTotalDocs(), 97889L);
+  }
+
+  @Test(expectedExceptions = PinotClientException.class)
+  public void testProcessingExceptions() {
+    StreamingResultSet resultSet = getResultSet("{\"columns\":[\"playerName\"]}\n"
+        + "[\"Babe Ruth\"]\n"
+        + "{\"numDocsScanned\":1,\"totalDocs\":97889,\"timeUsedMs\":12,"
+        + "\"exceptions\":[{\"errorCode\":200,\"message\":\"QueryExecutionError\"}]}\n");
+
+    Assert.assertTrue(resultSet.next());
+    resultSet.next();
+  }
+
+  @Test(expectedExceptions = PinotClientException.class)
+  public void testTruncatedStream() {
+    StreamingResultSet resultSet = getResultSet("{\"columns\":[\"playerName\"]}\n"
+        + "[\"Babe Ruth\"]\n");
+
+    Assert.assertTrue(resultSet.next());
+    resultSet.next();
+  }
+
+  @Test(expectedExceptions = PinotClientException.class)
+  public void testNonStreamedResponse() {
+    getResultSet("{\"aggregationResults\":[],\"exceptions\":[],\"numDocsScanned\":0,\"totalDocs\":0,"
+        + "\"timeUsedMs\":1}\n");
+  }
+
+  private StreamingResultSet getResultSet(String brokerOutput) {
+    return new StreamingResultSet(new BufferedReader(new StringReader(brokerOutput)));
+  }
+}
@@ -23,6 +23,7 @@ public class BrokerClientConf {
   public static final String ENABLE_QUERY_CONSOLE = "enableConsole";
   public static final String CONSOLE_RESOURCES_PATH = "consolePath";
   public static final String QUERY_PORT = "queryPort";
+  public static final String ENABLE_ASYNC_QUERY = "enableAsyncQuery";
   private static final int DEFAULT_QUERY_PORT = 8882;
 
   private Configuration config;
@@ -51,4 +52,11 @@ public class BrokerClientConf {
     }
     return DEFAULT_QUERY_PORT;
   }
+
+  public boolean enableAsyncQuery() {
+    if (config.containsKey(ENABLE_ASYNC_QUERY)) {
+      return config.getBoolean(ENABLE_ASYNC_QUERY);
+    }
+    return false;
+  }
 }
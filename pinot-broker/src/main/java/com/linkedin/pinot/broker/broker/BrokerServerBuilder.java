@@ -19,6 +19,7 @@ import com.linkedin.pinot.broker.broker.helix.LiveInstancesChangeListenerImpl;
 import com.linkedin.pinot.broker.servlet.PinotBrokerHealthCheckServlet;
 import com.linkedin.pinot.broker.servlet.PinotBrokerRoutingTableDebugServlet;
 import com.linkedin.pinot.broker.servlet.PinotBrokerServletContextChangeListener;
+import com.linkedin.pinot.broker.servlet.PinotClientRequestAsyncServlet;
 import com.linkedin.pinot.broker.servlet.PinotClientRequestServlet;
 import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
@@ -28,6 +29,7 @@ import com.linkedin.pinot.common.response.BrokerResponseFactory;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
 import com.linkedin.pinot.core.query.reduce.DefaultReduceService;
+import com.linkedin.pinot.core.query.reduce.StreamingSelectionReduceService;
 import com.linkedin.pinot.requestHandler.BrokerRequestHandler;
 import com.linkedin.pinot.routing.CfgBasedRouting;
 import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
@@ -49,11 +51,15 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.HashedWheelTimer;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,16 +74,24 @@ public class BrokerServerBuilder {
   private static final String METRICS_CONFIG_PREFIX = "pinot.broker.metrics";
   private static final String BROKER_TIME_OUT_CONFIG = "pinot.broker.timeoutMs";
   private static final String BROKER_DELAY_SHUTDOWN_TIME_CONFIG = "pinot.broker.delayShutdownTimeMs";
+  private static final String BROKER_REDUCE_THREADS_CONFIG = "pinot.broker.reduce.threads";
+  private static final String BROKER_REDUCE_QUEUE_SIZE_CONFIG = "pinot.broker.reduce.queueSize";
+  private static final String BROKER_STREAMING_MAX_IN_FLIGHT_BYTES_CONFIG = "pinot.broker.streaming.maxInFlightBytes";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerServerBuilder.class);
   private static final long DEFAULT_BROKER_TIME_OUT_MS = 10 * 1000L;
   private static final long DEFAULT_BROKER_DELAY_SHUTDOWN_TIME_MS = 10 * 1000L;
+  private static final int DEFAULT_BROKER_REDUCE_THREADS = Runtime.getRuntime().availableProcessors();
+  private static final int DEFAULT_BROKER_REDUCE_QUEUE_SIZE = 1000;
 
   // Connection Pool Related
   private KeyedPool<ServerInstance, NettyClientConnection> _connPool;
   private ScheduledThreadPoolExecutor _poolTimeoutExecutor;
   private ExecutorService _requestSenderPool;
 
+  // Bounded pool running the reduce phase of asynchronous requests
+  private ThreadPoolExecutor _reducePool;
+
   // Netty Specific
   private EventLoopGroup _eventLoopGroup;
   private PooledNettyClientResourceManager _resourceManager;
@@ -181,9 +195,22 @@ public class BrokerServerBuilder {
     }
     LOGGER.info("Broker timeout is - " + brokerTimeOutMs + " ms");
 
+    // Setup the reduce pool for asynchronous requests. When the queue is full, new requests fail fast with a 503
+    // rather than being reduced on the network thread that completed the gather.
+    int reduceThreads = _config.getInt(BROKER_REDUCE_THREADS_CONFIG, DEFAULT_BROKER_REDUCE_THREADS);
+    int reduceQueueSize = _config.getInt(BROKER_REDUCE_QUEUE_SIZE_CONFIG, DEFAULT_BROKER_REDUCE_QUEUE_SIZE);
+    _reducePool = new ThreadPoolExecutor(reduceThreads, reduceThreads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(reduceQueueSize), new ThreadPoolExecutor.AbortPolicy());
+    LOGGER.info("Broker reduce pool has {} threads and a queue of size {}", reduceThreads, reduceQueueSize);
+
+    long streamingMaxInFlightBytes = _config.getLong(BROKER_STREAMING_MAX_IN_FLIGHT_BYTES_CONFIG,
+        BrokerRequestHandler.DEFAULT_STREAMING_MAX_IN_FLIGHT_BYTES);
+    LOGGER.info("Broker streaming in-flight budget is {} bytes per request", streamingMaxInFlightBytes);
+
     ReduceServiceRegistry reduceServiceRegistry = buildReduceServiceRegistry();
     _requestHandler = new BrokerRequestHandler(_routingTable, _timeBoundaryService, _scatterGather,
-        reduceServiceRegistry, _brokerMetrics, brokerTimeOutMs);
+        reduceServiceRegistry, _brokerMetrics, brokerTimeOutMs, _reducePool, _poolTimeoutExecutor,
+        streamingMaxInFlightBytes);
 
     LOGGER.info("Network initialized !!");
   }
@@ -212,7 +239,12 @@ public class BrokerServerBuilder {
     _server = new Server(clientConfig.getQueryPort());
 
     WebAppContext context = new WebAppContext();
-    context.addServlet(PinotClientRequestServlet.class, "/query");
+    if (clientConfig.enableAsyncQuery()) {
+      ServletHolder queryServletHolder = context.addServlet(PinotClientRequestAsyncServlet.class, "/query");
+      queryServletHolder.setAsyncSupported(true);
+    } else {
+      context.addServlet(PinotClientRequestServlet.class, "/query");
+    }
     context.addServlet(PinotBrokerHealthCheckServlet.class, "/health");
     context.addServlet(PinotBrokerRoutingTableDebugServlet.class, "/debug/routingTable/*");
 
@@ -222,7 +254,8 @@ public class BrokerServerBuilder {
       context.setResourceBase("");
     }
 
-    context.addEventListener(new PinotBrokerServletContextChangeListener(_requestHandler, _brokerMetrics));
+    context.addEventListener(new PinotBrokerServletContextChangeListener(_requestHandler, _brokerMetrics,
+        new StreamingSelectionReduceService()));
     context.setAttribute(BrokerServerBuilder.class.toString(), this);
     _server.setHandler(context);
   }
@@ -262,6 +295,7 @@ public class BrokerServerBuilder {
     _routingTable.shutdown();
     _poolTimeoutExecutor.shutdown();
     _requestSenderPool.shutdown();
+    _reducePool.shutdown();
     _state.set(State.SHUTDOWN);
     LOGGER.info("Network shutdown!!");
 
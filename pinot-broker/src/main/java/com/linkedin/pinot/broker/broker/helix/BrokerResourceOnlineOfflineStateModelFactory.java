@@ -15,7 +15,9 @@
  */
 package com.linkedin.pinot.broker.broker.helix;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixManager;
@@ -31,6 +33,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.Utils;
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.utils.helix.HelixHelper;
 import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
 
@@ -45,11 +49,44 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
 
   private static HelixManager _helixManager;
   private static HelixExternalViewBasedRouting _helixExternalViewBasedRouting;
+  private static BrokerMetrics _brokerMetrics;
+  // Tables brought online on this broker, guarded by itself
+  private static final Set<String> ONLINE_TABLES = new HashSet<String>();
 
   public BrokerResourceOnlineOfflineStateModelFactory(HelixManager helixManager,
-      HelixExternalViewBasedRouting helixExternalViewBasedRouting) {
+      HelixExternalViewBasedRouting helixExternalViewBasedRouting, BrokerMetrics brokerMetrics) {
     _helixManager = helixManager;
     _helixExternalViewBasedRouting = helixExternalViewBasedRouting;
+    _brokerMetrics = brokerMetrics;
+  }
+
+  // Broker query metrics are named after the table name in the query, without the table type suffix, so they are
+  // shared by the offline and realtime tables and removed only once both are dropped. The metrics recorded once the
+  // query is rewritten for the offline or realtime table, such as the per-phase timers, are named after the table
+  // name with its type, and are removed as soon as that table is dropped.
+  static void addTableMetrics(String tableName) {
+    synchronized (ONLINE_TABLES) {
+      ONLINE_TABLES.add(tableName);
+      if (_brokerMetrics != null) {
+        _brokerMetrics.addTable(TableNameBuilder.extractRawTableName(tableName));
+        _brokerMetrics.addTable(tableName);
+      }
+    }
+  }
+
+  static void removeTableMetrics(String tableName) {
+    synchronized (ONLINE_TABLES) {
+      ONLINE_TABLES.remove(tableName);
+      if (_brokerMetrics == null) {
+        return;
+      }
+      _brokerMetrics.removeTable(tableName);
+      String rawTableName = TableNameBuilder.extractRawTableName(tableName);
+      if (!ONLINE_TABLES.contains(TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(rawTableName))
+          && !ONLINE_TABLES.contains(TableNameBuilder.REALTIME_TABLE_NAME_BUILDER.forTable(rawTableName))) {
+        _brokerMetrics.removeTable(rawTableName);
+      }
+    }
   }
 
   public static String getStateModelDef() {
@@ -79,6 +116,7 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
             resourceName,
             HelixHelper.getExternalViewForResource(_helixManager.getClusterManagmentTool(),
                 _helixManager.getClusterName(), resourceName), instanceConfigList);
+        addTableMetrics(resourceName);
       } catch (Exception e) {
         LOGGER.error("Caught exception during OFFLINE -> ONLINE transition", e);
         Utils.rethrowException(e);
@@ -105,6 +143,7 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
         LOGGER.info("BrokerResourceOnlineOfflineStateModel.onBecomeDroppedFromOffline() : " + message);
         String resourceName = message.getResourceName();
         _helixExternalViewBasedRouting.markDataResourceOffline(resourceName);
+        removeTableMetrics(message.getPartitionName());
       } catch (Exception e) {
         LOGGER.error("Caught exception during OFFLINE -> DROPPED transition", e);
         Utils.rethrowException(e);
@@ -118,6 +157,7 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
         LOGGER.info("BrokerResourceOnlineOfflineStateModel.onBecomeDroppedFromOnline() : " + message);
         String resourceName = message.getResourceName();
         _helixExternalViewBasedRouting.markDataResourceOffline(resourceName);
+        removeTableMetrics(message.getPartitionName());
       } catch (Exception e) {
         LOGGER.error("Caught exception during ONLINE -> DROPPED transition", e);
         Utils.rethrowException(e);
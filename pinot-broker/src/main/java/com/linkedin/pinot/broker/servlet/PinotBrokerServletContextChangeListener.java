@@ -16,6 +16,7 @@
 package com.linkedin.pinot.broker.servlet;
 
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.query.StreamingReduceService;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 
@@ -25,10 +26,13 @@ import com.linkedin.pinot.requestHandler.BrokerRequestHandler;
 public class PinotBrokerServletContextChangeListener implements ServletContextListener {
   private BrokerRequestHandler requestHandler;
   private BrokerMetrics _brokerMetrics;
+  private StreamingReduceService _streamingReduceService;
 
-  public PinotBrokerServletContextChangeListener(BrokerRequestHandler handler, BrokerMetrics brokerMetrics) {
+  public PinotBrokerServletContextChangeListener(BrokerRequestHandler handler, BrokerMetrics brokerMetrics,
+      StreamingReduceService streamingReduceService) {
     this.requestHandler = handler;
     _brokerMetrics = brokerMetrics;
+    _streamingReduceService = streamingReduceService;
   }
 
   @Override
@@ -40,6 +44,7 @@ public class PinotBrokerServletContextChangeListener implements ServletContextLi
   public void contextInitialized(ServletContextEvent sce) {
     sce.getServletContext().setAttribute(BrokerRequestHandler.class.toString(), requestHandler);
     sce.getServletContext().setAttribute(BrokerMetrics.class.toString(), _brokerMetrics);
+    sce.getServletContext().setAttribute(StreamingReduceService.class.toString(), _streamingReduceService);
   }
 
 }
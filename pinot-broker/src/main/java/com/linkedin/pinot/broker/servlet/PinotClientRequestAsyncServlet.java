@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.servlet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.query.StreamingReduceService;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.requestHandler.BrokerRequestHandler;
+
+
+/**
+ * Asynchronous version of {@link PinotClientRequestServlet}.
+ *
+ * The container thread only compiles and scatters the query, then returns to the container. The response is written
+ * from the broker reduce pool once the scatter-gather completes, so slow queries do not hold on to servlet threads.
+ * Requests are answered with a 503 when the broker reduce pool is saturated.
+ * Must be registered with async support enabled.
+ */
+public class PinotClientRequestAsyncServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 2364178734871298357L;
+  private static final Logger LOGGER = LoggerFactory.getLogger(PinotClientRequestAsyncServlet.class);
+
+  private BrokerRequestHandler broker;
+  private BrokerMetrics brokerMetrics;
+  private StreamingReduceService streamingReduceService;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    broker = (BrokerRequestHandler) config.getServletContext().getAttribute(BrokerRequestHandler.class.toString());
+    brokerMetrics = (BrokerMetrics) config.getServletContext().getAttribute(BrokerMetrics.class.toString());
+    streamingReduceService =
+        (StreamingReduceService) config.getServletContext().getAttribute(StreamingReduceService.class.toString());
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    resp.setCharacterEncoding("UTF-8");
+    final JSONObject request;
+    try {
+      request = new JSONObject(req.getParameter("bql"));
+    } catch (final Exception e) {
+      writeError(resp.getWriter(), e, "GET", BrokerMeter.UNCAUGHT_GET_EXCEPTIONS);
+      return;
+    }
+    handleRequestAsync(req, request, "GET", BrokerMeter.UNCAUGHT_GET_EXCEPTIONS);
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    resp.setCharacterEncoding("UTF-8");
+    final JSONObject request;
+    try {
+      request = extractJSON(req);
+    } catch (final Exception e) {
+      writeError(resp.getWriter(), e, "POST", BrokerMeter.UNCAUGHT_POST_EXCEPTIONS);
+      return;
+    }
+    handleRequestAsync(req, request, "POST", BrokerMeter.UNCAUGHT_POST_EXCEPTIONS);
+  }
+
+  private void handleRequestAsync(HttpServletRequest req, JSONObject request, final String method,
+      final BrokerMeter exceptionMeter) throws IOException {
+    final AsyncContext asyncContext = req.startAsync();
+    // The broker request handler enforces the broker timeout itself, do not let the container time out first.
+    asyncContext.setTimeout(0);
+
+    final ListenableFuture<?> responseFuture;
+    try {
+      if (PinotClientRequestServlet.isStreamingRequest(request)) {
+        // Rows are written to the response as they arrive, nothing left to write once the future completes
+        responseFuture = broker.handleStreamingRequest(request, streamingReduceService,
+            asyncContext.getResponse().getWriter());
+      } else {
+        responseFuture = broker.handleRequestAsync(request);
+      }
+    } catch (final Exception e) {
+      writeError(asyncContext.getResponse().getWriter(), e, method, exceptionMeter);
+      asyncContext.complete();
+      return;
+    }
+
+    responseFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          PrintWriter writer = asyncContext.getResponse().getWriter();
+          try {
+            Object response = responseFuture.get();
+            if (response instanceof BrokerResponse) {
+              writer.print(((BrokerResponse) response).toJsonString());
+            }
+            writer.flush();
+            writer.close();
+          } catch (final Exception e) {
+            if (e instanceof ExecutionException && e.getCause() instanceof RejectedExecutionException) {
+              // The broker reduce queue is full, let the client retry later
+              ((HttpServletResponse) asyncContext.getResponse()).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+            writeError(writer, e, method, exceptionMeter);
+          }
+        } catch (final IOException e) {
+          LOGGER.error("Caught exception while writing response for {} request", method, e);
+          brokerMetrics.addMeteredGlobalValue(exceptionMeter, 1);
+        } finally {
+          asyncContext.complete();
+        }
+      }
+    }, MoreExecutors.sameThreadExecutor());
+  }
+
+  private void writeError(PrintWriter writer, Exception e, String method, BrokerMeter exceptionMeter) {
+    writer.print(e.getMessage());
+    writer.flush();
+    writer.close();
+    LOGGER.error("Caught exception while processing {} request", method, e);
+    brokerMetrics.addMeteredGlobalValue(exceptionMeter, 1);
+  }
+
+  private JSONObject extractJSON(HttpServletRequest req) throws IOException, JSONException {
+    final StringBuilder requestStr = new StringBuilder();
+    String line;
+    final BufferedReader reader = req.getReader();
+    while ((line = reader.readLine()) != null) {
+      requestStr.append(line);
+    }
+    return new JSONObject(requestStr.toString());
+  }
+}
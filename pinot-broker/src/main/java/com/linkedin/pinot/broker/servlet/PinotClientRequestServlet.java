@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.metrics.BrokerMeter;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.query.StreamingReduceService;
 import com.linkedin.pinot.common.response.BrokerResponse;
 import com.linkedin.pinot.requestHandler.BrokerRequestHandler;
 
@@ -41,13 +42,21 @@ public class PinotClientRequestServlet extends HttpServlet {
   private static final long serialVersionUID = -3516093545255816357L;
   private static final Logger LOGGER = LoggerFactory.getLogger(PinotClientRequestServlet.class);
 
+  /**
+   * Request flag asking for the response to be streamed as line-delimited Json.
+   */
+  public static final String STREAMING_REQUEST_KEY = "streaming";
+
   private BrokerRequestHandler broker;
   private BrokerMetrics brokerMetrics;
+  private StreamingReduceService streamingReduceService;
 
   @Override
   public void init(ServletConfig config) throws ServletException {
     broker = (BrokerRequestHandler) config.getServletContext().getAttribute(BrokerRequestHandler.class.toString());
     brokerMetrics = (BrokerMetrics) config.getServletContext().getAttribute(BrokerMetrics.class.toString());
+    streamingReduceService =
+        (StreamingReduceService) config.getServletContext().getAttribute(StreamingReduceService.class.toString());
   }
 
   @Override
@@ -74,7 +83,14 @@ public class PinotClientRequestServlet extends HttpServlet {
     resp.setCharacterEncoding("UTF-8");
     PrintWriter writer = resp.getWriter();
     try {
-      BrokerResponse brokerResponse = broker.handleRequest(extractJSON(req));
+      JSONObject request = extractJSON(req);
+      if (isStreamingRequest(request)) {
+        broker.handleStreamingRequest(request, streamingReduceService, writer).get();
+        writer.flush();
+        writer.close();
+        return;
+      }
+      BrokerResponse brokerResponse = broker.handleRequest(request);
       String jsonString = brokerResponse.toJsonString();
       writer.print(jsonString);
       writer.flush();
@@ -88,6 +104,10 @@ public class PinotClientRequestServlet extends HttpServlet {
     }
   }
 
+  static boolean isStreamingRequest(JSONObject request) {
+    return request.has(STREAMING_REQUEST_KEY) && request.optBoolean(STREAMING_REQUEST_KEY);
+  }
+
   private JSONObject extractJSON(HttpServletRequest req) throws IOException, JSONException {
     final StringBuilder requestStr = new StringBuilder();
     String line;
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.broker.helix;
+
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the table metrics added and removed by the broker resource state model.
+ */
+public class BrokerResourceOnlineOfflineStateModelFactoryTest {
+  private static final String RAW_TABLE_NAME = "metricsTestTable";
+  private static final String OFFLINE_TABLE_NAME = RAW_TABLE_NAME + "_OFFLINE";
+  private static final String REALTIME_TABLE_NAME = RAW_TABLE_NAME + "_REALTIME";
+
+  @Test
+  public void testDroppedTableMetricsAreRemoved() {
+    MetricsRegistry registry = new MetricsRegistry();
+    BrokerMetrics brokerMetrics = new BrokerMetrics(registry);
+    new BrokerResourceOnlineOfflineStateModelFactory(null, null, brokerMetrics);
+
+    BrokerResourceOnlineOfflineStateModelFactory.addTableMetrics(OFFLINE_TABLE_NAME);
+    BrokerResourceOnlineOfflineStateModelFactory.addTableMetrics(REALTIME_TABLE_NAME);
+    Assert.assertTrue(hasTableMetrics(registry, RAW_TABLE_NAME + "."));
+    Assert.assertTrue(hasTableMetrics(registry, OFFLINE_TABLE_NAME + "."));
+    Assert.assertTrue(hasTableMetrics(registry, REALTIME_TABLE_NAME + "."));
+
+    // Single table queries record their phase timings under the table name with its type
+    brokerMetrics.addPhaseTiming(getBrokerRequest(OFFLINE_TABLE_NAME), BrokerQueryPhase.REDUCE, 1000L);
+    brokerMetrics.addPhaseTiming(getBrokerRequest(REALTIME_TABLE_NAME), BrokerQueryPhase.REDUCE, 1000L);
+
+    // The raw table name metrics are kept while the realtime table is still online
+    BrokerResourceOnlineOfflineStateModelFactory.removeTableMetrics(OFFLINE_TABLE_NAME);
+    Assert.assertFalse(hasTableMetrics(registry, OFFLINE_TABLE_NAME + "."));
+    Assert.assertTrue(hasTableMetrics(registry, RAW_TABLE_NAME + "."));
+    Assert.assertTrue(hasTableMetrics(registry, REALTIME_TABLE_NAME + "."));
+
+    BrokerResourceOnlineOfflineStateModelFactory.removeTableMetrics(REALTIME_TABLE_NAME);
+    Assert.assertFalse(hasTableMetrics(registry, RAW_TABLE_NAME));
+  }
+
+  private static BrokerRequest getBrokerRequest(String tableName) {
+    BrokerRequest brokerRequest = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(tableName);
+    brokerRequest.setQuerySource(querySource);
+    return brokerRequest;
+  }
+
+  private static boolean hasTableMetrics(MetricsRegistry registry, String tableNamePrefix) {
+    for (MetricName metricName : registry.allMetrics().keySet()) {
+      if (metricName.getName().startsWith("pinot.broker." + tableNamePrefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.common.config;
 
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -30,11 +31,14 @@ public class IndexingConfig {
   private static final Logger LOGGER = LoggerFactory.getLogger(IndexingConfig.class);
 
   private List<String> invertedIndexColumns;
+  private List<String> dictionaryHashIndexColumns;
+  private List<String> rangeIndexColumns;
   private List<String> sortedColumn = new ArrayList<String>();
   private String loadMode;
   private String lazyLoad;
   private Map<String, String> streamConfigs = new HashMap<String, String>();
   private String segmentFormatVersion;
+  private StarTreeIndexSpec starTreeIndexSpec;
 
   public IndexingConfig() {
 
@@ -64,6 +68,22 @@ public class IndexingConfig {
     this.invertedIndexColumns = invertedIndexColumns;
   }
 
+  public List<String> getDictionaryHashIndexColumns() {
+    return dictionaryHashIndexColumns;
+  }
+
+  public void setDictionaryHashIndexColumns(List<String> dictionaryHashIndexColumns) {
+    this.dictionaryHashIndexColumns = dictionaryHashIndexColumns;
+  }
+
+  public List<String> getRangeIndexColumns() {
+    return rangeIndexColumns;
+  }
+
+  public void setRangeIndexColumns(List<String> rangeIndexColumns) {
+    this.rangeIndexColumns = rangeIndexColumns;
+  }
+
   public String getLoadMode() {
     return loadMode;
   }
@@ -88,6 +108,17 @@ public class IndexingConfig {
     return segmentFormatVersion;
   }
 
+  /**
+   * Star tree index created when loading the segments which do not have one, null if none.
+   */
+  public StarTreeIndexSpec getStarTreeIndexSpec() {
+    return starTreeIndexSpec;
+  }
+
+  public void setStarTreeIndexSpec(StarTreeIndexSpec starTreeIndexSpec) {
+    this.starTreeIndexSpec = starTreeIndexSpec;
+  }
+
   @Override
   public String toString() {
     final StringBuilder result = new StringBuilder();
@@ -16,6 +16,9 @@
 package com.linkedin.pinot.common.data;
 
 public class MetricFieldSpec extends FieldSpec {
+  private static final String DEFAULT_DERIVED_METRIC_NULL_VALUE = "";
+
+  private DerivedMetricType _derivedMetricType;
 
   public MetricFieldSpec() {
     super();
@@ -25,4 +28,45 @@ public class MetricFieldSpec extends FieldSpec {
   public MetricFieldSpec(String name, DataType dataType) {
     super(name, FieldType.METRIC, dataType, true);
   }
+
+  public MetricFieldSpec(String name, DataType dataType, DerivedMetricType derivedMetricType) {
+    this(name, dataType);
+    _derivedMetricType = derivedMetricType;
+  }
+
+  /**
+   * Returns how the values of this metric were derived, or null for plain numeric metrics.
+   */
+  public DerivedMetricType getDerivedMetricType() {
+    return _derivedMetricType;
+  }
+
+  public void setDerivedMetricType(DerivedMetricType derivedMetricType) {
+    _derivedMetricType = derivedMetricType;
+  }
+
+  @Override
+  public Object getDefaultNullValue() {
+    // Missing derived values are empty sketches
+    if (_derivedMetricType != null && !_isDefaultNullValueSet) {
+      return DEFAULT_DERIVED_METRIC_NULL_VALUE;
+    }
+    return super.getDefaultNullValue();
+  }
+
+  @Override
+  public String toString() {
+    if (_derivedMetricType == null) {
+      return super.toString();
+    }
+    return super.toString() + " derived metric type: " + _derivedMetricType;
+  }
+
+  /**
+   * Metric columns whose values are pre-built sketches rather than numbers.
+   */
+  public enum DerivedMetricType {
+    // String column holding serialized HyperLogLog sketches
+    HLL
+  }
 }
@@ -17,7 +17,9 @@ package com.linkedin.pinot.common.data;
 
 import com.google.common.base.Objects;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -25,6 +27,16 @@ public class StarTreeIndexSpec {
   public static final Integer DEFAULT_MAX_LEAF_RECORDS = 100000; // TODO: determine a good number via experiment
   public static final int DEFAULT_SKIP_MATERIALIZATION_CARDINALITY_THRESHOLD = 10000;
 
+  /** Aggregation functions that can be pre-aggregated into additional metric columns of the star tree. */
+  public static final String COUNT_FUNCTION = "count";
+  public static final String MIN_FUNCTION = "min";
+  public static final String MAX_FUNCTION = "max";
+  public static final Set<String> SUPPORTED_MATERIALIZED_AGGREGATION_FUNCTIONS =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList(COUNT_FUNCTION, MIN_FUNCTION, MAX_FUNCTION)));
+
+  /** Name of the pre-aggregated metric column holding the number of raw documents behind each document. */
+  public static final String PRE_AGGREGATED_COUNT_COLUMN = "count__star";
+
   /** The upper bound on the number of leaf records to be scanned for any query */
   private Integer maxLeafRecords = DEFAULT_MAX_LEAF_RECORDS;
 
@@ -36,6 +48,12 @@ public class StarTreeIndexSpec {
   private Set<String> _skipMaterializationForDimensions;
   private int skipMaterializationCardinalityThreshold = DEFAULT_SKIP_MATERIALIZATION_CARDINALITY_THRESHOLD;
 
+  /**
+   * Aggregation functions (count, min, max) to materialize as additional metric columns, so that queries using them
+   * (and avg, through sum and count) can be answered from the aggregated documents.
+   */
+  private Set<String> materializedAggregationFunctions = Collections.emptySet();
+
   public StarTreeIndexSpec() {}
 
   public Integer getMaxLeafRecords() {
@@ -78,6 +96,25 @@ public class StarTreeIndexSpec {
     this.skipMaterializationCardinalityThreshold = skipMaterializationCardinalityThreshold;
   }
 
+  public Set<String> getMaterializedAggregationFunctions() {
+    return materializedAggregationFunctions;
+  }
+
+  public void setMaterializedAggregationFunctions(Set<String> materializedAggregationFunctions) {
+    this.materializedAggregationFunctions = materializedAggregationFunctions;
+  }
+
+  /**
+   * Returns the name of the metric column holding the given pre-aggregated function of a metric, e.g. 'min__m1'.
+   * The count column does not depend on any metric, see {@link #PRE_AGGREGATED_COUNT_COLUMN}.
+   */
+  public static String getPreAggregatedColumnName(String function, String metric) {
+    if (COUNT_FUNCTION.equals(function)) {
+      return PRE_AGGREGATED_COUNT_COLUMN;
+    }
+    return function + "__" + metric;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (!(o instanceof StarTreeIndexSpec)) {
@@ -98,6 +135,7 @@ public class StarTreeIndexSpec {
     return Objects.toStringHelper(this)
         .add("maxLeafRecords", maxLeafRecords)
         .add("dimensionsSplitOrder", dimensionsSplitOrder)
+        .add("materializedAggregationFunctions", materializedAggregationFunctions)
         .toString();
   }
 }
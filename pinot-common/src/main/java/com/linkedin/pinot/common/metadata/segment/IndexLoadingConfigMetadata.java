@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.common.metadata.segment;
 
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -30,8 +32,25 @@ import org.apache.commons.configuration.Configuration;
 public class IndexLoadingConfigMetadata {
 
   public static final String KEY_OF_LOADING_INVERTED_INDEX = "metadata.loading.inverted.index.columns";
+  public static final String KEY_OF_LOADING_DICTIONARY_HASH_INDEX = "metadata.loading.dictionary.hash.index.columns";
+  public static final String KEY_OF_LOADING_RANGE_INDEX = "metadata.loading.range.index.columns";
+  public static final String KEY_OF_LOADING_STAR_TREE = "metadata.loading.star.tree";
+  public static final String KEY_OF_LOADING_STAR_TREE_MAX_LEAF_RECORDS = "metadata.loading.star.tree.max.leaf.records";
+  public static final String KEY_OF_LOADING_STAR_TREE_DIMENSIONS_SPLIT_ORDER =
+      "metadata.loading.star.tree.dimensions.split.order";
+  public static final String KEY_OF_LOADING_STAR_TREE_SKIP_STAR_NODE_CREATION_DIMENSIONS =
+      "metadata.loading.star.tree.skip.star.node.creation.dimensions";
+  public static final String KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_DIMENSIONS =
+      "metadata.loading.star.tree.skip.materialization.dimensions";
+  public static final String KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY =
+      "metadata.loading.star.tree.skip.materialization.cardinality";
+  public static final String KEY_OF_LOADING_STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS =
+      "metadata.loading.star.tree.materialized.aggregation.functions";
   public static final String KEY_OF_SEGMENT_FORMAT_VERSION = "segment.format.version";
   private final Set<String> _loadingInvertedIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingDictionaryHashIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingRangeIndexColumnSet = new HashSet<String>();
+  private StarTreeIndexSpec _loadingStarTreeIndexSpec;
   private final String DEFAULT_SEGMENT_FORMAT = "v1";
   private String segmentVersionToLoad;
 
@@ -40,6 +59,44 @@ public class IndexLoadingConfigMetadata {
     if ((valueOfLoadingInvertedIndexConfig != null) && (!valueOfLoadingInvertedIndexConfig.isEmpty())) {
       initLoadingInvertedIndexColumnSet(valueOfLoadingInvertedIndexConfig.toArray(new String[0]));
     }
+    List<String> valueOfLoadingDictionaryHashIndexConfig =
+        tableDataManagerConfig.getList(KEY_OF_LOADING_DICTIONARY_HASH_INDEX, null);
+    if ((valueOfLoadingDictionaryHashIndexConfig != null) && (!valueOfLoadingDictionaryHashIndexConfig.isEmpty())) {
+      initLoadingDictionaryHashIndexColumnSet(valueOfLoadingDictionaryHashIndexConfig.toArray(new String[0]));
+    }
+    List<String> valueOfLoadingRangeIndexConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_RANGE_INDEX, null);
+    if ((valueOfLoadingRangeIndexConfig != null) && (!valueOfLoadingRangeIndexConfig.isEmpty())) {
+      initLoadingRangeIndexColumnSet(valueOfLoadingRangeIndexConfig.toArray(new String[0]));
+    }
+    if (tableDataManagerConfig.getBoolean(KEY_OF_LOADING_STAR_TREE, false)) {
+      StarTreeIndexSpec starTreeIndexSpec = new StarTreeIndexSpec();
+      starTreeIndexSpec.setMaxLeafRecords(tableDataManagerConfig.getInteger(KEY_OF_LOADING_STAR_TREE_MAX_LEAF_RECORDS,
+          StarTreeIndexSpec.DEFAULT_MAX_LEAF_RECORDS));
+      List<String> dimensionsSplitOrder =
+          tableDataManagerConfig.getList(KEY_OF_LOADING_STAR_TREE_DIMENSIONS_SPLIT_ORDER, null);
+      if ((dimensionsSplitOrder != null) && (!dimensionsSplitOrder.isEmpty())) {
+        starTreeIndexSpec.setDimensionsSplitOrder(new ArrayList<String>(dimensionsSplitOrder));
+      }
+      List<String> skipStarNodeCreationDimensions =
+          tableDataManagerConfig.getList(KEY_OF_LOADING_STAR_TREE_SKIP_STAR_NODE_CREATION_DIMENSIONS, null);
+      if ((skipStarNodeCreationDimensions != null) && (!skipStarNodeCreationDimensions.isEmpty())) {
+        starTreeIndexSpec.setSkipStarNodeCreationForDimensions(new HashSet<String>(skipStarNodeCreationDimensions));
+      }
+      List<String> skipMaterializationDimensions =
+          tableDataManagerConfig.getList(KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_DIMENSIONS, null);
+      if ((skipMaterializationDimensions != null) && (!skipMaterializationDimensions.isEmpty())) {
+        starTreeIndexSpec.setSkipMaterializationForDimensions(new HashSet<String>(skipMaterializationDimensions));
+      }
+      starTreeIndexSpec.setSkipMaterializationCardinalityThreshold(
+          tableDataManagerConfig.getInt(KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY,
+              StarTreeIndexSpec.DEFAULT_SKIP_MATERIALIZATION_CARDINALITY_THRESHOLD));
+      List<String> materializedAggregationFunctions =
+          tableDataManagerConfig.getList(KEY_OF_LOADING_STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS, null);
+      if ((materializedAggregationFunctions != null) && (!materializedAggregationFunctions.isEmpty())) {
+        starTreeIndexSpec.setMaterializedAggregationFunctions(new HashSet<String>(materializedAggregationFunctions));
+      }
+      initLoadingStarTreeIndexSpec(starTreeIndexSpec);
+    }
 
     segmentVersionToLoad = tableDataManagerConfig.getString(KEY_OF_SEGMENT_FORMAT_VERSION, DEFAULT_SEGMENT_FORMAT);
   }
@@ -56,6 +113,46 @@ public class IndexLoadingConfigMetadata {
     return _loadingInvertedIndexColumnSet.contains(columnName);
   }
 
+  public void initLoadingDictionaryHashIndexColumnSet(String[] columnCollections) {
+    _loadingDictionaryHashIndexColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingDictionaryHashIndexColumns() {
+    return _loadingDictionaryHashIndexColumnSet;
+  }
+
+  public boolean isLoadingDictionaryHashIndexForColumn(String columnName) {
+    return _loadingDictionaryHashIndexColumnSet.contains(columnName);
+  }
+
+  public void initLoadingRangeIndexColumnSet(String[] columnCollections) {
+    _loadingRangeIndexColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingRangeIndexColumns() {
+    return _loadingRangeIndexColumnSet;
+  }
+
+  public boolean isLoadingRangeIndexForColumn(String columnName) {
+    return _loadingRangeIndexColumnSet.contains(columnName);
+  }
+
+  public void initLoadingStarTreeIndexSpec(StarTreeIndexSpec starTreeIndexSpec) {
+    _loadingStarTreeIndexSpec = starTreeIndexSpec;
+  }
+
+  /**
+   * Returns the spec of the star tree index to create for the segments loaded without one, null if no star tree index
+   * should be created.
+   */
+  public StarTreeIndexSpec getLoadingStarTreeIndexSpec() {
+    return _loadingStarTreeIndexSpec;
+  }
+
+  public boolean isLoadingStarTree() {
+    return _loadingStarTreeIndexSpec != null;
+  }
+
   public String segmentVersionToLoad() {
     return segmentVersionToLoad;
   }
@@ -15,7 +15,9 @@
  */
 package com.linkedin.pinot.common.metrics;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +49,13 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
 
   private final Map<String, AtomicLong> _gaugeValues = new ConcurrentHashMap<String, AtomicLong>();
 
+  // Metrics resolved once and reused, so that recording a value neither builds metric names nor looks up the registry
+  private final ConcurrentHashMap<String, TableMetrics> _tableMetrics = new ConcurrentHashMap<String, TableMetrics>();
+  private final ConcurrentHashMap<M, com.yammer.metrics.core.Meter> _globalMeters =
+      new ConcurrentHashMap<M, com.yammer.metrics.core.Meter>();
+  // Holds the metrics requested through a table that was removed concurrently, so that they are not registered again
+  private final MetricsRegistry _removedTableMetricsRegistry = new MetricsRegistry();
+
   public AbstractMetrics(String metricPrefix, MetricsRegistry metricsRegistry, Class clazz) {
     _metricPrefix = metricPrefix;
     _metricsRegistry = metricsRegistry;
@@ -87,8 +96,8 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param nanos The number of nanoseconds that the phase execution took to complete
    */
   public void addPhaseTiming(final BrokerRequest request, final QP phase, final long nanos) {
-    final String fullTimerName = buildMetricName(request, phase.getQueryPhaseName());
-    addValueToTimer(fullTimerName, nanos, TimeUnit.NANOSECONDS);
+    getTableMetrics(getTableName(request)).getTimer(phase, phase.getQueryPhaseName())
+        .update(nanos, TimeUnit.NANOSECONDS);
   }
 
   /**
@@ -100,35 +109,135 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param timeUnit The log time duration time unit
    */
   public void addTimedTableValue(final String tableName, ServerTimer timer, final long duration, final TimeUnit timeUnit) {
-    final String fullTimerName = _metricPrefix + tableName + "." + timer.getTimerName();
-    addValueToTimer(fullTimerName, duration, timeUnit);
+    getTableMetrics(tableName).getTimer(timer, timer.getTimerName()).update(duration, timeUnit);
+  }
+
+  /**
+   * Returns the table name to use in the metric names for the given request, "unknown" if the request has no table.
+   */
+  private String getTableName(BrokerRequest request) {
+    if (request != null && request.getQuerySource() != null && request.getQuerySource().getTableName() != null) {
+      return request.getQuerySource().getTableName();
+    } else {
+      return "unknown";
+    }
+  }
+
+  private TableMetrics getTableMetrics(String tableName) {
+    TableMetrics tableMetrics = _tableMetrics.get(tableName);
+    if (tableMetrics == null) {
+      tableMetrics = new TableMetrics(tableName);
+      TableMetrics existingTableMetrics = _tableMetrics.putIfAbsent(tableName, tableMetrics);
+      if (existingTableMetrics != null) {
+        tableMetrics = existingTableMetrics;
+      }
+    }
+    return tableMetrics;
   }
 
   /**
-   * Logs the timing for a metric
+   * Resolves the query phase timers of a table ahead of its first query.
    *
-   * @param fullTimerName The full name of timer
-   * @param duration The log time duration time value
-   * @param timeUnit The log time duration time unit
+   * @param tableName The table name
    */
-  private void addValueToTimer(String fullTimerName, final long duration, final TimeUnit timeUnit) {
-    final MetricName metricName = new MetricName(_clazz, fullTimerName);
-    MetricsHelper.newTimer(_metricsRegistry, metricName, TimeUnit.MILLISECONDS, TimeUnit.SECONDS).update(duration,
-        timeUnit);
+  public void addTable(final String tableName) {
+    TableMetrics tableMetrics = getTableMetrics(tableName);
+    for (QP phase : getQueryPhases()) {
+      tableMetrics.getTimer(phase, phase.getQueryPhaseName());
+    }
   }
 
   /**
-   * Builds a complete metric name, of the form prefix.resource.metric
+   * Drops the resolved metrics of a table and removes them from the registry.
    *
-   * @param request The broker request containing all the information
-   * @param metricName The metric name to register
-   * @return The complete metric name
+   * @param tableName The table name
    */
-  private String buildMetricName(BrokerRequest request, String metricName) {
-    if (request != null && request.getQuerySource() != null && request.getQuerySource().getTableName() != null) {
-      return _metricPrefix + request.getQuerySource().getTableName() + "." + metricName;
-    } else {
-      return _metricPrefix + "unknown." + metricName;
+  public void removeTable(final String tableName) {
+    TableMetrics tableMetrics = _tableMetrics.remove(tableName);
+    if (tableMetrics != null) {
+      tableMetrics.remove();
+    }
+  }
+
+  /**
+   * Timers and meters of one table. Metrics are created in the registry on first use and cached afterwards; since the
+   * registry returns the existing metric for a given name, concurrent first uses resolve to the same metric.
+   *
+   * Metrics are created and removed under the lock of the table metrics, so a call that looked up the table metrics
+   * before {@link #removeTable(String)} can not register a metric again once the table is removed; it records into a
+   * metric that is not in the registry instead.
+   */
+  private class TableMetrics {
+    private final String _tableName;
+    private final ConcurrentHashMap<Object, com.yammer.metrics.core.Timer> _timers =
+        new ConcurrentHashMap<Object, com.yammer.metrics.core.Timer>();
+    private final ConcurrentHashMap<M, com.yammer.metrics.core.Meter> _meters =
+        new ConcurrentHashMap<M, com.yammer.metrics.core.Meter>();
+    // Guarded by this
+    private final Set<MetricName> _metricNames = new HashSet<MetricName>();
+    private boolean _removed = false;
+
+    private TableMetrics(String tableName) {
+      _tableName = tableName;
+    }
+
+    private com.yammer.metrics.core.Timer getTimer(Object key, String timerName) {
+      com.yammer.metrics.core.Timer timer = _timers.get(key);
+      if (timer == null) {
+        synchronized (this) {
+          timer = _timers.get(key);
+          if (timer == null) {
+            MetricName metricName = new MetricName(_clazz, _metricPrefix + _tableName + "." + timerName);
+            timer = MetricsHelper.newTimer(getRegistry(metricName), metricName, TimeUnit.MILLISECONDS,
+                TimeUnit.SECONDS);
+            unregisterIfRemoved(metricName);
+            _timers.put(key, timer);
+          }
+        }
+      }
+      return timer;
+    }
+
+    private com.yammer.metrics.core.Meter getMeter(M meter) {
+      com.yammer.metrics.core.Meter yammerMeter = _meters.get(meter);
+      if (yammerMeter == null) {
+        synchronized (this) {
+          yammerMeter = _meters.get(meter);
+          if (yammerMeter == null) {
+            MetricName metricName = new MetricName(_clazz, _metricPrefix + _tableName + "." + meter.getMeterName());
+            yammerMeter =
+                MetricsHelper.newMeter(getRegistry(metricName), metricName, meter.getUnit(), TimeUnit.SECONDS);
+            unregisterIfRemoved(metricName);
+            _meters.put(meter, yammerMeter);
+          }
+        }
+      }
+      return yammerMeter;
+    }
+
+    // Returns the registry to create the given metric in, and tracks its name if it is the server or broker registry.
+    // Must be called while holding the lock
+    private MetricsRegistry getRegistry(MetricName metricName) {
+      if (_removed) {
+        return _removedTableMetricsRegistry;
+      }
+      _metricNames.add(metricName);
+      return _metricsRegistry;
+    }
+
+    // Must be called while holding the lock
+    private void unregisterIfRemoved(MetricName metricName) {
+      if (_removed) {
+        MetricsHelper.removeMetric(_removedTableMetricsRegistry, metricName);
+      }
+    }
+
+    private synchronized void remove() {
+      _removed = true;
+      for (MetricName metricName : _metricNames) {
+        MetricsHelper.removeMetric(_metricsRegistry, metricName);
+      }
+      _metricNames.clear();
     }
   }
 
@@ -159,12 +268,13 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param unitCount The number of units to add to the meter
    */
   public void addMeteredGlobalValue(final M meter, final long unitCount) {
-    final String fullMeterName;
-    String meterName = meter.getMeterName();
-    fullMeterName = _metricPrefix + meterName;
-    final MetricName metricName = new MetricName(_clazz, fullMeterName);
-
-    MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS).mark(unitCount);
+    com.yammer.metrics.core.Meter yammerMeter = _globalMeters.get(meter);
+    if (yammerMeter == null) {
+      final MetricName metricName = new MetricName(_clazz, _metricPrefix + meter.getMeterName());
+      yammerMeter = MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS);
+      _globalMeters.put(meter, yammerMeter);
+    }
+    yammerMeter.mark(unitCount);
   }
 
   /**
@@ -175,12 +285,7 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param unitCount The number of units to add to the meter
    */
   public void addMeteredTableValue(final String tableName, final M meter, final long unitCount) {
-    final String fullMeterName;
-    String meterName = meter.getMeterName();
-    fullMeterName = _metricPrefix + tableName + "." + meterName;
-    final MetricName metricName = new MetricName(_clazz, fullMeterName);
-
-    MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS).mark(unitCount);
+    getTableMetrics(tableName).getMeter(meter).mark(unitCount);
   }
 
   /**
@@ -191,16 +296,11 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param unitCount The number of units to add to the meter
    */
   public void addMeteredQueryValue(final BrokerRequest request, final M meter, final long unitCount) {
-    final String fullMeterName;
-    String meterName = meter.getMeterName();
     if (request != null) {
-      fullMeterName = buildMetricName(request, meterName);
+      getTableMetrics(getTableName(request)).getMeter(meter).mark(unitCount);
     } else {
-      fullMeterName = _metricPrefix + meterName;
+      addMeteredGlobalValue(meter, unitCount);
     }
-    final MetricName metricName = new MetricName(_clazz, fullMeterName);
-
-    MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS).mark(unitCount);
   }
 
   /**
@@ -43,7 +43,10 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   // to the server. Note that this may be because we have exhausted the (fixed-size) pool for the server, and
   // also reached the maximum number of waiting requests for the server. The metric is counted on a per-table
   // basis.
-  REQUEST_DROPPED_DUE_TO_CONNECTION_ERROR("requestDropped", false);
+  REQUEST_DROPPED_DUE_TO_CONNECTION_ERROR("requestDropped", false),
+
+  // This metric tracks the number of asynchronous requests that failed because the broker reduce queue was full.
+  REQUEST_DROPPED_DUE_TO_REDUCE_QUEUE_FULL("requestDropped", true);
 
   private final String brokerMeterName;
   private final String unit;
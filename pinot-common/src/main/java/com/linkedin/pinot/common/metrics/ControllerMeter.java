@@ -29,6 +29,9 @@ public enum ControllerMeter implements AbstractMetrics.Meter {
   CONTROLLER_SEGMENT_GET_ERROR("SegmentGetError", true),
   CONTROLLER_SEGMENT_DELETE_ERROR("SegmentDeleteError", true),
   CONTROLLER_SEGMENT_UPLOAD_ERROR("SegmentUploadError", true),
+  CONTROLLER_SEGMENT_UPLOADED("segments", true),
+  CONTROLLER_SEGMENT_UPLOADED_BYTES("bytes", true),
+  CONTROLLER_SEGMENT_BATCH_UPLOADS("batches", true),
   CONTROLLER_SCHEMA_GET_ERROR("SchemaGetError", true),
   CONTROLLER_SCHEMA_DELETE_ERROR("SchemaDeleteError", true),
   CONTROLLER_SCHEMA_UPLOAD_ERROR("SchemaUploadError", true),
@@ -279,6 +279,20 @@ public class MetricsHelper {
     }
   }
 
+  /**
+   * Removes the metric with the given name, if any.
+   *
+   * @param registry MetricsRegistry
+   * @param name metric name
+   */
+  public static void removeMetric(MetricsRegistry registry, MetricName name) {
+    if (registry != null) {
+      registry.removeMetric(name);
+    } else {
+      Metrics.defaultRegistry().removeMetric(name);
+    }
+  }
+
   /**
    * Useful for measuring elapsed times.
    *
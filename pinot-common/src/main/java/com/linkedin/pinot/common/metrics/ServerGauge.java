@@ -24,7 +24,11 @@ import com.linkedin.pinot.common.Utils;
 */
 public enum ServerGauge implements AbstractMetrics.Gauge {
   DOCUMENT_COUNT("documents", false),
-  SEGMENT_COUNT("segments", false);
+  SEGMENT_COUNT("segments", false),
+  DIRECT_MEMORY_USAGE("bytes", false),
+  MMAP_MEMORY_USAGE("bytes", false),
+  REALTIME_DECODE_QUEUE_DEPTH("rows", false),
+  REALTIME_INDEX_QUEUE_DEPTH("rows", false);
 
   private final String gaugeName;
   private final String unit;
@@ -30,6 +30,8 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   HELIX_ZOOKEEPER_RECONNECTS("reconnects", true),
   DELETED_SEGMENT_COUNT("segments", false),
   REALTIME_ROWS_CONSUMED("rows", true),
+  REALTIME_ROWS_FETCHED("rows", false),
+  REALTIME_ROWS_DECODED("rows", false),
   INVALID_REALTIME_ROWS_DROPPED("rows", false),
   REALTIME_CONSUMPTION_EXCEPTIONS("exceptions", true),
   REALTIME_OFFSET_COMMITS("commits", true),
@@ -37,7 +39,9 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   ROWS_WITH_ERRORS("rows", false),
   ROWS_NEEDING_CONVERSIONS("rows", false),
   ROWS_WITH_NULL_VALUES("rows", false),
-  COLUMNS_WITH_NULL_VALUES("columns", false);
+  COLUMNS_WITH_NULL_VALUES("columns", false),
+  INVERTED_INDEX_BITMAP_CACHE_HITS("bitmaps", false),
+  INVERTED_INDEX_BITMAP_CACHE_MISSES("bitmaps", false);
 
   private final String meterName;
   private final String unit;
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+
+
+/**
+ * Interface for reducing server responses into a response stream, one server response at a time as they arrive,
+ * instead of gathering all the responses before reducing them into a single broker response.
+ */
+public interface StreamingReduceService {
+  /**
+   * Returns whether the given request can be reduced as a stream. Requests that need all the server responses to be
+   * merged before producing the first row (eg. aggregations or ordered selections) cannot be streamed.
+   *
+   * @param brokerRequest
+   * @return true if the request can be streamed
+   */
+  public boolean isStreamable(BrokerRequest brokerRequest);
+
+  /**
+   * Start streaming the response of the given request into the writer.
+   *
+   * @param brokerRequest
+   * @param writer Writer for the response stream
+   * @return StreamingReducer to feed with the server responses
+   */
+  public StreamingReducer startStreaming(BrokerRequest brokerRequest, Writer writer) throws IOException;
+}
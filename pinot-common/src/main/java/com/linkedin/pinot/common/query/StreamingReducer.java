@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import java.io.IOException;
+
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+
+
+/**
+ * Reduces the server responses of one request into a response stream. Created by
+ * {@link StreamingReduceService#startStreaming}, calls must be serialized by the caller.
+ */
+public interface StreamingReducer {
+  /**
+   * Reduce the response of one server and write its rows to the stream.
+   *
+   * @param serverInstance Server the response came from
+   * @param dataTable Response of the server
+   * @return false if the stream does not need any more responses (eg. the row limit is reached)
+   */
+  public boolean reduce(ServerInstance serverInstance, DataTable dataTable) throws IOException;
+
+  /**
+   * Write the end of the stream. Responses reduced after this call are ignored.
+   *
+   * @param timeUsedMs Total time spent processing the request
+   */
+  public void finish(long timeUsedMs) throws IOException;
+}
@@ -55,6 +55,8 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
   private static final org.apache.thrift.protocol.TField BUCKET_HASH_KEY_FIELD_DESC = new org.apache.thrift.protocol.TField("bucketHashKey", org.apache.thrift.protocol.TType.STRING, (short)10);
   private static final org.apache.thrift.protocol.TField ENABLE_TRACE_FIELD_DESC = new org.apache.thrift.protocol.TField("enableTrace", org.apache.thrift.protocol.TType.BOOL, (short)11);
   private static final org.apache.thrift.protocol.TField RESPONSE_FORMAT_FIELD_DESC = new org.apache.thrift.protocol.TField("responseFormat", org.apache.thrift.protocol.TType.STRING, (short)12);
+  private static final org.apache.thrift.protocol.TField ENABLE_PROFILE_FIELD_DESC = new org.apache.thrift.protocol.TField("enableProfile", org.apache.thrift.protocol.TType.BOOL, (short)13);
+  private static final org.apache.thrift.protocol.TField NUM_GROUPS_LIMIT_FIELD_DESC = new org.apache.thrift.protocol.TField("numGroupsLimit", org.apache.thrift.protocol.TType.I32, (short)14);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -74,6 +76,8 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
   private String bucketHashKey; // optional
   private boolean enableTrace; // optional
   private String responseFormat; // optional
+  private boolean enableProfile; // optional
+  private int numGroupsLimit; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -88,7 +92,9 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     FILTER_SUB_QUERY_MAP((short)9, "filterSubQueryMap"),
     BUCKET_HASH_KEY((short)10, "bucketHashKey"),
     ENABLE_TRACE((short)11, "enableTrace"),
-    RESPONSE_FORMAT((short)12, "responseFormat");
+    RESPONSE_FORMAT((short)12, "responseFormat"),
+    ENABLE_PROFILE((short)13, "enableProfile"),
+    NUM_GROUPS_LIMIT((short)14, "numGroupsLimit");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -127,6 +133,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
           return ENABLE_TRACE;
         case 12: // RESPONSE_FORMAT
           return RESPONSE_FORMAT;
+        case 13: // ENABLE_PROFILE
+          return ENABLE_PROFILE;
+        case 14: // NUM_GROUPS_LIMIT
+          return NUM_GROUPS_LIMIT;
         default:
           return null;
       }
@@ -168,8 +178,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
 
   // isset id assignments
   private static final int __ENABLETRACE_ISSET_ID = 0;
+  private static final int __ENABLEPROFILE_ISSET_ID = 1;
+  private static final int __NUMGROUPSLIMIT_ISSET_ID = 2;
   private byte __isset_bitfield = 0;
-  private static final _Fields optionals[] = {_Fields.QUERY_TYPE,_Fields.QUERY_SOURCE,_Fields.TIME_INTERVAL,_Fields.DURATION,_Fields.FILTER_QUERY,_Fields.AGGREGATIONS_INFO,_Fields.GROUP_BY,_Fields.SELECTIONS,_Fields.FILTER_SUB_QUERY_MAP,_Fields.BUCKET_HASH_KEY,_Fields.ENABLE_TRACE,_Fields.RESPONSE_FORMAT};
+  private static final _Fields optionals[] = {_Fields.QUERY_TYPE,_Fields.QUERY_SOURCE,_Fields.TIME_INTERVAL,_Fields.DURATION,_Fields.FILTER_QUERY,_Fields.AGGREGATIONS_INFO,_Fields.GROUP_BY,_Fields.SELECTIONS,_Fields.FILTER_SUB_QUERY_MAP,_Fields.BUCKET_HASH_KEY,_Fields.ENABLE_TRACE,_Fields.RESPONSE_FORMAT,_Fields.ENABLE_PROFILE,_Fields.NUM_GROUPS_LIMIT};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -198,6 +210,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
     tmpMap.put(_Fields.RESPONSE_FORMAT, new org.apache.thrift.meta_data.FieldMetaData("responseFormat", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+    tmpMap.put(_Fields.ENABLE_PROFILE, new org.apache.thrift.meta_data.FieldMetaData("enableProfile", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
+    tmpMap.put(_Fields.NUM_GROUPS_LIMIT, new org.apache.thrift.meta_data.FieldMetaData("numGroupsLimit", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(BrokerRequest.class, metaDataMap);
   }
@@ -248,6 +264,8 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     if (other.isSetResponseFormat()) {
       this.responseFormat = other.responseFormat;
     }
+    this.enableProfile = other.enableProfile;
+    this.numGroupsLimit = other.numGroupsLimit;
   }
 
   public BrokerRequest deepCopy() {
@@ -269,6 +287,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     setEnableTraceIsSet(false);
     this.enableTrace = false;
     this.responseFormat = null;
+    setEnableProfileIsSet(false);
+    this.enableProfile = false;
+    setNumGroupsLimitIsSet(false);
+    this.numGroupsLimit = 0;
   }
 
   public QueryType getQueryType() {
@@ -561,6 +583,50 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     }
   }
 
+  public boolean isEnableProfile() {
+    return this.enableProfile;
+  }
+
+  public void setEnableProfile(boolean enableProfile) {
+    this.enableProfile = enableProfile;
+    setEnableProfileIsSet(true);
+  }
+
+  public void unsetEnableProfile() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __ENABLEPROFILE_ISSET_ID);
+  }
+
+  /** Returns true if field enableProfile is set (has been assigned a value) and false otherwise */
+  public boolean isSetEnableProfile() {
+    return EncodingUtils.testBit(__isset_bitfield, __ENABLEPROFILE_ISSET_ID);
+  }
+
+  public void setEnableProfileIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __ENABLEPROFILE_ISSET_ID, value);
+  }
+
+  public int getNumGroupsLimit() {
+    return this.numGroupsLimit;
+  }
+
+  public void setNumGroupsLimit(int numGroupsLimit) {
+    this.numGroupsLimit = numGroupsLimit;
+    setNumGroupsLimitIsSet(true);
+  }
+
+  public void unsetNumGroupsLimit() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __NUMGROUPSLIMIT_ISSET_ID);
+  }
+
+  /** Returns true if field numGroupsLimit is set (has been assigned a value) and false otherwise */
+  public boolean isSetNumGroupsLimit() {
+    return EncodingUtils.testBit(__isset_bitfield, __NUMGROUPSLIMIT_ISSET_ID);
+  }
+
+  public void setNumGroupsLimitIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __NUMGROUPSLIMIT_ISSET_ID, value);
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case QUERY_TYPE:
@@ -659,6 +725,22 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       }
       break;
 
+    case ENABLE_PROFILE:
+      if (value == null) {
+        unsetEnableProfile();
+      } else {
+        setEnableProfile((Boolean)value);
+      }
+      break;
+
+    case NUM_GROUPS_LIMIT:
+      if (value == null) {
+        unsetNumGroupsLimit();
+      } else {
+        setNumGroupsLimit((Integer)value);
+      }
+      break;
+
     }
   }
 
@@ -700,6 +782,12 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     case RESPONSE_FORMAT:
       return getResponseFormat();
 
+    case ENABLE_PROFILE:
+      return Boolean.valueOf(isEnableProfile());
+
+    case NUM_GROUPS_LIMIT:
+      return Integer.valueOf(getNumGroupsLimit());
+
     }
     throw new IllegalStateException();
   }
@@ -735,6 +823,10 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       return isSetEnableTrace();
     case RESPONSE_FORMAT:
       return isSetResponseFormat();
+    case ENABLE_PROFILE:
+      return isSetEnableProfile();
+    case NUM_GROUPS_LIMIT:
+      return isSetNumGroupsLimit();
     }
     throw new IllegalStateException();
   }
@@ -860,6 +952,24 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         return false;
     }
 
+    boolean this_present_enableProfile = true && this.isSetEnableProfile();
+    boolean that_present_enableProfile = true && that.isSetEnableProfile();
+    if (this_present_enableProfile || that_present_enableProfile) {
+      if (!(this_present_enableProfile && that_present_enableProfile))
+        return false;
+      if (this.enableProfile != that.enableProfile)
+        return false;
+    }
+
+    boolean this_present_numGroupsLimit = true && this.isSetNumGroupsLimit();
+    boolean that_present_numGroupsLimit = true && that.isSetNumGroupsLimit();
+    if (this_present_numGroupsLimit || that_present_numGroupsLimit) {
+      if (!(this_present_numGroupsLimit && that_present_numGroupsLimit))
+        return false;
+      if (this.numGroupsLimit != that.numGroupsLimit)
+        return false;
+    }
+
     return true;
   }
 
@@ -927,6 +1037,16 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
     if (present_responseFormat)
       list.add(responseFormat);
 
+    boolean present_enableProfile = true && (isSetEnableProfile());
+    list.add(present_enableProfile);
+    if (present_enableProfile)
+      list.add(enableProfile);
+
+    boolean present_numGroupsLimit = true && (isSetNumGroupsLimit());
+    list.add(present_numGroupsLimit);
+    if (present_numGroupsLimit)
+      list.add(numGroupsLimit);
+
     return list.hashCode();
   }
 
@@ -1058,6 +1178,26 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetEnableProfile()).compareTo(other.isSetEnableProfile());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetEnableProfile()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.enableProfile, other.enableProfile);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
+    lastComparison = Boolean.valueOf(isSetNumGroupsLimit()).compareTo(other.isSetNumGroupsLimit());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetNumGroupsLimit()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.numGroupsLimit, other.numGroupsLimit);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -1193,6 +1333,18 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       }
       first = false;
     }
+    if (isSetEnableProfile()) {
+      if (!first) sb.append(", ");
+      sb.append("enableProfile:");
+      sb.append(this.enableProfile);
+      first = false;
+    }
+    if (isSetNumGroupsLimit()) {
+      if (!first) sb.append(", ");
+      sb.append("numGroupsLimit:");
+      sb.append(this.numGroupsLimit);
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -1369,6 +1521,22 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 13: // ENABLE_PROFILE
+            if (schemeField.type == org.apache.thrift.protocol.TType.BOOL) {
+              struct.enableProfile = iprot.readBool();
+              struct.setEnableProfileIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
+          case 14: // NUM_GROUPS_LIMIT
+            if (schemeField.type == org.apache.thrift.protocol.TType.I32) {
+              struct.numGroupsLimit = iprot.readI32();
+              struct.setNumGroupsLimitIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -1471,6 +1639,16 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
           oprot.writeFieldEnd();
         }
       }
+      if (struct.isSetEnableProfile()) {
+        oprot.writeFieldBegin(ENABLE_PROFILE_FIELD_DESC);
+        oprot.writeBool(struct.enableProfile);
+        oprot.writeFieldEnd();
+      }
+      if (struct.isSetNumGroupsLimit()) {
+        oprot.writeFieldBegin(NUM_GROUPS_LIMIT_FIELD_DESC);
+        oprot.writeI32(struct.numGroupsLimit);
+        oprot.writeFieldEnd();
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -1525,7 +1703,13 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       if (struct.isSetResponseFormat()) {
         optionals.set(11);
       }
-      oprot.writeBitSet(optionals, 12);
+      if (struct.isSetEnableProfile()) {
+        optionals.set(12);
+      }
+      if (struct.isSetNumGroupsLimit()) {
+        optionals.set(13);
+      }
+      oprot.writeBitSet(optionals, 14);
       if (struct.isSetQueryType()) {
         struct.queryType.write(oprot);
       }
@@ -1568,12 +1752,18 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
       if (struct.isSetResponseFormat()) {
         oprot.writeString(struct.responseFormat);
       }
+      if (struct.isSetEnableProfile()) {
+        oprot.writeBool(struct.enableProfile);
+      }
+      if (struct.isSetNumGroupsLimit()) {
+        oprot.writeI32(struct.numGroupsLimit);
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, BrokerRequest struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(12);
+      BitSet incoming = iprot.readBitSet(14);
       if (incoming.get(0)) {
         struct.queryType = new QueryType();
         struct.queryType.read(iprot);
@@ -1638,6 +1828,14 @@ public class BrokerRequest implements org.apache.thrift.TBase<BrokerRequest, Bro
         struct.responseFormat = iprot.readString();
         struct.setResponseFormatIsSet(true);
       }
+      if (incoming.get(12)) {
+        struct.enableProfile = iprot.readBool();
+        struct.setEnableProfileIsSet(true);
+      }
+      if (incoming.get(13)) {
+        struct.numGroupsLimit = iprot.readI32();
+        struct.setNumGroupsLimitIsSet(true);
+      }
     }
   }
 
@@ -45,6 +45,8 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
 
   private static final org.apache.thrift.protocol.TField COLUMNS_FIELD_DESC = new org.apache.thrift.protocol.TField("columns", org.apache.thrift.protocol.TType.LIST, (short)1);
   private static final org.apache.thrift.protocol.TField TOP_N_FIELD_DESC = new org.apache.thrift.protocol.TField("topN", org.apache.thrift.protocol.TType.I64, (short)2);
+  private static final org.apache.thrift.protocol.TField HAVING_FIELD_DESC = new org.apache.thrift.protocol.TField("having", org.apache.thrift.protocol.TType.LIST, (short)3);
+  private static final org.apache.thrift.protocol.TField ORDER_BY_FIELD_DESC = new org.apache.thrift.protocol.TField("orderBy", org.apache.thrift.protocol.TType.LIST, (short)4);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -54,11 +56,15 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
 
   private List<String> columns; // optional
   private long topN; // optional
+  private List<String> having; // optional
+  private List<SelectionSort> orderBy; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
     COLUMNS((short)1, "columns"),
-    TOP_N((short)2, "topN");
+    TOP_N((short)2, "topN"),
+    HAVING((short)3, "having"),
+    ORDER_BY((short)4, "orderBy");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -77,6 +83,10 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
           return COLUMNS;
         case 2: // TOP_N
           return TOP_N;
+        case 3: // HAVING
+          return HAVING;
+        case 4: // ORDER_BY
+          return ORDER_BY;
         default:
           return null;
       }
@@ -119,7 +129,7 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
   // isset id assignments
   private static final int __TOPN_ISSET_ID = 0;
   private byte __isset_bitfield = 0;
-  private static final _Fields optionals[] = {_Fields.COLUMNS,_Fields.TOP_N};
+  private static final _Fields optionals[] = {_Fields.COLUMNS,_Fields.TOP_N,_Fields.HAVING,_Fields.ORDER_BY};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -128,6 +138,12 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
             new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
     tmpMap.put(_Fields.TOP_N, new org.apache.thrift.meta_data.FieldMetaData("topN", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64)));
+    tmpMap.put(_Fields.HAVING, new org.apache.thrift.meta_data.FieldMetaData("having", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST, 
+            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+    tmpMap.put(_Fields.ORDER_BY, new org.apache.thrift.meta_data.FieldMetaData("orderBy", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST, 
+            new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, SelectionSort.class))));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(GroupBy.class, metaDataMap);
   }
@@ -145,6 +161,17 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
       this.columns = __this__columns;
     }
     this.topN = other.topN;
+    if (other.isSetHaving()) {
+      List<String> __this__having = new ArrayList<String>(other.having);
+      this.having = __this__having;
+    }
+    if (other.isSetOrderBy()) {
+      List<SelectionSort> __this__orderBy = new ArrayList<SelectionSort>(other.orderBy.size());
+      for (SelectionSort other_element : other.orderBy) {
+        __this__orderBy.add(new SelectionSort(other_element));
+      }
+      this.orderBy = __this__orderBy;
+    }
   }
 
   public GroupBy deepCopy() {
@@ -156,6 +183,8 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
     this.columns = null;
     setTopNIsSet(false);
     this.topN = 0;
+    this.having = null;
+    this.orderBy = null;
   }
 
   public int getColumnsSize() {
@@ -218,6 +247,82 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __TOPN_ISSET_ID, value);
   }
 
+  public int getHavingSize() {
+    return (this.having == null) ? 0 : this.having.size();
+  }
+
+  public java.util.Iterator<String> getHavingIterator() {
+    return (this.having == null) ? null : this.having.iterator();
+  }
+
+  public void addToHaving(String elem) {
+    if (this.having == null) {
+      this.having = new ArrayList<String>();
+    }
+    this.having.add(elem);
+  }
+
+  public List<String> getHaving() {
+    return this.having;
+  }
+
+  public void setHaving(List<String> having) {
+    this.having = having;
+  }
+
+  public void unsetHaving() {
+    this.having = null;
+  }
+
+  /** Returns true if field having is set (has been assigned a value) and false otherwise */
+  public boolean isSetHaving() {
+    return this.having != null;
+  }
+
+  public void setHavingIsSet(boolean value) {
+    if (!value) {
+      this.having = null;
+    }
+  }
+
+  public int getOrderBySize() {
+    return (this.orderBy == null) ? 0 : this.orderBy.size();
+  }
+
+  public java.util.Iterator<SelectionSort> getOrderByIterator() {
+    return (this.orderBy == null) ? null : this.orderBy.iterator();
+  }
+
+  public void addToOrderBy(SelectionSort elem) {
+    if (this.orderBy == null) {
+      this.orderBy = new ArrayList<SelectionSort>();
+    }
+    this.orderBy.add(elem);
+  }
+
+  public List<SelectionSort> getOrderBy() {
+    return this.orderBy;
+  }
+
+  public void setOrderBy(List<SelectionSort> orderBy) {
+    this.orderBy = orderBy;
+  }
+
+  public void unsetOrderBy() {
+    this.orderBy = null;
+  }
+
+  /** Returns true if field orderBy is set (has been assigned a value) and false otherwise */
+  public boolean isSetOrderBy() {
+    return this.orderBy != null;
+  }
+
+  public void setOrderByIsSet(boolean value) {
+    if (!value) {
+      this.orderBy = null;
+    }
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case COLUMNS:
@@ -236,6 +341,22 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
       }
       break;
 
+    case HAVING:
+      if (value == null) {
+        unsetHaving();
+      } else {
+        setHaving((List<String>)value);
+      }
+      break;
+
+    case ORDER_BY:
+      if (value == null) {
+        unsetOrderBy();
+      } else {
+        setOrderBy((List<SelectionSort>)value);
+      }
+      break;
+
     }
   }
 
@@ -247,6 +368,12 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
     case TOP_N:
       return Long.valueOf(getTopN());
 
+    case HAVING:
+      return getHaving();
+
+    case ORDER_BY:
+      return getOrderBy();
+
     }
     throw new IllegalStateException();
   }
@@ -262,6 +389,10 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
       return isSetColumns();
     case TOP_N:
       return isSetTopN();
+    case HAVING:
+      return isSetHaving();
+    case ORDER_BY:
+      return isSetOrderBy();
     }
     throw new IllegalStateException();
   }
@@ -297,6 +428,24 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
         return false;
     }
 
+    boolean this_present_having = true && this.isSetHaving();
+    boolean that_present_having = true && that.isSetHaving();
+    if (this_present_having || that_present_having) {
+      if (!(this_present_having && that_present_having))
+        return false;
+      if (!this.having.equals(that.having))
+        return false;
+    }
+
+    boolean this_present_orderBy = true && this.isSetOrderBy();
+    boolean that_present_orderBy = true && that.isSetOrderBy();
+    if (this_present_orderBy || that_present_orderBy) {
+      if (!(this_present_orderBy && that_present_orderBy))
+        return false;
+      if (!this.orderBy.equals(that.orderBy))
+        return false;
+    }
+
     return true;
   }
 
@@ -314,6 +463,16 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
     if (present_topN)
       list.add(topN);
 
+    boolean present_having = true && (isSetHaving());
+    list.add(present_having);
+    if (present_having)
+      list.add(having);
+
+    boolean present_orderBy = true && (isSetOrderBy());
+    list.add(present_orderBy);
+    if (present_orderBy)
+      list.add(orderBy);
+
     return list.hashCode();
   }
 
@@ -345,6 +504,26 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetHaving()).compareTo(other.isSetHaving());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetHaving()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.having, other.having);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
+    lastComparison = Boolean.valueOf(isSetOrderBy()).compareTo(other.isSetOrderBy());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetOrderBy()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.orderBy, other.orderBy);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -380,6 +559,26 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
       sb.append(this.topN);
       first = false;
     }
+    if (isSetHaving()) {
+      if (!first) sb.append(", ");
+      sb.append("having:");
+      if (this.having == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.having);
+      }
+      first = false;
+    }
+    if (isSetOrderBy()) {
+      if (!first) sb.append(", ");
+      sb.append("orderBy:");
+      if (this.orderBy == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.orderBy);
+      }
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -451,6 +650,43 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 3: // HAVING
+            if (schemeField.type == org.apache.thrift.protocol.TType.LIST) {
+              {
+                org.apache.thrift.protocol.TList _list44 = iprot.readListBegin();
+                struct.having = new ArrayList<String>(_list44.size);
+                String _elem45;
+                for (int _i46 = 0; _i46 < _list44.size; ++_i46)
+                {
+                  _elem45 = iprot.readString();
+                  struct.having.add(_elem45);
+                }
+                iprot.readListEnd();
+              }
+              struct.setHavingIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
+          case 4: // ORDER_BY
+            if (schemeField.type == org.apache.thrift.protocol.TType.LIST) {
+              {
+                org.apache.thrift.protocol.TList _list47 = iprot.readListBegin();
+                struct.orderBy = new ArrayList<SelectionSort>(_list47.size);
+                SelectionSort _elem48;
+                for (int _i49 = 0; _i49 < _list47.size; ++_i49)
+                {
+                  _elem48 = new SelectionSort();
+                  _elem48.read(iprot);
+                  struct.orderBy.add(_elem48);
+                }
+                iprot.readListEnd();
+              }
+              struct.setOrderByIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -483,6 +719,34 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
         oprot.writeI64(struct.topN);
         oprot.writeFieldEnd();
       }
+      if (struct.having != null) {
+        if (struct.isSetHaving()) {
+          oprot.writeFieldBegin(HAVING_FIELD_DESC);
+          {
+            oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, struct.having.size()));
+            for (String _iter50 : struct.having)
+            {
+              oprot.writeString(_iter50);
+            }
+            oprot.writeListEnd();
+          }
+          oprot.writeFieldEnd();
+        }
+      }
+      if (struct.orderBy != null) {
+        if (struct.isSetOrderBy()) {
+          oprot.writeFieldBegin(ORDER_BY_FIELD_DESC);
+          {
+            oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRUCT, struct.orderBy.size()));
+            for (SelectionSort _iter51 : struct.orderBy)
+            {
+              _iter51.write(oprot);
+            }
+            oprot.writeListEnd();
+          }
+          oprot.writeFieldEnd();
+        }
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -507,7 +771,13 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
       if (struct.isSetTopN()) {
         optionals.set(1);
       }
-      oprot.writeBitSet(optionals, 2);
+      if (struct.isSetHaving()) {
+        optionals.set(2);
+      }
+      if (struct.isSetOrderBy()) {
+        optionals.set(3);
+      }
+      oprot.writeBitSet(optionals, 4);
       if (struct.isSetColumns()) {
         {
           oprot.writeI32(struct.columns.size());
@@ -520,12 +790,30 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
       if (struct.isSetTopN()) {
         oprot.writeI64(struct.topN);
       }
+      if (struct.isSetHaving()) {
+        {
+          oprot.writeI32(struct.having.size());
+          for (String _iter52 : struct.having)
+          {
+            oprot.writeString(_iter52);
+          }
+        }
+      }
+      if (struct.isSetOrderBy()) {
+        {
+          oprot.writeI32(struct.orderBy.size());
+          for (SelectionSort _iter53 : struct.orderBy)
+          {
+            _iter53.write(oprot);
+          }
+        }
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, GroupBy struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(2);
+      BitSet incoming = iprot.readBitSet(4);
       if (incoming.get(0)) {
         {
           org.apache.thrift.protocol.TList _list41 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, iprot.readI32());
@@ -543,6 +831,33 @@ public class GroupBy implements org.apache.thrift.TBase<GroupBy, GroupBy._Fields
         struct.topN = iprot.readI64();
         struct.setTopNIsSet(true);
       }
+      if (incoming.get(2)) {
+        {
+          org.apache.thrift.protocol.TList _list54 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, iprot.readI32());
+          struct.having = new ArrayList<String>(_list54.size);
+          String _elem55;
+          for (int _i56 = 0; _i56 < _list54.size; ++_i56)
+          {
+            _elem55 = iprot.readString();
+            struct.having.add(_elem55);
+          }
+        }
+        struct.setHavingIsSet(true);
+      }
+      if (incoming.get(3)) {
+        {
+          org.apache.thrift.protocol.TList _list57 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRUCT, iprot.readI32());
+          struct.orderBy = new ArrayList<SelectionSort>(_list57.size);
+          SelectionSort _elem58;
+          for (int _i59 = 0; _i59 < _list57.size; ++_i59)
+          {
+            _elem58 = new SelectionSort();
+            _elem58.read(iprot);
+            struct.orderBy.add(_elem58);
+          }
+        }
+        struct.setOrderByIsSet(true);
+      }
     }
   }
 
@@ -40,13 +40,14 @@ import org.json.JSONObject;
  *
  * Supports serialization via JSON.
  */
-@JsonPropertyOrder({"selectionResults", "traceInfo", "numDocsScanned", "aggregationResults", "timeUsedMs", "segmentStatistics", "exceptions", "totalDocs"})
+@JsonPropertyOrder({"selectionResults", "traceInfo", "numDocsScanned", "aggregationResults", "timeUsedMs", "segmentStatistics", "exceptions", "totalDocs", "numGroupsLimitReached", "operatorStats"})
 public class BrokerResponseNative implements BrokerResponse {
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
   private long _numDocsScanned = 0;
   private long _totalDocs = 0;
   private long _timeUsedMs = 0;
+  private boolean _numGroupsLimitReached = false;
 
   private SelectionResults _selectionResults;
   private List<AggregationResult> _aggregationResults;
@@ -54,6 +55,7 @@ public class BrokerResponseNative implements BrokerResponse {
   private Map<String, String> _traceInfo;
   private List<QueryProcessingException> _processingExceptions;
   private List<String> _segmentStatistics;
+  private List<OperatorStats> _operatorStats;
 
   public static final BrokerResponseNative EMPTY_RESULT;
   public static final BrokerResponseNative NO_TABLE_RESULT;
@@ -99,6 +101,20 @@ public class BrokerResponseNative implements BrokerResponse {
     _totalDocs = totalDocs;
   }
 
+  /**
+   * Whether some server reached the number of groups limit of a group by query, in which case the groups beyond the
+   * limit are missing from the results.
+   */
+  @JsonProperty("numGroupsLimitReached")
+  public boolean isNumGroupsLimitReached() {
+    return _numGroupsLimitReached;
+  }
+
+  @JsonProperty("numGroupsLimitReached")
+  public void setNumGroupsLimitReached(boolean numGroupsLimitReached) {
+    _numGroupsLimitReached = numGroupsLimitReached;
+  }
+
   @JsonProperty("timeUsedMs")
   public long getTimeUsedMs() {
     return _timeUsedMs;
@@ -163,6 +179,17 @@ public class BrokerResponseNative implements BrokerResponse {
     _segmentStatistics = segmentStatistics;
   }
 
+  @JsonProperty("operatorStats")
+  @JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+  public List<OperatorStats> getOperatorStats() {
+    return _operatorStats;
+  }
+
+  @JsonProperty("operatorStats")
+  public void setOperatorStats(List<OperatorStats> operatorStats) {
+    _operatorStats = operatorStats;
+  }
+
   public String toJsonString()
       throws IOException {
     return OBJECT_MAPPER.writeValueAsString(this);
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.response.broker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.annotate.JsonPropertyOrder;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
+
+
+/**
+ * Execution statistics of one operator of the query plan, reported for profiled queries.
+ *
+ * The same operator runs once per segment, so stats are merged by operator name: counters are summed over all the
+ * instances of the operator on all the servers. Time is the wall time spent inside the operator including its
+ * children, summed over the instances, so it may exceed the query latency when segments are processed in parallel.
+ */
+@JsonPropertyOrder({"operator", "numOperators", "numBlocks", "timeUsedNs", "numDocsIn", "numDocsOut", "numEntriesScanned"})
+public class OperatorStats {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private String _operator;
+  private long _numOperators;
+  private long _numBlocks;
+  private long _timeUsedNs;
+  private long _numDocsIn;
+  private long _numDocsOut;
+  private long _numEntriesScanned;
+
+  public OperatorStats() {
+  }
+
+  public OperatorStats(String operator) {
+    _operator = operator;
+    _numOperators = 1;
+  }
+
+  @JsonProperty("operator")
+  public String getOperator() {
+    return _operator;
+  }
+
+  @JsonProperty("operator")
+  public void setOperator(String operator) {
+    _operator = operator;
+  }
+
+  @JsonProperty("numOperators")
+  public long getNumOperators() {
+    return _numOperators;
+  }
+
+  @JsonProperty("numOperators")
+  public void setNumOperators(long numOperators) {
+    _numOperators = numOperators;
+  }
+
+  @JsonProperty("numBlocks")
+  public long getNumBlocks() {
+    return _numBlocks;
+  }
+
+  @JsonProperty("numBlocks")
+  public void setNumBlocks(long numBlocks) {
+    _numBlocks = numBlocks;
+  }
+
+  @JsonProperty("timeUsedNs")
+  public long getTimeUsedNs() {
+    return _timeUsedNs;
+  }
+
+  @JsonProperty("timeUsedNs")
+  public void setTimeUsedNs(long timeUsedNs) {
+    _timeUsedNs = timeUsedNs;
+  }
+
+  @JsonProperty("numDocsIn")
+  public long getNumDocsIn() {
+    return _numDocsIn;
+  }
+
+  @JsonProperty("numDocsIn")
+  public void setNumDocsIn(long numDocsIn) {
+    _numDocsIn = numDocsIn;
+  }
+
+  @JsonProperty("numDocsOut")
+  public long getNumDocsOut() {
+    return _numDocsOut;
+  }
+
+  @JsonProperty("numDocsOut")
+  public void setNumDocsOut(long numDocsOut) {
+    _numDocsOut = numDocsOut;
+  }
+
+  @JsonProperty("numEntriesScanned")
+  public long getNumEntriesScanned() {
+    return _numEntriesScanned;
+  }
+
+  @JsonProperty("numEntriesScanned")
+  public void setNumEntriesScanned(long numEntriesScanned) {
+    _numEntriesScanned = numEntriesScanned;
+  }
+
+  /**
+   * Records one block returned by the operator.
+   */
+  public void addBlock(long timeUsedNs) {
+    _numBlocks++;
+    _timeUsedNs += timeUsedNs;
+  }
+
+  public void addNumDocsIn(long numDocsIn) {
+    _numDocsIn += numDocsIn;
+  }
+
+  public void addNumDocsOut(long numDocsOut) {
+    _numDocsOut += numDocsOut;
+  }
+
+  public void addNumEntriesScanned(long numEntriesScanned) {
+    _numEntriesScanned += numEntriesScanned;
+  }
+
+  /**
+   * Adds the counters of another instance of the same operator to this one.
+   */
+  public void merge(OperatorStats other) {
+    _numOperators += other._numOperators;
+    _numBlocks += other._numBlocks;
+    _timeUsedNs += other._timeUsedNs;
+    _numDocsIn += other._numDocsIn;
+    _numDocsOut += other._numDocsOut;
+    _numEntriesScanned += other._numEntriesScanned;
+  }
+
+  /**
+   * Merges the given stats into the map keyed by operator name, keeping the first seen order of the operators.
+   */
+  public static void mergeInto(Map<String, OperatorStats> merged, List<OperatorStats> operatorStatsList) {
+    for (OperatorStats operatorStats : operatorStatsList) {
+      OperatorStats existing = merged.get(operatorStats.getOperator());
+      if (existing == null) {
+        existing = new OperatorStats(operatorStats.getOperator());
+        existing.setNumOperators(0);
+        merged.put(operatorStats.getOperator(), existing);
+      }
+      existing.merge(operatorStats);
+    }
+  }
+
+  public static List<OperatorStats> merge(List<OperatorStats> operatorStatsList) {
+    Map<String, OperatorStats> merged = new LinkedHashMap<>();
+    mergeInto(merged, operatorStatsList);
+    return new ArrayList<>(merged.values());
+  }
+
+  public static String toJsonString(List<OperatorStats> operatorStatsList)
+      throws IOException {
+    return OBJECT_MAPPER.writeValueAsString(operatorStatsList);
+  }
+
+  public static List<OperatorStats> fromJsonString(String jsonString)
+      throws IOException {
+    return OBJECT_MAPPER.readValue(jsonString, new TypeReference<List<OperatorStats>>() {
+    });
+  }
+}
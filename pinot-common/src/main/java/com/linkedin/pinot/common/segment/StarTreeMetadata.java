@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.common.segment;
 
+import java.util.Collections;
 import java.util.List;
 
 
@@ -26,6 +27,7 @@ public class StarTreeMetadata {
   private List<String> _dimensionsSplitOrder;
   private List<String> _skipStarNodeCreationForDimensions;
   private List<String> _skipMaterializationForDimensions;
+  private List<String> _materializedAggregationFunctions = Collections.emptyList();
 
   private long _maxLeafRecords;
   private long _skipMaterializationCardinality;
@@ -72,4 +74,16 @@ public class StarTreeMetadata {
   public void setSkipMaterializationForDimensions(List<String> skipMaterializationForDimensions) {
     _skipMaterializationForDimensions = skipMaterializationForDimensions;
   }
+
+  /**
+   * Returns the aggregation functions pre-aggregated into additional metric columns, empty for star trees built
+   * with sum only.
+   */
+  public List<String> getMaterializedAggregationFunctions() {
+    return _materializedAggregationFunctions;
+  }
+
+  public void setMaterializedAggregationFunctions(List<String> materializedAggregationFunctions) {
+    _materializedAggregationFunctions = materializedAggregationFunctions;
+  }
 }
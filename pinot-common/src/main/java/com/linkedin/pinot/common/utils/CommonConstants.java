@@ -95,6 +95,8 @@ public class CommonConstants {
         public static final String REALTIME_SEGMENT_FLUSH_TIME = "realtime.segment.flush.threshold.time";
         // Num records threshold in the realtime segment
         public static final String REALTIME_SEGMENT_FLUSH_SIZE = "realtime.segment.flush.threshold.size";
+        // Number of threads decoding stream events for a realtime segment, 0 decodes them on the indexing thread
+        public static final String REALTIME_DECODER_THREADS = "realtime.decoder.threads";
 
         public static enum StreamType {
           kafka
@@ -181,6 +183,9 @@ public class CommonConstants {
         "pinot.server.segment.minRetryDelayMillis";
     public static final String CONFIG_OF_SEGMENT_FORMAT_VERSION = "pinot.server.instance.segment.format.version";
     public static final String CONFIG_OF_HELIX_FLAPPING_TIMEWINDOW_MS = "pinot.server.flapping.timeWindowMs";
+    public static final String CONFIG_OF_DIRECT_MEMORY_BUDGET_BYTES = "pinot.server.instance.directMemoryBudgetBytes";
+    public static final String CONFIG_OF_INVERTED_INDEX_BITMAP_CACHE_MAX_BYTES =
+        "pinot.server.instance.invertedIndexBitmapCacheMaxBytes";
 
     public static final String DEFAULT_ADMIN_API_PORT = "8097";
     public static final String DEFAULT_READ_MODE = "heap";
@@ -198,6 +203,11 @@ public class CommonConstants {
     public static final String DEFAULT_SEGMENT_LOAD_MAX_RETRY_COUNT = "5";
     public static final String DEFAULT_SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS = "60000";
     public static final String DEFAULT_HELIX_FLAPPING_TIMEWINDOW_MS = "0";
+    public static final long DEFAULT_DIRECT_MEMORY_BUDGET_BYTES = Long.MAX_VALUE;
+    // Segment loads wait for direct memory on the Helix state transition thread, so they only wait shortly and then
+    // fail, moving the segment to the ERROR state, rather than blocking the other state transitions
+    public static final long DEFAULT_SEGMENT_LOAD_MEMORY_WAIT_MILLIS = 10000L;
+    public static final long DEFAULT_INVERTED_INDEX_BITMAP_CACHE_MAX_BYTES = 256L * 1024 * 1024;
     public static final String PREFIX_OF_CONFIG_OF_SEGMENT_FETCHER_FACTORY = "pinot.server.segment.fetcher";
     public static final String DEFAULT_SEGMENT_FORMAT_VERSION = "v1";
   }
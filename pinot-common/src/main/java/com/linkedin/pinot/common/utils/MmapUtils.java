@@ -52,6 +52,11 @@ public class MmapUtils {
   private static final long BYTES_IN_MEGABYTE = 1024L * 1024L;
   private static final Map<ByteBuffer, AllocationContext> BUFFER_TO_CONTEXT_MAP =
       Collections.synchronizedMap(new WeakIdentityHashMap<ByteBuffer, AllocationContext>());
+  // Notified whenever direct memory is released, to wake up threads waiting for direct memory
+  private static final Object DIRECT_MEMORY_RELEASE_MONITOR = new Object();
+  private static volatile long DIRECT_MEMORY_BUDGET = Long.MAX_VALUE;
+  // Bytes reserved by segment loads in progress, guarded by DIRECT_MEMORY_RELEASE_MONITOR
+  private static long DIRECT_MEMORY_RESERVED = 0L;
 
   public enum AllocationType {
     MMAP,
@@ -68,6 +73,9 @@ public class MmapUtils {
 
     public static final Joiner PATH_JOINER = Joiner.on(File.separatorChar).skipNulls();
 
+    // Directory holding the files of segments in v3 format, under the segment directory
+    private static final String SEGMENT_V3_DIRECTORY_NAME = "v3";
+
     AllocationContext(String context, AllocationType allocationType) {
       this.context = context;
       this.allocationType = allocationType;
@@ -130,6 +138,46 @@ public class MmapUtils {
       return allocationType;
     }
 
+    /**
+     * Returns the name of the table owning the allocation, assuming that the allocation refers to a file laid out as
+     * <data directory>/<table name>/<segment name>/<index file>, or null if the allocation does not refer to a file.
+     */
+    public String getTableName() {
+      if (fileName == null || parentPathName == null) {
+        return null;
+      }
+      if (SEGMENT_V3_DIRECTORY_NAME.equals(parentFileName)) {
+        String tableDirectory = new File(parentPathName).getParent();
+        return tableDirectory == null ? null : new File(tableDirectory).getName();
+      }
+      return new File(parentPathName).getName();
+    }
+
+    /**
+     * Returns the name of the segment owning the allocation, or null if the allocation does not refer to a file.
+     */
+    public String getSegmentName() {
+      if (fileName == null || parentPathName == null) {
+        return null;
+      }
+      if (SEGMENT_V3_DIRECTORY_NAME.equals(parentFileName)) {
+        return new File(parentPathName).getName();
+      }
+      return parentFileName;
+    }
+
+    /**
+     * Returns the type of index of the allocation, which is the extension of the file (eg. dict, sv.unsorted.fwd,
+     * bitmap.inv), or null if the allocation does not refer to a file.
+     */
+    public String getIndexType() {
+      if (fileName == null) {
+        return null;
+      }
+      int extensionStart = fileName.indexOf('.');
+      return extensionStart == -1 ? fileName : fileName.substring(extensionStart + 1);
+    }
+
     @Override
     public String toString() {
       return getContext();
@@ -171,6 +219,9 @@ public class MmapUtils {
           switch (bufferContext.allocationType) {
             case DIRECT_BYTE_BUFFER:
               DIRECT_BYTE_BUFFER_USAGE.addAndGet(-bufferSize);
+              synchronized (DIRECT_MEMORY_RELEASE_MONITOR) {
+                DIRECT_MEMORY_RELEASE_MONITOR.notifyAll();
+              }
               if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Releasing byte buffer of size {} with context {}, allocation after operation {}", bufferSize,
                     bufferContext, getTrackedAllocationStatus());
@@ -332,6 +383,85 @@ public class MmapUtils {
     return MMAP_BUFFER_COUNT.get();
   }
 
+  /**
+   * Sets the number of bytes of direct buffers that segment loads should not go over, see
+   * {@link #reserveDirectMemory(long, long)}. Allocations themselves are not limited.
+   */
+  public static void setDirectMemoryBudget(long budgetBytes) {
+    DIRECT_MEMORY_BUDGET = budgetBytes;
+  }
+
+  /**
+   * Returns the number of bytes of direct buffers that segment loads should not go over, Long.MAX_VALUE if unlimited.
+   */
+  public static long getDirectMemoryBudget() {
+    return DIRECT_MEMORY_BUDGET;
+  }
+
+  /**
+   * Waits until the given number of bytes can be allocated in direct buffers without going over the direct memory
+   * budget, and reserves them. Reserved bytes count against the budget until released with
+   * {@link #releaseDirectMemory(long)}, so that concurrent loads cannot all fit in the same free memory. An allocation
+   * larger than the whole budget proceeds once no direct buffer is allocated or reserved anymore.
+   *
+   * @param bytes The number of bytes about to be allocated
+   * @param timeoutMillis The maximum time to wait
+   * @return true if the bytes were reserved, false if the wait timed out
+   */
+  public static boolean reserveDirectMemory(long bytes, long timeoutMillis) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    synchronized (DIRECT_MEMORY_RELEASE_MONITOR) {
+      while (!fitsInDirectMemoryBudget(bytes)) {
+        long remainingMillis = deadline - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+          LOGGER.warn("Timed out waiting for {} bytes of direct memory, budget {} bytes, reserved {} bytes, "
+              + "allocation status {}", bytes, DIRECT_MEMORY_BUDGET, DIRECT_MEMORY_RESERVED,
+              getTrackedAllocationStatus());
+          return false;
+        }
+        DIRECT_MEMORY_RELEASE_MONITOR.wait(remainingMillis);
+      }
+      DIRECT_MEMORY_RESERVED += bytes;
+    }
+    return true;
+  }
+
+  /**
+   * Releases bytes reserved with {@link #reserveDirectMemory(long, long)}, once the load they were reserved for has
+   * allocated its buffers or failed.
+   */
+  public static void releaseDirectMemory(long bytes) {
+    synchronized (DIRECT_MEMORY_RELEASE_MONITOR) {
+      DIRECT_MEMORY_RESERVED -= bytes;
+      DIRECT_MEMORY_RELEASE_MONITOR.notifyAll();
+    }
+  }
+
+  // Must be called while holding DIRECT_MEMORY_RELEASE_MONITOR
+  private static boolean fitsInDirectMemoryBudget(long bytes) {
+    long usage = DIRECT_BYTE_BUFFER_USAGE.get() + DIRECT_MEMORY_RESERVED;
+    long budget = DIRECT_MEMORY_BUDGET;
+    return usage == 0L || usage + bytes <= budget;
+  }
+
+  /**
+   * Returns the number of bytes allocated for the given table, by allocation type.
+   *
+   * @param tableName The table name, as found in the data directory
+   * @param allocationType The type of allocation
+   */
+  public static long getTableUsage(String tableName, AllocationType allocationType) {
+    long usage = 0L;
+    for (Pair<AllocationContext, Integer> allocation : getAllocationsAndSizes()) {
+      AllocationContext allocationContext = allocation.getKey();
+      if (allocationContext.getAllocationType() == allocationType && tableName.equals(
+          allocationContext.getTableName())) {
+        usage += allocation.getValue();
+      }
+    }
+    return usage;
+  }
+
   private static void clearSynchronizedMapEntrySetCache() {
     // For some bizarre reason, Collections.synchronizedMap's implementation (at least on JDK 1.8.0.25) caches the
     // entry set, and will thus return stale (and incorrect) values if queried multiple times, as well as cause those
@@ -369,4 +369,50 @@ public class HelixHelper {
 
     updateIdealState(helixManager, tableName, updater, DEFAULT_RETRY_POLICY);
   }
+
+  /**
+   * Add the new specified segments to the idealState of the specified table with a single ideal state update, instead
+   * of rewriting the ideal state once per segment.
+   *
+   * @param helixManager The HelixManager object to access the helix cluster.
+   * @param tableName Name of the table to which the new segments are to be added.
+   * @param getInstancesForSegments Callable returning a map from segment name to the list of instances where the
+   *                                segment should be uploaded.
+   */
+  public static void addSegmentsToIdealState(HelixManager helixManager, final String tableName,
+      final Callable<Map<String, List<String>>> getInstancesForSegments) {
+
+    Function<IdealState, IdealState> updater = new Function<IdealState, IdealState>() {
+      @Override
+      public IdealState apply(IdealState idealState) {
+        Map<String, List<String>> segmentToInstancesMap;
+        try {
+          segmentToInstancesMap = getInstancesForSegments.call();
+        } catch (Exception e) {
+          throw new RuntimeException("Unable to get new instances for uploading segments of table " + tableName, e);
+        }
+
+        int numNewSegments = 0;
+        for (Map.Entry<String, List<String>> entry : segmentToInstancesMap.entrySet()) {
+          String segmentName = entry.getKey();
+          if (idealState.getRecord().getMapField(segmentName) == null) {
+            numNewSegments++;
+          }
+          List<String> targetInstances = entry.getValue();
+          if (targetInstances == null || targetInstances.size() == 0) {
+            LOGGER.warn("No instances assigned for segment {}, table {}", segmentName, tableName);
+          } else {
+            for (final String instance : targetInstances) {
+              idealState.setPartitionState(segmentName, instance, ONLINE);
+            }
+          }
+        }
+
+        idealState.setNumPartitions(idealState.getNumPartitions() + numNewSegments);
+        return idealState;
+      }
+    };
+
+    updateIdealState(helixManager, tableName, updater, DEFAULT_RETRY_POLICY);
+  }
 }
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils.request;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Group-by expression bucketing the time column of the segments to a coarser time granularity, such as
+ * <code>dateTimeConvert(daysSinceEpoch, '7:DAYS')</code>. Each value of the time column is replaced with the start of its
+ * bucket, expressed in the unit of the time column, so that the group keys can still be compared across segments.
+ *
+ * The expression is stored in the group-by columns of the broker request using its canonical string form
+ * <code>dateTimeConvert(column,'size:TIME_UNIT')</code>.
+ */
+public class DateTimeConvertExpression {
+  public static final String FUNCTION_NAME = "dateTimeConvert";
+
+  private static final String PREFIX = FUNCTION_NAME + "(";
+  private static final char GRANULARITY_SEPARATOR = ':';
+
+  private final String _column;
+  private final int _bucketSize;
+  private final TimeUnit _bucketTimeUnit;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param column time column.
+   * @param granularity bucket granularity, such as <code>1:HOURS</code>.
+   */
+  public DateTimeConvertExpression(String column, String granularity) {
+    Preconditions.checkArgument(column != null && !column.isEmpty(), "Missing column in " + FUNCTION_NAME);
+    int separatorIndex = granularity.indexOf(GRANULARITY_SEPARATOR);
+    Preconditions.checkArgument(separatorIndex > 0,
+        "Illegal granularity '" + granularity + "' in " + FUNCTION_NAME + ", expected 'size:TIME_UNIT'");
+    try {
+      _bucketSize = Integer.parseInt(granularity.substring(0, separatorIndex).trim());
+      _bucketTimeUnit = TimeUnit.valueOf(granularity.substring(separatorIndex + 1).trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Illegal granularity '" + granularity + "' in " + FUNCTION_NAME + ", expected 'size:TIME_UNIT'", e);
+    }
+    Preconditions.checkArgument(_bucketSize > 0, "Bucket size must be positive in " + FUNCTION_NAME);
+    _column = column;
+  }
+
+  /**
+   * Returns whether the given group-by column is a date time convert expression.
+   */
+  public static boolean isDateTimeConvertExpression(String groupByColumn) {
+    return groupByColumn.startsWith(PREFIX);
+  }
+
+  /**
+   * Parses the canonical string form of the expression.
+   */
+  public static DateTimeConvertExpression fromString(String expression) {
+    Preconditions.checkArgument(isDateTimeConvertExpression(expression) && expression.endsWith(")"),
+        "Illegal " + FUNCTION_NAME + " expression: " + expression);
+    String arguments = expression.substring(PREFIX.length(), expression.length() - 1);
+    int separatorIndex = arguments.indexOf(',');
+    Preconditions.checkArgument(separatorIndex > 0, "Illegal " + FUNCTION_NAME + " expression: " + expression);
+    String granularity = arguments.substring(separatorIndex + 1).trim();
+    Preconditions.checkArgument(granularity.length() > 2 && granularity.startsWith("'") && granularity.endsWith("'"),
+        "Illegal " + FUNCTION_NAME + " expression: " + expression);
+    return new DateTimeConvertExpression(arguments.substring(0, separatorIndex).trim(),
+        granularity.substring(1, granularity.length() - 1));
+  }
+
+  /**
+   * Returns the column read by the given group-by column, which is the column itself unless it is an expression.
+   */
+  public static String getColumnName(String groupByColumn) {
+    if (isDateTimeConvertExpression(groupByColumn)) {
+      return fromString(groupByColumn).getColumn();
+    }
+    return groupByColumn;
+  }
+
+  public String getColumn() {
+    return _column;
+  }
+
+  public int getBucketSize() {
+    return _bucketSize;
+  }
+
+  public TimeUnit getBucketTimeUnit() {
+    return _bucketTimeUnit;
+  }
+
+  /**
+   * Returns the size of the buckets in milliseconds.
+   */
+  public long getBucketSizeMillis() {
+    return _bucketTimeUnit.toMillis(_bucketSize);
+  }
+
+  /**
+   * Returns the start of the bucket of a time value, both expressed in the given time column granularity.
+   *
+   * @param timeValue time value.
+   * @param timeUnitSize time column unit size.
+   * @param timeUnit time column unit.
+   * @return bucket start.
+   */
+  public long getBucketStart(long timeValue, int timeUnitSize, TimeUnit timeUnit) {
+    long timeUnitMillis = timeUnit.toMillis(timeUnitSize);
+    long bucketSizeMillis = getBucketSizeMillis();
+    long bucketStartMillis = floorDiv(timeValue * timeUnitMillis, bucketSizeMillis) * bucketSizeMillis;
+    // Round down to the time column granularity, for buckets not aligned on it.
+    return floorDiv(bucketStartMillis, timeUnitMillis);
+  }
+
+  private static long floorDiv(long dividend, long divisor) {
+    long quotient = dividend / divisor;
+    if ((dividend % divisor != 0) && ((dividend < 0) != (divisor < 0))) {
+      quotient--;
+    }
+    return quotient;
+  }
+
+  @Override
+  public String toString() {
+    return PREFIX + _column + ",'" + _bucketSize + GRANULARITY_SEPARATOR + _bucketTimeUnit + "')";
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils.request;
+
+import com.google.common.base.Preconditions;
+
+
+/**
+ * Predicate of the HAVING clause of a group by query, comparing the final value of an aggregation to a constant, such
+ * as <code>sum(metric) > 100</code>. The HAVING clause is the conjunction of its predicates.
+ *
+ * The predicates are stored in the group by of the broker request using their canonical string form
+ * <code>aggregation operator value</code>, where the aggregation is the one returned by
+ * {@link RequestUtils#getAggregationExpression(com.linkedin.pinot.common.request.AggregationInfo)}.
+ */
+public class HavingPredicate {
+  public enum Operator {
+    EQ("="),
+    NEQ("<>"),
+    LT("<"),
+    LE("<="),
+    GT(">"),
+    GE(">=");
+
+    private final String _symbol;
+
+    Operator(String symbol) {
+      _symbol = symbol;
+    }
+
+    public String getSymbol() {
+      return _symbol;
+    }
+
+    public static Operator fromSymbol(String symbol) {
+      for (Operator operator : values()) {
+        if (operator._symbol.equals(symbol)) {
+          return operator;
+        }
+      }
+      throw new IllegalArgumentException("Unsupported operator in HAVING clause: " + symbol);
+    }
+
+    /**
+     * Returns the operator to use when swapping the operands, for predicates such as <code>100 < sum(metric)</code>.
+     */
+    public Operator flip() {
+      switch (this) {
+        case LT:
+          return GT;
+        case LE:
+          return GE;
+        case GT:
+          return LT;
+        case GE:
+          return LE;
+        default:
+          return this;
+      }
+    }
+  }
+
+  private final String _aggregation;
+  private final Operator _operator;
+  private final String _valueString;
+  private final double _value;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param aggregation aggregation expression, such as <code>sum(metric)</code>.
+   * @param operator comparison operator.
+   * @param value numeric constant compared to the aggregation.
+   */
+  public HavingPredicate(String aggregation, Operator operator, String value) {
+    Preconditions.checkArgument(aggregation != null && !aggregation.isEmpty(), "Missing aggregation in HAVING clause");
+    _aggregation = aggregation;
+    _operator = operator;
+    _valueString = value.trim();
+    try {
+      _value = Double.parseDouble(_valueString);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("HAVING clause only supports numeric constants, got: " + value, e);
+    }
+  }
+
+  /**
+   * Parses the canonical string form of the predicate.
+   */
+  public static HavingPredicate fromString(String predicate) {
+    int valueIndex = predicate.lastIndexOf(' ');
+    int operatorIndex = predicate.lastIndexOf(' ', valueIndex - 1);
+    Preconditions.checkArgument(operatorIndex > 0, "Illegal HAVING predicate: " + predicate);
+    return new HavingPredicate(predicate.substring(0, operatorIndex),
+        Operator.fromSymbol(predicate.substring(operatorIndex + 1, valueIndex)), predicate.substring(valueIndex + 1));
+  }
+
+  public String getAggregation() {
+    return _aggregation;
+  }
+
+  public Operator getOperator() {
+    return _operator;
+  }
+
+  public double getValue() {
+    return _value;
+  }
+
+  /**
+   * Returns whether the final value of the aggregation satisfies the predicate.
+   */
+  public boolean apply(double aggregationValue) {
+    switch (_operator) {
+      case EQ:
+        return aggregationValue == _value;
+      case NEQ:
+        return aggregationValue != _value;
+      case LT:
+        return aggregationValue < _value;
+      case LE:
+        return aggregationValue <= _value;
+      case GT:
+        return aggregationValue > _value;
+      case GE:
+        return aggregationValue >= _value;
+      default:
+        throw new IllegalStateException("Unsupported operator: " + _operator);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return _aggregation + ' ' + _operator.getSymbol() + ' ' + _valueString;
+  }
+}
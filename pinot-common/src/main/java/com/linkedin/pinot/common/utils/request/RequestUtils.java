@@ -15,6 +15,10 @@
  */
 package com.linkedin.pinot.common.utils.request;
 
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.StarTreeMetadata;
@@ -102,11 +106,19 @@ public class RequestUtils {
     return q2;
   }
 
+  public static boolean isFitForStarTreeIndex(SegmentMetadata segmentMetadata, FilterQueryTree filterTree,
+      BrokerRequest brokerRequest) {
+    return isFitForStarTreeIndex(segmentMetadata, filterTree, brokerRequest, false);
+  }
+
   /**
    * Returns true for the following, false otherwise:
    * - Query is not aggregation/group-by
    * - Segment does not contain star tree
-   * - The only aggregation function in the query is 'sum'
+   * - The only aggregation function in the query is 'sum', or, if usePreAggregatedMetrics is set, 'count', 'min',
+   *   'max' and 'avg' whose pre-aggregated metric columns were materialized in the star tree, and 'distinctCountHLL'
+   *   on HLL metric columns. The caller must then evaluate these functions on the pre-aggregated columns. Percentiles
+   *   have no pre-aggregated column and are always computed on the raw documents.
    * - All group by columns and predicate columns are materialized
    * - Predicates do not contain any metric columns
    * - Query consists only of simple predicates, conjoined by AND.
@@ -116,7 +128,7 @@ public class RequestUtils {
    *
    */
   public static boolean isFitForStarTreeIndex(SegmentMetadata segmentMetadata, FilterQueryTree filterTree,
-      BrokerRequest brokerRequest) {
+      BrokerRequest brokerRequest, boolean usePreAggregatedMetrics) {
     // Apply the checks in order of their runtime.
     List<AggregationInfo> aggregationsInfo = brokerRequest.getAggregationsInfo();
 
@@ -140,66 +152,120 @@ public class RequestUtils {
       GroupBy groupBy = brokerRequest.getGroupBy();
       if (groupBy != null) {
         for (String groupByColumn : groupBy.getColumns()) {
-          if (skipMaterializationSet.contains(groupByColumn)) {
+          if (skipMaterializationSet.contains(DateTimeConvertExpression.getColumnName(groupByColumn))) {
             return false;
           }
         }
       }
     }
 
-    // We currently support only sum
+    Set<String> metricColumnSet = new HashSet<String>();
+    metricColumnSet.addAll(segmentMetadata.getSchema().getMetricNames());
+
+    // Sum is supported on all star trees, other functions only through their pre-aggregated metric columns
     for (AggregationInfo aggregationInfo : aggregationsInfo) {
-      if (!aggregationInfo.getAggregationType().equalsIgnoreCase("sum")) {
+      String aggregationType = aggregationInfo.getAggregationType().toLowerCase();
+      if (aggregationType.equals("sum")) {
+        continue;
+      }
+      if (!usePreAggregatedMetrics) {
+        return false;
+      }
+      if (aggregationType.equals("distinctcounthll")
+          && isSerializedHLLColumn(segmentMetadata.getSchema(), aggregationInfo.getAggregationParams().get("column"))) {
+        // HyperLogLog sketches are merged like the other aggregated metrics
+        continue;
+      }
+      if (!hasPreAggregatedMetric(starTreeMetadata, metricColumnSet, aggregationType, aggregationInfo)) {
         return false;
       }
     }
 
-    //if the filter tree has children, ensure that root is AND and all its children are leaves, and
-    //no metric columns appear in the predicates.
-    Set<String> metricColumnSet = new HashSet<String>();
-    metricColumnSet.addAll(segmentMetadata.getSchema().getMetricNames());
-    if (filterTree != null && filterTree.getChildren() != null && !filterTree.getChildren().isEmpty()) {
-      //ensure that its AND
-      if (filterTree.getOperator() != FilterOperator.AND) {
+    // The filter can be any AND/OR tree, as long as the predicates are on materialized dimensions only.
+    if (filterTree != null) {
+      return isFitForStarTreeFilter(filterTree, skipMaterializationSet, metricColumnSet);
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns true if all the nodes of the given filter tree are AND/OR, or predicates on materialized dimensions.
+   */
+  private static boolean isFitForStarTreeFilter(FilterQueryTree filterTree, Set<String> skipMaterializationSet,
+      Set<String> metricColumnSet) {
+    List<FilterQueryTree> children = filterTree.getChildren();
+    if (children != null && !children.isEmpty()) {
+      FilterOperator operator = filterTree.getOperator();
+      if (operator != FilterOperator.AND && operator != FilterOperator.OR) {
         return false;
       }
-      //ensure that children are not nested further and only one predicate per column
-      Set<String> predicateColumns = new HashSet<>();
-      for (FilterQueryTree child : filterTree.getChildren()) {
-        if (child.getChildren() != null && !child.getChildren().isEmpty()) {
-          //star tree index cannot support nested filter predicates
-          return false;
-        }
-        //only one predicate per column is supported
-        String column = child.getColumn();
-        if (predicateColumns.contains(column)) {
+      for (FilterQueryTree child : children) {
+        if (!isFitForStarTreeFilter(child, skipMaterializationSet, metricColumnSet)) {
           return false;
         }
+      }
+      return true;
+    }
 
-        // predicate columns should be materialized.
-        if ((skipMaterializationSet != null) && skipMaterializationSet.contains(column)) {
-          return false;
-        }
+    // Predicate column should be materialized.
+    String column = filterTree.getColumn();
+    if (skipMaterializationSet != null && skipMaterializationSet.contains(column)) {
+      return false;
+    }
 
-        // predicate should not contain metric columns.
-        if (metricColumnSet.contains(column)) {
-          return false;
+    // Predicate should not contain metric columns.
+    return !metricColumnSet.contains(column);
+  }
+
+  /**
+   * Returns the expression referring to an aggregation in the HAVING and ORDER BY clauses of group by queries, such as
+   * <code>sum(metric)</code>.
+   */
+  public static String getAggregationExpression(AggregationInfo aggregationInfo) {
+    return aggregationInfo.getAggregationType().toLowerCase() + "("
+        + aggregationInfo.getAggregationParams().get("column").trim() + ")";
+  }
+
+  /**
+   * Returns the index of the aggregation with the given expression in the aggregations of the query, or -1 if the query
+   * does not compute it.
+   */
+  public static int indexOfAggregation(List<AggregationInfo> aggregationsInfo, String aggregationExpression) {
+    if (aggregationsInfo != null) {
+      for (int i = 0; i < aggregationsInfo.size(); i++) {
+        if (getAggregationExpression(aggregationsInfo.get(i)).equals(aggregationExpression)) {
+          return i;
         }
-        predicateColumns.add(column);
-      }
-    } else if (filterTree != null){
-      // Predicate column of root node should be materialized.
-      String rootColumn = filterTree.getColumn();
-      if (skipMaterializationSet != null && skipMaterializationSet.contains(rootColumn)) {
-        return false;
       }
+    }
+    return -1;
+  }
+
+  private static boolean isSerializedHLLColumn(Schema schema, String column) {
+    FieldSpec fieldSpec = schema.getFieldSpecFor(column.trim());
+    return (fieldSpec instanceof MetricFieldSpec)
+        && ((MetricFieldSpec) fieldSpec).getDerivedMetricType() == MetricFieldSpec.DerivedMetricType.HLL;
+  }
 
-      // predicate should not contain metric columns.
-      if (metricColumnSet.contains(rootColumn)) {
+  private static boolean hasPreAggregatedMetric(StarTreeMetadata starTreeMetadata, Set<String> metricColumnSet,
+      String aggregationType, AggregationInfo aggregationInfo) {
+    List<String> materializedFunctions = starTreeMetadata.getMaterializedAggregationFunctions();
+    if (materializedFunctions == null) {
+      return false;
+    }
+    String column = aggregationInfo.getAggregationParams().get("column").trim();
+    switch (aggregationType) {
+      case StarTreeIndexSpec.COUNT_FUNCTION:
+        return materializedFunctions.contains(StarTreeIndexSpec.COUNT_FUNCTION);
+      case StarTreeIndexSpec.MIN_FUNCTION:
+      case StarTreeIndexSpec.MAX_FUNCTION:
+        return materializedFunctions.contains(aggregationType)
+            && metricColumnSet.contains(StarTreeIndexSpec.getPreAggregatedColumnName(aggregationType, column));
+      case "avg":
+        return materializedFunctions.contains(StarTreeIndexSpec.COUNT_FUNCTION) && metricColumnSet.contains(column);
+      default:
         return false;
-      }
     }
-
-    return true;
   }
 }
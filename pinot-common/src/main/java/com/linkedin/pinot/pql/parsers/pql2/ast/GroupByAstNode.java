@@ -17,7 +17,9 @@ package com.linkedin.pinot.pql.parsers.pql2.ast;
 
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.pql.parsers.Pql2CompilationException;
+import java.util.List;
 
 
 /**
@@ -31,10 +33,36 @@ public class GroupByAstNode extends BaseAstNode {
       if (astNode instanceof IdentifierAstNode) {
         IdentifierAstNode node = (IdentifierAstNode) astNode;
         groupBy.addToColumns(node.getName());
+      } else if (astNode instanceof FunctionCallAstNode) {
+        groupBy.addToColumns(buildDateTimeConvertExpression((FunctionCallAstNode) astNode));
       } else {
-        throw new Pql2CompilationException("Child of group by clause is not an identifier.");
+        throw new Pql2CompilationException("Child of group by clause is not an identifier or a function call.");
       }
     }
     brokerRequest.setGroupBy(groupBy);
   }
+
+  /**
+   * Builds the canonical form of a dateTimeConvert(column, 'size:TIME_UNIT') group-by expression, the only function
+   * supported in group by clauses.
+   */
+  private static String buildDateTimeConvertExpression(FunctionCallAstNode functionCallAstNode) {
+    if (!DateTimeConvertExpression.FUNCTION_NAME.equalsIgnoreCase(functionCallAstNode.getName())) {
+      throw new Pql2CompilationException(
+          "Unsupported function " + functionCallAstNode.getName() + " in group by clause, only "
+              + DateTimeConvertExpression.FUNCTION_NAME + " is supported.");
+    }
+    List<? extends AstNode> arguments = functionCallAstNode.getChildren();
+    if (arguments == null || arguments.size() != 2 || !(arguments.get(0) instanceof IdentifierAstNode)
+        || !(arguments.get(1) instanceof StringLiteralAstNode)) {
+      throw new Pql2CompilationException(
+          DateTimeConvertExpression.FUNCTION_NAME + " expects a column and a 'size:TIME_UNIT' granularity.");
+    }
+    try {
+      return new DateTimeConvertExpression(((IdentifierAstNode) arguments.get(0)).getName(),
+          ((StringLiteralAstNode) arguments.get(1)).getText()).toString();
+    } catch (IllegalArgumentException e) {
+      throw new Pql2CompilationException(e.getMessage());
+    }
+  }
 }
@@ -15,14 +15,84 @@
  */
 package com.linkedin.pinot.pql.parsers.pql2.ast;
 
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.utils.request.HavingPredicate;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.pql.parsers.Pql2CompilationException;
+import java.util.List;
 
 
 /**
- * AST node for HAVING clauses.
+ * AST node for HAVING clauses. Only conjunctions of comparisons and BETWEEN predicates between an aggregation of the
+ * query and a numeric constant are supported.
  */
 public class HavingAstNode extends BaseAstNode {
-  public HavingAstNode() {
-    throw new Pql2CompilationException("HAVING clauses are not supported");
+  @Override
+  public void updateBrokerRequest(BrokerRequest brokerRequest) {
+    GroupBy groupBy = brokerRequest.getGroupBy();
+    if (groupBy == null) {
+      throw new Pql2CompilationException("HAVING clause requires a preceding GROUP BY clause.");
+    }
+    addPredicates(getChildren().get(0), brokerRequest, groupBy);
+  }
+
+  private static void addPredicates(AstNode astNode, BrokerRequest brokerRequest, GroupBy groupBy) {
+    if (astNode instanceof PredicateParenthesisGroupAstNode) {
+      addPredicates(astNode.getChildren().get(0), brokerRequest, groupBy);
+    } else if (astNode instanceof PredicateListAstNode) {
+      for (AstNode child : astNode.getChildren()) {
+        if (child == BooleanOperatorAstNode.OR) {
+          throw new Pql2CompilationException("OR is not supported in HAVING clause.");
+        }
+        if (child != BooleanOperatorAstNode.AND) {
+          addPredicates(child, brokerRequest, groupBy);
+        }
+      }
+    } else if (astNode instanceof ComparisonPredicateAstNode) {
+      List<? extends AstNode> operands = astNode.getChildren();
+      HavingPredicate.Operator operator;
+      try {
+        operator = HavingPredicate.Operator.fromSymbol(((ComparisonPredicateAstNode) astNode).getOperand());
+      } catch (IllegalArgumentException e) {
+        throw new Pql2CompilationException(e.getMessage());
+      }
+      if (operands.size() == 2 && operands.get(0) instanceof FunctionCallAstNode
+          && operands.get(1) instanceof LiteralAstNode) {
+        addPredicate((FunctionCallAstNode) operands.get(0), operator, (LiteralAstNode) operands.get(1), brokerRequest,
+            groupBy);
+      } else if (operands.size() == 2 && operands.get(0) instanceof LiteralAstNode
+          && operands.get(1) instanceof FunctionCallAstNode) {
+        addPredicate((FunctionCallAstNode) operands.get(1), operator.flip(), (LiteralAstNode) operands.get(0),
+            brokerRequest, groupBy);
+      } else {
+        throw new Pql2CompilationException("HAVING clause only supports comparisons between an aggregation and a constant.");
+      }
+    } else if (astNode instanceof BetweenPredicateAstNode) {
+      List<? extends AstNode> operands = astNode.getChildren();
+      if (operands.size() != 3 || !(operands.get(0) instanceof FunctionCallAstNode)
+          || !(operands.get(1) instanceof LiteralAstNode) || !(operands.get(2) instanceof LiteralAstNode)) {
+        throw new Pql2CompilationException("BETWEEN in HAVING clause expects an aggregation and two constants.");
+      }
+      FunctionCallAstNode aggregation = (FunctionCallAstNode) operands.get(0);
+      addPredicate(aggregation, HavingPredicate.Operator.GE, (LiteralAstNode) operands.get(1), brokerRequest, groupBy);
+      addPredicate(aggregation, HavingPredicate.Operator.LE, (LiteralAstNode) operands.get(2), brokerRequest, groupBy);
+    } else {
+      throw new Pql2CompilationException("Unsupported predicate in HAVING clause: " + astNode);
+    }
+  }
+
+  private static void addPredicate(FunctionCallAstNode aggregation, HavingPredicate.Operator operator,
+      LiteralAstNode value, BrokerRequest brokerRequest, GroupBy groupBy) {
+    String aggregationExpression = RequestUtils.getAggregationExpression(aggregation.buildAggregationInfo());
+    if (RequestUtils.indexOfAggregation(brokerRequest.getAggregationsInfo(), aggregationExpression) == -1) {
+      throw new Pql2CompilationException(
+          "Aggregation " + aggregationExpression + " in HAVING clause is not in the select list.");
+    }
+    try {
+      groupBy.addToHaving(new HavingPredicate(aggregationExpression, operator, value.getValueAsString()).toString());
+    } catch (IllegalArgumentException e) {
+      throw new Pql2CompilationException(e.getMessage());
+    }
   }
 }
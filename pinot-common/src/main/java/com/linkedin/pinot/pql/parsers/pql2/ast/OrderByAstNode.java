@@ -18,11 +18,12 @@ package com.linkedin.pinot.pql.parsers.pql2.ast;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.pql.parsers.Pql2CompilationException;
 
 
 /**
- * AST node for ORDER BY clauses.
+ * AST node for ORDER BY clauses. In group by queries, aggregations of the query order the groups.
  */
 public class OrderByAstNode extends BaseAstNode {
   @Override
@@ -33,9 +34,21 @@ public class OrderByAstNode extends BaseAstNode {
       if (astNode instanceof OrderByExpressionAstNode) {
         OrderByExpressionAstNode node = (OrderByExpressionAstNode) astNode;
         SelectionSort elem = new SelectionSort();
-        elem.setColumn(node.getColumn());
         elem.setIsAsc("asc".equalsIgnoreCase(node.getOrdering()));
-        selections.addToSelectionSortSequence(elem);
+        if (brokerRequest.isSetGroupBy() && node.hasChildren()
+            && node.getChildren().get(0) instanceof FunctionCallAstNode) {
+          String aggregationExpression = RequestUtils.getAggregationExpression(
+              ((FunctionCallAstNode) node.getChildren().get(0)).buildAggregationInfo());
+          if (RequestUtils.indexOfAggregation(brokerRequest.getAggregationsInfo(), aggregationExpression) == -1) {
+            throw new Pql2CompilationException(
+                "Aggregation " + aggregationExpression + " in ORDER BY clause is not in the select list.");
+          }
+          elem.setColumn(aggregationExpression);
+          brokerRequest.getGroupBy().addToOrderBy(elem);
+        } else {
+          elem.setColumn(node.getColumn());
+          selections.addToSelectionSortSequence(elem);
+        }
       } else {
         throw new Pql2CompilationException("Child node of ORDER BY node is not an expression node");
       }
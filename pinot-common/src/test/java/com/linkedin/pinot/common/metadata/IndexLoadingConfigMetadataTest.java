@@ -16,6 +16,8 @@
 package com.linkedin.pinot.common.metadata;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import junit.framework.Assert;
@@ -24,6 +26,7 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.testng.annotations.Test;
 
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 
 
@@ -48,6 +51,55 @@ public class IndexLoadingConfigMetadataTest {
     }
   }
 
+  @Test
+  public void testDictionaryHashIndexConfig() {
+    Configuration resourceMetadata = new PropertiesConfiguration();
+    resourceMetadata.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_DICTIONARY_HASH_INDEX, "col0, col1");
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata = new IndexLoadingConfigMetadata(resourceMetadata);
+    Assert.assertEquals(indexLoadingConfigMetadata.getLoadingDictionaryHashIndexColumns().size(), 2);
+    Assert.assertTrue(indexLoadingConfigMetadata.isLoadingDictionaryHashIndexForColumn("col0"));
+    Assert.assertTrue(indexLoadingConfigMetadata.isLoadingDictionaryHashIndexForColumn("col1"));
+    Assert.assertFalse(indexLoadingConfigMetadata.isLoadingDictionaryHashIndexForColumn("col2"));
+    Assert.assertTrue(indexLoadingConfigMetadata.getLoadingInvertedIndexColumns().isEmpty());
+  }
+
+  @Test
+  public void testRangeIndexConfig() {
+    Configuration resourceMetadata = new PropertiesConfiguration();
+    resourceMetadata.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_RANGE_INDEX, "col0");
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata = new IndexLoadingConfigMetadata(resourceMetadata);
+    Assert.assertEquals(indexLoadingConfigMetadata.getLoadingRangeIndexColumns().size(), 1);
+    Assert.assertTrue(indexLoadingConfigMetadata.isLoadingRangeIndexForColumn("col0"));
+    Assert.assertFalse(indexLoadingConfigMetadata.isLoadingRangeIndexForColumn("col1"));
+  }
+
+  @Test
+  public void testStarTreeConfig() {
+    Configuration resourceMetadata = new PropertiesConfiguration();
+    resourceMetadata.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE, true);
+    resourceMetadata.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_MAX_LEAF_RECORDS, 10);
+    resourceMetadata.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_DIMENSIONS_SPLIT_ORDER,
+        "col0, col1");
+    resourceMetadata.addProperty(
+        IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_STAR_NODE_CREATION_DIMENSIONS, "col1");
+    resourceMetadata.addProperty(
+        IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_DIMENSIONS, "col2");
+    resourceMetadata.addProperty(
+        IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY, 100);
+    resourceMetadata.addProperty(
+        IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS, "min, max");
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata = new IndexLoadingConfigMetadata(resourceMetadata);
+    Assert.assertTrue(indexLoadingConfigMetadata.isLoadingStarTree());
+    StarTreeIndexSpec starTreeIndexSpec = indexLoadingConfigMetadata.getLoadingStarTreeIndexSpec();
+    Assert.assertEquals(starTreeIndexSpec.getMaxLeafRecords(), Integer.valueOf(10));
+    Assert.assertEquals(starTreeIndexSpec.getDimensionsSplitOrder(), Arrays.asList("col0", "col1"));
+    Assert.assertEquals(starTreeIndexSpec.getSkipStarNodeCreationForDimensions(), Collections.singleton("col1"));
+    Assert.assertEquals(starTreeIndexSpec.getskipMaterializationForDimensions(), Collections.singleton("col2"));
+    Assert.assertEquals(starTreeIndexSpec.getskipMaterializationCardinalityThreshold(), 100);
+    Assert.assertEquals(starTreeIndexSpec.getMaterializedAggregationFunctions(),
+        new HashSet<>(Arrays.asList("min", "max")));
+  }
+
   private Configuration getTestResourceMetadata() {
     Configuration resourceMetadata = new PropertiesConfiguration();
     String columnNames = null;
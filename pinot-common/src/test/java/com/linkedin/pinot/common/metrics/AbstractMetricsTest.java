@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.metrics;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the metrics resolved once per table by AbstractMetrics.
+ */
+public class AbstractMetricsTest {
+  private static final String TABLE_NAME = "myTable_OFFLINE";
+
+  @Test
+  public void testTableMetrics() {
+    MetricsRegistry registry = new MetricsRegistry();
+    ServerMetrics serverMetrics = new ServerMetrics(registry);
+
+    // Query phase timers are resolved when the table is added, under the same names as before
+    serverMetrics.addTable(TABLE_NAME);
+    MetricName phaseTimerName = new MetricName(ServerMetrics.class,
+        "pinot.server." + TABLE_NAME + "." + ServerQueryPhase.QUERY_PROCESSING.getQueryPhaseName());
+    Map<MetricName, Metric> metrics = registry.allMetrics();
+    Assert.assertEquals(metrics.size(), ServerQueryPhase.values().length);
+    Assert.assertTrue(metrics.get(phaseTimerName) instanceof Timer);
+
+    BrokerRequest brokerRequest = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(TABLE_NAME);
+    brokerRequest.setQuerySource(querySource);
+    serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PROCESSING, TimeUnit.MILLISECONDS.toNanos(5));
+    serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PROCESSING, TimeUnit.MILLISECONDS.toNanos(7));
+    Assert.assertEquals(((Timer) registry.allMetrics().get(phaseTimerName)).count(), 2L);
+
+    serverMetrics.addMeteredTableValue(TABLE_NAME, ServerMeter.QUERIES, 3L);
+    serverMetrics.addMeteredQueryValue(brokerRequest, ServerMeter.QUERIES, 1L);
+    MetricName meterName =
+        new MetricName(ServerMetrics.class, "pinot.server." + TABLE_NAME + "." + ServerMeter.QUERIES.getMeterName());
+    Assert.assertEquals(((Meter) registry.allMetrics().get(meterName)).count(), 4L);
+
+    serverMetrics.addMeteredGlobalValue(ServerMeter.QUERIES, 1L);
+    serverMetrics.addMeteredGlobalValue(ServerMeter.QUERIES, 1L);
+    MetricName globalMeterName =
+        new MetricName(ServerMetrics.class, "pinot.server." + ServerMeter.QUERIES.getMeterName());
+    Assert.assertEquals(((Meter) registry.allMetrics().get(globalMeterName)).count(), 2L);
+
+    // Removing the table removes its metrics from the registry, but not the global ones
+    serverMetrics.removeTable(TABLE_NAME);
+    metrics = registry.allMetrics();
+    Assert.assertEquals(metrics.size(), 1);
+    Assert.assertTrue(metrics.containsKey(globalMeterName));
+
+    // Metrics of a removed table are created again on use
+    serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PROCESSING, 1L);
+    Assert.assertEquals(((Timer) registry.allMetrics().get(phaseTimerName)).count(), 1L);
+  }
+}
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.common.utils;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.*;
@@ -48,4 +49,58 @@ public class MmapUtilsTest {
         new MmapUtils.AllocationContext(new File("/a/b/c/d"), "potato", MmapUtils.AllocationType.MMAP).getContext(),
         "/a/b/c/d (potato)");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testAllocationOwner() {
+    MmapUtils.AllocationContext context = new MmapUtils.AllocationContext(
+        new File("/data/myTable_OFFLINE/mySegment/column1.sv.unsorted.fwd"), "potato", MmapUtils.AllocationType.MMAP);
+    assertEquals(context.getTableName(), "myTable_OFFLINE");
+    assertEquals(context.getSegmentName(), "mySegment");
+    assertEquals(context.getIndexType(), "sv.unsorted.fwd");
+
+    // Segment in v3 format
+    context = new MmapUtils.AllocationContext(new File("/data/myTable_OFFLINE/mySegment/v3/columns.psf"), "potato",
+        MmapUtils.AllocationType.MMAP);
+    assertEquals(context.getTableName(), "myTable_OFFLINE");
+    assertEquals(context.getSegmentName(), "mySegment");
+    assertEquals(context.getIndexType(), "psf");
+
+    // No file
+    context = new MmapUtils.AllocationContext("potato", MmapUtils.AllocationType.DIRECT_BYTE_BUFFER);
+    assertNull(context.getTableName());
+    assertNull(context.getSegmentName());
+    assertNull(context.getIndexType());
+  }
+
+  @Test
+  public void testDirectMemoryBudget() throws Exception {
+    final ByteBuffer buffer = MmapUtils.allocateDirectByteBuffer(1000, null, "testDirectMemoryBudget");
+    try {
+      MmapUtils.setDirectMemoryBudget(MmapUtils.getDirectByteBufferUsage() + 500);
+      assertTrue(MmapUtils.reserveDirectMemory(500, 0));
+      // The reservation counts against the budget until released
+      assertFalse(MmapUtils.reserveDirectMemory(1, 10));
+      MmapUtils.releaseDirectMemory(500);
+      assertFalse(MmapUtils.reserveDirectMemory(501, 10));
+
+      // Releasing the buffer wakes up the waiting load
+      Thread releaser = new Thread() {
+        @Override
+        public void run() {
+          try {
+            Thread.sleep(100);
+          } catch (InterruptedException e) {
+            // Release right away
+          }
+          MmapUtils.unloadByteBuffer(buffer);
+        }
+      };
+      releaser.start();
+      assertTrue(MmapUtils.reserveDirectMemory(1000, 10000));
+      MmapUtils.releaseDirectMemory(1000);
+      releaser.join();
+    } finally {
+      MmapUtils.setDirectMemoryBudget(Long.MAX_VALUE);
+    }
+  }
+}
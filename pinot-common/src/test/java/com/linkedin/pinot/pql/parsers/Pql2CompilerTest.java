@@ -15,10 +15,14 @@
  */
 package com.linkedin.pinot.pql.parsers;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
+import com.linkedin.pinot.common.utils.request.HavingPredicate;
 import com.linkedin.pinot.pql.parsers.pql2.ast.TopAstNode;
 
 
@@ -71,4 +75,76 @@ public class Pql2CompilerTest {
     Assert.assertTrue(groupBy.isSetTopN());
     Assert.assertEquals(expectedTopN, groupBy.getTopN());
   }
+
+  @Test
+  public void testDateTimeConvertGroupBy() {
+    Pql2Compiler compiler = new Pql2Compiler();
+    BrokerRequest brokerRequest = compiler.compileToBrokerRequest(
+        "select count(*) from someTable group by dateTimeConvert(daysSinceEpoch, '7:days'), X");
+    Assert.assertEquals(brokerRequest.getGroupBy().getColumns().get(0), "dateTimeConvert(daysSinceEpoch,'7:DAYS')");
+    Assert.assertEquals(brokerRequest.getGroupBy().getColumns().get(1), "X");
+
+    DateTimeConvertExpression expression =
+        DateTimeConvertExpression.fromString(brokerRequest.getGroupBy().getColumns().get(0));
+    Assert.assertEquals(expression.getColumn(), "daysSinceEpoch");
+    Assert.assertEquals(expression.getBucketSize(), 7);
+    Assert.assertEquals(expression.getBucketTimeUnit(), TimeUnit.DAYS);
+    Assert.assertEquals(DateTimeConvertExpression.getColumnName(expression.toString()), "daysSinceEpoch");
+
+    // Buckets are aligned on the epoch, and expressed in the time column granularity.
+    Assert.assertEquals(expression.getBucketStart(13, 1, TimeUnit.DAYS), 7L);
+    Assert.assertEquals(expression.getBucketStart(-1, 1, TimeUnit.DAYS), -7L);
+    Assert.assertEquals(expression.getBucketStart(13 * 24 + 5, 1, TimeUnit.HOURS), 7L * 24);
+
+    for (String query : new String[]{
+        "select count(*) from someTable group by dateTimeConvert(daysSinceEpoch, '0:DAYS')",
+        "select count(*) from someTable group by dateTimeConvert(daysSinceEpoch, '1:FORTNIGHTS')",
+        "select count(*) from someTable group by dateTimeConvert(daysSinceEpoch)",
+        "select count(*) from someTable group by dateTimeConvert('daysSinceEpoch', '1:DAYS')",
+        "select count(*) from someTable group by toEpochDays(daysSinceEpoch, '1:DAYS')"}) {
+      try {
+        compiler.compileToBrokerRequest(query);
+        Assert.fail("Query should not compile: " + query);
+      } catch (Pql2CompilationException e) {
+        // Expected
+      }
+    }
+  }
+
+  @Test
+  public void testHavingAndOrderByGroupBy() {
+    Pql2Compiler compiler = new Pql2Compiler();
+    BrokerRequest brokerRequest = compiler.compileToBrokerRequest(
+        "select count(*), sum(met) from someTable group by X having sum(met) > 10 and (5 <= count(X)) "
+            + "and sum(met) between 20 and 30.5 order by sum(met) desc, count(*) top 5");
+    GroupBy groupBy = brokerRequest.getGroupBy();
+    Assert.assertEquals(groupBy.getHaving(),
+        Arrays.asList("sum(met) > 10", "count(*) >= 5", "sum(met) >= 20", "sum(met) <= 30.5"));
+    Assert.assertEquals(groupBy.getOrderBySize(), 2);
+    Assert.assertEquals(groupBy.getOrderBy().get(0).getColumn(), "sum(met)");
+    Assert.assertFalse(groupBy.getOrderBy().get(0).isIsAsc());
+    Assert.assertEquals(groupBy.getOrderBy().get(1).getColumn(), "count(*)");
+    Assert.assertTrue(groupBy.getOrderBy().get(1).isIsAsc());
+    Assert.assertEquals(groupBy.getTopN(), 5);
+
+    HavingPredicate havingPredicate = HavingPredicate.fromString(groupBy.getHaving().get(0));
+    Assert.assertEquals(havingPredicate.getAggregation(), "sum(met)");
+    Assert.assertEquals(havingPredicate.getOperator(), HavingPredicate.Operator.GT);
+    Assert.assertTrue(havingPredicate.apply(10.5));
+    Assert.assertFalse(havingPredicate.apply(10));
+
+    for (String query : new String[]{
+        "select sum(met) from someTable group by X having max(met) > 10",
+        "select sum(met) from someTable group by X having sum(met) > 10 or sum(met) < 5",
+        "select sum(met) from someTable group by X having sum(met) > 'foo'",
+        "select sum(met) from someTable group by X order by max(met)",
+        "select sum(met) from someTable having sum(met) > 10"}) {
+      try {
+        compiler.compileToBrokerRequest(query);
+        Assert.fail("Query should not compile: " + query);
+      } catch (Pql2CompilationException e) {
+        // Expected
+      }
+    }
+  }
 }
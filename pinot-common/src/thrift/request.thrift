@@ -78,15 +78,6 @@ struct AggregationInfo {
   2: optional map<string,string> aggregationParams;
 }
 
-/**
- * AUTO GENERATED: DO NOT EDIT
- * GroupBy
- **/
-struct GroupBy {
-  1: optional list<string> columns;
-  2: optional i64 topN;
-}
-
 /**
  * AUTO GENERATED: DO NOT EDIT
  * selection-sort : specifies how the search results should be sorted.
@@ -97,6 +88,19 @@ struct SelectionSort {
   2: optional bool isAsc;
 }
 
+/**
+ * AUTO GENERATED: DO NOT EDIT
+ * GroupBy
+ * having : conjunction of predicates on the aggregation results, such as 'sum(metric) > 10'.
+ * orderBy : aggregations to order the groups on, such as 'sum(metric)', instead of ordering each aggregation separately.
+ **/
+struct GroupBy {
+  1: optional list<string> columns;
+  2: optional i64 topN;
+  3: optional list<string> having;
+  4: optional list<SelectionSort> orderBy;
+}
+
 /**
  * AUTO GENERATED: DO NOT EDIT
  * Selection
@@ -125,6 +129,8 @@ struct BrokerRequest {
  10: optional string bucketHashKey;
  11: optional bool enableTrace;
  12: optional string responseFormat;
+ 13: optional bool enableProfile;
+ 14: optional i32 numGroupsLimit;
 }
 
 /**
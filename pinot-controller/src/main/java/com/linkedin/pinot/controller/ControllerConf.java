@@ -40,12 +40,14 @@ public class ControllerConf extends PropertiesConfiguration {
   private static final String VALIDATION_MANAGER_FREQUENCY_IN_SECONDS = "controller.validation.frequencyInSeconds";
   private static final String STATUS_CHECKER_FREQUENCY_IN_SECONDS = "controller.statuschecker.frequencyInSeconds";
   private static final String SERVER_ADMIN_REQUEST_TIMEOUT_SECONDS = "server.request.timeoutSeconds";
+  private static final String SEGMENT_BATCH_UPLOAD_PARALLELISM = "controller.upload.batchParallelism";
 
   private static final int DEFAULT_RETENTION_CONTROLLER_FREQUENCY_IN_SECONDS = 6 * 60 * 60; // 6 Hours.
   private static final int DEFAULT_VALIDATION_CONTROLLER_FREQUENCY_IN_SECONDS = 60 * 60; // 1 Hour.
   private static final int DEFAULT_STATUS_CONTROLLER_FREQUENCY_IN_SECONDS = 5 * 60; // 5 minutes
   private static final long DEFAULT_EXTERNAL_VIEW_ONLINE_TO_OFFLINE_TIMEOUT_MILLIS = 120_000L; // 2 minutes
   private static final int DEFAULT_SERVER_ADMIN_REQUEST_TIMEOUT_SECONDS = 30;
+  private static final int DEFAULT_SEGMENT_BATCH_UPLOAD_PARALLELISM = 8;
 
   public ControllerConf(File file) throws ConfigurationException {
     super(file);
@@ -221,4 +223,15 @@ public class ControllerConf extends PropertiesConfiguration {
     }
     return DEFAULT_SERVER_ADMIN_REQUEST_TIMEOUT_SECONDS;
   }
+
+  public void setSegmentBatchUploadParallelism(int parallelism) {
+    setProperty(SEGMENT_BATCH_UPLOAD_PARALLELISM, parallelism);
+  }
+
+  public int getSegmentBatchUploadParallelism() {
+    if (containsKey(SEGMENT_BATCH_UPLOAD_PARALLELISM)) {
+      return getInt(SEGMENT_BATCH_UPLOAD_PARALLELISM);
+    }
+    return DEFAULT_SEGMENT_BATCH_UPLOAD_PARALLELISM;
+  }
 }
@@ -39,6 +39,7 @@ import com.linkedin.pinot.controller.api.restlet.resources.PinotControllerHealth
 import com.linkedin.pinot.controller.api.restlet.resources.PinotInstanceRestletResource;
 import com.linkedin.pinot.controller.api.restlet.resources.PinotSchemaRestletResource;
 import com.linkedin.pinot.controller.api.restlet.resources.PinotSegmentRestletResource;
+import com.linkedin.pinot.controller.api.restlet.resources.PinotSegmentBatchUploadRestletResource;
 import com.linkedin.pinot.controller.api.restlet.resources.PinotSegmentUploadRestletResource;
 import com.linkedin.pinot.controller.api.restlet.resources.PinotTableIndexingConfigs;
 import com.linkedin.pinot.controller.api.restlet.resources.PinotTableInstances;
@@ -103,6 +104,7 @@ public class ControllerRestApplication extends PinotRestletApplication {
 
     // Uploading Downloading segments
     attachRoutesForClass(router, PinotSegmentUploadRestletResource.class);
+    attachRoutesForClass(router, PinotSegmentBatchUploadRestletResource.class);
 
     attachRoutesForClass(router, PinotVersionRestletResource.class);
 
@@ -0,0 +1,385 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.controller.api.restlet.resources;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.linkedin.pinot.common.metrics.ControllerMeter;
+import com.linkedin.pinot.common.metrics.ControllerMetrics;
+import com.linkedin.pinot.common.restlet.swagger.HttpVerb;
+import com.linkedin.pinot.common.restlet.swagger.Paths;
+import com.linkedin.pinot.common.restlet.swagger.Response;
+import com.linkedin.pinot.common.restlet.swagger.Responses;
+import com.linkedin.pinot.common.restlet.swagger.Summary;
+import com.linkedin.pinot.common.restlet.swagger.Tags;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.segment.fetcher.SegmentFetcher;
+import com.linkedin.pinot.common.segment.fetcher.SegmentFetcherFactory;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.common.utils.FileUploadUtils;
+import com.linkedin.pinot.common.utils.FileUploadUtils.FileUploadType;
+import com.linkedin.pinot.common.utils.TarGzCompressionUtils;
+import com.linkedin.pinot.controller.api.ControllerRestApplication;
+import com.linkedin.pinot.controller.helix.core.PinotResourceManagerResponse;
+import com.linkedin.pinot.controller.validation.StorageQuotaChecker;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+import org.apache.commons.io.FileUtils;
+import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.ext.fileupload.RestletFileUpload;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Post;
+import org.restlet.util.Series;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Uploads many segments in a single request. The segments are either sent as a multipart request with one segment
+ * tar per part, or as download uris (a JSON array of objects with a "downloadUrl" field, or a comma separated list of
+ * uris in the DOWNLOAD_URI header). The segments are fetched, untarred and validated in parallel. The storage quota
+ * of each table is then checked once against the total size of the segments of the batch added to it, and the
+ * segments are added with {@link com.linkedin.pinot.controller.helix.core.PinotHelixResourceManager#addSegments},
+ * which writes the segment ZK metadata in parallel and updates the ideal state of each table once for the whole batch.
+ *
+ * sample curl call : curl -F segment1=@segment1.tar.gz -F segment2=@segment2.tar.gz http://localhost:9000/batch/segments
+ */
+public class PinotSegmentBatchUploadRestletResource extends BasePinotControllerRestletResource {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PinotSegmentBatchUploadRestletResource.class);
+  private static final String RESTLET_HTTP_HEADERS = "org.restlet.http.headers";
+
+  private final File baseDataDir;
+  private final File tempDir;
+  private final File tempUntarredPath;
+  private final PinotSegmentUploadRestletResource segmentUploadResource;
+
+  public PinotSegmentBatchUploadRestletResource() throws IOException {
+    // The single segment upload resource creates the data and temp directories
+    segmentUploadResource = new PinotSegmentUploadRestletResource();
+    baseDataDir = new File(_controllerConf.getDataDir());
+    tempDir = new File(baseDataDir, "fileUploadTemp");
+    tempUntarredPath = new File(tempDir, "untarred");
+  }
+
+  /**
+   * A segment of the batch, along with the result of its validation.
+   */
+  private static class SegmentUpload {
+    private final String name;
+    private final String downloadUri;
+    private File dataFile;
+    private SegmentMetadata metadata;
+    private long sizeInBytes;
+    private String downloadUrl;
+    private String error;
+
+    private SegmentUpload(String name, String downloadUri, File dataFile) {
+      this.name = name;
+      this.downloadUri = downloadUri;
+      this.dataFile = dataFile;
+    }
+  }
+
+  @Override
+  @Post
+  public Representation post(Representation entity) {
+    ControllerMetrics controllerMetrics = ControllerRestApplication.getControllerMetrics();
+    List<SegmentUpload> segmentUploads = new ArrayList<>();
+    try {
+      Series headers = (Series) getRequestAttributes().get(RESTLET_HTTP_HEADERS);
+      String uploadTypeStr = headers.getFirstValue(FileUploadUtils.UPLOAD_TYPE);
+      FileUploadType uploadType;
+      try {
+        uploadType = (uploadTypeStr == null) ? FileUploadType.getDefaultUploadType() : FileUploadType.valueOf(uploadTypeStr);
+      } catch (Exception e) {
+        uploadType = FileUploadType.getDefaultUploadType();
+      }
+
+      switch (uploadType) {
+        case URI:
+          String downloadUris = headers.getFirstValue(FileUploadUtils.DOWNLOAD_URI);
+          if (downloadUris != null) {
+            for (String downloadUri : downloadUris.split(",")) {
+              if (!downloadUri.trim().isEmpty()) {
+                segmentUploads.add(new SegmentUpload(downloadUri.trim(), downloadUri.trim(), null));
+              }
+            }
+          }
+          break;
+        case JSON:
+          JSONArray segmentsJson = JSONArray.parseArray(entity.getText());
+          for (int i = 0; i < segmentsJson.size(); i++) {
+            String downloadUri = segmentsJson.getJSONObject(i).getString(CommonConstants.Segment.Offline.DOWNLOAD_URL);
+            segmentUploads.add(new SegmentUpload(downloadUri, downloadUri, null));
+          }
+          break;
+        case TAR:
+        default:
+          RestletFileUpload upload = new RestletFileUpload(new DiskFileItemFactory());
+          for (FileItem fileItem : upload.parseRequest(getRequest())) {
+            if (fileItem.getFieldName() != null) {
+              File dataFile = new File(tempDir, fileItem.getFieldName());
+              fileItem.write(dataFile);
+              segmentUploads.add(new SegmentUpload(fileItem.getFieldName(), null, dataFile));
+            }
+          }
+      }
+
+      if (segmentUploads.isEmpty()) {
+        String errorMsg = "No segment was uploaded";
+        LOGGER.warn(errorMsg);
+        controllerMetrics.addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOAD_ERROR, 1L);
+        setStatus(Status.CLIENT_ERROR_BAD_REQUEST);
+        return new StringRepresentation(getErrorMsgInJson(errorMsg).toJSONString(), MediaType.APPLICATION_JSON);
+      }
+
+      LOGGER.info("Processing batch upload request of {} segments from client '{}'", segmentUploads.size(),
+          getClientInfo().getAddress());
+      return uploadSegments(segmentUploads);
+    } catch (final Exception e) {
+      LOGGER.error("Caught exception in batch segment upload", e);
+      controllerMetrics.addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOAD_ERROR, 1L);
+      setStatus(Status.SERVER_ERROR_INTERNAL);
+      return exceptionToStringRepresentation(e);
+    } finally {
+      for (SegmentUpload segmentUpload : segmentUploads) {
+        if (segmentUpload.dataFile != null && segmentUpload.dataFile.exists()) {
+          FileUtils.deleteQuietly(segmentUpload.dataFile);
+        }
+      }
+    }
+  }
+
+  @HttpVerb("post")
+  @Summary("Uploads a batch of segments")
+  @Tags({"segment"})
+  @Paths({
+      "/batch/segments",
+      "/batch/segments/"
+  })
+  @Responses({
+      @Response(statusCode = "200", description = "All the segments were successfully uploaded"),
+      @Response(statusCode = "500", description = "Some of the segments could not be uploaded")
+  })
+  private Representation uploadSegments(List<SegmentUpload> segmentUploads) throws Exception {
+    ControllerMetrics controllerMetrics = ControllerRestApplication.getControllerMetrics();
+    int parallelism = Math.min(_controllerConf.getSegmentBatchUploadParallelism(), segmentUploads.size());
+    ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+    try {
+      // Fetch, untar and validate the segments in parallel
+      List<Future<?>> futures = new ArrayList<>(segmentUploads.size());
+      for (final SegmentUpload segmentUpload : segmentUploads) {
+        futures.add(executorService.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            prepareSegment(segmentUpload);
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      checkStorageQuotas(segmentUploads);
+      for (SegmentUpload segmentUpload : segmentUploads) {
+        if (segmentUpload.error == null) {
+          moveSegment(segmentUpload);
+        }
+      }
+
+      List<SegmentUpload> validSegmentUploads = new ArrayList<>();
+      List<SegmentMetadata> segmentsMetadata = new ArrayList<>();
+      List<String> downloadUrls = new ArrayList<>();
+      for (SegmentUpload segmentUpload : segmentUploads) {
+        if (segmentUpload.error == null) {
+          validSegmentUploads.add(segmentUpload);
+          segmentsMetadata.add(segmentUpload.metadata);
+          downloadUrls.add(segmentUpload.downloadUrl);
+        }
+      }
+
+      // Add the valid segments with a single ideal state update per table
+      List<PinotResourceManagerResponse> responses =
+          _pinotHelixResourceManager.addSegments(segmentsMetadata, downloadUrls, executorService);
+      for (int i = 0; i < validSegmentUploads.size(); i++) {
+        PinotResourceManagerResponse response = responses.get(i);
+        if (!response.isSuccessfull()) {
+          validSegmentUploads.get(i).error = response.message;
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    JSONArray results = new JSONArray();
+    int numFailedSegments = 0;
+    for (SegmentUpload segmentUpload : segmentUploads) {
+      JSONObject result = new JSONObject();
+      result.put("segment", segmentUpload.metadata != null ? segmentUpload.metadata.getName() : segmentUpload.name);
+      if (segmentUpload.error == null) {
+        result.put("status", PinotResourceManagerResponse.ResponseStatus.success.toString());
+      } else {
+        numFailedSegments++;
+        result.put("status", PinotResourceManagerResponse.ResponseStatus.failure.toString());
+        result.put("message", segmentUpload.error);
+      }
+      results.add(result);
+    }
+
+    int numUploadedSegments = segmentUploads.size() - numFailedSegments;
+    LOGGER.info("Uploaded {} segments, failed to upload {} segments", numUploadedSegments, numFailedSegments);
+    controllerMetrics.addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_BATCH_UPLOADS, 1L);
+    controllerMetrics.addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOADED, numUploadedSegments);
+    if (numFailedSegments == 0) {
+      setStatus(Status.SUCCESS_OK);
+    } else {
+      controllerMetrics.addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOAD_ERROR, numFailedSegments);
+      setStatus(Status.SERVER_ERROR_INTERNAL);
+    }
+    return new StringRepresentation(results.toJSONString(), MediaType.APPLICATION_JSON);
+  }
+
+  /**
+   * Fetches the segment if needed, then untars and validates it. Sets the error of the segment upload if the segment is
+   * rejected.
+   */
+  private void prepareSegment(SegmentUpload segmentUpload) {
+    File tmpSegmentDir = null;
+    try {
+      if (segmentUpload.downloadUri != null) {
+        SegmentFetcher segmentFetcher = SegmentFetcherFactory.getSegmentFetcherBasedOnURI(segmentUpload.downloadUri);
+        segmentUpload.dataFile = new File(tempDir, "tmp-" + Thread.currentThread().getId() + "-" + System.nanoTime());
+        segmentFetcher.fetchSegmentToLocal(segmentUpload.downloadUri, segmentUpload.dataFile);
+        if (!segmentUpload.dataFile.exists() || segmentUpload.dataFile.length() == 0) {
+          segmentUpload.error = "Failed to fetch segment tar from download Uri: " + segmentUpload.downloadUri;
+          return;
+        }
+      }
+
+      File dataFile = segmentUpload.dataFile;
+      tmpSegmentDir = new File(tempUntarredPath,
+          dataFile.getName() + "-" + _controllerConf.getControllerHost() + "_" + _controllerConf.getControllerPort()
+              + "-" + System.currentTimeMillis());
+      if (tmpSegmentDir.exists()) {
+        FileUtils.deleteDirectory(tmpSegmentDir);
+      }
+      tmpSegmentDir.mkdirs();
+      TarGzCompressionUtils.unTar(dataFile, tmpSegmentDir);
+      File indexDir = tmpSegmentDir.listFiles()[0];
+
+      SegmentMetadata metadata = new SegmentMetadataImpl(indexDir);
+      segmentUpload.metadata = metadata;
+      segmentUpload.sizeInBytes = FileUtils.sizeOfDirectory(indexDir);
+      if (!segmentUploadResource.isSegmentTimeValid(metadata)) {
+        segmentUpload.error = "Invalid segment start/end time";
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while preparing segment {} for upload", segmentUpload.name, e);
+      segmentUpload.error = e.getMessage();
+    } finally {
+      if (tmpSegmentDir != null && tmpSegmentDir.exists()) {
+        FileUtils.deleteQuietly(tmpSegmentDir);
+      }
+    }
+  }
+
+  /**
+   * Checks the storage quota of each table once for all the valid segments of the batch added to it, and rejects all
+   * these segments if their total size exceeds the quota.
+   */
+  private void checkStorageQuotas(List<SegmentUpload> segmentUploads) {
+    Map<String, List<SegmentUpload>> tableSegmentUploads = new HashMap<>();
+    for (SegmentUpload segmentUpload : segmentUploads) {
+      if (segmentUpload.error == null) {
+        String tableName = segmentUpload.metadata.getTableName();
+        List<SegmentUpload> uploads = tableSegmentUploads.get(tableName);
+        if (uploads == null) {
+          uploads = new ArrayList<>();
+          tableSegmentUploads.put(tableName, uploads);
+        }
+        uploads.add(segmentUpload);
+      }
+    }
+
+    for (Map.Entry<String, List<SegmentUpload>> entry : tableSegmentUploads.entrySet()) {
+      String tableName = entry.getKey();
+      List<SegmentUpload> uploads = entry.getValue();
+      Map<String, Long> segmentSizes = new HashMap<>();
+      for (SegmentUpload segmentUpload : uploads) {
+        segmentSizes.put(segmentUpload.metadata.getName(), segmentUpload.sizeInBytes);
+      }
+
+      String error;
+      try {
+        StorageQuotaChecker.QuotaCheckerResponse quotaResponse =
+            segmentUploadResource.checkStorageQuota(tableName, segmentSizes);
+        if (quotaResponse.isSegmentWithinQuota) {
+          continue;
+        }
+        LOGGER.info("Rejecting upload of {} segments for table: {}, reason: {}", uploads.size(), tableName,
+            quotaResponse.reason);
+        error = quotaResponse.reason;
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while checking the storage quota of table {}", tableName, e);
+        error = e.getMessage();
+      }
+      for (SegmentUpload segmentUpload : uploads) {
+        segmentUpload.error = error;
+      }
+    }
+  }
+
+  /**
+   * Moves the segment tar into the table data directory. Sets the error of the segment upload if the move fails.
+   */
+  private void moveSegment(SegmentUpload segmentUpload) {
+    try {
+      SegmentMetadata metadata = segmentUpload.metadata;
+      File dataFile = segmentUpload.dataFile;
+      File segmentFile = new File(new File(baseDataDir, metadata.getTableName()), dataFile.getName());
+      if (segmentFile.exists()) {
+        FileUtils.deleteQuietly(segmentFile);
+      }
+      FileUtils.moveFile(dataFile, segmentFile);
+      ControllerRestApplication.getControllerMetrics()
+          .addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOADED_BYTES, segmentFile.length());
+
+      if (segmentUpload.downloadUri != null) {
+        segmentUpload.downloadUrl = segmentUpload.downloadUri;
+      } else {
+        segmentUpload.downloadUrl =
+            segmentUploadResource.constructDownloadUrl(metadata.getTableName(), dataFile.getName());
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while moving segment {} for upload", segmentUpload.name, e);
+      segmentUpload.error = e.getMessage();
+    }
+  }
+}
@@ -51,6 +51,7 @@ import java.net.URLEncoder;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.fileupload.FileItem;
@@ -438,6 +439,8 @@ public class PinotSegmentUploadRestletResource extends BasePinotControllerRestle
       FileUtils.deleteQuietly(segmentFile);
     }
     FileUtils.moveFile(dataFile, segmentFile);
+    ControllerRestApplication.getControllerMetrics()
+        .addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOADED_BYTES, segmentFile.length());
 
     PinotResourceManagerResponse response;
     if (!isSegmentTimeValid(metadata)) {
@@ -450,6 +453,8 @@ public class PinotSegmentUploadRestletResource extends BasePinotControllerRestle
     }
 
     if (response.isSuccessfull()) {
+      ControllerRestApplication.getControllerMetrics()
+          .addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOADED, 1L);
       setStatus(Status.SUCCESS_OK);
     } else {
       ControllerRestApplication.getControllerMetrics().addMeteredGlobalValue(ControllerMeter.CONTROLLER_SEGMENT_UPLOAD_ERROR, 1L);
@@ -466,7 +471,7 @@ public class PinotSegmentUploadRestletResource extends BasePinotControllerRestle
    * @param metadata
    * @return
    */
-  private boolean isSegmentTimeValid(SegmentMetadata metadata) {
+  boolean isSegmentTimeValid(SegmentMetadata metadata) {
     Interval interval = metadata.getTimeInterval();
     if (interval == null) {
       return true;
@@ -574,7 +579,7 @@ public class PinotSegmentUploadRestletResource extends BasePinotControllerRestle
    *                    segmentFile must exist on disk and must be a directory
    * @param metadata segment metadata. This should not be null
    */
-  private StorageQuotaChecker.QuotaCheckerResponse checkStorageQuota(@Nonnull File segmentFile, @Nonnull SegmentMetadata metadata) {
+  StorageQuotaChecker.QuotaCheckerResponse checkStorageQuota(@Nonnull File segmentFile, @Nonnull SegmentMetadata metadata) {
     TableSizeReader tableSizeReader = new TableSizeReader(executor, connectionManager, _pinotHelixResourceManager);
     AbstractTableConfig offlineTableConfig = ZKMetadataProvider
         .getOfflineTableConfig(_pinotHelixResourceManager.getPropertyStore(), metadata.getTableName());
@@ -584,4 +589,20 @@ public class PinotSegmentUploadRestletResource extends BasePinotControllerRestle
         metadata.getName(), _controllerConf.getServerAdminRequestTimeoutSeconds());
   }
 
+  /**
+   * check if a batch of segments added to the same table is within the storage quota
+   * @param tableName raw table name of the segments. This should not be null
+   * @param segmentSizes map from segment name to untarred segment size in bytes. This should not be null
+   */
+  StorageQuotaChecker.QuotaCheckerResponse checkStorageQuota(@Nonnull String tableName,
+      @Nonnull Map<String, Long> segmentSizes) {
+    TableSizeReader tableSizeReader = new TableSizeReader(executor, connectionManager, _pinotHelixResourceManager);
+    AbstractTableConfig offlineTableConfig =
+        ZKMetadataProvider.getOfflineTableConfig(_pinotHelixResourceManager.getPropertyStore(), tableName);
+    StorageQuotaChecker quotaChecker = new StorageQuotaChecker(offlineTableConfig, tableSizeReader);
+    String offlineTableName = TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(tableName);
+    return quotaChecker.areSegmentsStorageWithinQuota(segmentSizes, offlineTableName,
+        _controllerConf.getServerAdminRequestTimeoutSeconds());
+  }
+
 }
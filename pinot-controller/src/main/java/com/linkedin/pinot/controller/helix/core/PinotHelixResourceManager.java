@@ -17,12 +17,16 @@ package com.linkedin.pinot.controller.helix.core;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
@@ -1223,13 +1227,7 @@ public class PinotHelixResourceManager {
           res.message = msg;
         }
       } else {
-        OfflineSegmentZKMetadata offlineSegmentZKMetadata = new OfflineSegmentZKMetadata();
-        offlineSegmentZKMetadata = ZKMetadataUtils.updateSegmentMetadata(offlineSegmentZKMetadata, segmentMetadata);
-        offlineSegmentZKMetadata.setDownloadUrl(downloadUrl);
-        offlineSegmentZKMetadata.setPushTime(System.currentTimeMillis());
-        ZKMetadataProvider.setOfflineSegmentZKMetadata(_propertyStore, offlineSegmentZKMetadata);
-        LOGGER.info("Added segment {} of table {} to propertystore", segmentName, tableName);
-
+        addNewOfflineSegmentZKMetadata(segmentMetadata, downloadUrl);
         addNewOfflineSegment(segmentMetadata);
         res.status = ResponseStatus.success;
       }
@@ -1242,6 +1240,116 @@ public class PinotHelixResourceManager {
     return res;
   }
 
+  /**
+   * Adds a batch of offline segments.
+   * - The segment ZK metadata of the new segments is written in parallel on the given executor.
+   * - The new segments of each table are added to the ideal state with a single update, instead of one ideal state
+   *   rewrite per segment.
+   * - Segments that already exist go through the regular refresh path of {@link #addSegment(SegmentMetadata, String)}.
+   *
+   * @param segmentsMetadata Meta-data of the segments to add.
+   * @param downloadUrls Download urls of the segments, in the same order as the segment meta-data.
+   * @param executor Executor used to write the segment ZK metadata.
+   * @return One response per segment, in the same order as the segment meta-data.
+   */
+  public List<PinotResourceManagerResponse> addSegments(final List<SegmentMetadata> segmentsMetadata,
+      final List<String> downloadUrls, Executor executor) {
+    Preconditions.checkArgument(segmentsMetadata.size() == downloadUrls.size(),
+        "Number of download urls does not match number of segments");
+    final int numSegments = segmentsMetadata.size();
+    final PinotResourceManagerResponse[] responses = new PinotResourceManagerResponse[numSegments];
+
+    // Check the table names once per table rather than once per segment
+    Map<String, Boolean> tableNameMatches = new HashMap<>();
+    for (SegmentMetadata segmentMetadata : segmentsMetadata) {
+      String tableName = segmentMetadata.getTableName();
+      if (!tableNameMatches.containsKey(tableName)) {
+        tableNameMatches.put(tableName, matchTableName(segmentMetadata));
+      }
+    }
+
+    // Write the ZK metadata of the new segments, keeping track of the new segments of each table
+    final Map<String, List<SegmentMetadata>> newSegmentsPerTable = new HashMap<>();
+    List<FutureTask<Void>> tasks = new ArrayList<>(numSegments);
+    for (int i = 0; i < numSegments; i++) {
+      final int segmentId = i;
+      final SegmentMetadata segmentMetadata = segmentsMetadata.get(segmentId);
+      if (!tableNameMatches.get(segmentMetadata.getTableName())) {
+        responses[segmentId] = new PinotResourceManagerResponse(
+            "Reject segment: table name is not registered. table name: " + segmentMetadata.getTableName(), false);
+        continue;
+      }
+      FutureTask<Void> task = new FutureTask<>(new Runnable() {
+        @Override
+        public void run() {
+          String segmentName = segmentMetadata.getName();
+          String tableName = segmentMetadata.getTableName();
+          try {
+            if (ifSegmentExisted(segmentMetadata)) {
+              responses[segmentId] = addSegment(segmentMetadata, downloadUrls.get(segmentId));
+            } else {
+              addNewOfflineSegmentZKMetadata(segmentMetadata, downloadUrls.get(segmentId));
+              synchronized (newSegmentsPerTable) {
+                List<SegmentMetadata> newSegments = newSegmentsPerTable.get(tableName);
+                if (newSegments == null) {
+                  newSegments = new ArrayList<>();
+                  newSegmentsPerTable.put(tableName, newSegments);
+                }
+                newSegments.add(segmentMetadata);
+              }
+            }
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while adding segment {} of table {}", segmentName, tableName, e);
+            responses[segmentId] = new PinotResourceManagerResponse(e.getMessage(), false);
+          }
+        }
+      }, null);
+      executor.execute(task);
+      tasks.add(task);
+    }
+    for (FutureTask<Void> task : tasks) {
+      try {
+        Uninterruptibles.getUninterruptibly(task);
+      } catch (ExecutionException e) {
+        // Exceptions are caught within the task
+        throw new RuntimeException(e);
+      }
+    }
+
+    // Apply one ideal state update per table
+    for (Map.Entry<String, List<SegmentMetadata>> entry : newSegmentsPerTable.entrySet()) {
+      String tableName = entry.getKey();
+      List<SegmentMetadata> newSegments = entry.getValue();
+      PinotResourceManagerResponse response;
+      try {
+        addNewOfflineSegments(tableName, newSegments);
+        LOGGER.info("Added {} new segments of table {} to the ideal state", newSegments.size(), tableName);
+        response = new PinotResourceManagerResponse(true);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while adding {} new segments of table {} to the ideal state",
+            newSegments.size(), tableName, e);
+        response = new PinotResourceManagerResponse(e.getMessage(), false);
+      }
+      for (int i = 0; i < numSegments; i++) {
+        if (responses[i] == null && segmentsMetadata.get(i).getTableName().equals(tableName)) {
+          responses[i] = response;
+        }
+      }
+    }
+
+    return Arrays.asList(responses);
+  }
+
+  private void addNewOfflineSegmentZKMetadata(SegmentMetadata segmentMetadata, String downloadUrl) {
+    OfflineSegmentZKMetadata offlineSegmentZKMetadata = new OfflineSegmentZKMetadata();
+    offlineSegmentZKMetadata = ZKMetadataUtils.updateSegmentMetadata(offlineSegmentZKMetadata, segmentMetadata);
+    offlineSegmentZKMetadata.setDownloadUrl(downloadUrl);
+    offlineSegmentZKMetadata.setPushTime(System.currentTimeMillis());
+    ZKMetadataProvider.setOfflineSegmentZKMetadata(_propertyStore, offlineSegmentZKMetadata);
+    LOGGER.info("Added segment {} of table {} to propertystore", segmentMetadata.getName(),
+        segmentMetadata.getTableName());
+  }
+
   // Check to see if the table has been explicitly configured to NOT use messageBasedRefresh.
   private boolean shouldSendMessage(OfflineSegmentZKMetadata segmentZKMetadata) {
     final String rawTableName = segmentZKMetadata.getTableName();
@@ -1351,6 +1459,53 @@ public class PinotHelixResourceManager {
     HelixHelper.addSegmentToIdealState(_helixZkManager, offlineTableName, segmentName, getInstancesForSegment);
   }
 
+  /**
+   * Batch version of {@link #addNewOfflineSegment(SegmentMetadata)}, the new segments of the table are assigned together
+   * and added to the ideal state with a single update.
+   *
+   * @param tableName Raw name of the table the segments belong to.
+   * @param segmentsMetadata Meta-data for the new segments of the table.
+   */
+  private void addNewOfflineSegments(String tableName, final List<SegmentMetadata> segmentsMetadata) {
+    final AbstractTableConfig offlineTableConfig = ZKMetadataProvider.getOfflineTableConfig(_propertyStore, tableName);
+    final String offlineTableName = TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(tableName);
+
+    if (!SEGMENT_ASSIGNMENT_STRATEGY_MAP.containsKey(offlineTableName)) {
+      SEGMENT_ASSIGNMENT_STRATEGY_MAP.put(offlineTableName, SegmentAssignmentStrategyFactory
+          .getSegmentAssignmentStrategy(offlineTableConfig.getValidationConfig().getSegmentAssignmentStrategy()));
+    }
+    final SegmentAssignmentStrategy segmentAssignmentStrategy = SEGMENT_ASSIGNMENT_STRATEGY_MAP.get(offlineTableName);
+
+    Callable<Map<String, List<String>>> getInstancesForSegments = new Callable<Map<String, List<String>>>() {
+      @Override
+      public Map<String, List<String>> call() throws Exception {
+        final IdealState currentIdealState = _helixAdmin.getResourceIdealState(_helixClusterName, offlineTableName);
+        Map<String, List<String>> segmentToInstancesMap = new HashMap<>();
+        List<SegmentMetadata> unassignedSegments = new ArrayList<>();
+        for (SegmentMetadata segmentMetadata : segmentsMetadata) {
+          Set<String> currentInstanceSet = currentIdealState.getInstanceSet(segmentMetadata.getName());
+          if (currentInstanceSet.isEmpty()) {
+            unassignedSegments.add(segmentMetadata);
+          } else {
+            segmentToInstancesMap.put(segmentMetadata.getName(), new ArrayList<>(currentInstanceSet));
+          }
+        }
+
+        if (!unassignedSegments.isEmpty()) {
+          final String serverTenant =
+              ControllerTenantNameBuilder.getOfflineTenantNameForTenant(offlineTableConfig.getTenantConfig()
+                  .getServer());
+          final int replicas = Integer.parseInt(offlineTableConfig.getValidationConfig().getReplication());
+          segmentToInstancesMap.putAll(segmentAssignmentStrategy.getAssignedInstances(_helixAdmin, _helixClusterName,
+              unassignedSegments, replicas, serverTenant));
+        }
+        return segmentToInstancesMap;
+      }
+    };
+
+    HelixHelper.addSegmentsToIdealState(_helixZkManager, offlineTableName, getInstancesForSegments);
+  }
+
   /**
    * Returns true if the table name specified in the segment meta data has a corresponding
    * realtime or offline table in the helix cluster
@@ -44,6 +44,31 @@ public class BalanceNumSegmentAssignmentStrategy implements SegmentAssignmentStr
   @Override
   public List<String> getAssignedInstances(HelixAdmin helixAdmin, String helixClusterName,
       SegmentMetadata segmentMetadata, int numReplicas, String tenantName) {
+    Map<String, Integer> currentNumSegmentsPerInstanceMap =
+        getNumSegmentsPerInstance(helixAdmin, helixClusterName, segmentMetadata, tenantName);
+    return selectInstances(segmentMetadata, currentNumSegmentsPerInstanceMap, numReplicas);
+  }
+
+  @Override
+  public Map<String, List<String>> getAssignedInstances(HelixAdmin helixAdmin, String helixClusterName,
+      List<SegmentMetadata> segmentsMetadata, int numReplicas, String tenantName) {
+    Map<String, List<String>> segmentToInstancesMap = new HashMap<String, List<String>>();
+    if (segmentsMetadata.isEmpty()) {
+      return segmentToInstancesMap;
+    }
+
+    // Count the segments per instance once, then keep the counts up to date as the batch gets assigned
+    Map<String, Integer> currentNumSegmentsPerInstanceMap =
+        getNumSegmentsPerInstance(helixAdmin, helixClusterName, segmentsMetadata.get(0), tenantName);
+    for (SegmentMetadata segmentMetadata : segmentsMetadata) {
+      segmentToInstancesMap.put(segmentMetadata.getName(),
+          selectInstances(segmentMetadata, currentNumSegmentsPerInstanceMap, numReplicas));
+    }
+    return segmentToInstancesMap;
+  }
+
+  private Map<String, Integer> getNumSegmentsPerInstance(HelixAdmin helixAdmin, String helixClusterName,
+      SegmentMetadata segmentMetadata, String tenantName) {
     String serverTenantName;
     String tableName;
     if ("realtime".equalsIgnoreCase(segmentMetadata.getIndexType())) {
@@ -54,7 +79,6 @@ public class BalanceNumSegmentAssignmentStrategy implements SegmentAssignmentStr
       serverTenantName = ControllerTenantNameBuilder.getOfflineTenantNameForTenant(tenantName);
     }
 
-    List<String> selectedInstances = new ArrayList<String>();
     Map<String, Integer> currentNumSegmentsPerInstanceMap = new HashMap<String, Integer>();
     List<String> allTaggedInstances = helixAdmin.getInstancesInClusterWithTag(helixClusterName, serverTenantName);
 
@@ -78,8 +102,15 @@ public class BalanceNumSegmentAssignmentStrategy implements SegmentAssignmentStr
         }
       }
     }
+    return currentNumSegmentsPerInstanceMap;
+  }
 
-    // Select up to numReplicas instances with the fewest segments assigned
+  /**
+   * Selects up to numReplicas instances with the fewest segments assigned, and counts the segment against them.
+   */
+  private List<String> selectInstances(SegmentMetadata segmentMetadata,
+      Map<String, Integer> currentNumSegmentsPerInstanceMap, int numReplicas) {
+    List<String> selectedInstances = new ArrayList<String>();
     PriorityQueue<Number2ObjectPair<String>> priorityQueue =
         new PriorityQueue<Number2ObjectPair<String>>(numReplicas, Pairs.getDescendingnumber2ObjectPairComparator());
     for (String key : currentNumSegmentsPerInstanceMap.keySet()) {
@@ -90,7 +121,9 @@ public class BalanceNumSegmentAssignmentStrategy implements SegmentAssignmentStr
     }
 
     while (!priorityQueue.isEmpty()) {
-      selectedInstances.add(priorityQueue.poll().getB());
+      String instance = priorityQueue.poll().getB();
+      selectedInstances.add(instance);
+      currentNumSegmentsPerInstanceMap.put(instance, currentNumSegmentsPerInstanceMap.get(instance) + 1);
     }
 
     LOGGER.info("Segment assignment result for : " + segmentMetadata.getName() + ", in resource : "
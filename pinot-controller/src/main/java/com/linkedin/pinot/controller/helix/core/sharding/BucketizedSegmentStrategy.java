@@ -17,7 +17,9 @@ package com.linkedin.pinot.controller.helix.core.sharding;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.helix.HelixAdmin;
 import org.slf4j.Logger;
@@ -64,4 +66,15 @@ public class BucketizedSegmentStrategy implements SegmentAssignmentStrategy {
       throw new RuntimeException("Segment missing sharding key!");
     }
   }
+
+  @Override
+  public Map<String, List<String>> getAssignedInstances(HelixAdmin helixAdmin, String helixClusterName,
+      List<SegmentMetadata> segmentsMetadata, int numReplicas, String tenantName) {
+    Map<String, List<String>> segmentToInstancesMap = new HashMap<String, List<String>>();
+    for (SegmentMetadata segmentMetadata : segmentsMetadata) {
+      segmentToInstancesMap.put(segmentMetadata.getName(),
+          getAssignedInstances(helixAdmin, helixClusterName, segmentMetadata, numReplicas, tenantName));
+    }
+    return segmentToInstancesMap;
+  }
 }
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.controller.helix.core.sharding;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.helix.HelixAdmin;
 
@@ -30,4 +31,13 @@ import com.linkedin.pinot.common.segment.SegmentMetadata;
 public interface SegmentAssignmentStrategy {
   public List<String> getAssignedInstances(HelixAdmin helixAdmin, String helixClusterName,
       SegmentMetadata segmentMetadata, int numReplicas, String tenantName);
+
+  /**
+   * Computes the assigned instances for a batch of segments of the same table. Strategies that depend on the current
+   * assignment take the segments earlier in the batch into account.
+   *
+   * @return Map from segment name to assigned instances
+   */
+  public Map<String, List<String>> getAssignedInstances(HelixAdmin helixAdmin, String helixClusterName,
+      List<SegmentMetadata> segmentsMetadata, int numReplicas, String tenantName);
 }
@@ -21,6 +21,8 @@ import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.config.QuotaConfig;
 import com.linkedin.pinot.controller.api.restlet.resources.TableSizeReader;
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import org.apache.commons.io.FileUtils;
@@ -70,44 +72,88 @@ public class StorageQuotaChecker {
     Preconditions.checkArgument(segmentFile.exists(), "Segment file: %s does not exist", segmentFile);
     Preconditions.checkArgument(segmentFile.isDirectory(), "Segment file: %s is not a directory", segmentFile);
 
-    // 1. Read table config
-    // 2. read table size from all the servers
-    // 3. update predicted segment sizes
-    // 4. is the updated size within quota
-    QuotaConfig quotaConfig = tableConfig.getQuotaConfig();
-    int numReplicas = tableConfig.getValidationConfig().getReplicationNumber();
+    QuotaCheckerResponse unconfiguredResponse = checkQuotaConfigured(tableNameWithType);
+    if (unconfiguredResponse != null) {
+      return unconfiguredResponse;
+    }
+    return checkStorageQuota(Collections.singletonMap(segmentName, FileUtils.sizeOfDirectory(segmentFile)),
+        tableNameWithType, timeoutMsec);
+  }
+
+  /**
+   * check if a batch of segments added to the same table is within the storage quota. The sizes of all the segments
+   * are added up and checked against the quota once, so that the batch can not exceed the quota by checking each
+   * segment against the table size before the batch
+   * @param segmentSizes map from the name of each segment being added to its untarred size in bytes
+   * @param tableNameWithType table name with type (OFFLINE/REALTIME) information
+   * @param timeoutMsec timeout in milliseconds for reading table sizes from server
+   */
+  public QuotaCheckerResponse areSegmentsStorageWithinQuota(@Nonnull Map<String, Long> segmentSizes,
+      @Nonnull String tableNameWithType, @Nonnegative int timeoutMsec) {
+    Preconditions.checkNotNull(segmentSizes);
+    Preconditions.checkNotNull(tableNameWithType);
+    Preconditions.checkArgument(timeoutMsec > 0, "Timeout value must be > 0, input: %s", timeoutMsec);
+
+    QuotaCheckerResponse unconfiguredResponse = checkQuotaConfigured(tableNameWithType);
+    if (unconfiguredResponse != null) {
+      return unconfiguredResponse;
+    }
+    return checkStorageQuota(segmentSizes, tableNameWithType, timeoutMsec);
+  }
 
+  /**
+   * Returns the response accepting the segments if no storage quota is configured for the table, null otherwise.
+   */
+  private QuotaCheckerResponse checkQuotaConfigured(String tableNameWithType) {
+    QuotaConfig quotaConfig = tableConfig.getQuotaConfig();
     if (quotaConfig == null) {
       // no quota configuration...so ignore for backwards compatibility
       return new QuotaCheckerResponse(true,
           "Quota configuration not set for table: " +tableNameWithType);
     }
-
-    long allowedStorageBytes = numReplicas * quotaConfig.storageSizeBytes();
-    if (allowedStorageBytes < 0) {
+    if (getAllowedStorageBytes(quotaConfig) < 0) {
       return new QuotaCheckerResponse(true,
           "Storage quota is not configured for table: " + tableNameWithType);
     }
+    return null;
+  }
 
-    long incomingSegmentSizeBytes = FileUtils.sizeOfDirectory(segmentFile);
+  private long getAllowedStorageBytes(QuotaConfig quotaConfig) {
+    int numReplicas = tableConfig.getValidationConfig().getReplicationNumber();
+    return numReplicas * quotaConfig.storageSizeBytes();
+  }
+
+  private QuotaCheckerResponse checkStorageQuota(Map<String, Long> segmentSizes, String tableNameWithType,
+      int timeoutMsec) {
+    // 1. read table size from all the servers
+    // 2. update predicted segment sizes
+    // 3. is the updated size within quota
+    long allowedStorageBytes = getAllowedStorageBytes(tableConfig.getQuotaConfig());
 
     // read table size
     TableSizeReader.TableSubTypeSizeDetails tableSubtypeSize =
         tableSizeReader.getTableSubtypeSize(tableNameWithType, timeoutMsec);
 
-    // If the segment exists(refresh), get the existing size
-    TableSizeReader.SegmentSizeDetails sizeDetails = tableSubtypeSize.segments.get(segmentName);
-    long existingSegmentSizeBytes = sizeDetails != null ?  sizeDetails.estimatedSizeInBytes : 0;
+    long incomingSegmentSizeBytes = 0;
+    long existingSegmentSizeBytes = 0;
+    for (Map.Entry<String, Long> entry : segmentSizes.entrySet()) {
+      incomingSegmentSizeBytes += entry.getValue();
+      // If the segment exists(refresh), get the existing size
+      TableSizeReader.SegmentSizeDetails sizeDetails = tableSubtypeSize.segments.get(entry.getKey());
+      existingSegmentSizeBytes += sizeDetails != null ?  sizeDetails.estimatedSizeInBytes : 0;
+    }
+    String incomingSize = segmentSizes.size() == 1 ? "Incoming segment size"
+        : "Incoming size of " + segmentSizes.size() + " segments";
 
     long estimatedFinalSizeBytes = tableSubtypeSize.estimatedSizeInBytes - existingSegmentSizeBytes + incomingSegmentSizeBytes;
     if (estimatedFinalSizeBytes <= allowedStorageBytes) {
       return new QuotaCheckerResponse(true,
-          String.format("Estimated size: %d bytes is within the configured quota of %d (bytes). Incoming segment size: %d (bytes)",
-          estimatedFinalSizeBytes, allowedStorageBytes, incomingSegmentSizeBytes) );
+          String.format("Estimated size: %d bytes is within the configured quota of %d (bytes). %s: %d (bytes)",
+          estimatedFinalSizeBytes, allowedStorageBytes, incomingSize, incomingSegmentSizeBytes) );
     } else {
       return new QuotaCheckerResponse(false,
-          String.format("Estimated size: %d bytes exceeds the configured quota of %d (bytes). Incoming segment size: %d (bytes)",
-          estimatedFinalSizeBytes, allowedStorageBytes, incomingSegmentSizeBytes));
+          String.format("Estimated size: %d bytes exceeds the configured quota of %d (bytes). %s: %d (bytes)",
+          estimatedFinalSizeBytes, allowedStorageBytes, incomingSize, incomingSegmentSizeBytes));
     }
   }
 }
@@ -15,14 +15,19 @@
  */
 package com.linkedin.pinot.controller.helix.sharding;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.I0Itec.zkclient.ZkClient;
 import org.apache.helix.HelixAdmin;
 import org.apache.helix.HelixManager;
 import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -36,6 +41,7 @@ import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.utils.ZkStarter;
 import com.linkedin.pinot.controller.helix.ControllerRequestBuilderUtil;
 import com.linkedin.pinot.controller.helix.core.PinotHelixResourceManager;
+import com.linkedin.pinot.controller.helix.core.PinotResourceManagerResponse;
 import com.linkedin.pinot.controller.helix.core.util.HelixSetupUtils;
 import com.linkedin.pinot.controller.helix.starter.HelixConfig;
 import com.linkedin.pinot.core.query.utils.SimpleSegmentMetadata;
@@ -48,6 +54,7 @@ public class SegmentAssignmentStrategyTest {
   private final static String HELIX_CLUSTER_NAME = "TestSegmentAssignmentStrategyHelix";
   private final static String TABLE_NAME_BALANCED = "testResourceBalanced";
   private final static String TABLE_NAME_RANDOM = "testResourceRandom";
+  private final static String TABLE_NAME_BATCH = "testResourceBatch";
   private PinotHelixResourceManager _pinotHelixResourceManager;
   private ZkClient _zkClient;
   private HelixManager _helixZkManager;
@@ -168,6 +175,58 @@ public class SegmentAssignmentStrategyTest {
         TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(TABLE_NAME_BALANCED));
   }
 
+  @Test
+  public void testBatchBalanceNumSegmentAssignmentStrategy() throws Exception {
+    final int numReplicas = 2;
+    // Adding table
+    String OfflineTableConfigJson = ControllerRequestBuilderUtil.buildCreateOfflineTableJSON(TABLE_NAME_BATCH, null,
+        null, numReplicas, "BalanceNumSegmentAssignmentStrategy").toString();
+    AbstractTableConfig offlineTableConfig = AbstractTableConfig.init(OfflineTableConfigJson);
+    _pinotHelixResourceManager.addTable(offlineTableConfig);
+
+    // Add all the segments in a single batch
+    final int numSegments = 25;
+    List<SegmentMetadata> segmentsMetadata = new ArrayList<SegmentMetadata>();
+    List<String> downloadUrls = new ArrayList<String>();
+    for (int i = 0; i < numSegments; ++i) {
+      final String segmentName = TABLE_NAME_BATCH + "_" + i;
+      segmentsMetadata.add(new SimpleSegmentMetadata(TABLE_NAME_BATCH) {
+        @Override
+        public String getName() {
+          return segmentName;
+        }
+      });
+      downloadUrls.add("downloadUrl");
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    List<PinotResourceManagerResponse> responses =
+        _pinotHelixResourceManager.addSegments(segmentsMetadata, downloadUrls, executorService);
+    executorService.shutdown();
+    Assert.assertEquals(responses.size(), numSegments);
+    for (PinotResourceManagerResponse response : responses) {
+      Assert.assertTrue(response.isSuccessfull());
+    }
+
+    // Segments earlier in the batch must be taken into account when assigning the later ones
+    final String offlineTableName = TableNameBuilder.OFFLINE_TABLE_NAME_BUILDER.forTable(TABLE_NAME_BATCH);
+    IdealState idealState = _helixAdmin.getResourceIdealState(HELIX_CLUSTER_NAME, offlineTableName);
+    Assert.assertEquals(idealState.getPartitionSet().size(), numSegments);
+    Assert.assertEquals(idealState.getNumPartitions(), numSegments);
+    final Map<String, Integer> instance2NumSegmentsMap = new HashMap<String, Integer>();
+    for (final String segmentId : idealState.getPartitionSet()) {
+      Assert.assertEquals(idealState.getInstanceStateMap(segmentId).size(), numReplicas);
+      for (final String instance : idealState.getInstanceStateMap(segmentId).keySet()) {
+        Integer numSegmentsForInstance = instance2NumSegmentsMap.get(instance);
+        instance2NumSegmentsMap.put(instance, numSegmentsForInstance == null ? 1 : numSegmentsForInstance + 1);
+      }
+    }
+    Assert.assertEquals(instance2NumSegmentsMap.size(), _numServerInstance);
+    for (final String instance : instance2NumSegmentsMap.keySet()) {
+      Assert.assertEquals((int) instance2NumSegmentsMap.get(instance), numSegments * numReplicas / _numServerInstance);
+    }
+    _helixAdmin.dropResource(HELIX_CLUSTER_NAME, offlineTableName);
+  }
+
   private void addOneSegment(String tableName) {
     final SegmentMetadata segmentMetadata = new SimpleSegmentMetadata(tableName);
     LOGGER.info("Trying to add IndexSegment : " + segmentMetadata.getName());
@@ -24,6 +24,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import junit.framework.Assert;
 import org.apache.commons.io.FileUtils;
 import org.mockito.invocation.InvocationOnMock;
@@ -116,4 +119,28 @@ public class StorageQuotaCheckerTest {
     response = checker.isSegmentStorageWithinQuota(TEST_DIR, "testTable", "segment1", 1000);
     Assert.assertFalse(response.isSegmentWithinQuota);
   }
+
+  @Test
+  public void testBatchWithinQuota() {
+    setupTableSegmentSize(5800, 900);
+    when(tableConfig.getQuotaConfig()).thenReturn(quotaConfig);
+    when(quotaConfig.storageSizeBytes()).thenReturn(3500L);
+    StorageQuotaChecker checker = new StorageQuotaChecker(tableConfig, tableSizeReader);
+    // segment1 replaces the existing segment, segment2 is a new segment
+    Map<String, Long> segmentSizes = new HashMap<>();
+    segmentSizes.put("segment1", 1024L);
+    segmentSizes.put("segment2", 1024L);
+    StorageQuotaChecker.QuotaCheckerResponse response =
+        checker.areSegmentsStorageWithinQuota(segmentSizes, "testTable", 1000);
+    Assert.assertTrue(response.isSegmentWithinQuota);
+
+    // Each segment is within the quota on its own, but not the whole batch
+    when(quotaConfig.storageSizeBytes()).thenReturn(3450L);
+    response = checker.areSegmentsStorageWithinQuota(Collections.singletonMap("segment1", 1024L), "testTable", 1000);
+    Assert.assertTrue(response.isSegmentWithinQuota);
+    response = checker.areSegmentsStorageWithinQuota(Collections.singletonMap("segment2", 1024L), "testTable", 1000);
+    Assert.assertTrue(response.isSegmentWithinQuota);
+    response = checker.areSegmentsStorageWithinQuota(segmentSizes, "testTable", 1000);
+    Assert.assertFalse(response.isSegmentWithinQuota);
+  }
 }
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common;
+
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+
+/**
+ * BlockBufferArena is a per thread arena of reusable buffers holding one value per document of a block, i.e.
+ * {@link DocIdSetPlanNode#MAX_DOC_PER_CALL} values. The operators take the buffers they need when they start processing
+ * a segment and return them once the segment is done, so that the next segment processed by the same thread reuses
+ * them instead of allocating new ones.
+ *
+ * A buffer must be returned by the thread which took it, and must not be used once returned. Buffers which are not
+ * returned (e.g. when the processing fails) are simply garbage collected.
+ */
+public class BlockBufferArena {
+  public static final int BUFFER_SIZE = DocIdSetPlanNode.MAX_DOC_PER_CALL;
+
+  // Bounds the number of idle buffers of each type kept per thread.
+  private static final int MAX_IDLE_BUFFERS = 64;
+
+  private static final ThreadLocal<BlockBufferArena> ARENA = new ThreadLocal<BlockBufferArena>() {
+    @Override
+    protected BlockBufferArena initialValue() {
+      return new BlockBufferArena();
+    }
+  };
+
+  private final ArrayDeque<int[]> _intBuffers = new ArrayDeque<>();
+  private final ArrayDeque<double[]> _doubleBuffers = new ArrayDeque<>();
+  private final ArrayDeque<String[]> _stringBuffers = new ArrayDeque<>();
+
+  private BlockBufferArena() {
+  }
+
+  /**
+   * Get the arena of the current thread.
+   *
+   * @return arena of the current thread.
+   */
+  public static BlockBufferArena get() {
+    return ARENA.get();
+  }
+
+  public int[] takeIntBuffer() {
+    int[] buffer = _intBuffers.poll();
+    return (buffer != null) ? buffer : new int[BUFFER_SIZE];
+  }
+
+  /**
+   * Returns an int buffer, buffers of another size (e.g. grown by the caller) are dropped.
+   */
+  public void returnIntBuffer(int[] buffer) {
+    if (buffer.length == BUFFER_SIZE && _intBuffers.size() < MAX_IDLE_BUFFERS) {
+      _intBuffers.push(buffer);
+    }
+  }
+
+  public double[] takeDoubleBuffer() {
+    double[] buffer = _doubleBuffers.poll();
+    return (buffer != null) ? buffer : new double[BUFFER_SIZE];
+  }
+
+  public void returnDoubleBuffer(double[] buffer) {
+    if (_doubleBuffers.size() < MAX_IDLE_BUFFERS) {
+      _doubleBuffers.push(buffer);
+    }
+  }
+
+  public String[] takeStringBuffer() {
+    String[] buffer = _stringBuffers.poll();
+    return (buffer != null) ? buffer : new String[BUFFER_SIZE];
+  }
+
+  /**
+   * Returns a string buffer, the references it holds are cleared so that the values can be garbage collected.
+   */
+  public void returnStringBuffer(String[] buffer) {
+    if (_stringBuffers.size() < MAX_IDLE_BUFFERS) {
+      Arrays.fill(buffer, null);
+      _stringBuffers.push(buffer);
+    }
+  }
+
+  /**
+   * Get the number of idle buffers of all types held by the arena.
+   *
+   * @return number of idle buffers.
+   */
+  public int getNumIdleBuffers() {
+    return _intBuffers.size() + _doubleBuffers.size() + _stringBuffers.size();
+  }
+}
@@ -15,7 +15,9 @@
  */
 package com.linkedin.pinot.core.common;
 
+import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.docvalsets.RawSingleValueSet;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.HashMap;
 import java.util.Map;
@@ -45,6 +47,15 @@ public class DataFetcher {
     _indexSegment = indexSegment;
   }
 
+  /**
+   * Get the metadata of the segment.
+   *
+   * @return segment metadata.
+   */
+  public SegmentMetadata getSegmentMetadata() {
+    return _indexSegment.getSegmentMetadata();
+  }
+
   /**
    * Given a column, fetch its data source.
    *
@@ -90,6 +101,17 @@ public class DataFetcher {
     return blockValSet;
   }
 
+  /**
+   * Given a column, returns whether its values are dictionary encoded. Columns without dictionary are read through
+   * {@link #fetchSingleRawDoubleValues} and {@link #fetchSingleRawHashCodes}.
+   *
+   * @param column column name.
+   * @return true if the column has a dictionary.
+   */
+  public boolean hasDictionary(String column) {
+    return getDictionaryForColumn(column) != null;
+  }
+
   /**
    * Fetch the dictionary Ids for a single value column.
    *
@@ -170,6 +192,38 @@ public class DataFetcher {
     dictionary.readDoubleValues(inDictIds, inStartPos, length, outValues, outStartPos);
   }
 
+  /**
+   * Fetch the values for a single value column without dictionary, directly from the document Ids.
+   *
+   * @param column column name.
+   * @param inDocIds document Id array.
+   * @param inStartPos input start position.
+   * @param length input length.
+   * @param outValues value array buffer.
+   * @param outStartPos output start position.
+   */
+  public void fetchSingleRawDoubleValues(String column, int[] inDocIds, int inStartPos, int length,
+      double[] outValues, int outStartPos) {
+    RawSingleValueSet blockValSet = (RawSingleValueSet) getBlockValSetForColumn(column);
+    blockValSet.readDoubleValues(inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
+  /**
+   * Fetch the hash code values for a single value column without dictionary, directly from the document Ids.
+   *
+   * @param column column name.
+   * @param inDocIds document Id array.
+   * @param inStartPos input start position.
+   * @param length input length.
+   * @param outValues value array buffer.
+   * @param outStartPos output start position.
+   */
+  public void fetchSingleRawHashCodes(String column, int[] inDocIds, int inStartPos, int length, double[] outValues,
+      int outStartPos) {
+    RawSingleValueSet blockValSet = (RawSingleValueSet) getBlockValSetForColumn(column);
+    blockValSet.readHashCodes(inDocIds, inStartPos, length, outValues, outStartPos);
+  }
+
   /**
    * Fetch the values for a single String value column.
    *
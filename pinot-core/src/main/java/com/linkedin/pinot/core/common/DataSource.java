@@ -16,16 +16,29 @@
 package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public abstract class DataSource extends BaseOperator {
 
+  public DataSource() {
+    // Column reads are accounted for by the projection and filter operators using the data source
+    super(false);
+  }
+
   public abstract boolean setPredicate(Predicate predicate);
 
   public abstract DataSourceMetadata getDataSourceMetadata();
 
   public abstract InvertedIndexReader getInvertedIndex();
 
+  /**
+   * Returns the range index of the column, or null if it has none.
+   */
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
   public abstract Dictionary getDictionary();
 }
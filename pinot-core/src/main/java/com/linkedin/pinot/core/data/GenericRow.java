@@ -53,6 +53,13 @@ public class GenericRow implements RowEvent {
     return _fieldMap.get(fieldName);
   }
 
+  /**
+   * Sets the value of a field, adding the field if the row does not have it yet.
+   */
+  public void putField(String fieldName, Object value) {
+    _fieldMap.put(fieldName, value);
+  }
+
   @Override
   public String toString() {
     StringBuilder b = new StringBuilder();
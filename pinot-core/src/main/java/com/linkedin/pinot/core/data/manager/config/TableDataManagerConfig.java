@@ -17,8 +17,10 @@ package com.linkedin.pinot.core.data.manager.config;
 
 import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import org.apache.commons.configuration.Configuration;
@@ -40,6 +42,8 @@ public class TableDataManagerConfig {
   private static final String READ_MODE = "readMode";
   private static final String TABLE_DATA_MANAGER_DATA_DIRECTORY = "directory";
   private static final String TABLE_DATA_MANAGER_NAME = "name";
+  // Same key in the table and instance data manager configs
+  private static final String SEGMENT_LOAD_MEMORY_WAIT_MILLIS = "segmentLoadMemoryWaitMillis";
 
   private final Configuration _tableDataManagerConfig;
 
@@ -71,6 +75,14 @@ public class TableDataManagerConfig {
     return _tableDataManagerConfig.getInt(TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS, 10);
   }
 
+  /**
+   * Returns how long a segment load may wait for direct memory to fit in the direct memory budget of the server.
+   */
+  public long getSegmentLoadMemoryWaitMillis() {
+    return _tableDataManagerConfig.getLong(SEGMENT_LOAD_MEMORY_WAIT_MILLIS,
+        CommonConstants.Server.DEFAULT_SEGMENT_LOAD_MEMORY_WAIT_MILLIS);
+  }
+
   public static TableDataManagerConfig getDefaultHelixTableDataManagerConfig(
       InstanceDataManagerConfig _instanceDataManagerConfig, String tableName) throws ConfigurationException {
     TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
@@ -89,6 +101,10 @@ public class TableDataManagerConfig {
           _instanceDataManagerConfig.getSegmentFormatVersion());
     }
     defaultConfig.addProperty(TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS, 20);
+    if (_instanceDataManagerConfig.getConfig() != null) {
+      defaultConfig.addProperty(SEGMENT_LOAD_MEMORY_WAIT_MILLIS, _instanceDataManagerConfig.getConfig()
+          .getLong(SEGMENT_LOAD_MEMORY_WAIT_MILLIS, CommonConstants.Server.DEFAULT_SEGMENT_LOAD_MEMORY_WAIT_MILLIS));
+    }
     TableDataManagerConfig tableDataManagerConfig = new TableDataManagerConfig(defaultConfig);
 
     switch (tableType) {
@@ -110,6 +126,30 @@ public class TableDataManagerConfig {
     _tableDataManagerConfig.setProperty(TABLE_DATA_MANAGER_NAME, tableConfig.getTableName());
     _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.getKeyOfLoadingInvertedIndex(),
         tableConfig.getIndexingConfig().getInvertedIndexColumns());
+    _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_DICTIONARY_HASH_INDEX,
+        tableConfig.getIndexingConfig().getDictionaryHashIndexColumns());
+    _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_RANGE_INDEX,
+        tableConfig.getIndexingConfig().getRangeIndexColumns());
+    StarTreeIndexSpec starTreeIndexSpec = tableConfig.getIndexingConfig().getStarTreeIndexSpec();
+    _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE, starTreeIndexSpec != null);
+    if (starTreeIndexSpec != null) {
+      _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_MAX_LEAF_RECORDS,
+          starTreeIndexSpec.getMaxLeafRecords());
+      _tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_DIMENSIONS_SPLIT_ORDER,
+          starTreeIndexSpec.getDimensionsSplitOrder());
+      _tableDataManagerConfig.setProperty(
+          IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_STAR_NODE_CREATION_DIMENSIONS,
+          starTreeIndexSpec.getSkipStarNodeCreationForDimensions());
+      _tableDataManagerConfig.setProperty(
+          IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_DIMENSIONS,
+          starTreeIndexSpec.getskipMaterializationForDimensions());
+      _tableDataManagerConfig.setProperty(
+          IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY,
+          starTreeIndexSpec.getskipMaterializationCardinalityThreshold());
+      _tableDataManagerConfig.setProperty(
+          IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS,
+          starTreeIndexSpec.getMaterializedAggregationFunctions());
+    }
     String segmentVersionKey = IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION;
     // Server configuration is always to DEFAULT or configured value
     // Apply table configuration only if the server configuration is set with table config
@@ -22,6 +22,7 @@ import com.linkedin.pinot.common.metrics.ServerGauge;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.MmapUtils;
 import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
@@ -35,6 +36,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nonnull;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,6 +73,9 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
     _serverMetrics = serverMetrics;
 
     _tableName = _tableDataManagerConfig.getTableName();
+    if (_serverMetrics != null) {
+      _serverMetrics.addTable(_tableName);
+    }
     doInit();
 
     _tableDataDir = _tableDataManagerConfig.getDataDir();
@@ -120,6 +125,9 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
       _queryExecutorService.shutdown();
       _tableDataManagerConfig = null;
       _isStarted = false;
+      if (_serverMetrics != null) {
+        _serverMetrics.removeTable(_tableName);
+      }
     } else {
       LOGGER.warn("Already shutDown table : " + _tableName);
     }
@@ -163,6 +171,41 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
     }
     _serverMetrics.addValueToTableGauge(_tableName, ServerGauge.DOCUMENT_COUNT, newNumDocs);
     _serverMetrics.addValueToTableGauge(_tableName, ServerGauge.SEGMENT_COUNT, 1L);
+    updateMemoryGauges();
+  }
+
+  /**
+   * Waits until the segment in the given directory can be loaded without going over the direct memory budget of the
+   * server, and reserves its size. Segments are copied to direct memory only when loaded in heap mode, other loads wait
+   * until the direct memory usage goes back under the budget. The caller must release the returned number of bytes with
+   * {@link MmapUtils#releaseDirectMemory(long)} once the segment is loaded or the load failed. Loads run on the Helix
+   * state transition thread, so the wait is kept short, and a load that times out fails and moves the segment to the
+   * ERROR state.
+   *
+   * @param indexDir directory of the segment to load.
+   * @return the number of bytes reserved.
+   */
+  protected long reserveDirectMemory(File indexDir) throws Exception {
+    final long segmentSize = _readMode == ReadMode.heap ? FileUtils.sizeOfDirectory(indexDir) : 0L;
+    final long startTime = System.currentTimeMillis();
+    if (!MmapUtils.reserveDirectMemory(segmentSize, _tableDataManagerConfig.getSegmentLoadMemoryWaitMillis())) {
+      throw new RuntimeException("Timed out waiting for direct memory to load segment " + indexDir.getName()
+          + " of table " + _tableName + ", usage " + MmapUtils.getDirectByteBufferUsage() + " bytes, budget "
+          + MmapUtils.getDirectMemoryBudget() + " bytes");
+    }
+    final long waitTime = System.currentTimeMillis() - startTime;
+    if (waitTime > 0L) {
+      LOGGER.info("Waited {} ms for direct memory to load segment {} of table {}", waitTime, indexDir.getName(),
+          _tableName);
+    }
+    return segmentSize;
+  }
+
+  protected void updateMemoryGauges() {
+    _serverMetrics.setValueOfTableGauge(_tableName, ServerGauge.DIRECT_MEMORY_USAGE,
+        MmapUtils.getTableUsage(_tableName, MmapUtils.AllocationType.DIRECT_BYTE_BUFFER));
+    _serverMetrics.setValueOfTableGauge(_tableName, ServerGauge.MMAP_MEMORY_USAGE,
+        MmapUtils.getTableUsage(_tableName, MmapUtils.AllocationType.MMAP));
   }
 
   /**
@@ -202,6 +245,7 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
     _serverMetrics.addValueToTableGauge(_tableName, ServerGauge.DOCUMENT_COUNT,
         -segmentDataManager.getSegment().getSegmentMetadata().getTotalRawDocs());
     segmentDataManager.destroy();
+    updateMemoryGauges();
     LOGGER.info("Segment {} for table {} has been closed", segmentName, _tableName);
   }
 
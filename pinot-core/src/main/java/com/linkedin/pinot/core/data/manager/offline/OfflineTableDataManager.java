@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.data.manager.offline;
 
+import java.io.File;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
 import org.slf4j.LoggerFactory;
@@ -22,6 +23,7 @@ import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.SegmentZKMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.MmapUtils;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
 
@@ -45,8 +47,14 @@ public class OfflineTableDataManager extends AbstractTableDataManager {
 
   @Override
   public void addSegment(SegmentMetadata segmentMetadata) throws Exception {
-    IndexSegment indexSegment =
-        ColumnarSegmentLoader.loadSegment(segmentMetadata, _readMode, _indexLoadingConfigMetadata);
+    long reservedBytes = reserveDirectMemory(new File(segmentMetadata.getIndexDir()));
+    IndexSegment indexSegment;
+    try {
+      indexSegment = ColumnarSegmentLoader.loadSegment(segmentMetadata, _readMode, _indexLoadingConfigMetadata);
+    } finally {
+      // The loaded buffers are now counted in the direct memory usage
+      MmapUtils.releaseDirectMemory(reservedBytes);
+    }
     addSegment(indexSegment);
   }
 
@@ -86,6 +86,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
 
   private final String sortedColumn;
   private final List<String> invertedIndexColumns;
+  private final List<String> dictionaryHashIndexColumns;
+  private final List<String> rangeIndexColumns;
   private Logger segmentLogger = LOGGER;
   private final SegmentVersion _segmentVersion;
 
@@ -123,6 +125,8 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
     }
     //inverted index columns
     invertedIndexColumns = indexingConfig.getInvertedIndexColumns();
+    dictionaryHashIndexColumns = indexingConfig.getDictionaryHashIndexColumns();
+    rangeIndexColumns = indexingConfig.getRangeIndexColumns();
 
     this.segmentMetatdaZk = segmentMetadata;
 
@@ -201,6 +205,25 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
           segmentLogger.info("Shutting down indexing thread!");
           return;
         }
+
+        // Offsets of the events already read from the stream get committed with this segment, so index them all
+        kafkaStreamProvider.stopFetching();
+        int numDrainedRows = 0;
+        while (!isShuttingDown) {
+          GenericRow row = null;
+          try {
+            row = kafkaStreamProvider.next();
+            if (row == null) {
+              break;
+            }
+            realtimeSegment.index(extractor.transform(row));
+            numDrainedRows++;
+          } catch (Exception e) {
+            segmentLogger.warn("Caught exception while indexing fetched row, row contents {}", row, e);
+          }
+        }
+        segmentLogger.info("Indexed {} rows fetched before indexing stopped", numDrainedRows);
+
         try {
           int numErrors, numConversions, numNulls, numNullCols;
           if ((numErrors = extractor.getTotalErrors()) > 0) {
@@ -258,6 +281,9 @@ public class RealtimeSegmentDataManager extends SegmentDataManager {
           TimeUnit timeUnit = schema.getTimeFieldSpec().getOutgoingGranularitySpec().getTimeType();
           Configuration configuration = new PropertyListConfiguration();
           configuration.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_INVERTED_INDEX, invertedIndexColumns);
+          configuration.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_DICTIONARY_HASH_INDEX,
+              dictionaryHashIndexColumns);
+          configuration.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_RANGE_INDEX, rangeIndexColumns);
           IndexLoadingConfigMetadata configMetadata = new IndexLoadingConfigMetadata(configuration);
           IndexSegment segment = Loaders.IndexSegment.load(new File(resourceDir, segmentMetatdaZk.getSegmentName()), mode, configMetadata);
 
@@ -32,6 +32,7 @@ import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.SegmentZKMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
+import com.linkedin.pinot.common.utils.MmapUtils;
 import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.common.utils.helix.PinotHelixPropertyStoreZnRecordProvider;
 import com.linkedin.pinot.core.data.manager.offline.AbstractTableDataManager;
@@ -108,7 +109,13 @@ public class RealtimeTableDataManager extends AbstractTableDataManager {
         return;
       }
 
-      IndexSegment segment = ColumnarSegmentLoader.load(new File(_indexDir, segmentId), _readMode, _indexLoadingConfigMetadata);
+      long reservedBytes = reserveDirectMemory(new File(_indexDir, segmentId));
+      IndexSegment segment;
+      try {
+        segment = ColumnarSegmentLoader.load(new File(_indexDir, segmentId), _readMode, _indexLoadingConfigMetadata);
+      } finally {
+        MmapUtils.releaseDirectMemory(reservedBytes);
+      }
       addSegment(segment);
       markSegmentAsLoaded(segmentId);
     } else {
@@ -42,6 +42,8 @@ import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.FixedByteSingleValueMultiColReader;
 import com.linkedin.pinot.core.io.reader.impl.SortedForwardIndexReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkReaderContext;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
@@ -72,6 +74,9 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
   private Map<String, SingleColumnSingleValueReader> singleValueReaderMap;
   private Map<String, SingleColumnMultiValueReader> multiValueReaderMap;
   private Map<String, SortedForwardIndexReader> singleValueSortedReaderMap;
+  // Readers of the columns without a dictionary, whose forward index holds the values themselves
+  private Map<String, ChunkCompressedSingleValueReader> rawValueReaderMap;
+  private Map<String, ChunkReaderContext> rawValueReaderContextMap;
 
   private Map<String, Dictionary> pinotDictionaryBufferMap;
 
@@ -95,6 +100,8 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
     singleValueReaderMap = new HashMap<>();
     multiValueReaderMap = new HashMap<>();
     singleValueSortedReaderMap = new HashMap<>();
+    rawValueReaderMap = new HashMap<>();
+    rawValueReaderContextMap = new HashMap<>();
 
     pinotDictionaryBufferMap = new HashMap<>();
     columnDataTypeMap = new HashMap<>();
@@ -110,6 +117,15 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
       isSingleValueMap.put(column, columnMetadataFor.isSingleValue());
       isSortedMap.put(column, columnMetadataFor.isSorted());
 
+      if (!columnMetadataFor.hasDictionary()) {
+        PinotDataBuffer fwdIndexBuffer = reader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
+        ChunkCompressedSingleValueReader rawValueReader = new ChunkCompressedSingleValueReader(fwdIndexBuffer);
+        rawValueReaderMap.put(column, rawValueReader);
+        rawValueReaderContextMap.put(column, rawValueReader.createContext());
+        columnDataTypeMap.put(column, columnMetadataFor.getDataType());
+        continue;
+      }
+
       if (columnMetadataFor.isSingleValue() && !columnMetadataFor.isSorted()) {
         PinotDataBuffer fwdIndexBuffer = reader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
         SingleColumnSingleValueReader fwdIndexReader =
@@ -237,7 +253,10 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
 
     for (String column : columns) {
 
-      if (isSingleValueMap.get(column)) { // Single value
+      ChunkCompressedSingleValueReader rawValueReader = rawValueReaderMap.get(column);
+      if (rawValueReader != null) { // No dictionary
+        fields.put(column, getRawValue(column, rawValueReader));
+      } else if (isSingleValueMap.get(column)) { // Single value
         Dictionary dictionary = null;
         int dictionaryId;
 
@@ -275,6 +294,23 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
     return row;
   }
 
+  private Object getRawValue(String column, ChunkCompressedSingleValueReader rawValueReader) {
+    ChunkReaderContext context = rawValueReaderContextMap.get(column);
+    DataType dataType = columnDataTypeMap.get(column);
+    switch (dataType) {
+      case INT:
+        return rawValueReader.getInt(docNumber, context);
+      case LONG:
+        return rawValueReader.getLong(docNumber, context);
+      case FLOAT:
+        return rawValueReader.getFloat(docNumber, context);
+      case DOUBLE:
+        return rawValueReader.getDouble(docNumber, context);
+      default:
+        throw new IllegalStateException("Unsupported data type " + dataType + " for column without dictionary " + column);
+    }
+  }
+
   @Override
   public void close() throws Exception {
     for (Entry<String, Dictionary> entry : pinotDictionaryBufferMap.entrySet()) {
@@ -301,6 +337,9 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
         reader.close();
       }
     }
+    for (ChunkCompressedSingleValueReader reader : rawValueReaderMap.values()) {
+      reader.close();
+    }
     segmentMetadata.close();
   }
 
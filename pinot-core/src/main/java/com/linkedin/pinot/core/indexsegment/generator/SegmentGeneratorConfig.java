@@ -25,6 +25,7 @@ import com.linkedin.pinot.core.data.readers.CSVRecordReaderConfig;
 import com.linkedin.pinot.core.data.readers.FileFormat;
 import com.linkedin.pinot.core.data.readers.RecordReaderConfig;
 import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import java.io.File;
 import java.io.IOException;
@@ -49,6 +50,10 @@ public class SegmentGeneratorConfig {
 
   private Map<String, String> _customProperties = new HashMap<>();
   private List<String> _invertedIndexCreationColumns = new ArrayList<>();
+  private List<String> _rawIndexCreationColumns = new ArrayList<>();
+  private List<String> _sortColumns = new ArrayList<>();
+  private ChunkCompressorFactory.CompressionType _rawIndexCompressionType =
+      ChunkCompressorFactory.CompressionType.SNAPPY;
   private String _dataDir = null;
   private String _inputFilePath = null;
   private FileFormat _format = FileFormat.AVRO;
@@ -72,6 +77,7 @@ public class SegmentGeneratorConfig {
   private StarTreeIndexSpec _starTreeIndexSpec = null;
   private String _creatorVersion = null;
   private char _paddingCharacter = V1Constants.Str.DEFAULT_STRING_PAD_CHAR;
+  private int _numIndexingThreads = 0;
 
   public SegmentGeneratorConfig() {
   }
@@ -80,6 +86,9 @@ public class SegmentGeneratorConfig {
     Preconditions.checkNotNull(config);
     _customProperties.putAll(config._customProperties);
     _invertedIndexCreationColumns.addAll(config._invertedIndexCreationColumns);
+    _rawIndexCreationColumns.addAll(config._rawIndexCreationColumns);
+    _sortColumns.addAll(config._sortColumns);
+    _rawIndexCompressionType = config._rawIndexCompressionType;
     _dataDir = config._dataDir;
     _inputFilePath = config._inputFilePath;
     _format = config._format;
@@ -103,6 +112,7 @@ public class SegmentGeneratorConfig {
     _starTreeIndexSpec = config._starTreeIndexSpec;
     _creatorVersion = config._creatorVersion;
     _paddingCharacter = config._paddingCharacter;
+    _numIndexingThreads = config._numIndexingThreads;
   }
 
   public SegmentGeneratorConfig(Schema schema) {
@@ -154,6 +164,44 @@ public class SegmentGeneratorConfig {
     }
   }
 
+  public List<String> getRawIndexCreationColumns() {
+    return _rawIndexCreationColumns;
+  }
+
+  /**
+   * Sets the columns stored without a dictionary. Their values are written as is in a chunk compressed forward index,
+   * which suits high cardinality metric columns whose dictionary would be as large as the data. Only single value
+   * numeric columns are supported, and such columns can only be aggregated or selected, not filtered or grouped on.
+   */
+  public void setRawIndexCreationColumns(List<String> rawIndexCreationColumns) {
+    Preconditions.checkNotNull(rawIndexCreationColumns);
+    _rawIndexCreationColumns.addAll(rawIndexCreationColumns);
+  }
+
+  public List<String> getSortColumns() {
+    return _sortColumns;
+  }
+
+  /**
+   * Sets the single-value columns the documents are ordered on before the indexes are created, the first column being
+   * the primary sort key. The first column gets a sorted forward index and the columns are recorded in the segment
+   * metadata. Requires the single pass creation (see {@link #setNumIndexingThreads(int)}, one thread is used if not
+   * set), and is ignored when creating a star tree index or raw index columns.
+   */
+  public void setSortColumns(List<String> sortColumns) {
+    Preconditions.checkNotNull(sortColumns);
+    _sortColumns.addAll(sortColumns);
+  }
+
+  public ChunkCompressorFactory.CompressionType getRawIndexCompressionType() {
+    return _rawIndexCompressionType;
+  }
+
+  public void setRawIndexCompressionType(ChunkCompressorFactory.CompressionType rawIndexCompressionType) {
+    Preconditions.checkNotNull(rawIndexCompressionType);
+    _rawIndexCompressionType = rawIndexCompressionType;
+  }
+
   public String getDataDir() {
     return _dataDir;
   }
@@ -237,6 +285,21 @@ public class SegmentGeneratorConfig {
     _paddingCharacter = paddingCharacter;
   }
 
+  public int getNumIndexingThreads() {
+    return _numIndexingThreads;
+  }
+
+  /**
+   * Sets the number of threads used to index the columns of the segment. When positive, the input is read only once,
+   * spilling its values off-heap column by column while collecting the statistics, and the columns are then indexed
+   * concurrently. When zero (default), the input is read twice and the rows are indexed one by one.
+   * When creating a star tree index, the sub-trees of the star tree root node are built on that many threads instead.
+   */
+  public void setNumIndexingThreads(int numIndexingThreads) {
+    Preconditions.checkArgument(numIndexingThreads >= 0, "Number of indexing threads must not be negative");
+    _numIndexingThreads = numIndexingThreads;
+  }
+
   public String getSegmentNamePostfix() {
     return _segmentNamePostfix;
   }
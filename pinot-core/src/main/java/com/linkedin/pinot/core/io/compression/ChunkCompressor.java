@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import java.io.IOException;
+
+
+/**
+ * Compresses and decompresses the chunks of a chunk compressed forward index. Implementations are stateless and can be
+ * shared across threads, the callers own the buffers.
+ */
+public interface ChunkCompressor {
+
+  /**
+   * Compresses the first inputLength bytes of input into output.
+   *
+   * @param input Uncompressed data
+   * @param inputLength Number of bytes to compress
+   * @param output Buffer of at least {@link #maxCompressedLength(int)} bytes
+   * @return Size of the compressed data
+   * @throws IOException
+   */
+  int compress(byte[] input, int inputLength, byte[] output) throws IOException;
+
+  /**
+   * Decompresses the first inputLength bytes of input into output.
+   *
+   * @param input Compressed data
+   * @param inputLength Number of bytes to decompress
+   * @param output Buffer large enough to hold the uncompressed chunk
+   * @return Size of the uncompressed data
+   * @throws IOException
+   */
+  int decompress(byte[] input, int inputLength, byte[] output) throws IOException;
+
+  /**
+   * Returns the maximum size of the compressed form of uncompressedLength bytes.
+   */
+  int maxCompressedLength(int uncompressedLength);
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+/**
+ * Factory for the {@link ChunkCompressor} of each supported compression type.
+ */
+public class ChunkCompressorFactory {
+
+  /**
+   * Compression types, the ordinal is persisted in the index header so new types must be appended.
+   */
+  public enum CompressionType {
+    PASS_THROUGH,
+    SNAPPY,
+    LZ4
+  }
+
+  private static final ChunkCompressor PASS_THROUGH_COMPRESSOR = new PassThroughChunkCompressor();
+  private static final ChunkCompressor SNAPPY_COMPRESSOR = new SnappyChunkCompressor();
+  private static final ChunkCompressor LZ4_COMPRESSOR = new LZ4ChunkCompressor();
+
+  private ChunkCompressorFactory() {
+  }
+
+  public static ChunkCompressor getCompressor(CompressionType compressionType) {
+    switch (compressionType) {
+      case PASS_THROUGH:
+        return PASS_THROUGH_COMPRESSOR;
+      case SNAPPY:
+        return SNAPPY_COMPRESSOR;
+      case LZ4:
+        return LZ4_COMPRESSOR;
+      default:
+        throw new UnsupportedOperationException("Unsupported compression type: " + compressionType);
+    }
+  }
+
+  public static CompressionType getCompressionType(int ordinal) {
+    CompressionType[] compressionTypes = CompressionType.values();
+    if (ordinal < 0 || ordinal >= compressionTypes.length) {
+      throw new UnsupportedOperationException("Unsupported compression type ordinal: " + ordinal);
+    }
+    return compressionTypes[ordinal];
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+
+/**
+ * LZ4 compression of chunks, using the fastest implementation available on the platform.
+ */
+public class LZ4ChunkCompressor implements ChunkCompressor {
+  private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+  private final LZ4Compressor _compressor = LZ4_FACTORY.fastCompressor();
+  private final LZ4SafeDecompressor _decompressor = LZ4_FACTORY.safeDecompressor();
+
+  @Override
+  public int compress(byte[] input, int inputLength, byte[] output) {
+    return _compressor.compress(input, 0, inputLength, output, 0, output.length);
+  }
+
+  @Override
+  public int decompress(byte[] input, int inputLength, byte[] output) {
+    return _decompressor.decompress(input, 0, inputLength, output, 0, output.length);
+  }
+
+  @Override
+  public int maxCompressedLength(int uncompressedLength) {
+    return _compressor.maxCompressedLength(uncompressedLength);
+  }
+}
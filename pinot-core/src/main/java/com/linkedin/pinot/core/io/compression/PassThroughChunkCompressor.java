@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+/**
+ * Stores chunks as is, for data that does not compress well or when decompression cost matters more than size.
+ */
+public class PassThroughChunkCompressor implements ChunkCompressor {
+
+  @Override
+  public int compress(byte[] input, int inputLength, byte[] output) {
+    System.arraycopy(input, 0, output, 0, inputLength);
+    return inputLength;
+  }
+
+  @Override
+  public int decompress(byte[] input, int inputLength, byte[] output) {
+    System.arraycopy(input, 0, output, 0, inputLength);
+    return inputLength;
+  }
+
+  @Override
+  public int maxCompressedLength(int uncompressedLength) {
+    return uncompressedLength;
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl.v1;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.io.compression.ChunkCompressor;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.reader.BaseSingleColumnSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v1.ChunkCompressedSingleValueWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+
+
+/**
+ * Reader of the raw values written by {@link ChunkCompressedSingleValueWriter}.
+ *
+ * Reads go through a {@link ChunkReaderContext}, which holds the decompressed chunk. The reader itself is immutable
+ * and can be shared across threads as long as each thread uses its own context. Reading documents in order only
+ * decompresses each chunk once.
+ */
+public class ChunkCompressedSingleValueReader extends BaseSingleColumnSingleValueReader<ChunkReaderContext> {
+  private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer _dataBuffer;
+  private final ChunkCompressor _compressor;
+  private final int _numDocsPerChunk;
+  private final int _sizeOfEntry;
+  private final int[] _chunkOffsets;
+  private final int _maxCompressedChunkSize;
+
+  public ChunkCompressedSingleValueReader(PinotDataBuffer dataBuffer) {
+    _dataBuffer = dataBuffer;
+
+    int version = dataBuffer.getInt(0);
+    Preconditions.checkState(version == ChunkCompressedSingleValueWriter.CURRENT_VERSION,
+        "Unsupported raw index version: %s", version);
+    int numChunks = dataBuffer.getInt(INT_SIZE);
+    _numDocsPerChunk = dataBuffer.getInt(2 * INT_SIZE);
+    _sizeOfEntry = dataBuffer.getInt(3 * INT_SIZE);
+    _compressor = ChunkCompressorFactory.getCompressor(
+        ChunkCompressorFactory.getCompressionType(dataBuffer.getInt(4 * INT_SIZE)));
+
+    _chunkOffsets = new int[numChunks];
+    int maxCompressedChunkSize = 0;
+    int headerSize = ChunkCompressedSingleValueWriter.HEADER_INT_FIELDS * INT_SIZE;
+    for (int i = 0; i < numChunks; i++) {
+      _chunkOffsets[i] = dataBuffer.getInt(headerSize + i * INT_SIZE);
+      if (i > 0) {
+        maxCompressedChunkSize = Math.max(maxCompressedChunkSize, _chunkOffsets[i] - _chunkOffsets[i - 1]);
+      }
+    }
+    if (numChunks > 0) {
+      maxCompressedChunkSize =
+          Math.max(maxCompressedChunkSize, (int) (dataBuffer.size() - _chunkOffsets[numChunks - 1]));
+    }
+    _maxCompressedChunkSize = maxCompressedChunkSize;
+  }
+
+  public int getNumDocsPerChunk() {
+    return _numDocsPerChunk;
+  }
+
+  @Override
+  public ChunkReaderContext createContext() {
+    return new ChunkReaderContext(_maxCompressedChunkSize, _numDocsPerChunk * _sizeOfEntry);
+  }
+
+  @Override
+  public int getInt(int row, ChunkReaderContext context) {
+    return loadChunk(row, context).chunkBuffer.getInt(offsetInChunk(row));
+  }
+
+  public long getLong(int row, ChunkReaderContext context) {
+    return loadChunk(row, context).chunkBuffer.getLong(offsetInChunk(row));
+  }
+
+  public float getFloat(int row, ChunkReaderContext context) {
+    return loadChunk(row, context).chunkBuffer.getFloat(offsetInChunk(row));
+  }
+
+  public double getDouble(int row, ChunkReaderContext context) {
+    return loadChunk(row, context).chunkBuffer.getDouble(offsetInChunk(row));
+  }
+
+  private int offsetInChunk(int row) {
+    return (row % _numDocsPerChunk) * _sizeOfEntry;
+  }
+
+  private ChunkReaderContext loadChunk(int row, ChunkReaderContext context) {
+    int chunkId = row / _numDocsPerChunk;
+    if (context.chunkId == chunkId) {
+      return context;
+    }
+
+    int chunkStart = _chunkOffsets[chunkId];
+    int chunkEnd = (chunkId == _chunkOffsets.length - 1) ? (int) _dataBuffer.size() : _chunkOffsets[chunkId + 1];
+    int compressedSize = chunkEnd - chunkStart;
+    _dataBuffer.copyTo(chunkStart, context.compressedChunk, 0, compressedSize);
+    try {
+      _compressor.decompress(context.compressedChunk, compressedSize, context.chunk);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while decompressing chunk " + chunkId, e);
+    }
+    context.chunkId = chunkId;
+    return context;
+  }
+
+  @Override
+  public void close() throws IOException {
+    _dataBuffer.close();
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl.v1;
+
+import com.linkedin.pinot.core.io.reader.ReaderContext;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Per-reader state of a {@link ChunkCompressedSingleValueReader}: the buffers the chunks are decompressed into, and
+ * the id of the chunk they currently hold so that consecutive reads from the same chunk decompress it only once.
+ */
+public class ChunkReaderContext implements ReaderContext {
+  int chunkId = -1;
+  final byte[] compressedChunk;
+  final byte[] chunk;
+  final ByteBuffer chunkBuffer;
+
+  ChunkReaderContext(int maxCompressedChunkSize, int chunkSize) {
+    compressedChunk = new byte[maxCompressedChunkSize];
+    chunk = new byte[chunkSize];
+    chunkBuffer = ByteBuffer.wrap(chunk);
+  }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.writer.impl.v1;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.io.compression.ChunkCompressor;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.writer.SingleColumnSingleValueWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * Writer of raw (not dictionary encoded) fixed width values, split into chunks of a fixed number of documents that are
+ * compressed independently so that a reader only has to decompress the chunk holding the documents it reads.
+ *
+ * File layout:
+ * <ul>
+ *   <li>Header: version, number of chunks, number of documents per chunk, size of each entry in bytes and ordinal of
+ *   the {@link ChunkCompressorFactory.CompressionType}, all ints.</li>
+ *   <li>Chunk offset table: start offset of each chunk in the file, as ints.</li>
+ *   <li>Compressed chunks, back to back.</li>
+ * </ul>
+ *
+ * Values must be set in document id order, which is how the segment creator indexes rows.
+ */
+public class ChunkCompressedSingleValueWriter implements SingleColumnSingleValueWriter {
+  public static final int CURRENT_VERSION = 1;
+  public static final int HEADER_INT_FIELDS = 5;
+
+  private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final FileChannel _dataChannel;
+  private final ChunkCompressor _compressor;
+  private final int _numDocsPerChunk;
+  private final int _sizeOfEntry;
+  private final int[] _chunkOffsets;
+  private final byte[] _chunk;
+  private final ByteBuffer _chunkBuffer;
+  private final byte[] _compressedChunk;
+
+  private int _nextRow = 0;
+  private int _numChunksWritten = 0;
+  private int _dataOffset;
+
+  public ChunkCompressedSingleValueWriter(File file, ChunkCompressorFactory.CompressionType compressionType,
+      int totalDocs, int numDocsPerChunk, int sizeOfEntry) throws IOException {
+    Preconditions.checkArgument(numDocsPerChunk > 0, "Number of docs per chunk must be positive");
+    _compressor = ChunkCompressorFactory.getCompressor(compressionType);
+    _numDocsPerChunk = numDocsPerChunk;
+    _sizeOfEntry = sizeOfEntry;
+
+    int numChunks = (totalDocs + numDocsPerChunk - 1) / numDocsPerChunk;
+    _chunkOffsets = new int[numChunks];
+    _chunk = new byte[numDocsPerChunk * sizeOfEntry];
+    _chunkBuffer = ByteBuffer.wrap(_chunk);
+    _compressedChunk = new byte[_compressor.maxCompressedLength(_chunk.length)];
+
+    _dataChannel = new RandomAccessFile(file, "rw").getChannel();
+
+    ByteBuffer header = ByteBuffer.allocate((HEADER_INT_FIELDS + numChunks) * INT_SIZE);
+    header.putInt(CURRENT_VERSION);
+    header.putInt(numChunks);
+    header.putInt(numDocsPerChunk);
+    header.putInt(sizeOfEntry);
+    header.putInt(compressionType.ordinal());
+    _dataOffset = header.capacity();
+    // Chunk offsets are filled in when closing, reserve their space for now
+    header.clear();
+    _dataChannel.write(header, 0);
+  }
+
+  @Override
+  public void setChar(int row, char ch) {
+    throw new UnsupportedOperationException("Only fixed width numeric values are supported in raw format");
+  }
+
+  @Override
+  public void setInt(int row, int i) {
+    checkRow(row);
+    _chunkBuffer.putInt(i);
+    rowWritten();
+  }
+
+  @Override
+  public void setShort(int row, short s) {
+    throw new UnsupportedOperationException("Only fixed width numeric values are supported in raw format");
+  }
+
+  @Override
+  public void setLong(int row, long l) {
+    checkRow(row);
+    _chunkBuffer.putLong(l);
+    rowWritten();
+  }
+
+  @Override
+  public void setFloat(int row, float f) {
+    checkRow(row);
+    _chunkBuffer.putFloat(f);
+    rowWritten();
+  }
+
+  @Override
+  public void setDouble(int row, double d) {
+    checkRow(row);
+    _chunkBuffer.putDouble(d);
+    rowWritten();
+  }
+
+  @Override
+  public void setString(int row, String string) throws Exception {
+    throw new UnsupportedOperationException("Only fixed width numeric values are supported in raw format");
+  }
+
+  @Override
+  public void setBytes(int row, byte[] bytes) {
+    throw new UnsupportedOperationException("Only fixed width numeric values are supported in raw format");
+  }
+
+  private void checkRow(int row) {
+    if (row != _nextRow) {
+      throw new IllegalStateException("Rows must be written in order, expected row " + _nextRow + " got " + row);
+    }
+  }
+
+  private void rowWritten() {
+    _nextRow++;
+    if (!_chunkBuffer.hasRemaining()) {
+      writeChunk();
+    }
+  }
+
+  private void writeChunk() {
+    try {
+      int compressedSize = _compressor.compress(_chunk, _chunkBuffer.position(), _compressedChunk);
+      _chunkOffsets[_numChunksWritten++] = _dataOffset;
+      _dataChannel.write(ByteBuffer.wrap(_compressedChunk, 0, compressedSize), _dataOffset);
+      _dataOffset += compressedSize;
+      _chunkBuffer.clear();
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while writing chunk " + _numChunksWritten, e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (_chunkBuffer.position() > 0) {
+        writeChunk();
+      }
+      ByteBuffer offsets = ByteBuffer.allocate(_chunkOffsets.length * INT_SIZE);
+      for (int chunkOffset : _chunkOffsets) {
+        offsets.putInt(chunkOffset);
+      }
+      offsets.flip();
+      _dataChannel.write(offsets, HEADER_INT_FIELDS * INT_SIZE);
+    } finally {
+      _dataChannel.close();
+    }
+  }
+}
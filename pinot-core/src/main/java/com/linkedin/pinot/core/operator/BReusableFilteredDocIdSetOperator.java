@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.operator;
 
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockId;
@@ -100,6 +101,13 @@ public class BReusableFilteredDocIdSetOperator extends BaseOperator {
     return "BReusableFilteredDocIdSetOperator";
   }
 
+  @Override
+  protected void addBlockStats(Block block, OperatorStats operatorStats) {
+    if (block != null) {
+      operatorStats.addNumDocsOut(((DocIdSetBlock) block).getSearchableLength());
+    }
+  }
+
   @Override
   public boolean close() {
     _filterOperator.close();
@@ -15,9 +15,12 @@
  */
 package com.linkedin.pinot.core.operator;
 
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.util.trace.QueryProfile;
 import com.linkedin.pinot.core.util.trace.TraceContext;
 
 import org.slf4j.Logger;
@@ -30,8 +33,30 @@ import org.slf4j.LoggerFactory;
 public abstract class BaseOperator implements Operator {
   private static final Logger LOGGER = LoggerFactory.getLogger(BaseOperator.class);
 
+  // Only set for operators of profiled queries
+  private final OperatorStats _operatorStats;
+
+  public BaseOperator() {
+    this(true);
+  }
+
+  /**
+   * @param profiled false for operators that should never show up in query profiles
+   */
+  protected BaseOperator(boolean profiled) {
+    QueryProfile profile = profiled ? QueryProfile.getProfileForCurrentThread() : null;
+    _operatorStats = (profile == null) ? null : profile.register(this);
+  }
+
   @Override
   public final Block nextBlock() {
+    if (_operatorStats != null) {
+      long startNs = System.nanoTime();
+      Block ret = getNextBlock();
+      _operatorStats.addBlock(System.nanoTime() - startNs);
+      addBlockStats(ret, _operatorStats);
+      return ret;
+    }
     long start = System.currentTimeMillis();
     Block ret = getNextBlock();
     long end = System.currentTimeMillis();
@@ -42,6 +67,13 @@ public abstract class BaseOperator implements Operator {
 
   @Override
   public final Block nextBlock(BlockId BlockId) {
+    if (_operatorStats != null) {
+      long startNs = System.nanoTime();
+      Block ret = getNextBlock(BlockId);
+      _operatorStats.addBlock(System.nanoTime() - startNs);
+      addBlockStats(ret, _operatorStats);
+      return ret;
+    }
     long start = System.currentTimeMillis();
     Block ret = getNextBlock(BlockId);
     long end = System.currentTimeMillis();
@@ -50,6 +82,41 @@ public abstract class BaseOperator implements Operator {
     return ret;
   }
 
+  /**
+   * Returns the execution stats of this operator, or null if the query is not profiled. The operator must be done
+   * with execution.
+   */
+  public OperatorStats getOperatorStats() {
+    if (_operatorStats != null) {
+      _operatorStats.setOperator(getProfileName());
+      addFinalStats(_operatorStats);
+    }
+    return _operatorStats;
+  }
+
+  /**
+   * Name under which the operator shows up in query profiles, should tell the index used where there is a choice.
+   */
+  protected String getProfileName() {
+    return getOperatorName();
+  }
+
+  /**
+   * Records the docs in a block returned by this operator, only called for profiled queries. By default counts the
+   * docs scanned to produce intermediate results.
+   */
+  protected void addBlockStats(Block block, OperatorStats operatorStats) {
+    if (block instanceof IntermediateResultsBlock) {
+      operatorStats.addNumDocsIn(((IntermediateResultsBlock) block).getNumDocsScanned());
+    }
+  }
+
+  /**
+   * Records the stats only known once the operator is done, only called for profiled queries.
+   */
+  protected void addFinalStats(OperatorStats operatorStats) {
+  }
+
   public abstract Block getNextBlock();
 
   public abstract Block getNextBlock(BlockId BlockId);
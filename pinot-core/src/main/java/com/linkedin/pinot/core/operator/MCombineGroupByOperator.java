@@ -23,6 +23,7 @@ import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByResult;
 import com.linkedin.pinot.core.operator.aggregation.groupby.GroupKeyGenerator;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
@@ -40,6 +41,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,6 +81,7 @@ public class MCombineGroupByOperator extends BaseOperator {
   private final ExecutorService _executorService;
   private final BrokerRequest _brokerRequest;
   private final long _timeOutMs;
+  private final int _numGroupsLimit;
 
   /**
    * Constructor for the class.
@@ -90,12 +94,29 @@ public class MCombineGroupByOperator extends BaseOperator {
    */
   public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
       BrokerRequest brokerRequest) {
+    this(operators, executorService, timeOutMs, brokerRequest, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  /**
+   * Constructor for the class.
+   * - Initializes lock objects to synchronize updating aggregation group-by results.
+   *
+   * @param operators List of operators, whose result needs to be combined.
+   * @param executorService Executor service to use for multi-threaded portions of combine.
+   * @param timeOutMs Timeout for combine.
+   * @param brokerRequest BrokerRequest corresponding to the query.
+   * @param numGroupsLimit Maximum number of group keys of the query on this server.
+   */
+  public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest, int numGroupsLimit) {
     Preconditions.checkArgument(brokerRequest.isSetAggregationsInfo() && brokerRequest.isSetGroupBy());
+    Preconditions.checkArgument(numGroupsLimit > 0, "Invalid number of groups limit: " + numGroupsLimit);
 
     _operators = operators;
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+    _numGroupsLimit = numGroupsLimit;
   }
 
   /**
@@ -141,6 +162,8 @@ public class MCombineGroupByOperator extends BaseOperator {
    *   - The key in this concurrent map is the group-by key, and value is an array of
    *     Serializables (one for each aggregation function).
    *   - Synchronization is provided by locking the group-key that is to be modified.
+   *   - Once the map holds the number of groups limit, new group keys are dropped and
+   *     the result block reports that the limit was reached.
    *
    * 2. The result of the concurrent map is then translated into what is expected by
    *    the broker (Map<String, Serializable>).
@@ -162,6 +185,8 @@ public class MCombineGroupByOperator extends BaseOperator {
         AggregationFunctionFactory.getAggregationFunction(_brokerRequest);
 
     final Map<String, Serializable[]> resultsMap = new ConcurrentHashMap<>();
+    final AtomicInteger numGroups = new AtomicInteger();
+    final AtomicBoolean numGroupsLimitReached = new AtomicBoolean();
 
     for (int i = 0; i < numOperators; i++) {
       final int index = i;
@@ -176,31 +201,41 @@ public class MCombineGroupByOperator extends BaseOperator {
             groupByResult = blocks[index].getAggregationGroupByResult();
 
             if (groupByResult != null) {
-              // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
-              Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupByResult.getGroupKeyIterator();
-
-              while (groupKeyIterator.hasNext()) {
-                GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                String groupKeyString = groupKey.getStringKey();
-
-                // HashCode method might return negative value, make it non-negative
-                int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
-                synchronized (LOCKS[lockIndex]) {
-                  Serializable[] results = resultsMap.get(groupKeyString);
-
-                  if (results == null) {
-                    results = new Serializable[numAggrFunctions];
-                    for (int j = 0; j < numAggrFunctions; j++) {
-                      results[j] = groupByResult.getResultForKey(groupKey, j);
-                    }
-                    resultsMap.put(groupKeyString, results);
-                  } else {
-                    for (int j = 0; j < numAggrFunctions; j++) {
-                      results[j] = aggregationFunctions.get(j)
-                          .combineTwoValues(results[j], groupByResult.getResultForKey(groupKey, j));
+              // Release the off-heap storage of the segment results once merged.
+              try {
+                // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
+                Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupByResult.getGroupKeyIterator();
+
+                while (groupKeyIterator.hasNext()) {
+                  GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+                  String groupKeyString = groupKey.getStringKey();
+
+                  // HashCode method might return negative value, make it non-negative
+                  int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
+                  synchronized (LOCKS[lockIndex]) {
+                    Serializable[] results = resultsMap.get(groupKeyString);
+
+                    if (results == null) {
+                      // Each new group key takes one of the slots up to the limit, so the limit holds across threads.
+                      if (numGroups.get() >= _numGroupsLimit || numGroups.incrementAndGet() > _numGroupsLimit) {
+                        numGroupsLimitReached.set(true);
+                        continue;
+                      }
+                      results = new Serializable[numAggrFunctions];
+                      for (int j = 0; j < numAggrFunctions; j++) {
+                        results[j] = groupByResult.getResultForKey(groupKey, j);
+                      }
+                      resultsMap.put(groupKeyString, results);
+                    } else {
+                      for (int j = 0; j < numAggrFunctions; j++) {
+                        results[j] = aggregationFunctions.get(j)
+                            .combineTwoValues(results[j], groupByResult.getResultForKey(groupKey, j));
+                      }
                     }
                   }
                 }
+              } finally {
+                groupByResult.close();
               }
             }
           } catch (Exception e) {
@@ -227,7 +262,7 @@ public class MCombineGroupByOperator extends BaseOperator {
     List<Map<String, Serializable>> trimmedResults =
         aggregationGroupByOperatorService.trimToSize(resultsMap, numAggrFunctions);
 
-    return buildResultBlock(aggregationFunctions, trimmedResults, blocks);
+    return buildResultBlock(aggregationFunctions, trimmedResults, blocks, numGroupsLimitReached.get());
   }
 
   /**
@@ -237,20 +272,24 @@ public class MCombineGroupByOperator extends BaseOperator {
    * @param aggregationFunctions List of aggregation functions.
    * @param trimmedResults List of maps containing the trimmed results.
    * @param blocks Array of blocks for which the results are being merged.
+   * @param combineNumGroupsLimitReached Whether the combine dropped group keys past the number of groups limit.
    * @return IntermediateResultsBlock containing merged results.
    */
   private IntermediateResultsBlock buildResultBlock(List<AggregationFunction> aggregationFunctions,
-      List<Map<String, Serializable>> trimmedResults, IntermediateResultsBlock[] blocks) {
+      List<Map<String, Serializable>> trimmedResults, IntermediateResultsBlock[] blocks,
+      boolean combineNumGroupsLimitReached) {
 
     IntermediateResultsBlock resultBlock = new IntermediateResultsBlock(aggregationFunctions, null, true);
     List<ProcessingException> exceptions = null;
 
     long numDocsScanned = 0;
     long totalRawDocs = 0;
+    boolean numGroupsLimitReached = combineNumGroupsLimitReached;
 
     for (IntermediateResultsBlock block : blocks) {
       numDocsScanned += block.getNumDocsScanned();
       totalRawDocs += block.getTotalRawDocs();
+      numGroupsLimitReached |= block.isNumGroupsLimitReached();
 
       List<ProcessingException> blockExceptions = block.getExceptions();
       if (blockExceptions != null) {
@@ -267,6 +306,7 @@ public class MCombineGroupByOperator extends BaseOperator {
 
     resultBlock.setNumDocsScanned(numDocsScanned);
     resultBlock.setTotalRawDocs(totalRawDocs);
+    resultBlock.setNumGroupsLimitReached(numGroupsLimitReached);
     resultBlock.setExceptionsList(exceptions);
 
     return resultBlock;
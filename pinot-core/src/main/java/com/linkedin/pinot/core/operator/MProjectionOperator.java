@@ -21,11 +21,13 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
+import com.linkedin.pinot.core.operator.docidsets.DocIdSetBlock;
 
 
 /**
@@ -90,6 +92,16 @@ public class MProjectionOperator extends BaseOperator {
     return "MProjectionOperator";
   }
 
+  @Override
+  protected void addBlockStats(Block block, OperatorStats operatorStats) {
+    if (block != null) {
+      int numDocs = ((DocIdSetBlock) ((ProjectionBlock) block).getDocIdSetBlock()).getSearchableLength();
+      operatorStats.addNumDocsIn(numDocs);
+      operatorStats.addNumDocsOut(numDocs);
+      operatorStats.addNumEntriesScanned((long) numDocs * _columnToDataSourceMap.size());
+    }
+  }
+
   public ProjectionBlock getCurrentBlock() {
     return _currentBlock;
   }
@@ -25,6 +25,7 @@ import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction
 public class AggregationFunctionContext {
   private final AggregationFunction _aggregationFunction;
   private final String[] _aggrColumns;
+  private final boolean _isSerializedHLLColumn;
 
   /**
    * Constructor for the class.
@@ -33,8 +34,20 @@ public class AggregationFunctionContext {
    * @param aggrColumns
    */
   public AggregationFunctionContext(String aggFuncName, String[] aggrColumns) {
+    this(aggFuncName, aggrColumns, false);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param aggFuncName
+   * @param aggrColumns
+   * @param isSerializedHLLColumn whether the aggregation column holds serialized HyperLogLog sketches.
+   */
+  public AggregationFunctionContext(String aggFuncName, String[] aggrColumns, boolean isSerializedHLLColumn) {
     _aggregationFunction = AggregationFunctionFactory.getAggregationFunction(aggFuncName);
     _aggrColumns = aggrColumns;
+    _isSerializedHLLColumn = isSerializedHLLColumn;
   }
 
   /**
@@ -52,4 +65,13 @@ public class AggregationFunctionContext {
   public String[] getAggregationColumns() {
     return _aggrColumns;
   }
+
+  /**
+   * Returns true if the aggregation column holds serialized HyperLogLog sketches, which are merged rather than offered
+   * to the sketch of the result.
+   * @return
+   */
+  public boolean isSerializedHLLColumn() {
+    return _isSerializedHLLColumn;
+  }
 }
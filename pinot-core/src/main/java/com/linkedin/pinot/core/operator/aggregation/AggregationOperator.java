@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator.aggregation;
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockBufferArena;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockDocIdSet;
 import com.linkedin.pinot.core.common.BlockId;
@@ -98,6 +99,10 @@ public class AggregationOperator extends BaseOperator {
       numDocsScanned = processBlock(numDocsScanned, currentBlock, block);
     }
     _aggregationExecutor.finish();
+    if (_reusableDocIdSet != null) {
+      BlockBufferArena.get().returnIntBuffer(_reusableDocIdSet);
+      _reusableDocIdSet = null;
+    }
 
     // Build intermediate result block based on aggregation result from the executor.
     List<Serializable> aggregationResults = _aggregationExecutor.getResult();
@@ -131,7 +136,7 @@ public class AggregationOperator extends BaseOperator {
       numDocsScanned += length;
     } else {
       if (_reusableDocIdSet == null) {
-        _reusableDocIdSet = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+        _reusableDocIdSet = BlockBufferArena.get().takeIntBuffer();
       }
 
       BlockDocIdSet blockDocIdSet = currentBlock.getBlockDocIdSet();
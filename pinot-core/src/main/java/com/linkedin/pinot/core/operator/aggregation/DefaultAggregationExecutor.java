@@ -25,11 +25,13 @@ import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction
 import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunctionFactory;
 import com.linkedin.pinot.core.operator.aggregation.function.DistinctCountHLLAggregationFunction;
 import com.linkedin.pinot.core.operator.aggregation.function.PercentileestAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
 import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.function.MinMaxRangeAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.hll.CompactHyperLogLog;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.PercentileHistogram;
 import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
 import com.linkedin.pinot.core.query.utils.Pair;
-import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -61,8 +63,9 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
     _aggrFuncContextArray = new AggregationFunctionContext[_numAggrFunc];
     for (int i = 0; i < _numAggrFunc; i++) {
       AggregationInfo aggregationInfo = aggregationInfoList.get(i);
-      String[] columns = aggregationInfo.getAggregationParams().get("column").trim().split(",");
-      _aggrFuncContextArray[i] = new AggregationFunctionContext(aggregationInfo.getAggregationType(), columns);
+      String[] columns = AggregationFunctionUtils.getAggregationColumns(indexSegment, aggregationInfo);
+      _aggrFuncContextArray[i] = new AggregationFunctionContext(aggregationInfo.getAggregationType(), columns,
+          AggregationFunctionUtils.isSerializedHLLAggregation(indexSegment, aggregationInfo, columns));
     }
     _resultHolderArray = new AggregationResultHolder[_numAggrFunc];
   }
@@ -118,27 +121,43 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
     String[] aggrColumns = aggrFuncContext.getAggregationColumns();
     String aggrFuncName = aggregationFunction.getName();
 
-    Preconditions.checkState(aggrColumns.length == 1);
-    String aggrColumn = aggrColumns[0];
-
     switch (aggrFuncName) {
       case AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION:
-        aggregationFunction.aggregate(length, resultHolder);
+        if (aggrColumns.length == 0) {
+          aggregationFunction.aggregate(length, resultHolder);
+        } else {
+          // Pre-aggregated count column of a star tree segment
+          aggregationFunction.aggregate(length, resultHolder,
+              _singleValueBlockCache.getDoubleValueArrayForColumn(aggrColumns[0]));
+        }
         break;
 
       case AggregationFunctionFactory.DISTINCTCOUNT_AGGREGATION_FUNCTION:
       case AggregationFunctionFactory.DISTINCTCOUNTHLL_AGGREGATION_FUNCTION:
+        Preconditions.checkState(aggrColumns.length == 1);
+        if (aggrFuncContext.isSerializedHLLColumn()) {
+          ((DistinctCountHLLAggregationFunction) aggregationFunction).aggregateSerialized(length, resultHolder,
+              _singleValueBlockCache.getStringValueArrayForColumn(aggrColumns[0]));
+          break;
+        }
         aggregationFunction.aggregate(length, resultHolder,
-            _singleValueBlockCache.getHashCodeArrayForColumn(aggrColumn));
+            _singleValueBlockCache.getHashCodeArrayForColumn(aggrColumns[0]));
         break;
 
       default:
-        aggregationFunction.aggregate(length, resultHolder,
-            _singleValueBlockCache.getDoubleValueArrayForColumn(aggrColumn));
+        aggregationFunction.aggregate(length, resultHolder, getDoubleValueArrays(aggrColumns));
         break;
     }
   }
 
+  private double[][] getDoubleValueArrays(String[] columns) {
+    double[][] valueArrays = new double[columns.length][];
+    for (int i = 0; i < columns.length; i++) {
+      valueArrays[i] = _singleValueBlockCache.getDoubleValueArrayForColumn(columns[i]);
+    }
+    return valueArrays;
+  }
+
   /**
    * {@inheritDoc}
    * Must be called after all calls to 'process' are done, and before getResult() can be called.
@@ -148,6 +167,10 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
     Preconditions
         .checkState(_inited, "Method 'finish' cannot be called before 'init' for class " + getClass().getName());
 
+    // Hand the block buffers over to the next segment processed by this thread.
+    if (!_finished) {
+      _singleValueBlockCache.release();
+    }
     _finished = true;
   }
 
@@ -218,17 +241,17 @@ public class DefaultAggregationExecutor implements AggregationExecutor {
       case DISTINCTCOUNTHLL_HYPERLOGLOG:
         HyperLogLog hyperLogLog = resultHolder.getResult();
         if (hyperLogLog == null) {
-          return new HyperLogLog(DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE);
+          return new CompactHyperLogLog(DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE);
         } else {
           return hyperLogLog;
         }
 
-      case PERCENTILE_LIST:
-        DoubleArrayList doubleArrayList = resultHolder.getResult();
-        if (doubleArrayList == null) {
-          return new DoubleArrayList();
+      case PERCENTILE_HISTOGRAM:
+        PercentileHistogram percentileHistogram = resultHolder.getResult();
+        if (percentileHistogram == null) {
+          return new PercentileHistogram();
         } else {
-          return doubleArrayList;
+          return percentileHistogram;
         }
 
       case PERCENTILEEST_QUANTILEDIGEST:
@@ -20,6 +20,7 @@ import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction
 import com.linkedin.pinot.core.operator.aggregation.groupby.DoubleGroupByResultHolder;
 import com.linkedin.pinot.core.operator.aggregation.groupby.GroupByResultHolder;
 import com.linkedin.pinot.core.operator.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.operator.aggregation.groupby.OffHeapLongToIntMap;
 
 
 /**
@@ -32,6 +33,16 @@ public class ResultHolderFactory {
 
   public static final int MAX_INITIAL_RESULT_HOLDER_CAPACITY = 10000;
 
+  // Number of group keys past which group key maps and result holders of double values move off-heap.
+  public static final int MAX_ON_HEAP_NUM_GROUPS = 100000;
+
+  // Default limit on the number of group keys of a group-by query, on each segment and once combined on a server.
+  public static final int DEFAULT_NUM_GROUPS_LIMIT = 1000000;
+
+  // Maximum limit on the number of group keys, so that the off-heap group key maps and result holders stay addressable
+  // with int byte offsets.
+  public static final int MAX_NUM_GROUPS_LIMIT = OffHeapLongToIntMap.MAX_SIZE;
+
   /**
    * Creates and returns the appropriate implementation of AggregationResultHolder,
    * based on aggregation function.
@@ -73,7 +84,8 @@ public class ResultHolderFactory {
       case AggregationFunctionFactory.MAX_AGGREGATION_FUNCTION:
       case AggregationFunctionFactory.MIN_AGGREGATION_FUNCTION:
       case AggregationFunctionFactory.SUM_AGGREGATION_FUNCTION:
-        return new DoubleGroupByResultHolder(initialCapacity, capacityCap, function.getDefaultValue());
+        return new DoubleGroupByResultHolder(initialCapacity, capacityCap, MAX_ON_HEAP_NUM_GROUPS,
+            function.getDefaultValue());
 
       default:
         return new ObjectGroupByResultHolder(initialCapacity, capacityCap);
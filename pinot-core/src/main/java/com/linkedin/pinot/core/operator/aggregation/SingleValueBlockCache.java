@@ -15,8 +15,8 @@
  */
 package com.linkedin.pinot.core.operator.aggregation;
 
+import com.linkedin.pinot.core.common.BlockBufferArena;
 import com.linkedin.pinot.core.common.DataFetcher;
-import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -25,17 +25,20 @@ import java.util.Set;
 
 /**
  * This class serves as a single value column block level cache. Using this class can prevent fetching the same column
- * data multiple times. This class allocate resources on demand, and reuse them as much as possible to prevent garbage
- * collection.
+ * data multiple times. This class takes its buffers on demand from the {@link BlockBufferArena} of the current thread,
+ * and reuses them for all the blocks of the segment to prevent garbage collection. The buffers should be returned with
+ * {@link #release()} once the segment is processed.
  */
 public class SingleValueBlockCache {
   private final DataFetcher _dataFetcher;
   private final Set<String> _columnDictIdLoaded = new HashSet<>();
   private final Set<String> _columnValueLoaded = new HashSet<>();
   private final Set<String> _columnHashCodeLoaded = new HashSet<>();
+  private final Set<String> _columnStringValueLoaded = new HashSet<>();
   private final Map<String, int[]> _columnToDictIdsMap = new HashMap<>();
   private final Map<String, double[]> _columnToValuesMap = new HashMap<>();
   private final Map<String, double[]> _columnToHashCodesMap = new HashMap<>();
+  private final Map<String, String[]> _columnToStringValuesMap = new HashMap<>();
 
   private int[] _docIds;
   private int _startPos;
@@ -62,6 +65,7 @@ public class SingleValueBlockCache {
     _columnDictIdLoaded.clear();
     _columnValueLoaded.clear();
     _columnHashCodeLoaded.clear();
+    _columnStringValueLoaded.clear();
 
     _docIds = docIds;
     _startPos = startPos;
@@ -78,7 +82,7 @@ public class SingleValueBlockCache {
     int[] dictIds = _columnToDictIdsMap.get(column);
     if (!_columnDictIdLoaded.contains(column)) {
       if (dictIds == null) {
-        dictIds = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+        dictIds = BlockBufferArena.get().takeIntBuffer();
         _columnToDictIdsMap.put(column, dictIds);
       }
       _dataFetcher.fetchSingleDictIds(column, _docIds, _startPos, _length, dictIds, 0);
@@ -97,11 +101,15 @@ public class SingleValueBlockCache {
     double[] doubleValues = _columnToValuesMap.get(column);
     if (!_columnValueLoaded.contains(column)) {
       if (doubleValues == null) {
-        doubleValues = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+        doubleValues = BlockBufferArena.get().takeDoubleBuffer();
         _columnToValuesMap.put(column, doubleValues);
       }
-      int[] dictIds = getDictIdArrayForColumn(column);
-      _dataFetcher.fetchSingleDoubleValues(column, dictIds, _startPos, _length, doubleValues, 0);
+      if (_dataFetcher.hasDictionary(column)) {
+        int[] dictIds = getDictIdArrayForColumn(column);
+        _dataFetcher.fetchSingleDoubleValues(column, dictIds, _startPos, _length, doubleValues, 0);
+      } else {
+        _dataFetcher.fetchSingleRawDoubleValues(column, _docIds, _startPos, _length, doubleValues, 0);
+      }
       _columnValueLoaded.add(column);
     }
     return doubleValues;
@@ -117,13 +125,66 @@ public class SingleValueBlockCache {
     double[] hashCodes = _columnToHashCodesMap.get(column);
     if (!_columnHashCodeLoaded.contains(column)) {
       if (hashCodes == null) {
-        hashCodes = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+        hashCodes = BlockBufferArena.get().takeDoubleBuffer();
         _columnToHashCodesMap.put(column, hashCodes);
       }
-      int[] dictIds = getDictIdArrayForColumn(column);
-      _dataFetcher.fetchSingleHashCodes(column, dictIds, _startPos, _length, hashCodes, 0);
+      if (_dataFetcher.hasDictionary(column)) {
+        int[] dictIds = getDictIdArrayForColumn(column);
+        _dataFetcher.fetchSingleHashCodes(column, dictIds, _startPos, _length, hashCodes, 0);
+      } else {
+        _dataFetcher.fetchSingleRawHashCodes(column, _docIds, _startPos, _length, hashCodes, 0);
+      }
       _columnHashCodeLoaded.add(column);
     }
     return hashCodes;
   }
+
+  /**
+   * Get string value array for a given dictionary encoded column for the specific block initialized in the
+   * initNewBlock.
+   *
+   * @param column column name.
+   * @return string value array associated with this column.
+   */
+  public String[] getStringValueArrayForColumn(String column) {
+    String[] stringValues = _columnToStringValuesMap.get(column);
+    if (!_columnStringValueLoaded.contains(column)) {
+      if (stringValues == null) {
+        stringValues = BlockBufferArena.get().takeStringBuffer();
+        _columnToStringValuesMap.put(column, stringValues);
+      }
+      int[] dictIds = getDictIdArrayForColumn(column);
+      _dataFetcher.fetchSingleStringValues(column, dictIds, _startPos, _length, stringValues, 0);
+      _columnStringValueLoaded.add(column);
+    }
+    return stringValues;
+  }
+
+  /**
+   * Return all the buffers to the {@link BlockBufferArena} of the current thread. The arrays previously returned by
+   * this cache must not be used anymore.
+   */
+  public void release() {
+    BlockBufferArena arena = BlockBufferArena.get();
+    for (int[] dictIds : _columnToDictIdsMap.values()) {
+      arena.returnIntBuffer(dictIds);
+    }
+    for (double[] values : _columnToValuesMap.values()) {
+      arena.returnDoubleBuffer(values);
+    }
+    for (double[] hashCodes : _columnToHashCodesMap.values()) {
+      arena.returnDoubleBuffer(hashCodes);
+    }
+    for (String[] stringValues : _columnToStringValuesMap.values()) {
+      arena.returnStringBuffer(stringValues);
+    }
+    _columnToDictIdsMap.clear();
+    _columnToValuesMap.clear();
+    _columnToHashCodesMap.clear();
+    _columnToStringValuesMap.clear();
+    _columnDictIdLoaded.clear();
+    _columnValueLoaded.clear();
+    _columnHashCodeLoaded.clear();
+    _columnStringValueLoaded.clear();
+  }
 }
@@ -32,7 +32,7 @@ public interface AggregationFunction {
     MINMAXRANGE_PAIR,
     DISTINCTCOUNT_SET,
     DISTINCTCOUNTHLL_HYPERLOGLOG,
-    PERCENTILE_LIST,
+    PERCENTILE_HISTOGRAM,
     PERCENTILEEST_QUANTILEDIGEST
   }
 
@@ -60,15 +60,17 @@ public interface AggregationFunction {
   /**
    * Perform a group-by aggregation on the given set of values, and the group key to which
    * each index corresponds to. This method is for multi-valued group by column(s) case, where
-   * each docId can have multiple group keys. This mapping is passed in via the
-   * docIdToGroupKeys parameter.
+   * each docId can have multiple group keys. The group keys of all the docIds are passed in one after the other via
+   * the groupKeys parameter, the group keys of the i-th docId ending (exclusive) at docIdToGroupKeysEnd[i] and starting
+   * where the ones of the previous docId end (0 for the first docId).
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
-  void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
+  void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys, GroupByResultHolder resultHolder,
       double[]... valueArray);
 
   /**
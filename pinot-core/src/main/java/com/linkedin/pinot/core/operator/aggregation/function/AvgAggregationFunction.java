@@ -34,8 +34,8 @@ public class AvgAggregationFunction implements AggregationFunction {
    * Performs 'avg' aggregation on the input array.
    * Returns {@value #DEFAULT_VALUE} if the input array is empty.
    *
-   * While the interface allows for variable number of valueArrays, we do not support
-   * multiple columns within one aggregation function right now.
+   * An optional second valueArray holds the number of documents behind each value (pre-aggregated count column of
+   * star tree segments, whose values are then sums).
    *
    * {@inheritDoc}
    *
@@ -45,20 +45,27 @@ public class AvgAggregationFunction implements AggregationFunction {
    */
   @Override
   public void aggregate(int length, AggregationResultHolder resultHolder, double[]... valueArray) {
-    Preconditions.checkArgument(valueArray.length == 1);
+    Preconditions.checkArgument(valueArray.length == 1 || valueArray.length == 2);
     Preconditions.checkState(length <= valueArray[0].length);
 
     double sum = 0.0;
     for (int i = 0; i < length; ++i) {
       sum += valueArray[0][i];
     }
+    long count = length;
+    if (valueArray.length == 2) {
+      count = 0;
+      for (int i = 0; i < length; ++i) {
+        count += (long) valueArray[1][i];
+      }
+    }
     Pair<Double, Long> avgValue = resultHolder.getResult();
     if (avgValue == null) {
-      avgValue = new Pair<>(sum, (long) length);
+      avgValue = new Pair<>(sum, count);
       resultHolder.setValue(avgValue);
     } else {
       avgValue.setFirst(avgValue.getFirst() + sum);
-      avgValue.setSecond(avgValue.getSecond() + length);
+      avgValue.setSecond(avgValue.getSecond() + count);
     }
   }
 
@@ -76,19 +83,20 @@ public class AvgAggregationFunction implements AggregationFunction {
   @Override
   public void aggregateGroupBySV(int length, int[] groupKeys, GroupByResultHolder resultHolder,
       double[]... valueArray) {
-    Preconditions.checkArgument(valueArray.length == 1);
+    Preconditions.checkArgument(valueArray.length == 1 || valueArray.length == 2);
     Preconditions.checkState(length <= valueArray[0].length);
 
     for (int i = 0; i < length; ++i) {
       int groupKey = groupKeys[i];
       double value = valueArray[0][i];
+      long count = getCount(i, valueArray);
       Pair<Double, Long> avgValue = resultHolder.getResult(groupKey);
       if (avgValue == null) {
-        avgValue = new Pair<>(value, 1L);
+        avgValue = new Pair<>(value, count);
         resultHolder.setValueForKey(groupKey, avgValue);
       } else {
         avgValue.setFirst(avgValue.getFirst() + valueArray[0][i]);
-        avgValue.setSecond(avgValue.getSecond() + 1);
+        avgValue.setSecond(avgValue.getSecond() + count);
       }
     }
   }
@@ -97,31 +105,41 @@ public class AvgAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
-    Preconditions.checkArgument(valueArray.length == 1);
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
+    Preconditions.checkArgument(valueArray.length == 1 || valueArray.length == 2);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; ++i) {
       double value = valueArray[0][i];
-      for (int groupKey : docIdToGroupKeys[i]) {
+      long count = getCount(i, valueArray);
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         Pair<Double, Long> avgValue = resultHolder.getResult(groupKey);
         if (avgValue == null) {
-          avgValue = new Pair<>(value, 1L);
+          avgValue = new Pair<>(value, count);
           resultHolder.setValueForKey(groupKey, avgValue);
         } else {
           avgValue.setFirst(avgValue.getFirst() + valueArray[0][i]);
-          avgValue.setSecond(avgValue.getSecond() + 1);
+          avgValue.setSecond(avgValue.getSecond() + count);
         }
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
+  private static long getCount(int index, double[]... valueArray) {
+    return (valueArray.length == 2) ? (long) valueArray[1][index] : 1L;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -33,6 +33,9 @@ public class CountAggregationFunction implements AggregationFunction {
    * Performs 'count' aggregation on the input array.
    * Returns {@value #DEFAULT_VALUE} if the input array is empty.
    *
+   * A single valueArray holds the number of documents behind each document (pre-aggregated count column of star tree
+   * segments), in which case these numbers are summed instead of counting the documents.
+   *
    * {@inheritDoc}
    *
    * @param length
@@ -41,10 +44,17 @@ public class CountAggregationFunction implements AggregationFunction {
    */
   @Override
   public void aggregate(int length, AggregationResultHolder resultHolder, double[]... valueArray) {
-    // Should never call count with a valueArray.
-    Preconditions.checkArgument(valueArray.length == 0);
+    Preconditions.checkArgument(valueArray.length <= 1);
 
-    resultHolder.setValue(resultHolder.getDoubleResult() + length);
+    if (valueArray.length == 0) {
+      resultHolder.setValue(resultHolder.getDoubleResult() + length);
+      return;
+    }
+    double count = 0;
+    for (int i = 0; i < length; i++) {
+      count += valueArray[0][i];
+    }
+    resultHolder.setValue(resultHolder.getDoubleResult() + count);
   }
 
   /**
@@ -61,12 +71,12 @@ public class CountAggregationFunction implements AggregationFunction {
   @Override
   public void aggregateGroupBySV(int length, int[] groupKeys, GroupByResultHolder resultHolder,
       double[]... valueArray) {
-    Preconditions.checkArgument(valueArray.length == 0);
+    Preconditions.checkArgument(valueArray.length <= 1);
 
     for (int i = 0; i < length; i++) {
       int groupKey = groupKeys[i];
       double oldValue = resultHolder.getDoubleResult(groupKey);
-      resultHolder.setValueForKey(groupKey, (oldValue + 1));
+      resultHolder.setValueForKey(groupKey, (oldValue + getCount(i, valueArray)));
     }
   }
 
@@ -74,22 +84,32 @@ public class CountAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKey
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKey, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
-    Preconditions.checkArgument(valueArray.length == 0);
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
+    Preconditions.checkArgument(valueArray.length <= 1);
+    int groupKeysStart = 0;
     for (int i = 0; i < length; ++i) {
-      for (int groupKey : docIdToGroupKey[i]) {
+      double count = getCount(i, valueArray);
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         double oldValue = resultHolder.getDoubleResult(groupKey);
-        resultHolder.setValueForKey(groupKey, oldValue + 1);
+        resultHolder.setValueForKey(groupKey, oldValue + count);
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
+  private static double getCount(int index, double[]... valueArray) {
+    return (valueArray.length == 0) ? 1 : valueArray[0][index];
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -86,19 +86,23 @@ public class DistinctCountAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; i++) {
       int value = (int) valueArray[0][i];
-      for (int groupKey : docIdToGroupKeys[i]) {
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         IntOpenHashSet valueSet = resultHolder.getResult(groupKey);
         if (valueSet == null) {
           valueSet = new IntOpenHashSet();
@@ -106,6 +110,7 @@ public class DistinctCountAggregationFunction implements AggregationFunction {
         }
         valueSet.add(value);
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
@@ -19,6 +19,7 @@ import com.clearspring.analytics.stream.cardinality.HyperLogLog;
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.core.operator.aggregation.AggregationResultHolder;
 import com.linkedin.pinot.core.operator.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.function.hll.CompactHyperLogLog;
 import java.util.List;
 
 
@@ -46,7 +47,7 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction
 
     HyperLogLog hll = resultHolder.getResult();
     if (hll == null) {
-      hll = new HyperLogLog(DEFAULT_BIT_SIZE);
+      hll = new CompactHyperLogLog(DEFAULT_BIT_SIZE);
       resultHolder.setValue(hll);
     }
 
@@ -76,7 +77,7 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction
       int groupKey = groupKeys[i];
       HyperLogLog hll = resultHolder.getResult(groupKey);
       if (hll == null) {
-        hll = new HyperLogLog(DEFAULT_BIT_SIZE);
+        hll = new CompactHyperLogLog(DEFAULT_BIT_SIZE);
         resultHolder.setValueForKey(groupKey, hll);
       }
       hll.offer((int) valueArray[0][i]);
@@ -87,27 +88,104 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; i++) {
       int value = (int) valueArray[0][i];
-      for (int groupKey : docIdToGroupKeys[i]) {
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         HyperLogLog hll = resultHolder.getResult(groupKey);
         if (hll == null) {
-          hll = new HyperLogLog(DEFAULT_BIT_SIZE);
+          hll = new CompactHyperLogLog(DEFAULT_BIT_SIZE);
           resultHolder.setValueForKey(groupKey, hll);
         }
         hll.offer(value);
       }
+      groupKeysStart = groupKeysEnd;
+    }
+  }
+
+  /**
+   * Performs 'distinctcounthll' aggregation on a column of serialized sketches (pre-aggregated HLL metric column), by
+   * merging their registers.
+   *
+   * @param length
+   * @param resultHolder
+   * @param serializedValues
+   */
+  public void aggregateSerialized(int length, AggregationResultHolder resultHolder, String[] serializedValues) {
+    Preconditions.checkState(length <= serializedValues.length);
+
+    CompactHyperLogLog hll = resultHolder.getResult();
+    if (hll == null) {
+      hll = new CompactHyperLogLog(DEFAULT_BIT_SIZE);
+      resultHolder.setValue(hll);
+    }
+
+    for (int i = 0; i < length; i++) {
+      hll.mergeSerializedString(serializedValues[i]);
+    }
+  }
+
+  /**
+   * Same as {@link #aggregateSerialized(int, AggregationResultHolder, String[])} for group by on single value columns.
+   *
+   * @param length
+   * @param groupKeys
+   * @param resultHolder
+   * @param serializedValues
+   */
+  public void aggregateSerializedGroupBySV(int length, int[] groupKeys, GroupByResultHolder resultHolder,
+      String[] serializedValues) {
+    Preconditions.checkState(length <= serializedValues.length);
+
+    for (int i = 0; i < length; i++) {
+      getHyperLogLogForGroupKey(resultHolder, groupKeys[i]).mergeSerializedString(serializedValues[i]);
+    }
+  }
+
+  /**
+   * Same as {@link #aggregateSerialized(int, AggregationResultHolder, String[])} for group by on multi value columns.
+   *
+   * @param length
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
+   * @param resultHolder
+   * @param serializedValues
+   */
+  public void aggregateSerializedGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, String[] serializedValues) {
+    Preconditions.checkState(length <= serializedValues.length);
+
+    int groupKeysStart = 0;
+    for (int i = 0; i < length; i++) {
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
+        getHyperLogLogForGroupKey(resultHolder, groupKey).mergeSerializedString(serializedValues[i]);
+      }
+      groupKeysStart = groupKeysEnd;
+    }
+  }
+
+  private static CompactHyperLogLog getHyperLogLogForGroupKey(GroupByResultHolder resultHolder, int groupKey) {
+    CompactHyperLogLog hll = resultHolder.getResult(groupKey);
+    if (hll == null) {
+      hll = new CompactHyperLogLog(DEFAULT_BIT_SIZE);
+      resultHolder.setValueForKey(groupKey, hll);
     }
+    return hll;
   }
 
   /**
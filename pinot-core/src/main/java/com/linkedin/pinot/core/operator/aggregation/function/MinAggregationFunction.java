@@ -88,23 +88,28 @@ public class MinAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; ++i) {
-      for (int groupKey : docIdToGroupKeys[i]) {
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         double oldValue = resultHolder.getDoubleResult(groupKey);
         if (valueArray[0][i] < oldValue) {
           resultHolder.setValueForKey(groupKey, valueArray[0][i]);
         }
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
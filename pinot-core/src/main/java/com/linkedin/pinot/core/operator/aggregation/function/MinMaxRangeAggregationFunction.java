@@ -109,19 +109,23 @@ public class MinMaxRangeAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; ++i) {
       double value = valueArray[0][i];
-      for (int groupKey : docIdToGroupKeys[i]) {
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         Pair<Double, Double> rangeValue = resultHolder.getResult(groupKey);
         if (rangeValue == null) {
           rangeValue = new Pair<>(value, value);
@@ -135,6 +139,7 @@ public class MinMaxRangeAggregationFunction implements AggregationFunction {
           }
         }
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
@@ -18,16 +18,18 @@ package com.linkedin.pinot.core.operator.aggregation.function;
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.core.operator.aggregation.AggregationResultHolder;
 import com.linkedin.pinot.core.operator.aggregation.groupby.GroupByResultHolder;
-import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.PercentileHistogram;
 import java.util.List;
 
 
 /**
  * Class to implement the 'percentileXX' aggregation function.
+ * Values are accumulated into a {@link PercentileHistogram}, which stays exact up to its maximum number of distinct
+ * values.
  */
 public class PercentileAggregationFunction implements AggregationFunction {
   private final String FUNCTION_NAME;
-  private static final ResultDataType RESULT_DATA_TYPE = ResultDataType.PERCENTILE_LIST;
+  private static final ResultDataType RESULT_DATA_TYPE = ResultDataType.PERCENTILE_HISTOGRAM;
   private final int _percentile;
 
   public PercentileAggregationFunction(int percentile) {
@@ -64,14 +66,14 @@ public class PercentileAggregationFunction implements AggregationFunction {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
-    DoubleArrayList valueList = resultHolder.getResult();
-    if (valueList == null) {
-      valueList = new DoubleArrayList();
-      resultHolder.setValue(valueList);
+    PercentileHistogram histogram = resultHolder.getResult();
+    if (histogram == null) {
+      histogram = new PercentileHistogram();
+      resultHolder.setValue(histogram);
     }
 
     for (int i = 0; i < length; i++) {
-      valueList.add(valueArray[0][i]);
+      histogram.offer(valueArray[0][i]);
     }
   }
 
@@ -94,12 +96,12 @@ public class PercentileAggregationFunction implements AggregationFunction {
 
     for (int i = 0; i < length; i++) {
       int groupKey = groupKeys[i];
-      DoubleArrayList valueList = resultHolder.getResult(groupKey);
-      if (valueList == null) {
-        valueList = new DoubleArrayList();
-        resultHolder.setValueForKey(groupKey, valueList);
+      PercentileHistogram histogram = resultHolder.getResult(groupKey);
+      if (histogram == null) {
+        histogram = new PercentileHistogram();
+        resultHolder.setValueForKey(groupKey, histogram);
       }
-      valueList.add(valueArray[0][i]);
+      histogram.offer(valueArray[0][i]);
     }
   }
 
@@ -107,26 +109,31 @@ public class PercentileAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; ++i) {
       double value = valueArray[0][i];
-      for (int groupKey : docIdToGroupKeys[i]) {
-        DoubleArrayList valueList = resultHolder.getResult(groupKey);
-        if (valueList == null) {
-          valueList = new DoubleArrayList();
-          resultHolder.setValueForKey(groupKey, valueList);
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
+        PercentileHistogram histogram = resultHolder.getResult(groupKey);
+        if (histogram == null) {
+          histogram = new PercentileHistogram();
+          resultHolder.setValueForKey(groupKey, histogram);
         }
-        valueList.add(value);
+        histogram.offer(value);
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
@@ -108,19 +108,23 @@ public class PercentileestAggregationFunction implements AggregationFunction {
    * {@inheritDoc}
    *
    * @param length
-   * @param docIdToGroupKeys
+   * @param docIdToGroupKeysEnd
+   * @param groupKeys
    * @param resultHolder
    * @param valueArray
    */
   @Override
-  public void aggregateGroupByMV(int length, int[][] docIdToGroupKeys, GroupByResultHolder resultHolder,
-      double[]... valueArray) {
+  public void aggregateGroupByMV(int length, int[] docIdToGroupKeysEnd, int[] groupKeys,
+      GroupByResultHolder resultHolder, double[]... valueArray) {
     Preconditions.checkArgument(valueArray.length == 1);
     Preconditions.checkState(length <= valueArray[0].length);
 
+    int groupKeysStart = 0;
     for (int i = 0; i < length; i++) {
       long value = (long) valueArray[0][i];
-      for (int groupKey : docIdToGroupKeys[i]) {
+      int groupKeysEnd = docIdToGroupKeysEnd[i];
+      for (int j = groupKeysStart; j < groupKeysEnd; j++) {
+        int groupKey = groupKeys[j];
         QuantileDigest digest = resultHolder.getResult(groupKey);
         if (digest == null) {
           digest = new QuantileDigest(DEFAULT_MAX_ERROR);
@@ -128,6 +132,7 @@ public class PercentileestAggregationFunction implements AggregationFunction {
         }
         digest.add(value);
       }
+      groupKeysStart = groupKeysEnd;
     }
   }
 
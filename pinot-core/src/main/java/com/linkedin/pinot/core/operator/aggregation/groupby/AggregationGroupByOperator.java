@@ -19,6 +19,7 @@ import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockBufferArena;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockDocIdSet;
 import com.linkedin.pinot.core.common.BlockId;
@@ -26,6 +27,7 @@ import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
 import com.linkedin.pinot.core.operator.docidsets.DocIdSetBlock;
@@ -50,7 +52,7 @@ public class AggregationGroupByOperator extends BaseOperator {
   private int[] _reusableDocIdSet;
 
   /**
-   * Constructor for the class.
+   * Constructor for the class, with the default number of groups limit.
    *
    * @param indexSegment Index on which aggregation group by is to be performed.
    * @param aggregationsInfoList List of AggregationInfo (contains context for applying aggregation functions).
@@ -59,6 +61,20 @@ public class AggregationGroupByOperator extends BaseOperator {
    */
   public AggregationGroupByOperator(IndexSegment indexSegment, List<AggregationInfo> aggregationsInfoList,
       GroupBy groupBy, MProjectionOperator projectionOperator) {
+    this(indexSegment, aggregationsInfoList, groupBy, projectionOperator, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param indexSegment Index on which aggregation group by is to be performed.
+   * @param aggregationsInfoList List of AggregationInfo (contains context for applying aggregation functions).
+   * @param groupBy GroupBy to perform
+   * @param projectionOperator Projection
+   * @param numGroupsLimit Maximum number of group keys
+   */
+  public AggregationGroupByOperator(IndexSegment indexSegment, List<AggregationInfo> aggregationsInfoList,
+      GroupBy groupBy, MProjectionOperator projectionOperator, int numGroupsLimit) {
 
     Preconditions.checkNotNull(indexSegment);
     Preconditions.checkArgument((aggregationsInfoList != null) && (aggregationsInfoList.size() > 0));
@@ -68,7 +84,7 @@ public class AggregationGroupByOperator extends BaseOperator {
     _indexSegment = indexSegment;
     _aggregationInfoList = aggregationsInfoList;
     _projectionOperator = projectionOperator;
-    _groupByExecutor = new DefaultGroupByExecutor(indexSegment, aggregationsInfoList, groupBy);
+    _groupByExecutor = new DefaultGroupByExecutor(indexSegment, aggregationsInfoList, groupBy, numGroupsLimit);
   }
 
   /**
@@ -98,6 +114,10 @@ public class AggregationGroupByOperator extends BaseOperator {
       numDocsScanned = processBlock(numDocsScanned, currentBlock, block);
     }
     _groupByExecutor.finish();
+    if (_reusableDocIdSet != null) {
+      BlockBufferArena.get().returnIntBuffer(_reusableDocIdSet);
+      _reusableDocIdSet = null;
+    }
 
     AggregationGroupByResult aggregationGroupByResult = _groupByExecutor.getResult();
     final IntermediateResultsBlock resultBlock =
@@ -106,6 +126,7 @@ public class AggregationGroupByOperator extends BaseOperator {
 
     resultBlock.setNumDocsScanned(numDocsScanned);
     resultBlock.setTotalRawDocs(_indexSegment.getSegmentMetadata().getTotalRawDocs());
+    resultBlock.setNumGroupsLimitReached(aggregationGroupByResult.isNumGroupsLimitReached());
     resultBlock.setTimeUsedMs(System.currentTimeMillis() - startTimeMillis);
 
     return resultBlock;
@@ -130,7 +151,7 @@ public class AggregationGroupByOperator extends BaseOperator {
       numDocsScanned += length;
     } else {
       if (_reusableDocIdSet == null) {
-        _reusableDocIdSet = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+        _reusableDocIdSet = BlockBufferArena.get().takeIntBuffer();
       }
 
       BlockDocIdSet blockDocIdSet = currentBlock.getBlockDocIdSet();
@@ -20,9 +20,9 @@ import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
 import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.function.MinMaxRangeAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.PercentileHistogram;
 import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
 import com.linkedin.pinot.core.query.utils.Pair;
-import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import java.io.Serializable;
 import java.util.Iterator;
@@ -57,6 +57,24 @@ public class AggregationGroupByResult {
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
+  /**
+   * Returns whether the number of groups limit was reached, in which case the results only cover part of the groups.
+   * @return
+   */
+  public boolean isNumGroupsLimitReached() {
+    return _groupKeyGenerator.isNumGroupsLimitReached();
+  }
+
+  /**
+   * Releases the off-heap storage of the group keys and results. Must be called once the results are consumed.
+   */
+  public void close() {
+    _groupKeyGenerator.close();
+    for (GroupByResultHolder resultHolder : _resultHolder) {
+      resultHolder.close();
+    }
+  }
+
   /**
    *
    * Given a group-by key and an index into the result holder array, returns
@@ -99,8 +117,8 @@ public class AggregationGroupByResult {
       case DISTINCTCOUNTHLL_HYPERLOGLOG:
         return (HyperLogLog) _resultHolder[index].getResult(groupId);
 
-      case PERCENTILE_LIST:
-        return (DoubleArrayList) _resultHolder[index].getResult(groupId);
+      case PERCENTILE_HISTOGRAM:
+        return (PercentileHistogram) _resultHolder[index].getResult(groupId);
 
       case PERCENTILEEST_QUANTILEDIGEST:
         return (QuantileDigest) _resultHolder[index].getResult(groupId);
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator.aggregation.groupby;
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.core.common.BlockBufferArena;
 import com.linkedin.pinot.core.common.DataFetcher;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.aggregation.AggregationFunctionContext;
@@ -25,7 +26,8 @@ import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.operator.aggregation.SingleValueBlockCache;
 import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunction;
 import com.linkedin.pinot.core.operator.aggregation.function.AggregationFunctionFactory;
-import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.operator.aggregation.function.DistinctCountHLLAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
 import java.util.List;
 
 
@@ -45,20 +47,34 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
   private final GroupByResultHolder[] _resultHolderArray;
 
   private int[] _docIdToSVGroupKey;
-  private int[][] _docIdToMVGroupKey;
+  private int[] _docIdToMVGroupKeysEnd;
+  private int[] _mvGroupKeys;
 
   private boolean _hasMultiValuedColumns = false;
   private boolean _inited = false;
   private boolean _finished = false;
 
   /**
-   * Constructor for the class.
+   * Constructor for the class, with the default number of groups limit.
    *
    * @param indexSegment
    * @param aggregationInfoList
    * @param groupBy
    */
   public DefaultGroupByExecutor(IndexSegment indexSegment, List<AggregationInfo> aggregationInfoList, GroupBy groupBy) {
+    this(indexSegment, aggregationInfoList, groupBy, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param indexSegment
+   * @param aggregationInfoList
+   * @param groupBy
+   * @param numGroupsLimit Maximum number of group keys
+   */
+  public DefaultGroupByExecutor(IndexSegment indexSegment, List<AggregationInfo> aggregationInfoList, GroupBy groupBy,
+      int numGroupsLimit) {
     Preconditions.checkNotNull(indexSegment);
     Preconditions.checkNotNull(aggregationInfoList);
     Preconditions.checkArgument(aggregationInfoList.size() > 0);
@@ -68,7 +84,7 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     _singleValueBlockCache = new SingleValueBlockCache(dataFetcher);
     List<String> groupByColumnList = groupBy.getColumns();
     String[] groupByColumns = groupByColumnList.toArray(new String[groupByColumnList.size()]);
-    _groupKeyGenerator = new DefaultGroupKeyGenerator(dataFetcher, groupByColumns);
+    _groupKeyGenerator = new DefaultGroupKeyGenerator(dataFetcher, groupByColumns, numGroupsLimit);
     int maxNumResults = _groupKeyGenerator.getGlobalGroupKeyUpperBound();
     _hasMultiValuedColumns = _groupKeyGenerator.hasMultiValueGroupByColumn();
 
@@ -77,9 +93,10 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     _resultHolderArray = new GroupByResultHolder[_numAggrFunc];
     for (int i = 0; i < _numAggrFunc; i++) {
       AggregationInfo aggregationInfo = aggregationInfoList.get(i);
-      String[] columns = aggregationInfo.getAggregationParams().get("column").trim().split(",");
+      String[] columns = AggregationFunctionUtils.getAggregationColumns(indexSegment, aggregationInfo);
       AggregationFunctionContext aggregationFunctionContext =
-          new AggregationFunctionContext(aggregationInfo.getAggregationType(), columns);
+          new AggregationFunctionContext(aggregationInfo.getAggregationType(), columns,
+              AggregationFunctionUtils.isSerializedHLLAggregation(indexSegment, aggregationInfo, columns));
       _aggrFuncContextArray[i] = aggregationFunctionContext;
       AggregationFunction aggregationFunction = aggregationFunctionContext.getAggregationFunction();
       _resultHolderArray[i] = ResultHolderFactory.getGroupByResultHolder(aggregationFunction, maxNumResults);
@@ -92,7 +109,7 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
    * Initializes the following:
    * - List of AggregationFunctionContexts for the given query.
    * - Group by key generator.
-   * - Various re-usable arrays that store dictionaries/values/results.
+   * - Various re-usable arrays that store dictionaries/values/results, taken from the arena of the current thread.
    */
   @Override
   public void init() {
@@ -101,10 +118,12 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
       return;
     }
 
+    BlockBufferArena arena = BlockBufferArena.get();
     if (_hasMultiValuedColumns) {
-      _docIdToMVGroupKey = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
+      _docIdToMVGroupKeysEnd = arena.takeIntBuffer();
+      _mvGroupKeys = arena.takeIntBuffer();
     } else {
-      _docIdToSVGroupKey = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+      _docIdToSVGroupKey = arena.takeIntBuffer();
     }
     _inited = true;
   }
@@ -145,34 +164,55 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     String[] aggrColumns = aggrFuncContext.getAggregationColumns();
     String aggrFuncName = aggregationFunction.getName();
 
-    Preconditions.checkState(aggrColumns.length == 1);
-    String aggrColumn = aggrColumns[0];
-
     switch (aggrFuncName) {
       case AggregationFunctionFactory.COUNT_AGGREGATION_FUNCTION:
-        if (_hasMultiValuedColumns) {
-          aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder);
+        if (aggrColumns.length == 0) {
+          if (_hasMultiValuedColumns) {
+            aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKeysEnd, _mvGroupKeys, resultHolder);
+          } else {
+            aggregationFunction.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder);
+          }
         } else {
-          aggregationFunction.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder);
+          // Pre-aggregated count column of a star tree segment
+          double[] countArray = _singleValueBlockCache.getDoubleValueArrayForColumn(aggrColumns[0]);
+          if (_hasMultiValuedColumns) {
+            aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKeysEnd, _mvGroupKeys, resultHolder, countArray);
+          } else {
+            aggregationFunction.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, countArray);
+          }
         }
         break;
 
       case AggregationFunctionFactory.DISTINCTCOUNT_AGGREGATION_FUNCTION:
       case AggregationFunctionFactory.DISTINCTCOUNTHLL_AGGREGATION_FUNCTION:
-        double[] hashCodeArray = _singleValueBlockCache.getHashCodeArrayForColumn(aggrColumn);
+        Preconditions.checkState(aggrColumns.length == 1);
+        if (aggrFuncContext.isSerializedHLLColumn()) {
+          DistinctCountHLLAggregationFunction hllFunction = (DistinctCountHLLAggregationFunction) aggregationFunction;
+          String[] serializedValues = _singleValueBlockCache.getStringValueArrayForColumn(aggrColumns[0]);
+          if (_hasMultiValuedColumns) {
+            hllFunction.aggregateSerializedGroupByMV(length, _docIdToMVGroupKeysEnd, _mvGroupKeys, resultHolder, serializedValues);
+          } else {
+            hllFunction.aggregateSerializedGroupBySV(length, _docIdToSVGroupKey, resultHolder, serializedValues);
+          }
+          break;
+        }
+        double[] hashCodeArray = _singleValueBlockCache.getHashCodeArrayForColumn(aggrColumns[0]);
         if (_hasMultiValuedColumns) {
-          aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder, hashCodeArray);
+          aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKeysEnd, _mvGroupKeys, resultHolder, hashCodeArray);
         } else {
           aggregationFunction.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, hashCodeArray);
         }
         break;
 
       default:
-        double[] valueArray = _singleValueBlockCache.getDoubleValueArrayForColumn(aggrColumn);
+        double[][] valueArrays = new double[aggrColumns.length][];
+        for (int i = 0; i < aggrColumns.length; i++) {
+          valueArrays[i] = _singleValueBlockCache.getDoubleValueArrayForColumn(aggrColumns[i]);
+        }
         if (_hasMultiValuedColumns) {
-          aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKey, resultHolder, valueArray);
+          aggregationFunction.aggregateGroupByMV(length, _docIdToMVGroupKeysEnd, _mvGroupKeys, resultHolder, valueArrays);
         } else {
-          aggregationFunction.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, valueArray);
+          aggregationFunction.aggregateGroupBySV(length, _docIdToSVGroupKey, resultHolder, valueArrays);
         }
         break;
     }
@@ -186,6 +226,21 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     Preconditions
         .checkState(_inited, "Method 'finish' cannot be called before 'init' for class " + getClass().getName());
 
+    // Hand the block buffers over to the next segment processed by this thread.
+    if (!_finished) {
+      BlockBufferArena arena = BlockBufferArena.get();
+      if (_hasMultiValuedColumns) {
+        arena.returnIntBuffer(_docIdToMVGroupKeysEnd);
+        arena.returnIntBuffer(_mvGroupKeys);
+        _docIdToMVGroupKeysEnd = null;
+        _mvGroupKeys = null;
+      } else {
+        arena.returnIntBuffer(_docIdToSVGroupKey);
+        _docIdToSVGroupKey = null;
+      }
+      _singleValueBlockCache.release();
+      _groupKeyGenerator.releaseBuffers();
+    }
     _finished = true;
   }
 
@@ -214,7 +269,7 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
    * but for multi-valued columns, each docId could have more than one group key.
    *
    * For SV keys: _docIdToSVGroupKey mapping is updated.
-   * For MV keys: _docIdToMVGroupKey mapping is updated.
+   * For MV keys: _docIdToMVGroupKeysEnd mapping and _mvGroupKeys buffer are updated.
    *
    * @param docIdSet
    * @param startIndex
@@ -222,7 +277,8 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
    */
   private void generateGroupKeysForDocIdSet(int[] docIdSet, int startIndex, int length) {
     if (_hasMultiValuedColumns) {
-      _groupKeyGenerator.generateKeysForDocIdSet(docIdSet, startIndex, length, _docIdToMVGroupKey);
+      _mvGroupKeys =
+          _groupKeyGenerator.generateKeysForDocIdSet(docIdSet, startIndex, length, _docIdToMVGroupKeysEnd, _mvGroupKeys);
     } else {
       _groupKeyGenerator.generateKeysForDocIdSet(docIdSet, startIndex, length, _docIdToSVGroupKey);
     }
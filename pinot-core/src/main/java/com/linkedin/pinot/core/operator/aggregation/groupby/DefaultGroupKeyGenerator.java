@@ -15,23 +15,33 @@
  */
 package com.linkedin.pinot.core.operator.aggregation.groupby;
 
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.data.TimeGranularitySpec;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockBufferArena;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.BlockMultiValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.DataFetcher;
 import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.DataSourceMetadata;
 import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
-import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByConstants;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.Long2IntMap;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -46,12 +56,21 @@ import java.util.Iterator;
  *
  * If the maximum number of possible group-by keys is larger than the threshold, but still fit into long, generate long
  * type raw keys based on the group-by column dictionary ids, and map the raw keys onto contiguous indices, use the
- * indices as the group key. (LONG_MAP_BASED storage type)
+ * indices as the group key. (LONG_MAP_BASED storage type) The map starts on-heap, and is moved to an off-heap open
+ * addressing table once the number of group keys exceeds a threshold (100K by default).
  *
  * If the maximum number of possible group-by keys cannot fit into long, use int arrays as the raw keys to store all
  * the group-by column dictionary ids, and map the int arrays onto continuous indices, use the indices as the group key.
  * (ARRAY_MAP_BASED storage type)
  *
+ * The number of group keys is capped by a per-query limit (1M by default). Once the limit is reached, the documents of
+ * new groups all get the overflow group key (the limit itself), which is never returned by the group key iterators, and
+ * the result is flagged as partial. The map based storage types are used whenever the cardinality product exceeds the
+ * limit, so that the limit holds for all storage types.
+ *
+ * A group-by column can also be a date time convert expression on the time column, in which case the dictionary ids of
+ * the time column are mapped onto the ids of their time buckets, which are used in place of the dictionary ids.
+ *
  * All the logic is maintained internally, and to the outside world, the group keys are always int type.
  */
 public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
@@ -77,27 +96,70 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   // For multi value columns.
   private final BlockMultiValIterator[] _multiValIterators;
 
+  // For date time convert expressions, mapping from dictionary id to time bucket id, and start of each time bucket.
+  private final int[][] _dictIdToBucketIds;
+  private final long[][] _bucketStarts;
+
   // Reusable arrays for single value columns.
   private final int[][] _reusableSingleDictIds;
-  // Reusable buffer for multi value columns.
-  private final int[] _reusableMultiValDictIdBuffer;
+  // Reusable buffers for multi value columns, holding the values of the current document.
+  private final int[][] _reusableMultiValDictIds;
+  private final int[] _numMultiValues;
+  // Reusable buffer for the dictionary ids of one group key, and the raw key (ARRAY_MAP_BASED) backed by it.
+  private final int[] _reusableDictIds;
+  private final IntArrayList _reusableRawKey;
 
   // For ARRAY_BASED storage type.
   private boolean[] _groupKeyFlags;
   // For LONG_MAP_BASED and ARRAY_MAP_BASED storage type to track the number of group keys.
   private int _numGroupKeys = 0;
-  // For LONG_MAP_BASED storage type.
+  // For LONG_MAP_BASED storage type, the off-heap map replaces the on-heap one past the threshold.
   private Long2IntOpenHashMap _groupKeyToId;
+  private OffHeapLongToIntMap _offHeapGroupKeyToId;
+  private final int _maxOnHeapNumGroups;
   // For ARRAY_MAP_BASED storage type.
   private Object2IntOpenHashMap<IntArrayList> _arrayGroupKeyToId;
 
+  // For LONG_MAP_BASED and ARRAY_MAP_BASED storage type, the limit on the number of group keys, also used as the
+  // overflow group key.
+  private final int _numGroupsLimit;
+  private boolean _numGroupsLimitReached = false;
+
   /**
-   * Constructor for the class. Initializes data members (reusable arrays).
+   * Constructor for the class, with the default number of groups limit.
    *
    * @param dataFetcher data fetcher.
    * @param groupByColumns group-by columns.
    */
   public DefaultGroupKeyGenerator(DataFetcher dataFetcher, String[] groupByColumns) {
+    this(dataFetcher, groupByColumns, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  /**
+   * Constructor for the class, with the default on-heap threshold.
+   *
+   * @param dataFetcher data fetcher.
+   * @param groupByColumns group-by columns.
+   * @param numGroupsLimit maximum number of group keys.
+   */
+  public DefaultGroupKeyGenerator(DataFetcher dataFetcher, String[] groupByColumns, int numGroupsLimit) {
+    this(dataFetcher, groupByColumns, numGroupsLimit, ResultHolderFactory.MAX_ON_HEAP_NUM_GROUPS);
+  }
+
+  /**
+   * Constructor for the class. Initializes data members (reusable arrays).
+   *
+   * @param dataFetcher data fetcher.
+   * @param groupByColumns group-by columns.
+   * @param numGroupsLimit maximum number of group keys.
+   * @param maxOnHeapNumGroups number of group keys past which the LONG_MAP_BASED map moves off-heap.
+   */
+  public DefaultGroupKeyGenerator(DataFetcher dataFetcher, String[] groupByColumns, int numGroupsLimit,
+      int maxOnHeapNumGroups) {
+    Preconditions.checkArgument(numGroupsLimit > 0 && numGroupsLimit <= ResultHolderFactory.MAX_NUM_GROUPS_LIMIT,
+        "Invalid number of groups limit: " + numGroupsLimit);
+    _numGroupsLimit = numGroupsLimit;
+    _maxOnHeapNumGroups = maxOnHeapNumGroups;
     _numGroupByColumns = groupByColumns.length;
     _cardinalities = new int[_numGroupByColumns];
     _isSingleValueGroupByColumn = new boolean[_numGroupByColumns];
@@ -105,16 +167,32 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     _singleBlockValSets = new BlockValSet[_numGroupByColumns];
     _multiValIterators = new BlockMultiValIterator[_numGroupByColumns];
     _reusableSingleDictIds = new int[_numGroupByColumns][];
+    _reusableMultiValDictIds = new int[_numGroupByColumns][];
+    _numMultiValues = new int[_numGroupByColumns];
+    _reusableDictIds = new int[_numGroupByColumns];
+    _reusableRawKey = IntArrayList.wrap(_reusableDictIds);
 
-    // Track the max number of values among all multi value group-by columns.
-    int maxNumMultiValues = 0;
+    _dictIdToBucketIds = new int[_numGroupByColumns][];
+    _bucketStarts = new long[_numGroupByColumns][];
 
     boolean longOverflow = false;
     for (int i = 0; i < _numGroupByColumns; i++) {
-      DataSource dataSource = dataFetcher.getDataSourceForColumn(groupByColumns[i]);
+      String groupByColumn = groupByColumns[i];
+      DateTimeConvertExpression dateTimeConvertExpression = null;
+      if (DateTimeConvertExpression.isDateTimeConvertExpression(groupByColumn)) {
+        dateTimeConvertExpression = DateTimeConvertExpression.fromString(groupByColumn);
+        groupByColumn = dateTimeConvertExpression.getColumn();
+      }
+      DataSource dataSource = dataFetcher.getDataSourceForColumn(groupByColumn);
+      _dictionaries[i] = dataSource.getDictionary();
 
       // Store group-by column cardinalities and update cardinality product.
-      int cardinality = dataSource.getDataSourceMetadata().cardinality();
+      int cardinality;
+      if (dateTimeConvertExpression != null) {
+        cardinality = initTimeBuckets(i, dateTimeConvertExpression, dataSource, dataFetcher.getSegmentMetadata());
+      } else {
+        cardinality = dataSource.getDataSourceMetadata().cardinality();
+      }
       _cardinalities[i] = cardinality;
       if (!longOverflow) {
         if (_cardinalityProduct > Long.MAX_VALUE / cardinality) {
@@ -131,20 +209,15 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
       if (!isSingleValueGroupByColumn) {
         _hasMultiValueGroupByColumn = true;
       }
-      _dictionaries[i] = dataSource.getDictionary();
       Block block = dataSource.nextBlock(BLOCK_ZERO);
       if (isSingleValueGroupByColumn) {
         _singleBlockValSets[i] = block.getBlockValueSet();
-        _reusableSingleDictIds[i] = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
       } else {
-        maxNumMultiValues = Math.max(maxNumMultiValues, block.getMetadata().getMaxNumberOfMultiValues());
+        _reusableMultiValDictIds[i] = new int[block.getMetadata().getMaxNumberOfMultiValues()];
         _multiValIterators[i] = (BlockMultiValIterator) block.getBlockValueSet().iterator();
       }
     }
 
-    // Allocate a big enough buffer for all the multi value group-by columns.
-    _reusableMultiValDictIdBuffer = new int[maxNumMultiValues];
-
     // Decide the storage type based on the over flow flag and cardinality product.
     if (longOverflow) {
       // Array map based storage type.
@@ -152,7 +225,8 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
       _arrayGroupKeyToId = new Object2IntOpenHashMap<>();
       _arrayGroupKeyToId.defaultReturnValue(INVALID_ID);
     } else {
-      if (_cardinalityProduct > ResultHolderFactory.MAX_INITIAL_RESULT_HOLDER_CAPACITY) {
+      if (_cardinalityProduct > ResultHolderFactory.MAX_INITIAL_RESULT_HOLDER_CAPACITY
+          || _cardinalityProduct > numGroupsLimit) {
         // Long map based storage type.
         _storageType = StorageType.LONG_MAP_BASED;
         _groupKeyToId = new Long2IntOpenHashMap();
@@ -170,10 +244,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
    */
   @Override
   public int getGlobalGroupKeyUpperBound() {
-    if (_cardinalityProduct > Integer.MAX_VALUE) {
+    // Leave room for the overflow group key
+    long upperBound = Math.min(_cardinalityProduct, (long) _numGroupsLimit + 1);
+    if (upperBound > Integer.MAX_VALUE) {
       return Integer.MAX_VALUE;
     } else {
-      return (int) _cardinalityProduct;
+      return (int) upperBound;
     }
   }
 
@@ -185,6 +261,118 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     return _hasMultiValueGroupByColumn;
   }
 
+  /**
+   * Get the dictionary id buffer of a single value group-by column, taken from the arena of the current thread on the
+   * first block.
+   *
+   * @param index index of the group-by column.
+   * @return dictionary id buffer.
+   */
+  private int[] getReusableSingleDictIds(int index) {
+    int[] dictIds = _reusableSingleDictIds[index];
+    if (dictIds == null) {
+      dictIds = BlockBufferArena.get().takeIntBuffer();
+      _reusableSingleDictIds[index] = dictIds;
+    }
+    return dictIds;
+  }
+
+  /**
+   * Read the dictionary ids of a single value group-by column for the given document id set into its reusable buffer.
+   * For date time convert expressions, the dictionary ids are replaced with the ids of their time buckets.
+   *
+   * @param index index of the group-by column.
+   * @param docIdSet document id set.
+   * @param startIndex start index.
+   * @param length length.
+   */
+  private void readSingleDictIds(int index, int[] docIdSet, int startIndex, int length) {
+    int[] dictIds = getReusableSingleDictIds(index);
+    _singleBlockValSets[index].readIntValues(docIdSet, startIndex, length, dictIds, 0);
+    int[] dictIdToBucketId = _dictIdToBucketIds[index];
+    if (dictIdToBucketId != null) {
+      for (int i = 0; i < length; i++) {
+        dictIds[i] = dictIdToBucketId[dictIds[i]];
+      }
+    }
+  }
+
+  /**
+   * Helper function to map the dictionary ids of the time column onto dense time bucket ids for a date time convert
+   * expression. Bucket ids are assigned in order of first appearance, so this also works for the unsorted dictionaries
+   * of realtime segments.
+   *
+   * @param index index of the group-by column.
+   * @param expression date time convert expression.
+   * @param dataSource data source of the time column.
+   * @param segmentMetadata segment metadata.
+   * @return number of time buckets, used as the cardinality of the group-by column.
+   */
+  private int initTimeBuckets(int index, DateTimeConvertExpression expression, DataSource dataSource,
+      SegmentMetadata segmentMetadata) {
+    String column = expression.getColumn();
+    TimeFieldSpec timeFieldSpec = segmentMetadata.getSchema().getTimeFieldSpec();
+    Preconditions.checkArgument(timeFieldSpec != null && column.equals(timeFieldSpec.getOutGoingTimeColumnName()),
+        DateTimeConvertExpression.FUNCTION_NAME + " can only be applied on the time column, got: " + column);
+    DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
+    Preconditions.checkArgument(
+        dataSourceMetadata.isSingleValue() && dataSourceMetadata.getDataType() != FieldSpec.DataType.STRING,
+        DateTimeConvertExpression.FUNCTION_NAME + " requires a single value numeric time column, got: " + column);
+    TimeGranularitySpec granularitySpec = timeFieldSpec.getOutgoingGranularitySpec();
+    int timeUnitSize = granularitySpec.getTimeunitSize();
+    TimeUnit timeUnit = granularitySpec.getTimeType();
+
+    Dictionary dictionary = _dictionaries[index];
+    int cardinality = dictionary.length();
+    int[] dictIdToBucketId = new int[cardinality];
+    LongArrayList bucketStarts = new LongArrayList();
+    Long2IntOpenHashMap bucketStartToBucketId = new Long2IntOpenHashMap();
+    bucketStartToBucketId.defaultReturnValue(INVALID_ID);
+    for (int dictId = 0; dictId < cardinality; dictId++) {
+      long bucketStart = expression.getBucketStart(dictionary.getLongValue(dictId), timeUnitSize, timeUnit);
+      int bucketId = bucketStartToBucketId.get(bucketStart);
+      if (bucketId == INVALID_ID) {
+        bucketId = bucketStarts.size();
+        bucketStartToBucketId.put(bucketStart, bucketId);
+        bucketStarts.add(bucketStart);
+      }
+      dictIdToBucketId[dictId] = bucketId;
+    }
+    _dictIdToBucketIds[index] = dictIdToBucketId;
+    _bucketStarts[index] = bucketStarts.toLongArray();
+    return bucketStarts.size();
+  }
+
+  /**
+   * Helper function to get the string value of a group-by column for a dictionary id (or a time bucket id for date
+   * time convert expressions).
+   *
+   * @param index index of the group-by column.
+   * @param id dictionary id or time bucket id.
+   * @return string value.
+   */
+  private String getStringValue(int index, int id) {
+    long[] bucketStarts = _bucketStarts[index];
+    if (bucketStarts != null) {
+      return Long.toString(bucketStarts[id]);
+    }
+    return _dictionaries[index].get(id).toString();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void releaseBuffers() {
+    BlockBufferArena arena = BlockBufferArena.get();
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      if (_reusableSingleDictIds[i] != null) {
+        arena.returnIntBuffer(_reusableSingleDictIds[i]);
+        _reusableSingleDictIds[i] = null;
+      }
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -192,7 +380,7 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   public void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[] docIdToGroupKey) {
     // Fetch all dictionary ids according to the document id set for all group-by columns.
     for (int i = 0; i < _numGroupByColumns; i++) {
-      _singleBlockValSets[i].readIntValues(docIdSet, startIndex, length, _reusableSingleDictIds[i], 0);
+      readSingleDictIds(i, docIdSet, startIndex, length);
     }
 
     // Calculate the group key and store it into the result buffer.
@@ -238,39 +426,42 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
    * {@inheritDoc}
    */
   @Override
-  public void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[][] docIdToGroupKeys) {
+  public int[] generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[] docIdToGroupKeysEnd,
+      int[] groupKeys) {
     // Fetch all dictionary ids according to the document id set for all single value group-by columns.
     for (int i = 0; i < _numGroupByColumns; i++) {
       if (_isSingleValueGroupByColumn[i]) {
-        _singleBlockValSets[i].readIntValues(docIdSet, startIndex, length, _reusableSingleDictIds[i], 0);
+        readSingleDictIds(i, docIdSet, startIndex, length);
       }
     }
 
-    // Calculate the group keys(int[]) and store it into the result buffer.
+    // Calculate the group keys of each document and append them to the group keys buffer.
+    int numGroupKeys = 0;
     int outIndex = 0;
     int endIndex = startIndex + length;
-    switch (_storageType) {
-      case ARRAY_BASED:
-        for (int i = startIndex; i < endIndex; i++) {
-          docIdToGroupKeys[outIndex] = generateKeysForDocIdArrayBased(outIndex, docIdSet[i]);
-          outIndex++;
-        }
-        break;
-      case LONG_MAP_BASED:
-        for (int i = startIndex; i < endIndex; i++) {
-          docIdToGroupKeys[outIndex] = generateKeysForDocIdLongMapBased(outIndex, docIdSet[i]);
-          outIndex++;
-        }
-        break;
-      case ARRAY_MAP_BASED:
-        for (int i = startIndex; i < endIndex; i++) {
-          docIdToGroupKeys[outIndex] = generateKeysForDocIdArrayMapBased(outIndex, docIdSet[i]);
-          outIndex++;
-        }
-        break;
-      default:
-        throw new RuntimeException("Unsupported storage type.");
+    for (int i = startIndex; i < endIndex; i++) {
+      int numGroupKeysForDocId = readMultiValues(docIdSet[i]);
+      int groupKeysEnd = numGroupKeys + numGroupKeysForDocId;
+      if (groupKeysEnd > groupKeys.length) {
+        groupKeys = Arrays.copyOf(groupKeys, Math.max(groupKeysEnd, 2 * groupKeys.length));
+      }
+      switch (_storageType) {
+        case ARRAY_BASED:
+          generateKeysForDocIdArrayBased(outIndex, numGroupKeysForDocId, groupKeys, numGroupKeys);
+          break;
+        case LONG_MAP_BASED:
+          generateKeysForDocIdLongMapBased(outIndex, numGroupKeysForDocId, groupKeys, numGroupKeys);
+          break;
+        case ARRAY_MAP_BASED:
+          generateKeysForDocIdArrayMapBased(outIndex, numGroupKeysForDocId, groupKeys, numGroupKeys);
+          break;
+        default:
+          throw new RuntimeException("Unsupported storage type.");
+      }
+      numGroupKeys = groupKeysEnd;
+      docIdToGroupKeysEnd[outIndex++] = groupKeysEnd;
     }
+    return groupKeys;
   }
 
   /**
@@ -280,6 +471,9 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   public int getCurrentGroupKeyUpperBound() {
     if (_storageType == StorageType.ARRAY_BASED) {
       return (int) _cardinalityProduct;
+    } else if (_numGroupsLimitReached) {
+      // The overflow group key is in use
+      return _numGroupsLimit + 1;
     } else {
       return _numGroupKeys;
     }
@@ -294,6 +488,9 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
       case ARRAY_BASED:
         return new ArrayBasedGroupKeyIterator();
       case LONG_MAP_BASED:
+        if (_offHeapGroupKeyToId != null) {
+          return new OffHeapLongMapBasedGroupKeyIterator();
+        }
         return new LongMapBasedGroupKeyIterator();
       case ARRAY_MAP_BASED:
         return new ArrayMapBasedGroupKeyIterator();
@@ -302,23 +499,77 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isNumGroupsLimitReached() {
+    return _numGroupsLimitReached;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (_offHeapGroupKeyToId != null) {
+      _offHeapGroupKeyToId.close();
+      _offHeapGroupKeyToId = null;
+    }
+  }
+
   /**
    * Helper function to get the group key associated to the long type raw key. If there is no one, generate a new group
-   * key for this raw key and put them into the map.
+   * key for this raw key and put them into the map, or return the overflow group key if the number of groups limit is
+   * reached.
    * (LONG_MAP_BASED storage type)
    *
    * @param rawKey raw key.
    * @return group key.
    */
   private int updateRawKeyToGroupKeyMapping(long rawKey) {
+    if (_offHeapGroupKeyToId != null) {
+      int groupKey = _offHeapGroupKeyToId.get(rawKey);
+      if (groupKey == INVALID_ID) {
+        if (_numGroupKeys == _numGroupsLimit) {
+          _numGroupsLimitReached = true;
+          return _numGroupsLimit;
+        }
+        groupKey = _numGroupKeys++;
+        _offHeapGroupKeyToId.put(rawKey, groupKey);
+      }
+      return groupKey;
+    }
+
     int groupKey = _groupKeyToId.get(rawKey);
     if (groupKey == INVALID_ID) {
+      if (_numGroupKeys == _numGroupsLimit) {
+        _numGroupsLimitReached = true;
+        return _numGroupsLimit;
+      }
       groupKey = _numGroupKeys++;
       _groupKeyToId.put(rawKey, groupKey);
+      if (_numGroupKeys > _maxOnHeapNumGroups) {
+        moveGroupKeysOffHeap();
+      }
     }
     return groupKey;
   }
 
+  /**
+   * Helper function to move the raw key to group key mapping from the on-heap map to an off-heap one.
+   * (LONG_MAP_BASED storage type)
+   */
+  private void moveGroupKeysOffHeap() {
+    _offHeapGroupKeyToId = new OffHeapLongToIntMap(2 * _numGroupKeys, INVALID_ID);
+    ObjectIterator<Long2IntMap.Entry> iterator = _groupKeyToId.long2IntEntrySet().fastIterator();
+    while (iterator.hasNext()) {
+      Long2IntMap.Entry entry = iterator.next();
+      _offHeapGroupKeyToId.put(entry.getLongKey(), entry.getIntValue());
+    }
+    _groupKeyToId = null;
+  }
+
   /**
    * Helper function to get the group key associated to the IntArrayList type raw key. If there is no one, generate a
    * new group key for this raw key and put them into the map.
@@ -330,6 +581,10 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private int updateRawKeyToGroupKeyMapping(IntArrayList rawKey) {
     int groupKey = _arrayGroupKeyToId.getInt(rawKey);
     if (groupKey == INVALID_ID) {
+      if (_numGroupKeys == _numGroupsLimit) {
+        _numGroupsLimitReached = true;
+        return _numGroupsLimit;
+      }
       groupKey = _numGroupKeys++;
       _arrayGroupKeyToId.put(rawKey, groupKey);
     }
@@ -337,156 +592,114 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   }
 
   /**
-   * Helper function to generate group keys (int[]) according to the document id. This method should only be called when
-   * there are multi value group-by columns.
-   * (ARRAY_BASED storage type)
+   * Helper function to read the values of all the multi value group-by columns for the given document. The group keys
+   * of the document are all the combinations of these values.
    *
-   * @param index index of the docIdSet.
    * @param docId document id.
-   * @return group keys.
+   * @return number of group keys of the document.
    */
-  private int[] generateKeysForDocIdArrayBased(int index, int docId) {
-    int[] groupKeys = {0};
-    int length = 1;
+  private int readMultiValues(int docId) {
+    int numGroupKeys = 1;
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      if (!_isSingleValueGroupByColumn[i]) {
+        BlockMultiValIterator blockValIterator = _multiValIterators[i];
+        blockValIterator.skipTo(docId);
+        int numMultiValues = blockValIterator.nextIntVal(_reusableMultiValDictIds[i]);
+        _numMultiValues[i] = numMultiValues;
+        numGroupKeys *= numMultiValues;
+      }
+    }
+    return numGroupKeys;
+  }
 
-    for (int i = _numGroupByColumns - 1; i >= 0; i--) {
-      int cardinality = _cardinalities[i];
+  /**
+   * Helper function to fill the reusable dictionary id buffer with the dictionary ids of one of the group keys of the
+   * current document. The combination index is decoded into one value index per multi value group-by column.
+   *
+   * @param index index of the docIdSet.
+   * @param combination index of the group key among the group keys of the document.
+   */
+  private void fillDictIds(int index, int combination) {
+    for (int i = 0; i < _numGroupByColumns; i++) {
       if (_isSingleValueGroupByColumn[i]) {
-        int dictId = _reusableSingleDictIds[i][index];
-        for (int j = 0; j < length; j++) {
-          groupKeys[j] = groupKeys[j] * cardinality + dictId;
-        }
+        _reusableDictIds[i] = _reusableSingleDictIds[i][index];
       } else {
-        BlockMultiValIterator blockValIterator = _multiValIterators[i];
-        blockValIterator.skipTo(docId);
-        int numMultiValues = blockValIterator.nextIntVal(_reusableMultiValDictIdBuffer);
-
-        int oldLength = length;
-        length *= numMultiValues;
-        int[] oldGroupKeys = groupKeys;
-        groupKeys = new int[length];
-        for (int j = 0; j < numMultiValues; j++) {
-          System.arraycopy(oldGroupKeys, 0, groupKeys, j * oldLength, oldLength);
-        }
-        for (int j = 0; j < numMultiValues; j++) {
-          int dictId = _reusableMultiValDictIdBuffer[j];
-          int offset = j * oldLength;
-          for (int k = 0; k < oldLength; k++) {
-            int idx = offset + k;
-            groupKeys[idx] = groupKeys[idx] * cardinality + dictId;
-          }
-        }
+        int numMultiValues = _numMultiValues[i];
+        _reusableDictIds[i] = _reusableMultiValDictIds[i][combination % numMultiValues];
+        combination /= numMultiValues;
       }
     }
+  }
 
-    for (int groupKey : groupKeys) {
+  /**
+   * Helper function to generate the group keys of the current document into the group keys buffer. This method should
+   * only be called when there are multi value group-by columns.
+   * (ARRAY_BASED storage type)
+   *
+   * @param index index of the docIdSet.
+   * @param numGroupKeys number of group keys of the document.
+   * @param groupKeys group keys buffer.
+   * @param outIndex index of the first group key of the document in the group keys buffer.
+   */
+  private void generateKeysForDocIdArrayBased(int index, int numGroupKeys, int[] groupKeys, int outIndex) {
+    for (int i = 0; i < numGroupKeys; i++) {
+      fillDictIds(index, i);
+      int groupKey = 0;
+      for (int j = _numGroupByColumns - 1; j >= 0; j--) {
+        groupKey = groupKey * _cardinalities[j] + _reusableDictIds[j];
+      }
+      groupKeys[outIndex++] = groupKey;
       _groupKeyFlags[groupKey] = true;
     }
-    return groupKeys;
   }
 
   /**
-   * Helper function to generate group keys (int[]) according to the document id. This method should only be called when
-   * there are multi value group-by columns.
+   * Helper function to generate the group keys of the current document into the group keys buffer. This method should
+   * only be called when there are multi value group-by columns.
    * (LONG_MAP_BASED storage type)
    *
    * @param index index of the docIdSet.
-   * @param docId document id.
-   * @return group keys.
+   * @param numGroupKeys number of group keys of the document.
+   * @param groupKeys group keys buffer.
+   * @param outIndex index of the first group key of the document in the group keys buffer.
    */
-  private int[] generateKeysForDocIdLongMapBased(int index, int docId) {
-    long[] rawKeys = {0L};
-    int length = 1;
-
-    for (int i = _numGroupByColumns - 1; i >= 0; i--) {
-      long cardinality = _cardinalities[i];
-      if (_isSingleValueGroupByColumn[i]) {
-        long dictId = _reusableSingleDictIds[i][index];
-        for (int j = 0; j < length; j++) {
-          rawKeys[j] = rawKeys[j] * cardinality + dictId;
-        }
-      } else {
-        BlockMultiValIterator blockValIterator = _multiValIterators[i];
-        blockValIterator.skipTo(docId);
-        int numMultiValues = blockValIterator.nextIntVal(_reusableMultiValDictIdBuffer);
-
-        int oldLength = length;
-        length *= numMultiValues;
-        long[] oldRawKeys = rawKeys;
-        rawKeys = new long[length];
-        for (int j = 0; j < numMultiValues; j++) {
-          System.arraycopy(oldRawKeys, 0, rawKeys, j * oldLength, oldLength);
-        }
-        for (int j = 0; j < numMultiValues; j++) {
-          long dictId = _reusableMultiValDictIdBuffer[j];
-          int offset = j * oldLength;
-          for (int k = 0; k < oldLength; k++) {
-            int idx = offset + k;
-            rawKeys[idx] = rawKeys[idx] * cardinality + dictId;
-          }
-        }
+  private void generateKeysForDocIdLongMapBased(int index, int numGroupKeys, int[] groupKeys, int outIndex) {
+    for (int i = 0; i < numGroupKeys; i++) {
+      fillDictIds(index, i);
+      long rawKey = 0L;
+      for (int j = _numGroupByColumns - 1; j >= 0; j--) {
+        rawKey = rawKey * _cardinalities[j] + _reusableDictIds[j];
       }
+      groupKeys[outIndex++] = updateRawKeyToGroupKeyMapping(rawKey);
     }
-
-    int[] groupKeys = new int[length];
-    for (int i = 0; i < length; i++) {
-      groupKeys[i] = updateRawKeyToGroupKeyMapping(rawKeys[i]);
-    }
-    return groupKeys;
   }
 
   /**
-   * Helper function to generate group keys (int[]) according to the document id. This method should only be called when
-   * there are multi value group-by columns.
+   * Helper function to generate the group keys of the current document into the group keys buffer. This method should
+   * only be called when there are multi value group-by columns. The reusable raw key is only copied when a new group
+   * key is generated.
    * (ARRAY_MAP_BASED storage type)
    *
    * @param index index of the docIdSet.
-   * @param docId document id.
-   * @return group keys.
+   * @param numGroupKeys number of group keys of the document.
+   * @param groupKeys group keys buffer.
+   * @param outIndex index of the first group key of the document in the group keys buffer.
    */
-  private int[] generateKeysForDocIdArrayMapBased(int index, int docId) {
-    IntArrayList[] rawKeys = {new IntArrayList(_numGroupByColumns)};
-    rawKeys[0].size(_numGroupByColumns);
-    int length = 1;
-
-    for (int i = 0; i < _numGroupByColumns; i++) {
-      if (_isSingleValueGroupByColumn[i]) {
-        int dictId = _reusableSingleDictIds[i][index];
-        for (IntArrayList rawKey : rawKeys) {
-          rawKey.elements()[i] = dictId;
-        }
-      } else {
-        BlockMultiValIterator blockValIterator = _multiValIterators[i];
-        blockValIterator.skipTo(docId);
-        int numMultiValues = blockValIterator.nextIntVal(_reusableMultiValDictIdBuffer);
-
-        int oldLength = length;
-        length *= numMultiValues;
-        IntArrayList[] oldRawKeys = rawKeys;
-        rawKeys = new IntArrayList[length];
-        System.arraycopy(oldRawKeys, 0, rawKeys, 0, oldLength);
-        for (int j = 1; j < numMultiValues; j++) {
-          int offset = j * oldLength;
-          for (int k = 0; k < oldLength; k++) {
-            rawKeys[offset + k] = new IntArrayList(oldRawKeys[k].elements());
-          }
-        }
-        for (int j = 0; j < numMultiValues; j++) {
-          int dictId = _reusableMultiValDictIdBuffer[j];
-          int offset = j * oldLength;
-          for (int k = 0; k < oldLength; k++) {
-            int idx = offset + k;
-            rawKeys[idx].elements()[i] = dictId;
-          }
+  private void generateKeysForDocIdArrayMapBased(int index, int numGroupKeys, int[] groupKeys, int outIndex) {
+    for (int i = 0; i < numGroupKeys; i++) {
+      fillDictIds(index, i);
+      int groupKey = _arrayGroupKeyToId.getInt(_reusableRawKey);
+      if (groupKey == INVALID_ID) {
+        if (_numGroupKeys == _numGroupsLimit) {
+          _numGroupsLimitReached = true;
+          groupKey = _numGroupsLimit;
+        } else {
+          groupKey = _numGroupKeys++;
+          _arrayGroupKeyToId.put(new IntArrayList(_reusableDictIds), groupKey);
         }
       }
+      groupKeys[outIndex++] = groupKey;
     }
-
-    int[] groupKeys = new int[length];
-    for (int i = 0; i < length; i++) {
-      groupKeys[i] = updateRawKeyToGroupKeyMapping(rawKeys[i]);
-    }
-    return groupKeys;
   }
 
   /**
@@ -550,6 +763,34 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * Inner class to implement group by keys iterator for LONG_MAP_BASED storage moved off-heap.
+   */
+  private class OffHeapLongMapBasedGroupKeyIterator implements Iterator<GroupKey> {
+    final OffHeapLongToIntMap _map = _offHeapGroupKeyToId;
+    int _slot = _map.nextSlot(0);
+    final GroupKey _groupKey = new GroupKey(INVALID_ID, null);
+
+    @Override
+    public boolean hasNext() {
+      return _slot >= 0;
+    }
+
+    @Override
+    public GroupKey next() {
+      String stringGroupKey = rawKeyToStringGroupKey(_map.getKeyAt(_slot));
+      _groupKey.setFirst(_map.getValueAt(_slot));
+      _groupKey.setSecond(stringGroupKey);
+      _slot = _map.nextSlot(_slot + 1);
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   /**
    * Inner class to implement group by keys iterator for ARRAY_MAP_BASED storage.
    */
@@ -590,16 +831,16 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private String groupKeyToStringGroupKey(int groupKey) {
     if (_numGroupByColumns == 1) {
       // Special case one group-by column for performance.
-      return _dictionaries[0].get(groupKey).toString();
+      return getStringValue(0, groupKey);
     } else {
       // Decode the group key.
       int cardinality = _cardinalities[0];
-      StringBuilder builder = new StringBuilder(_dictionaries[0].get(groupKey % cardinality).toString());
+      StringBuilder builder = new StringBuilder(getStringValue(0, groupKey % cardinality));
       groupKey /= cardinality;
       for (int i = 1; i < _numGroupByColumns; i++) {
         builder.append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter);
         cardinality = _cardinalities[i];
-        builder.append(_dictionaries[i].get(groupKey % cardinality));
+        builder.append(getStringValue(i, groupKey % cardinality));
         groupKey /= cardinality;
       }
       return builder.toString();
@@ -617,16 +858,16 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private String rawKeyToStringGroupKey(long rawKey) {
     if (_numGroupByColumns == 1) {
       // Special case one group-by column for performance.
-      return _dictionaries[0].get((int) rawKey).toString();
+      return getStringValue(0, (int) rawKey);
     } else {
       // Decode the raw key.
       int cardinality = _cardinalities[0];
-      StringBuilder builder = new StringBuilder(_dictionaries[0].get((int) (rawKey % cardinality)).toString());
+      StringBuilder builder = new StringBuilder(getStringValue(0, (int) (rawKey % cardinality)));
       rawKey /= cardinality;
       for (int i = 1; i < _numGroupByColumns; i++) {
         builder.append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter);
         cardinality = _cardinalities[i];
-        builder.append(_dictionaries[i].get((int) (rawKey % cardinality)));
+        builder.append(getStringValue(i, (int) (rawKey % cardinality)));
         rawKey /= cardinality;
       }
       return builder.toString();
@@ -643,10 +884,10 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
    */
   private String rawKeyToStringGroupKey(IntArrayList rawKey) {
     int[] rawKeyArray = rawKey.elements();
-    StringBuilder builder = new StringBuilder(_dictionaries[0].get(rawKeyArray[0]).toString());
+    StringBuilder builder = new StringBuilder(getStringValue(0, rawKeyArray[0]));
     for (int i = 1; i < _numGroupByColumns; i++) {
       builder.append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter);
-      builder.append(_dictionaries[i].get(rawKeyArray[i]).toString());
+      builder.append(getStringValue(i, rawKeyArray[i]));
     }
     return builder.toString();
   }
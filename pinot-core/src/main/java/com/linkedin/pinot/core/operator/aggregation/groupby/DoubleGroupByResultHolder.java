@@ -16,30 +16,51 @@
 package com.linkedin.pinot.core.operator.aggregation.groupby;
 
 import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.util.Arrays;
 
 
 /**
- * Result Holder implemented using DoubleArray.
+ * Result Holder implemented using DoubleArray, moved to an off-heap buffer once its capacity grows past a threshold.
  */
 public class DoubleGroupByResultHolder implements GroupByResultHolder {
+  private static final int DOUBLE_SIZE = 8;
+
   private double[] _resultArray;
+  // Replaces the result array once moved off-heap.
+  private PinotDataBuffer _resultBuffer;
   private final double _defaultValue;
 
   private int _resultHolderCapacity;
   private final int _maxCapacity;
+  private final int _maxOnHeapCapacity;
 
   /**
-   * Constructor for the class.
+   * Constructor for the class, for a result holder that always stays on-heap.
    *
    * @param initialCapacity
    * @param maxCapacity
    * @param defaultValue
    */
   public DoubleGroupByResultHolder(int initialCapacity, int maxCapacity, double defaultValue) {
+    this(initialCapacity, maxCapacity, Integer.MAX_VALUE, defaultValue);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param initialCapacity
+   * @param maxCapacity
+   * @param maxOnHeapCapacity capacity past which the results move off-heap
+   * @param defaultValue
+   */
+  public DoubleGroupByResultHolder(int initialCapacity, int maxCapacity, int maxOnHeapCapacity,
+      double defaultValue) {
+    Preconditions.checkArgument(initialCapacity <= maxOnHeapCapacity);
     _resultHolderCapacity = initialCapacity;
     _defaultValue = defaultValue;
     _maxCapacity = maxCapacity;
+    _maxOnHeapCapacity = maxOnHeapCapacity;
 
     _resultArray = new double[initialCapacity];
     if (defaultValue != 0.0) {
@@ -63,6 +84,11 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
       // Cap the growth to maximum possible number of group keys
       _resultHolderCapacity = Math.min(_resultHolderCapacity, _maxCapacity);
 
+      if (_resultHolderCapacity > _maxOnHeapCapacity) {
+        growOffHeap(copyLength);
+        return;
+      }
+
       double[] current = _resultArray;
       _resultArray = new double[_resultHolderCapacity];
       System.arraycopy(current, 0, _resultArray, 0, copyLength);
@@ -73,6 +99,33 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
     }
   }
 
+  /**
+   * Helper method to move the results into a larger off-heap buffer.
+   *
+   * @param copyLength number of results to copy
+   */
+  private void growOffHeap(int copyLength) {
+    // Results are addressed with int byte offsets
+    Preconditions.checkState(_resultHolderCapacity <= Integer.MAX_VALUE / DOUBLE_SIZE,
+        "Too many group keys for off-heap results: " + _resultHolderCapacity);
+    PinotDataBuffer buffer = PinotDataBuffer.allocateDirect((long) _resultHolderCapacity * DOUBLE_SIZE);
+    if (_resultBuffer == null) {
+      for (int i = 0; i < copyLength; i++) {
+        buffer.putDouble(i * DOUBLE_SIZE, _resultArray[i]);
+      }
+      _resultArray = null;
+    } else {
+      for (int i = 0; i < copyLength; i++) {
+        buffer.putDouble(i * DOUBLE_SIZE, _resultBuffer.getDouble(i * DOUBLE_SIZE));
+      }
+      _resultBuffer.close();
+    }
+    for (int i = copyLength; i < _resultHolderCapacity; i++) {
+      buffer.putDouble(i * DOUBLE_SIZE, _defaultValue);
+    }
+    _resultBuffer = buffer;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -85,6 +138,9 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
    */
   @Override
   public double getDoubleResult(int groupKey) {
+    if (_resultBuffer != null) {
+      return _resultBuffer.getDouble(groupKey * DOUBLE_SIZE);
+    }
     return _resultArray[groupKey];
   }
 
@@ -102,7 +158,11 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
    */
   @Override
   public void setValueForKey(int groupKey, double newValue) {
-    _resultArray[groupKey] = newValue;
+    if (_resultBuffer != null) {
+      _resultBuffer.putDouble(groupKey * DOUBLE_SIZE, newValue);
+    } else {
+      _resultArray[groupKey] = newValue;
+    }
   }
 
   @Override
@@ -110,4 +170,15 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
     throw new RuntimeException(
         "Unsupported method 'setValueForKey' (with Object param) for class " + getClass().getName());
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (_resultBuffer != null) {
+      _resultBuffer.close();
+      _resultBuffer = null;
+    }
+  }
 }
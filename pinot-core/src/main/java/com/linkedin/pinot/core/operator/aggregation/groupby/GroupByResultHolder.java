@@ -65,4 +65,9 @@ public interface GroupByResultHolder {
    * @param capacity
    */
   void ensureCapacity(int capacity);
+
+  /**
+   * Release the off-heap storage of the results, if any. The results cannot be read afterwards.
+   */
+  void close();
 }
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.operator.aggregation.groupby;
 
+import com.linkedin.pinot.core.common.BlockBufferArena;
 import com.linkedin.pinot.core.query.utils.Pair;
 import java.util.Iterator;
 
@@ -52,16 +53,28 @@ public interface GroupKeyGenerator {
   void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[] docIdToGroupKey);
 
   /**
-   * Generate group keys for the given docId set and return a mapping from docId to group keys(int[]) in the passed in
-   * docIdToGroupKeys array.
+   * Generate group keys for the given docId set and return them in the passed in groupKeys buffer, the group keys of
+   * each docId following the ones of the previous docId. The end (exclusive) of the group keys of each docId in the
+   * groupKeys buffer is returned in the passed in docIdToGroupKeysEnd array, the group keys of the first docId start
+   * at 0.
    * This interface is for situation where at least one group-by columns are multi valued.
    *
    * @param docIdSet document id set.
    * @param startIndex start index.
    * @param length length.
-   * @param docIdToGroupKeys buffer to return the results.
+   * @param docIdToGroupKeysEnd buffer to return the end of the group keys of each docId.
+   * @param groupKeys buffer to return the group keys.
+   * @return buffer holding the group keys, a larger copy of the passed in groupKeys buffer if it is too small.
    */
-  void generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[][] docIdToGroupKeys);
+  int[] generateKeysForDocIdSet(int[] docIdSet, int startIndex, int length, int[] docIdToGroupKeysEnd,
+      int[] groupKeys);
+
+  /**
+   * Return the reusable buffers taken from the {@link BlockBufferArena} of the current thread while generating group
+   * keys. Must be called on the same thread once all the blocks of the segment are processed, the generated group keys
+   * are still available afterwards.
+   */
+  void releaseBuffers();
 
   /**
    * Get the current upper bound of the group key. All group keys already generated should be less than this value. This
@@ -79,6 +92,21 @@ public interface GroupKeyGenerator {
    */
   Iterator<GroupKey> getUniqueGroupKeys();
 
+  /**
+   * Return whether the number of groups limit was reached, in which case the documents of the groups beyond the limit
+   * were given an overflow group key that is never returned by {@link #getUniqueGroupKeys()}, and the group keys only
+   * cover part of the documents.
+   *
+   * @return whether the number of groups limit was reached.
+   */
+  boolean isNumGroupsLimitReached();
+
+  /**
+   * Release the off-heap storage of the group keys, if any. Must be called once the group keys are no longer needed,
+   * the group keys cannot be iterated afterwards.
+   */
+  void close();
+
   /**
    * This class encapsulates the integer group key and the string group key.
    */
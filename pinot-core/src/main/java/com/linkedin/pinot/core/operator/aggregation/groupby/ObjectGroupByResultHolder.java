@@ -98,4 +98,13 @@ public class ObjectGroupByResultHolder implements GroupByResultHolder {
   public void setValueForKey(int groupKey, Object newValue) {
     _resultArray[groupKey] = newValue;
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Object results always stay on-heap.
+   */
+  @Override
+  public void close() {
+  }
 }
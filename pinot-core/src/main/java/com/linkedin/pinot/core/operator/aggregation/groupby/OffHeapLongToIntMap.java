@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.aggregation.groupby;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+
+
+/**
+ * Off-heap hash map from long raw group keys to int group keys, used by {@link DefaultGroupKeyGenerator} once the
+ * number of group keys outgrows the on-heap map. Uses open addressing with linear probing, each slot holds the raw key
+ * and its value plus one, so that a zero marks an empty slot. Values must be non-negative. The table is doubled when it
+ * gets more than half full.
+ */
+public class OffHeapLongToIntMap implements Closeable {
+  private static final int SLOT_SIZE = 12;
+  private static final int VALUE_OFFSET = 8;
+  // Keep the table addressable with int offsets
+  private static final int MAX_NUM_SLOTS = Integer.highestOneBit(Integer.MAX_VALUE / SLOT_SIZE);
+  // Maximum number of entries, as the table is at most half full
+  public static final int MAX_SIZE = MAX_NUM_SLOTS / 2;
+
+  private final int _defaultReturnValue;
+  private PinotDataBuffer _buffer;
+  private int _numSlots;
+  private int _mask;
+  private int _size = 0;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param expectedSize expected number of entries.
+   * @param defaultReturnValue value returned by {@link #get(long)} for absent keys.
+   */
+  public OffHeapLongToIntMap(int expectedSize, int defaultReturnValue) {
+    _defaultReturnValue = defaultReturnValue;
+    allocate(Math.min(Integer.highestOneBit(Math.max(2 * expectedSize - 1, 1)) << 1, MAX_NUM_SLOTS));
+  }
+
+  private void allocate(int numSlots) {
+    _numSlots = numSlots;
+    _mask = numSlots - 1;
+    _buffer = PinotDataBuffer.allocateDirect(numSlots * SLOT_SIZE);
+    for (int slot = 0; slot < numSlots; slot++) {
+      _buffer.putInt(slot * SLOT_SIZE + VALUE_OFFSET, 0);
+    }
+  }
+
+  /**
+   * Returns the value of the given key, or the default return value if absent.
+   */
+  public int get(long key) {
+    int slot = hash(key) & _mask;
+    while (true) {
+      int valuePlusOne = _buffer.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+      if (valuePlusOne == 0) {
+        return _defaultReturnValue;
+      }
+      if (_buffer.getLong(slot * SLOT_SIZE) == key) {
+        return valuePlusOne - 1;
+      }
+      slot = (slot + 1) & _mask;
+    }
+  }
+
+  /**
+   * Puts the given non-negative value for the given key, replacing any previous value.
+   */
+  public void put(long key, int value) {
+    Preconditions.checkArgument(value >= 0);
+    if (2 * (_size + 1) > _numSlots) {
+      Preconditions.checkState(_numSlots < MAX_NUM_SLOTS, "Too many entries in off-heap map: " + _size);
+      rehash();
+    }
+    if (putIntoSlot(key, value + 1)) {
+      _size++;
+    }
+  }
+
+  /**
+   * Returns true if a new slot was taken.
+   */
+  private boolean putIntoSlot(long key, int valuePlusOne) {
+    int slot = hash(key) & _mask;
+    while (true) {
+      int offset = slot * SLOT_SIZE;
+      if (_buffer.getInt(offset + VALUE_OFFSET) == 0) {
+        _buffer.putLong(offset, key);
+        _buffer.putInt(offset + VALUE_OFFSET, valuePlusOne);
+        return true;
+      }
+      if (_buffer.getLong(offset) == key) {
+        _buffer.putInt(offset + VALUE_OFFSET, valuePlusOne);
+        return false;
+      }
+      slot = (slot + 1) & _mask;
+    }
+  }
+
+  private void rehash() {
+    PinotDataBuffer oldBuffer = _buffer;
+    int oldNumSlots = _numSlots;
+    allocate(oldNumSlots << 1);
+    for (int slot = 0; slot < oldNumSlots; slot++) {
+      int valuePlusOne = oldBuffer.getInt(slot * SLOT_SIZE + VALUE_OFFSET);
+      if (valuePlusOne != 0) {
+        putIntoSlot(oldBuffer.getLong(slot * SLOT_SIZE), valuePlusOne);
+      }
+    }
+    oldBuffer.close();
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * Returns the first slot holding an entry at or after the given slot, or -1 if there is none. Iterate over the
+   * entries with {@code for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1))}.
+   */
+  public int nextSlot(int fromSlot) {
+    for (int slot = fromSlot; slot < _numSlots; slot++) {
+      if (_buffer.getInt(slot * SLOT_SIZE + VALUE_OFFSET) != 0) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  public long getKeyAt(int slot) {
+    return _buffer.getLong(slot * SLOT_SIZE);
+  }
+
+  public int getValueAt(int slot) {
+    return _buffer.getInt(slot * SLOT_SIZE + VALUE_OFFSET) - 1;
+  }
+
+  private static int hash(long key) {
+    // Spread the bits of the key, as raw keys are dense
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  @Override
+  public void close() {
+    if (_buffer != null) {
+      _buffer.close();
+      _buffer = null;
+    }
+  }
+}
@@ -54,6 +54,7 @@ public class IntermediateResultsBlock implements Block {
   private List<ResponseStatistics> _segmentStatistics;
   private long _timeUsedMs;
   private long _totalRawDocs;
+  private boolean _numGroupsLimitReached;
   private List<Map<String, Serializable>> _aggregationGroupByOperatorResult;
   private AggregationGroupByResult _aggregationGroupByResult;
   private DataSchema _dataSchema;
@@ -63,6 +64,7 @@ public class IntermediateResultsBlock implements Block {
   private static String NUM_DOCS_SCANNED = "numDocsScanned";
   private static String TIME_USED_MS = "timeUsedMs";
   private static String TOTAL_DOCS = "totalDocs";
+  private static String NUM_GROUPS_LIMIT_REACHED = "numGroupsLimitReached";
 
   public IntermediateResultsBlock(List<AggregationFunction> aggregationFunctionList,
       List<Serializable> aggregationResult) {
@@ -167,6 +169,9 @@ public class IntermediateResultsBlock implements Block {
     dataTable.getMetadata().put(NUM_DOCS_SCANNED, _numDocsScanned + "");
     dataTable.getMetadata().put(TIME_USED_MS, _timeUsedMs + "");
     dataTable.getMetadata().put(TOTAL_DOCS, _totalRawDocs + "");
+    if (_numGroupsLimitReached) {
+      dataTable.getMetadata().put(NUM_GROUPS_LIMIT_REACHED, "true");
+    }
     if (_processingExceptions != null && _processingExceptions.size() > 0) {
       for (int i = 0; i < _processingExceptions.size(); ++i) {
         dataTable.addException(_processingExceptions.get(i));
@@ -282,6 +287,14 @@ public class IntermediateResultsBlock implements Block {
     _totalRawDocs = totalRawDocs;
   }
 
+  public boolean isNumGroupsLimitReached() {
+    return _numGroupsLimitReached;
+  }
+
+  public void setNumGroupsLimitReached(boolean numGroupsLimitReached) {
+    _numGroupsLimitReached = numGroupsLimitReached;
+  }
+
   public void setAggregationFunctions(List<AggregationFunction> aggregationFunctions) {
     _aggregationFunctionList = aggregationFunctions;
   }
@@ -40,6 +40,7 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
   private PredicateEvaluator evaluator;
 
   private String datasourceName;
+  private long numEntriesScanned = 0;
 
   public MVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
@@ -83,6 +84,7 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
     valueIterator.skipTo(docId);
     int length = valueIterator.nextIntVal(intArray);
+    numEntriesScanned += length;
     return evaluator.apply(intArray, length);
   }
 
@@ -114,6 +116,7 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
     while (valueIterator.hasNext() && currentDocId < endDocId) {
       currentDocId = currentDocId + 1;
       int length = valueIterator.nextIntVal(intArray);
+      numEntriesScanned += length;
       if (evaluator.apply(intArray, length)) {
         return currentDocId;
       }
@@ -122,6 +125,11 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
     return Constants.EOF;
   }
 
+  @Override
+  public long getNumEntriesScanned() {
+    return numEntriesScanned;
+  }
+
   @Override
   public int currentDocId() {
     return currentDocId;
@@ -146,6 +154,7 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
       if (docId >= startDocId) {
         valueIterator.skipTo(docId);
         length = valueIterator.nextIntVal(intArray);
+        numEntriesScanned += length;
         if (evaluator.apply(intArray, length)) {
           result.add(docId);
         }
@@ -32,6 +32,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private int endDocId;
   private PredicateEvaluator evaluator;
   private String datasourceName;
+  private long numEntriesScanned = 0;
 
   public SVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
@@ -74,6 +75,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
     valueIterator.skipTo(docId);
     int dictIdForCurrentDoc = valueIterator.nextIntVal();
+    numEntriesScanned++;
     return evaluator.apply(dictIdForCurrentDoc);
   }
 
@@ -104,6 +106,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     while (valueIterator.hasNext() && currentDocId < endDocId) {
       currentDocId = currentDocId + 1;
       int dictIdForCurrentDoc = valueIterator.nextIntVal();
+      numEntriesScanned++;
       if (evaluator.apply(dictIdForCurrentDoc)) {
         // System.out.println("Returning deom " + this +"doc Id:"+ currentDocId + " dictId:"+
         // dictIdForCurrentDoc);
@@ -114,6 +117,11 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return Constants.EOF;
   }
 
+  @Override
+  public long getNumEntriesScanned() {
+    return numEntriesScanned;
+  }
+
   @Override
   public int currentDocId() {
     return currentDocId;
@@ -136,6 +144,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       docId = intIterator.next();
       if (docId >= startDocId) {
         valueIterator.skipTo(docId);
+        numEntriesScanned++;
         if (evaluator.apply(valueIterator.nextIntVal())) {
           result.add(docId);
         }
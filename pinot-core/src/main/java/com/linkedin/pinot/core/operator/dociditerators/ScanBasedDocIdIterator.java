@@ -35,4 +35,9 @@ public interface ScanBasedDocIdIterator extends BlockDocIdIterator {
 
   MutableRoaringBitmap applyAnd(MutableRoaringBitmap answer);
 
+  /**
+   * @return number of values read from the forward index so far
+   */
+  long getNumEntriesScanned();
+
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docvaliterators;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkReaderContext;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+
+
+/**
+ * Iterator over the values of a single value column stored without a dictionary. Values are read directly from the
+ * raw forward index, converted to the requested type. Each iterator owns the buffer its chunks are decompressed into.
+ */
+public final class RawSingleValueIterator extends BlockSingleValIterator {
+
+  private int counter = 0;
+  private final ColumnMetadata columnMetadata;
+  private final ChunkCompressedSingleValueReader reader;
+  private final ChunkReaderContext context;
+
+  public RawSingleValueIterator(ChunkCompressedSingleValueReader reader, ColumnMetadata columnMetadata) {
+    this.reader = reader;
+    this.columnMetadata = columnMetadata;
+    this.context = reader.createContext();
+  }
+
+  @Override
+  public boolean skipTo(int docId) {
+    if (docId >= columnMetadata.getTotalDocs()) {
+      return false;
+    }
+    counter = docId;
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return columnMetadata.getTotalDocs();
+  }
+
+  @Override
+  public int nextIntVal() {
+    if (counter >= columnMetadata.getTotalDocs()) {
+      return Constants.EOF;
+    }
+    switch (columnMetadata.getDataType()) {
+      case INT:
+        return reader.getInt(counter++, context);
+      case LONG:
+        return (int) reader.getLong(counter++, context);
+      case FLOAT:
+        return (int) reader.getFloat(counter++, context);
+      default:
+        return (int) reader.getDouble(counter++, context);
+    }
+  }
+
+  @Override
+  public long nextLongVal() {
+    switch (columnMetadata.getDataType()) {
+      case INT:
+        return reader.getInt(counter++, context);
+      case LONG:
+        return reader.getLong(counter++, context);
+      case FLOAT:
+        return (long) reader.getFloat(counter++, context);
+      default:
+        return (long) reader.getDouble(counter++, context);
+    }
+  }
+
+  @Override
+  public float nextFloatVal() {
+    switch (columnMetadata.getDataType()) {
+      case INT:
+        return reader.getInt(counter++, context);
+      case LONG:
+        return reader.getLong(counter++, context);
+      case FLOAT:
+        return reader.getFloat(counter++, context);
+      default:
+        return (float) reader.getDouble(counter++, context);
+    }
+  }
+
+  @Override
+  public double nextDoubleVal() {
+    switch (columnMetadata.getDataType()) {
+      case INT:
+        return reader.getInt(counter++, context);
+      case LONG:
+        return reader.getLong(counter++, context);
+      case FLOAT:
+        return reader.getFloat(counter++, context);
+      default:
+        return reader.getDouble(counter++, context);
+    }
+  }
+
+  /**
+   * Returns the hash code of the boxed value of the next document, consistent with the hash code of the values of
+   * dictionary encoded columns.
+   */
+  public int nextHashCode() {
+    switch (columnMetadata.getDataType()) {
+      case INT:
+        return Integer.valueOf(reader.getInt(counter++, context)).hashCode();
+      case LONG:
+        return Long.valueOf(reader.getLong(counter++, context)).hashCode();
+      case FLOAT:
+        return Float.valueOf(reader.getFloat(counter++, context)).hashCode();
+      default:
+        return Double.valueOf(reader.getDouble(counter++, context)).hashCode();
+    }
+  }
+
+  @Override
+  public boolean reset() {
+    counter = 0;
+    return true;
+  }
+
+  @Override
+  public boolean next() {
+    return counter < columnMetadata.getTotalDocs();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return counter < columnMetadata.getTotalDocs();
+  }
+
+  @Override
+  public DataType getValueType() {
+    return columnMetadata.getDataType();
+  }
+
+  @Override
+  public int currentDocId() {
+    return counter;
+  }
+}
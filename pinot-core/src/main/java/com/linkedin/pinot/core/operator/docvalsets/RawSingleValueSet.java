@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docvalsets;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.BlockValIterator;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
+import com.linkedin.pinot.core.operator.docvaliterators.RawSingleValueIterator;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+
+
+/**
+ * Value set of a single value column stored without a dictionary. There are no dictionary ids to read, values are
+ * read directly through {@link #readDoubleValues} and {@link #readHashCodes}.
+ */
+public final class RawSingleValueSet implements BlockValSet {
+  private final ChunkCompressedSingleValueReader reader;
+  private final ColumnMetadata columnMetadata;
+  private RawSingleValueIterator valueReader;
+
+  public RawSingleValueSet(ChunkCompressedSingleValueReader reader, ColumnMetadata columnMetadata) {
+    this.reader = reader;
+    this.columnMetadata = columnMetadata;
+  }
+
+  @Override
+  public BlockValIterator iterator() {
+    return new RawSingleValueIterator(reader, columnMetadata);
+  }
+
+  @Override
+  public DataType getValueType() {
+    return columnMetadata.getDataType();
+  }
+
+  @Override
+  public void readIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outDictionaryIds, int outStartPos) {
+    throw new UnsupportedOperationException(
+        "Column " + columnMetadata.getColumnName() + " has no dictionary, read its values instead");
+  }
+
+  /**
+   * Copies the values of the input doc ids as doubles. Not thread safe, the value set reuses its decompression buffer
+   * across calls.
+   */
+  public void readDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    RawSingleValueIterator iterator = getValueReader();
+    int inEndPos = inStartPos + inDocIdsSize;
+    for (int i = inStartPos; i < inEndPos; i++) {
+      iterator.skipTo(inDocIds[i]);
+      outValues[outStartPos++] = iterator.nextDoubleVal();
+    }
+  }
+
+  /**
+   * Copies the hash codes of the values of the input doc ids. Not thread safe, the value set reuses its decompression
+   * buffer across calls.
+   */
+  public void readHashCodes(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    RawSingleValueIterator iterator = getValueReader();
+    int inEndPos = inStartPos + inDocIdsSize;
+    for (int i = inStartPos; i < inEndPos; i++) {
+      iterator.skipTo(inDocIds[i]);
+      outValues[outStartPos++] = iterator.nextHashCode();
+    }
+  }
+
+  private RawSingleValueIterator getValueReader() {
+    if (valueReader == null) {
+      valueReader = new RawSingleValueIterator(reader, columnMetadata);
+    }
+    return valueReader;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.operator.filter;
 
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.Operator;
@@ -60,5 +61,12 @@ public abstract class BaseFilterOperator extends BaseOperator {
     return "BaseFilterOperator";
   }
 
+  @Override
+  protected String getProfileName() {
+    // All filter operators share the same operator name, the class tells which index is used
+    String name = getClass().getSimpleName();
+    return (predicate == null) ? name : name + "(" + predicate.getLhs() + ")";
+  }
+
   public abstract BaseFilterBlock nextFilterBlock(BlockId blockId);
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.blocks.BitmapBlock;
+import com.linkedin.pinot.core.operator.filter.predicate.RangeOfflineDictionaryPredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+
+
+/**
+ * Filter operator evaluating a RANGE predicate with the range index of the column: the buckets entirely within the
+ * range are used as is, while the documents of the (at most two) buckets crossing a boundary of the range are checked
+ * against the forward index.
+ */
+public class RangeIndexBasedFilterOperator extends BaseFilterOperator {
+  private final DataSource dataSource;
+  private final int startDocId;
+  private final int endDocId;
+
+  /**
+   * @param dataSource data source of a column having a range index
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public RangeIndexBasedFilterOperator(DataSource dataSource, int startDocId, int endDocId) {
+    this.dataSource = dataSource;
+    this.startDocId = startDocId;
+    this.endDocId = endDocId;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    Predicate predicate = getPredicate();
+    BitmapRangeIndexReader rangeIndex = dataSource.getRangeIndex();
+    Block dataSourceBlock = dataSource.nextBlock();
+    RangeOfflineDictionaryPredicateEvaluator evaluator = new RangeOfflineDictionaryPredicateEvaluator(
+        (RangePredicate) predicate, (ImmutableDictionaryReader) dataSource.getDictionary());
+    int rangeStart = evaluator.getRangeStartIndex();
+    int rangeEnd = evaluator.getRangeEndIndex();
+
+    List<ImmutableRoaringBitmap> bitmaps = new ArrayList<>();
+    if (rangeStart <= rangeEnd) {
+      int lastBucket = rangeIndex.getBucket(rangeEnd);
+      for (int bucket = rangeIndex.getBucket(rangeStart); bucket <= lastBucket; bucket++) {
+        ImmutableRoaringBitmap bucketDocIds = rangeIndex.getBitmap(bucket);
+        if (rangeIndex.getBucketStart(bucket) >= rangeStart && rangeIndex.getBucketEnd(bucket) <= rangeEnd) {
+          bitmaps.add(bucketDocIds);
+        } else {
+          bitmaps.add(getMatchingDocIds(dataSourceBlock, bucketDocIds, evaluator));
+        }
+      }
+    }
+    return new BitmapBlock(dataSource.getOperatorName(), dataSourceBlock.getMetadata(), startDocId, endDocId,
+        bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()]));
+  }
+
+  /**
+   * Returns the documents of a bucket crossing a boundary of the range whose values match the predicate.
+   */
+  private static ImmutableRoaringBitmap getMatchingDocIds(Block dataSourceBlock, ImmutableRoaringBitmap bucketDocIds,
+      RangeOfflineDictionaryPredicateEvaluator evaluator) {
+    MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+    IntIterator docIdIterator = bucketDocIds.getIntIterator();
+    if (dataSourceBlock.getMetadata().isSingleValue()) {
+      BlockSingleValIterator valueIterator =
+          (BlockSingleValIterator) dataSourceBlock.getBlockValueSet().iterator();
+      while (docIdIterator.hasNext()) {
+        int docId = docIdIterator.next();
+        valueIterator.skipTo(docId);
+        if (evaluator.apply(valueIterator.nextIntVal())) {
+          matchingDocIds.add(docId);
+        }
+      }
+    } else {
+      BlockMultiValIterator valueIterator = (BlockMultiValIterator) dataSourceBlock.getBlockValueSet().iterator();
+      int[] dictIds = new int[dataSourceBlock.getMetadata().getMaxNumberOfMultiValues()];
+      while (docIdIterator.hasNext()) {
+        int docId = docIdIterator.next();
+        valueIterator.skipTo(docId);
+        int length = valueIterator.nextIntVal(dictIds);
+        if (evaluator.apply(dictIds, length)) {
+          matchingDocIds.add(docId);
+        }
+      }
+    }
+    return matchingDocIds;
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+}
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator.filter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockDocIdValueSet;
 import com.linkedin.pinot.core.common.BlockId;
@@ -27,6 +28,7 @@ import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.common.DataSourceMetadata;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
 import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
 import com.linkedin.pinot.core.operator.docidsets.ScanBasedMultiValueDocIdSet;
 import com.linkedin.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
@@ -42,6 +44,7 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
   private Integer startDocId;
   private Integer endDocId;
   private String name;
+  private FilterBlockDocIdSet filterBlockDocIdSet;
 
   /**
    * @param dataSource
@@ -85,9 +88,18 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     if (endDocId != null) {
       docIdSet.setEndDocId(endDocId);
     }
+    filterBlockDocIdSet = docIdSet;
     return new ScanBlock(docIdSet);
   }
 
+  @Override
+  protected void addFinalStats(OperatorStats operatorStats) {
+    if (filterBlockDocIdSet != null) {
+      operatorStats.addNumEntriesScanned(
+          ((ScanBasedDocIdIterator) filterBlockDocIdSet.iterator()).getNumEntriesScanned());
+    }
+  }
+
   @Override
   public boolean close() {
     dataSource.close();
@@ -19,7 +19,6 @@ import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,9 +30,12 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBiMap;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.common.utils.request.FilterQueryTree;
 import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
@@ -53,15 +55,12 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
   private final int numRawDocs;
   private IndexSegment segment;
 
-  // Predicates map
-  Map<String, PredicateEntry> predicatesMap;
+  // Filter to apply, MATCH_ALL if there is none
+  FilterNode filter;
 
   // Group by columns
   Set<String> groupByColumns;
 
-  // Columns with predicate on them
-  Set<String> predicateColumns;
-
   boolean emptyResult = false;
   private BrokerRequest brokerRequest;
 
@@ -69,53 +68,53 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
     this.segment = segment;
     numRawDocs = segment.getSegmentMetadata().getTotalRawDocs();
     this.brokerRequest = brokerRequest;
-    predicateColumns = new HashSet<>();
     groupByColumns = new HashSet<>();
-    predicatesMap = new HashMap<>();
     initPredicatesToEvaluate();
   }
 
   private void initPredicatesToEvaluate() {
     FilterQueryTree filterTree = RequestUtils.generateFilterQueryTree(brokerRequest);
-    // Find all filter columns
-    if (filterTree != null) {
-      if (filterTree.getChildren() != null && !filterTree.getChildren().isEmpty()) {
-        for (FilterQueryTree childFilter : filterTree.getChildren()) {
-          // Nested filters are not supported
-          assert childFilter.getChildren() == null || childFilter.getChildren().isEmpty();
-          processFilterTree(childFilter);
-        }
-      } else {
-        processFilterTree(filterTree);
-      }
+    filter = (filterTree != null) ? buildFilterNode(filterTree) : FilterNode.MATCH_ALL;
+    // If dictionaries do not have any values that satisfy the filter, set emptyResults to true.
+    if (filter == FilterNode.MATCH_NONE) {
+      emptyResult = true;
     }
     // Group by columns, we cannot lose group by columns during traversal
     GroupBy groupBy = brokerRequest.getGroupBy();
     if (groupBy != null) {
-      groupByColumns.addAll(groupBy.getColumns());
+      for (String groupByColumn : groupBy.getColumns()) {
+        groupByColumns.add(DateTimeConvertExpression.getColumnName(groupByColumn));
+      }
     }
   }
 
-  private void processFilterTree(FilterQueryTree childFilter) {
-    String column = childFilter.getColumn();
-    // Only equality predicates are supported
-    Predicate predicate = Predicate.newPredicate(childFilter);
-    Dictionary dictionary = segment.getDataSource(column).getDictionary();
-    PredicateEntry predicateEntry = null;
-
-    PredicateEvaluator predicateEvaluator =
-        PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
-
-    // If dictionary does not have any values that satisfy the predicate, set emptyResults to
-    // true.
-    if (predicateEvaluator.alwaysFalse()) {
-      emptyResult = true;
+  /**
+   * Builds the filter expression for the given filter tree, AND/OR nodes can be nested arbitrarily. Predicates that
+   * match none or all of the dictionary values are folded into constants.
+   */
+  private FilterNode buildFilterNode(FilterQueryTree filterTree) {
+    List<FilterQueryTree> childFilters = filterTree.getChildren();
+    if (childFilters == null || childFilters.isEmpty()) {
+      String column = filterTree.getColumn();
+      Predicate predicate = Predicate.newPredicate(filterTree);
+      Dictionary dictionary = segment.getDataSource(column).getDictionary();
+      PredicateEvaluator predicateEvaluator =
+          PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
+      if (predicateEvaluator.alwaysFalse()) {
+        return FilterNode.MATCH_NONE;
+      }
+      // NOT and NOT_IN evaluators expose the dictionary complement of their values
+      if (predicateEvaluator.getMatchingDictionaryIds().length == dictionary.length()) {
+        return FilterNode.MATCH_ALL;
+      }
+      return new FilterNode(column, new PredicateEntry(predicate, predicateEvaluator));
     }
 
-    // Store this predicate, we will have to apply it later
-    predicateEntry = new PredicateEntry(predicate, predicateEvaluator);
-    predicateColumns.add(column);
-    predicatesMap.put(column, predicateEntry);
+    List<FilterNode> children = new ArrayList<>(childFilters.size());
+    for (FilterQueryTree childFilter : childFilters) {
+      children.add(buildFilterNode(childFilter));
+    }
+    return FilterNode.combine(filterTree.getOperator(), children);
   }
 
   @Override
@@ -171,7 +170,7 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
       int startDocId = matchedLeafNode.getStartDocumentId();
       int endDocId = matchedLeafNode.getEndDocumentId();
 
-      if (matchedEntry.remainingPredicateColumns.isEmpty()) {
+      if (matchedEntry.remainingFilter == FilterNode.MATCH_ALL) {
         // No more filters to apply
         // Use aggregated doc for this leaf node if possible.
         int aggregatedDocumentId = matchedLeafNode.getAggregatedDocumentId();
@@ -184,23 +183,9 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
           numExactlyMatched += (endDocId - startDocId);
         }
       } else {
-        Map<String, PredicateEntry> remainingPredicatesMap = computeRemainingPredicates(matchedEntry);
-        List<Operator> filterOperators =
-            createFilterOperatorsForRemainingPredicates(matchedEntry, remainingPredicatesMap);
-
-        if (filterOperators.size() == 0) {
-          // The predicates are applied, but we cannot use aggregated doc, as we might have lost
-          // the group by dimensions, in the aggregated doc.
-          exactlyMatchedDocsBitmap.add(startDocId, endDocId);
-          numExactlyMatched += (endDocId - startDocId);
-        } else if (filterOperators.size() == 1) {
-          matchingLeafOperator = filterOperators.get(0);
-        } else {
-          matchingLeafOperator = new AndOperator(filterOperators);
-        }
-        if (matchingLeafOperator != null) {
-          matchingLeafOperators.add(matchingLeafOperator);
-        }
+        // Apply what remains of the filter on the documents under this leaf node
+        matchingLeafOperator = createFilterOperator(matchedEntry.remainingFilter, startDocId, endDocId - 1);
+        matchingLeafOperators.add(matchingLeafOperator);
       }
 
       totalDocsToScan += (endDocId - startDocId);
@@ -254,45 +239,24 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
   }
 
   /**
-   * Builds a list of filter operators for a given matched leaf node for the given
-   * set of predicates.
-   * @param matchedEntry
-   * @param remainingPredicatesMap
+   * Builds the filter operator applying the given remaining filter on the documents of a matched leaf node.
+   * @param remainingFilter
+   * @param startDocId
+   * @param endDocId inclusive
    * @return
    */
-  private List<Operator> createFilterOperatorsForRemainingPredicates(SearchEntry matchedEntry,
-      Map<String, PredicateEntry> remainingPredicatesMap) {
-    int startDocId = matchedEntry.starTreeIndexnode.getStartDocumentId();
-    int endDocId = matchedEntry.starTreeIndexnode.getEndDocumentId();
-
-    List<Operator> childOperators = new ArrayList<>();
-    for (String column : remainingPredicatesMap.keySet()) {
-      PredicateEntry predicateEntry = remainingPredicatesMap.get(column);
-
-      // predicateEntry could be null if column appeared only in groupBy
-      if (predicateEntry != null) {
-        BaseFilterOperator childOperator =
-            createChildOperator(startDocId, endDocId - 1, column, predicateEntry);
-        childOperators.add(childOperator);
-      }
+  private BaseFilterOperator createFilterOperator(FilterNode remainingFilter, int startDocId, int endDocId) {
+    if (remainingFilter.children == null) {
+      return createChildOperator(startDocId, endDocId, remainingFilter.column, remainingFilter.predicateEntry);
     }
-    return childOperators;
-  }
-
-  /**
-   * Helper method to compute remaining predicates from remainingPredicateColumns of
-   * the given search entry.
-   *
-   * @param entry Search entry for which to compute the remaining predicates.
-   * @return
-   */
-  private Map<String, PredicateEntry> computeRemainingPredicates(SearchEntry entry) {
-    Map<String, PredicateEntry> remainingPredicatesMap = new HashMap<>();
-    for (String column : entry.remainingPredicateColumns) {
-      PredicateEntry predicateEntry = predicatesMap.get(column);
-      remainingPredicatesMap.put(column, predicateEntry);
+    List<Operator> childOperators = new ArrayList<>(remainingFilter.children.size());
+    for (FilterNode child : remainingFilter.children) {
+      childOperators.add(createFilterOperator(child, startDocId, endDocId));
+    }
+    if (remainingFilter.operator == FilterOperator.AND) {
+      return new AndOperator(childOperators);
     }
-    return remainingPredicatesMap;
+    return new OrOperator(childOperators);
   }
 
   private BaseFilterOperator createChildOperator(int startDocId, int endDocId, String column,
@@ -367,17 +331,17 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
 
     SearchEntry startEntry = new SearchEntry();
     startEntry.starTreeIndexnode = segment.getStarTree().getRoot();
-    startEntry.remainingPredicateColumns = new HashSet<>(predicatesMap.keySet());
+    startEntry.remainingFilter = filter;
     startEntry.remainingGroupByColumns = new HashSet<>(groupByColumns);
     searchQueue.add(startEntry);
 
     while (!searchQueue.isEmpty()) {
       SearchEntry searchEntry = searchQueue.remove();
       StarTreeIndexNode current = searchEntry.starTreeIndexnode;
-      HashSet<String> remainingPredicateColumns = searchEntry.remainingPredicateColumns;
+      FilterNode remainingFilter = searchEntry.remainingFilter;
       HashSet<String> remainingGroupByColumns = searchEntry.remainingGroupByColumns;
       // Check if its leaf, or if there are no remaining predicates/groupbycolumns, and node has valid aggregated docId
-      if (current.isLeaf() || (remainingPredicateColumns.isEmpty() && remainingGroupByColumns.isEmpty()) &&
+      if (current.isLeaf() || (remainingFilter == FilterNode.MATCH_ALL && remainingGroupByColumns.isEmpty()) &&
           isValidAggregatedDocId(current.getAggregatedDocumentId())) {
         // reached leaf
         matchedEntries.add(searchEntry);
@@ -387,68 +351,54 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
       String nextDimension =
           dimensionIndexToNameMapping.inverse().get(current.getChildDimensionName());
 
-      HashSet<String> newRemainingPredicateColumns = new HashSet<>();
-      newRemainingPredicateColumns.addAll(remainingPredicateColumns);
       HashSet<String> newRemainingGroupByColumns = new HashSet<>();
       newRemainingGroupByColumns.addAll(remainingGroupByColumns);
 
-      addMatchingChildrenToQueue(searchQueue, current, nextDimension, newRemainingPredicateColumns,
-          newRemainingGroupByColumns);
+      addMatchingChildrenToQueue(searchQueue, current, nextDimension, remainingFilter, newRemainingGroupByColumns);
     }
     return matchedEntries;
   }
 
   /**
    * Helper method to add matching children into the search queue.
-   * - If predicate can be applied (i.e. equality predicate that is eligible), add the child
-   * satisfying the predicate into the queue.
-   * - If predicate cannot be applied (either inEligible or nonEquality), add all children to the
-   * queue.
-   * - If no predicate on the column, add the star-child to the queue
+   * - If the remaining filter has predicates on the column, evaluate it against each child value, and add the
+   * children for which it is not false, along with what remains of the filter for that value. This expands
+   * IN/NOT_IN/OR predicates into the union of the matching children.
+   * - If the column is in group by, or there is no star-child, add all children to the queue.
+   * - Otherwise add the star-child to the queue
    * @param searchQueue
    * @param node
    * @param column
-   * @param remainingPredicateColumns
+   * @param remainingFilter
    * @param remainingGroupByColumns
    */
   private void addMatchingChildrenToQueue(Queue<SearchEntry> searchQueue, StarTreeIndexNode node,
-      String column, HashSet<String> remainingPredicateColumns,
-      HashSet<String> remainingGroupByColumns) {
+      String column, FilterNode remainingFilter, HashSet<String> remainingGroupByColumns) {
     Map<Integer, StarTreeIndexNode> children = node.getChildren();
 
-    if (predicateColumns.contains(column)) {
-      // Check if there is exact match filter on this column
-      PredicateEntry predicateEntry = predicatesMap.get(column);
-
-      remainingPredicateColumns.remove(column);
+    if (remainingFilter.hasPredicateOn(column)) {
       remainingGroupByColumns.remove(column);
-
-      int[] matchingDictionaryIds = predicateEntry.predicateEvaluator.getMatchingDictionaryIds();
-      for (int matchingDictionaryId : matchingDictionaryIds) {
-        if (children.containsKey(matchingDictionaryId)) {
-          addNodeToSearchQueue(searchQueue, children.get(matchingDictionaryId), remainingPredicateColumns,
-              remainingGroupByColumns);
+      for (StarTreeIndexNode indexNode : children.values()) {
+        int dimensionValue = indexNode.getDimensionValue();
+        if (dimensionValue != StarTreeIndexNode.all()) {
+          FilterNode childFilter = remainingFilter.evaluate(column, dimensionValue);
+          if (childFilter != FilterNode.MATCH_NONE) {
+            addNodeToSearchQueue(searchQueue, indexNode, childFilter, remainingGroupByColumns);
+          }
         }
       }
-    } else {
-      int nextValueId;
-      if (groupByColumns.contains(column) || predicatesMap.containsKey(column)
-          || !children.containsKey(StarTreeIndexNode.all())) {
-        for (StarTreeIndexNode indexNode : children.values()) {
-          if (indexNode.getDimensionValue() != StarTreeIndexNode.all()) {
-            remainingPredicateColumns.remove(column);
-            remainingGroupByColumns.remove(column);
-            addNodeToSearchQueue(searchQueue, indexNode, remainingPredicateColumns,
-                remainingGroupByColumns);
-          }
+    } else if (groupByColumns.contains(column) || !children.containsKey(StarTreeIndexNode.all())) {
+      remainingGroupByColumns.remove(column);
+      for (StarTreeIndexNode indexNode : children.values()) {
+        if (indexNode.getDimensionValue() != StarTreeIndexNode.all()) {
+          addNodeToSearchQueue(searchQueue, indexNode, remainingFilter, remainingGroupByColumns);
         }
-      } else {
-        // Since we have a star node and no group by on this column we can take lose this dimension
-        // by taking star node path
-        nextValueId = StarTreeIndexNode.all();
-        addNodeToSearchQueue(searchQueue, children.get(nextValueId), remainingPredicateColumns,
-            remainingGroupByColumns);
       }
+    } else {
+      // Since we have a star node and no group by on this column we can take lose this dimension
+      // by taking star node path
+      addNodeToSearchQueue(searchQueue, children.get(StarTreeIndexNode.all()), remainingFilter,
+          remainingGroupByColumns);
     }
   }
 
@@ -456,28 +406,28 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
    * Helper method to add the given node the the provided queue.
    * @param searchQueue
    * @param node
-   * @param predicateColumns
+   * @param remainingFilter
    * @param groupByColumns
    */
   private void addNodeToSearchQueue(Queue<SearchEntry> searchQueue, StarTreeIndexNode node,
-      HashSet<String> predicateColumns, HashSet<String> groupByColumns) {
+      FilterNode remainingFilter, HashSet<String> groupByColumns) {
     SearchEntry newEntry = new SearchEntry();
     newEntry.starTreeIndexnode = node;
-    newEntry.remainingPredicateColumns = predicateColumns;
+    newEntry.remainingFilter = remainingFilter;
     newEntry.remainingGroupByColumns = groupByColumns;
     searchQueue.add(newEntry);
   }
 
   class SearchEntry {
     StarTreeIndexNode starTreeIndexnode;
-    HashSet<String> remainingPredicateColumns;
+    FilterNode remainingFilter;
     HashSet<String> remainingGroupByColumns;
 
     @Override
     public String toString() {
       StringBuilder sb = new StringBuilder();
       sb.append(starTreeIndexnode);
-      sb.append("\t").append(remainingPredicateColumns);
+      sb.append("\t").append(remainingFilter);
       return sb.toString();
     }
   }
@@ -491,4 +441,102 @@ public class StarTreeIndexOperator extends BaseFilterOperator {
       this.predicateEvaluator = predicateEvaluator;
     }
   }
+
+  /**
+   * Filter expression remaining to be applied on a star tree path: either an AND/OR of children, a predicate on a
+   * column, or one of the MATCH_ALL/MATCH_NONE constants.
+   */
+  static class FilterNode {
+    static final FilterNode MATCH_ALL = new FilterNode((String) null, null);
+    static final FilterNode MATCH_NONE = new FilterNode((String) null, null);
+
+    final FilterOperator operator;
+    final List<FilterNode> children;
+    final String column;
+    final PredicateEntry predicateEntry;
+
+    FilterNode(String column, PredicateEntry predicateEntry) {
+      this.operator = null;
+      this.children = null;
+      this.column = column;
+      this.predicateEntry = predicateEntry;
+    }
+
+    private FilterNode(FilterOperator operator, List<FilterNode> children) {
+      this.operator = operator;
+      this.children = children;
+      this.column = null;
+      this.predicateEntry = null;
+    }
+
+    /**
+     * Combines the given children with AND/OR, folding the constants.
+     */
+    static FilterNode combine(FilterOperator operator, List<FilterNode> children) {
+      Preconditions.checkArgument(operator == FilterOperator.AND || operator == FilterOperator.OR,
+          "Unsupported filter operator with children: %s", operator);
+      // Neutral element of the operator, and the one absorbing it
+      FilterNode neutral = (operator == FilterOperator.AND) ? MATCH_ALL : MATCH_NONE;
+      FilterNode absorbing = (operator == FilterOperator.AND) ? MATCH_NONE : MATCH_ALL;
+      List<FilterNode> remainingChildren = new ArrayList<>(children.size());
+      for (FilterNode child : children) {
+        if (child == absorbing) {
+          return absorbing;
+        }
+        if (child != neutral) {
+          remainingChildren.add(child);
+        }
+      }
+      if (remainingChildren.isEmpty()) {
+        return neutral;
+      }
+      if (remainingChildren.size() == 1) {
+        return remainingChildren.get(0);
+      }
+      return new FilterNode(operator, remainingChildren);
+    }
+
+    boolean hasPredicateOn(String column) {
+      if (children == null) {
+        return column.equals(this.column);
+      }
+      for (FilterNode child : children) {
+        if (child.hasPredicateOn(column)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns what remains of this filter for documents having the given dictionary id on the given column.
+     */
+    FilterNode evaluate(String column, int dictionaryId) {
+      if (children == null) {
+        if (!column.equals(this.column)) {
+          return this;
+        }
+        return predicateEntry.predicateEvaluator.apply(dictionaryId) ? MATCH_ALL : MATCH_NONE;
+      }
+      List<FilterNode> evaluatedChildren = new ArrayList<>(children.size());
+      for (FilterNode child : children) {
+        evaluatedChildren.add(child.evaluate(column, dictionaryId));
+      }
+      return combine(operator, evaluatedChildren);
+    }
+
+    @Override
+    public String toString() {
+      if (this == MATCH_ALL) {
+        return "MATCH_ALL";
+      }
+      if (this == MATCH_NONE) {
+        return "MATCH_NONE";
+      }
+      if (children == null) {
+        return column + ":" + predicateEntry.predicate;
+      }
+      return operator + children.toString();
+    }
+  }
 }
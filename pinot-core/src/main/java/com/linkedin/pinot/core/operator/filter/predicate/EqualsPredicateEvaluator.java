@@ -27,7 +27,7 @@ public class EqualsPredicateEvaluator implements PredicateEvaluator {
 
   public EqualsPredicateEvaluator(EqPredicate predicate, Dictionary dictionary) {
     this.predicate = predicate;
-    equalsMatchDictId = dictionary.indexOf(predicate.getEqualsValue());
+    equalsMatchDictId = PredicateEvaluatorProvider.getDictionaryId(dictionary, predicate.getEqualsValue());
     if (equalsMatchDictId >= 0) {
       matchingIds = new int[1];
       matchingIds[0] = equalsMatchDictId;
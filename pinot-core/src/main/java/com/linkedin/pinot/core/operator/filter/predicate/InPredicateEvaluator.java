@@ -34,7 +34,7 @@ public class InPredicateEvaluator implements PredicateEvaluator {
     dictIdSet = new IntOpenHashSet();
     final String[] inValues = predicate.getInRange();
     for (final String value : inValues) {
-      final int index = dictionary.indexOf(value);
+      final int index = PredicateEvaluatorProvider.getDictionaryId(dictionary, value);
       if (index >= 0) {
         dictIdSet.add(index);
       }
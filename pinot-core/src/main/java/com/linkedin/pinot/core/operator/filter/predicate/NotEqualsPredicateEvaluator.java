@@ -28,7 +28,7 @@ public class NotEqualsPredicateEvaluator implements PredicateEvaluator {
    
   public NotEqualsPredicateEvaluator(NEqPredicate predicate, Dictionary dictionary) {
     this.dictionary = dictionary;
-    neqDictValue = dictionary.indexOf(predicate.getNotEqualsValue());
+    neqDictValue = PredicateEvaluatorProvider.getDictionaryId(dictionary, predicate.getNotEqualsValue());
     if (neqDictValue > -1) {
       nonMatchingDictIds = new int[] { neqDictValue };
     } else {
@@ -35,7 +35,7 @@ public class NotInPredicateEvaluator implements PredicateEvaluator {
     nonMatchingDictIdSet = new IntOpenHashSet(notInValues.length);
     for (int i = 0; i < notInValues.length; i++) {
       final String notInValue = notInValues[i];
-      int dictId = dictionary.indexOf(notInValue);
+      int dictId = PredicateEvaluatorProvider.getDictionaryId(dictionary, notInValue);
       if (dictId >= 0) {
         nonMatchingDictIdSet.add(dictId);
       }
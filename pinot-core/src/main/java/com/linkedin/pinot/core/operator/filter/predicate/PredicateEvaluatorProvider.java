@@ -52,4 +52,15 @@ public class PredicateEvaluatorProvider {
         throw new UnsupportedOperationException("UnKnown predicate type");
     }
   }
+
+  /**
+   * Returns the dictionary id of the given value for EQ, NEQ, IN and NOT_IN predicates, or a negative value if the
+   * value is not in the dictionary. Immutable dictionaries resolve the value through their hash index when loaded.
+   */
+  static int getDictionaryId(Dictionary dictionary, String value) {
+    if (dictionary instanceof ImmutableDictionaryReader) {
+      return ((ImmutableDictionaryReader) dictionary).getDictionaryId(value);
+    }
+    return dictionary.indexOf(value);
+  }
 }
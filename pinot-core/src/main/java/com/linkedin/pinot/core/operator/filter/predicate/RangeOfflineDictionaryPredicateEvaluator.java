@@ -64,6 +64,20 @@ public class RangeOfflineDictionaryPredicateEvaluator implements PredicateEvalua
     }
   }
 
+  /**
+   * Returns the first matching dictionary id.
+   */
+  public int getRangeStartIndex() {
+    return rangeStartIndex;
+  }
+
+  /**
+   * Returns the last matching dictionary id (inclusive), lower than the first one if no dictionary id matches.
+   */
+  public int getRangeEndIndex() {
+    return rangeEndIndex;
+  }
+
   @Override
   public boolean apply(int dictionaryId) {
     if (dictionaryId >=  rangeStartIndex && dictionaryId <= rangeEndIndex) {
@@ -38,6 +38,7 @@ import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
 import com.linkedin.pinot.core.operator.docidsets.DocIdSetBlock;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 
 
 /**
@@ -72,7 +73,7 @@ public class MSelectionOrderByOperator extends BaseOperator {
     _selectionColumns.addAll(_selection.getSelectionColumns());
     if ((_selectionColumns.size() == 1) && ((_selectionColumns.toArray(new String[0]))[0].equals("*"))) {
       _selectionColumns.clear();
-      _selectionColumns.addAll(Arrays.asList(indexSegment.getColumnNames()));
+      _selectionColumns.addAll(Arrays.asList(SelectionOperatorUtils.getSelectStarColumns(indexSegment)));
     }
     if (_selection.getSelectionSortSequence() != null) {
       for (SelectionSort selectionSort : _selection.getSelectionSortSequence()) {
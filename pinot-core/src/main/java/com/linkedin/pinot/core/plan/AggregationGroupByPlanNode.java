@@ -17,10 +17,13 @@ package com.linkedin.pinot.core.plan;
 
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByOperator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -37,24 +40,29 @@ public class AggregationGroupByPlanNode implements PlanNode {
   private final IndexSegment _indexSegment;
   private final BrokerRequest _brokerRequest;
   private final ProjectionPlanNode _projectionPlanNode;
+  private final int _numGroupsLimit;
 
   public AggregationGroupByPlanNode(IndexSegment indexSegment, BrokerRequest query) {
+    this(indexSegment, query, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public AggregationGroupByPlanNode(IndexSegment indexSegment, BrokerRequest query, int numGroupsLimit) {
     _indexSegment = indexSegment;
     _brokerRequest = query;
+    _numGroupsLimit = numGroupsLimit;
     _projectionPlanNode = new ProjectionPlanNode(_indexSegment, getAggregationGroupByRelatedColumns(),
-        new DocIdSetPlanNode(_indexSegment, _brokerRequest, 5000));
+        new DocIdSetPlanNode(_indexSegment, _brokerRequest, 5000, true));
   }
 
   private String[] getAggregationGroupByRelatedColumns() {
     Set<String> aggregationGroupByRelatedColumns = new HashSet<>();
     for (AggregationInfo aggregationInfo : _brokerRequest.getAggregationsInfo()) {
-      if (aggregationInfo.getAggregationType().equalsIgnoreCase("count")) {
-        continue;
-      }
-      String columns = aggregationInfo.getAggregationParams().get("column").trim();
-      aggregationGroupByRelatedColumns.addAll(Arrays.asList(columns.split(",")));
+      aggregationGroupByRelatedColumns.addAll(
+          Arrays.asList(AggregationFunctionUtils.getAggregationColumns(_indexSegment, aggregationInfo)));
+    }
+    for (String groupByColumn : _brokerRequest.getGroupBy().getColumns()) {
+      aggregationGroupByRelatedColumns.add(DateTimeConvertExpression.getColumnName(groupByColumn));
     }
-    aggregationGroupByRelatedColumns.addAll(_brokerRequest.getGroupBy().getColumns());
     return aggregationGroupByRelatedColumns.toArray(new String[aggregationGroupByRelatedColumns.size()]);
   }
 
@@ -62,7 +70,7 @@ public class AggregationGroupByPlanNode implements PlanNode {
   public Operator run() {
     MProjectionOperator projectionOperator = (MProjectionOperator) _projectionPlanNode.run();
     return new AggregationGroupByOperator(_indexSegment, _brokerRequest.getAggregationsInfo(),
-        _brokerRequest.getGroupBy(), projectionOperator);
+        _brokerRequest.getGroupBy(), projectionOperator, _numGroupsLimit);
   }
 
   @Override
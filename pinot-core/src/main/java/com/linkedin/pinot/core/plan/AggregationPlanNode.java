@@ -44,7 +44,7 @@ public class AggregationPlanNode implements PlanNode {
     _indexSegment = indexSegment;
     _brokerRequest = query;
     _projectionPlanNode = new ProjectionPlanNode(_indexSegment, getAggregationRelatedColumns(),
-        new DocIdSetPlanNode(_indexSegment, _brokerRequest));
+        new DocIdSetPlanNode(_indexSegment, _brokerRequest, DocIdSetPlanNode.MAX_DOC_PER_CALL, true));
     for (int i = 0; i < _brokerRequest.getAggregationsInfo().size(); ++i) {
       AggregationInfo aggregationInfo = _brokerRequest.getAggregationsInfo().get(i);
       AggregationFunctionUtils.ensureAggregationColumnsAreSingleValued(aggregationInfo, _indexSegment);
@@ -56,10 +56,8 @@ public class AggregationPlanNode implements PlanNode {
   private String[] getAggregationRelatedColumns() {
     Set<String> aggregationRelatedColumns = new HashSet<String>();
     for (AggregationInfo aggregationInfo : _brokerRequest.getAggregationsInfo()) {
-      if (!aggregationInfo.getAggregationType().equalsIgnoreCase("count")) {
-        String columns = aggregationInfo.getAggregationParams().get("column").trim();
-        aggregationRelatedColumns.addAll(Arrays.asList(columns.split(",")));
-      }
+      aggregationRelatedColumns.addAll(
+          Arrays.asList(AggregationFunctionUtils.getAggregationColumns(_indexSegment, aggregationInfo)));
     }
     return aggregationRelatedColumns.toArray(new String[0]);
   }
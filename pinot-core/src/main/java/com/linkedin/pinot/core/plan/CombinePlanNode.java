@@ -20,6 +20,7 @@ import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.MCombineGroupByOperator;
 import com.linkedin.pinot.core.operator.MCombineOperator;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
 import java.util.ArrayList;
 import java.util.List;
@@ -43,13 +44,21 @@ public class CombinePlanNode implements PlanNode {
   private final ExecutorService _executorService;
   private final long _timeOutMs;
   private final boolean _enableNewAggreagationGroupBy;
+  private final int _numGroupsLimit;
 
   public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs,
       boolean enableNewAggreagationGroupBy) {
+    this(brokerRequest, executorService, timeOutMs, enableNewAggreagationGroupBy,
+        ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs,
+      boolean enableNewAggreagationGroupBy, int numGroupsLimit) {
     _brokerRequest = brokerRequest;
     _executorService = executorService;
     _timeOutMs = timeOutMs;
     _enableNewAggreagationGroupBy = enableNewAggreagationGroupBy;
+    _numGroupsLimit = numGroupsLimit;
   }
 
   public void addPlanNode(PlanNode planNode) {
@@ -115,7 +124,7 @@ public class CombinePlanNode implements PlanNode {
   private Operator getCombineOperator(List<Operator> retOperators) {
     if (_enableNewAggreagationGroupBy && _brokerRequest.isSetAggregationsInfo()
         && _brokerRequest.getGroupBy() != null) {
-      return new MCombineGroupByOperator(retOperators, _executorService, _timeOutMs, _brokerRequest);
+      return new MCombineGroupByOperator(retOperators, _executorService, _timeOutMs, _brokerRequest, _numGroupsLimit);
     }
     return new MCombineOperator(retOperators, _executorService, _timeOutMs, _brokerRequest);
   }
@@ -47,10 +47,22 @@ public class DocIdSetPlanNode implements PlanNode {
    * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
    */
   public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall) {
+    this(indexSegment, query, maxDocPerCall, false);
+  }
+
+  /**
+   * @param indexSegment
+   * @param query
+   * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
+   * @param usePreAggregatedMetrics whether the aggregations read the pre-aggregated star tree metric columns, see
+   *                                {@link FilterPlanNode#FilterPlanNode(IndexSegment, BrokerRequest, boolean)}
+   */
+  public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall,
+      boolean usePreAggregatedMetrics) {
     _maxDocPerCall = Math.min(maxDocPerCall, MAX_DOC_PER_CALL);
     _indexSegment = indexSegment;
     _brokerRequest = query;
-    _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest);
+    _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest, usePreAggregatedMetrics);
   }
 
   @Override
@@ -40,6 +40,7 @@ import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.MatchEntireSegmentOperator;
 import com.linkedin.pinot.core.operator.filter.OrOperator;
+import com.linkedin.pinot.core.operator.filter.RangeIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.SortedInvertedIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.StarTreeIndexOperator;
@@ -52,10 +53,22 @@ public class FilterPlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(FilterPlanNode.class);
   private final BrokerRequest _brokerRequest;
   private final IndexSegment _segment;
+  private final boolean _usePreAggregatedMetrics;
 
   public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest) {
+    this(segment, brokerRequest, false);
+  }
+
+  /**
+   * @param segment
+   * @param brokerRequest
+   * @param usePreAggregatedMetrics whether the aggregations on top of this filter read the pre-aggregated star tree
+   *                                metric columns, which allows using the star tree for count/min/max/avg as well
+   */
+  public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest, boolean usePreAggregatedMetrics) {
     _segment = segment;
     _brokerRequest = brokerRequest;
+    _usePreAggregatedMetrics = usePreAggregatedMetrics;
   }
 
   @Override
@@ -64,7 +77,7 @@ public class FilterPlanNode implements PlanNode {
     Operator operator;
     FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(_brokerRequest);
     if (_segment.getSegmentMetadata().hasStarTree() && RequestUtils.isFitForStarTreeIndex(_segment.getSegmentMetadata(),
-        filterQueryTree, _brokerRequest)) {
+        filterQueryTree, _brokerRequest, _usePreAggregatedMetrics)) {
       operator = new StarTreeIndexOperator(_segment, _brokerRequest);
     } else {
       operator = constructPhysicalOperator(filterQueryTree);
@@ -112,10 +125,15 @@ public class FilterPlanNode implements PlanNode {
       DataSource ds;
       ds = _segment.getDataSource(column);
       DataSourceMetadata dataSourceMetadata = ds.getDataSourceMetadata();
+      if (!dataSourceMetadata.hasDictionary()) {
+        throw new UnsupportedOperationException("Filtering on column without dictionary is not supported: " + column);
+      }
       BaseFilterOperator baseFilterOperator;
       int startDocId = 0;
       int endDocId = _segment.getSegmentMetadata().getTotalRawDocs() - 1; //end is inclusive
-      if (dataSourceMetadata.hasInvertedIndex()) {
+      if (filterType == FilterOperator.RANGE && ds.getRangeIndex() != null) {
+        baseFilterOperator = new RangeIndexBasedFilterOperator(ds, startDocId, endDocId);
+      } else if (dataSourceMetadata.hasInvertedIndex()) {
         // jfim: ScanBasedFilterOperator is broken for realtime segments for now
         // range evaluation based on inv index is inefficient, so do this only if is NOT range.
         if (!filterType.equals(FilterOperator.RANGE) || _segment instanceof RealtimeSegment) {
@@ -151,7 +169,7 @@ public class FilterPlanNode implements PlanNode {
         priority = 0;
       } else if (operator instanceof AndOperator) {
         priority = 1;
-      } else if (operator instanceof BitmapBasedFilterOperator) {
+      } else if (operator instanceof BitmapBasedFilterOperator || operator instanceof RangeIndexBasedFilterOperator) {
         priority = 2;
       } else if (operator instanceof ScanBasedFilterOperator) {
         priority = 3;
@@ -16,8 +16,10 @@
 package com.linkedin.pinot.core.plan.maker;
 
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.plan.AggregationGroupByImplementationType;
 import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode;
 import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
@@ -47,7 +49,9 @@ import org.slf4j.LoggerFactory;
 public class InstancePlanMakerImplV2 implements PlanMaker {
   private static final Logger LOGGER = LoggerFactory.getLogger(InstancePlanMakerImplV2.class);
   private static final String ENABLE_NEW_AGGREGATION_GROUP_BY_CFG = "new.aggregation.groupby";
+  private static final String NUM_GROUPS_LIMIT_CFG = "num.groups.limit";
   private boolean _enableNewAggregationGroupByCfg = false;
+  private int _numGroupsLimit = ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT;
 
   /**
    * Default constructor.
@@ -66,6 +70,14 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _enableNewAggregationGroupByCfg =
         queryExecutorConfig.getConfig().getBoolean(ENABLE_NEW_AGGREGATION_GROUP_BY_CFG, true);
     LOGGER.info("New AggregationGroupBy operator: {}", (_enableNewAggregationGroupByCfg) ? "Enabled" : "Disabled");
+    _numGroupsLimit =
+        queryExecutorConfig.getConfig().getInt(NUM_GROUPS_LIMIT_CFG, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+    if (_numGroupsLimit > ResultHolderFactory.MAX_NUM_GROUPS_LIMIT) {
+      LOGGER.warn("Number of groups limit: {} is above the maximum: {}, using the maximum instead", _numGroupsLimit,
+          ResultHolderFactory.MAX_NUM_GROUPS_LIMIT);
+      _numGroupsLimit = ResultHolderFactory.MAX_NUM_GROUPS_LIMIT;
+    }
+    LOGGER.info("Number of groups limit: {}", _numGroupsLimit);
   }
 
   @Override
@@ -86,11 +98,13 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         }
       } else {
         // Aggregation GroupBy
+        ensureGroupByColumnsHaveDictionary(indexSegment, brokerRequest);
         if (enableNewAggregationGroupBy) {
           // New implementation of group-by aggregations
-          return new AggregationGroupByPlanNode(indexSegment, brokerRequest);
+          return new AggregationGroupByPlanNode(indexSegment, brokerRequest, getNumGroupsLimit(brokerRequest));
         } else {
           // Old implementation of group-by aggregations
+          ensureNoGroupByExpression(brokerRequest);
           if (isGroupKeyFitForLong(indexSegment, brokerRequest)) {
             return new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest,
                 AggregationGroupByImplementationType.Dictionary);
@@ -114,7 +128,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     final InstanceResponsePlanNode rootNode = new InstanceResponsePlanNode();
 
     final CombinePlanNode combinePlanNode = new CombinePlanNode(brokerRequest, executorService, timeOutMs,
-        _enableNewAggregationGroupByCfg);
+        _enableNewAggregationGroupByCfg, getNumGroupsLimit(brokerRequest));
     rootNode.setPlanNode(combinePlanNode);
 
     for (SegmentDataManager segmentDataManager : segmentDataManagers) {
@@ -124,6 +138,35 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     return new GlobalPlanImplV0(rootNode);
   }
 
+  /**
+   * The number of groups limit applies per query: to the group keys of each segment, and to the group keys merged
+   * across all the segments of the server. Queries can lower the limit of the server, but not raise it.
+   */
+  private int getNumGroupsLimit(BrokerRequest brokerRequest) {
+    if (brokerRequest.isSetNumGroupsLimit() && brokerRequest.getNumGroupsLimit() > 0) {
+      return Math.min(brokerRequest.getNumGroupsLimit(), _numGroupsLimit);
+    }
+    return _numGroupsLimit;
+  }
+
+  private void ensureGroupByColumnsHaveDictionary(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    for (String groupByColumn : brokerRequest.getGroupBy().getColumns()) {
+      String column = DateTimeConvertExpression.getColumnName(groupByColumn);
+      if (!indexSegment.getDataSource(column).getDataSourceMetadata().hasDictionary()) {
+        throw new UnsupportedOperationException("Group by on column without dictionary is not supported: " + column);
+      }
+    }
+  }
+
+  private void ensureNoGroupByExpression(BrokerRequest brokerRequest) {
+    for (String groupByColumn : brokerRequest.getGroupBy().getColumns()) {
+      if (DateTimeConvertExpression.isDateTimeConvertExpression(groupByColumn)) {
+        throw new UnsupportedOperationException(
+            "Group by expression is only supported by the new group-by implementation: " + groupByColumn);
+      }
+    }
+  }
+
   private boolean isGroupKeyFitForLong(IndexSegment indexSegment, BrokerRequest brokerRequest) {
     int totalBitSet = 0;
     for (final String column : brokerRequest.getGroupBy().getColumns()) {
@@ -15,10 +15,16 @@
  */
 package com.linkedin.pinot.core.query.aggregation;
 
+import java.util.Collections;
 import java.util.List;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
@@ -69,4 +75,74 @@ public class AggregationFunctionUtils {
       }
     }
   }
+
+  /**
+   * Returns the columns whose values are passed to the given aggregation function on the given segment, none for
+   * count.
+   * On star tree segments with pre-aggregated metric columns, count, min, max and avg read these columns instead of
+   * the query columns: they hold the right values for the aggregated documents as well as for the raw ones, which
+   * lets the star tree index serve these functions.
+   */
+  public static String[] getAggregationColumns(IndexSegment indexSegment, AggregationInfo aggregationInfo) {
+    String aggregationType = aggregationInfo.getAggregationType().toLowerCase();
+    String[] columns = aggregationInfo.getAggregationParams().get("column").trim().split(",");
+    List<String> materializedFunctions = getMaterializedAggregationFunctions(indexSegment.getSegmentMetadata());
+
+    switch (aggregationType) {
+      case StarTreeIndexSpec.COUNT_FUNCTION:
+        if (materializedFunctions.contains(StarTreeIndexSpec.COUNT_FUNCTION)) {
+          return new String[]{StarTreeIndexSpec.PRE_AGGREGATED_COUNT_COLUMN};
+        }
+        return new String[0];
+
+      case StarTreeIndexSpec.MIN_FUNCTION:
+      case StarTreeIndexSpec.MAX_FUNCTION:
+        if (materializedFunctions.contains(aggregationType) && columns.length == 1) {
+          String preAggregatedColumn = StarTreeIndexSpec.getPreAggregatedColumnName(aggregationType, columns[0]);
+          if (indexSegment.getSegmentMetadata().getSchema().hasColumn(preAggregatedColumn)) {
+            return new String[]{preAggregatedColumn};
+          }
+        }
+        return columns;
+
+      case "avg":
+        if (materializedFunctions.contains(StarTreeIndexSpec.COUNT_FUNCTION) && columns.length == 1) {
+          return new String[]{columns[0], StarTreeIndexSpec.PRE_AGGREGATED_COUNT_COLUMN};
+        }
+        return columns;
+
+      default:
+        return columns;
+    }
+  }
+
+  /**
+   * Returns whether the given column holds serialized HyperLogLog sketches (pre-aggregated HLL metric column), which
+   * distinctCountHLL merges instead of offering the values.
+   */
+  public static boolean isSerializedHLLColumn(IndexSegment indexSegment, String column) {
+    FieldSpec fieldSpec = indexSegment.getSegmentMetadata().getSchema().getFieldSpecFor(column);
+    return (fieldSpec instanceof MetricFieldSpec)
+        && ((MetricFieldSpec) fieldSpec).getDerivedMetricType() == MetricFieldSpec.DerivedMetricType.HLL;
+  }
+
+  /**
+   * Returns true for distinctCountHLL on a pre-aggregated HLL metric column.
+   */
+  public static boolean isSerializedHLLAggregation(IndexSegment indexSegment, AggregationInfo aggregationInfo,
+      String[] columns) {
+    return aggregationInfo.getAggregationType().equalsIgnoreCase("distinctCountHLL") && (columns.length == 1)
+        && isSerializedHLLColumn(indexSegment, columns[0]);
+  }
+
+  private static List<String> getMaterializedAggregationFunctions(SegmentMetadata segmentMetadata) {
+    if (!segmentMetadata.hasStarTree()) {
+      return Collections.emptyList();
+    }
+    StarTreeMetadata starTreeMetadata = segmentMetadata.getStarTreeMetadata();
+    if (starTreeMetadata == null || starTreeMetadata.getMaterializedAggregationFunctions() == null) {
+      return Collections.emptyList();
+    }
+    return starTreeMetadata.getMaterializedAggregationFunctions();
+  }
 }
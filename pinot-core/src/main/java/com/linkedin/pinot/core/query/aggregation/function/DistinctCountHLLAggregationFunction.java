@@ -28,6 +28,7 @@ import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.CombineLevel;
+import com.linkedin.pinot.core.query.aggregation.function.hll.CompactHyperLogLog;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -62,6 +63,7 @@ import com.clearspring.analytics.stream.cardinality.HyperLogLog;
  * 2. This implementation uses HyperLogLog provided hash function, i.e. {@link MurmurHash}, other hash functions may not work.
  *    see {@link HyperLogLog#offer(Object)}
  * 3. HyperLogLog directly used as the AggregateResult Type since a wrapper class may affect the speed (inheritance is ok)
+ *    New results are {@link CompactHyperLogLog}s, which serialize compactly, results from older servers still merge.
  *
  */
 public class DistinctCountHLLAggregationFunction implements AggregationFunction<HyperLogLog, Long> {
@@ -120,7 +122,7 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
   public HyperLogLog aggregate(Block docIdSetBlock, Block[] block) {
     BlockDocIdIterator docIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
 
-    HyperLogLog ret = new HyperLogLog(_bitSize);
+    HyperLogLog ret = new CompactHyperLogLog(_bitSize);
     int docId = 0;
     while ((docId = docIdIterator.next()) != Constants.EOF) {
       offerValueToHyperLogLog(docId, block, ret);
@@ -132,7 +134,7 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
   @Override
   public HyperLogLog aggregate(HyperLogLog mergedResult, int docId, Block[] block) {
     if (mergedResult == null) {
-      mergedResult = new HyperLogLog(_bitSize);
+      mergedResult = new CompactHyperLogLog(_bitSize);
     }
 
     offerValueToHyperLogLog(docId, block, mergedResult);
@@ -215,6 +217,6 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
 
   @Override
   public Serializable getDefaultValue() {
-    return new HyperLogLog(DEFAULT_BIT_SIZE);
+    return new CompactHyperLogLog(DEFAULT_BIT_SIZE);
   }
 }
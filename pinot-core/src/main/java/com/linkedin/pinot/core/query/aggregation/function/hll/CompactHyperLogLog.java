@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.function.hll;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.clearspring.analytics.stream.cardinality.RegisterSet;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
+import javax.xml.bind.DatatypeConverter;
+
+
+/**
+ * HyperLogLog with a compact serialized form that can be merged without being deserialized.
+ *
+ * The serialized form starts with an encoding byte and log2m, followed by either the non-zero registers as
+ * (index, value) pairs (sparse, for small cardinalities) or the packed register words (dense), whichever is smaller.
+ * It is used both for Java serialization (e.g. inside data tables) and, as a base64 string, for the values of
+ * pre-aggregated HLL metric columns.
+ */
+public class CompactHyperLogLog extends HyperLogLog {
+  private static final byte SPARSE_ENCODING = 0;
+  private static final byte DENSE_ENCODING = 1;
+  private static final int HEADER_SIZE = 2;
+  // Sparse register indexes are stored as chars
+  private static final int MAX_SPARSE_LOG2M = 16;
+  private static final int SPARSE_ENTRY_SIZE = 3;
+
+  private final int _log2m;
+  private final RegisterSet _registerSet;
+
+  public CompactHyperLogLog(int log2m) {
+    this(log2m, new RegisterSet(1 << log2m));
+  }
+
+  private CompactHyperLogLog(int log2m, RegisterSet registerSet) {
+    super(log2m, registerSet);
+    _log2m = log2m;
+    _registerSet = registerSet;
+  }
+
+  public int getLog2m() {
+    return _log2m;
+  }
+
+  public CompactHyperLogLog copy() {
+    return new CompactHyperLogLog(_log2m, new RegisterSet(_registerSet.count, _registerSet.bits()));
+  }
+
+  /**
+   * Returns the largest possible size of the serialized form for the given log2m, i.e. the dense size.
+   */
+  public static int getMaxSerializedSize(int log2m) {
+    return HEADER_SIZE + RegisterSet.getSizeForCount(1 << log2m) * 4;
+  }
+
+  public byte[] toBytes() {
+    int numNonZeroRegisters = 0;
+    for (int i = 0; i < _registerSet.count; i++) {
+      if (_registerSet.get(i) != 0) {
+        numNonZeroRegisters++;
+      }
+    }
+    int sparseSize = HEADER_SIZE + 4 + numNonZeroRegisters * SPARSE_ENTRY_SIZE;
+    int denseSize = getMaxSerializedSize(_log2m);
+
+    if (_log2m <= MAX_SPARSE_LOG2M && sparseSize < denseSize) {
+      ByteBuffer buffer = ByteBuffer.allocate(sparseSize);
+      buffer.put(SPARSE_ENCODING).put((byte) _log2m).putInt(numNonZeroRegisters);
+      for (int i = 0; i < _registerSet.count; i++) {
+        int value = _registerSet.get(i);
+        if (value != 0) {
+          buffer.putChar((char) i).put((byte) value);
+        }
+      }
+      return buffer.array();
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(denseSize);
+    buffer.put(DENSE_ENCODING).put((byte) _log2m);
+    for (int word : _registerSet.bits()) {
+      buffer.putInt(word);
+    }
+    return buffer.array();
+  }
+
+  public static CompactHyperLogLog fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.get();
+    CompactHyperLogLog hll = new CompactHyperLogLog(buffer.get());
+    hll.mergeSerialized(bytes);
+    return hll;
+  }
+
+  /**
+   * Merges a serialized sketch into this one, updating the registers directly from the bytes.
+   */
+  public void mergeSerialized(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    byte encoding = buffer.get();
+    int log2m = buffer.get();
+    if (log2m != _log2m) {
+      throw new IllegalArgumentException(
+          "Cannot merge HyperLogLog with log2m " + log2m + " into HyperLogLog with log2m " + _log2m);
+    }
+
+    switch (encoding) {
+      case SPARSE_ENCODING:
+        int numNonZeroRegisters = buffer.getInt();
+        for (int i = 0; i < numNonZeroRegisters; i++) {
+          int index = buffer.getChar();
+          _registerSet.updateIfGreater(index, buffer.get());
+        }
+        break;
+      case DENSE_ENCODING:
+        int[] words = new int[_registerSet.size];
+        buffer.asIntBuffer().get(words);
+        _registerSet.merge(new RegisterSet(_registerSet.count, words));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown HyperLogLog encoding " + encoding);
+    }
+  }
+
+  public String toSerializedString() {
+    return DatatypeConverter.printBase64Binary(toBytes());
+  }
+
+  /**
+   * Deserializes a sketch from its string form, treating missing values (null or empty) as empty sketches of the
+   * given log2m.
+   */
+  public static CompactHyperLogLog fromSerializedString(String value, int defaultLog2m) {
+    if (value == null || value.isEmpty()) {
+      return new CompactHyperLogLog(defaultLog2m);
+    }
+    return fromBytes(DatatypeConverter.parseBase64Binary(value));
+  }
+
+  /**
+   * Merges a sketch in string form into this one, ignoring missing values (null or empty).
+   */
+  public void mergeSerializedString(String value) {
+    if (value == null || value.isEmpty()) {
+      return;
+    }
+    mergeSerialized(DatatypeConverter.parseBase64Binary(value));
+  }
+
+  private Object writeReplace() {
+    return new SerializedForm(toBytes());
+  }
+
+  private static class SerializedForm implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private byte[] _bytes;
+
+    public SerializedForm() {
+    }
+
+    SerializedForm(byte[] bytes) {
+      _bytes = bytes;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+      out.writeInt(_bytes.length);
+      out.write(_bytes);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+      _bytes = new byte[in.readInt()];
+      in.readFully(_bytes);
+    }
+
+    private Object readResolve() {
+      return fromBytes(_bytes);
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.CombineLevel;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.Locale;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -38,16 +39,23 @@ import java.util.List;
 
 /**
  * Accurate Percentile function, it is used for ground truth.
- * It will sort a large list which incurs significant overhead when data is large.
- * Use digest estimation {@link DigestAggregationFunction} instead.
+ * Intermediate results are {@link PercentileHistogram}s of the values, computed from the dictionary ids when the
+ * cardinality allows it. Use digest estimation {@link DigestAggregationFunction} when an estimate is good enough.
+ *
+ * Intermediate results can also be lists of values, as produced by older servers.
  */
-public class PercentileAggregationFunction implements AggregationFunction<DoubleArrayList, Double> {
+public class PercentileAggregationFunction implements AggregationFunction<Serializable, Double> {
   private static final Logger LOGGER = LoggerFactory.getLogger(PercentileAggregationFunction.class);
   public static final int DEFAULT_COMPRESSION_FACTOR = 100;
 
   private String _columnName;
   private byte _percentile; // 0-100
 
+  // Dictionary id counts of the current block, allocated once per segment (a function instance serves one segment) and
+  // cleared after each block through the list of dictionary ids counted
+  private long[] _dictIdCounts;
+  private final IntArrayList _countedDictIds = new IntArrayList();
+
   public PercentileAggregationFunction(byte percentile) {
     _percentile = percentile;
   }
@@ -57,14 +65,14 @@ public class PercentileAggregationFunction implements AggregationFunction<Double
     _columnName = aggregationInfo.getAggregationParams().get("column");
   }
 
-  private void offerValue(int docId, Block[] block, DoubleArrayList list) {
+  private void offerValue(int docId, Block[] block, PercentileHistogram histogram) {
     Dictionary dictionaryReader = block[0].getMetadata().getDictionary();
     BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
 
     if (blockValIterator.skipTo(docId)) {
       int dictionaryIndex = blockValIterator.nextIntVal();
       if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
-        list.add(((Number) dictionaryReader.get(dictionaryIndex)).doubleValue());
+        histogram.offer(((Number) dictionaryReader.get(dictionaryIndex)).doubleValue());
       } else {
         // ignore this
         LOGGER.info("ignore NULL_VALUE_INDEX");
@@ -73,53 +81,77 @@ public class PercentileAggregationFunction implements AggregationFunction<Double
   }
 
   @Override
-  public DoubleArrayList aggregate(Block docIdSetBlock, Block[] block) {
+  public PercentileHistogram aggregate(Block docIdSetBlock, Block[] block) {
     DataType type = block[0].getMetadata().getDataType();
     if (!type.isNumber()) {
       throw new RuntimeException("Only number column can be used in quantile, get: " + type);
     }
 
     BlockDocIdIterator docIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
-    DoubleArrayList ret = new DoubleArrayList();
+    PercentileHistogram ret = new PercentileHistogram();
+    Dictionary dictionaryReader = block[0].getMetadata().getDictionary();
     int docId = 0;
-    while ((docId = docIdIterator.next()) != Constants.EOF) {
-      offerValue(docId, block, ret);
+    if (dictionaryReader.length() > PercentileHistogram.DEFAULT_MAX_NUM_VALUES) {
+      while ((docId = docIdIterator.next()) != Constants.EOF) {
+        offerValue(docId, block, ret);
+      }
+      return ret;
     }
 
+    // Count the dictionary ids first, the histogram is bounded by the cardinality
+    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
+    if (_dictIdCounts == null || _dictIdCounts.length < dictionaryReader.length()) {
+      _dictIdCounts = new long[dictionaryReader.length()];
+    }
+    long[] dictIdCounts = _dictIdCounts;
+    while ((docId = docIdIterator.next()) != Constants.EOF) {
+      if (blockValIterator.skipTo(docId)) {
+        int dictionaryIndex = blockValIterator.nextIntVal();
+        if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
+          if (dictIdCounts[dictionaryIndex]++ == 0) {
+            _countedDictIds.add(dictionaryIndex);
+          }
+        }
+      }
+    }
+    for (int i = 0; i < _countedDictIds.size(); i++) {
+      int dictId = _countedDictIds.getInt(i);
+      ret.offer(dictionaryReader.getDoubleValue(dictId), dictIdCounts[dictId]);
+      dictIdCounts[dictId] = 0L;
+    }
+    _countedDictIds.clear();
     return ret;
   }
 
   @Override
-  public DoubleArrayList aggregate(DoubleArrayList mergedResult, int docId, Block[] block) {
+  public PercentileHistogram aggregate(Serializable mergedResult, int docId, Block[] block) {
     DataType type = block[0].getMetadata().getDataType();
     if (!type.isNumber()) {
       throw new RuntimeException("Only number column can be used in quantile, get: " + type);
     }
 
-    if (mergedResult == null) {
-      mergedResult = new DoubleArrayList();
-    }
-    offerValue(docId, block, mergedResult);
-    return mergedResult;
+    PercentileHistogram histogram = (mergedResult == null) ? new PercentileHistogram() : (PercentileHistogram) mergedResult;
+    offerValue(docId, block, histogram);
+    return histogram;
   }
 
   @Override
-  public List<DoubleArrayList> combine(List<DoubleArrayList> aggregationResultList, CombineLevel combineLevel) {
+  public List<Serializable> combine(List<Serializable> aggregationResultList, CombineLevel combineLevel) {
     if ((aggregationResultList == null) || aggregationResultList.isEmpty()) {
       return null;
     }
 
-    DoubleArrayList list = new DoubleArrayList();
-    for (DoubleArrayList aggregationResult : aggregationResultList) {
-      list.addAll(aggregationResult);
+    PercentileHistogram histogram = new PercentileHistogram();
+    for (Serializable aggregationResult : aggregationResultList) {
+      histogram.merge(toHistogram(aggregationResult));
     }
     aggregationResultList.clear();
-    aggregationResultList.add(list);
+    aggregationResultList.add(histogram);
     return aggregationResultList;
   }
 
   @Override
-  public DoubleArrayList combineTwoValues(DoubleArrayList aggregationResult0, DoubleArrayList aggregationResult1) {
+  public Serializable combineTwoValues(Serializable aggregationResult0, Serializable aggregationResult1) {
     if (aggregationResult0 == null) {
       return aggregationResult1;
     }
@@ -127,27 +159,30 @@ public class PercentileAggregationFunction implements AggregationFunction<Double
       return aggregationResult0;
     }
 
-    aggregationResult0.addAll(aggregationResult1);
-    return aggregationResult0;
+    PercentileHistogram histogram = toHistogram(aggregationResult0);
+    histogram.merge(toHistogram(aggregationResult1));
+    return histogram;
   }
 
-  /**
-   * naive and slow implementation
-   * @param combinedResultList
-   * @return
-   */
   @Override
-  public Double reduce(List<DoubleArrayList> combinedResultList) {
+  public Double reduce(List<Serializable> combinedResultList) {
     if ((combinedResultList == null) || combinedResultList.isEmpty()) {
       return 0.0;
     }
 
-    DoubleArrayList list = new DoubleArrayList();
-    for (DoubleArrayList aggregationResult : combinedResultList) {
-      list.addAll(aggregationResult);
+    PercentileHistogram histogram = new PercentileHistogram();
+    for (Serializable aggregationResult : combinedResultList) {
+      histogram.merge(toHistogram(aggregationResult));
     }
 
-    return PercentileUtil.getValueOnPercentile(list, _percentile);
+    return histogram.getPercentile(_percentile);
+  }
+
+  private static PercentileHistogram toHistogram(Serializable aggregationResult) {
+    if (aggregationResult instanceof DoubleArrayList) {
+      return PercentileHistogram.fromValues((DoubleArrayList) aggregationResult);
+    }
+    return (PercentileHistogram) aggregationResult;
   }
 
   @Override
@@ -173,6 +208,6 @@ public class PercentileAggregationFunction implements AggregationFunction<Double
 
   @Override
   public Serializable getDefaultValue() {
-    return new DoubleArrayList();
+    return new PercentileHistogram();
   }
 }
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.function.quantile;
+
+import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.DigestAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
+import it.unimi.dsi.fastutil.doubles.Double2LongMap;
+import it.unimi.dsi.fastutil.doubles.Double2LongOpenHashMap;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * Intermediate result of the exact percentile functions: a value to count histogram, which is bounded by the
+ * cardinality of the column and merges cheaply across segments and servers.
+ *
+ * Once the number of distinct values goes above the configured maximum, the histogram falls back to a
+ * {@link QuantileDigest} (the same sketch as percentileest), which keeps the size bounded at the cost of exactness.
+ * The digest only holds longs, so values are added through an order preserving mapping of doubles to longs rather than
+ * truncated: the estimated percentiles keep the full precision of the values.
+ *
+ * The histogram is serialized as its distinct values in sorted order, followed by their var-length encoded counts.
+ */
+public class PercentileHistogram implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final int DEFAULT_MAX_NUM_VALUES = 100000;
+
+  private int _maxNumValues;
+  // Exactly one of these is set
+  private transient Double2LongOpenHashMap _valueToCount;
+  private transient QuantileDigest _digest;
+
+  public PercentileHistogram() {
+    this(DEFAULT_MAX_NUM_VALUES);
+  }
+
+  public PercentileHistogram(int maxNumValues) {
+    _maxNumValues = maxNumValues;
+    _valueToCount = new Double2LongOpenHashMap();
+  }
+
+  /**
+   * Returns a histogram of the given list of values, which is the intermediate result of older servers.
+   */
+  public static PercentileHistogram fromValues(DoubleArrayList values) {
+    PercentileHistogram histogram = new PercentileHistogram();
+    for (int i = 0; i < values.size(); i++) {
+      histogram.offer(values.getDouble(i));
+    }
+    return histogram;
+  }
+
+  public void offer(double value) {
+    offer(value, 1L);
+  }
+
+  public void offer(double value, long count) {
+    if (_digest != null) {
+      _digest.add(toSortableLong(value), count);
+      return;
+    }
+    _valueToCount.addTo(value, count);
+    if (_valueToCount.size() > _maxNumValues) {
+      convertToDigest();
+    }
+  }
+
+  public void merge(PercentileHistogram other) {
+    if (other._digest == null) {
+      for (Double2LongMap.Entry entry : other._valueToCount.double2LongEntrySet()) {
+        offer(entry.getDoubleKey(), entry.getLongValue());
+      }
+    } else {
+      if (_digest == null) {
+        convertToDigest();
+      }
+      _digest.merge(other._digest);
+    }
+  }
+
+  /**
+   * Returns true if the percentiles are exact, false if they are estimated by the digest.
+   */
+  public boolean isExact() {
+    return _digest == null;
+  }
+
+  /**
+   * Returns the value at the given percentile, with the same definition as
+   * {@link PercentileUtil#getValueOnPercentile}, or 0 if there is no value.
+   */
+  public double getPercentile(int percentile) {
+    double quantile = (percentile + 0.0) / 100;
+    if (_digest != null) {
+      return fromSortableLong(_digest.getQuantile(quantile));
+    }
+    if (_valueToCount.isEmpty()) {
+      return 0.0;
+    }
+
+    double[] values = getSortedValues();
+    long totalCount = 0;
+    for (long count : _valueToCount.values()) {
+      totalCount += count;
+    }
+    long index = (long) (totalCount * quantile);
+    long countSoFar = 0;
+    for (double value : values) {
+      countSoFar += _valueToCount.get(value);
+      if (countSoFar > index) {
+        return value;
+      }
+    }
+    return values[values.length - 1];
+  }
+
+  private double[] getSortedValues() {
+    double[] values = _valueToCount.keySet().toDoubleArray();
+    Arrays.sort(values);
+    return values;
+  }
+
+  private void convertToDigest() {
+    _digest = new QuantileDigest(DigestAggregationFunction.DEFAULT_MAX_ERROR);
+    for (Double2LongMap.Entry entry : _valueToCount.double2LongEntrySet()) {
+      _digest.add(toSortableLong(entry.getDoubleKey()), entry.getLongValue());
+    }
+    _valueToCount = null;
+  }
+
+  /**
+   * Maps a double to a long with the same ordering: the sign bit of the IEEE 754 representation is kept, and the other
+   * bits are flipped for negative values so that larger magnitudes compare lower. The mapping is its own inverse.
+   */
+  private static long toSortableLong(double value) {
+    long bits = Double.doubleToLongBits(value);
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  private static double fromSortableLong(long sortableLong) {
+    return Double.longBitsToDouble(sortableLong ^ ((sortableLong >> 63) & Long.MAX_VALUE));
+  }
+
+  private void writeObject(ObjectOutputStream out)
+      throws IOException {
+    out.writeInt(_maxNumValues);
+    out.writeBoolean(_digest == null);
+    if (_digest != null) {
+      _digest.serialize(out);
+      return;
+    }
+    double[] values = getSortedValues();
+    out.writeInt(values.length);
+    for (double value : values) {
+      out.writeDouble(value);
+    }
+    for (double value : values) {
+      writeVarLong(out, _valueToCount.get(value));
+    }
+  }
+
+  private void readObject(ObjectInputStream in)
+      throws IOException {
+    _maxNumValues = in.readInt();
+    if (!in.readBoolean()) {
+      _digest = QuantileDigest.deserialize(in);
+      return;
+    }
+    int numValues = in.readInt();
+    double[] values = new double[numValues];
+    for (int i = 0; i < numValues; i++) {
+      values[i] = in.readDouble();
+    }
+    _valueToCount = new Double2LongOpenHashMap(numValues);
+    for (double value : values) {
+      _valueToCount.put(value, readVarLong(in));
+    }
+  }
+
+  private static void writeVarLong(ObjectOutputStream out, long value)
+      throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(ObjectInputStream in)
+      throws IOException {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return isExact() ? "PercentileHistogram{numValues=" + _valueToCount.size() + "}"
+        : "PercentileHistogram{digest=" + _digest + "}";
+  }
+}
@@ -20,20 +20,26 @@ import com.google.common.collect.MinMaxPriorityQueue;
 import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.request.SelectionSort;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.response.broker.AggregationResult;
 import com.linkedin.pinot.common.response.broker.GroupByResult;
 import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.request.HavingPredicate;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -45,7 +51,14 @@ import org.slf4j.LoggerFactory;
 /**
  * GroupByAggregationService is initialized by aggregation functions and groupBys.
  *
+ * When the query has a HAVING clause, the broker drops the groups whose final aggregation results do not satisfy it.
+ * Servers keep every group, because a group they drop could still be merged with the results of the other servers.
+ * For the same reason, servers do not trim the groups of such queries: a trim ranks the groups on partial results
+ * without the HAVING clause, so it could keep only groups the broker then drops, e.g. the largest sums for
+ * ORDER BY sum(x) DESC HAVING sum(x) &lt; 10.
  *
+ * When the query has an ORDER BY clause on aggregations, the groups of all the aggregations are ordered and trimmed
+ * together on it, instead of each aggregation keeping its own top groups.
  */
 public class AggregationGroupByOperatorService {
   private static final Logger LOGGER = LoggerFactory.getLogger(AggregationGroupByOperatorService.class);
@@ -55,12 +68,38 @@ public class AggregationGroupByOperatorService {
   private final int _trimThreshold;
   private final int _trimSize;
   private final List<AggregationFunction> _aggregationFunctionList;
+  private final List<HavingPredicate> _havingPredicates = new ArrayList<>();
+  private final int[] _havingAggregationIndexes;
+  // Null if the query has no ORDER BY clause.
+  private final int[] _orderByAggregationIndexes;
+  private final boolean[] _orderByAscending;
 
   public AggregationGroupByOperatorService(List<AggregationInfo> aggregationInfos, GroupBy groupByQuery) {
     _aggregationFunctionList = AggregationFunctionFactory.getAggregationFunction(aggregationInfos);
     _groupByColumns = groupByQuery.getColumns();
     _groupByTopN = (int) groupByQuery.getTopN();
 
+    int numHavingPredicates = groupByQuery.getHavingSize();
+    _havingAggregationIndexes = new int[numHavingPredicates];
+    for (int i = 0; i < numHavingPredicates; i++) {
+      HavingPredicate havingPredicate = HavingPredicate.fromString(groupByQuery.getHaving().get(i));
+      _havingPredicates.add(havingPredicate);
+      _havingAggregationIndexes[i] = getAggregationIndex(aggregationInfos, havingPredicate.getAggregation());
+    }
+    if (groupByQuery.getOrderBySize() > 0) {
+      int numOrderByAggregations = groupByQuery.getOrderBySize();
+      _orderByAggregationIndexes = new int[numOrderByAggregations];
+      _orderByAscending = new boolean[numOrderByAggregations];
+      for (int i = 0; i < numOrderByAggregations; i++) {
+        SelectionSort orderBy = groupByQuery.getOrderBy().get(i);
+        _orderByAggregationIndexes[i] = getAggregationIndex(aggregationInfos, orderBy.getColumn());
+        _orderByAscending[i] = orderBy.isIsAsc();
+      }
+    } else {
+      _orderByAggregationIndexes = null;
+      _orderByAscending = null;
+    }
+
     // _minTrimSize is the larger of _groupByTopN or 1000.
     // _trimThreshold determines whether or not results should be trimmed and is 20 times of _minTrimSize.
     // If result size is < _trimThreshold, return the results without sorting or trimming.
@@ -76,6 +115,12 @@ public class AggregationGroupByOperatorService {
     _trimSize = overFlow ? Integer.MAX_VALUE : (minTrimSize * 5);
   }
 
+  private static int getAggregationIndex(List<AggregationInfo> aggregationInfos, String aggregationExpression) {
+    int index = RequestUtils.indexOfAggregation(aggregationInfos, aggregationExpression);
+    Preconditions.checkArgument(index != -1, "Aggregation " + aggregationExpression + " is not computed by the query");
+    return index;
+  }
+
   public static List<Map<String, Serializable>> transformDataTableToGroupByResult(DataTable dataTable) {
     List<Map<String, Serializable>> aggregationGroupByResults = new ArrayList<Map<String, Serializable>>();
     for (int i = 0; i < dataTable.getNumberOfRows(); i++) {
@@ -125,16 +170,103 @@ public class AggregationGroupByOperatorService {
           }
         }
       }
+      if (!_havingPredicates.isEmpty()) {
+        applyHaving(reducedResult);
+      }
     }
     return reducedResult;
   }
 
+  /**
+   * Removes the groups whose final aggregation results do not satisfy the HAVING clause.
+   *
+   * @param reducedResult List of maps from group by keys to final results, one per aggregation function.
+   */
+  private void applyHaving(List<Map<String, Serializable>> reducedResult) {
+    Set<String> qualifyingKeys = null;
+    for (int i = 0; i < _havingPredicates.size(); i++) {
+      HavingPredicate havingPredicate = _havingPredicates.get(i);
+      Set<String> keys = new HashSet<>();
+      for (Map.Entry<String, Serializable> entry : reducedResult.get(_havingAggregationIndexes[i]).entrySet()) {
+        String key = entry.getKey();
+        Serializable value = entry.getValue();
+        if ((qualifyingKeys == null || qualifyingKeys.contains(key)) && value instanceof Number
+            && havingPredicate.apply(((Number) value).doubleValue())) {
+          keys.add(key);
+        }
+      }
+      qualifyingKeys = keys;
+    }
+    for (Map<String, Serializable> functionLevelReducedResult : reducedResult) {
+      functionLevelReducedResult.keySet().retainAll(qualifyingKeys);
+    }
+  }
+
+  /**
+   * Returns the TOP N group by keys ordered on the final results of the ORDER BY aggregations, or null if the query has
+   * no ORDER BY clause.
+   *
+   * @param finalAggregationResult List of maps from group by keys to final results, one per aggregation function.
+   */
+  private List<String> getOrderedGroupKeys(List<Map<String, Serializable>> finalAggregationResult) {
+    if (_orderByAggregationIndexes == null) {
+      return null;
+    }
+
+    int numOrderByAggregations = _orderByAggregationIndexes.length;
+    MinMaxPriorityQueue<ImmutablePair<Serializable[], String>> minMaxPriorityQueue =
+        MinMaxPriorityQueue.orderedBy(newOrderByComparator()).maximumSize(_groupByTopN).create();
+    for (String groupKey : finalAggregationResult.get(_orderByAggregationIndexes[0]).keySet()) {
+      Serializable[] orderByValues = new Serializable[numOrderByAggregations];
+      for (int i = 0; i < numOrderByAggregations; i++) {
+        orderByValues[i] = finalAggregationResult.get(_orderByAggregationIndexes[i]).get(groupKey);
+        if (!(orderByValues[i] instanceof Comparable)) {
+          orderByValues = null;
+          break;
+        }
+      }
+      if (orderByValues != null) {
+        minMaxPriorityQueue.add(new ImmutablePair<>(orderByValues, groupKey));
+      }
+    }
+
+    List<String> orderedGroupKeys = new ArrayList<>(minMaxPriorityQueue.size());
+    ImmutablePair<Serializable[], String> pair;
+    while ((pair = minMaxPriorityQueue.pollFirst()) != null) {
+      orderedGroupKeys.add(pair.getRight());
+    }
+    return orderedGroupKeys;
+  }
+
+  /**
+   * Returns a comparator putting first the groups ordered first by the ORDER BY clause, given the values of its
+   * aggregations for the groups.
+   */
+  private Comparator<ImmutablePair<Serializable[], String>> newOrderByComparator() {
+    return new Comparator<ImmutablePair<Serializable[], String>>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public int compare(ImmutablePair<Serializable[], String> o1, ImmutablePair<Serializable[], String> o2) {
+        Serializable[] values1 = o1.getLeft();
+        Serializable[] values2 = o2.getLeft();
+        for (int i = 0; i < values1.length; i++) {
+          int cmp = ((Comparable) values1[i]).compareTo(values2[i]);
+          if (cmp != 0) {
+            return _orderByAscending[i] ? cmp : -cmp;
+          }
+        }
+        return 0;
+      }
+    };
+  }
+
   public List<JSONObject> renderGroupByOperators(List<Map<String, Serializable>> finalAggregationResult) {
     try {
       if (finalAggregationResult == null || finalAggregationResult.size() != _aggregationFunctionList.size()) {
         return null;
       }
       List<JSONObject> retJsonResultList = new ArrayList<JSONObject>();
+      List<String> orderedGroupKeys = getOrderedGroupKeys(finalAggregationResult);
       for (int i = 0; i < _aggregationFunctionList.size(); ++i) {
         JSONArray groupByResultsArray = new JSONArray();
 
@@ -142,7 +274,18 @@ public class AggregationGroupByOperatorService {
         Map<String, Serializable> reducedGroupByResult = finalAggregationResult.get(i);
         AggregationFunction aggregationFunction = _aggregationFunctionList.get(i);
 
-        if (!reducedGroupByResult.isEmpty()) {
+        if (orderedGroupKeys != null) {
+          for (String groupedKey : orderedGroupKeys) {
+            Serializable value = reducedGroupByResult.get(groupedKey);
+            if (value != null) {
+              JSONObject groupByResultObject = new JSONObject();
+              groupByResultObject.put("group", new JSONArray(
+                  groupedKey.split(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString(), groupSize)));
+              groupByResultObject.put("value", aggregationFunction.render(value).get("value"));
+              groupByResultsArray.put(groupByResultObject);
+            }
+          }
+        } else if (!reducedGroupByResult.isEmpty()) {
           boolean reverseOrder = aggregationFunction.getFunctionName().startsWith(MIN_PREFIX);
 
           MinMaxPriorityQueue<ImmutablePair<Serializable, String>> minMaxPriorityQueue =
@@ -198,6 +341,7 @@ public class AggregationGroupByOperatorService {
     }
 
     List<AggregationResult> aggregationResults = new ArrayList<AggregationResult>();
+    List<String> orderedGroupKeys = getOrderedGroupKeys(reducedGroupByResults);
     for (int i = 0; i < _aggregationFunctionList.size(); ++i) {
       int groupSize = _groupByColumns.size();
 
@@ -207,7 +351,18 @@ public class AggregationGroupByOperatorService {
       String functionName = aggregationFunction.getFunctionName();
       List<GroupByResult> groupByResults = new ArrayList<GroupByResult>();
 
-      if (!reducedGroupByResult.isEmpty()) {
+      if (orderedGroupKeys != null) {
+        for (String groupByColumnsString : orderedGroupKeys) {
+          Serializable value = reducedGroupByResult.get(groupByColumnsString);
+          if (value != null) {
+            GroupByResult groupValue = new GroupByResult();
+            groupValue.setGroup(Arrays.asList(groupByColumnsString
+                .split(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString(), groupSize)));
+            groupValue.setValue(formatValue(value));
+            groupByResults.add(groupValue);
+          }
+        }
+      } else if (!reducedGroupByResult.isEmpty()) {
         /* Reverse sort order for min functions. */
         boolean reverseOrder = aggregationFunction.getFunctionName().startsWith(MIN_PREFIX);
 
@@ -251,6 +406,7 @@ public class AggregationGroupByOperatorService {
   /**
    * Given a list of group by results, trim each one of them to desired size.
    * Desired size is computed to be five times that of the TOP N in the query.
+   * Results of queries with a HAVING clause are returned untrimmed.
    *
    * @param aggregationGroupByResultList List of trimmed group by results.
    * @return
@@ -260,6 +416,10 @@ public class AggregationGroupByOperatorService {
       return aggregationGroupByResultList;
     }
 
+    if (!_havingPredicates.isEmpty()) {
+      return aggregationGroupByResultList;
+    }
+
     List<Map<String, Serializable>> trimmedResults = new ArrayList<>();
     for (int i = 0; i < aggregationGroupByResultList.size(); ++i) {
       if (aggregationGroupByResultList.get(i).size() > _trimThreshold) {
@@ -275,7 +435,7 @@ public class AggregationGroupByOperatorService {
   /**
    * Given a map from group by keys to results for multiple aggregation functions, trim the results to desired size and
    * put them into a list of group by results. This will make it compatible to the old group by code for the upper
-   * layer.
+   * layer. Results of queries with a HAVING clause are not trimmed.
    *
    * @param aggrGroupByResults Map from group by keys to result arrays.
    * @param numAggrFunctions Number of aggregation functions.
@@ -290,8 +450,13 @@ public class AggregationGroupByOperatorService {
       trimmedResults.add(new HashMap<String, Serializable>());
     }
 
-    if (aggrGroupByResults.size() > _trimThreshold) {
-      trimToSize(_aggregationFunctionList, aggrGroupByResults, trimmedResults, numAggrFunctions, _trimSize);
+    // Groups of queries with a HAVING clause are not trimmed, see the class comment
+    if (aggrGroupByResults.size() > _trimThreshold && _havingPredicates.isEmpty()) {
+      if (_orderByAggregationIndexes != null) {
+        trimOnOrderBy(aggrGroupByResults, trimmedResults, numAggrFunctions);
+      } else {
+        trimToSize(_aggregationFunctionList, aggrGroupByResults, trimmedResults, numAggrFunctions, _trimSize);
+      }
     } else {
       convertGroupByResultsFromMapToList(aggrGroupByResults, trimmedResults, numAggrFunctions);
     }
@@ -299,6 +464,45 @@ public class AggregationGroupByOperatorService {
     return trimmedResults;
   }
 
+  /**
+   * Given a map from group by keys to results for multiple aggregation functions, keep the groups ordered first on the
+   * ORDER BY aggregations, with the results of all the aggregations for each of them.
+   *
+   * @param aggrGroupByResults Map from group by keys to result arrays.
+   * @param trimmedGroupByResultList List of maps containing group by results returned.
+   * @param numAggrFunctions Number of aggregation functions.
+   */
+  @SuppressWarnings("unchecked")
+  private void trimOnOrderBy(Map<String, Serializable[]> aggrGroupByResults,
+      List<Map<String, Serializable>> trimmedGroupByResultList, int numAggrFunctions) {
+    int numOrderByAggregations = _orderByAggregationIndexes.length;
+    MinMaxPriorityQueue<ImmutablePair<Serializable[], String>> minMaxPriorityQueue =
+        MinMaxPriorityQueue.orderedBy(newOrderByComparator()).maximumSize(_trimSize).create();
+    for (Map.Entry<String, Serializable[]> entry : aggrGroupByResults.entrySet()) {
+      Serializable[] results = entry.getValue();
+      Serializable[] orderByValues = new Serializable[numOrderByAggregations];
+      for (int i = 0; i < numOrderByAggregations; i++) {
+        int index = _orderByAggregationIndexes[i];
+        orderByValues[i] = _aggregationFunctionList.get(index).reduce(Collections.singletonList(results[index]));
+        if (!(orderByValues[i] instanceof Comparable)) {
+          // Cannot rank the groups, keep them all.
+          convertGroupByResultsFromMapToList(aggrGroupByResults, trimmedGroupByResultList, numAggrFunctions);
+          return;
+        }
+      }
+      minMaxPriorityQueue.add(new ImmutablePair<>(orderByValues, entry.getKey()));
+    }
+
+    ImmutablePair<Serializable[], String> pair;
+    while ((pair = minMaxPriorityQueue.pollFirst()) != null) {
+      String key = pair.getRight();
+      Serializable[] results = aggrGroupByResults.get(key);
+      for (int i = 0; i < numAggrFunctions; i++) {
+        trimmedGroupByResultList.get(i).put(key, results[i]);
+      }
+    }
+  }
+
   /**
    * Given a map from group by keys to results for multiple aggregation functions, convert it to a list of group by
    * results, each of them according to one aggregation function.
@@ -44,6 +44,7 @@ import com.linkedin.pinot.core.plan.maker.PlanMaker;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerService;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerServiceImpl;
+import com.linkedin.pinot.core.util.trace.QueryProfile;
 import com.linkedin.pinot.core.util.trace.TraceContext;
 
 public class ServerQueryExecutorV1Impl implements QueryExecutor {
@@ -93,9 +94,14 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     final long requestId = instanceRequest.getRequestId();
     final long nSegmentsInQuery = instanceRequest.getSearchSegmentsSize();
     long nPrunedSegments = -1;
+    QueryProfile queryProfile = null;
     try {
       TraceContext.register(instanceRequest);
       final BrokerRequest brokerRequest = instanceRequest.getQuery();
+      if (brokerRequest.isEnableProfile()) {
+        queryProfile = new QueryProfile();
+        QueryProfile.registerThreadToProfile(queryProfile);
+      }
       LOGGER.debug("Incoming query is : {}", brokerRequest);
       long startPruningTime = System.nanoTime();
       queryableSegmentDataManagerList = getPrunedQueryableSegments(instanceRequest);
@@ -134,6 +140,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
       instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
       instanceResponse.getMetadata().put("traceInfo", TraceContext.getTraceInfoOfRequestId(instanceRequest.getRequestId()));
+      addOperatorStats(instanceResponse, queryProfile);
       LOGGER.info("Processed requestId {},reqSegments={},prunedSegments={},planTime={},timeUsed={},executeTime={}",
           requestId, nSegmentsInQuery, nPrunedSegments, TimeUnit.MILLISECONDS.convert(planTime, TimeUnit.NANOSECONDS),
           (end-start), TimeUnit.MILLISECONDS.convert(executeTime, TimeUnit.NANOSECONDS));
@@ -150,6 +157,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
       instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
       instanceResponse.getMetadata().put("traceInfo", TraceContext.getTraceInfoOfRequestId(instanceRequest.getRequestId()));
+      addOperatorStats(instanceResponse, queryProfile);
       return instanceResponse;
     } finally {
       if (_instanceDataManager.getTableDataManager(instanceRequest.getQuery().getQuerySource().getTableName()) != null) {
@@ -161,6 +169,20 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
         }
       }
       TraceContext.unregister(instanceRequest);
+      if (queryProfile != null) {
+        QueryProfile.unregisterThreadFromProfile();
+      }
+    }
+  }
+
+  private void addOperatorStats(DataTable instanceResponse, QueryProfile queryProfile) {
+    if (queryProfile == null) {
+      return;
+    }
+    try {
+      instanceResponse.getMetadata().put(QueryProfile.OPERATOR_STATS_METADATA_KEY, queryProfile.toJsonString());
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing operator stats", e);
     }
   }
 
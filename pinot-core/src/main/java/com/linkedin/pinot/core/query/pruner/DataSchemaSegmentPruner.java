@@ -23,6 +23,7 @@ import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterQuery;
 import com.linkedin.pinot.common.request.FilterQueryMap;
 import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 
 
@@ -55,8 +56,8 @@ public class DataSchemaSegmentPruner implements SegmentPruner {
       }
       // Check groupBy columns.
       if ((brokerRequest.getGroupBy() != null) && (brokerRequest.getGroupBy().getColumns() != null)) {
-        for (String columnName : brokerRequest.getGroupBy().getColumns()) {
-          if (!schema.hasColumn(columnName)) {
+        for (String groupByColumn : brokerRequest.getGroupBy().getColumns()) {
+          if (!schema.hasColumn(DateTimeConvertExpression.getColumnName(groupByColumn))) {
             return true;
           }
         }
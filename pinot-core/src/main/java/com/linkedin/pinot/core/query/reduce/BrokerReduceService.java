@@ -23,6 +23,7 @@ import com.linkedin.pinot.common.response.InstanceResponse;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.response.broker.AggregationResult;
 import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.common.response.broker.QueryProcessingException;
 import com.linkedin.pinot.common.response.broker.SelectionResults;
 import com.linkedin.pinot.common.utils.DataTable;
@@ -32,10 +33,12 @@ import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+import com.linkedin.pinot.core.util.trace.QueryProfile;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -54,6 +57,7 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
   private static String NUM_DOCS_SCANNED = "numDocsScanned";
   private static String TIME_USED_MS = "timeUsedMs";
   private static String TOTAL_DOCS = "totalDocs";
+  private static String NUM_GROUPS_LIMIT_REACHED = "numGroupsLimitReached";
 
   @Override
   public BrokerResponseNative reduce(BrokerRequest brokerRequest,
@@ -71,6 +75,11 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
       return BrokerResponseNative.EMPTY_RESULT;
     }
 
+    Map<String, OperatorStats> operatorStatsMap = null;
+    if (brokerRequest.isEnableProfile()) {
+      operatorStatsMap = new LinkedHashMap<>();
+    }
+
     for (ServerInstance serverInstance : instanceResponseMap.keySet()
         .toArray(new ServerInstance[instanceResponseMap.size()])) {
 
@@ -85,6 +94,12 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
             .put(serverInstance.getHostname(), instanceResponse.getMetadata().get("traceInfo"));
       }
 
+      // reduceOnOperatorStats, also shows up when exception happens
+      if (operatorStatsMap != null && instanceResponse.getMetadata() != null) {
+        reduceOnOperatorStats(operatorStatsMap, serverInstance,
+            instanceResponse.getMetadata().get(QueryProfile.OPERATOR_STATS_METADATA_KEY));
+      }
+
       if (instanceResponse.getDataSchema() == null && instanceResponse.getMetadata() != null) {
         for (String key : instanceResponse.getMetadata().keySet()) {
           if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
@@ -106,11 +121,20 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
       brokerResponseNative.setTotalDocs(
           brokerResponseNative.getTotalDocs() + Long.parseLong(instanceResponse.getMetadata().get(TOTAL_DOCS)));
 
+      // Reduce on numGroupsLimitReached
+      if (Boolean.parseBoolean(instanceResponse.getMetadata().get(NUM_GROUPS_LIMIT_REACHED))) {
+        brokerResponseNative.setNumGroupsLimitReached(true);
+      }
+
       if (Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)) > brokerResponseNative.getTimeUsedMs()) {
         brokerResponseNative.setTimeUsedMs(Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)));
       }
     }
 
+    if (operatorStatsMap != null) {
+      brokerResponseNative.setOperatorStats(new ArrayList<>(operatorStatsMap.values()));
+    }
+
     try {
       if (brokerRequest.isSetSelections() && (brokerRequest.getSelections().getSelectionColumns() != null) && (
           brokerRequest.getSelections().getSelectionColumns().size() >= 0)) {
@@ -146,6 +170,21 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
         "Should not reach here, the query has no attributes of selection or aggregation!");
   }
 
+  /**
+   * Merges the operator stats of one server into the stats merged so far.
+   */
+  private void reduceOnOperatorStats(Map<String, OperatorStats> operatorStatsMap, ServerInstance serverInstance,
+      String operatorStatsString) {
+    if (operatorStatsString == null) {
+      return;
+    }
+    try {
+      OperatorStats.mergeInto(operatorStatsMap, OperatorStats.fromJsonString(operatorStatsString));
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while parsing operator stats from server {}", serverInstance, e);
+    }
+  }
+
   /**
    * Reduce selection results from various servers into SelectionResults object, that goes
    * into BrokerResponseNative.
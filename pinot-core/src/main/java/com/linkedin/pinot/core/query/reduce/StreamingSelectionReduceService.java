@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import com.linkedin.pinot.common.query.StreamingReduceService;
+import com.linkedin.pinot.common.query.StreamingReducer;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.Selection;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * StreamingSelectionReduceService streams the rows of selection queries without ordering as line-delimited Json,
+ * writing the rows of each server response as soon as it arrives instead of materializing all of them in a
+ * BrokerResponseNative.
+ *
+ * The stream is made of:
+ * <ul>
+ *   <li>A header line with the selection columns: {"columns":[...]}</li>
+ *   <li>One line per row, as a Json array of the formatted values</li>
+ *   <li>A trailer line with the query statistics: {"numDocsScanned":...,"totalDocs":...,"timeUsedMs":...,
+ *   "exceptions":[...]}</li>
+ * </ul>
+ */
+public class StreamingSelectionReduceService implements StreamingReduceService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingSelectionReduceService.class);
+
+  private static String NUM_DOCS_SCANNED = "numDocsScanned";
+  private static String TIME_USED_MS = "timeUsedMs";
+  private static String TOTAL_DOCS = "totalDocs";
+
+  @Override
+  public boolean isStreamable(BrokerRequest brokerRequest) {
+    // Ordered selections need all the responses to be merged before the first row is known.
+    return brokerRequest.isSetSelections() && !brokerRequest.getSelections().isSetSelectionSortSequence();
+  }
+
+  @Override
+  public StreamingReducer startStreaming(BrokerRequest brokerRequest, Writer writer) {
+    return new SelectionStreamingReducer(brokerRequest.getSelections(), writer);
+  }
+
+  private static class SelectionStreamingReducer implements StreamingReducer {
+    private final Selection _selection;
+    private final Writer _writer;
+    private final List<JSONObject> _exceptions = new ArrayList<JSONObject>();
+
+    private int _remainingRows;
+    private long _numDocsScanned = 0;
+    private long _totalDocs = 0;
+    private DataSchema _dataSchema = null;
+    private List<String> _selectionColumns = null;
+    private boolean _finished = false;
+
+    SelectionStreamingReducer(Selection selection, Writer writer) {
+      _selection = selection;
+      _writer = writer;
+      _remainingRows = selection.getSize();
+    }
+
+    @Override
+    public boolean reduce(ServerInstance serverInstance, DataTable dataTable) throws IOException {
+      if (_finished) {
+        return false;
+      }
+
+      Map<String, String> metadata = dataTable.getMetadata();
+      if (metadata != null) {
+        // Servers can report exceptions along with rows, e.g. when some of their segments failed
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+          String key = entry.getKey();
+          if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+            int errorCode = Integer.parseInt(key.substring(DataTable.EXCEPTION_METADATA_KEY.length()));
+            _exceptions.add(buildException(errorCode, entry.getValue()));
+          }
+        }
+      }
+      if (dataTable.getDataSchema() == null) {
+        return _remainingRows > 0;
+      }
+      if (metadata != null) {
+        _numDocsScanned += Long.parseLong(metadata.get(NUM_DOCS_SCANNED));
+        _totalDocs += Long.parseLong(metadata.get(TOTAL_DOCS));
+      }
+
+      if (_remainingRows <= 0 || dataTable.getNumberOfRows() == 0) {
+        return _remainingRows > 0;
+      }
+
+      // The first response with rows defines the schema of the stream
+      if (_dataSchema == null) {
+        _dataSchema = dataTable.getDataSchema();
+        _selectionColumns = _selection.getSelectionColumns();
+        if (_selectionColumns.size() == 1 && _selectionColumns.get(0).equals("*")) {
+          _selectionColumns = SelectionOperatorUtils.getSelectionColumns(_selectionColumns, _dataSchema);
+        }
+        writeHeader();
+      } else if (!_dataSchema.equals(dataTable.getDataSchema())) {
+        LOGGER.error("SCHEMA-MISMATCH: Dropping response from server: {}", serverInstance);
+        return true;
+      }
+
+      try {
+        int numRows = dataTable.getNumberOfRows();
+        for (int rowId = 0; rowId < numRows && _remainingRows > 0; rowId++) {
+          Serializable[] row = SelectionOperatorUtils.extractRowFromDataTable(dataTable, rowId);
+          Serializable[] formattedRow = SelectionOperatorUtils.getFormattedRow(row, _selectionColumns, _dataSchema);
+          JSONArray jsonRow = new JSONArray();
+          for (Serializable value : formattedRow) {
+            if (value instanceof String[]) {
+              jsonRow.put(new JSONArray(Arrays.asList((String[]) value)));
+            } else {
+              jsonRow.put(value);
+            }
+          }
+          writeLine(jsonRow.toString());
+          _remainingRows--;
+        }
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+      _writer.flush();
+      return _remainingRows > 0;
+    }
+
+    @Override
+    public void finish(long timeUsedMs) throws IOException {
+      if (_finished) {
+        return;
+      }
+      _finished = true;
+
+      try {
+        if (_dataSchema == null) {
+          // No rows, only the explicitly selected columns are known
+          _selectionColumns = new ArrayList<String>();
+          for (String column : _selection.getSelectionColumns()) {
+            if (!column.equals("*")) {
+              _selectionColumns.add(column);
+            }
+          }
+          writeHeader();
+        }
+
+        JSONObject trailer = new JSONObject();
+        trailer.put(NUM_DOCS_SCANNED, _numDocsScanned);
+        trailer.put(TOTAL_DOCS, _totalDocs);
+        trailer.put(TIME_USED_MS, timeUsedMs);
+        trailer.put("exceptions", new JSONArray(_exceptions));
+        writeLine(trailer.toString());
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+      _writer.flush();
+    }
+
+    private void writeHeader() throws IOException {
+      try {
+        JSONObject header = new JSONObject();
+        header.put("columns", new JSONArray(_selectionColumns));
+        writeLine(header.toString());
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+    }
+
+    private void writeLine(String line) throws IOException {
+      _writer.write(line);
+      _writer.write('\n');
+    }
+
+    private static JSONObject buildException(int errorCode, String message) {
+      try {
+        JSONObject exception = new JSONObject();
+        exception.put("errorCode", errorCode);
+        exception.put("message", message);
+        return exception;
+      } catch (JSONException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
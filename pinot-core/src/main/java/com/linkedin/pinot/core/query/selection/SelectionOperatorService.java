@@ -138,7 +138,7 @@ public class SelectionOperatorService {
   private List<String> getSelectionColumns(List<String> selectionColumns) {
     if ((selectionColumns.size() == 1) && selectionColumns.get(0).equals("*")) {
       final List<String> newSelectionColumns = new ArrayList<String>();
-      for (final String columnName : _indexSegment.getColumnNames()) {
+      for (final String columnName : SelectionOperatorUtils.getSelectStarColumns(_indexSegment)) {
         newSelectionColumns.add(columnName);
       }
       return newSelectionColumns;
@@ -16,10 +16,13 @@
 package com.linkedin.pinot.core.query.selection;
 
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.request.SelectionSort;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.response.broker.SelectionResults;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.common.utils.DataTableBuilder;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
@@ -92,10 +95,41 @@ public class SelectionOperatorUtils {
         new DecimalFormat("####################.##########", DecimalFormatSymbols.getInstance(Locale.US)));
   }
 
+  /**
+   * Returns the columns that 'select *' stands for on the given segment: all the columns of the segment but the metric
+   * columns pre-aggregated for its star tree, which are not part of the table schema.
+   */
+  public static String[] getSelectStarColumns(IndexSegment indexSegment) {
+    String[] columnNames = indexSegment.getColumnNames();
+    SegmentMetadata segmentMetadata = indexSegment.getSegmentMetadata();
+    if (segmentMetadata == null || !segmentMetadata.hasStarTree()) {
+      return columnNames;
+    }
+    StarTreeMetadata starTreeMetadata = segmentMetadata.getStarTreeMetadata();
+    if (starTreeMetadata == null || starTreeMetadata.getMaterializedAggregationFunctions() == null
+        || starTreeMetadata.getMaterializedAggregationFunctions().isEmpty()) {
+      return columnNames;
+    }
+
+    Set<String> preAggregatedColumns = new HashSet<String>();
+    for (String function : starTreeMetadata.getMaterializedAggregationFunctions()) {
+      for (String metric : segmentMetadata.getSchema().getMetricNames()) {
+        preAggregatedColumns.add(StarTreeIndexSpec.getPreAggregatedColumnName(function, metric));
+      }
+    }
+    List<String> selectStarColumns = new ArrayList<String>(columnNames.length);
+    for (String columnName : columnNames) {
+      if (!preAggregatedColumns.contains(columnName)) {
+        selectStarColumns.add(columnName);
+      }
+    }
+    return selectStarColumns.toArray(new String[selectStarColumns.size()]);
+  }
+
   public static List<String> getSelectionColumns(List<String> selectionColumns, IndexSegment indexSegment) {
     if ((selectionColumns.size() == 1) && selectionColumns.get(0).equals("*")) {
       selectionColumns.clear();
-      for (final String columnName : indexSegment.getColumnNames()) {
+      for (final String columnName : getSelectStarColumns(indexSegment)) {
         selectionColumns.add(columnName);
       }
     }
@@ -117,7 +151,7 @@ public class SelectionOperatorUtils {
     selectionColumns.addAll(selection.getSelectionColumns());
     if ((selectionColumns.size() == 1) && ((selectionColumns.toArray(new String[0]))[0].equals("*"))) {
       selectionColumns.clear();
-      selectionColumns.addAll(Arrays.asList(indexSegment.getColumnNames()));
+      selectionColumns.addAll(Arrays.asList(getSelectStarColumns(indexSegment)));
     }
     if (selection.getSelectionSortSequence() != null) {
       for (SelectionSort selectionSort : selection.getSelectionSortSequence()) {
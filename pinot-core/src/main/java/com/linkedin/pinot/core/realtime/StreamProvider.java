@@ -64,6 +64,12 @@ public interface StreamProvider {
    */
   void commit(long offset);
 
+  /**
+   * Stops reading new events from the stream. Events that were already read from the stream are still returned by
+   * {@link #next()}, which returns null once all of them were returned.
+   */
+  void stopFetching();
+
   /**
    *
    */
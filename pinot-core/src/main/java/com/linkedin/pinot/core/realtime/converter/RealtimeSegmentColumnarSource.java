@@ -0,0 +1,502 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.converter;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
+import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
+import com.linkedin.pinot.core.segment.creator.ColumnDictIdReader;
+import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentSource;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
+import com.linkedin.pinot.core.segment.creator.InvertedIndexType;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentDictionaryCreator;
+
+
+/**
+ * Exposes the columns of a realtime segment to the segment creation, reusing its dictionaries, forward indexes and
+ * inverted indexes instead of reading it row by row.
+ *
+ * Each realtime dictionary is sorted once, and the dictionary ids of the forward indexes are remapped to the ids of
+ * the sorted dictionary. When documents keep their order, the inverted indexes of the realtime segment are persisted
+ * as they are. When the documents are sorted on a column, the realtime document ids are read in the order of that
+ * column's values.
+ */
+public class RealtimeSegmentColumnarSource implements ColumnarSegmentSource {
+  private final RealtimeSegmentImpl realtimeSegment;
+  private final Schema dataSchema;
+  private final String timeColumnName;
+  private final String realtimeTimeColumnName;
+  private final Set<String> invertedIndexColumns;
+  private final int numDocs;
+  // Realtime document id for each document of the segment, null if documents keep their order
+  private final int[] sortedDocIds;
+  private final Map<String, ColumnValues> columnValuesMap = new ConcurrentHashMap<String, ColumnValues>();
+
+  /**
+   * @param realtimeSegment Realtime segment to convert
+   * @param dataSchema Schema of the segment to create
+   * @param realtimeTimeColumnName Name of the time column in the realtime segment
+   * @param sortedColumn Column to sort the documents on, null to keep the documents in their order
+   * @param invertedIndexColumns Columns for which to create an inverted index
+   */
+  public RealtimeSegmentColumnarSource(RealtimeSegmentImpl realtimeSegment, Schema dataSchema,
+      String realtimeTimeColumnName, String sortedColumn, List<String> invertedIndexColumns) {
+    this.realtimeSegment = realtimeSegment;
+    this.dataSchema = dataSchema;
+    this.timeColumnName = dataSchema.getTimeFieldSpec().getOutGoingTimeColumnName();
+    this.realtimeTimeColumnName = realtimeTimeColumnName;
+    this.invertedIndexColumns = new HashSet<String>();
+    if (invertedIndexColumns != null) {
+      this.invertedIndexColumns.addAll(invertedIndexColumns);
+    }
+    numDocs = realtimeSegment.getAggregateDocumentCount();
+    if (sortedColumn == null) {
+      sortedDocIds = null;
+    } else {
+      Preconditions.checkArgument(dataSchema.getFieldSpecFor(sortedColumn).isSingleValueField(),
+          "Sorted column %s must be single value", sortedColumn);
+      sortedDocIds = sortDocIds(sortedColumn);
+    }
+  }
+
+  /**
+   * Returns true if the documents keep the order of the realtime segment, in which case the realtime inverted
+   * indexes can be persisted as they are.
+   */
+  public boolean keepsDocumentOrder() {
+    return sortedDocIds == null;
+  }
+
+  @Override
+  public Schema getSchema() {
+    return dataSchema;
+  }
+
+  @Override
+  public int getNumDocs() {
+    return numDocs;
+  }
+
+  @Override
+  public ColumnIndexCreationInfo getColumnIndexCreationInfo(String column) throws Exception {
+    FieldSpec spec = dataSchema.getFieldSpecFor(column);
+    String realtimeColumn = getRealtimeColumnName(column);
+    Object[] values = getValues(realtimeSegment.getDictionaryFor(realtimeColumn), spec.getDataType());
+
+    int totalNumberOfEntries;
+    int maxNumberOfMultiValues;
+    MutableRoaringBitmap emptyDocIds = null;
+    if (spec.isSingleValueField()) {
+      totalNumberOfEntries = numDocs;
+      maxNumberOfMultiValues = 0;
+    } else {
+      // Documents without any value get the default null value, as they would when read as rows
+      FixedByteSingleColumnMultiValueReaderWriter forwardIndex =
+          (FixedByteSingleColumnMultiValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn);
+      int[] dictIds = new int[realtimeSegment.getMaxNumberOfMultiValues(realtimeColumn)];
+      totalNumberOfEntries = 0;
+      maxNumberOfMultiValues = 0;
+      for (int docId = 0; docId < numDocs; docId++) {
+        int length = forwardIndex.getIntArray(docId, dictIds);
+        if (length == 0) {
+          if (emptyDocIds == null) {
+            emptyDocIds = new MutableRoaringBitmap();
+          }
+          emptyDocIds.add(docId);
+          length = 1;
+        }
+        totalNumberOfEntries += length;
+        maxNumberOfMultiValues = Math.max(maxNumberOfMultiValues, length);
+      }
+    }
+    Object nullValue = (emptyDocIds != null) ? convert(spec.getDefaultNullValue(), spec.getDataType()) : null;
+
+    Object sortedValues = getSortedUniqueValues(values, spec.getDataType(), nullValue);
+    int cardinality = Array.getLength(sortedValues);
+
+    boolean isSorted = false;
+    if (spec.isSingleValueField()) {
+      FixedByteSingleColumnSingleValueReaderWriter forwardIndex =
+          (FixedByteSingleColumnSingleValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn);
+      int[] ranks = getRanks(values, sortedValues);
+      isSorted = true;
+      int previousRank = -1;
+      for (int docId = 0; docId < numDocs; docId++) {
+        int rank = ranks[forwardIndex.getInt(getRealtimeDocId(docId))];
+        if (rank < previousRank) {
+          isSorted = false;
+          break;
+        }
+        previousRank = rank;
+      }
+    }
+
+    columnValuesMap.put(column, new ColumnValues(values, nullValue, emptyDocIds));
+
+    Object min = (cardinality > 0) ? Array.get(sortedValues, 0) : null;
+    Object max = (cardinality > 0) ? Array.get(sortedValues, cardinality - 1) : null;
+    return new ColumnIndexCreationInfo(true, min, max, sortedValues, ForwardIndexType.FIXED_BIT_COMPRESSED,
+        InvertedIndexType.P4_DELTA, isSorted, false, totalNumberOfEntries, maxNumberOfMultiValues);
+  }
+
+  @Override
+  public ColumnDictIdReader getDictIdReader(String column, SegmentDictionaryCreator dictionaryCreator) {
+    String realtimeColumn = getRealtimeColumnName(column);
+    ColumnValues columnValues = columnValuesMap.get(column);
+
+    int[] dictIdMapping = new int[columnValues.values.length];
+    for (int i = 0; i < dictIdMapping.length; i++) {
+      dictIdMapping[i] = dictionaryCreator.indexOfSV(columnValues.values[i]);
+    }
+    int nullDictId = (columnValues.nullValue != null) ? dictionaryCreator.indexOfSV(columnValues.nullValue) : -1;
+
+    ImmutableRoaringBitmap[] docIds = null;
+    if (keepsDocumentOrder() && invertedIndexColumns.contains(column)) {
+      docIds = getDocIds(realtimeSegment.getInvertedIndexFor(realtimeColumn), dictIdMapping, nullDictId,
+          columnValues.emptyDocIds);
+    }
+
+    if (dataSchema.getFieldSpecFor(column).isSingleValueField()) {
+      return new SingleValueDictIdReader(
+          (FixedByteSingleColumnSingleValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn),
+          dictIdMapping, docIds);
+    }
+    return new MultiValueDictIdReader(
+        (FixedByteSingleColumnMultiValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn),
+        dictIdMapping, nullDictId, docIds);
+  }
+
+  private String getRealtimeColumnName(String column) {
+    return column.equals(timeColumnName) ? realtimeTimeColumnName : column;
+  }
+
+  private int getRealtimeDocId(int docId) {
+    return (sortedDocIds == null) ? docId : sortedDocIds[docId];
+  }
+
+  /**
+   * Orders the realtime documents on the values of the given column, keeping the realtime order for equal values.
+   */
+  private int[] sortDocIds(String column) {
+    String realtimeColumn = getRealtimeColumnName(column);
+    DataType dataType = dataSchema.getFieldSpecFor(column).getDataType();
+    Object[] values = getValues(realtimeSegment.getDictionaryFor(realtimeColumn), dataType);
+    int[] ranks = getRanks(values, getSortedUniqueValues(values, dataType, null));
+    FixedByteSingleColumnSingleValueReaderWriter forwardIndex =
+        (FixedByteSingleColumnSingleValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn);
+
+    // Counting sort on the rank of the value of each document
+    int[] offsets = new int[values.length + 1];
+    for (int docId = 0; docId < numDocs; docId++) {
+      offsets[ranks[forwardIndex.getInt(docId)] + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] docIds = new int[numDocs];
+    for (int docId = 0; docId < numDocs; docId++) {
+      docIds[offsets[ranks[forwardIndex.getInt(docId)]]++] = docId;
+    }
+    return docIds;
+  }
+
+  /**
+   * Returns the documents of each value of the segment dictionary, merging the realtime bitmaps of values which
+   * convert to the same value.
+   */
+  private static ImmutableRoaringBitmap[] getDocIds(RealtimeInvertedIndex invertedIndex, int[] dictIdMapping,
+      int nullDictId, ImmutableRoaringBitmap emptyDocIds) {
+    int cardinality = 0;
+    for (int dictId : dictIdMapping) {
+      cardinality = Math.max(cardinality, dictId + 1);
+    }
+    cardinality = Math.max(cardinality, nullDictId + 1);
+
+    ImmutableRoaringBitmap[] docIds = new ImmutableRoaringBitmap[cardinality];
+    for (int realtimeDictId = 0; realtimeDictId < dictIdMapping.length; realtimeDictId++) {
+      docIds[dictIdMapping[realtimeDictId]] =
+          merge(docIds[dictIdMapping[realtimeDictId]], invertedIndex.getDocIdSetFor(realtimeDictId));
+    }
+    if (emptyDocIds != null) {
+      docIds[nullDictId] = merge(docIds[nullDictId], emptyDocIds);
+    }
+    for (int dictId = 0; dictId < cardinality; dictId++) {
+      if (docIds[dictId] == null) {
+        docIds[dictId] = new MutableRoaringBitmap();
+      }
+    }
+    return docIds;
+  }
+
+  private static ImmutableRoaringBitmap merge(ImmutableRoaringBitmap docIds, ImmutableRoaringBitmap otherDocIds) {
+    if (docIds == null) {
+      return otherDocIds;
+    }
+    if (otherDocIds == null) {
+      return docIds;
+    }
+    return ImmutableRoaringBitmap.or(docIds, otherDocIds);
+  }
+
+  /**
+   * Returns the value of each realtime dictionary id, converted to the given data type.
+   */
+  private static Object[] getValues(MutableDictionaryReader dictionary, DataType dataType) {
+    Object[] values = new Object[dictionary.length()];
+    for (int dictId = 0; dictId < values.length; dictId++) {
+      values[dictId] = convert(dictionary.get(dictId), dataType);
+    }
+    return values;
+  }
+
+  private static Object convert(Object value, DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return (value instanceof Number) ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+      case LONG:
+        return (value instanceof Number) ? ((Number) value).longValue() : Long.parseLong(value.toString());
+      case FLOAT:
+        return (value instanceof Number) ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
+      case DOUBLE:
+        return (value instanceof Number) ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+      case STRING:
+      case BOOLEAN:
+        return value.toString();
+      default:
+        throw new UnsupportedOperationException("Unsupported data type : " + dataType);
+    }
+  }
+
+  /**
+   * Returns the sorted unique values as an array of the type expected by the dictionary creator.
+   */
+  private static Object getSortedUniqueValues(Object[] values, DataType dataType, Object extraValue) {
+    int length = (extraValue == null) ? values.length : values.length + 1;
+    switch (dataType) {
+      case INT: {
+        int[] sortedValues = new int[length];
+        for (int i = 0; i < values.length; i++) {
+          sortedValues[i] = (Integer) values[i];
+        }
+        if (extraValue != null) {
+          sortedValues[values.length] = (Integer) extraValue;
+        }
+        Arrays.sort(sortedValues);
+        int numUniqueValues = 0;
+        for (int i = 0; i < length; i++) {
+          if (i == 0 || sortedValues[i] != sortedValues[numUniqueValues - 1]) {
+            sortedValues[numUniqueValues++] = sortedValues[i];
+          }
+        }
+        return Arrays.copyOf(sortedValues, numUniqueValues);
+      }
+      case LONG: {
+        long[] sortedValues = new long[length];
+        for (int i = 0; i < values.length; i++) {
+          sortedValues[i] = (Long) values[i];
+        }
+        if (extraValue != null) {
+          sortedValues[values.length] = (Long) extraValue;
+        }
+        Arrays.sort(sortedValues);
+        int numUniqueValues = 0;
+        for (int i = 0; i < length; i++) {
+          if (i == 0 || sortedValues[i] != sortedValues[numUniqueValues - 1]) {
+            sortedValues[numUniqueValues++] = sortedValues[i];
+          }
+        }
+        return Arrays.copyOf(sortedValues, numUniqueValues);
+      }
+      case FLOAT: {
+        float[] sortedValues = new float[length];
+        for (int i = 0; i < values.length; i++) {
+          sortedValues[i] = (Float) values[i];
+        }
+        if (extraValue != null) {
+          sortedValues[values.length] = (Float) extraValue;
+        }
+        Arrays.sort(sortedValues);
+        int numUniqueValues = 0;
+        for (int i = 0; i < length; i++) {
+          if (i == 0 || Float.compare(sortedValues[i], sortedValues[numUniqueValues - 1]) != 0) {
+            sortedValues[numUniqueValues++] = sortedValues[i];
+          }
+        }
+        return Arrays.copyOf(sortedValues, numUniqueValues);
+      }
+      case DOUBLE: {
+        double[] sortedValues = new double[length];
+        for (int i = 0; i < values.length; i++) {
+          sortedValues[i] = (Double) values[i];
+        }
+        if (extraValue != null) {
+          sortedValues[values.length] = (Double) extraValue;
+        }
+        Arrays.sort(sortedValues);
+        int numUniqueValues = 0;
+        for (int i = 0; i < length; i++) {
+          if (i == 0 || Double.compare(sortedValues[i], sortedValues[numUniqueValues - 1]) != 0) {
+            sortedValues[numUniqueValues++] = sortedValues[i];
+          }
+        }
+        return Arrays.copyOf(sortedValues, numUniqueValues);
+      }
+      case STRING:
+      case BOOLEAN: {
+        String[] sortedValues = new String[length];
+        for (int i = 0; i < values.length; i++) {
+          sortedValues[i] = (String) values[i];
+        }
+        if (extraValue != null) {
+          sortedValues[values.length] = (String) extraValue;
+        }
+        Arrays.sort(sortedValues);
+        int numUniqueValues = 0;
+        for (int i = 0; i < length; i++) {
+          if (i == 0 || !sortedValues[i].equals(sortedValues[numUniqueValues - 1])) {
+            sortedValues[numUniqueValues++] = sortedValues[i];
+          }
+        }
+        return Arrays.copyOf(sortedValues, numUniqueValues);
+      }
+      default:
+        throw new UnsupportedOperationException("Unsupported data type : " + dataType);
+    }
+  }
+
+  /**
+   * Returns the position of each value in the sorted unique values.
+   */
+  private static int[] getRanks(Object[] values, Object sortedValues) {
+    int[] ranks = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      if (sortedValues instanceof int[]) {
+        ranks[i] = Arrays.binarySearch((int[]) sortedValues, (Integer) values[i]);
+      } else if (sortedValues instanceof long[]) {
+        ranks[i] = Arrays.binarySearch((long[]) sortedValues, (Long) values[i]);
+      } else if (sortedValues instanceof float[]) {
+        ranks[i] = Arrays.binarySearch((float[]) sortedValues, (Float) values[i]);
+      } else if (sortedValues instanceof double[]) {
+        ranks[i] = Arrays.binarySearch((double[]) sortedValues, (Double) values[i]);
+      } else {
+        ranks[i] = Arrays.binarySearch((Object[]) sortedValues, values[i]);
+      }
+    }
+    return ranks;
+  }
+
+  private static class ColumnValues {
+    // Value of each realtime dictionary id, converted to the data type of the column
+    final Object[] values;
+    // Value of the multi value documents without any value, null if there is none
+    final Object nullValue;
+    final ImmutableRoaringBitmap emptyDocIds;
+
+    ColumnValues(Object[] values, Object nullValue, ImmutableRoaringBitmap emptyDocIds) {
+      this.values = values;
+      this.nullValue = nullValue;
+      this.emptyDocIds = emptyDocIds;
+    }
+  }
+
+  private abstract class RealtimeColumnDictIdReader implements ColumnDictIdReader {
+    final int[] dictIdMapping;
+    final ImmutableRoaringBitmap[] docIds;
+
+    RealtimeColumnDictIdReader(int[] dictIdMapping, ImmutableRoaringBitmap[] docIds) {
+      this.dictIdMapping = dictIdMapping;
+      this.docIds = docIds;
+    }
+
+    @Override
+    public boolean hasInvertedIndex() {
+      return docIds != null;
+    }
+
+    @Override
+    public ImmutableRoaringBitmap getDocIds(int dictId) {
+      return docIds[dictId];
+    }
+  }
+
+  private class SingleValueDictIdReader extends RealtimeColumnDictIdReader {
+    private final FixedByteSingleColumnSingleValueReaderWriter forwardIndex;
+
+    SingleValueDictIdReader(FixedByteSingleColumnSingleValueReaderWriter forwardIndex, int[] dictIdMapping,
+        ImmutableRoaringBitmap[] docIds) {
+      super(dictIdMapping, docIds);
+      this.forwardIndex = forwardIndex;
+    }
+
+    @Override
+    public int getDictId(int docId) {
+      return dictIdMapping[forwardIndex.getInt(getRealtimeDocId(docId))];
+    }
+
+    @Override
+    public int getDictIds(int docId, int[] dictIds) {
+      throw new UnsupportedOperationException("Not a multi value column");
+    }
+  }
+
+  private class MultiValueDictIdReader extends RealtimeColumnDictIdReader {
+    private final FixedByteSingleColumnMultiValueReaderWriter forwardIndex;
+    private final int nullDictId;
+
+    MultiValueDictIdReader(FixedByteSingleColumnMultiValueReaderWriter forwardIndex, int[] dictIdMapping,
+        int nullDictId, ImmutableRoaringBitmap[] docIds) {
+      super(dictIdMapping, docIds);
+      this.forwardIndex = forwardIndex;
+      this.nullDictId = nullDictId;
+    }
+
+    @Override
+    public int getDictId(int docId) {
+      throw new UnsupportedOperationException("Not a single value column");
+    }
+
+    @Override
+    public int getDictIds(int docId, int[] dictIds) {
+      int length = forwardIndex.getIntArray(getRealtimeDocId(docId), dictIds);
+      if (length == 0) {
+        dictIds[0] = nullDictId;
+        return 1;
+      }
+      for (int i = 0; i < length; i++) {
+        dictIds[i] = dictIdMapping[dictIds[i]];
+      }
+      return length;
+    }
+  }
+}
@@ -38,6 +38,7 @@ public class RealtimeSegmentConverter {
   private String segmentName;
   private String sortedColumn;
   private List<String> invertedIndexColumns;
+  private String realtimeTimeColumnName;
 
   public RealtimeSegmentConverter(RealtimeSegmentImpl realtimeSegment, String outputPath, Schema schema,
       String tableName, String segmentName, String sortedColumn, List<String> invertedIndexColumns) {
@@ -59,6 +60,7 @@ public class RealtimeSegmentConverter {
     }
 
     newSchema.addField(newTimeSpec.getName(), newTimeSpec);
+    this.realtimeTimeColumnName = original.getOutGoingTimeColumnName();
     this.realtimeSegmentImpl = realtimeSegment;
     this.outputPath = outputPath;
     this.invertedIndexColumns = invertedIndexColumns;
@@ -73,7 +75,28 @@ public class RealtimeSegmentConverter {
     this(realtimeSegment, outputPath, schema, tableName, segmentName, sortedColumn, new ArrayList<String>());
   }
 
+  /**
+   * Builds the offline segment column by column from the dictionaries and indexes of the realtime segment, see
+   * {@link RealtimeSegmentColumnarSource}. Columns are built concurrently.
+   */
   public void build(SegmentVersion segmentVersion) throws Exception {
+    RealtimeSegmentColumnarSource source = new RealtimeSegmentColumnarSource(realtimeSegmentImpl, dataSchema,
+        realtimeTimeColumnName, sortedColumn, invertedIndexColumns);
+    SegmentGeneratorConfig genConfig = getSegmentGeneratorConfig(segmentVersion);
+    // Without re-ordering the documents, the realtime inverted indexes are persisted as they are by the source
+    if (!source.keepsDocumentOrder()) {
+      addInvertedIndexColumns(genConfig);
+    }
+    int numThreads = Math.max(1, Math.min(dataSchema.size(), Runtime.getRuntime().availableProcessors()));
+    final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(genConfig, source, numThreads);
+    driver.build();
+  }
+
+  /**
+   * Builds the offline segment by reading the realtime segment row by row.
+   */
+  public void buildFromRows(SegmentVersion segmentVersion) throws Exception {
     // lets create a record reader
     RecordReader reader;
 
@@ -82,20 +105,29 @@ public class RealtimeSegmentConverter {
     } else {
       reader = new RealtimeSegmentRecordReader(realtimeSegmentImpl, dataSchema, sortedColumn);
     }
+    SegmentGeneratorConfig genConfig = getSegmentGeneratorConfig(segmentVersion);
+    addInvertedIndexColumns(genConfig);
+    final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(genConfig, reader);
+    driver.build();
+  }
+
+  private SegmentGeneratorConfig getSegmentGeneratorConfig(SegmentVersion segmentVersion) {
     SegmentGeneratorConfig genConfig = new SegmentGeneratorConfig(dataSchema);
-    if (invertedIndexColumns != null && !invertedIndexColumns.isEmpty()) {
-      for (String column : invertedIndexColumns) {
-        genConfig.createInvertedIndexForColumn(column);
-      }
-    }
     genConfig.setTimeColumnName(dataSchema.getTimeFieldSpec().getOutGoingTimeColumnName());
     genConfig.setSegmentTimeUnit(dataSchema.getTimeFieldSpec().getOutgoingGranularitySpec().getTimeType());
     genConfig.setSegmentVersion(segmentVersion);
     genConfig.setTableName(tableName);
     genConfig.setOutDir(outputPath);
     genConfig.setSegmentName(segmentName);
-    final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
-    driver.init(genConfig, reader);
-    driver.build();
+    return genConfig;
+  }
+
+  private void addInvertedIndexColumns(SegmentGeneratorConfig genConfig) {
+    if (invertedIndexColumns != null && !invertedIndexColumns.isEmpty()) {
+      for (String column : invertedIndexColumns) {
+        genConfig.createInvertedIndexForColumn(column);
+      }
+    }
   }
 }
@@ -30,6 +30,7 @@ public class FileBasedStreamProviderImpl implements StreamProvider {
   private FileBasedStreamProviderConfig config;
   private RecordReader reader;
   private int count;
+  private boolean fetchingStopped = false;
 
   @Override
   public void init(StreamProviderConfig streamProviderConfig, String tableName, ServerMetrics serverMetrics)
@@ -54,7 +55,7 @@ public class FileBasedStreamProviderImpl implements StreamProvider {
 
   @Override
   public GenericRow next() {
-    if (reader.hasNext()) {
+    if (!fetchingStopped && reader.hasNext()) {
       count++;
       return reader.next();
     }
@@ -82,6 +83,11 @@ public class FileBasedStreamProviderImpl implements StreamProvider {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void stopFetching() {
+    fetchingStopped = true;
+  }
+
   @Override
   public void shutdown() throws Exception {
     reader.close();
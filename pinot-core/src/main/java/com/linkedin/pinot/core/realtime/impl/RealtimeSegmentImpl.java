@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.core.realtime.impl;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import java.io.IOException;
@@ -25,7 +27,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.roaringbitmap.IntIterator;
@@ -51,10 +55,8 @@ import com.linkedin.pinot.core.realtime.RealtimeSegment;
 import com.linkedin.pinot.core.realtime.impl.datasource.RealtimeColumnDataSource;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
 import com.linkedin.pinot.core.realtime.impl.dictionary.RealtimeDictionaryProvider;
-import com.linkedin.pinot.core.realtime.impl.invertedIndex.DimensionInvertertedIndex;
-import com.linkedin.pinot.core.realtime.impl.invertedIndex.MetricInvertedIndex;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.ConcurrentRealtimeInvertedIndex;
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
-import com.linkedin.pinot.core.realtime.impl.invertedIndex.TimeInvertedIndex;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.startree.StarTree;
@@ -62,6 +64,9 @@ import com.linkedin.pinot.core.startree.StarTree;
 public class RealtimeSegmentImpl implements RealtimeSegment {
   private final Logger LOGGER;
   public static final int[] EMPTY_DICTIONARY_IDS_ARRAY = new int[0];
+  // Minimum time between two publications of the indexed documents. Each publication makes the indexing thread copy
+  // the bitmaps it updates next, so queries read the last published documents in between.
+  public static final long MIN_PUBLISH_INTERVAL_MS = 100L;
 
   private SegmentMetadataImpl _segmentMetadata;
   private final Schema dataSchema;
@@ -79,7 +84,13 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   private Map<String, Integer> maxNumberOfMultivaluesMap;
 
-  private int docIdSearchableOffset = -1;
+  // Documents up to docIdSearchableOffset have been published to the inverted indexes and can be queried. Rows are
+  // indexed while holding indexLock, so that queries can publish the documents indexed so far in between two rows.
+  private final ReentrantLock indexLock = new ReentrantLock(true);
+  private volatile int docIdSearchableOffset = -1;
+  private final Ticker ticker;
+  private volatile long lastPublishTimeNs;
+  private int lastIndexedDocId = -1;
   private int numDocsIndexed = 0;
   private int numSuccessIndexed = 0;
 
@@ -96,7 +107,19 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
       ServerMetrics serverMetrics) throws IOException {
+    this(schema, capacity, tableName, segmentName, streamName, serverMetrics, Ticker.systemTicker());
+  }
+
+  /**
+   * Creates a segment that reads the time between two publications of the indexed documents from the given ticker.
+   */
+  @VisibleForTesting
+  public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
+      ServerMetrics serverMetrics, Ticker ticker) throws IOException {
     // initial variable setup
+    this.ticker = ticker;
+    // The first query publishes the documents indexed so far
+    lastPublishTimeNs = ticker.read() - TimeUnit.MILLISECONDS.toNanos(MIN_PUBLISH_INTERVAL_MS);
     this.segmentName = segmentName;
     this.serverMetrics = serverMetrics;
     LOGGER = LoggerFactory.getLogger(RealtimeSegmentImpl.class.getName() + "_" + segmentName + "_" + streamName);
@@ -132,7 +155,7 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     invertedIndexMap = new HashMap<String, RealtimeInvertedIndex>();
 
     for (String dimension : schema.getDimensionNames()) {
-      invertedIndexMap.put(dimension, new DimensionInvertertedIndex(dimension));
+      invertedIndexMap.put(dimension, new ConcurrentRealtimeInvertedIndex(dimension));
       if (schema.getFieldSpecFor(dimension).isSingleValueField()) {
         columnIndexReaderWriterMap.put(dimension, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
             V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
@@ -143,12 +166,12 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
 
     for (String metric : schema.getMetricNames()) {
-      invertedIndexMap.put(metric, new MetricInvertedIndex(metric));
+      invertedIndexMap.put(metric, new ConcurrentRealtimeInvertedIndex(metric));
       columnIndexReaderWriterMap.put(metric, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
           V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
     }
 
-    invertedIndexMap.put(outgoingTimeColumnName, new TimeInvertedIndex(outgoingTimeColumnName));
+    invertedIndexMap.put(outgoingTimeColumnName, new ConcurrentRealtimeInvertedIndex(outgoingTimeColumnName));
     columnIndexReaderWriterMap.put(outgoingTimeColumnName, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
         V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
 
@@ -172,6 +195,15 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   @Override
   public boolean index(GenericRow row) {
+    indexLock.lock();
+    try {
+      return indexRow(row);
+    } finally {
+      indexLock.unlock();
+    }
+  }
+
+  private boolean indexRow(GenericRow row) {
     // Validate row prior to indexing it
     StringBuilder invalidColumns = null;
 
@@ -311,13 +343,47 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     // time
     invertedIndexMap.get(outgoingTimeColumnName).add(rawRowToDicIdMap.get(outgoingTimeColumnName), docId);
 
-    docIdSearchableOffset = docId;
+    lastIndexedDocId = docId;
     numDocsIndexed += 1;
     numSuccessIndexed += 1;
 
     return numDocsIndexed < capacity;
   }
 
+  /**
+   * Returns the last document id that can be queried. Documents indexed since the last publication are published at
+   * most once every MIN_PUBLISH_INTERVAL_MS, waiting for the row being indexed if needed. In between, queries keep
+   * reading the documents published last.
+   */
+  private int getSearchableDocIdOffset() {
+    if (docIdSearchableOffset != docIdGenerator.get() && isPublishIntervalElapsed()) {
+      indexLock.lock();
+      try {
+        // Queries waiting for the lock at the same time publish only once
+        if (isPublishIntervalElapsed()) {
+          publishIndexedDocs();
+        }
+      } finally {
+        indexLock.unlock();
+      }
+    }
+    return docIdSearchableOffset;
+  }
+
+  private boolean isPublishIntervalElapsed() {
+    return TimeUnit.NANOSECONDS.toMillis(ticker.read() - lastPublishTimeNs) >= MIN_PUBLISH_INTERVAL_MS;
+  }
+
+  private void publishIndexedDocs() {
+    if (docIdSearchableOffset != lastIndexedDocId) {
+      for (RealtimeInvertedIndex invertedIndex : invertedIndexMap.values()) {
+        invertedIndex.publish();
+      }
+      lastPublishTimeNs = ticker.read();
+      docIdSearchableOffset = lastIndexedDocId;
+    }
+  }
+
   @Override
   public IndexType getIndexType() {
     throw new UnsupportedOperationException("not implemented");
@@ -341,14 +407,15 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
   @Override
   public DataSource getDataSource(String columnName) {
     FieldSpec fieldSpec = dataSchema.getFieldSpecFor(columnName);
+    int searchableDocIdOffset = getSearchableDocIdOffset();
 
     if (fieldSpec.getFieldType() == FieldType.METRIC) {
       return new RealtimeColumnDataSource(fieldSpec, columnIndexReaderWriterMap.get(columnName),
-          invertedIndexMap.get(columnName), docIdSearchableOffset, -1, dataSchema, dictionaryMap.get(columnName));
+          invertedIndexMap.get(columnName), searchableDocIdOffset, -1, dataSchema, dictionaryMap.get(columnName));
     }
 
     return new RealtimeColumnDataSource(fieldSpec, columnIndexReaderWriterMap.get(columnName),
-        invertedIndexMap.get(columnName), docIdSearchableOffset, maxNumberOfMultivaluesMap.get(columnName), dataSchema,
+        invertedIndexMap.get(columnName), searchableDocIdOffset, maxNumberOfMultivaluesMap.get(columnName), dataSchema,
         dictionaryMap.get(columnName));
   }
 
@@ -645,7 +712,7 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     _segmentMetadata = new SegmentMetadataImpl(segmentMetadata) {
       @Override
       public int getTotalDocs() {
-        return docIdSearchableOffset + 1;
+        return getSearchableDocIdOffset() + 1;
       }
     };
   }
@@ -654,7 +721,7 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     _segmentMetadata = new SegmentMetadataImpl(segmentMetadata, schema) {
       @Override
       public int getTotalDocs() {
-        return docIdSearchableOffset + 1;
+        return getSearchableDocIdOffset() + 1;
       }
     };
   }
@@ -663,6 +730,22 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     return dictionaryMap.containsKey(columnName);
   }
 
+  public MutableDictionaryReader getDictionaryFor(String columnName) {
+    return dictionaryMap.get(columnName);
+  }
+
+  public DataFileReader getForwardIndexFor(String columnName) {
+    return columnIndexReaderWriterMap.get(columnName);
+  }
+
+  public RealtimeInvertedIndex getInvertedIndexFor(String columnName) {
+    return invertedIndexMap.get(columnName);
+  }
+
+  public int getMaxNumberOfMultiValues(String columnName) {
+    return maxNumberOfMultivaluesMap.get(columnName);
+  }
+
   @Override
   public StarTree getStarTree() {
     return null;
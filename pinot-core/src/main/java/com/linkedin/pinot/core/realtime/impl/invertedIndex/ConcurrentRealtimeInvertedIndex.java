@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+
+
+/**
+ * Realtime inverted index with a single writer (the indexing thread) and any number of concurrent readers.
+ *
+ * Bitmaps are kept in an array indexed by dictionary id. The writer only ever mutates bitmaps that have not been
+ * published yet: the first time a published bitmap is updated again, it is copied and the writer carries on with the
+ * copy. {@link #publish()} hands the pending bitmaps over to the readers, who only see published bitmaps through
+ * {@link #getImmutable(int)}, without locking or copying them.
+ */
+public class ConcurrentRealtimeInvertedIndex implements RealtimeInvertedIndex {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final ImmutableRoaringBitmap EMPTY_BITMAP = new MutableRoaringBitmap();
+
+  private final String _columnName;
+
+  // Writer side, only accessed by the indexing thread
+  private MutableRoaringBitmap[] _bitmaps = new MutableRoaringBitmap[INITIAL_CAPACITY];
+  // Whether the bitmap for a dictionary id is also the published one, and must be copied before being updated
+  private boolean[] _published = new boolean[INITIAL_CAPACITY];
+  private int[] _pendingDictIds = new int[INITIAL_CAPACITY];
+  private int _numPendingDictIds = 0;
+
+  // Reader side
+  private volatile AtomicReferenceArray<ImmutableRoaringBitmap> _publishedBitmaps =
+      new AtomicReferenceArray<ImmutableRoaringBitmap>(INITIAL_CAPACITY);
+
+  public ConcurrentRealtimeInvertedIndex(String columnName) {
+    _columnName = columnName;
+  }
+
+  /**
+   * Adds a document to the bitmap of the given dictionary id. Only called from the indexing thread, the document is
+   * not visible to readers until the next call to {@link #publish()}.
+   */
+  @Override
+  public void add(Object dictId, int docId) {
+    int id = (Integer) dictId;
+    if (id >= _bitmaps.length) {
+      int newCapacity = Math.max(_bitmaps.length * 2, id + 1);
+      _bitmaps = Arrays.copyOf(_bitmaps, newCapacity);
+      _published = Arrays.copyOf(_published, newCapacity);
+    }
+
+    MutableRoaringBitmap bitmap = _bitmaps[id];
+    if (bitmap == null) {
+      bitmap = new MutableRoaringBitmap();
+      _bitmaps[id] = bitmap;
+      addPendingDictId(id);
+    } else if (_published[id]) {
+      bitmap = bitmap.clone();
+      _bitmaps[id] = bitmap;
+      _published[id] = false;
+      addPendingDictId(id);
+    }
+    bitmap.add(docId);
+  }
+
+  private void addPendingDictId(int id) {
+    if (_numPendingDictIds == _pendingDictIds.length) {
+      _pendingDictIds = Arrays.copyOf(_pendingDictIds, _numPendingDictIds * 2);
+    }
+    _pendingDictIds[_numPendingDictIds++] = id;
+  }
+
+  /**
+   * Makes all the documents added so far visible to readers. Only called from the indexing thread, or while holding
+   * the lock that keeps the indexing thread out. Every published bitmap is copied on its next update, so callers should
+   * not publish more often than readers need fresh documents.
+   */
+  @Override
+  public void publish() {
+    if (_numPendingDictIds == 0) {
+      return;
+    }
+
+    AtomicReferenceArray<ImmutableRoaringBitmap> publishedBitmaps = _publishedBitmaps;
+    if (publishedBitmaps.length() < _bitmaps.length) {
+      AtomicReferenceArray<ImmutableRoaringBitmap> newPublishedBitmaps =
+          new AtomicReferenceArray<ImmutableRoaringBitmap>(_bitmaps.length);
+      for (int i = 0; i < publishedBitmaps.length(); i++) {
+        newPublishedBitmaps.set(i, publishedBitmaps.get(i));
+      }
+      publishedBitmaps = newPublishedBitmaps;
+    }
+
+    for (int i = 0; i < _numPendingDictIds; i++) {
+      int id = _pendingDictIds[i];
+      publishedBitmaps.set(id, _bitmaps[id]);
+      _published[id] = true;
+    }
+    _numPendingDictIds = 0;
+    _publishedBitmaps = publishedBitmaps;
+  }
+
+  /**
+   * Returns the bitmap being built for the given dictionary id, or null if the dictionary id was never added. Only
+   * safe to call from the indexing thread, readers must use {@link #getImmutable(int)}.
+   */
+  @Override
+  public MutableRoaringBitmap getDocIdSetFor(Object dicId) {
+    int id = (Integer) dicId;
+    if (id >= _bitmaps.length) {
+      return null;
+    }
+    return _bitmaps[id];
+  }
+
+  /**
+   * Returns the published bitmap for the given dictionary id, or an empty bitmap if none was published yet. The
+   * returned bitmap is never modified afterwards.
+   */
+  @Override
+  public ImmutableRoaringBitmap getImmutable(int idx) {
+    AtomicReferenceArray<ImmutableRoaringBitmap> publishedBitmaps = _publishedBitmaps;
+    if (idx >= publishedBitmaps.length()) {
+      return EMPTY_BITMAP;
+    }
+    ImmutableRoaringBitmap bitmap = publishedBitmaps.get(idx);
+    if (bitmap == null) {
+      return EMPTY_BITMAP;
+    }
+    return bitmap;
+  }
+
+  @Override
+  public IntPair getMinMaxRangeFor(int docId) {
+    throw new UnsupportedOperationException("Min max range not supported in realtime inverted index for column: "
+        + _columnName);
+  }
+
+  @Override
+  public void close() throws IOException {
+  }
+}
@@ -25,4 +25,9 @@ public interface RealtimeInvertedIndex extends InvertedIndexReader {
 
   public MutableRoaringBitmap getDocIdSetFor(Object dicId);
 
+  /**
+   * Makes the documents added so far visible through {@link #getImmutable(int)}.
+   */
+  public void publish();
+
 }
@@ -23,9 +23,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericData.Record;
 import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.commons.lang.StringUtils;
@@ -36,6 +36,10 @@ import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.data.GenericRow;
 
 
+/**
+ * Decodes Avro messages prefixed with the md5 of their schema. Datum readers, binary decoders and Avro records are
+ * reused across messages, so an instance must only be used by one thread at a time.
+ */
 public class KafkaAvroMessageDecoder implements KafkaMessageDecoder {
   private static final Logger LOGGER = LoggerFactory.getLogger(KafkaAvroMessageDecoder.class);
 
@@ -43,6 +47,9 @@ public class KafkaAvroMessageDecoder implements KafkaMessageDecoder {
   public static final String SCHEMA_REGISTRY_SCHEMA_NAME = "schema.registry.schema.name";
   private org.apache.avro.Schema defaultAvroSchema;
   private Map<String, org.apache.avro.Schema> md5ToAvroSchemaMap;
+  private Map<String, SchemaDecodingState> md5ToDecodingStateMap;
+  private SchemaDecodingState lastDecodingState;
+  private BinaryDecoder binaryDecoder;
 
   private String schemaRegistryBaseUrl;
   private String kafkaTopicName;
@@ -72,6 +79,7 @@ public class KafkaAvroMessageDecoder implements KafkaMessageDecoder {
     this.avroRecordConvetrer = new AvroRecordToPinotRowGenerator(indexingSchema);
     this.decoderFactory = new DecoderFactory();
     md5ToAvroSchemaMap = new HashMap<String, org.apache.avro.Schema>();
+    md5ToDecodingStateMap = new HashMap<String, SchemaDecodingState>();
   }
 
   @Override
@@ -80,33 +88,76 @@ public class KafkaAvroMessageDecoder implements KafkaMessageDecoder {
       return null;
     }
 
-    byte[] md5 = Arrays.copyOfRange(payload, SCHEMA_HASH_START_OFFSET, SCHEMA_HASH_END_OFFSET);
-
-    String md5String = hex(md5);
-    org.apache.avro.Schema schema = null;
-    if (md5ToAvroSchemaMap.containsKey(md5String)) {
-      schema = md5ToAvroSchemaMap.get(md5String);
-    } else {
-      try {
-        schema = fetchSchema(new URL(schemaRegistryBaseUrl + "/id=" + md5String));
-        md5ToAvroSchemaMap.put(md5String, schema);
-      } catch (Exception e) {
-        schema = defaultAvroSchema;
-        LOGGER.error("error fetching schema from md5 String", e);
-      }
+    // Consecutive messages almost always share their schema, skip the schema lookup in that case
+    SchemaDecodingState state = lastDecodingState;
+    if (state == null || !hasSchemaHash(payload, state.md5)) {
+      state = getDecodingState(Arrays.copyOfRange(payload, SCHEMA_HASH_START_OFFSET, SCHEMA_HASH_END_OFFSET));
+      lastDecodingState = state;
     }
-    DatumReader<Record> reader = new GenericDatumReader<Record>(schema);
+
     try {
-      GenericData.Record avroRecord =
-          reader.read(null, decoderFactory.createBinaryDecoder(payload, HEADER_LENGTH,
-              payload.length - HEADER_LENGTH, null));
-      return avroRecordConvetrer.transform(avroRecord, schema);
+      binaryDecoder =
+          decoderFactory.binaryDecoder(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, binaryDecoder);
+      // The record is reused across messages, its values are copied into the row by the converter
+      state.record = state.reader.read(state.record, binaryDecoder);
+      return avroRecordConvetrer.transform(state.record, state.schema);
     } catch (IOException e) {
       LOGGER.error("Caught exception while reading message", e);
       return null;
     }
   }
 
+  private SchemaDecodingState getDecodingState(byte[] md5) {
+    String md5String = hex(md5);
+    SchemaDecodingState state = md5ToDecodingStateMap.get(md5String);
+    if (state == null) {
+      org.apache.avro.Schema schema;
+      if (md5ToAvroSchemaMap.containsKey(md5String)) {
+        schema = md5ToAvroSchemaMap.get(md5String);
+      } else {
+        try {
+          schema = fetchSchema(new URL(schemaRegistryBaseUrl + "/id=" + md5String));
+          md5ToAvroSchemaMap.put(md5String, schema);
+        } catch (Exception e) {
+          // Not cached, so that the schema is fetched again with the next message
+          LOGGER.error("error fetching schema from md5 String", e);
+          return new SchemaDecodingState(md5, defaultAvroSchema);
+        }
+      }
+      state = new SchemaDecodingState(md5, schema);
+      md5ToDecodingStateMap.put(md5String, state);
+    }
+    return state;
+  }
+
+  private static boolean hasSchemaHash(byte[] payload, byte[] md5) {
+    if (payload.length < SCHEMA_HASH_END_OFFSET) {
+      return false;
+    }
+    for (int i = 0; i < SCHEMA_HASH_LENGTH; i++) {
+      if (payload[SCHEMA_HASH_START_OFFSET + i] != md5[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Avro objects reused to decode the messages written with one schema.
+   */
+  private static class SchemaDecodingState {
+    private final byte[] md5;
+    private final org.apache.avro.Schema schema;
+    private final DatumReader<Record> reader;
+    private Record record;
+
+    private SchemaDecodingState(byte[] md5, org.apache.avro.Schema schema) {
+      this.md5 = md5;
+      this.schema = schema;
+      this.reader = new GenericDatumReader<Record>(schema);
+    }
+  }
+
   public static String hex(byte[] bytes) {
     StringBuilder builder = new StringBuilder(2 * bytes.length);
     for (int i = 0; i < bytes.length; i++) {
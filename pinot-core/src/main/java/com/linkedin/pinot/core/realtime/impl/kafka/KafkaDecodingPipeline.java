@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.data.GenericRow;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import kafka.consumer.ConsumerIterator;
+import kafka.consumer.ConsumerTimeoutException;
+import org.slf4j.Logger;
+
+
+/**
+ * Fetches events from a Kafka high level consumer on a dedicated thread and decodes them on a pool of decoder threads,
+ * handing the decoded rows over to the single indexing thread in the order they were fetched.
+ *
+ * Event i is decoded by decoder thread i % numDecoderThreads, each with its own decoder and queues, so reading the
+ * decoded queues round robin gives back the fetch order without any reordering. The number of events fetched but not
+ * yet handed over is bounded, so that a slow indexing thread holds back the fetch thread.
+ *
+ * The offsets of all fetched events are committed along with the segment, so every fetched event must be indexed:
+ * at most maxEventsToFetch events are fetched, and {@link #stopFetching()} waits for the fetch thread to exit, after
+ * which {@link #next(long)} returns the remaining fetched events and then null.
+ */
+public class KafkaDecodingPipeline {
+  // Placeholder for events that could not be decoded, keeps the hand-off order intact
+  private static final Object NULL_ROW = new Object();
+  private static final int METRICS_UPDATE_INTERVAL = 1000;
+
+  private final ConsumerIterator<byte[], byte[]> _iterator;
+  private final List<KafkaMessageDecoder> _decoders;
+  private final int _numDecoders;
+  private final BlockingQueue<byte[]>[] _fetchedQueues;
+  private final BlockingQueue<Object>[] _decodedQueues;
+  private final Semaphore _inFlightPermits;
+  private final long _maxEventsToFetch;
+  private final String _tableAndStreamName;
+  private final ServerMetrics _serverMetrics;
+  private final Logger _logger;
+
+  private final Thread _fetchThread;
+  private final Thread[] _decoderThreads;
+  private final AtomicLong _numDecoded = new AtomicLong();
+  private volatile boolean _stopFetching = false;
+  private volatile boolean _shutdown = false;
+
+  // Written by the fetch thread only, read by the indexing thread once the fetch thread has exited
+  private long _numFetched = 0L;
+  // Indexing thread only
+  private boolean _fetchStopped = false;
+  private long _numHandedOver = 0L;
+
+  /**
+   * @param decoders one decoder per decoder thread
+   * @param maxEventsInFlight maximum number of events fetched but not yet handed over to the indexing thread
+   * @param maxEventsToFetch maximum number of events to fetch over the lifetime of the pipeline
+   */
+  @SuppressWarnings("unchecked")
+  public KafkaDecodingPipeline(ConsumerIterator<byte[], byte[]> iterator, List<KafkaMessageDecoder> decoders,
+      int maxEventsInFlight, long maxEventsToFetch, String tableAndStreamName, ServerMetrics serverMetrics,
+      Logger logger) {
+    _iterator = iterator;
+    _decoders = decoders;
+    _numDecoders = decoders.size();
+    _inFlightPermits = new Semaphore(maxEventsInFlight);
+    _maxEventsToFetch = maxEventsToFetch;
+    _tableAndStreamName = tableAndStreamName;
+    _serverMetrics = serverMetrics;
+    _logger = logger;
+
+    // Queues are unbounded, the in flight permits bound the total number of queued events
+    _fetchedQueues = new BlockingQueue[_numDecoders];
+    _decodedQueues = new BlockingQueue[_numDecoders];
+    _decoderThreads = new Thread[_numDecoders];
+    for (int i = 0; i < _numDecoders; i++) {
+      _fetchedQueues[i] = new LinkedBlockingQueue<byte[]>();
+      _decodedQueues[i] = new LinkedBlockingQueue<Object>();
+      _decoderThreads[i] = new Thread(new DecoderRunnable(i), "decoder-" + i + "-" + tableAndStreamName);
+      _decoderThreads[i].setDaemon(true);
+    }
+    _fetchThread = new Thread(new FetchRunnable(), "fetcher-" + tableAndStreamName);
+    _fetchThread.setDaemon(true);
+  }
+
+  public void start() {
+    for (Thread decoderThread : _decoderThreads) {
+      decoderThread.start();
+    }
+    _fetchThread.start();
+  }
+
+  /**
+   * Returns the next decoded row in fetch order, or null if none is available within the given time. Once fetching
+   * is stopped, waits for every fetched event to be decoded and returns null only after all of them were returned.
+   * Must only be called from the indexing thread.
+   */
+  public GenericRow next(long timeoutMillis) {
+    try {
+      while (true) {
+        if (_fetchStopped && _numHandedOver == _numFetched) {
+          return null;
+        }
+        BlockingQueue<Object> decodedQueue = _decodedQueues[(int) (_numHandedOver % _numDecoders)];
+        Object event = _fetchStopped ? decodedQueue.take() : decodedQueue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (event == null) {
+          return null;
+        }
+        _numHandedOver++;
+        _inFlightPermits.release();
+        if (event != NULL_ROW) {
+          return (GenericRow) event;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /**
+   * Stops fetching events and waits for the fetch thread to exit. Must only be called from the indexing thread.
+   */
+  public void stopFetching() {
+    _stopFetching = true;
+    Uninterruptibles.joinUninterruptibly(_fetchThread);
+    _fetchStopped = true;
+    _logger.info("Stopped fetching after {} events, {} events left to index", _numFetched,
+        _numFetched - _numHandedOver);
+  }
+
+  /**
+   * Stops all the threads of the pipeline, dropping the events that were not handed over yet.
+   */
+  public void shutdown() {
+    _stopFetching = true;
+    _shutdown = true;
+    _fetchThread.interrupt();
+    for (Thread decoderThread : _decoderThreads) {
+      decoderThread.interrupt();
+    }
+  }
+
+  private class FetchRunnable implements Runnable {
+    @Override
+    public void run() {
+      long lastMetricsUpdate = 0L;
+      while (!_stopFetching && _numFetched < _maxEventsToFetch) {
+        // Acquire the permit before consuming the event, a consumed event must always be queued
+        try {
+          if (!_inFlightPermits.tryAcquire(100L, TimeUnit.MILLISECONDS)) {
+            continue;
+          }
+        } catch (InterruptedException e) {
+          break;
+        }
+
+        boolean queued = false;
+        try {
+          if (!_iterator.hasNext() || _stopFetching) {
+            // The consumer was shut down or fetching was stopped while waiting for an event
+            break;
+          }
+          byte[] message = _iterator.next().message();
+          _fetchedQueues[(int) (_numFetched % _numDecoders)].add(message);
+          queued = true;
+          _numFetched++;
+
+          if (_numFetched - lastMetricsUpdate >= METRICS_UPDATE_INTERVAL) {
+            updateMetrics(_numFetched - lastMetricsUpdate);
+            lastMetricsUpdate = _numFetched;
+          }
+        } catch (ConsumerTimeoutException e) {
+          // No event within the consumer timeout, check whether fetching was stopped
+        } catch (Exception e) {
+          if (_shutdown) {
+            break;
+          }
+          _logger.warn("Caught exception while fetching events", e);
+          _serverMetrics.addMeteredTableValue(_tableAndStreamName, ServerMeter.REALTIME_CONSUMPTION_EXCEPTIONS, 1L);
+          Uninterruptibles.sleepUninterruptibly(100L, TimeUnit.MILLISECONDS);
+        } finally {
+          if (!queued) {
+            _inFlightPermits.release();
+          }
+        }
+      }
+      updateMetrics(_numFetched - lastMetricsUpdate);
+      _logger.info("Fetch thread exiting after fetching {} events", _numFetched);
+    }
+
+    private void updateMetrics(long numFetchedSinceLastUpdate) {
+      _serverMetrics.addMeteredTableValue(_tableAndStreamName, ServerMeter.REALTIME_ROWS_FETCHED,
+          numFetchedSinceLastUpdate);
+      long decodeQueueDepth = 0L;
+      long indexQueueDepth = 0L;
+      for (int i = 0; i < _numDecoders; i++) {
+        decodeQueueDepth += _fetchedQueues[i].size();
+        indexQueueDepth += _decodedQueues[i].size();
+      }
+      _serverMetrics.setValueOfTableGauge(_tableAndStreamName, ServerGauge.REALTIME_DECODE_QUEUE_DEPTH,
+          decodeQueueDepth);
+      _serverMetrics.setValueOfTableGauge(_tableAndStreamName, ServerGauge.REALTIME_INDEX_QUEUE_DEPTH,
+          indexQueueDepth);
+    }
+  }
+
+  private class DecoderRunnable implements Runnable {
+    private final int _decoderId;
+
+    private DecoderRunnable(int decoderId) {
+      _decoderId = decoderId;
+    }
+
+    @Override
+    public void run() {
+      KafkaMessageDecoder decoder = _decoders.get(_decoderId);
+      BlockingQueue<byte[]> fetchedQueue = _fetchedQueues[_decoderId];
+      BlockingQueue<Object> decodedQueue = _decodedQueues[_decoderId];
+      while (!_shutdown) {
+        byte[] message;
+        try {
+          message = fetchedQueue.take();
+        } catch (InterruptedException e) {
+          break;
+        }
+
+        Object row = null;
+        try {
+          row = decoder.decode(message);
+        } catch (Exception e) {
+          _logger.warn("Caught exception while decoding event", e);
+          _serverMetrics.addMeteredTableValue(_tableAndStreamName, ServerMeter.REALTIME_CONSUMPTION_EXCEPTIONS, 1L);
+        }
+        decodedQueue.add(row != null ? row : NULL_ROW);
+
+        long numDecoded = _numDecoded.incrementAndGet();
+        if (numDecoded % METRICS_UPDATE_INTERVAL == 0) {
+          _serverMetrics.addMeteredTableValue(_tableAndStreamName, ServerMeter.REALTIME_ROWS_DECODED,
+              METRICS_UPDATE_INTERVAL);
+        }
+      }
+    }
+  }
+}
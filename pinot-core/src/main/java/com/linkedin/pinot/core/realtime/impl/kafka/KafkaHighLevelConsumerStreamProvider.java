@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.core.realtime.impl.kafka;
 
+import java.util.ArrayList;
+import java.util.List;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import org.slf4j.Logger;
@@ -31,6 +33,8 @@ import kafka.javaapi.consumer.ConsumerConnector;
  */
 public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
   private static final Logger STATIC_LOGGER = LoggerFactory.getLogger(KafkaHighLevelConsumerStreamProvider.class);
+  private static final int MAX_EVENTS_IN_FLIGHT_PER_DECODER = 1000;
+  private static final long PIPELINE_POLL_TIMEOUT_MILLIS = 100L;
 
   private KafkaHighLevelStreamProviderConfig streamProviderConfig;
   private KafkaMessageDecoder decoder;
@@ -40,6 +44,8 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
   private long lastLogTime = 0;
   private long lastCount = 0;
   private ConsumerAndIterator consumerAndIterator;
+  private KafkaDecodingPipeline decodingPipeline;
+  private boolean fetchingStopped = false;
 
   private Logger INSTANCE_LOGGER = STATIC_LOGGER;
 
@@ -64,6 +70,19 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
     consumerAndIterator = KafkaConsumerManager.acquireConsumerAndIteratorForConfig(streamProviderConfig);
     kafkaIterator = consumerAndIterator.getIterator();
     consumer = consumerAndIterator.getConsumer();
+
+    int numDecoderThreads = streamProviderConfig.getNumDecoderThreads();
+    if (numDecoderThreads > 0) {
+      List<KafkaMessageDecoder> decoders = new ArrayList<KafkaMessageDecoder>(numDecoderThreads);
+      for (int i = 0; i < numDecoderThreads; i++) {
+        decoders.add(streamProviderConfig.getDecoder());
+      }
+      decodingPipeline = new KafkaDecodingPipeline(kafkaIterator, decoders,
+          numDecoderThreads * MAX_EVENTS_IN_FLIGHT_PER_DECODER, streamProviderConfig.getSizeThresholdToFlushSegment(),
+          tableAndStreamName, serverMetrics, INSTANCE_LOGGER);
+      decodingPipeline.start();
+      INSTANCE_LOGGER.info("Started decoding pipeline with {} decoder threads", numDecoderThreads);
+    }
   }
 
   @Override
@@ -73,27 +92,19 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
 
   @Override
   public GenericRow next() {
-    if (kafkaIterator.hasNext()) {
+    if (decodingPipeline != null) {
+      // Decoding errors are metered by the pipeline, which skips the events it could not decode
+      GenericRow row = decodingPipeline.next(PIPELINE_POLL_TIMEOUT_MILLIS);
+      if (row != null) {
+        updateConsumedMetrics();
+      }
+      return row;
+    }
+
+    if (!fetchingStopped && kafkaIterator.hasNext()) {
       try {
         GenericRow row = decoder.decode(kafkaIterator.next().message());
-        serverMetrics.addMeteredTableValue(tableAndStreamName, ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
-        serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
-        ++currentCount;
-
-        final long now = System.currentTimeMillis();
-        // Log every minute or 100k events
-        if (now - lastLogTime > 60000 || currentCount - lastCount >= 100000) {
-          if (lastCount == 0) {
-            INSTANCE_LOGGER.info("Consumed {} events from kafka stream {}", currentCount,
-                this.streamProviderConfig.getStreamName());
-          } else {
-            INSTANCE_LOGGER.info("Consumed {} events from kafka stream {} (rate:{}/s)", currentCount - lastCount,
-                this.streamProviderConfig.getStreamName(),
-                (float) (currentCount - lastCount) * 1000 / (now - lastLogTime));
-          }
-          lastCount = currentCount;
-          lastLogTime = now;
-        }
+        updateConsumedMetrics();
         return row;
       } catch (Exception e) {
         INSTANCE_LOGGER.warn("Caught exception while consuming events", e);
@@ -105,6 +116,27 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
     return null;
   }
 
+  private void updateConsumedMetrics() {
+    serverMetrics.addMeteredTableValue(tableAndStreamName, ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
+    serverMetrics.addMeteredGlobalValue(ServerMeter.REALTIME_ROWS_CONSUMED, 1L);
+    ++currentCount;
+
+    final long now = System.currentTimeMillis();
+    // Log every minute or 100k events
+    if (now - lastLogTime > 60000 || currentCount - lastCount >= 100000) {
+      if (lastCount == 0) {
+        INSTANCE_LOGGER.info("Consumed {} events from kafka stream {}", currentCount,
+            this.streamProviderConfig.getStreamName());
+      } else {
+        INSTANCE_LOGGER.info("Consumed {} events from kafka stream {} (rate:{}/s)", currentCount - lastCount,
+            this.streamProviderConfig.getStreamName(),
+            (float) (currentCount - lastCount) * 1000 / (now - lastLogTime));
+      }
+      lastCount = currentCount;
+      lastLogTime = now;
+    }
+  }
+
   @Override
   public GenericRow next(long offset) {
     throw new UnsupportedOperationException();
@@ -127,8 +159,20 @@ public class KafkaHighLevelConsumerStreamProvider implements StreamProvider {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void stopFetching() {
+    fetchingStopped = true;
+    if (decodingPipeline != null) {
+      decodingPipeline.stopFetching();
+    }
+  }
+
   @Override
   public void shutdown() throws Exception {
+    if (decodingPipeline != null) {
+      decodingPipeline.shutdown();
+      decodingPipeline = null;
+    }
     if (consumerAndIterator != null) {
       kafkaIterator = null;
       consumer = null;
@@ -34,6 +34,8 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
   public static final int FIVE_MILLION = 5000000;
   private final static long ONE_MINUTE_IN_MILLSEC = 1000 * 60;
   public static final long ONE_HOUR = ONE_MINUTE_IN_MILLSEC * 60;
+  // Lets the fetch thread of the decoding pipeline notice it has been stopped while no events are coming in
+  private static final String PIPELINED_CONSUMER_TIMEOUT_MS = "100";
 
   static {
     defaultProps = new HashMap<String, String>();
@@ -61,6 +63,7 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
   private Map<String, String> kafkaConsumerProps;
   private long segmentTimeInMillis = ONE_HOUR;
   private int realtimeRecordsThreshold = FIVE_MILLION;
+  private int numDecoderThreads = 0;
 
   /*
    * kafka.hlc.zk.connect.string : comma separated list of hosts
@@ -107,6 +110,10 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
           Long.parseLong(properties.get(Helix.DataSource.Realtime.REALTIME_SEGMENT_FLUSH_TIME));
     }
 
+    if (properties.containsKey(Helix.DataSource.Realtime.REALTIME_DECODER_THREADS)) {
+      numDecoderThreads = Integer.parseInt(properties.get(Helix.DataSource.Realtime.REALTIME_DECODER_THREADS));
+    }
+
     for (String key : properties.keySet()) {
       if (key.startsWith(Helix.DataSource.Realtime.Kafka.DECODER_PROPS_PREFIX)) {
         decoderProps.put(Helix.DataSource.Realtime.Kafka.getDecoderPropertyKey(key), properties.get(key));
@@ -143,11 +150,22 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
       props.put(key, kafkaConsumerProps.get(key));
     }
 
+    if (numDecoderThreads > 0 && !props.containsKey("consumer.timeout.ms")) {
+      props.put("consumer.timeout.ms", PIPELINED_CONSUMER_TIMEOUT_MS);
+    }
+
     props.put("group.id", groupId);
     props.put("zookeeper.connect", zkString);
     return new ConsumerConfig(props);
   }
 
+  /**
+   * Returns the number of threads decoding events, 0 when events are decoded on the indexing thread.
+   */
+  public int getNumDecoderThreads() {
+    return numDecoderThreads;
+  }
+
   public KafkaMessageDecoder getDecoder() throws Exception {
     KafkaMessageDecoder ret = (KafkaMessageDecoder) Class.forName(decodeKlass).newInstance();
     ret.init(decoderProps, indexingSchema, kafkaTopicName);
@@ -178,6 +196,11 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
       segmentTimeInMillis =
           Long.parseLong(tableConfig.getIndexingConfig().getStreamConfigs().get(Helix.DataSource.Realtime.REALTIME_SEGMENT_FLUSH_TIME));
     }
+
+    if (tableConfig.getIndexingConfig().getStreamConfigs().containsKey(Helix.DataSource.Realtime.REALTIME_DECODER_THREADS)) {
+      numDecoderThreads =
+          Integer.parseInt(tableConfig.getIndexingConfig().getStreamConfigs().get(Helix.DataSource.Realtime.REALTIME_DECODER_THREADS));
+    }
   }
 
   @Override
@@ -209,6 +232,7 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
 
     return isEqual(segmentTimeInMillis, that.segmentTimeInMillis) &&
         isEqual(realtimeRecordsThreshold, that.realtimeRecordsThreshold) &&
+        isEqual(numDecoderThreads, that.numDecoderThreads) &&
         isEqual(kafkaTopicName, that.kafkaTopicName) &&
         isEqual(zkString, that.zkString) &&
         isEqual(groupId, that.groupId) &&
@@ -231,6 +255,7 @@ public class KafkaHighLevelStreamProviderConfig implements StreamProviderConfig
     result = hashCodeOf(result, kafkaConsumerProps);
     result = hashCodeOf(result, segmentTimeInMillis);
     result = hashCodeOf(result, realtimeRecordsThreshold);
+    result = hashCodeOf(result, numDecoderThreads);
     return result;
   }
 }
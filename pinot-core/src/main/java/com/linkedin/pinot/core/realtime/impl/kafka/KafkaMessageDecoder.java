@@ -21,6 +21,10 @@ import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.data.GenericRow;
 
 
+/**
+ * Decodes Kafka messages into rows. Decoders may reuse objects across messages, so an instance is only ever used by one
+ * thread at a time; when events are decoded on several threads, each thread gets its own instance.
+ */
 public interface KafkaMessageDecoder {
 
   /**
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reads the dictionary encoded values of a column, so that the column can be indexed as a whole instead of row by row.
+ *
+ * Dictionary ids are the ones of the dictionary of the segment being created, and document ids the ones of the
+ * segment being created.
+ */
+public interface ColumnDictIdReader {
+
+  /**
+   * Returns the dictionary id of the value of a single value column for the given document.
+   *
+   * @param docId Document id
+   * @return Dictionary id of the value
+   */
+  int getDictId(int docId);
+
+  /**
+   * Reads the dictionary ids of the values of a multi value column for the given document.
+   *
+   * @param docId Document id
+   * @param dictIds Array to fill with the dictionary ids, large enough for the maximum number of values of the column
+   * @return Number of values of the document
+   */
+  int getDictIds(int docId, int[] dictIds);
+
+  /**
+   * Returns true if the documents of each value are already known, in which case they are persisted as the inverted
+   * index of the column instead of being collected from the forward index.
+   */
+  boolean hasInvertedIndex();
+
+  /**
+   * Returns the documents having the given value, only called if {@link #hasInvertedIndex()} is true.
+   *
+   * @param dictId Dictionary id of the value
+   * @return Documents having the value
+   */
+  ImmutableRoaringBitmap getDocIds(int dictId);
+}
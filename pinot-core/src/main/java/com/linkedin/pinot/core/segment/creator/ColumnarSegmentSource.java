@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator;
+
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentDictionaryCreator;
+
+
+/**
+ * Source of a segment whose columns are already dictionary encoded, such as a realtime segment.
+ *
+ * The segment is created column by column, without going through rows and without collecting the statistics value by
+ * value. Methods taking a column may be called concurrently for distinct columns.
+ */
+public interface ColumnarSegmentSource {
+
+  /**
+   * Returns the schema of the segment to create.
+   */
+  Schema getSchema();
+
+  /**
+   * Returns the number of documents of the segment to create.
+   */
+  int getNumDocs();
+
+  /**
+   * Gathers the information needed to create the indexes of a column, including its sorted unique values.
+   *
+   * @param column Column name
+   * @return Index creation information of the column
+   * @throws Exception
+   */
+  ColumnIndexCreationInfo getColumnIndexCreationInfo(String column) throws Exception;
+
+  /**
+   * Returns a reader for the values of a column, once the dictionary of the column has been created.
+   *
+   * @param column Column name
+   * @param dictionaryCreator Creator of the dictionary of the column, used to look up the new dictionary ids
+   * @return Reader of the dictionary ids of the column
+   */
+  ColumnDictIdReader getDictIdReader(String column, SegmentDictionaryCreator dictionaryCreator);
+}
@@ -20,5 +20,6 @@ package com.linkedin.pinot.core.segment.creator;
  */
 
 public enum ForwardIndexType {
-  FIXED_BIT_COMPRESSED
+  FIXED_BIT_COMPRESSED,
+  RAW_CHUNK_COMPRESSED
 }
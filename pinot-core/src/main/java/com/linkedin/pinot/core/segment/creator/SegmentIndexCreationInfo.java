@@ -15,6 +15,9 @@
  */
 package com.linkedin.pinot.core.segment.creator;
 
+import java.util.Collections;
+import java.util.List;
+
 public class SegmentIndexCreationInfo {
   private int totalDocs;
   private int totalRawDocs;
@@ -24,6 +27,7 @@ public class SegmentIndexCreationInfo {
   private int totalNulls;
   private int totalConversions;
   private int totalNullCols;
+  private List<String> sortColumns = Collections.emptyList();
 
   public int getTotalDocs() {
     return totalDocs;
@@ -88,4 +92,15 @@ public class SegmentIndexCreationInfo {
   public void setTotalNulls(int totalNulls) {
     this.totalNulls = totalNulls;
   }
+
+  /**
+   * Returns the columns the documents were ordered on, the first one being the primary sort column.
+   */
+  public List<String> getSortColumns() {
+    return sortColumns;
+  }
+
+  public void setSortColumns(List<String> sortColumns) {
+    this.sortColumns = sortColumns;
+  }
 }
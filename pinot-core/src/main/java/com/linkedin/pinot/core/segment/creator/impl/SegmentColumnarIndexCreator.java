@@ -16,10 +16,12 @@
 package com.linkedin.pinot.core.segment.creator.impl;
 
 import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.ColumnDictIdReader;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
@@ -28,13 +30,18 @@ import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.SingleValueForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.MultiValueUnsortedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueRawIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.inv.HeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -61,6 +68,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private Map<String, SegmentDictionaryCreator> dictionaryCreatorMap;
   private Map<String, ForwardIndexCreator> forwardIndexCreatorMap;
   private Map<String, InvertedIndexCreator> invertedIndexCreatorMap;
+  private Map<String, SingleValueRawIndexCreator> rawIndexCreatorMap;
   private String segmentName;
 
   private Schema schema;
@@ -72,6 +80,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private int totalNulls;
   private int totalConversions;
   private int totalNullCols;
+  private List<String> sortColumns;
   private int docIdCounter;
   private char paddingCharacter;
   private Map<String, Map<Object, Object>> dictionaryCache = new HashMap<String, Map<Object, Object>>();
@@ -86,6 +95,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     forwardIndexCreatorMap = new HashMap<String, ForwardIndexCreator>();
     this.indexCreationInfoMap = indexCreationInfoMap;
     invertedIndexCreatorMap = new HashMap<String, InvertedIndexCreator>();
+    rawIndexCreatorMap = new HashMap<String, SingleValueRawIndexCreator>();
     file = outDir;
 
     // Check that the output directory does not exist
@@ -104,6 +114,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     this.totalNulls = segmentIndexCreationInfo.getTotalNulls();
     this.totalConversions = segmentIndexCreationInfo.getTotalConversions();
     this.totalNullCols = segmentIndexCreationInfo.getTotalNullCols();
+    this.sortColumns = segmentIndexCreationInfo.getSortColumns();
     this.paddingCharacter = segmentCreationSpec.getPaddingCharacter();
 
     // Initialize and build dictionaries
@@ -114,7 +125,14 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
             new SegmentDictionaryCreator(info.hasNulls(), info.getSortedUniqueElementsArray(), spec, file,
                 paddingCharacter));
       } else {
-        throw new RuntimeException("Creation of indices without dictionaries is not implemented!");
+        if (!SingleValueRawIndexCreator.isSupported(spec)) {
+          throw new RuntimeException("Creation of index without dictionary is only supported for single value numeric "
+              + "columns, column: " + spec.getName());
+        }
+        // Values are stored in document order, the column is never treated as sorted
+        info.setSorted(false);
+        rawIndexCreatorMap.put(spec.getName(),
+            new SingleValueRawIndexCreator(spec, file, totalDocs, config.getRawIndexCompressionType()));
       }
     }
 
@@ -148,6 +166,10 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
         LOGGER.warn("Skipping enabling index on column:{} since its missing in schema", column);
         continue;
       }
+      if (rawIndexCreatorMap.containsKey(column)) {
+        LOGGER.warn("Skipping enabling index on column:{} since it has no dictionary", column);
+        continue;
+      }
       ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
       int uniqueValueCount = indexCreationInfo.getDistinctValueCount();
       OffHeapBitmapInvertedIndexCreator invertedIndexCreator = new OffHeapBitmapInvertedIndexCreator(file,
@@ -185,9 +207,73 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
         throw new RuntimeException("Exception while indexing column:"+ column, e);
       }
     }
+    for (Map.Entry<String, SingleValueRawIndexCreator> entry : rawIndexCreatorMap.entrySet()) {
+      String column = entry.getKey();
+      Object columnValueToIndex = row.getValue(column);
+      if (columnValueToIndex == null) {
+        throw new RuntimeException("Null value for column:" + column);
+      }
+      entry.getValue().index(docIdCounter, columnValueToIndex);
+    }
     docIdCounter++;
   }
 
+  /**
+   * Returns the creator of the dictionary of the given column, available once the creator is initialized.
+   */
+  public SegmentDictionaryCreator getDictionaryCreator(String column) {
+    return dictionaryCreatorMap.get(column);
+  }
+
+  /**
+   * Indexes all the documents of a column at once, as an alternative to {@link #indexRow(GenericRow)} when the values
+   * are already dictionary encoded. Distinct columns can be indexed concurrently, but a column indexed this way must
+   * not be indexed through {@link #indexRow(GenericRow)}.
+   *
+   * @param column Column to index
+   * @param dictIdReader Reader of the dictionary ids of the column
+   * @throws IOException
+   */
+  public void indexColumn(String column, ColumnDictIdReader dictIdReader) throws IOException {
+    FieldSpec spec = schema.getFieldSpecFor(column);
+    ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+    InvertedIndexCreator invertedIndexCreator = invertedIndexCreatorMap.get(column);
+
+    if (spec.isSingleValueField()) {
+      SingleValueForwardIndexCreator forwardIndexCreator =
+          (SingleValueForwardIndexCreator) forwardIndexCreatorMap.get(column);
+      for (int docId = 0; docId < totalDocs; docId++) {
+        int dictId = dictIdReader.getDictId(docId);
+        forwardIndexCreator.index(docId, dictId);
+        if (invertedIndexCreator != null) {
+          invertedIndexCreator.add(docId, dictId);
+        }
+      }
+    } else {
+      MultiValueForwardIndexCreator forwardIndexCreator =
+          (MultiValueForwardIndexCreator) forwardIndexCreatorMap.get(column);
+      int[] dictIds = new int[indexCreationInfo.getMaxNumberOfMutiValueElements()];
+      for (int docId = 0; docId < totalDocs; docId++) {
+        int length = dictIdReader.getDictIds(docId, dictIds);
+        int[] docDictIds = Arrays.copyOf(dictIds, length);
+        forwardIndexCreator.index(docId, docDictIds);
+        if (invertedIndexCreator != null) {
+          invertedIndexCreator.add(docId, docDictIds);
+        }
+      }
+    }
+
+    if (dictIdReader.hasInvertedIndex()) {
+      int cardinality = indexCreationInfo.getDistinctValueCount();
+      HeapBitmapInvertedIndexCreator bitmapInvertedIndexCreator = new HeapBitmapInvertedIndexCreator(file,
+          cardinality, totalDocs, indexCreationInfo.getTotalNumberOfEntries(), spec);
+      for (int dictId = 0; dictId < cardinality; dictId++) {
+        bitmapInvertedIndexCreator.addDocIds(dictId, dictIdReader.getDocIds(dictId));
+      }
+      bitmapInvertedIndexCreator.seal();
+    }
+  }
+
   @Override
   public void setSegmentName(String segmentName) {
     this.segmentName = segmentName;
@@ -199,6 +285,9 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       forwardIndexCreatorMap.get(column).close();
       dictionaryCreatorMap.get(column).close();
     }
+    for (SingleValueRawIndexCreator rawIndexCreator : rawIndexCreatorMap.values()) {
+      rawIndexCreator.close();
+    }
 
     // The map is only initialized for columns that have inverted index creation enabled.
     for (final String invertedColumn : invertedIndexCreatorMap.keySet()) {
@@ -218,6 +307,12 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     properties.setProperty(TABLE_NAME, config.getTableName());
     properties.setProperty(DIMENSIONS, config.getDimensions());
     properties.setProperty(METRICS, config.getMetrics());
+    // Star tree pre-aggregated metrics are only in the data schema
+    for (String metric : schema.getMetricNames()) {
+      if (!config.getSchema().hasColumn(metric)) {
+        properties.addProperty(METRICS, metric);
+      }
+    }
     properties.setProperty(TIME_COLUMN_NAME, config.getTimeColumnName());
     properties.setProperty(TIME_INTERVAL, "not_there");
     properties.setProperty(SEGMENT_TOTAL_RAW_DOCS, String.valueOf(totalRawDocs));
@@ -228,6 +323,9 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     properties.setProperty(SEGMENT_TOTAL_NULLS, String.valueOf(totalNulls));
     properties.setProperty(SEGMENT_TOTAL_CONVERSIONS, String.valueOf(totalConversions));
     properties.setProperty(SEGMENT_TOTAL_NULL_COLS, String.valueOf(totalNullCols));
+    if (!sortColumns.isEmpty()) {
+      properties.setProperty(SEGMENT_SORT_COLUMNS, sortColumns);
+    }
     String timeColumn = config.getTimeColumnName();
 
     StarTreeIndexSpec starTreeIndexSpec = config.getStarTreeIndexSpec();
@@ -240,6 +338,10 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           starTreeIndexSpec.getskipMaterializationCardinalityThreshold());
       properties.setProperty(STAR_TREE_SKIP_MATERIALIZATION_FOR_DIMENSIONS,
           starTreeIndexSpec.getskipMaterializationForDimensions());
+      Set<String> materializedAggregationFunctions = starTreeIndexSpec.getMaterializedAggregationFunctions();
+      if (materializedAggregationFunctions != null && !materializedAggregationFunctions.isEmpty()) {
+        properties.setProperty(STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS, materializedAggregationFunctions);
+      }
     }
 
     if (indexCreationInfoMap.get(timeColumn) != null) {
@@ -277,11 +379,18 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, BITS_PER_ELEMENT),
           String.valueOf(SingleValueUnsortedForwardIndexCreator.getNumOfBits(uniqueValueCount)));
 
+      SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DICTIONARY_ELEMENT_SIZE),
-          String.valueOf(dictionaryCreatorMap.get(column).getStringColumnMaxLength()));
+          String.valueOf(dictionaryCreator != null ? dictionaryCreator.getStringColumnMaxLength() : 0));
 
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, COLUMN_TYPE),
           String.valueOf(schema.getFieldSpecFor(column).getFieldType().toString()));
+      FieldSpec fieldSpec = schema.getFieldSpecFor(column);
+      if (fieldSpec instanceof MetricFieldSpec && ((MetricFieldSpec) fieldSpec).getDerivedMetricType() != null) {
+        properties.setProperty(
+            V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.DERIVED_METRIC_TYPE),
+            ((MetricFieldSpec) fieldSpec).getDerivedMetricType().toString());
+      }
 
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, IS_SORTED),
           String.valueOf(columnIndexCreationInfo.isSorted()));
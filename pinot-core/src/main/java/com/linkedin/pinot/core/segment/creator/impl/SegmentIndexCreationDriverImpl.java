@@ -19,19 +19,26 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.mutable.MutableLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.common.collect.HashBiMap;
 import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.utils.SegmentNameBuilder;
@@ -43,6 +50,7 @@ import com.linkedin.pinot.core.data.readers.RecordReaderFactory;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.segment.creator.AbstractColumnStatisticsCollector;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentSource;
 import com.linkedin.pinot.core.segment.creator.ColumnStatistics;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexType;
@@ -84,6 +92,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   long totalIndexTime = 0;
   long totalStatsCollectorTime = 0;
   boolean createStarTree = false;
+  ColumnarSegmentSource columnarSource;
+  int numColumnarThreads;
 
   private File starTreeTempDir;
 
@@ -105,6 +115,23 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     statsCollector = new SegmentPreIndexStatsCollectorImpl(recordReader.getSchema());
     statsCollector.init();
 
+    initIndexCreation();
+  }
+
+  /**
+   * Initializes the creation of a segment from a source whose columns are already dictionary encoded. The segment is
+   * built column by column, indexing up to the given number of columns concurrently. Star tree creation is not
+   * supported for such sources.
+   */
+  public void init(SegmentGeneratorConfig config, ColumnarSegmentSource source, int numThreads) throws Exception {
+    this.config = config;
+    columnarSource = source;
+    numColumnarThreads = numThreads;
+    dataSchema = source.getSchema();
+    initIndexCreation();
+  }
+
+  private void initIndexCreation() {
     // Initialize index creation
     segmentIndexCreationInfo = new SegmentIndexCreationInfo();
     indexCreationInfoMap = new HashMap<String, ColumnIndexCreationInfo>();
@@ -126,13 +153,27 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
   @Override
   public void build() throws Exception {
-    if (createStarTree) {
+    if (columnarSource != null) {
+      buildColumnar();
+    } else if (createStarTree) {
+      warnIfSortColumns("star tree index");
       buildStarTree();
+    } else if (!config.getRawIndexCreationColumns().isEmpty()) {
+      warnIfSortColumns("raw index columns");
+      buildRaw();
+    } else if (config.getNumIndexingThreads() > 0 || !config.getSortColumns().isEmpty()) {
+      buildSinglePass();
     } else {
       buildRaw();
     }
   }
 
+  private void warnIfSortColumns(String reason) {
+    if (!config.getSortColumns().isEmpty()) {
+      LOGGER.warn("Ignoring sort columns {} for segment with {}", config.getSortColumns(), reason);
+    }
+  }
+
   public void buildStarTree() throws Exception {
     long start = System.currentTimeMillis();
     //construct star tree builder config
@@ -159,6 +200,14 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     starTreeBuilderConfig.setSkipMaterializationForDimensions(skipMaterializationForDimensions);
     starTreeBuilderConfig.setSkipMaterializationCardinalityThreshold(starTreeIndexSpec.getskipMaterializationCardinalityThreshold());
     starTreeBuilderConfig.setOutDir(starTreeTempDir);
+    starTreeBuilderConfig.setNumThreads(Math.max(1, config.getNumIndexingThreads()));
+    Set<String> materializedAggregationFunctions = starTreeIndexSpec.getMaterializedAggregationFunctions();
+    List<MetricFieldSpec> preAggregatedMetrics = Collections.emptyList();
+    if (materializedAggregationFunctions != null && !materializedAggregationFunctions.isEmpty()) {
+      preAggregatedMetrics = addPreAggregatedMetrics(materializedAggregationFunctions);
+      starTreeBuilderConfig.setSchema(dataSchema);
+      starTreeBuilderConfig.setMaterializedAggregationFunctions(materializedAggregationFunctions);
+    }
     //initialize star tree builder
     StarTreeBuilder starTreeBuilder = new OffHeapStarTreeBuilder();
     starTreeBuilder.init(starTreeBuilderConfig);
@@ -168,6 +217,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     totalDocs = 0;
     while (recordReader.hasNext()) {
       GenericRow row = readNextRowSanitized();
+      fillPreAggregatedMetrics(row, preAggregatedMetrics);
       starTreeBuilder.append(row);
       statsCollector.collectRow(row);
       totalRawDocs++;
@@ -224,6 +274,59 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
         end - statCollectionFinishTime);
   }
 
+  /**
+   * Adds the pre-aggregated metric columns of the given functions to a copy of the data schema, and restarts the stats
+   * collection on it. A count column is added once, min/max columns for each metric.
+   */
+  private List<MetricFieldSpec> addPreAggregatedMetrics(Set<String> functions) throws Exception {
+    List<MetricFieldSpec> preAggregatedMetrics = new ArrayList<>();
+    for (String function : functions) {
+      if (!StarTreeIndexSpec.SUPPORTED_MATERIALIZED_AGGREGATION_FUNCTIONS.contains(function)) {
+        throw new IllegalArgumentException("Unsupported star tree materialized aggregation function: " + function);
+      }
+      if (function.equals(StarTreeIndexSpec.COUNT_FUNCTION)) {
+        preAggregatedMetrics.add(
+            new MetricFieldSpec(StarTreeIndexSpec.PRE_AGGREGATED_COUNT_COLUMN, FieldSpec.DataType.LONG));
+        continue;
+      }
+      for (MetricFieldSpec metricFieldSpec : dataSchema.getMetricFieldSpecs()) {
+        String column = StarTreeIndexSpec.getPreAggregatedColumnName(function, metricFieldSpec.getName());
+        preAggregatedMetrics.add(new MetricFieldSpec(column, metricFieldSpec.getDataType()));
+      }
+    }
+
+    Schema schema = new Schema();
+    schema.setSchemaName(dataSchema.getSchemaName());
+    for (FieldSpec fieldSpec : dataSchema.getAllFieldSpecs()) {
+      schema.addField(fieldSpec.getName(), fieldSpec);
+    }
+    for (MetricFieldSpec preAggregatedMetric : preAggregatedMetrics) {
+      if (schema.hasColumn(preAggregatedMetric.getName())) {
+        throw new IllegalStateException("Pre-aggregated metric column already exists: " + preAggregatedMetric.getName());
+      }
+      schema.addField(preAggregatedMetric.getName(), preAggregatedMetric);
+    }
+    dataSchema = schema;
+    statsCollector = new SegmentPreIndexStatsCollectorImpl(dataSchema);
+    statsCollector.init();
+    return preAggregatedMetrics;
+  }
+
+  /**
+   * Sets the pre-aggregated metrics of a raw row: it counts as one document, and its min/max are its own values.
+   */
+  private static void fillPreAggregatedMetrics(GenericRow row, List<MetricFieldSpec> preAggregatedMetrics) {
+    for (MetricFieldSpec preAggregatedMetric : preAggregatedMetrics) {
+      String column = preAggregatedMetric.getName();
+      if (column.equals(StarTreeIndexSpec.PRE_AGGREGATED_COUNT_COLUMN)) {
+        row.putField(column, 1L);
+      } else {
+        // Column names are '<function>__<metric>'
+        row.putField(column, row.getValue(column.substring(column.indexOf("__") + 2)));
+      }
+    }
+  }
+
   private void serializeTree(StarTreeBuilder starTreeBuilder) throws Exception {
     //star tree was built using its own dictionary, we need to re-map dimension value id
     Map<String, HashBiMap<Object, Integer>> dictionaryMap = starTreeBuilder.getDictionaryMap();
@@ -310,6 +413,48 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     }
     recordReader.close();
     LOGGER.info("Finished records indexing in IndexCreator!");
+    logExtractorStats();
+
+    handlePostCreation();
+  }
+
+  /**
+   * Builds the segment reading the input only once: the values are spilled off-heap while collecting the statistics,
+   * then the columns are indexed concurrently on {@link SegmentGeneratorConfig#getNumIndexingThreads()} threads.
+   * The documents are reordered on {@link SegmentGeneratorConfig#getSortColumns()} before being indexed, if any.
+   */
+  public void buildSinglePass() throws Exception {
+    long start = System.currentTimeMillis();
+    SpilledColumnarSegmentSource source = new SpilledColumnarSegmentSource(dataSchema, statsCollector);
+    try {
+      LOGGER.debug("Start building StatsCollector!");
+      totalDocs = 0;
+      while (recordReader.hasNext()) {
+        totalDocs++;
+        totalRawDocs++;
+        long readStart = System.currentTimeMillis();
+        GenericRow row = readNextRowSanitized();
+        long stop = System.currentTimeMillis();
+        statsCollector.collectRow(row);
+        source.spillRow(row);
+        long stop1 = System.currentTimeMillis();
+        totalRecordReadTime += (stop - readStart);
+        totalStatsCollectorTime += (stop1 - stop);
+      }
+      recordReader.close();
+      statsCollector.build();
+      LOGGER.info("Collected stats and spilled {} documents in {} ms", totalDocs, System.currentTimeMillis() - start);
+      logExtractorStats();
+
+      columnarSource = source;
+      numColumnarThreads = Math.max(1, config.getNumIndexingThreads());
+      buildColumnar();
+    } finally {
+      source.close();
+    }
+  }
+
+  private void logExtractorStats() {
     int numErrors, numConversions, numNulls, numNullCols;
     if ((numErrors = extractor.getTotalErrors()) > 0) {
       LOGGER.warn("Index creator for schema {} had {} rows with errors", dataSchema.getSchemaName(), numErrors);
@@ -330,10 +475,96 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     if ((numNullCols = extractor.getTotalNullCols()) > 0) {
       LOGGER.info("Index creator for schema {} had {}  null columns", dataSchema.getSchemaName(), numNullCols);
     }
+  }
+
+  public void buildColumnar() throws Exception {
+    long start = System.currentTimeMillis();
+    totalDocs = columnarSource.getNumDocs();
+    totalRawDocs = totalDocs;
+    segmentIndexCreationInfo.setTotalDocs(totalDocs);
+    segmentIndexCreationInfo.setTotalRawDocs(totalRawDocs);
+    segmentIndexCreationInfo.setTotalAggDocs(totalAggDocs);
+    if (extractor != null) {
+      setExtractorStats();
+    }
+
+    ExecutorService executorService = Executors.newFixedThreadPool(numColumnarThreads);
+    try {
+      // Gather the statistics of all the columns
+      Map<String, Future<ColumnIndexCreationInfo>> indexCreationInfoFutures =
+          new HashMap<String, Future<ColumnIndexCreationInfo>>();
+      for (final String column : dataSchema.getColumnNames()) {
+        indexCreationInfoFutures.put(column, executorService.submit(new Callable<ColumnIndexCreationInfo>() {
+          @Override
+          public ColumnIndexCreationInfo call() throws Exception {
+            return columnarSource.getColumnIndexCreationInfo(column);
+          }
+        }));
+      }
+      for (Entry<String, Future<ColumnIndexCreationInfo>> entry : indexCreationInfoFutures.entrySet()) {
+        indexCreationInfoMap.put(entry.getKey(), entry.getValue().get());
+      }
+      long statCollectionFinishTime = System.currentTimeMillis();
+      LOGGER.info("Collected stats for {} documents in {} ms", totalDocs, statCollectionFinishTime - start);
+
+      List<String> sortColumns = config.getSortColumns();
+      boolean sortDocs = !sortColumns.isEmpty() && columnarSource instanceof SpilledColumnarSegmentSource;
+      if (sortDocs) {
+        setSortColumns(sortColumns);
+      }
+
+      // Create the dictionaries, then index the columns
+      indexCreator.init(config, segmentIndexCreationInfo, indexCreationInfoMap, dataSchema, tempIndexDir);
+      final SegmentColumnarIndexCreator columnarIndexCreator = (SegmentColumnarIndexCreator) indexCreator;
+      if (sortDocs) {
+        long sortStart = System.currentTimeMillis();
+        ((SpilledColumnarSegmentSource) columnarSource).sortDocs(sortColumns, columnarIndexCreator);
+        LOGGER.info("Sorted {} documents on columns {} in {} ms", totalDocs, sortColumns,
+            System.currentTimeMillis() - sortStart);
+      }
+      List<Future<?>> indexFutures = new ArrayList<Future<?>>();
+      for (final String column : dataSchema.getColumnNames()) {
+        indexFutures.add(executorService.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            long columnStart = System.currentTimeMillis();
+            columnarIndexCreator.indexColumn(column,
+                columnarSource.getDictIdReader(column, columnarIndexCreator.getDictionaryCreator(column)));
+            LOGGER.info("Indexed column {} in {} ms", column, System.currentTimeMillis() - columnStart);
+            return null;
+          }
+        }));
+      }
+      for (Future<?> indexFuture : indexFutures) {
+        indexFuture.get();
+      }
+      LOGGER.info("Indexed {} columns in {} ms", indexFutures.size(),
+          System.currentTimeMillis() - statCollectionFinishTime);
+    } finally {
+      executorService.shutdownNow();
+    }
 
     handlePostCreation();
   }
 
+  /**
+   * Marks the primary sort column as sorted and the other columns as unsorted, since the documents no longer are in
+   * input order, unless they have a single value.
+   */
+  private void setSortColumns(List<String> sortColumns) {
+    for (String column : sortColumns) {
+      FieldSpec fieldSpec = dataSchema.getFieldSpecFor(column);
+      if (fieldSpec == null || !fieldSpec.isSingleValueField()) {
+        throw new IllegalArgumentException("Cannot sort on column: " + column + ", must be a single value column");
+      }
+    }
+    for (Entry<String, ColumnIndexCreationInfo> entry : indexCreationInfoMap.entrySet()) {
+      ColumnIndexCreationInfo info = entry.getValue();
+      info.setSorted(entry.getKey().equals(sortColumns.get(0)) || info.getDistinctValueCount() == 1);
+    }
+    segmentIndexCreationInfo.setSortColumns(sortColumns);
+  }
+
   private void handlePostCreation() throws Exception {
     // Build the segment name, if necessary
     final String timeColumn = config.getTimeColumnName();
@@ -342,8 +573,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       segmentName = config.getSegmentName();
     } else {
       if (timeColumn != null && timeColumn.length() > 0) {
-        final Object minTimeValue = statsCollector.getColumnProfileFor(timeColumn).getMinValue();
-        final Object maxTimeValue = statsCollector.getColumnProfileFor(timeColumn).getMaxValue();
+        final Object minTimeValue = indexCreationInfoMap.get(timeColumn).getMin();
+        final Object maxTimeValue = indexCreationInfoMap.get(timeColumn).getMax();
         segmentName = SegmentNameBuilder.buildBasic(config.getTableName(), minTimeValue, maxTimeValue,
             config.getSegmentNamePostfix());
       } else {
@@ -374,7 +605,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
     // Persist creation metadata to disk
     persistCreationMeta(segmentOutputDir, crc);
-    Map<String, MutableLong> nullCountMap = recordReader.getNullCountMap();
+    Map<String, MutableLong> nullCountMap = recordReader != null ? recordReader.getNullCountMap() : null;
     if (nullCountMap != null) {
       for (Map.Entry<String, MutableLong> entry : nullCountMap.entrySet()) {
         AbstractColumnStatisticsCollector columnStatisticsCollector =
@@ -427,20 +658,31 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     statsCollector.build();
     for (final FieldSpec spec : dataSchema.getAllFieldSpecs()) {
       final String column = spec.getName();
-      indexCreationInfoMap.put(column,
-          new ColumnIndexCreationInfo(true, // Use dictionary encoding
-              statsCollector.getColumnProfileFor(column).getMinValue(),
-              statsCollector.getColumnProfileFor(column).getMaxValue(),
-              statsCollector.getColumnProfileFor(column).getUniqueValuesSet(), ForwardIndexType.FIXED_BIT_COMPRESSED,
-              InvertedIndexType.P4_DELTA, statsCollector.getColumnProfileFor(column).isSorted(),
-              statsCollector.getColumnProfileFor(column).hasNull(),
-              statsCollector.getColumnProfileFor(column).getTotalNumberOfEntries(),
-              statsCollector.getColumnProfileFor(column).getMaxNumberOfMultiValues()));
+      indexCreationInfoMap.put(column, buildColumnIndexCreationInfo(statsCollector.getColumnProfileFor(column),
+          !config.getRawIndexCreationColumns().contains(column)));
     }
     segmentIndexCreationInfo.setTotalDocs(totalDocs);
     segmentIndexCreationInfo.setTotalRawDocs(totalRawDocs);
     segmentIndexCreationInfo.setTotalAggDocs(totalAggDocs);
     segmentIndexCreationInfo.setStarTreeEnabled(createStarTree);
+    setExtractorStats();
+  }
+
+  static ColumnIndexCreationInfo buildColumnIndexCreationInfo(AbstractColumnStatisticsCollector columnProfile)
+      throws Exception {
+    return buildColumnIndexCreationInfo(columnProfile, true);
+  }
+
+  static ColumnIndexCreationInfo buildColumnIndexCreationInfo(AbstractColumnStatisticsCollector columnProfile,
+      boolean createDictionary) throws Exception {
+    ForwardIndexType forwardIndexType =
+        createDictionary ? ForwardIndexType.FIXED_BIT_COMPRESSED : ForwardIndexType.RAW_CHUNK_COMPRESSED;
+    return new ColumnIndexCreationInfo(createDictionary, columnProfile.getMinValue(), columnProfile.getMaxValue(),
+        columnProfile.getUniqueValuesSet(), forwardIndexType, InvertedIndexType.P4_DELTA, columnProfile.isSorted(),
+        columnProfile.hasNull(), columnProfile.getTotalNumberOfEntries(), columnProfile.getMaxNumberOfMultiValues());
+  }
+
+  private void setExtractorStats() {
     segmentIndexCreationInfo.setTotalConversions(extractor.getTotalConversions());
     segmentIndexCreationInfo.setTotalErrors(extractor.getTotalErrors());
     segmentIndexCreationInfo.setTotalNullCols(extractor.getTotalNullCols());
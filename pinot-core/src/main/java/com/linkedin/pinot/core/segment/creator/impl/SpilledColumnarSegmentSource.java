@@ -0,0 +1,318 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.segment.creator.ColumnDictIdReader;
+import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentSource;
+import com.linkedin.pinot.core.segment.creator.SegmentPreIndexStatsCollector;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+
+
+/**
+ * Columnar source spilling the rows of a record reader, so that the reader is read only once.
+ *
+ * While the statistics are collected, each value is given a temporary id in order of appearance, and the temporary ids
+ * are appended to an off-heap buffer per column. Once the dictionary of a column is created, the temporary ids are
+ * mapped to the dictionary ids, looking up each distinct value only once.
+ *
+ * The documents can be reordered on a list of single value columns once their dictionaries are created, in which case
+ * only the permutation of the document ids is kept on heap, the spilled values are read through it.
+ */
+public class SpilledColumnarSegmentSource implements ColumnarSegmentSource, Closeable {
+  private final Schema schema;
+  private final SegmentPreIndexStatsCollector statsCollector;
+  private final Map<String, SpilledColumn> columns = new HashMap<String, SpilledColumn>();
+  private int numDocs = 0;
+  // Spilled document id of each document of the segment, null when the documents are in input order
+  private int[] sortedDocIds = null;
+
+  public SpilledColumnarSegmentSource(Schema schema, SegmentPreIndexStatsCollector statsCollector) {
+    this.schema = schema;
+    this.statsCollector = statsCollector;
+    for (FieldSpec spec : schema.getAllFieldSpecs()) {
+      columns.put(spec.getName(), new SpilledColumn(spec.isSingleValueField()));
+    }
+  }
+
+  /**
+   * Appends the values of a sanitized row.
+   */
+  public void spillRow(GenericRow row) {
+    for (Map.Entry<String, SpilledColumn> entry : columns.entrySet()) {
+      Object value = row.getValue(entry.getKey());
+      if (value == null) {
+        throw new RuntimeException("Null value for column:" + entry.getKey());
+      }
+      entry.getValue().spill(value);
+    }
+    numDocs++;
+  }
+
+  @Override
+  public Schema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public int getNumDocs() {
+    return numDocs;
+  }
+
+  /**
+   * Statistics must have been built before calling this method.
+   */
+  @Override
+  public ColumnIndexCreationInfo getColumnIndexCreationInfo(String column) throws Exception {
+    return SegmentIndexCreationDriverImpl.buildColumnIndexCreationInfo(statsCollector.getColumnProfileFor(column));
+  }
+
+  @Override
+  public ColumnDictIdReader getDictIdReader(String column, SegmentDictionaryCreator dictionaryCreator) {
+    SpilledColumn spilledColumn = columns.get(column);
+    return new SpilledColumnDictIdReader(spilledColumn, spilledColumn.getIdToDictId(dictionaryCreator), sortedDocIds);
+  }
+
+  /**
+   * Reorders the documents on the dictionary ids of the given single value columns, the first column being the primary
+   * sort key. Documents with the same values keep their input order.
+   *
+   * Must be called once the dictionaries are created, and before reading the dictionary ids of any column.
+   */
+  public void sortDocs(List<String> sortColumns, SegmentColumnarIndexCreator indexCreator) {
+    int[] docIds = new int[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      docIds[i] = i;
+    }
+    int[] buffer = new int[numDocs];
+
+    // Stable counting sort on each column, from the least significant to the most significant one
+    for (int i = sortColumns.size() - 1; i >= 0; i--) {
+      String column = sortColumns.get(i);
+      SpilledColumn spilledColumn = columns.get(column);
+      if (spilledColumn == null || !spilledColumn.isSingleValue) {
+        throw new IllegalArgumentException("Cannot sort on column: " + column + ", must be an existing single value column");
+      }
+      int[] idToDictId = spilledColumn.getIdToDictId(indexCreator.getDictionaryCreator(column));
+      int cardinality = 0;
+      for (int dictId : idToDictId) {
+        cardinality = Math.max(cardinality, dictId + 1);
+      }
+
+      int[] starts = new int[cardinality + 1];
+      for (int j = 0; j < numDocs; j++) {
+        starts[idToDictId[spilledColumn.ids.get(j)] + 1]++;
+      }
+      for (int dictId = 0; dictId < cardinality; dictId++) {
+        starts[dictId + 1] += starts[dictId];
+      }
+      for (int docId : docIds) {
+        buffer[starts[idToDictId[spilledColumn.ids.get(docId)]]++] = docId;
+      }
+
+      int[] temp = docIds;
+      docIds = buffer;
+      buffer = temp;
+    }
+    sortedDocIds = docIds;
+  }
+
+  /**
+   * Releases the off-heap buffers.
+   */
+  @Override
+  public void close() {
+    for (SpilledColumn spilledColumn : columns.values()) {
+      spilledColumn.close();
+    }
+  }
+
+  private static class SpilledColumn {
+    private final boolean isSingleValue;
+    // Temporary id of each distinct value, released once the dictionary ids are computed
+    private Object2IntOpenHashMap<Object> valueToId = new Object2IntOpenHashMap<Object>();
+    private final OffHeapIntList ids = new OffHeapIntList();
+    // Start of the values of each document, for multi value columns only
+    private final OffHeapIntList offsets;
+    // Dictionary id of each temporary id, computed once the dictionary is created
+    private int[] idToDictId;
+
+    SpilledColumn(boolean isSingleValue) {
+      this.isSingleValue = isSingleValue;
+      offsets = isSingleValue ? null : new OffHeapIntList();
+      valueToId.defaultReturnValue(-1);
+    }
+
+    void spill(Object value) {
+      if (isSingleValue) {
+        ids.add(getId(value));
+      } else {
+        offsets.add(ids.size());
+        for (Object element : (Object[]) value) {
+          ids.add(getId(element));
+        }
+      }
+    }
+
+    private int getId(Object value) {
+      int id = valueToId.getInt(value);
+      if (id == -1) {
+        id = valueToId.size();
+        valueToId.put(value, id);
+      }
+      return id;
+    }
+
+    int[] getIdToDictId(SegmentDictionaryCreator dictionaryCreator) {
+      if (idToDictId == null) {
+        int[] dictIds = new int[valueToId.size()];
+        for (Object2IntMap.Entry<Object> entry : valueToId.object2IntEntrySet()) {
+          dictIds[entry.getIntValue()] = dictionaryCreator.indexOfSV(entry.getKey());
+        }
+        idToDictId = dictIds;
+        // All the rows are spilled, the values are held by the dictionary from now on
+        valueToId = null;
+      }
+      return idToDictId;
+    }
+
+    void close() {
+      ids.close();
+      if (offsets != null) {
+        offsets.close();
+      }
+    }
+  }
+
+  private static class SpilledColumnDictIdReader implements ColumnDictIdReader {
+    private final SpilledColumn column;
+    private final int[] idToDictId;
+    private final int[] sortedDocIds;
+
+    SpilledColumnDictIdReader(SpilledColumn column, int[] idToDictId, int[] sortedDocIds) {
+      this.column = column;
+      this.idToDictId = idToDictId;
+      this.sortedDocIds = sortedDocIds;
+    }
+
+    @Override
+    public int getDictId(int docId) {
+      if (sortedDocIds != null) {
+        docId = sortedDocIds[docId];
+      }
+      return idToDictId[column.ids.get(docId)];
+    }
+
+    @Override
+    public int getDictIds(int docId, int[] dictIds) {
+      if (sortedDocIds != null) {
+        docId = sortedDocIds[docId];
+      }
+      int start = column.offsets.get(docId);
+      int end = docId + 1 < column.offsets.size() ? column.offsets.get(docId + 1) : column.ids.size();
+      for (int i = start; i < end; i++) {
+        dictIds[i - start] = idToDictId[column.ids.get(i)];
+      }
+      return end - start;
+    }
+
+    @Override
+    public boolean hasInvertedIndex() {
+      return false;
+    }
+
+    @Override
+    public ImmutableRoaringBitmap getDocIds(int dictId) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Append only list of ints stored in direct buffers allocated one chunk at a time. Chunks start small and double in
+   * size up to a maximum chunk size, so that narrow columns and multi value offsets do not hold large buffers.
+   */
+  private static class OffHeapIntList {
+    private static final int FIRST_CHUNK_SIZE_SHIFT = 10;
+    private static final int MAX_CHUNK_SIZE_SHIFT = 20;
+    private static final int MAX_CHUNK_SIZE = 1 << MAX_CHUNK_SIZE_SHIFT;
+    private static final int MAX_CHUNK_SIZE_MASK = MAX_CHUNK_SIZE - 1;
+    // Chunks before the first chunk of maximum size
+    private static final int NUM_GROWING_CHUNKS = MAX_CHUNK_SIZE_SHIFT - FIRST_CHUNK_SIZE_SHIFT + 1;
+    private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+    private final List<PinotDataBuffer> chunks = new ArrayList<PinotDataBuffer>();
+    private int size = 0;
+    // Index of the first int of the next chunk to allocate
+    private int capacity = 0;
+
+    void add(int value) {
+      if (size == capacity) {
+        int chunkSize = chunks.isEmpty() ? 1 << FIRST_CHUNK_SIZE_SHIFT : Math.min(capacity, MAX_CHUNK_SIZE);
+        chunks.add(PinotDataBuffer.allocateDirect(chunkSize * INT_SIZE));
+        capacity += chunkSize;
+      }
+      putInt(size, value);
+      size++;
+    }
+
+    /**
+     * Chunk 0 holds [0, 2^first), chunk c holds [2^(first + c - 1), 2^(first + c)) until the chunks reach the maximum
+     * size, after which each chunk holds 2^max ints.
+     */
+    private void putInt(int index, int value) {
+      if (index >= MAX_CHUNK_SIZE) {
+        chunks.get(NUM_GROWING_CHUNKS - 1 + (index >>> MAX_CHUNK_SIZE_SHIFT))
+            .putInt((index & MAX_CHUNK_SIZE_MASK) * INT_SIZE, value);
+      } else {
+        int chunk = 32 - Integer.numberOfLeadingZeros(index >>> FIRST_CHUNK_SIZE_SHIFT);
+        int chunkStart = chunk == 0 ? 0 : 1 << (FIRST_CHUNK_SIZE_SHIFT + chunk - 1);
+        chunks.get(chunk).putInt((index - chunkStart) * INT_SIZE, value);
+      }
+    }
+
+    int get(int index) {
+      if (index >= MAX_CHUNK_SIZE) {
+        return chunks.get(NUM_GROWING_CHUNKS - 1 + (index >>> MAX_CHUNK_SIZE_SHIFT))
+            .getInt((index & MAX_CHUNK_SIZE_MASK) * INT_SIZE);
+      }
+      int chunk = 32 - Integer.numberOfLeadingZeros(index >>> FIRST_CHUNK_SIZE_SHIFT);
+      int chunkStart = chunk == 0 ? 0 : 1 << (FIRST_CHUNK_SIZE_SHIFT + chunk - 1);
+      return chunks.get(chunk).getInt((index - chunkStart) * INT_SIZE);
+    }
+
+    int size() {
+      return size;
+    }
+
+    void close() {
+      for (PinotDataBuffer chunk : chunks) {
+        chunk.close();
+      }
+      chunks.clear();
+    }
+  }
+}
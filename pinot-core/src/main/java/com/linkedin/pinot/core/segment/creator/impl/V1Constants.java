@@ -80,9 +80,11 @@ public class V1Constants {
     public static final String UN_SORTED_SV_FWD_IDX_FILE_EXTENTION = ".sv.unsorted.fwd";
     public static final String SORTED_FWD_IDX_FILE_EXTENTION = ".sv.sorted.fwd";
     public static final String UN_SORTED_MV_FWD_IDX_FILE_EXTENTION = ".mv.fwd";
+    public static final String RAW_SV_FWD_IDX_FILE_EXTENTION = ".sv.raw.fwd";
     public static final String BITMAP_INVERTED_INDEX_FILE_EXTENSION = ".bitmap.inv";
     public static final String SORTED_INVERTED_INDEX_FILE_EXTENSION = ".sorted.inv";
     public static final String INTARRAY_INVERTED_INDEX_FILE_EXTENSION = ".intArray.inv";
+    public static final String BITMAP_RANGE_INDEX_FILE_EXTENSION = ".bitmap.range";
   }
 
   public static class MetadataKeys {
@@ -98,6 +100,8 @@ public class V1Constants {
           "star.tree.skip.materialization.for.dimensions";
       public static final String STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY =
           "star.tree.skip.materialization.cardinality";
+      public static final String STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS =
+          "startree.materialized.aggregation.functions";
     }
 
     public static class Segment {
@@ -116,12 +120,15 @@ public class V1Constants {
       public static final String SEGMENT_TOTAL_RAW_DOCS = "segment.total.raw.docs";
       public static final String SEGMENT_TOTAL_AGGREGATE_DOCS = "segment.total.aggregate.docs";
       public static final String SEGMENT_CRC = "segment.crc";
+      // CRC of the segment this one was re-created from when loaded, e.g. to add a star tree index
+      public static final String SEGMENT_SOURCE_CRC = "segment.source.crc";
       public static final String SEGMENT_CREATION_TIME = "segment.creation.time";
       public static final String SEGMENT_PADDING_CHARACTER = "segment.padding.character";
       public static final String SEGMENT_TOTAL_ERRORS = "segment.total.errors";
       public static final String SEGMENT_TOTAL_NULLS = "segment.total.nulls";
       public static final String SEGMENT_TOTAL_CONVERSIONS = "segment.total.conversions";
       public static final String SEGMENT_TOTAL_NULL_COLS = "segment.total.null.cols";
+      public static final String SEGMENT_SORT_COLUMNS = "segment.sort.column.names";
 
       // not using currently
       public static final String SEGMENT_INDEX_TYPE = "segment.index.type";
@@ -142,6 +149,7 @@ public class V1Constants {
       public static final String HAS_INVERTED_INDEX = "hasInvertedIndex";
       public static final String HAS_NULL_VALUE = "hasNullValue";
       public static final String HAS_DICTIONARY = "hasDictionary";
+      public static final String DERIVED_METRIC_TYPE = "derivedMetricType";
 
       public static final String IS_SORTED = "isSorted";
       public static final String IS_SINGLE_VALUED = "isSingleValues";
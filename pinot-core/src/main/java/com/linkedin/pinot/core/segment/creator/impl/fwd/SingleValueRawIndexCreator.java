@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.fwd;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.writer.impl.v1.ChunkCompressedSingleValueWriter;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.File;
+import java.io.IOException;
+
+
+/**
+ * Forward index creator for single value numeric columns stored without a dictionary. Values are written as is, in
+ * compressed chunks of {@link #DEFAULT_NUM_DOCS_PER_CHUNK} documents.
+ */
+public class SingleValueRawIndexCreator implements ForwardIndexCreator {
+  public static final int DEFAULT_NUM_DOCS_PER_CHUNK = 4096;
+
+  private final FieldSpec.DataType dataType;
+  private final ChunkCompressedSingleValueWriter writer;
+
+  public SingleValueRawIndexCreator(FieldSpec spec, File baseIndexDir, int numDocs,
+      ChunkCompressorFactory.CompressionType compressionType) throws IOException {
+    File forwardIndexFile = new File(baseIndexDir, spec.getName() + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+    dataType = spec.getDataType();
+    writer = new ChunkCompressedSingleValueWriter(forwardIndexFile, compressionType, numDocs,
+        DEFAULT_NUM_DOCS_PER_CHUNK, getSizeOfEntry(dataType));
+  }
+
+  public static boolean isSupported(FieldSpec spec) {
+    if (!spec.isSingleValueField()) {
+      return false;
+    }
+    switch (spec.getDataType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static int getSizeOfEntry(FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return Integer.SIZE / Byte.SIZE;
+      case LONG:
+        return Long.SIZE / Byte.SIZE;
+      case FLOAT:
+        return Float.SIZE / Byte.SIZE;
+      case DOUBLE:
+        return Double.SIZE / Byte.SIZE;
+      default:
+        throw new UnsupportedOperationException("Raw index is not supported for data type: " + dataType);
+    }
+  }
+
+  public void index(int docId, Object value) {
+    Number number = (Number) value;
+    switch (dataType) {
+      case INT:
+        writer.setInt(docId, number.intValue());
+        break;
+      case LONG:
+        writer.setLong(docId, number.longValue());
+        break;
+      case FLOAT:
+        writer.setFloat(docId, number.floatValue());
+        break;
+      case DOUBLE:
+        writer.setDouble(docId, number.doubleValue());
+        break;
+      default:
+        throw new UnsupportedOperationException("Raw index is not supported for data type: " + dataType);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.inv;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+
+
+/**
+ * Creates a range index: one bitmap per bucket of consecutive dictionary ids, the buckets being chosen so that they
+ * hold about the same number of entries.
+ *
+ * File layout:
+ * <ul>
+ *   <li>number of buckets</li>
+ *   <li>(number of buckets + 1) first dictionary ids of the buckets, the last one being the cardinality</li>
+ *   <li>(number of buckets + 1) offsets of the bitmaps, the last one being the file size</li>
+ *   <li>serialized bitmaps</li>
+ * </ul>
+ */
+public class BitmapRangeIndexCreator implements InvertedIndexCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BitmapRangeIndexCreator.class);
+
+  public static final int DEFAULT_NUM_BUCKETS = 128;
+
+  private final File rangeIndexFile;
+  private final FieldSpec spec;
+  private final int[] bucketStarts;
+  private final int[] dictIdToBucket;
+  private final MutableRoaringBitmap[] bitmaps;
+  private final long start;
+
+  /**
+   * @param numEntriesPerDictId number of entries (documents for single value columns, values for multi value columns)
+   *                            of each dictionary id, used to balance the buckets
+   * @param maxNumBuckets maximum number of buckets
+   */
+  public BitmapRangeIndexCreator(File indexDir, FieldSpec spec, int[] numEntriesPerDictId, int maxNumBuckets) {
+    this.spec = spec;
+    rangeIndexFile = new File(indexDir, spec.getName() + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+
+    int cardinality = numEntriesPerDictId.length;
+    long totalNumEntries = 0;
+    for (int numEntries : numEntriesPerDictId) {
+      totalNumEntries += numEntries;
+    }
+    long numEntriesPerBucket = Math.max(1, (totalNumEntries + maxNumBuckets - 1) / maxNumBuckets);
+
+    // Close a bucket once it holds enough entries, a dictionary id is never split across buckets
+    dictIdToBucket = new int[cardinality];
+    int[] starts = new int[Math.min(cardinality, maxNumBuckets) + 1];
+    int numBuckets = 0;
+    long numEntriesInBucket = 0;
+    for (int dictId = 0; dictId < cardinality; dictId++) {
+      if (dictId == 0 || (numEntriesInBucket >= numEntriesPerBucket && numBuckets < starts.length - 1)) {
+        starts[numBuckets++] = dictId;
+        numEntriesInBucket = 0;
+      }
+      dictIdToBucket[dictId] = numBuckets - 1;
+      numEntriesInBucket += numEntriesPerDictId[dictId];
+    }
+    bucketStarts = new int[numBuckets + 1];
+    System.arraycopy(starts, 0, bucketStarts, 0, numBuckets);
+    bucketStarts[numBuckets] = cardinality;
+
+    bitmaps = new MutableRoaringBitmap[numBuckets];
+    for (int i = 0; i < numBuckets; i++) {
+      bitmaps[i] = new MutableRoaringBitmap();
+    }
+    start = System.currentTimeMillis();
+  }
+
+  @Override
+  public void add(int docId, int dictionaryId) {
+    bitmaps[dictIdToBucket[dictionaryId]].add(docId);
+  }
+
+  @Override
+  public void add(int docId, int[] dictionaryIds) {
+    add(docId, dictionaryIds, dictionaryIds.length);
+  }
+
+  @Override
+  public void add(int docId, int[] dictionaryIds, int length) {
+    for (int i = 0; i < length; i++) {
+      bitmaps[dictIdToBucket[dictionaryIds[i]]].add(docId);
+    }
+  }
+
+  @Override
+  public long totalTimeTakeSoFar() {
+    return System.currentTimeMillis() - start;
+  }
+
+  @Override
+  public void seal() throws IOException {
+    int numBuckets = bitmaps.length;
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(rangeIndexFile)))) {
+      out.writeInt(numBuckets);
+      for (int bucketStart : bucketStarts) {
+        out.writeInt(bucketStart);
+      }
+      int offset = 4 * (1 + 2 * (numBuckets + 1));
+      out.writeInt(offset);
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.runOptimize();
+        offset += bitmap.serializedSizeInBytes();
+        out.writeInt(offset);
+      }
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.serialize(out);
+      }
+    }
+    LOGGER.debug("Persisted range index with {} buckets for column: {} in {}", numBuckets, spec.getName(),
+        rangeIndexFile.getAbsolutePath());
+  }
+
+  public File getRangeIndexFile() {
+    return rangeIndexFile;
+  }
+}
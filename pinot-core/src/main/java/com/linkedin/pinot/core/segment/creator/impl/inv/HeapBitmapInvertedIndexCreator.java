@@ -24,6 +24,7 @@ import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 import com.linkedin.pinot.common.data.FieldSpec;
@@ -57,6 +58,13 @@ public class HeapBitmapInvertedIndexCreator implements InvertedIndexCreator {
     invertedIndex[dictionaryId].add(docId);
   }
 
+  /**
+   * Adds all the documents having the given dictionary id at once.
+   */
+  public void addDocIds(int dictionaryId, ImmutableRoaringBitmap docIds) {
+    invertedIndex[dictionaryId].or(docIds);
+  }
+
   @Override
   public long totalTimeTakeSoFar() {
     return (System.currentTimeMillis() - start);
@@ -55,6 +55,7 @@ public class ColumnMetadata {
   private final boolean hasDictionary;
   private final int totalNumberOfEntries;
   private final char paddingCharacter;
+  private final MetricFieldSpec.DerivedMetricType derivedMetricType;
 
   public static ColumnMetadata fromPropertiesConfiguration(String column, PropertiesConfiguration config) {
     Builder builder = new Builder();
@@ -135,6 +136,12 @@ public class ColumnMetadata {
             .getKeyFor(column, V1Constants.MetadataKeys.Column.HAS_DICTIONARY), true);
     builder.setHasDictionary(hasDictionary);
 
+    final String derivedMetricType = config.getString(V1Constants.MetadataKeys.Column
+        .getKeyFor(column, V1Constants.MetadataKeys.Column.DERIVED_METRIC_TYPE), null);
+    if (derivedMetricType != null) {
+      builder.setDerivedMetricType(MetricFieldSpec.DerivedMetricType.valueOf(derivedMetricType));
+    }
+
     final int totalNumberOfEntries =
         config.getInt(V1Constants.MetadataKeys.Column
             .getKeyFor(column, V1Constants.MetadataKeys.Column.TOTAL_NUMBER_OF_ENTRIES));
@@ -168,6 +175,7 @@ public class ColumnMetadata {
     private int maxNumberOfMultiValues;
     private boolean containsNulls;
     private TimeUnit timeunit;
+    private MetricFieldSpec.DerivedMetricType derivedMetricType;
     private boolean hasDictionary;
     private int totalNumberOfEntries;
     private int totalRawDocs;
@@ -244,6 +252,11 @@ public class ColumnMetadata {
       return this;
     }
 
+    public Builder setDerivedMetricType(MetricFieldSpec.DerivedMetricType derivedMetricType) {
+      this.derivedMetricType = derivedMetricType;
+      return this;
+    }
+
     public Builder setTotalNumberOfEntries(int totalNumberOfEntries) {
       this.totalNumberOfEntries = totalNumberOfEntries;
       return this;
@@ -268,7 +281,7 @@ public class ColumnMetadata {
       return new ColumnMetadata(columnName, cardinality, totalRawDocs, totalAggDocs,totalDocs, dataType, bitsPerElement,
       stringColumnMaxLength, fieldType, isSorted, hasInvertedIndex,
       inSingleValue, maxNumberOfMultiValues, containsNulls, hasDictionary, timeunit,
-      totalNumberOfEntries, paddingCharacter);
+      totalNumberOfEntries, paddingCharacter, derivedMetricType);
     }
 
 
@@ -281,7 +294,7 @@ public class ColumnMetadata {
   private ColumnMetadata(String columnName, int cardinality, int totalRawDocs, int totalAggDocs, int totalDocs, DataType dataType, int bitsPerElement,
       int stringColumnMaxLength, FieldType fieldType, boolean isSorted, boolean hasInvertedIndex,
       boolean insSingleValue, int maxNumberOfMultiValues, boolean hasNulls, boolean hasDictionary, TimeUnit timeunit,
-      int totalNumberOfEntries, char paddingCharacter) {
+      int totalNumberOfEntries, char paddingCharacter, MetricFieldSpec.DerivedMetricType derivedMetricType) {
 
     this.columnName = columnName;
     this.cardinality = cardinality;
@@ -301,6 +314,7 @@ public class ColumnMetadata {
     this.hasDictionary = hasDictionary;
     this.totalNumberOfEntries = totalNumberOfEntries;
     this.paddingCharacter = paddingCharacter;
+    this.derivedMetricType = derivedMetricType;
   }
 
   public String getColumnName() {
@@ -315,6 +329,13 @@ public class ColumnMetadata {
     return paddingCharacter;
   }
 
+  /**
+   * Returns how the values of a metric column were derived, or null for plain metrics and other columns.
+   */
+  public MetricFieldSpec.DerivedMetricType getDerivedMetricType() {
+    return derivedMetricType;
+  }
+
   public int getMaxNumberOfMultiValues() {
     return maxNumberOfMultiValues;
   }
@@ -371,7 +392,7 @@ public class ColumnMetadata {
       case TIME:
         return new TimeFieldSpec(columnName, dataType, timeunit);
       case METRIC:
-        return new MetricFieldSpec(columnName, dataType);
+        return new MetricFieldSpec(columnName, dataType, derivedMetricType);
     }
     return null;
   }
@@ -106,7 +106,9 @@ public class IndexSegmentImpl implements IndexSegment {
     LOGGER.info("Trying to destroy segment : {}", this.getSegmentName());
     for (String column : indexContainerMap.keySet()) {
       try {
-        indexContainerMap.get(column).getDictionary().close();
+        if (indexContainerMap.get(column).getDictionary() != null) {
+          indexContainerMap.get(column).getDictionary().close();
+        }
       } catch (Exception e) {
         LOGGER.error("Error when close dictionary index for column : " + column, e);
       }
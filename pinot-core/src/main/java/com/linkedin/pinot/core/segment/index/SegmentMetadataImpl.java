@@ -63,6 +63,7 @@ public class SegmentMetadataImpl implements SegmentMetadata {
   private final Schema _schema;
   private final String _indexDir;
   private long _crc = Long.MIN_VALUE;
+  private long _sourceCrc = Long.MIN_VALUE;
   private long _creationTime = Long.MIN_VALUE;
   private Interval _timeInterval;
   private Duration _timeGranularity;
@@ -72,6 +73,7 @@ public class SegmentMetadataImpl implements SegmentMetadata {
   private boolean _hasStarTree;
   private StarTreeMetadata _starTreeMetadata = null;
   private String _creatorName;
+  private List<String> _sortColumns = new ArrayList<String>();
   private char _paddingCharacter = V1Constants.Str.DEFAULT_STRING_PAD_CHAR;
 
   public SegmentMetadataImpl(File indexDir) throws ConfigurationException, IOException {
@@ -271,6 +273,14 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     }
 
     _segmentName = _segmentMetadataPropertiesConfiguration.getString(V1Constants.MetadataKeys.Segment.SEGMENT_NAME);
+    _sourceCrc = _segmentMetadataPropertiesConfiguration.getLong(V1Constants.MetadataKeys.Segment.SEGMENT_SOURCE_CRC,
+        Long.MIN_VALUE);
+
+    final Iterator<String> sortColumns =
+        _segmentMetadataPropertiesConfiguration.getList(V1Constants.MetadataKeys.Segment.SEGMENT_SORT_COLUMNS).iterator();
+    while (sortColumns.hasNext()) {
+      _sortColumns.add(sortColumns.next());
+    }
 
     for (final String column : _allColumns) {
       _columnMetadataMap.put(column, extractColumnMetadataFor(column));
@@ -332,6 +342,15 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     if (skipMaterializationCardinalityString != null) {
       _starTreeMetadata.setSkipMaterializationCardinality(Long.valueOf(skipMaterializationCardinalityString));
     }
+
+    // Set the aggregation functions pre-aggregated into additional metric columns.
+    iterator = _segmentMetadataPropertiesConfiguration.getList(
+        MetadataKeys.StarTree.STAR_TREE_MATERIALIZED_AGGREGATION_FUNCTIONS).iterator();
+    List<String> materializedAggregationFunctions = new ArrayList<String>();
+    while (iterator.hasNext()) {
+      materializedAggregationFunctions.add(iterator.next());
+    }
+    _starTreeMetadata.setMaterializedAggregationFunctions(materializedAggregationFunctions);
   }
 
   private ColumnMetadata extractColumnMetadataFor(String column) {
@@ -371,6 +390,17 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     return String.valueOf(_crc);
   }
 
+  /**
+   * Returns the CRC of the segment this one was re-created from when it was loaded, e.g. to add a star tree index, or
+   * the CRC of this segment if it was not re-created. This is the CRC the segment is known by outside of the server.
+   */
+  public String getSourceCrc() {
+    if (_sourceCrc != Long.MIN_VALUE) {
+      return String.valueOf(_sourceCrc);
+    }
+    return getCrc();
+  }
+
   @Override
   public String getVersion() {
     return _segmentVersion.toString();
@@ -410,6 +440,14 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     return _segmentName;
   }
 
+  /**
+   * Returns the columns the documents of the segment are ordered on, the first one being the primary sort column, or
+   * an empty list if the documents are in input order.
+   */
+  public List<String> getSortColumns() {
+    return _sortColumns;
+  }
+
   @Override
   public Map<String, String> toMap() {
     final Map<String, String> ret = new HashMap<String, String>();
@@ -505,7 +543,9 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     // if (!SegmentVersion.v1.toString().equalsIgnoreCase(segmentVersion)) {
     // fileNameBuilder.append("_").append(segmentVersion);
     // }
-    if (columnMetadata.isSingleValue()) {
+    if (!columnMetadata.hasDictionary()) {
+      fileNameBuilder.append(V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+    } else if (columnMetadata.isSingleValue()) {
       if (columnMetadata.isSorted()) {
         fileNameBuilder.append(V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION);
       } else {
@@ -527,6 +567,10 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     return column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION;
   }
 
+  public String getBitmapRangeIndexFileName(String column) {
+    return column + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION;
+  }
+
   @Nullable @Override public String getCreatorName() {
     return _creatorName;
   }
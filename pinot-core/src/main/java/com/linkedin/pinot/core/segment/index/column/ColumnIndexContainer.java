@@ -21,10 +21,12 @@ import com.linkedin.pinot.core.io.reader.ReaderContext;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.FixedByteSingleValueMultiColReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
@@ -45,6 +47,16 @@ public abstract class ColumnIndexContainer {
   public static ColumnIndexContainer init(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfigMetadata indexLoadingConfigMetadata)
       throws IOException {
+    return init(segmentReader, metadata, indexLoadingConfigMetadata, null);
+  }
+
+  /**
+   * Same as {@link #init(SegmentDirectory.Reader, ColumnMetadata, IndexLoadingConfigMetadata)}, reporting inverted
+   * index bitmap cache metrics against the given table.
+   */
+  public static ColumnIndexContainer init(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, String tableName)
+      throws IOException {
     String column = metadata.getColumnName();
     boolean loadInverted = false;
     if (indexLoadingConfigMetadata != null) {
@@ -52,24 +64,38 @@ public abstract class ColumnIndexContainer {
         loadInverted = indexLoadingConfigMetadata.getLoadingInvertedIndexColumns().contains(metadata.getColumnName());
       }
     }
+    if (!metadata.hasDictionary()) {
+      return loadRaw(column, segmentReader, metadata);
+    }
+
     PinotDataBuffer dictionaryBuffer = segmentReader.getIndexFor(column, ColumnIndexType.DICTIONARY);
     ImmutableDictionaryReader dictionary = load(metadata, dictionaryBuffer);
+    if (indexLoadingConfigMetadata != null && indexLoadingConfigMetadata.isLoadingDictionaryHashIndexForColumn(column)) {
+      dictionary.loadHashIndex();
+    }
 
     if (metadata.isSorted() && metadata.isSingleValue()) {
       return loadSorted(column, segmentReader, metadata, dictionary);
       //return loadSorted(column, indexDir, metadata, dictionary, mode);
     }
 
+    BitmapRangeIndexReader rangeIndex = null;
+    if (indexLoadingConfigMetadata != null && indexLoadingConfigMetadata.isLoadingRangeIndexForColumn(column)
+        && segmentReader.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      rangeIndex = new BitmapRangeIndexReader(segmentReader.getIndexFor(column, ColumnIndexType.RANGE_INDEX));
+    }
+
     if (metadata.isSingleValue()) {
-      return loadUnsorted(column, segmentReader, metadata, dictionary, loadInverted);
+      return loadUnsorted(column, segmentReader, metadata, dictionary, loadInverted, rangeIndex, tableName);
       //return loadUnsorted(column, indexDir, metadata, dictionary, mode, loadInverted);
     }
     //return loadMultiValue(column, indexDir, metadata, dictionary, mode, loadInverted);
-    return loadMultiValue(column, segmentReader, metadata, dictionary, loadInverted);
+    return loadMultiValue(column, segmentReader, metadata, dictionary, loadInverted, rangeIndex, tableName);
   }
 
   private static ColumnIndexContainer loadMultiValue(String column, SegmentDirectory.Reader segmentReader,
-      ColumnMetadata metadata, ImmutableDictionaryReader dictionary, boolean loadInverted)
+      ColumnMetadata metadata, ImmutableDictionaryReader dictionary, boolean loadInverted,
+      BitmapRangeIndexReader rangeIndex, String tableName)
       throws IOException {
 
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
@@ -82,15 +108,15 @@ public abstract class ColumnIndexContainer {
 
     if (loadInverted) {
       PinotDataBuffer invertedIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.INVERTED_INDEX);
-      invertedIndex = new BitmapInvertedIndexReader(invertedIndexBuffer, metadata.getCardinality());
+      invertedIndex = new BitmapInvertedIndexReader(invertedIndexBuffer, metadata.getCardinality(), tableName);
     }
 
     return new UnSortedMVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary,
-        invertedIndex);
+        invertedIndex, rangeIndex);
   }
 
   private static ColumnIndexContainer loadUnsorted(String column, SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, boolean loadInverted)
+      ImmutableDictionaryReader dictionary, boolean loadInverted, BitmapRangeIndexReader rangeIndex, String tableName)
       throws IOException {
 
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
@@ -102,11 +128,11 @@ public abstract class ColumnIndexContainer {
 
     if (loadInverted) {
       PinotDataBuffer invertedIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.INVERTED_INDEX);
-      invertedIndex = new BitmapInvertedIndexReader(invertedIndexBuffer, metadata.getCardinality());
+      invertedIndex = new BitmapInvertedIndexReader(invertedIndexBuffer, metadata.getCardinality(), tableName);
     }
 
     return new UnsortedSVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary,
-        invertedIndex);
+        invertedIndex, rangeIndex);
   }
 
   private static ColumnIndexContainer loadSorted(String column, SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
@@ -120,6 +146,14 @@ public abstract class ColumnIndexContainer {
     return new SortedSVColumnIndexContainer(column, metadata, indexReader, dictionary);
   }
 
+  private static ColumnIndexContainer loadRaw(String column, SegmentDirectory.Reader segmentReader,
+      ColumnMetadata metadata)
+      throws IOException {
+    PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.FORWARD_INDEX);
+    ChunkCompressedSingleValueReader fwdIndexReader = new ChunkCompressedSingleValueReader(fwdIndexBuffer);
+    return new RawSVColumnIndexContainer(column, metadata, fwdIndexReader);
+  }
+
   private static ImmutableDictionaryReader load(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
     switch (metadata.getDataType()) {
       case INT:
@@ -143,6 +177,13 @@ public abstract class ColumnIndexContainer {
    */
   public abstract InvertedIndexReader getInvertedIndex();
 
+  /**
+   * Returns the range index of the column, or null if it has none.
+   */
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
   /**
    * @return
    */
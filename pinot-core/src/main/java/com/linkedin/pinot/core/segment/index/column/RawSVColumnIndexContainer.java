@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.column;
+
+import com.linkedin.pinot.core.io.reader.DataFileReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+
+
+/**
+ * Index container of a single value column stored without a dictionary, it only has a raw forward index.
+ */
+public class RawSVColumnIndexContainer extends ColumnIndexContainer {
+
+  private final String column;
+  private final ColumnMetadata columnMetadata;
+  private final ChunkCompressedSingleValueReader indexReader;
+
+  public RawSVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
+      ChunkCompressedSingleValueReader indexReader) {
+    this.column = column;
+    this.columnMetadata = columnMetadata;
+    this.indexReader = indexReader;
+  }
+
+  @Override
+  public InvertedIndexReader getInvertedIndex() {
+    return null;
+  }
+
+  @Override
+  public DataFileReader getForwardIndex() {
+    return indexReader;
+  }
+
+  @Override
+  public ImmutableDictionaryReader getDictionary() {
+    return null;
+  }
+
+  @Override
+  public ColumnMetadata getColumnMetadata() {
+    return columnMetadata;
+  }
+
+  @Override
+  public boolean unload() throws Exception {
+    indexReader.close();
+    return true;
+  }
+}
@@ -117,13 +117,16 @@ public class SegmentV1V2ToV3FormatConverter implements SegmentFormatConverter {
 
         for (String column : allColumns) {
           LOGGER.debug("Converting segment: {} , column: {}", v2Directory, column);
-          copyDictionary(v2DataReader, v3DataWriter, column);
+          if (v2Metadata.getColumnMetadataFor(column).hasDictionary()) {
+            copyDictionary(v2DataReader, v3DataWriter, column);
+          }
           copyForwardIndex(v2DataReader, v3DataWriter, column);
         }
 
         // inverted indexes are intentionally stored at the end of the single file
         for (String column : allColumns) {
           copyExistingInvertedIndex(v2DataReader, v3DataWriter, column);
+          copyExistingRangeIndex(v2DataReader, v3DataWriter, column);
         }
         copyStarTree(v2DataReader, v3DataWriter);
         v3DataWriter.saveAndClose();
@@ -166,6 +169,15 @@ public class SegmentV1V2ToV3FormatConverter implements SegmentFormatConverter {
     }
   }
 
+  private void copyExistingRangeIndex(SegmentDirectory.Reader reader,
+      SegmentDirectory.Writer writer,
+      String column)
+      throws IOException {
+    if (reader.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      readCopyBuffers(reader, writer, column, ColumnIndexType.RANGE_INDEX);
+    }
+  }
+
   private void readCopyBuffers(SegmentDirectory.Reader reader, SegmentDirectory.Writer writer,
       String column, ColumnIndexType indexType)
       throws IOException {
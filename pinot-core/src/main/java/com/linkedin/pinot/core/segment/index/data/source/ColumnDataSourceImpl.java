@@ -28,9 +28,12 @@ import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.SortedForwardIndexReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
 import com.linkedin.pinot.core.operator.blocks.MultiValueBlock;
+import com.linkedin.pinot.core.operator.blocks.RawSingleValueBlock;
 import com.linkedin.pinot.core.operator.blocks.SortedSingleValueBlock;
 import com.linkedin.pinot.core.operator.blocks.UnSortedSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
@@ -73,7 +76,10 @@ public class ColumnDataSourceImpl extends DataSource {
   public Block getNextBlock(BlockId blockId) {
     Block b = null;
 
-    if (indexContainer.getColumnMetadata().isSingleValue()) {
+    if (!indexContainer.getColumnMetadata().hasDictionary()) {
+      b = new RawSingleValueBlock(blockId, (ChunkCompressedSingleValueReader) indexContainer.getForwardIndex(),
+          indexContainer.getColumnMetadata());
+    } else if (indexContainer.getColumnMetadata().isSingleValue()) {
       if (indexContainer.getColumnMetadata().isSorted()) {
         b = new SortedSingleValueBlock(blockId,
             (SortedForwardIndexReader) indexContainer.getForwardIndex(),
@@ -157,6 +163,11 @@ public class ColumnDataSourceImpl extends DataSource {
     return indexContainer.getInvertedIndex();
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return indexContainer.getRangeIndex();
+  }
+
   @Override
   public Dictionary getDictionary() {
     return indexContainer.getDictionary();
@@ -51,6 +51,10 @@ public class Loaders {
       //NOTE: indexLoadingConfigMetadata can be null
 
       SegmentMetadataImpl metadata = new SegmentMetadataImpl(indexDir);
+      // re-creates the segment if a star tree index is configured but missing
+      if (SegmentPreProcessor.addStarTree(indexDir, metadata, indexLoadingConfigMetadata)) {
+        metadata = new SegmentMetadataImpl(indexDir);
+      }
       SegmentVersion configuredVersionToLoad = getSegmentVersionToLoad(indexLoadingConfigMetadata);
       SegmentVersion metadataVersion = metadata.getSegmentVersion();
       if (shouldConvertFormat(metadataVersion, configuredVersionToLoad) &&
@@ -79,7 +83,7 @@ public class Loaders {
       SegmentDirectory.Reader segmentReader = segmentDirectory.createReader();
       for (String column : metadata.getColumnMetadataMap().keySet()) {
         indexContainerMap.put(column, ColumnIndexContainer.init(segmentReader,
-            metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata));
+            metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, metadata.getTableName()));
       }
 
       // load star tree index if it exists
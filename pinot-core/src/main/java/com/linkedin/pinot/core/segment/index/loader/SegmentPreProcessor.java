@@ -17,12 +17,19 @@ package com.linkedin.pinot.core.segment.index.loader;
 
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.readers.PinotSegmentRecordReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
@@ -31,7 +38,10 @@ import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -39,11 +49,13 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * mmap()'s the segment and performs any pre-processing to generate inverted index
+ * mmap()'s the segment and performs any pre-processing to generate inverted and range indexes
  * This can be slow
  */
 public class SegmentPreProcessor implements AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentPreProcessor.class);
+  private static final String STAR_TREE_TEMP_DIR_SUFFIX = ".star_tree.tmp";
+  private static final String STAR_TREE_BACKUP_DIR_SUFFIX = ".star_tree.bak";
 
   private final File indexDir;
   private final SegmentMetadataImpl segmentMetadata;
@@ -74,6 +86,7 @@ public class SegmentPreProcessor implements AutoCloseable {
     try {
       segmentWriter = segmentDirectory.createWriter();
       addRemoveInvertedIndices(segmentWriter);
+      addRangeIndices(segmentWriter);
     } finally {
       if (segmentWriter != null) {
         segmentWriter.saveAndClose();
@@ -81,6 +94,90 @@ public class SegmentPreProcessor implements AutoCloseable {
     }
   }
 
+  /**
+   * Re-creates the segment in place with a star tree index if the loading config asks for one and the segment does not
+   * have one yet. Must be called on the original segment directory before any format conversion: the segment is
+   * re-created in the default format without the converted copies, so that they get converted again.
+   * The segment is re-created with the settings recorded in its metadata (table, raw index and sort columns, padding
+   * character and creation time) and with the full star tree index spec of the loading config. The re-created segment
+   * gets its own CRC, and records the CRC of the original segment as its source CRC (see
+   * {@link SegmentMetadataImpl#getSourceCrc()}), so that it keeps matching its ZK metadata and is not downloaded and
+   * re-created again on restart.
+   * This is slow since the whole segment is read and indexed again.
+   * @return true if the segment was re-created
+   */
+  static boolean addStarTree(File indexDir, SegmentMetadataImpl segmentMetadata,
+      IndexLoadingConfigMetadata indexConfig)
+      throws Exception {
+    if (indexConfig == null || !indexConfig.isLoadingStarTree() || segmentMetadata.hasStarTree()) {
+      return false;
+    }
+    String segmentName = segmentMetadata.getName();
+    StarTreeIndexSpec starTreeIndexSpec = indexConfig.getLoadingStarTreeIndexSpec();
+    LOGGER.info("Creating star tree index for segment: {} with spec: {}", segmentName, starTreeIndexSpec);
+
+    // Build the new segment next to the existing one, which is only replaced once the new one is complete. Leftovers
+    // of an interrupted run are removed first.
+    File tempDir = new File(indexDir.getParentFile(), indexDir.getName() + STAR_TREE_TEMP_DIR_SUFFIX);
+    File backupDir = new File(indexDir.getParentFile(), indexDir.getName() + STAR_TREE_BACKUP_DIR_SUFFIX);
+    FileUtils.deleteQuietly(tempDir);
+    FileUtils.deleteQuietly(backupDir);
+    PinotSegmentRecordReader recordReader = new PinotSegmentRecordReader(indexDir);
+    SegmentGeneratorConfig config = getStarTreeGeneratorConfig(segmentMetadata, recordReader.getSchema(),
+        starTreeIndexSpec);
+    config.setOutDir(tempDir.getPath());
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, recordReader);
+    // Closes the record reader
+    driver.build();
+
+    File newSegmentDir = new File(tempDir, segmentName);
+
+    // Swap the directories with renames, so that a complete segment is always on disk under either name
+    if (!indexDir.renameTo(backupDir)) {
+      FileUtils.deleteQuietly(tempDir);
+      throw new IOException("Failed to rename " + indexDir + " to " + backupDir);
+    }
+    if (!newSegmentDir.renameTo(indexDir)) {
+      if (!backupDir.renameTo(indexDir)) {
+        LOGGER.error("Failed to restore segment directory {} from {}", indexDir, backupDir);
+      }
+      FileUtils.deleteQuietly(tempDir);
+      throw new IOException("Failed to rename " + newSegmentDir + " to " + indexDir);
+    }
+    FileUtils.deleteQuietly(tempDir);
+    FileUtils.deleteQuietly(backupDir);
+    LOGGER.info("Created star tree index for segment: {}", segmentName);
+    return true;
+  }
+
+  /**
+   * Returns the config to re-create the given segment with a star tree index, with the settings recorded in the
+   * segment metadata.
+   */
+  static SegmentGeneratorConfig getStarTreeGeneratorConfig(SegmentMetadataImpl segmentMetadata, Schema schema,
+      StarTreeIndexSpec starTreeIndexSpec) {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
+    config.setTableName(segmentMetadata.getTableName());
+    config.setSegmentName(segmentMetadata.getName());
+    config.setCreationTime(Long.toString(segmentMetadata.getIndexCreationTime()));
+    config.setPaddingCharacter(segmentMetadata.getPaddingCharacter());
+    List<String> rawIndexColumns = new ArrayList<>();
+    for (ColumnMetadata columnMetadata : segmentMetadata.getColumnMetadataMap().values()) {
+      if (!columnMetadata.hasDictionary()) {
+        rawIndexColumns.add(columnMetadata.getColumnName());
+      }
+    }
+    config.setRawIndexCreationColumns(rawIndexColumns);
+    // The star tree index orders the documents itself, the driver logs that the sort columns are ignored
+    config.setSortColumns(segmentMetadata.getSortColumns());
+    config.setEnableStarTreeIndex(true);
+    config.setStarTreeIndexSpec(starTreeIndexSpec);
+    config.setCustomProperties(Collections.singletonMap(V1Constants.MetadataKeys.Segment.SEGMENT_SOURCE_CRC,
+        segmentMetadata.getSourceCrc()));
+    return config;
+  }
+
   private void addRemoveInvertedIndices(SegmentDirectory.Writer segmentWriter)
       throws IOException {
     Set<String> invertedIndexColumns = getInvertedIndexColumns();
@@ -99,7 +196,7 @@ public class SegmentPreProcessor implements AutoCloseable {
     Set<String> invertedIndexColumnsFromConfig = indexConfig.getLoadingInvertedIndexColumns();
     for (String column : invertedIndexColumnsFromConfig) {
       ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
-      if (columnMetadata != null && !columnMetadata.isSorted()) {
+      if (columnMetadata != null && !columnMetadata.isSorted() && columnMetadata.hasDictionary()) {
         invertedIndexColumns.add(column);
       }
     }
@@ -165,41 +262,124 @@ public class SegmentPreProcessor implements AutoCloseable {
 
     // For v3, write the generated inverted index file into the single file and remove it.
     if (segmentVersion == SegmentVersion.v3) {
-      File invertedIndexFile = creator.getInvertedIndexFile();
-      int fileLength = (int) invertedIndexFile.length();
-      PinotDataBuffer buffer = null;
-      try {
-        if (segmentWriter.hasIndexFor(columnName, ColumnIndexType.INVERTED_INDEX)) {
-          // Inverted index already exists, try to reuse it.
-
-          buffer = segmentWriter.getIndexFor(columnName, ColumnIndexType.INVERTED_INDEX);
-          if (buffer.size() != fileLength) {
-            // Existed inverted index size does not equal new generated inverted index size.
-            // Throw an exception here to trigger segment drop and re-download.
-
-            String failureMessage = "V3 format segment: {} already has inverted index that cannot be removed.";
-            LOGGER.error(failureMessage);
-            throw new IllegalStateException(failureMessage);
-          }
-        } else {
-          // Inverted index does not exist, create a new buffer for that.
+      copyToSingleFile(segmentWriter, columnName, ColumnIndexType.INVERTED_INDEX, creator.getInvertedIndexFile());
+    }
 
-          buffer = segmentWriter.newIndexFor(columnName, ColumnIndexType.INVERTED_INDEX, fileLength);
-        }
+    // Delete the marker file.
+    FileUtils.deleteQuietly(inProgress);
+
+    LOGGER.info("Created inverted index for segment: {}, column: {}", segmentName, columnName);
+  }
+
+  private void addRangeIndices(SegmentDirectory.Writer segmentWriter)
+      throws IOException {
+    if (indexConfig == null) {
+      return;
+    }
+    for (String column : indexConfig.getLoadingRangeIndexColumns()) {
+      ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+      // Sorted columns resolve ranges from their sorted forward index
+      if (columnMetadata != null && !columnMetadata.isSorted() && columnMetadata.hasDictionary()) {
+        createRangeIndex(segmentWriter, columnMetadata);
+      }
+    }
+  }
+
+  private void createRangeIndex(SegmentDirectory.Writer segmentWriter, ColumnMetadata columnMetadata)
+      throws IOException {
+    String columnName = columnMetadata.getColumnName();
+    File inProgress = new File(segmentWriter.toSegmentDirectory().getPath().toFile(), columnName + ".range.inprogress");
+
+    if (!inProgress.exists()) {
+      if (segmentWriter.hasIndexFor(columnName, ColumnIndexType.RANGE_INDEX)) {
+        LOGGER.info("Found range index for segment: {}, column: {}", segmentName, columnName);
+        return;
+      }
+      FileUtils.touch(inProgress);
+    } else if (segmentVersion == SegmentVersion.v1 || segmentVersion == SegmentVersion.v2) {
+      // Last run got interrupted, see createInvertedIndex()
+      segmentWriter.removeIndex(columnName, ColumnIndexType.RANGE_INDEX);
+    }
 
-        buffer.readFrom(invertedIndexFile);
-      } finally {
-        FileUtils.deleteQuietly(invertedIndexFile);
-        if (buffer != null) {
-          buffer.close();
+    LOGGER.info("Creating new range index for segment: {}, column: {}", segmentName, columnName);
+    int totalDocs = columnMetadata.getTotalDocs();
+    try (DataFileReader fwdIndex = getForwardIndexReader(columnMetadata, segmentWriter)) {
+      // Count the entries of each dictionary id to balance the buckets, then fill them
+      int[] numEntriesPerDictId = new int[columnMetadata.getCardinality()];
+      BitmapRangeIndexCreator creator;
+      if (columnMetadata.isSingleValue()) {
+        FixedBitSingleValueReader svFwdIndex = (FixedBitSingleValueReader) fwdIndex;
+        for (int i = 0; i < totalDocs; i++) {
+          numEntriesPerDictId[svFwdIndex.getInt(i)]++;
+        }
+        creator = new BitmapRangeIndexCreator(indexDir, columnMetadata.toFieldSpec(), numEntriesPerDictId,
+            BitmapRangeIndexCreator.DEFAULT_NUM_BUCKETS);
+        for (int i = 0; i < totalDocs; i++) {
+          creator.add(i, svFwdIndex.getInt(i));
+        }
+      } else {
+        SingleColumnMultiValueReader mvFwdIndex = (SingleColumnMultiValueReader) fwdIndex;
+        int[] dictIds = new int[columnMetadata.getMaxNumberOfMultiValues()];
+        for (int i = 0; i < totalDocs; i++) {
+          int len = mvFwdIndex.getIntArray(i, dictIds);
+          for (int j = 0; j < len; j++) {
+            numEntriesPerDictId[dictIds[j]]++;
+          }
         }
+        creator = new BitmapRangeIndexCreator(indexDir, columnMetadata.toFieldSpec(), numEntriesPerDictId,
+            BitmapRangeIndexCreator.DEFAULT_NUM_BUCKETS);
+        for (int i = 0; i < totalDocs; i++) {
+          int len = mvFwdIndex.getIntArray(i, dictIds);
+          creator.add(i, dictIds, len);
+        }
+      }
+      creator.seal();
+
+      if (segmentVersion == SegmentVersion.v3) {
+        copyToSingleFile(segmentWriter, columnName, ColumnIndexType.RANGE_INDEX, creator.getRangeIndexFile());
       }
     }
 
-    // Delete the marker file.
     FileUtils.deleteQuietly(inProgress);
 
-    LOGGER.info("Created inverted index for segment: {}, column: {}", segmentName, columnName);
+    LOGGER.info("Created range index for segment: {}, column: {}", segmentName, columnName);
+  }
+
+  /**
+   * Writes a generated index file into the single file of a v3 segment and removes it.
+   */
+  private void copyToSingleFile(SegmentDirectory.Writer segmentWriter, String columnName, ColumnIndexType indexType,
+      File indexFile)
+      throws IOException {
+    int fileLength = (int) indexFile.length();
+    PinotDataBuffer buffer = null;
+    try {
+      if (segmentWriter.hasIndexFor(columnName, indexType)) {
+        // Index already exists, try to reuse it.
+
+        buffer = segmentWriter.getIndexFor(columnName, indexType);
+        if (buffer.size() != fileLength) {
+          // Existed index size does not equal new generated index size.
+          // Throw an exception here to trigger segment drop and re-download.
+
+          String failureMessage =
+              "V3 format segment: " + segmentName + " already has " + indexType + " that cannot be removed.";
+          LOGGER.error(failureMessage);
+          throw new IllegalStateException(failureMessage);
+        }
+      } else {
+        // Index does not exist, create a new buffer for that.
+
+        buffer = segmentWriter.newIndexFor(columnName, indexType, fileLength);
+      }
+
+      buffer.readFrom(indexFile);
+    } finally {
+      FileUtils.deleteQuietly(indexFile);
+      if (buffer != null) {
+        buffer.close();
+      }
+    }
   }
 
   private DataFileReader getForwardIndexReader(ColumnMetadata columnMetadata, SegmentDirectory.Writer segmentWriter)
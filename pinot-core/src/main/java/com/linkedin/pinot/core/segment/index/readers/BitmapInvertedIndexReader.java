@@ -17,9 +17,7 @@ package com.linkedin.pinot.core.segment.index.readers;
 
 import com.linkedin.pinot.common.utils.Pairs.IntPair;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
-import java.io.File;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.slf4j.Logger;
@@ -29,13 +27,13 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
   public static final Logger LOGGER = LoggerFactory.getLogger(BitmapInvertedIndexReader.class);
 
   final private int numberOfBitmaps;
-  private volatile SoftReference<SoftReference<ImmutableRoaringBitmap>[]> bitmaps = null;
+  private final InvertedIndexBitmapCache bitmapCache;
+  private final long cacheIndexId;
+  private final String tableName;
 
   private PinotDataBuffer buffer;
   public static final int INT_SIZE_IN_BYTES = Integer.SIZE / Byte.SIZE;
 
-  private File file;
-
   /**
    * Constructs an inverted index with the specified size.
    * @param cardinality the number of bitmaps in the inverted index, which should be the same as the
@@ -44,8 +42,19 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    * @throws IOException
    */
   public BitmapInvertedIndexReader(PinotDataBuffer indexDataBuffer, int cardinality) throws IOException {
-    this.file = file;
+    this(indexDataBuffer, cardinality, null);
+  }
+
+  /**
+   * Constructs an inverted index with the specified size, whose bitmap cache hits and misses are reported against
+   * the given table.
+   */
+  public BitmapInvertedIndexReader(PinotDataBuffer indexDataBuffer, int cardinality, String tableName)
+      throws IOException {
+    this.tableName = tableName;
     numberOfBitmaps = cardinality;
+    bitmapCache = InvertedIndexBitmapCache.getInstance();
+    cacheIndexId = bitmapCache.newIndexId();
     load(indexDataBuffer);
   }
 
@@ -55,55 +64,25 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    */
   @Override
   public ImmutableRoaringBitmap getImmutable(int idx) {
-    SoftReference<ImmutableRoaringBitmap>[] bitmapArrayReference = null;
-    // Return the bitmap if it's still on heap
-    if (bitmaps != null) {
-      bitmapArrayReference = bitmaps.get();
-      if (bitmapArrayReference != null) {
-        SoftReference<ImmutableRoaringBitmap> bitmapReference = bitmapArrayReference[idx];
-        if (bitmapReference != null) {
-          ImmutableRoaringBitmap value = bitmapReference.get();
-          if (value != null) {
-            return value;
-          }
-        }
-      } else {
-        bitmapArrayReference = new SoftReference[numberOfBitmaps];
-        bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
-      }
-    } else {
-      bitmapArrayReference = new SoftReference[numberOfBitmaps];
-      bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
-    }
-    synchronized (this) {
-      ImmutableRoaringBitmap value;
-      if (bitmapArrayReference[idx] == null || bitmapArrayReference[idx].get() == null) {
-        value = buildRoaringBitmapForIndex(idx);
-        bitmapArrayReference[idx] = new SoftReference<ImmutableRoaringBitmap>(value);
-      } else {
-        value = bitmapArrayReference[idx].get();
-      }
-      return value;
-    }
-
+    return bitmapCache.get(cacheIndexId, idx, tableName, this);
   }
 
-  private synchronized ImmutableRoaringBitmap buildRoaringBitmapForIndex(final int index) {
+  ImmutableRoaringBitmap buildRoaringBitmapForIndex(final int index) {
     final int currentOffset = getOffset(index);
     final int nextOffset = getOffset(index + 1);
     final int bufferLength = nextOffset - currentOffset;
 
     // Slice the buffer appropriately for Roaring Bitmap
     ByteBuffer bb = buffer.toDirectByteBuffer(currentOffset, bufferLength);
-    ImmutableRoaringBitmap immutableRoaringBitmap = null;
     try {
-      immutableRoaringBitmap = new ImmutableRoaringBitmap(bb);
+      return new ImmutableRoaringBitmap(bb);
     } catch (Exception e) {
+      // The cache can not hold null bitmaps, surface the error to the query instead
       LOGGER.error(
-          "Error creating immutableRoaringBitmap for dictionary id:{} currentOffset:{} bufferLength:{} slice position{} limit:{} file:{}",
-          index, currentOffset, bufferLength, bb.position(), bb.limit(), file.getAbsolutePath());
+          "Error creating immutableRoaringBitmap for dictionary id:{} currentOffset:{} bufferLength:{} slice position{} limit:{}",
+          index, currentOffset, bufferLength, bb.position(), bb.limit());
+      throw new RuntimeException(e);
     }
-    return immutableRoaringBitmap;
   }
 
   private int getOffset(final int index) {
@@ -118,6 +97,7 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
 
   @Override
   public void close() throws IOException {
+    bitmapCache.invalidate(cacheIndexId, numberOfBitmaps);
     buffer.close();
   }
 
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reader for the range index created by
+ * {@link com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator}: each bucket holds the documents
+ * having a dictionary id within a range of consecutive dictionary ids.
+ */
+public class BitmapRangeIndexReader implements Closeable {
+  private static final int INT_SIZE_IN_BYTES = Integer.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer buffer;
+  private final int numBuckets;
+  private final int[] bucketStarts;
+  private final int offsetsStart;
+
+  public BitmapRangeIndexReader(PinotDataBuffer buffer) {
+    this.buffer = buffer;
+    numBuckets = buffer.getInt(0);
+    bucketStarts = new int[numBuckets + 1];
+    for (int i = 0; i <= numBuckets; i++) {
+      bucketStarts[i] = buffer.getInt((1 + i) * INT_SIZE_IN_BYTES);
+    }
+    offsetsStart = (2 + numBuckets) * INT_SIZE_IN_BYTES;
+  }
+
+  public int getNumBuckets() {
+    return numBuckets;
+  }
+
+  /**
+   * Returns the first dictionary id of the given bucket.
+   */
+  public int getBucketStart(int bucket) {
+    return bucketStarts[bucket];
+  }
+
+  /**
+   * Returns the last dictionary id (inclusive) of the given bucket.
+   */
+  public int getBucketEnd(int bucket) {
+    return bucketStarts[bucket + 1] - 1;
+  }
+
+  /**
+   * Returns the bucket holding the given dictionary id.
+   */
+  public int getBucket(int dictId) {
+    int low = 0;
+    int high = numBuckets - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (bucketStarts[mid] <= dictId) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the documents having a dictionary id in the given bucket.
+   */
+  public ImmutableRoaringBitmap getBitmap(int bucket) {
+    int offset = buffer.getInt(offsetsStart + bucket * INT_SIZE_IN_BYTES);
+    int nextOffset = buffer.getInt(offsetsStart + (bucket + 1) * INT_SIZE_IN_BYTES);
+    return new ImmutableRoaringBitmap(buffer.toDirectByteBuffer(offset, nextOffset - offset));
+  }
+
+  @Override
+  public void close() {
+    buffer.close();
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+
+
+/**
+ * Off-heap hash index from the values of an immutable dictionary to their dictionary ids, built when the segment is
+ * loaded. Uses open addressing with linear probing, each slot holds the hash of a value and its dictionary id plus one,
+ * so that a zero dictionary id marks an empty slot. Lookups take a couple of probes instead of a binary search over the
+ * dictionary.
+ */
+public class DictionaryHashIndex implements Closeable {
+  private static final int SLOT_SIZE = 8;
+
+  private final ImmutableDictionaryReader _dictionary;
+  private final PinotDataBuffer _buffer;
+  private final int _mask;
+
+  public DictionaryHashIndex(ImmutableDictionaryReader dictionary) {
+    _dictionary = dictionary;
+    int length = dictionary.length();
+    // Keep the load factor under 0.5
+    int numSlots = Integer.highestOneBit(Math.max(2 * length - 1, 1)) << 1;
+    _mask = numSlots - 1;
+    // Slots are addressed with int offsets, which direct byte buffers support
+    _buffer = PinotDataBuffer.allocateDirect(numSlots * SLOT_SIZE);
+    for (int slot = 0; slot < numSlots; slot++) {
+      _buffer.putLong(slot * SLOT_SIZE, 0L);
+    }
+
+    for (int dictId = 0; dictId < length; dictId++) {
+      int hash = hash(dictionary.getHashIndexValue(dictId));
+      int slot = hash & _mask;
+      while (_buffer.getInt(slot * SLOT_SIZE + 4) != 0) {
+        slot = (slot + 1) & _mask;
+      }
+      _buffer.putInt(slot * SLOT_SIZE, hash);
+      _buffer.putInt(slot * SLOT_SIZE + 4, dictId + 1);
+    }
+  }
+
+  /**
+   * Returns the dictionary id of the given value, which must be of the same type as the values returned by
+   * {@link ImmutableDictionaryReader#getHashIndexValue(int)}, or {@link Dictionary#NULL_VALUE_INDEX} if absent.
+   */
+  public int indexOf(Object value) {
+    int hash = hash(value);
+    int slot = hash & _mask;
+    while (true) {
+      int dictIdPlusOne = _buffer.getInt(slot * SLOT_SIZE + 4);
+      if (dictIdPlusOne == 0) {
+        return Dictionary.NULL_VALUE_INDEX;
+      }
+      if (_buffer.getInt(slot * SLOT_SIZE) == hash
+          && value.equals(_dictionary.getHashIndexValue(dictIdPlusOne - 1))) {
+        return dictIdPlusOne - 1;
+      }
+      slot = (slot + 1) & _mask;
+    }
+  }
+
+  private static int hash(Object value) {
+    // Spread the bits of the hash code, as numeric values hash to themselves
+    int hash = value.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  @Override
+  public void close() {
+    _buffer.close();
+  }
+}
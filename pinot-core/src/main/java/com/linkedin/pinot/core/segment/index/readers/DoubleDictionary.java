@@ -26,14 +26,15 @@ public class DoubleDictionary extends ImmutableDictionaryReader  {
 
   @Override
   public int indexOf(Object rawValue) {
-    Double lookup;
+    return doubleIndexOf(getLookupValue(rawValue));
+  }
 
+  @Override
+  protected Double getLookupValue(Object rawValue) {
     if (rawValue instanceof String) {
-      lookup = Double.parseDouble((String) rawValue);
-    } else {
-      lookup = (Double)rawValue;
+      return Double.parseDouble((String) rawValue);
     }
-    return doubleIndexOf(lookup);
+    return (Double) rawValue;
   }
 
   @Override
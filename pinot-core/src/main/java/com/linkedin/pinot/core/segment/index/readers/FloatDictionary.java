@@ -26,14 +26,15 @@ public class FloatDictionary extends ImmutableDictionaryReader {
 
   @Override
   public int indexOf(Object rawValue) {
-    Float lookup ;
+    return floatIndexOf(getLookupValue(rawValue));
+  }
 
+  @Override
+  protected Float getLookupValue(Object rawValue) {
     if (rawValue instanceof String) {
-      lookup = Float.parseFloat((String) rawValue);
-    } else {
-      lookup = (Float) rawValue;
+      return Float.parseFloat((String) rawValue);
     }
-    return floatIndexOf(lookup);
+    return (Float) rawValue;
   }
 
   @Override
@@ -27,6 +27,7 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
   protected final FixedByteSingleValueMultiColReader dataFileReader;
   private final ByteBufferBinarySearchUtil fileSearcher;
   private final int rows;
+  private DictionaryHashIndex hashIndex;
 
   protected ImmutableDictionaryReader(PinotDataBuffer dataBuffer, int rows, int columnSize) {
     dataFileReader = new FixedByteSingleValueMultiColReader(dataBuffer, rows, 1, new int[] { columnSize });
@@ -58,6 +59,45 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
   @Override
   public abstract int indexOf(Object rawValue);
 
+  /**
+   * Builds the hash index used by {@link #getDictionaryId(Object)} to resolve values.
+   */
+  public void loadHashIndex() {
+    if (hashIndex == null) {
+      hashIndex = new DictionaryHashIndex(this);
+    }
+  }
+
+  public boolean hasHashIndex() {
+    return hashIndex != null;
+  }
+
+  /**
+   * Returns the dictionary id of the given value, or {@link #NULL_VALUE_INDEX} if the value is not in the dictionary.
+   * Unlike {@link #indexOf(Object)}, never returns the insertion point of missing values, which lets it resolve values
+   * through the hash index when loaded.
+   */
+  public int getDictionaryId(Object rawValue) {
+    if (hashIndex != null) {
+      return hashIndex.indexOf(getLookupValue(rawValue));
+    }
+    int dictId = indexOf(rawValue);
+    return (dictId >= 0) ? dictId : NULL_VALUE_INDEX;
+  }
+
+  /**
+   * Converts a raw value into the value looked up in the hash index.
+   */
+  protected abstract Object getLookupValue(Object rawValue);
+
+  /**
+   * Returns the value stored in the hash index for the given dictionary id, comparable with
+   * {@link #getLookupValue(Object)}.
+   */
+  protected Object getHashIndexValue(int dictionaryId) {
+    return get(dictionaryId);
+  }
+
   @Override
   public abstract Object get(int dictionaryId);
 
@@ -71,6 +111,9 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
   public abstract String toString(int dictionaryId);
 
   public void close() throws IOException {
+    if (hashIndex != null) {
+      hashIndex.close();
+    }
     dataFileReader.close();
   }
 
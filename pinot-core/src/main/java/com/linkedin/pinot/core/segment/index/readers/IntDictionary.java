@@ -26,14 +26,15 @@ public class IntDictionary extends ImmutableDictionaryReader {
 
   @Override
   public int indexOf(Object rawValue) {
-    Integer lookup;
+    return intIndexOf(getLookupValue(rawValue));
+  }
+
+  @Override
+  protected Integer getLookupValue(Object rawValue) {
     if (rawValue instanceof String) {
-      lookup = Integer.parseInt((String) rawValue);
-    } else {
-      lookup = (Integer) rawValue;
+      return Integer.parseInt((String) rawValue);
     }
-
-    return intIndexOf(lookup);
+    return (Integer) rawValue;
   }
 
   @Override
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Server wide LRU cache of the bitmaps decoded by {@link BitmapInvertedIndexReader}.
+ *
+ * Entries are keyed by an id handed out to each loaded inverted index (one per segment and column) and the dictionary
+ * id. Ids are never reused, so a reloaded segment can not see the bitmaps of its previous incarnation. Lookups do not
+ * take any lock, and a missing bitmap is decoded once even when several queries ask for it at the same time. Entries
+ * of an inverted index are dropped when the index is closed as part of the segment unload.
+ *
+ * The cache is bounded by the total serialized size of the cached bitmaps rather than by their number, since a
+ * single bitmap of a high cardinality column can be orders of magnitude larger than most others.
+ */
+public class InvertedIndexBitmapCache {
+  private static final Weigher<BitmapKey, ImmutableRoaringBitmap> BITMAP_WEIGHER =
+      new Weigher<BitmapKey, ImmutableRoaringBitmap>() {
+        @Override
+        public int weigh(BitmapKey key, ImmutableRoaringBitmap bitmap) {
+          return bitmap.serializedSizeInBytes();
+        }
+      };
+  // Must be initialized after the weigher
+  private static final InvertedIndexBitmapCache INSTANCE =
+      new InvertedIndexBitmapCache(CommonConstants.Server.DEFAULT_INVERTED_INDEX_BITMAP_CACHE_MAX_BYTES);
+
+  private final AtomicLong _nextIndexId = new AtomicLong();
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+  private final RemovalListener<BitmapKey, ImmutableRoaringBitmap> _removalListener =
+      new RemovalListener<BitmapKey, ImmutableRoaringBitmap>() {
+        @Override
+        public void onRemoval(RemovalNotification<BitmapKey, ImmutableRoaringBitmap> notification) {
+          _sizeInBytes.addAndGet(-notification.getValue().serializedSizeInBytes());
+        }
+      };
+  private volatile Cache<BitmapKey, ImmutableRoaringBitmap> _cache;
+  private volatile long _maxBytes;
+  private volatile ServerMetrics _serverMetrics;
+
+  InvertedIndexBitmapCache(long maxBytes) {
+    setMaxBytes(maxBytes);
+  }
+
+  public static InvertedIndexBitmapCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Sets the maximum total serialized size in bytes of the bitmaps kept in the cache. Drops all cached bitmaps, so this
+   * is meant to be called on server startup before any segment is loaded.
+   */
+  public void setMaxBytes(long maxBytes) {
+    Cache<BitmapKey, ImmutableRoaringBitmap> previousCache = _cache;
+    _maxBytes = maxBytes;
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher(BITMAP_WEIGHER)
+        .removalListener(_removalListener)
+        .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+        .build();
+    if (previousCache != null) {
+      previousCache.invalidateAll();
+    }
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  /**
+   * Sets the metrics used to report cache hits and misses per table, no metrics are reported until this is called.
+   */
+  public void setServerMetrics(ServerMetrics serverMetrics) {
+    _serverMetrics = serverMetrics;
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Returns the total serialized size in bytes of the cached bitmaps.
+   */
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  public long getEvictionCount() {
+    return _cache.stats().evictionCount();
+  }
+
+  /**
+   * Returns a new id identifying the bitmaps of one inverted index in the cache.
+   */
+  long newIndexId() {
+    return _nextIndexId.getAndIncrement();
+  }
+
+  /**
+   * Returns the cached bitmap for the given index and dictionary id, decoding it from the given reader on a miss.
+   *
+   * @param tableName table the index belongs to, used for metrics only, can be null
+   */
+  ImmutableRoaringBitmap get(long indexId, final int dictId, String tableName, final BitmapInvertedIndexReader reader) {
+    BitmapKey key = new BitmapKey(indexId, dictId);
+    Cache<BitmapKey, ImmutableRoaringBitmap> cache = _cache;
+    ImmutableRoaringBitmap bitmap = cache.getIfPresent(key);
+    if (bitmap != null) {
+      updateMetrics(tableName, ServerMeter.INVERTED_INDEX_BITMAP_CACHE_HITS);
+      return bitmap;
+    }
+
+    updateMetrics(tableName, ServerMeter.INVERTED_INDEX_BITMAP_CACHE_MISSES);
+    try {
+      return cache.get(key, new Callable<ImmutableRoaringBitmap>() {
+        @Override
+        public ImmutableRoaringBitmap call() {
+          ImmutableRoaringBitmap bitmap = reader.buildRoaringBitmapForIndex(dictId);
+          _sizeInBytes.addAndGet(bitmap.serializedSizeInBytes());
+          return bitmap;
+        }
+      });
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Caught exception while decoding bitmap for dictionary id: " + dictId, e.getCause());
+    } catch (UncheckedExecutionException e) {
+      throw new RuntimeException("Caught exception while decoding bitmap for dictionary id: " + dictId, e.getCause());
+    }
+  }
+
+  /**
+   * Drops all the cached bitmaps of the given index.
+   */
+  void invalidate(long indexId, int numBitmaps) {
+    Cache<BitmapKey, ImmutableRoaringBitmap> cache = _cache;
+    if (numBitmaps <= cache.size()) {
+      for (int dictId = 0; dictId < numBitmaps; dictId++) {
+        cache.invalidate(new BitmapKey(indexId, dictId));
+      }
+    } else {
+      // Cheaper to scan the cache than to look up every dictionary id
+      Iterator<BitmapKey> iterator = cache.asMap().keySet().iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next()._indexId == indexId) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  private void updateMetrics(String tableName, ServerMeter meter) {
+    ServerMetrics serverMetrics = _serverMetrics;
+    if (serverMetrics != null && tableName != null) {
+      serverMetrics.addMeteredTableValue(tableName, meter, 1L);
+    }
+  }
+
+  private static final class BitmapKey {
+    private final long _indexId;
+    private final int _dictId;
+
+    BitmapKey(long indexId, int dictId) {
+      _indexId = indexId;
+      _dictId = dictId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BitmapKey)) {
+        return false;
+      }
+      BitmapKey that = (BitmapKey) o;
+      return _indexId == that._indexId && _dictId == that._dictId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (int) (_indexId ^ (_indexId >>> 32)) + _dictId;
+    }
+  }
+}
@@ -26,13 +26,15 @@ public class LongDictionary extends ImmutableDictionaryReader {
 
   @Override
   public int indexOf(Object rawValue) {
-    Long lookup;
+    return longIndexOf(getLookupValue(rawValue));
+  }
+
+  @Override
+  protected Long getLookupValue(Object rawValue) {
     if (rawValue instanceof String) {
-      lookup = Long.parseLong((String) rawValue);
-    } else {
-      lookup = (Long) rawValue;
+      return Long.parseLong((String) rawValue);
     }
-    return longIndexOf(lookup);
+    return (Long) rawValue;
   }
 
   @Override
@@ -42,6 +42,28 @@ public class StringDictionary extends ImmutableDictionaryReader {
     return stringIndexOf(bld.toString());
   }
 
+  /**
+   * Strips the trailing padding characters. Padded values are unique within the dictionary, so this identifies the
+   * value without padding the lookup value to the length of the longest entry.
+   */
+  @Override
+  protected String getLookupValue(Object rawValue) {
+    return stripPadding(rawValue.toString());
+  }
+
+  @Override
+  protected String getHashIndexValue(int dictionaryId) {
+    return stripPadding(getString(dictionaryId));
+  }
+
+  private String stripPadding(String value) {
+    int length = value.length();
+    while (length > 0 && value.charAt(length - 1) == paddingChar) {
+      length--;
+    }
+    return value.substring(0, length);
+  }
+
   @Override
   public String get(int dictionaryId) {
     if ((dictionaryId == -1) || (dictionaryId >= length())) {
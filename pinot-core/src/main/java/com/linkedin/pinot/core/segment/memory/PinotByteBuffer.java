@@ -109,7 +109,9 @@ public class PinotByteBuffer extends PinotDataBuffer {
     Preconditions.checkState(file.exists(), "File: {} does not exist", file);
     Preconditions.checkState(file.isFile(), "File: {} is not a regular file", file);
 
-    PinotByteBuffer buffer = allocateDirect((int)length, file.toString()  + "-" + context);
+    // Track the allocation against the file, so that it is accounted to the table and segment of the file
+    ByteBuffer bb = MmapUtils.allocateDirectByteBuffer((int) length, file, context);
+    PinotByteBuffer buffer = new PinotByteBuffer(bb, true/*owner*/);
 
     buffer.readFrom(file, startPosition, length);
     return buffer;
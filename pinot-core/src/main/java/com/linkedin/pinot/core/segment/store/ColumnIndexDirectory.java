@@ -92,6 +92,14 @@ abstract class ColumnIndexDirectory implements AutoCloseable {
    */
   public abstract PinotDataBuffer getInvertedIndexBufferFor(String column)
       throws IOException;
+  /**
+   * Get range index data buffer for a column
+   * @param column column name
+   * @return in-memory ByteBuffer like buffer for data
+   * @throws IOException
+   */
+  public abstract PinotDataBuffer getRangeIndexBufferFor(String column)
+      throws IOException;
 
   /**
    * Allocate a new data buffer of specified sizeBytes in the columnar index directory
@@ -120,6 +128,15 @@ abstract class ColumnIndexDirectory implements AutoCloseable {
    */
   public abstract PinotDataBuffer newInvertedIndexBuffer(String column, int sizeBytes)
       throws IOException;
+  /**
+   * Allocate a new data buffer of specified sizeBytes in the columnar index directory
+   * @param column column name
+   * @param sizeBytes sizeBytes for the buffer allocation
+   * @return in-memory ByteBuffer like buffer for data
+   * @throws IOException
+   */
+  public abstract PinotDataBuffer newRangeIndexBuffer(String column, int sizeBytes)
+      throws IOException;
 
   /**
    * Check if an index exists for a column
@@ -80,6 +80,20 @@ class FilePerIndexDirectory extends ColumnIndexDirectory {
     return getWriteBufferFor(key, sizeBytes);
   }
 
+  @Override
+  public PinotDataBuffer getRangeIndexBufferFor(String column)
+      throws IOException {
+    IndexKey key = new IndexKey(column, ColumnIndexType.RANGE_INDEX);
+    return getReadBufferFor(key);
+  }
+
+  @Override
+  public PinotDataBuffer newRangeIndexBuffer(String column, int sizeBytes)
+      throws IOException {
+    IndexKey key = new IndexKey(column, ColumnIndexType.RANGE_INDEX);
+    return getWriteBufferFor(key, sizeBytes);
+  }
+
   @Override
   public boolean hasIndexFor(String column, ColumnIndexType type) {
     File indexFile = getFileFor(column, type);
@@ -143,6 +157,9 @@ class FilePerIndexDirectory extends ColumnIndexDirectory {
       case INVERTED_INDEX:
         filename = metadata.getBitmapInvertedIndexFileName(column, metadata.getVersion());
         break;
+      case RANGE_INDEX:
+        filename = metadata.getBitmapRangeIndexFileName(column);
+        break;
       default:
         throw new UnsupportedOperationException("Unknown index type: " + indexType.toString());
     }
@@ -161,6 +161,8 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
         return columnIndexDirectory.getForwardIndexBufferFor(column);
       case INVERTED_INDEX:
         return columnIndexDirectory.getInvertedIndexBufferFor(column);
+      case RANGE_INDEX:
+        return columnIndexDirectory.getRangeIndexBufferFor(column);
       default:
         throw new RuntimeException("Unknown index type: " + type.name());
     }
@@ -287,6 +289,8 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
           return columnIndexDirectory.newForwardIndexBuffer(key.name, (int) sizeBytes);
         case INVERTED_INDEX:
           return columnIndexDirectory.newInvertedIndexBuffer(key.name, ((int) sizeBytes));
+        case RANGE_INDEX:
+          return columnIndexDirectory.newRangeIndexBuffer(key.name, ((int) sizeBytes));
         default:
           throw new RuntimeException("Unknown index type: " + indexType.name() +
               " for directory: " + segmentDirectory);
@@ -105,6 +105,12 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
     return checkAndGetIndexBuffer(column, ColumnIndexType.INVERTED_INDEX);
   }
 
+  @Override
+  public PinotDataBuffer getRangeIndexBufferFor(String column)
+      throws IOException {
+    return checkAndGetIndexBuffer(column, ColumnIndexType.RANGE_INDEX);
+  }
+
   @Override
   public boolean hasIndexFor(String column, ColumnIndexType type) {
     IndexKey key = new IndexKey(column, type);
@@ -129,6 +135,12 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
     return  allocNewBufferInternal(column, ColumnIndexType.INVERTED_INDEX, sizeBytes, "inverted_index.create");
   }
 
+  @Override
+  public PinotDataBuffer newRangeIndexBuffer(String column, int sizeBytes)
+      throws IOException {
+    return allocNewBufferInternal(column, ColumnIndexType.RANGE_INDEX, sizeBytes, "range_index.create");
+  }
+
   private PinotDataBuffer checkAndGetIndexBuffer(String column, ColumnIndexType type) {
     IndexKey key = new IndexKey(column, type);
     IndexEntry entry = columnEntries.get(key);
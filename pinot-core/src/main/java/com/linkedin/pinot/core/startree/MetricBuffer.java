@@ -15,27 +15,76 @@
  */
 package com.linkedin.pinot.core.startree;
 
+import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.operator.aggregation.function.DistinctCountHLLAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.hll.CompactHyperLogLog;
 
 
+/**
+ * Metric values of a star tree record. Numeric metrics are held as numbers, pre-aggregated HLL metrics (the only
+ * string metrics) as {@link CompactHyperLogLog}s stored in a fixed number of bytes and merged on aggregation.
+ */
 public class MetricBuffer {
-  Number[] numbers;
+  private static final int HLL_SIZE_BYTES =
+      CompactHyperLogLog.getMaxSerializedSize(DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE);
+
+  /**
+   * How a metric is aggregated across documents. Pre-aggregated count columns are summed like regular metrics.
+   */
+  public enum Aggregation {
+    SUM,
+    MIN,
+    MAX
+  }
 
-  public MetricBuffer(Number[] numbers) {
+  Object[] numbers;
+
+  public MetricBuffer(Object[] numbers) {
     this.numbers = numbers;
   }
 
   public MetricBuffer(MetricBuffer copy) {
     this.numbers = Arrays.copyOf(copy.numbers, copy.numbers.length);
+    for (int i = 0; i < numbers.length; i++) {
+      if (numbers[i] instanceof CompactHyperLogLog) {
+        numbers[i] = ((CompactHyperLogLog) numbers[i]).copy();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes used to store a metric of the given type.
+   */
+  public static int getSizeInBytes(DataType metricType) {
+    if (metricType == DataType.STRING) {
+      return HLL_SIZE_BYTES;
+    }
+    return metricType.size();
+  }
+
+  /**
+   * Converts a metric value of an input row to the value held in the buffer.
+   */
+  public static Object toMetricValue(Object value, DataType metricType) {
+    if (metricType != DataType.STRING) {
+      return value;
+    }
+    CompactHyperLogLog hll = CompactHyperLogLog.fromSerializedString((String) value,
+        DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE);
+    if (hll.getLog2m() != DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE) {
+      throw new IllegalArgumentException("Unsupported HyperLogLog log2m " + hll.getLog2m() + " for star tree metric");
+    }
+    return hll;
   }
 
   public static MetricBuffer fromBytes(byte[] bytes, List<DataType> metricTypes) {
     ByteBuffer buffer = ByteBuffer.wrap(bytes);
-    Number[] numbers = new Number[metricTypes.size()];
+    Object[] numbers = new Object[metricTypes.size()];
     for (int i = 0; i < metricTypes.size(); i++) {
       switch (metricTypes.get(i)) {
         case SHORT:
@@ -53,6 +102,11 @@ public class MetricBuffer {
         case DOUBLE:
           numbers[i] = buffer.getDouble();
           break;
+        case STRING:
+          byte[] hllBytes = new byte[HLL_SIZE_BYTES];
+          buffer.get(hllBytes);
+          numbers[i] = CompactHyperLogLog.fromBytes(hllBytes);
+          break;
         default:
           throw new IllegalArgumentException("Unsupported metric type " + metricTypes.get(i));
       }
@@ -60,7 +114,21 @@ public class MetricBuffer {
     return new MetricBuffer(numbers);
   }
 
-  public Number get(int index) {
+  public Object get(int index) {
+    return numbers[index];
+  }
+
+  private Number getNumber(int index) {
+    return (Number) numbers[index];
+  }
+
+  /**
+   * Returns the metric value to put in a row, i.e. the serialized sketch for HLL metrics.
+   */
+  public Object getValueForRow(int index) {
+    if (numbers[index] instanceof CompactHyperLogLog) {
+      return ((CompactHyperLogLog) numbers[index]).toSerializedString();
+    }
     return numbers[index];
   }
 
@@ -70,19 +138,25 @@ public class MetricBuffer {
     for (int i = 0; i < metricTypes.size(); i++) {
       switch (metricTypes.get(i)) {
         case SHORT:
-          buffer.putShort(numbers[i].shortValue());
+          buffer.putShort(getNumber(i).shortValue());
           break;
         case INT:
-          buffer.putInt(numbers[i].intValue());
+          buffer.putInt(getNumber(i).intValue());
           break;
         case LONG:
-          buffer.putLong(numbers[i].longValue());
+          buffer.putLong(getNumber(i).longValue());
           break;
         case FLOAT:
-          buffer.putFloat(numbers[i].floatValue());
+          buffer.putFloat(getNumber(i).floatValue());
           break;
         case DOUBLE:
-          buffer.putDouble(numbers[i].doubleValue());
+          buffer.putDouble(getNumber(i).doubleValue());
+          break;
+        case STRING:
+          // Sparse sketches are shorter than the fixed size
+          int end = buffer.position() + HLL_SIZE_BYTES;
+          buffer.put(((CompactHyperLogLog) numbers[i]).toBytes());
+          buffer.position(end);
           break;
         default:
           throw new IllegalArgumentException("Unsupported metric type " + metricTypes.get(i));
@@ -92,22 +166,41 @@ public class MetricBuffer {
   }
 
   public void aggregate(MetricBuffer metrics, List<DataType> metricTypes) {
+    aggregate(metrics, metricTypes, null);
+  }
+
+  /**
+   * Aggregates the given metrics into this buffer, using the given aggregation for each metric, or sum for all of
+   * them if the aggregations are null.
+   */
+  public void aggregate(MetricBuffer metrics, List<DataType> metricTypes, List<Aggregation> aggregations) {
     for (int i = 0; i < metricTypes.size(); i++) {
+      if (metricTypes.get(i) == DataType.STRING) {
+        mergeHyperLogLog(i, metrics);
+        continue;
+      }
+      Aggregation aggregation = (aggregations == null) ? Aggregation.SUM : aggregations.get(i);
+      if (aggregation != Aggregation.SUM) {
+        if (shouldReplace(aggregation, getNumber(i).doubleValue(), metrics.getNumber(i).doubleValue())) {
+          numbers[i] = metrics.get(i);
+        }
+        continue;
+      }
       switch (metricTypes.get(i)) {
         case SHORT:
-          numbers[i] = numbers[i].shortValue() + metrics.get(i).shortValue();
+          numbers[i] = getNumber(i).shortValue() + metrics.getNumber(i).shortValue();
           break;
         case INT:
-          numbers[i] = numbers[i].intValue() + metrics.get(i).intValue();
+          numbers[i] = getNumber(i).intValue() + metrics.getNumber(i).intValue();
           break;
         case LONG:
-          numbers[i] = numbers[i].longValue() + metrics.get(i).longValue();
+          numbers[i] = getNumber(i).longValue() + metrics.getNumber(i).longValue();
           break;
         case FLOAT:
-          numbers[i] = numbers[i].floatValue() + metrics.get(i).floatValue();
+          numbers[i] = getNumber(i).floatValue() + metrics.getNumber(i).floatValue();
           break;
         case DOUBLE:
-          numbers[i] = numbers[i].doubleValue() + metrics.get(i).doubleValue();
+          numbers[i] = getNumber(i).doubleValue() + metrics.getNumber(i).doubleValue();
           break;
         default:
           throw new IllegalArgumentException("Unsupported metric type " + metricTypes.get(i));
@@ -115,6 +208,18 @@ public class MetricBuffer {
     }
   }
 
+  private void mergeHyperLogLog(int index, MetricBuffer metrics) {
+    try {
+      ((CompactHyperLogLog) numbers[index]).addAll((CompactHyperLogLog) metrics.get(index));
+    } catch (CardinalityMergeException e) {
+      throw new IllegalStateException("Caught exception while merging HyperLogLog metrics", e);
+    }
+  }
+
+  private static boolean shouldReplace(Aggregation aggregation, double current, double other) {
+    return (aggregation == Aggregation.MIN) ? other < current : other > current;
+  }
+
   @Override
   public String toString() {
     return Arrays.toString(numbers);
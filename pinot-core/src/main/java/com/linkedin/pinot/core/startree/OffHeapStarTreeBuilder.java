@@ -24,6 +24,7 @@ import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.data.TimeFieldSpec;
 import com.linkedin.pinot.common.utils.Pairs.IntPair;
 import com.linkedin.pinot.core.data.GenericRow;
@@ -33,17 +34,23 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.joda.time.DateTime;
@@ -80,15 +87,17 @@ import org.slf4j.LoggerFactory;
  *
  *    //create a star tree node
  *
+ *    //sorted through an index over the memory mapped rows, comes out sorted
  *    aggregatedRows = table.uniqueAfterRemovingAttributeAndAggregateMetrics(start,end, splitDimensionName);
  *    for(each row in aggregatedRows_
  *    table.add(row);
  *    if(aggregateRows.size > minThreshold) {
- *      table.sort(end, end + aggregatedRows.size);
  *      constructStarTree(table, end, end + aggregatedRows.size, level +1);
  *    }
  * }
  * </code>
+ * When more than one thread is configured, the sub-trees under the root node each own a disjoint range of the sorted
+ * rows and are built concurrently, their aggregated rows are then appended in the sequential build order.
  */
 public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   private static final Logger LOG = LoggerFactory.getLogger(OffHeapStarTreeBuilder.class);
@@ -110,6 +119,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   private String timeColumnName;
   private List<DataType> dimensionTypes;
   private List<DataType> metricTypes;
+  private List<MetricBuffer.Aggregation> metricAggregations;
   private Map<String, Object> dimensionNameToStarValueMap;
   private HashBiMap<String, Integer> dimensionNameToIndexMap;
   private Map<String, Integer> metricNameToIndexMap;
@@ -121,6 +131,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   boolean debugMode = false;
   private int[] sortOrder;
   private int skipMaterializationCardinalityThreshold;
+  private int numThreads;
 
   public void init(StarTreeBuilderConfig builderConfig) throws Exception {
     Schema schema = builderConfig.schema;
@@ -129,6 +140,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     skipStarNodeCreationForDimensions = builderConfig.getSkipStarNodeCreationForDimensions();
     skipMaterializationForDimensions = builderConfig.getSkipMaterializationForDimensions();
     skipMaterializationCardinalityThreshold = builderConfig.getSkipMaterializationCardinalityThreshold();
+    numThreads = builderConfig.getNumThreads();
 
     this.maxLeafRecords = builderConfig.maxLeafRecords;
     this.outDir = builderConfig.getOutDir();
@@ -187,10 +199,14 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       metricNames.add(metricName);
       metricNameToIndexMap.put(metricName, index);
       DataType dataType = spec.getDataType();
+      if (dataType == DataType.STRING && spec.getDerivedMetricType() != MetricFieldSpec.DerivedMetricType.HLL) {
+        throw new IllegalArgumentException("Unsupported string metric " + metricName + " in star tree");
+      }
       metricTypes.add(dataType);
-      metricSizeBytes += dataType.size();
+      metricSizeBytes += MetricBuffer.getSizeInBytes(dataType);
     }
     this.numMetrics = metricNames.size();
+    this.metricAggregations = computeMetricAggregations(builderConfig.getMaterializedAggregationFunctions());
     builderConfig.getOutDir().mkdirs();
     dataFile = new File(outDir, "star-tree.buf");
     dataBuffer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile)));
@@ -204,6 +220,32 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     LOG.debug("metricNames:{}", metricNames);
   }
 
+  /**
+   * Pre-aggregated min/max metric columns keep their own function when documents are aggregated, every other metric
+   * (including the pre-aggregated count) is summed.
+   */
+  private List<MetricBuffer.Aggregation> computeMetricAggregations(Set<String> materializedAggregationFunctions) {
+    List<MetricBuffer.Aggregation> aggregations = new ArrayList<>(Collections.nCopies(numMetrics,
+        MetricBuffer.Aggregation.SUM));
+    if (materializedAggregationFunctions == null) {
+      return aggregations;
+    }
+    for (String metricName : metricNames) {
+      for (String function : materializedAggregationFunctions) {
+        Integer index = metricNameToIndexMap.get(StarTreeIndexSpec.getPreAggregatedColumnName(function, metricName));
+        if (index == null) {
+          continue;
+        }
+        if (function.equals(StarTreeIndexSpec.MIN_FUNCTION)) {
+          aggregations.set(index, MetricBuffer.Aggregation.MIN);
+        } else if (function.equals(StarTreeIndexSpec.MAX_FUNCTION)) {
+          aggregations.set(index, MetricBuffer.Aggregation.MAX);
+        }
+      }
+    }
+    return aggregations;
+  }
+
   private Object getAllStarValue(FieldSpec spec) throws Exception {
     switch (spec.getDataType()) {
     case STRING:
@@ -245,7 +287,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     }
     for (int i = 0; i < numMetrics; i++) {
       String metName = metricNames.get(i);
-      map.put(metName, metricsHolder.get(i));
+      map.put(metName, metricsHolder.getValueForRow(i));
     }
     row.init(map);
     return row;
@@ -269,10 +311,10 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       }
       dimension.setDimension(i, dictionary.get(dimValue));
     }
-    Number[] numbers = new Number[numMetrics];
+    Object[] numbers = new Object[numMetrics];
     for (int i = 0; i < numMetrics; i++) {
       String metName = metricNames.get(i);
-      numbers[i] = (Number) row.getValue(metName);
+      numbers[i] = MetricBuffer.toMetricValue(row.getValue(metName), metricTypes.get(i));
     }
     MetricBuffer metrics = new MetricBuffer(numbers);
     append(dimension, metrics);
@@ -323,8 +365,15 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     dataBuffer.flush();
     // Sort the data based on default sort order (split order + remaining dimensions)
     sort(dataFile, 0, rawRecordCount);
-    // Recursively construct the star tree, continuously sorting the data
-    constructStarTree(starTreeRootIndexNode, 0, rawRecordCount, 0, dataFile);
+    // Recursively construct the star tree, the sub-trees of the root node concurrently if configured
+    if (numThreads > 1 && !dimensionsSplitOrder.isEmpty()) {
+      constructStarTreeInParallel(numThreads);
+    } else {
+      AggregatedRecordSink sink =
+          new AggregatedRecordSink(dataFile, dataBuffer, 0, rawRecordCount + aggRecordCount);
+      constructStarTree(starTreeRootIndexNode, 0, rawRecordCount, 0, sink);
+      aggRecordCount += sink.getNumRecords();
+    }
 
     // Split the leaf nodes on time column. This is only possible if we have not split on time-column name
     // yet, and time column is still preserved (ie not replaced by StarTreeNode.all()).
@@ -363,7 +412,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       while (iterator.hasNext()) {
         Pair<byte[], byte[]> next = iterator.next();
         MetricBuffer metricBuffer = MetricBuffer.fromBytes(next.getRight(), metricTypes);
-        aggMetricBuffer.aggregate(metricBuffer, metricTypes);
+        aggMetricBuffer.aggregate(metricBuffer, metricTypes, metricAggregations);
       }
     } else {
 
@@ -377,7 +426,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
         if (aggMetricBuffer == null) {
           aggMetricBuffer = new MetricBuffer(childMetricBuffer);
         } else {
-          aggMetricBuffer.aggregate(childMetricBuffer, metricTypes);
+          aggMetricBuffer.aggregate(childMetricBuffer, metricTypes, metricAggregations);
         }
       }
     }
@@ -603,7 +652,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   }
 
   private int constructStarTree(StarTreeIndexNode node, int startDocId, int endDocId, int level,
-      File file) throws Exception {
+      AggregatedRecordSink sink) throws Exception {
     // node.setStartDocumentId(startDocId);
     int docsAdded = 0;
     if (level == dimensionsSplitOrder.size()) {
@@ -613,35 +662,16 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     Integer splitDimensionId = dimensionNameToIndexMap.get(splitDimensionName);
     LOG.debug(
         "Building tree at level:{} using file:{} from startDoc:{} endDocId:{} splitting on dimension:{}",
-        level, file.getName(), startDocId, endDocId, splitDimensionName);
-    Map<Integer, IntPair> sortGroupBy = groupBy(startDocId, endDocId, splitDimensionId, file);
+        level, sink.getFile(startDocId).getName(), startDocId, endDocId, splitDimensionName);
+    Map<Integer, IntPair> sortGroupBy = groupBy(startDocId, endDocId, splitDimensionId, sink);
     LOG.debug("Group stats:{}", sortGroupBy);
     node.setChildDimensionName(splitDimensionId);
     node.setChildren(new HashMap<Integer, StarTreeIndexNode>());
     for (int childDimensionValue : sortGroupBy.keySet()) {
-      StarTreeIndexNode child = new StarTreeIndexNode();
-      child.setDimensionName(splitDimensionId);
-      child.setDimensionValue(childDimensionValue);
-      child.setParent(node);
-      child.setLevel(node.getLevel() + 1);
-
       // n.b. We will number the nodes later using BFS after fully split
-
-      // Add child to parent
-      node.getChildren().put(childDimensionValue, child);
-
-      int childDocs = 0;
+      StarTreeIndexNode child = addChild(node, splitDimensionId, childDimensionValue);
       IntPair range = sortGroupBy.get(childDimensionValue);
-      if (range.getRight() - range.getLeft() > maxLeafRecords) {
-        childDocs = constructStarTree(child, range.getLeft(), range.getRight(), level + 1, file);
-        docsAdded += childDocs;
-      }
-
-      // Either range <= maxLeafRecords, or we did not split further (last level).
-      if (childDocs == 0) {
-        child.setStartDocumentId(range.getLeft());
-        child.setEndDocumentId(range.getRight());
-      }
+      docsAdded += constructChild(child, range.getLeft(), range.getRight(), level, sink);
     }
 
     // Return if star node does not need to be created.
@@ -651,39 +681,136 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     }
 
     // create star node
-    StarTreeIndexNode starChild = new StarTreeIndexNode();
-    starChild.setDimensionName(splitDimensionId);
-    starChild.setDimensionValue(StarTreeIndexNode.all());
-    starChild.setParent(node);
-    starChild.setLevel(node.getLevel() + 1);
-    // n.b. We will number the nodes later using BFS after fully split
+    StarTreeIndexNode starChild = addChild(node, splitDimensionId, StarTreeIndexNode.all());
+    docsAdded += constructStarChild(starChild, startDocId, endDocId, level, splitDimensionId, sink);
+    // node.setEndDocumentId(endDocId + docsAdded);
+    return docsAdded;
+  }
 
-    // Add child to parent
-    node.getChildren().put(StarTreeIndexNode.all(), starChild);
+  /**
+   * Same as {@link #constructStarTree} on the root node, except that the sub-trees of the root children and of the
+   * root star node are built concurrently. Each sub-tree only reads its own range of the sorted raw records and
+   * writes its aggregated records to its own file. The files are then appended to the data buffer in the order the
+   * sequential build writes them, and the document ids of each sub-tree are shifted to their final position.
+   */
+  private void constructStarTreeInParallel(int numThreads) throws Exception {
+    String splitDimensionName = dimensionsSplitOrder.get(0);
+    final int splitDimensionId = dimensionNameToIndexMap.get(splitDimensionName);
+    LOG.debug("Building tree on {} threads splitting on dimension:{}", numThreads, splitDimensionName);
+    Map<Integer, IntPair> sortGroupBy =
+        groupBy(0, rawRecordCount, splitDimensionId,
+            new AggregatedRecordSink(dataFile, dataBuffer, 0, rawRecordCount));
+    starTreeRootIndexNode.setChildDimensionName(splitDimensionId);
+    starTreeRootIndexNode.setChildren(new HashMap<Integer, StarTreeIndexNode>());
+
+    List<StarTreeIndexNode> subTrees = new ArrayList<>();
+    List<Future<AggregatedRecordSink>> futures = new ArrayList<>();
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    try {
+      for (int childDimensionValue : sortGroupBy.keySet()) {
+        final StarTreeIndexNode child = addChild(starTreeRootIndexNode, splitDimensionId, childDimensionValue);
+        final IntPair range = sortGroupBy.get(childDimensionValue);
+        if (range.getRight() - range.getLeft() <= maxLeafRecords) {
+          constructChild(child, range.getLeft(), range.getRight(), 0, null);
+          continue;
+        }
+        final File subTreeFile = new File(outDir, dataFile.getName() + "." + subTrees.size());
+        subTrees.add(child);
+        futures.add(executorService.submit(new Callable<AggregatedRecordSink>() {
+          @Override
+          public AggregatedRecordSink call() throws Exception {
+            AggregatedRecordSink sink = new AggregatedRecordSink(subTreeFile);
+            constructChild(child, range.getLeft(), range.getRight(), 0, sink);
+            sink.close();
+            return sink;
+          }
+        }));
+      }
+
+      if (skipStarNodeCreationForDimensions == null
+          || !skipStarNodeCreationForDimensions.contains(splitDimensionName)) {
+        final StarTreeIndexNode starChild =
+            addChild(starTreeRootIndexNode, splitDimensionId, StarTreeIndexNode.all());
+        final File subTreeFile = new File(outDir, dataFile.getName() + "." + subTrees.size());
+        subTrees.add(starChild);
+        futures.add(executorService.submit(new Callable<AggregatedRecordSink>() {
+          @Override
+          public AggregatedRecordSink call() throws Exception {
+            AggregatedRecordSink sink = new AggregatedRecordSink(subTreeFile);
+            constructStarChild(starChild, 0, rawRecordCount, 0, splitDimensionId, sink);
+            sink.close();
+            return sink;
+          }
+        }));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        AggregatedRecordSink sink = futures.get(i).get();
+        shiftDocumentIds(subTrees.get(i), aggRecordCount);
+        Files.copy(sink.getFile().toPath(), dataBuffer);
+        aggRecordCount += sink.getNumRecords();
+        FileUtils.deleteQuietly(sink.getFile());
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    dataBuffer.flush();
+  }
+
+  private StarTreeIndexNode addChild(StarTreeIndexNode node, int dimensionId, int dimensionValue) {
+    StarTreeIndexNode child = new StarTreeIndexNode();
+    child.setDimensionName(dimensionId);
+    child.setDimensionValue(dimensionValue);
+    child.setParent(node);
+    child.setLevel(node.getLevel() + 1);
+    node.getChildren().put(dimensionValue, child);
+    return child;
+  }
+
+  /**
+   * Splits the child further if it holds more than maxLeafRecords documents, returns the number of documents added.
+   */
+  private int constructChild(StarTreeIndexNode child, int startDocId, int endDocId, int level,
+      AggregatedRecordSink sink) throws Exception {
+    int childDocs = 0;
+    if (endDocId - startDocId > maxLeafRecords) {
+      childDocs = constructStarTree(child, startDocId, endDocId, level + 1, sink);
+    }
 
+    // Either range <= maxLeafRecords, or we did not split further (last level).
+    if (childDocs == 0) {
+      child.setStartDocumentId(startDocId);
+      child.setEndDocumentId(endDocId);
+    }
+    return childDocs;
+  }
+
+  /**
+   * Adds the records of the star child aggregated over the split dimension, and splits the star child further if
+   * there are at least maxLeafRecords of them. Returns the number of documents added.
+   */
+  private int constructStarChild(StarTreeIndexNode starChild, int startDocId, int endDocId, int level,
+      int splitDimensionId, AggregatedRecordSink sink) throws Exception {
     Iterator<Pair<DimensionBuffer, MetricBuffer>> iterator =
-        uniqueCombinations(startDocId, endDocId, file, splitDimensionId);
+        uniqueCombinations(startDocId, endDocId, sink, splitDimensionId);
     int rowsAdded = 0;
-    int startOffset = rawRecordCount + aggRecordCount;
+    int startOffset = sink.getNextDocId();
     while (iterator.hasNext()) {
       Pair<DimensionBuffer, MetricBuffer> next = iterator.next();
       DimensionBuffer dimension = next.getLeft();
       MetricBuffer metricsHolder = next.getRight();
       LOG.debug("Adding row:{}", dimension);
-      appendToAggBuffer(dimension, metricsHolder);
+      sink.append(dimension, metricsHolder);
       rowsAdded++;
     }
-    docsAdded += rowsAdded;
     LOG.debug("Added {} additional records at level {}", rowsAdded, level);
     // flush
-    dataBuffer.flush();
+    sink.flush();
 
+    // The unique combinations are already sorted, no need to sort them again before splitting
     int childDocs = 0;
     if (rowsAdded >= maxLeafRecords) {
-      sort(dataFile, startOffset, startOffset + rowsAdded);
-      childDocs =
-          constructStarTree(starChild, startOffset, startOffset + rowsAdded, level + 1, dataFile);
-      docsAdded += childDocs;
+      childDocs = constructStarTree(starChild, startOffset, startOffset + rowsAdded, level + 1, sink);
     }
 
     // Either rowsAdded < maxLeafRecords, or we did not split further (last level).
@@ -691,54 +818,50 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       starChild.setStartDocumentId(startOffset);
       starChild.setEndDocumentId(startOffset + rowsAdded);
     }
-    // node.setEndDocumentId(endDocId + docsAdded);
-    return docsAdded;
+    return rowsAdded + childDocs;
+  }
+
+  /**
+   * Moves the aggregated documents of the leaves under the given node by the given number of documents.
+   */
+  private void shiftDocumentIds(StarTreeIndexNode node, int shift) {
+    if (node.isLeaf()) {
+      if (node.getStartDocumentId() >= rawRecordCount) {
+        node.setStartDocumentId(node.getStartDocumentId() + shift);
+        node.setEndDocumentId(node.getEndDocumentId() + shift);
+      }
+    } else {
+      for (StarTreeIndexNode child : node.getChildren().values()) {
+        shiftDocumentIds(child, shift);
+      }
+    }
   }
 
   /**
-   * Assumes the file is already sorted, returns the unique combinations after removing a specified
-   * dimension.
-   * Aggregates the metrics for each unique combination, currently only sum is supported by default
+   * Assumes the range is already sorted, returns the unique combinations after removing a specified
+   * dimension, in sort order.
+   * Aggregates the metrics for each unique combination, using sum except for pre-aggregated min/max columns
    * @param startDocId
    * @param endDocId
-   * @param file
+   * @param sink
    * @param splitDimensionId
    * @return
    * @throws Exception
    */
   private Iterator<Pair<DimensionBuffer, MetricBuffer>> uniqueCombinations(int startDocId,
-      int endDocId, File file, int splitDimensionId) throws Exception {
-    StarTreeDataTable dataSorter =
-        new StarTreeDataTable(file, dimensionSizeBytes, metricSizeBytes, getSortOrder());
-    Iterator<Pair<byte[], byte[]>> iterator1 = dataSorter.iterator(startDocId, endDocId);
-    File tempFile =
-        new File(outDir, file.getName() + "_" + startDocId + "_" + endDocId + ".unique.tmp");
-    DataOutputStream dos =
-        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
-    while (iterator1.hasNext()) {
-      Pair<byte[], byte[]> next = iterator1.next();
-      byte[] dimensionBuffer = next.getLeft();
-      byte[] metricBuffer = next.getRight();
-      DimensionBuffer dimensions = DimensionBuffer.fromBytes(dimensionBuffer);
-      for (int i = 0; i < numDimensions; i++) {
-        String dimensionName = dimensionNameToIndexMap.inverse().get(i);
-        if (i == splitDimensionId || (skipMaterializationForDimensions != null
-            && skipMaterializationForDimensions.contains(dimensionName))) {
-          dos.writeInt(StarTreeIndexNode.all());
-        } else {
-          dos.writeInt(dimensions.getDimension(i));
-        }
-      }
-      dos.write(metricBuffer);
-    }
-    dos.close();
-    dataSorter =
-        new StarTreeDataTable(tempFile, dimensionSizeBytes, metricSizeBytes, getSortOrder());
-    dataSorter.sort(0, endDocId - startDocId);
-    if (debugMode) {
-      printFile(tempFile, 0, endDocId - startDocId);
+      int endDocId, AggregatedRecordSink sink, int splitDimensionId) throws Exception {
+    boolean[] starDimensions = new boolean[numDimensions];
+    for (int i = 0; i < numDimensions; i++) {
+      String dimensionName = dimensionNames.get(i);
+      starDimensions[i] = i == splitDimensionId || (skipMaterializationForDimensions != null
+          && skipMaterializationForDimensions.contains(dimensionName));
     }
-    final Iterator<Pair<byte[], byte[]>> iterator = dataSorter.iterator(0, endDocId - startDocId);
+    StarTreeDataTable dataSorter =
+        new StarTreeDataTable(sink.getFile(startDocId), dimensionSizeBytes, metricSizeBytes, getSortOrder());
+    int fileStartDocId = sink.getFileDocId(startDocId);
+    final Iterator<Pair<byte[], byte[]>> iterator =
+        dataSorter.iterator(fileStartDocId, fileStartDocId + endDocId - startDocId, starDimensions,
+            StarTreeIndexNode.all());
     return new Iterator<Pair<DimensionBuffer, MetricBuffer>>() {
 
       Pair<DimensionBuffer, MetricBuffer> prev = null;
@@ -773,7 +896,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
               LOG.debug("Returning unique {}", prev.getLeft());
               return ret;
             } else {
-              prev.getRight().aggregate(current.getRight(), metricTypes);
+              prev.getRight().aggregate(current.getRight(), metricTypes, metricAggregations);
             }
           }
         }
@@ -790,14 +913,89 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
    * @param startDocId
    * @param endDocId
    * @param dimension
-   * @param file
+   * @param sink
    * @return
    */
   private Map<Integer, IntPair> groupBy(int startDocId, int endDocId, Integer dimension,
-      File file) {
+      AggregatedRecordSink sink) {
     StarTreeDataTable dataSorter =
-        new StarTreeDataTable(file, dimensionSizeBytes, metricSizeBytes, getSortOrder());
-    return dataSorter.groupByIntColumnCount(startDocId, endDocId, dimension);
+        new StarTreeDataTable(sink.getFile(startDocId), dimensionSizeBytes, metricSizeBytes, getSortOrder());
+    int fileStartDocId = sink.getFileDocId(startDocId);
+    Map<Integer, IntPair> fileRanges =
+        dataSorter.groupByIntColumnCount(fileStartDocId, fileStartDocId + endDocId - startDocId, dimension);
+    if (fileStartDocId == startDocId) {
+      return fileRanges;
+    }
+    Map<Integer, IntPair> ranges = new LinkedHashMap<>();
+    for (Map.Entry<Integer, IntPair> entry : fileRanges.entrySet()) {
+      IntPair range = entry.getValue();
+      ranges.put(entry.getKey(), new IntPair(range.getLeft() + startDocId - fileStartDocId,
+          range.getRight() + startDocId - fileStartDocId));
+    }
+    return ranges;
+  }
+
+  /**
+   * Destination of the aggregated records created while splitting the tree. The raw records are always read from the
+   * data file, the aggregated records are appended either to the data file itself or, when sub-trees are built
+   * concurrently, to a separate file per sub-tree whose document ids start right after the raw records.
+   */
+  private class AggregatedRecordSink {
+    private final File _file;
+    private final DataOutputStream _out;
+    // Difference between the document id and the position in the file of the aggregated records
+    private final int _fileDocIdOffset;
+    private int _nextDocId;
+    private int _numRecords;
+
+    AggregatedRecordSink(File file, DataOutputStream out, int fileDocIdOffset, int nextDocId) {
+      _file = file;
+      _out = out;
+      _fileDocIdOffset = fileDocIdOffset;
+      _nextDocId = nextDocId;
+    }
+
+    /**
+     * Sink writing to its own file.
+     */
+    AggregatedRecordSink(File file) throws IOException {
+      this(file, new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))), rawRecordCount,
+          rawRecordCount);
+    }
+
+    File getFile() {
+      return _file;
+    }
+
+    File getFile(int docId) {
+      return docId < rawRecordCount ? dataFile : _file;
+    }
+
+    int getFileDocId(int docId) {
+      return docId < rawRecordCount ? docId : docId - _fileDocIdOffset;
+    }
+
+    int getNextDocId() {
+      return _nextDocId;
+    }
+
+    int getNumRecords() {
+      return _numRecords;
+    }
+
+    void append(DimensionBuffer dimension, MetricBuffer metrics) throws IOException {
+      appendToBuffer(_out, dimension, metrics);
+      _nextDocId++;
+      _numRecords++;
+    }
+
+    void flush() throws IOException {
+      _out.flush();
+    }
+
+    void close() throws IOException {
+      _out.close();
+    }
   }
 
   /**
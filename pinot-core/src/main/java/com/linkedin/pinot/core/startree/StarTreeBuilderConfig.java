@@ -20,6 +20,7 @@ import java.io.File;
 import java.util.List;
 
 import com.linkedin.pinot.common.data.Schema;
+import java.util.Collections;
 import java.util.Set;
 
 
@@ -37,6 +38,8 @@ public class StarTreeBuilderConfig {
   private Set<String> _skipMaterializationFroDimensions;
   private int _skipMaterializationCardinalityThreshold =
       StarTreeIndexSpec.DEFAULT_SKIP_MATERIALIZATION_CARDINALITY_THRESHOLD;
+  private Set<String> _materializedAggregationFunctions = Collections.emptySet();
+  private int _numThreads = 1;
 
   public StarTreeBuilderConfig() {
   }
@@ -107,4 +110,37 @@ public class StarTreeBuilderConfig {
   public void setSkipMaterializationForDimensions(Set<String> skipMaterializationForDimensions) {
     _skipMaterializationFroDimensions = skipMaterializationForDimensions;
   }
+
+  /**
+   * Get the aggregation functions whose pre-aggregated metric columns are part of the schema.
+   * @return
+   */
+  public Set<String> getMaterializedAggregationFunctions() {
+    return _materializedAggregationFunctions;
+  }
+
+  /**
+   * Set the aggregation functions whose pre-aggregated metric columns are part of the schema. These columns are
+   * aggregated with their own function instead of sum.
+   * @param materializedAggregationFunctions
+   */
+  public void setMaterializedAggregationFunctions(Set<String> materializedAggregationFunctions) {
+    _materializedAggregationFunctions = materializedAggregationFunctions;
+  }
+
+  /**
+   * Get the number of threads used to build the sub-trees of the root node.
+   * @return
+   */
+  public int getNumThreads() {
+    return _numThreads;
+  }
+
+  /**
+   * Set the number of threads used to build the sub-trees of the root node, they are built sequentially by default.
+   * @param numThreads
+   */
+  public void setNumThreads(int numThreads) {
+    _numThreads = numThreads;
+  }
 }
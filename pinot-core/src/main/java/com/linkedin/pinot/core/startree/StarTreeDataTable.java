@@ -35,6 +35,8 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import com.linkedin.pinot.common.utils.Pairs.IntPair;
 
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import xerial.larray.mmap.MMapBuffer;
 import xerial.larray.mmap.MMapMode;
 
@@ -238,4 +240,84 @@ public class StarTreeDataTable {
 
   }
 
+  /**
+   * Iterates over the records from startDocId to endDocId in sort order, once the given dimensions are replaced by
+   * the star value. The records are sorted through an index over the memory mapped range and are not re-written, the
+   * star value is only substituted in the returned dimension bytes. Records with equal dimensions keep their order.
+   * @param startDocId inclusive
+   * @param endDocId exclusive
+   * @param starDimensions dimensions to replace by the star value
+   * @param starValue
+   */
+  public Iterator<Pair<byte[], byte[]>> iterator(int startDocId, int endDocId, final boolean[] starDimensions,
+      final int starValue) throws IOException {
+    final int length = endDocId - startDocId;
+    final MMapBuffer mappedByteBuffer =
+        new MMapBuffer(file, (long) startDocId * totalSizeInBytes, (long) length * totalSizeInBytes,
+            MMapMode.READ_ONLY);
+    final ByteBuffer records = mappedByteBuffer.toDirectByteBuffer(0, length * totalSizeInBytes);
+    final int[] recordIds = new int[length];
+    for (int i = 0; i < length; i++) {
+      recordIds[i] = i;
+    }
+    IntArrays.mergeSort(recordIds, new AbstractIntComparator() {
+      @Override
+      public int compare(int o1, int o2) {
+        int pos1 = o1 * totalSizeInBytes;
+        int pos2 = o2 * totalSizeInBytes;
+        for (int dimIndex : sortOrder) {
+          if (starDimensions[dimIndex]) {
+            continue;
+          }
+          int v1 = records.getInt(pos1 + dimIndex * 4);
+          int v2 = records.getInt(pos2 + dimIndex * 4);
+          if (v1 != v2) {
+            return v1 - v2;
+          }
+        }
+        return 0;
+      }
+    });
+
+    return new Iterator<Pair<byte[], byte[]>>() {
+      int pointer = 0;
+
+      @Override
+      public boolean hasNext() {
+        return pointer < length;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Pair<byte[], byte[]> next() {
+        byte[] dimBuff = new byte[dimensionSizeInBytes];
+        byte[] metBuff = new byte[metricSizeInBytes];
+        int position = recordIds[pointer] * totalSizeInBytes;
+        mappedByteBuffer.copyTo(position, dimBuff, 0, dimensionSizeInBytes);
+        if (metricSizeInBytes > 0) {
+          mappedByteBuffer.copyTo(position + dimensionSizeInBytes, metBuff, 0, metricSizeInBytes);
+        }
+        ByteBuffer dimensions = ByteBuffer.wrap(dimBuff);
+        for (int i = 0; i < starDimensions.length; i++) {
+          if (starDimensions[i]) {
+            dimensions.putInt(i * 4, starValue);
+          }
+        }
+        pointer = pointer + 1;
+        if (pointer == length) {
+          try {
+            mappedByteBuffer.close();
+          } catch (IOException e) {
+            e.printStackTrace();
+          }
+        }
+        return Pair.of(dimBuff, metBuff);
+      }
+    };
+  }
+
 }
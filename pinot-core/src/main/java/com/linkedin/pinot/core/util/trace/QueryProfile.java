@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.util.trace;
+
+import com.linkedin.pinot.common.response.broker.OperatorStats;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Per-operator execution statistics of one profiled query on a server.
+ *
+ * Unlike {@link TraceContext}, nothing is recorded unless the query asked for a profile: the profile is bound to the
+ * threads working on the query, and operators created on those threads register themselves on construction. Each
+ * operator only updates its own {@link OperatorStats}, the profile merges them by operator name once the query plan
+ * has been executed. {@link TraceRunnable} and {@link TraceCallable} carry the profile over to worker threads.
+ */
+public class QueryProfile {
+  public static final String OPERATOR_STATS_METADATA_KEY = "operatorStats";
+
+  private static final ThreadLocal<QueryProfile> PROFILE = new ThreadLocal<>();
+
+  private final List<BaseOperator> _operators = new ArrayList<>();
+
+  public static QueryProfile getProfileForCurrentThread() {
+    return PROFILE.get();
+  }
+
+  public static void registerThreadToProfile(QueryProfile profile) {
+    PROFILE.set(profile);
+  }
+
+  public static void unregisterThreadFromProfile() {
+    PROFILE.remove();
+  }
+
+  /**
+   * Registers an operator of the profiled query and returns the stats it should record into.
+   */
+  public OperatorStats register(BaseOperator operator) {
+    synchronized (_operators) {
+      _operators.add(operator);
+    }
+    return new OperatorStats(null);
+  }
+
+  /**
+   * Returns the stats of all the registered operators merged by operator name, from the root of the plan down to the
+   * filter operators. Must only be called once the query plan has been executed.
+   */
+  public List<OperatorStats> getOperatorStats() {
+    List<OperatorStats> operatorStatsList;
+    synchronized (_operators) {
+      operatorStatsList = new ArrayList<>(_operators.size());
+      // Operators are created bottom up, walk them backwards to list the root first
+      for (int i = _operators.size() - 1; i >= 0; i--) {
+        operatorStatsList.add(_operators.get(i).getOperatorStats());
+      }
+    }
+    return OperatorStats.merge(operatorStatsList);
+  }
+
+  public String toJsonString()
+      throws IOException {
+    return OperatorStats.toJsonString(getOperatorStats());
+  }
+}
@@ -32,6 +32,7 @@ public abstract class TraceCallable<V> implements Callable<V> {
 
   private final InstanceRequest request;
   private final Trace parent;
+  private final QueryProfile profile = QueryProfile.getProfileForCurrentThread();
 
   public TraceCallable(InstanceRequest request, Trace parent) {
     if (request == null) {
@@ -51,10 +52,12 @@ public abstract class TraceCallable<V> implements Callable<V> {
   @Override
   public V call() throws Exception {
     if (request != null) TraceContext.registerThreadToRequest(request, parent);
+    if (profile != null) QueryProfile.registerThreadToProfile(profile);
     try {
       return callJob();
     } finally {
       if (request != null) TraceContext.unregisterThreadFromRequest();
+      if (profile != null) QueryProfile.unregisterThreadFromProfile();
     }
   }
 
@@ -30,6 +30,7 @@ public abstract class TraceRunnable implements Runnable {
 
   private final InstanceRequest request;
   private final Trace parent;
+  private final QueryProfile profile = QueryProfile.getProfileForCurrentThread();
 
   private TraceRunnable(InstanceRequest request, Trace parent) {
     if (request == null) {
@@ -49,10 +50,12 @@ public abstract class TraceRunnable implements Runnable {
   @Override
   public void run() {
     if (request != null) TraceContext.registerThreadToRequest(request, parent);
+    if (profile != null) QueryProfile.registerThreadToProfile(profile);
     try {
       runJob();
     } finally {
       if (request != null) TraceContext.unregisterThreadFromRequest();
+      if (profile != null) QueryProfile.unregisterThreadFromProfile();
     }
   }
 
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BlockBufferArenaTest {
+
+  @Test
+  public void testReuse() {
+    BlockBufferArena arena = BlockBufferArena.get();
+    Assert.assertSame(BlockBufferArena.get(), arena);
+
+    int[] intBuffer = arena.takeIntBuffer();
+    Assert.assertEquals(intBuffer.length, BlockBufferArena.BUFFER_SIZE);
+    int[] otherIntBuffer = arena.takeIntBuffer();
+    Assert.assertNotSame(otherIntBuffer, intBuffer);
+    int numIdleBuffers = arena.getNumIdleBuffers();
+    arena.returnIntBuffer(intBuffer);
+    arena.returnIntBuffer(otherIntBuffer);
+    Assert.assertEquals(arena.getNumIdleBuffers(), numIdleBuffers + 2);
+    Assert.assertSame(arena.takeIntBuffer(), otherIntBuffer);
+    Assert.assertSame(arena.takeIntBuffer(), intBuffer);
+    Assert.assertEquals(arena.getNumIdleBuffers(), numIdleBuffers);
+
+    double[] doubleBuffer = arena.takeDoubleBuffer();
+    arena.returnDoubleBuffer(doubleBuffer);
+    Assert.assertSame(arena.takeDoubleBuffer(), doubleBuffer);
+
+    // Returned object buffers do not hold on to their values
+    String[] stringBuffer = arena.takeStringBuffer();
+    stringBuffer[0] = "value";
+    arena.returnStringBuffer(stringBuffer);
+    Assert.assertSame(arena.takeStringBuffer(), stringBuffer);
+    Assert.assertNull(stringBuffer[0]);
+
+    // Grown buffers are not kept
+    numIdleBuffers = arena.getNumIdleBuffers();
+    arena.returnIntBuffer(new int[2 * BlockBufferArena.BUFFER_SIZE]);
+    Assert.assertEquals(arena.getNumIdleBuffers(), numIdleBuffers);
+  }
+
+  @Test
+  public void testPerThread() throws Exception {
+    final BlockBufferArena arena = BlockBufferArena.get();
+    final int[] intBuffer = arena.takeIntBuffer();
+    arena.returnIntBuffer(intBuffer);
+
+    final BlockBufferArena[] otherArena = new BlockBufferArena[1];
+    final int[][] otherIntBuffer = new int[1][];
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        otherArena[0] = BlockBufferArena.get();
+        otherIntBuffer[0] = otherArena[0].takeIntBuffer();
+      }
+    });
+    thread.start();
+    thread.join();
+
+    Assert.assertNotSame(otherArena[0], arena);
+    Assert.assertNotSame(otherIntBuffer[0], intBuffer);
+    Assert.assertSame(arena.takeIntBuffer(), intBuffer);
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+import com.linkedin.pinot.util.TestUtils;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Checks that RANGE predicates evaluated with the range index match the ones evaluated with a scan.
+ */
+public class RangeIndexBasedFilterOperatorTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RangeIndexBasedFilterOperatorTest");
+  private static final String[] RANGE_INDEX_COLUMNS = {"column8", "column15", "met_impressionCount"};
+
+  private IndexSegment _indexSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    String filePath = TestUtils.getFileFromResourceUrl(
+        RangeIndexBasedFilterOperatorTest.class.getClassLoader().getResource(AVRO_DATA));
+    SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), INDEX_DIR, "time_day",
+            TimeUnit.DAYS, "test");
+    SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata = new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    indexLoadingConfigMetadata.initLoadingRangeIndexColumnSet(RANGE_INDEX_COLUMNS);
+    _indexSegment = Loaders.IndexSegment.load(new File(INDEX_DIR, driver.getSegmentName()), ReadMode.mmap,
+        indexLoadingConfigMetadata);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testRangeIndex() {
+    Random random = new Random(0);
+    int endDocId = _indexSegment.getSegmentMetadata().getTotalRawDocs() - 1;
+    for (String column : RANGE_INDEX_COLUMNS) {
+      DataSource dataSource = _indexSegment.getDataSource(column);
+      BitmapRangeIndexReader rangeIndex = dataSource.getRangeIndex();
+      Assert.assertNotNull(rangeIndex);
+      Assert.assertTrue(rangeIndex.getNumBuckets() > 1);
+      Assert.assertNull(_indexSegment.getDataSource("column2").getRangeIndex());
+
+      Dictionary dictionary = dataSource.getDictionary();
+      for (int i = 0; i < 50; i++) {
+        int lowerDictId = random.nextInt(dictionary.length());
+        int upperDictId = lowerDictId + random.nextInt(dictionary.length() - lowerDictId);
+        String lower = random.nextInt(10) == 0 ? "*" : dictionary.getStringValue(lowerDictId);
+        String upper = random.nextInt(10) == 0 ? "*" : dictionary.getStringValue(upperDictId);
+        String range = (random.nextBoolean() ? "[" : "(") + lower + "\t\t" + upper + (random.nextBoolean() ? "]" : ")");
+        RangePredicate predicate = new RangePredicate(column, Collections.singletonList(range));
+
+        // Data sources only return their block once
+        BaseFilterOperator rangeIndexOperator =
+            new RangeIndexBasedFilterOperator(_indexSegment.getDataSource(column), 0, endDocId);
+        rangeIndexOperator.setPredicate(predicate);
+        BaseFilterOperator scanOperator = new ScanBasedFilterOperator(_indexSegment.getDataSource(column), 0, endDocId);
+        scanOperator.setPredicate(predicate);
+        Assert.assertEquals(getDocIds(rangeIndexOperator), getDocIds(scanOperator), "Mismatch for range: " + range);
+      }
+    }
+  }
+
+  private static List<Integer> getDocIds(BaseFilterOperator filterOperator) {
+    List<Integer> docIds = new ArrayList<>();
+    BlockDocIdIterator iterator = filterOperator.nextBlock().getBlockDocIdSet().iterator();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    return docIds;
+  }
+}
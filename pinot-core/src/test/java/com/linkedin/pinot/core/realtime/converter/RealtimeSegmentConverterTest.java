@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.converter;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.FileFormat;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.realtime.StreamProvider;
+import com.linkedin.pinot.core.realtime.StreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderImpl;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+import com.yammer.metrics.core.MetricsRegistry;
+
+
+/**
+ * Checks that the column-wise conversion of a realtime segment produces the same files as the conversion reading it
+ * row by row.
+ */
+public class RealtimeSegmentConverterTest {
+  private static final String AVRO_DATA = "data/test_data-sv.avro";
+  private static final String TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testTable_realtime";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentConverterTest");
+
+  private Schema schema;
+  private RealtimeSegmentImpl realtimeSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    String filePath = RealtimeSegmentConverterTest.class.getClassLoader().getResource(AVRO_DATA).getFile();
+    Map<String, FieldType> fieldTypeMap = new HashMap<>();
+    for (int i = 1; i <= 18; i++) {
+      fieldTypeMap.put("column" + i, FieldType.DIMENSION);
+    }
+    fieldTypeMap.put("weeksSinceEpochSunday", FieldType.DIMENSION);
+    fieldTypeMap.put("daysSinceEpoch", FieldType.TIME);
+    fieldTypeMap.put("count", FieldType.METRIC);
+    schema = SegmentTestUtils.extractSchemaFromAvro(new File(filePath), fieldTypeMap, TimeUnit.DAYS);
+
+    StreamProviderConfig config = new FileBasedStreamProviderConfig(FileFormat.AVRO, filePath, schema);
+    StreamProvider provider = new FileBasedStreamProviderImpl();
+    provider.init(config, TABLE_NAME, new ServerMetrics(new MetricsRegistry()));
+
+    realtimeSegment = new RealtimeSegmentImpl(schema, 100000, TABLE_NAME, SEGMENT_NAME, AVRO_DATA,
+        new ServerMetrics(new MetricsRegistry()));
+    GenericRow row = provider.next();
+    while (row != null) {
+      realtimeSegment.index(row);
+      row = provider.next();
+    }
+    provider.shutdown();
+
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testUnsortedConversion() throws Exception {
+    testConversion("unsorted", null);
+  }
+
+  @Test
+  public void testSortedConversion() throws Exception {
+    testConversion("sorted", "column5");
+  }
+
+  private void testConversion(String name, String sortedColumn) throws Exception {
+    File columnarDir = new File(INDEX_DIR, name + "-columnar");
+    new RealtimeSegmentConverter(realtimeSegment, columnarDir.getAbsolutePath(), schema, TABLE_NAME, SEGMENT_NAME,
+        sortedColumn, Arrays.asList("column1", "column5", "daysSinceEpoch", "count")).build(SegmentVersion.v1);
+    File rowDir = new File(INDEX_DIR, name + "-rows");
+    new RealtimeSegmentConverter(realtimeSegment, rowDir.getAbsolutePath(), schema, TABLE_NAME, SEGMENT_NAME,
+        sortedColumn, Arrays.asList("column1", "column5", "daysSinceEpoch", "count")).buildFromRows(SegmentVersion.v1);
+
+    File columnarSegmentDir = new File(columnarDir, SEGMENT_NAME);
+    File rowSegmentDir = new File(rowDir, SEGMENT_NAME);
+    String[] fileNames = rowSegmentDir.list();
+    Arrays.sort(fileNames);
+    String[] columnarFileNames = columnarSegmentDir.list();
+    Arrays.sort(columnarFileNames);
+    Assert.assertEquals(columnarFileNames, fileNames);
+
+    for (String fileName : fileNames) {
+      // Holds the creation time
+      if (fileName.equals(V1Constants.SEGMENT_CREATION_META)) {
+        continue;
+      }
+      Assert.assertTrue(FileUtils.contentEquals(new File(columnarSegmentDir, fileName), new File(rowSegmentDir, fileName)),
+          "Mismatch in " + fileName);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ConcurrentRealtimeInvertedIndexTest {
+  private static final int NUM_DICT_IDS = 10;
+  private static final int NUM_DOCS = 100000;
+
+  @Test
+  public void testPublish() {
+    ConcurrentRealtimeInvertedIndex invertedIndex = new ConcurrentRealtimeInvertedIndex("column");
+    invertedIndex.add(0, 0);
+    invertedIndex.add(1, 1);
+
+    // Nothing is visible to readers before publishing
+    Assert.assertTrue(invertedIndex.getImmutable(0).isEmpty());
+    Assert.assertTrue(invertedIndex.getImmutable(100).isEmpty());
+    Assert.assertEquals(invertedIndex.getDocIdSetFor(0).getCardinality(), 1);
+    Assert.assertNull(invertedIndex.getDocIdSetFor(100));
+
+    invertedIndex.publish();
+    ImmutableRoaringBitmap published = invertedIndex.getImmutable(0);
+    Assert.assertEquals(published.getCardinality(), 1);
+    Assert.assertTrue(published.contains(0));
+
+    // Published bitmaps are never modified by later additions
+    invertedIndex.add(0, 2);
+    invertedIndex.add(100, 3);
+    Assert.assertEquals(published.getCardinality(), 1);
+    Assert.assertEquals(invertedIndex.getImmutable(0).getCardinality(), 1);
+    Assert.assertTrue(invertedIndex.getImmutable(100).isEmpty());
+
+    invertedIndex.publish();
+    Assert.assertEquals(published.getCardinality(), 1);
+    Assert.assertEquals(invertedIndex.getImmutable(0).getCardinality(), 2);
+    Assert.assertEquals(invertedIndex.getImmutable(1).getCardinality(), 1);
+    Assert.assertTrue(invertedIndex.getImmutable(100).contains(3));
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    final ConcurrentRealtimeInvertedIndex invertedIndex = new ConcurrentRealtimeInvertedIndex("column");
+    final AtomicInteger publishedDocs = new AtomicInteger(0);
+    final AtomicBoolean done = new AtomicBoolean(false);
+    final AtomicReference<String> error = new AtomicReference<String>();
+
+    // Readers must always see at least all the published documents, and only documents that were added
+    Thread reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        while (!done.get() && error.get() == null) {
+          int numDocs = publishedDocs.get();
+          int total = 0;
+          for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+            ImmutableRoaringBitmap bitmap = invertedIndex.getImmutable(dictId);
+            total += bitmap.getCardinality();
+            if (!bitmap.isEmpty() && bitmap.getReverseIntIterator().next() % NUM_DICT_IDS != dictId) {
+              error.set("Unexpected document for dictionary id: " + dictId);
+            }
+          }
+          if (total < numDocs) {
+            error.set("Expected at least " + numDocs + " documents, got: " + total);
+          }
+        }
+      }
+    });
+    reader.start();
+
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      invertedIndex.add(docId % NUM_DICT_IDS, docId);
+      if (docId % 100 == 99) {
+        invertedIndex.publish();
+        publishedDocs.set(docId + 1);
+      }
+    }
+    done.set(true);
+    reader.join();
+
+    Assert.assertNull(error.get(), error.get());
+    for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+      Assert.assertEquals(invertedIndex.getImmutable(dictId).getCardinality(), NUM_DOCS / NUM_DICT_IDS);
+    }
+  }
+}
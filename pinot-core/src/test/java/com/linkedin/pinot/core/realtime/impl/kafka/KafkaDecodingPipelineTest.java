@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import kafka.consumer.ConsumerIterator;
+import kafka.consumer.ConsumerTimeoutException;
+import kafka.message.MessageAndMetadata;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Tests that the decoding pipeline hands over rows in fetch order and never loses a fetched event.
+ */
+public class KafkaDecodingPipelineTest {
+  private static final int NUM_DECODERS = 4;
+
+  @Test
+  public void testOrderAndFetchLimit() throws Exception {
+    int numEvents = 10000;
+    int maxEventsToFetch = 7000;
+    KafkaDecodingPipeline pipeline = createPipeline(numEvents, maxEventsToFetch, new AtomicInteger());
+    pipeline.start();
+
+    // Every 10th event fails to decode and is skipped
+    int expectedValue = 0;
+    while (expectedValue < maxEventsToFetch) {
+      GenericRow row = pipeline.next(100L);
+      if (row == null) {
+        continue;
+      }
+      if (expectedValue % 10 == 0) {
+        expectedValue++;
+      }
+      Assert.assertEquals(row.getValue("value"), expectedValue);
+      expectedValue++;
+    }
+
+    pipeline.stopFetching();
+    Assert.assertNull(pipeline.next(100L));
+    pipeline.shutdown();
+  }
+
+  @Test
+  public void testStopFetchingReturnsAllFetchedEvents() throws Exception {
+    int numEvents = 5000;
+    AtomicInteger numConsumed = new AtomicInteger();
+    KafkaDecodingPipeline pipeline = createPipeline(numEvents, Integer.MAX_VALUE, numConsumed);
+    pipeline.start();
+
+    int numRows = 0;
+    while (numRows < 100) {
+      if (pipeline.next(100L) != null) {
+        numRows++;
+      }
+    }
+
+    pipeline.stopFetching();
+    GenericRow row;
+    while ((row = pipeline.next(100L)) != null) {
+      numRows++;
+    }
+
+    // Every consumed event was handed over, except the ones that failed to decode
+    int consumed = numConsumed.get();
+    Assert.assertEquals(numRows, consumed - (consumed + 9) / 10);
+    pipeline.shutdown();
+  }
+
+  @SuppressWarnings("unchecked")
+  private KafkaDecodingPipeline createPipeline(final int numEvents, int maxEventsToFetch,
+      final AtomicInteger numConsumed) {
+    final ConsumerIterator<byte[], byte[]> iterator = mock(ConsumerIterator.class);
+    when(iterator.hasNext()).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        if (numConsumed.get() >= numEvents) {
+          throw new ConsumerTimeoutException();
+        }
+        return true;
+      }
+    });
+    when(iterator.next()).thenAnswer(new Answer<MessageAndMetadata<byte[], byte[]>>() {
+      @Override
+      public MessageAndMetadata<byte[], byte[]> answer(InvocationOnMock invocation) throws Throwable {
+        MessageAndMetadata<byte[], byte[]> messageAndMetadata = mock(MessageAndMetadata.class);
+        when(messageAndMetadata.message()).thenReturn(
+            Integer.toString(numConsumed.getAndIncrement()).getBytes("UTF-8"));
+        return messageAndMetadata;
+      }
+    });
+
+    List<KafkaMessageDecoder> decoders = new ArrayList<KafkaMessageDecoder>();
+    for (int i = 0; i < NUM_DECODERS; i++) {
+      decoders.add(new IntegerMessageDecoder());
+    }
+    return new KafkaDecodingPipeline(iterator, decoders, 100, maxEventsToFetch, "testTable-testTopic",
+        new ServerMetrics(new MetricsRegistry()), LoggerFactory.getLogger(KafkaDecodingPipelineTest.class));
+  }
+
+  private static class IntegerMessageDecoder implements KafkaMessageDecoder {
+    @Override
+    public void init(Map<String, String> props, Schema indexingSchema, String kafkaTopicName) {
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload) {
+      int value = Integer.parseInt(new String(payload));
+      if (value % 10 == 0) {
+        return null;
+      }
+      GenericRow row = new GenericRow();
+      row.init(Collections.<String, Object>singletonMap("value", value));
+      return row;
+    }
+  }
+}
@@ -15,11 +15,13 @@
  */
 package com.linkedin.pinot.core.realtime.impl.kafka;
 
+import com.google.common.base.Ticker;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.yammer.metrics.core.MetricsRegistry;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import com.linkedin.pinot.common.data.FieldSpec;
@@ -71,4 +73,47 @@ public class RealtimeSegmentImplTest {
     Assert.assertEquals(notFull, true);
     Assert.assertEquals(realtimeSegment.getRawDocumentCount(), 2);
   }
+
+  @Test
+  public void testPublishInterval() throws Exception {
+    Schema schema = new Schema.SchemaBuilder()
+        .setSchemaName("potato")
+        .addSingleValueDimension("dimension", FieldSpec.DataType.STRING)
+        .addMetric("metric", FieldSpec.DataType.LONG)
+        .addTime("time", TimeUnit.SECONDS, FieldSpec.DataType.LONG)
+        .build();
+
+    final AtomicLong timeNs = new AtomicLong();
+    Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return timeNs.get();
+      }
+    };
+    RealtimeSegmentImpl realtimeSegment = new RealtimeSegmentImpl(schema, 100, "noTable", "noSegment", schema.getSchemaName(),
+        new ServerMetrics(new MetricsRegistry()), ticker);
+
+    Map<String, Object> genericRowContents = new HashMap<>();
+    genericRowContents.put("dimension", "potato");
+    genericRowContents.put("metric", 1234L);
+    genericRowContents.put("time", 4567L);
+    GenericRow row = new GenericRow();
+    row.init(genericRowContents);
+
+    // The first query publishes the indexed documents
+    realtimeSegment.index(row);
+    realtimeSegment.getDataSource("dimension");
+    Assert.assertEquals(realtimeSegment.getInvertedIndexFor("dimension").getImmutable(0).getCardinality(), 1);
+
+    // Queries within the publish interval keep reading the published documents
+    realtimeSegment.index(row);
+    timeNs.addAndGet(TimeUnit.MILLISECONDS.toNanos(RealtimeSegmentImpl.MIN_PUBLISH_INTERVAL_MS - 1));
+    realtimeSegment.getDataSource("dimension");
+    Assert.assertEquals(realtimeSegment.getInvertedIndexFor("dimension").getImmutable(0).getCardinality(), 1);
+
+    // Queries after the publish interval publish the documents indexed since
+    timeNs.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    realtimeSegment.getDataSource("dimension");
+    Assert.assertEquals(realtimeSegment.getInvertedIndexFor("dimension").getImmutable(0).getCardinality(), 2);
+  }
 }
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.DataFetcher;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkCompressedSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.v1.ChunkReaderContext;
+import com.linkedin.pinot.core.io.writer.impl.v1.ChunkCompressedSingleValueWriter;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.linkedin.pinot.util.TestDataRecordReader;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for columns stored without a dictionary, in a chunk compressed raw forward index.
+ */
+public class RawIndexTest {
+  private static final String SEGMENT_NAME = "rawIndexTestSegment";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), RawIndexTest.class.getSimpleName());
+  private static final int NUM_ROWS = 10001;
+  private static final String DIMENSION_NAME = "dimension";
+  private static final String INT_METRIC_NAME = "int_metric";
+  private static final String LONG_METRIC_NAME = "long_metric";
+  private static final String FLOAT_METRIC_NAME = "float_metric";
+  private static final String DOUBLE_METRIC_NAME = "double_metric";
+
+  private final long _randomSeed = System.currentTimeMillis();
+  private final Random _random = new Random(_randomSeed);
+  private final String _errorMessage = "Random seed is: " + _randomSeed;
+  private final int[] _intMetricValues = new int[NUM_ROWS];
+  private final long[] _longMetricValues = new long[NUM_ROWS];
+  private final float[] _floatMetricValues = new float[NUM_ROWS];
+  private final double[] _doubleMetricValues = new double[NUM_ROWS];
+  private File _segmentDir;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    INDEX_DIR.mkdirs();
+
+    GenericRow[] segmentData = new GenericRow[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      _intMetricValues[i] = _random.nextInt();
+      _longMetricValues[i] = _random.nextLong();
+      _floatMetricValues[i] = _random.nextFloat();
+      _doubleMetricValues[i] = _random.nextDouble();
+      HashMap<String, Object> map = new HashMap<>();
+      map.put(DIMENSION_NAME, "dim" + _random.nextInt(10));
+      map.put(INT_METRIC_NAME, _intMetricValues[i]);
+      map.put(LONG_METRIC_NAME, _longMetricValues[i]);
+      map.put(FLOAT_METRIC_NAME, _floatMetricValues[i]);
+      map.put(DOUBLE_METRIC_NAME, _doubleMetricValues[i]);
+      GenericRow genericRow = new GenericRow();
+      genericRow.init(map);
+      segmentData[i] = genericRow;
+    }
+
+    Schema schema = new Schema();
+    schema.addField(DIMENSION_NAME, new DimensionFieldSpec(DIMENSION_NAME, FieldSpec.DataType.STRING, true));
+    schema.addField(INT_METRIC_NAME, new MetricFieldSpec(INT_METRIC_NAME, FieldSpec.DataType.INT));
+    schema.addField(LONG_METRIC_NAME, new MetricFieldSpec(LONG_METRIC_NAME, FieldSpec.DataType.LONG));
+    schema.addField(FLOAT_METRIC_NAME, new MetricFieldSpec(FLOAT_METRIC_NAME, FieldSpec.DataType.FLOAT));
+    schema.addField(DOUBLE_METRIC_NAME, new MetricFieldSpec(DOUBLE_METRIC_NAME, FieldSpec.DataType.DOUBLE));
+
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
+    config.setOutDir(INDEX_DIR.getAbsolutePath());
+    config.setSegmentName(SEGMENT_NAME);
+    config.setRawIndexCreationColumns(
+        Arrays.asList(INT_METRIC_NAME, LONG_METRIC_NAME, FLOAT_METRIC_NAME, DOUBLE_METRIC_NAME));
+    config.setRawIndexCompressionType(ChunkCompressorFactory.CompressionType.LZ4);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new TestDataRecordReader(schema, segmentData));
+    driver.build();
+    _segmentDir = new File(INDEX_DIR, SEGMENT_NAME);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testWriterReader() throws Exception {
+    for (ChunkCompressorFactory.CompressionType compressionType : ChunkCompressorFactory.CompressionType.values()) {
+      File file = new File(INDEX_DIR, "raw." + compressionType);
+      ChunkCompressedSingleValueWriter writer =
+          new ChunkCompressedSingleValueWriter(file, compressionType, NUM_ROWS, 1000, Double.SIZE / Byte.SIZE);
+      for (int i = 0; i < NUM_ROWS; i++) {
+        writer.setDouble(i, _doubleMetricValues[i]);
+      }
+      writer.close();
+
+      PinotDataBuffer buffer = PinotDataBuffer.fromFile(file, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, "testing");
+      ChunkCompressedSingleValueReader reader = new ChunkCompressedSingleValueReader(buffer);
+      ChunkReaderContext context = reader.createContext();
+      // Sequential reads, then random reads across chunks
+      for (int i = 0; i < NUM_ROWS; i++) {
+        Assert.assertEquals(reader.getDouble(i, context), _doubleMetricValues[i], _errorMessage);
+      }
+      for (int i = 0; i < 1000; i++) {
+        int row = _random.nextInt(NUM_ROWS);
+        Assert.assertEquals(reader.getDouble(row, context), _doubleMetricValues[row], _errorMessage);
+      }
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testSegmentMetadata() throws Exception {
+    PropertiesConfiguration properties = new PropertiesConfiguration(new File(_segmentDir, "metadata.properties"));
+    Assert.assertTrue(ColumnMetadata.fromPropertiesConfiguration(DIMENSION_NAME, properties).hasDictionary());
+    for (String column : new String[]{INT_METRIC_NAME, LONG_METRIC_NAME, FLOAT_METRIC_NAME, DOUBLE_METRIC_NAME}) {
+      Assert.assertFalse(ColumnMetadata.fromPropertiesConfiguration(column, properties).hasDictionary());
+      Assert.assertFalse(new File(_segmentDir, column + ".dict").exists());
+      Assert.assertTrue(new File(_segmentDir, column + ".sv.raw.fwd").exists());
+    }
+  }
+
+  @Test
+  public void testLoadAndFetch() throws Exception {
+    PropertiesConfiguration tableConfig = new PropertiesConfiguration();
+    tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION, "v1");
+    checkSegment(Loaders.IndexSegment.load(_segmentDir, ReadMode.heap, new IndexLoadingConfigMetadata(tableConfig)));
+
+    tableConfig.clear();
+    tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION, "v3");
+    checkSegment(Loaders.IndexSegment.load(_segmentDir, ReadMode.mmap, new IndexLoadingConfigMetadata(tableConfig)));
+  }
+
+  @Test
+  public void testAddStarTreeOnLoad() throws Exception {
+    File segmentDir = new File(INDEX_DIR, SEGMENT_NAME + ".starTree");
+    FileUtils.copyDirectory(_segmentDir, segmentDir);
+
+    PropertiesConfiguration tableConfig = new PropertiesConfiguration();
+    tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION, "v1");
+    tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE, true);
+    tableConfig.addProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_SKIP_STAR_NODE_CREATION_DIMENSIONS,
+        DIMENSION_NAME);
+    Loaders.IndexSegment.load(segmentDir, ReadMode.heap, new IndexLoadingConfigMetadata(tableConfig)).destroy();
+
+    // The segment is re-created with its raw index columns and the star tree spec of the loading config
+    SegmentMetadataImpl metadata = new SegmentMetadataImpl(segmentDir);
+    Assert.assertTrue(metadata.hasStarTree());
+    Assert.assertEquals(metadata.getStarTreeMetadata().getSkipStarNodeCreationForDimensions(),
+        Arrays.asList(DIMENSION_NAME));
+    Assert.assertEquals(metadata.getTotalRawDocs(), NUM_ROWS);
+    Assert.assertTrue(metadata.getColumnMetadataFor(DIMENSION_NAME).hasDictionary());
+    for (String column : new String[]{INT_METRIC_NAME, LONG_METRIC_NAME, FLOAT_METRIC_NAME, DOUBLE_METRIC_NAME}) {
+      Assert.assertFalse(metadata.getColumnMetadataFor(column).hasDictionary());
+    }
+  }
+
+  private void checkSegment(IndexSegment indexSegment) {
+    DataSource dataSource = indexSegment.getDataSource(LONG_METRIC_NAME);
+    Assert.assertFalse(dataSource.getDataSourceMetadata().hasDictionary());
+    Assert.assertNull(dataSource.getDictionary());
+    BlockSingleValIterator iterator =
+        (BlockSingleValIterator) dataSource.nextBlock().getBlockValueSet().iterator();
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Assert.assertEquals(iterator.nextLongVal(), _longMetricValues[i], _errorMessage);
+    }
+
+    int[] docIds = new int[NUM_ROWS];
+    int length = 0;
+    for (int i = _random.nextInt(5); i < NUM_ROWS; i += _random.nextInt(5) + 1) {
+      docIds[length++] = i;
+    }
+    DataFetcher dataFetcher = new DataFetcher(indexSegment);
+    double[] values = new double[length];
+    double[] hashCodes = new double[length];
+
+    Assert.assertFalse(dataFetcher.hasDictionary(INT_METRIC_NAME));
+    dataFetcher.fetchSingleRawDoubleValues(INT_METRIC_NAME, docIds, 0, length, values, 0);
+    dataFetcher.fetchSingleRawHashCodes(INT_METRIC_NAME, docIds, 0, length, hashCodes, 0);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(values[i], (double) _intMetricValues[docIds[i]], _errorMessage);
+      Assert.assertEquals(hashCodes[i], (double) Integer.valueOf(_intMetricValues[docIds[i]]).hashCode(),
+          _errorMessage);
+    }
+
+    dataFetcher.fetchSingleRawDoubleValues(FLOAT_METRIC_NAME, docIds, 0, length, values, 0);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(values[i], (double) _floatMetricValues[docIds[i]], _errorMessage);
+    }
+
+    dataFetcher.fetchSingleRawDoubleValues(DOUBLE_METRIC_NAME, docIds, 0, length, values, 0);
+    dataFetcher.fetchSingleRawHashCodes(DOUBLE_METRIC_NAME, docIds, 0, length, hashCodes, 0);
+    for (int i = 0; i < length; i++) {
+      Assert.assertEquals(values[i], _doubleMetricValues[docIds[i]], _errorMessage);
+      Assert.assertEquals(hashCodes[i], (double) Double.valueOf(_doubleMetricValues[docIds[i]]).hashCode(),
+          _errorMessage);
+    }
+
+    Assert.assertTrue(dataFetcher.hasDictionary(DIMENSION_NAME));
+    indexSegment.destroy();
+  }
+}
@@ -51,6 +51,9 @@ public class ColumnIndexDirectoryTestHelper {
       case INVERTED_INDEX:
         buf = columnDirectory.newInvertedIndexBuffer(columnName, size);
         break;
+      case RANGE_INDEX:
+        buf = columnDirectory.newRangeIndexBuffer(columnName, size);
+        break;
     }
     return buf;
   }
@@ -71,6 +74,9 @@ public class ColumnIndexDirectoryTestHelper {
       case INVERTED_INDEX:
         buf = columnDirectory.getInvertedIndexBufferFor(columnName);
         break;
+      case RANGE_INDEX:
+        buf = columnDirectory.getRangeIndexBufferFor(columnName);
+        break;
     }
     return buf;
   }
@@ -130,6 +136,15 @@ public class ColumnIndexDirectoryTestHelper {
             return invocationOnMock.getArguments()[0] + ".ii";
           }
         });
+
+    when(meta.getBitmapRangeIndexFileName(anyString()))
+        .thenAnswer(new Answer<String>() {
+          @Override
+          public String answer(InvocationOnMock invocationOnMock)
+              throws Throwable {
+            return invocationOnMock.getArguments()[0] + ".ri";
+          }
+        });
     return meta;
   }
 }
@@ -19,6 +19,7 @@ import com.linkedin.pinot.common.data.DimensionFieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.common.data.TimeFieldSpec;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.segment.ReadMode;
@@ -84,7 +85,11 @@ public class BaseStarTreeIndexTest {
           "select sum(m1) from T where d1 <> 'd1-v1' group by d2",
           "select sum(m1) from T where d1 in ('d1-v1', 'd1-v2') group by d2",
           "select sum(m1) from T where d1 in ('d1-v1', 'd1-v2') and d2 not in ('d2-v1') group by d3",
-          "select sum(m1) from T where d1 in ('d1-v1', 'd1-v2') and d2 not in ('d2-v1') group by d3, d4"};
+          "select sum(m1) from T where d1 in ('d1-v1', 'd1-v2') and d2 not in ('d2-v1') group by d3, d4",
+          "select sum(m1) from T where d1 = 'd1-v1' or d2 = 'd2-v2'",
+          "select sum(m1) from T where d1 in ('d1-v1', 'd1-v2') or d3 <> 'd3-v1' group by d2",
+          "select sum(m1) from T where (d1 = 'd1-v1' or d2 not in ('d2-v1')) and (d3 = 'd3-v0' or d1 = 'd1-v3')",
+          "select sum(m1) from T where d1 > 'd1-v0' and d1 < 'd1-v3' group by d4"};
 
   protected void testHardCodedQueries(IndexSegment segment, Schema schema) {
     // Test against all metric columns, instead of just the aggregation column in the query.
@@ -165,6 +170,21 @@ public class BaseStarTreeIndexTest {
    */
   Schema buildSegment(String segmentDirName, String segmentName)
       throws Exception {
+    return buildSegment(segmentDirName, segmentName, true, null);
+  }
+
+  /**
+   * Helper method to build the segment, with or without star tree index.
+   *
+   * @param segmentDirName
+   * @param segmentName
+   * @param enableStarTree
+   * @param starTreeIndexSpec star tree spec, or null for the default one
+   * @throws Exception
+   */
+  Schema buildSegment(String segmentDirName, String segmentName, boolean enableStarTree,
+      StarTreeIndexSpec starTreeIndexSpec)
+      throws Exception {
     int ROWS = (int) MathUtils.factorial(NUM_DIMENSIONS);
     Schema schema = new Schema();
 
@@ -182,12 +202,14 @@ public class BaseStarTreeIndexTest {
     }
 
     SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
-    config.setEnableStarTreeIndex(true);
+    config.setEnableStarTreeIndex(enableStarTree);
+    config.setStarTreeIndexSpec(starTreeIndexSpec);
     config.setOutDir(segmentDirName);
     config.setFormat(FileFormat.AVRO);
     config.setSegmentName(segmentName);
 
     final List<GenericRow> data = new ArrayList<>();
+    Random random = new Random(_randomSeed);
     for (int row = 0; row < ROWS; row++) {
       HashMap<String, Object> map = new HashMap<>();
       for (int i = 0; i < NUM_DIMENSIONS; i++) {
@@ -195,7 +217,6 @@ public class BaseStarTreeIndexTest {
         map.put(dimName, dimName + "-v" + row % (NUM_DIMENSIONS - i));
       }
 
-      Random random = new Random(_randomSeed);
       for (int i = 0; i < NUM_METRICS; i++) {
         String metName = schema.getMetricFieldSpecs().get(i).getName();
         map.put(metName, random.nextInt(METRIC_MAX_VALUE));
@@ -291,7 +312,7 @@ public class BaseStarTreeIndexTest {
     return result;
   }
 
-  private RecordReader createReader(final Schema schema, final List<GenericRow> data) {
+  RecordReader createReader(final Schema schema, final List<GenericRow> data) {
     return new RecordReader() {
 
       int counter = 0;
@@ -20,12 +20,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.math.util.MathUtils;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.linkedin.pinot.common.data.DimensionFieldSpec;
@@ -171,4 +173,86 @@ public class TestOffheapStarTreeBuilder {
     FileUtils.deleteDirectory(builderConfig.outDir);
   }
 
+  /**
+   * Test that building the sub-trees of the root node concurrently gives the same tree and records as the sequential
+   * build.
+   * @throws Exception
+   */
+  @Test
+  public void testParallelBuild() throws Exception {
+    long seed = System.nanoTime();
+    OffHeapStarTreeBuilder sequentialBuilder = buildRandom(seed, 1, new File("/tmp/startree-sequential"));
+    OffHeapStarTreeBuilder parallelBuilder = buildRandom(seed, 4, new File("/tmp/startree-parallel"));
+    try {
+      Assert.assertEquals(parallelBuilder.getTotalRawDocumentCount(), sequentialBuilder.getTotalRawDocumentCount());
+      Assert.assertEquals(parallelBuilder.getTotalAggregateDocumentCount(),
+          sequentialBuilder.getTotalAggregateDocumentCount(), "Random seed: " + seed);
+      assertSameNodes(parallelBuilder.getTree().getRoot(), sequentialBuilder.getTree().getRoot());
+
+      int totalDocs = sequentialBuilder.getTotalRawDocumentCount() + sequentialBuilder.getTotalAggregateDocumentCount();
+      Iterator<GenericRow> sequentialIterator = sequentialBuilder.iterator(0, totalDocs);
+      Iterator<GenericRow> parallelIterator = parallelBuilder.iterator(0, totalDocs);
+      while (sequentialIterator.hasNext()) {
+        GenericRow expected = sequentialIterator.next();
+        GenericRow actual = parallelIterator.next();
+        for (String field : expected.getFieldNames()) {
+          Assert.assertEquals(actual.getValue(field), expected.getValue(field), "Random seed: " + seed);
+        }
+      }
+    } finally {
+      sequentialBuilder.cleanup();
+      parallelBuilder.cleanup();
+    }
+  }
+
+  private OffHeapStarTreeBuilder buildRandom(long seed, int numThreads, File outDir) throws Exception {
+    int ROWS = 1000;
+    int numDimensions = 4;
+    StarTreeBuilderConfig builderConfig = new StarTreeBuilderConfig();
+    Schema schema = new Schema();
+    builderConfig.dimensionsSplitOrder = new ArrayList<>();
+    for (int i = 0; i < numDimensions; i++) {
+      String dimName = "d" + (i + 1);
+      schema.addField(dimName, new DimensionFieldSpec(dimName, DataType.STRING, true));
+      builderConfig.dimensionsSplitOrder.add(dimName);
+    }
+    schema.setTimeFieldSpec(new TimeFieldSpec("daysSinceEpoch", DataType.INT, TimeUnit.DAYS));
+    schema.addField("m1", new MetricFieldSpec("m1", DataType.LONG));
+    builderConfig.maxLeafRecords = 10;
+    builderConfig.schema = schema;
+    builderConfig.outDir = outDir;
+    builderConfig.setNumThreads(numThreads);
+    OffHeapStarTreeBuilder builder = new OffHeapStarTreeBuilder();
+    builder.init(builderConfig);
+    Random r = new Random(seed);
+    HashMap<String, Object> map = new HashMap<>();
+    for (int row = 0; row < ROWS; row++) {
+      for (int i = 0; i < numDimensions; i++) {
+        String dimName = "d" + (i + 1);
+        map.put(dimName, dimName + "-v" + r.nextInt(2 * (numDimensions - i) + 1));
+      }
+      map.put("daysSinceEpoch", r.nextInt(10));
+      map.put("m1", (long) r.nextInt(1000));
+      GenericRow genericRow = new GenericRow();
+      genericRow.init(map);
+      builder.append(genericRow);
+    }
+    builder.build();
+    return builder;
+  }
+
+  private void assertSameNodes(StarTreeIndexNode actual, StarTreeIndexNode expected) {
+    Assert.assertEquals(actual.getDimensionName(), expected.getDimensionName());
+    Assert.assertEquals(actual.getDimensionValue(), expected.getDimensionValue());
+    Assert.assertEquals(actual.getStartDocumentId(), expected.getStartDocumentId());
+    Assert.assertEquals(actual.getEndDocumentId(), expected.getEndDocumentId());
+    Assert.assertEquals(actual.getAggregatedDocumentId(), expected.getAggregatedDocumentId());
+    Assert.assertEquals(actual.isLeaf(), expected.isLeaf());
+    if (!expected.isLeaf()) {
+      Assert.assertEquals(actual.getChildren().keySet(), expected.getChildren().keySet());
+      for (Map.Entry<Integer, StarTreeIndexNode> entry : expected.getChildren().entrySet()) {
+        assertSameNodes(actual.getChildren().get(entry.getKey()), entry.getValue());
+      }
+    }
+  }
 }
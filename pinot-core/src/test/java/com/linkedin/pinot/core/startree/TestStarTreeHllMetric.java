@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.FileFormat;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.aggregation.function.DistinctCountHLLAggregationFunction;
+import com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.operator.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
+import com.linkedin.pinot.core.plan.AggregationPlanNode;
+import com.linkedin.pinot.core.query.aggregation.function.hll.CompactHyperLogLog;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Checks that distinctCountHLL on a pre-aggregated HLL metric column rolled up by the star tree merges the sketches
+ * into the same estimate as offering the original values.
+ */
+public class TestStarTreeHllMetric extends BaseStarTreeIndexTest {
+  private static final String SEGMENT_DIR_NAME = "/tmp/star-tree-hll-metric";
+  private static final String SEGMENT_NAME = "starTreeSegment";
+  private static final String HLL_COLUMN = "users";
+  private static final int NUM_ROWS = 500;
+  private static final int NUM_USERS = 200;
+
+  private IndexSegment _segment;
+
+  @BeforeClass
+  void setup()
+      throws Exception {
+    Schema schema = new Schema();
+    schema.addField("d1", new DimensionFieldSpec("d1", FieldSpec.DataType.STRING, true));
+    schema.addField("d2", new DimensionFieldSpec("d2", FieldSpec.DataType.STRING, true));
+    schema.setTimeFieldSpec(new TimeFieldSpec("daysSinceEpoch", FieldSpec.DataType.INT, TimeUnit.DAYS));
+    schema.addField("m1", new MetricFieldSpec("m1", FieldSpec.DataType.INT));
+    schema.addField(HLL_COLUMN,
+        new MetricFieldSpec(HLL_COLUMN, FieldSpec.DataType.STRING, MetricFieldSpec.DerivedMetricType.HLL));
+
+    List<GenericRow> data = new ArrayList<>();
+    for (int row = 0; row < NUM_ROWS; row++) {
+      HashMap<String, Object> map = new HashMap<>();
+      map.put("d1", getD1(row));
+      map.put("d2", getD2(row));
+      map.put("daysSinceEpoch", row % 7);
+      map.put("m1", row);
+      CompactHyperLogLog hll = new CompactHyperLogLog(DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE);
+      hll.offer(getUser(row));
+      map.put(HLL_COLUMN, hll.toSerializedString());
+      GenericRow genericRow = new GenericRow();
+      genericRow.init(map);
+      data.add(genericRow);
+    }
+
+    StarTreeIndexSpec starTreeIndexSpec = new StarTreeIndexSpec();
+    starTreeIndexSpec.setMaxLeafRecords(1);
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
+    config.setEnableStarTreeIndex(true);
+    config.setStarTreeIndexSpec(starTreeIndexSpec);
+    config.setOutDir(SEGMENT_DIR_NAME);
+    config.setFormat(FileFormat.AVRO);
+    config.setSegmentName(SEGMENT_NAME);
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, createReader(schema, data));
+    driver.build();
+
+    _segment = loadSegment(SEGMENT_DIR_NAME, SEGMENT_NAME);
+  }
+
+  @AfterClass
+  void tearDown()
+      throws IOException {
+    _segment.destroy();
+    FileUtils.deleteDirectory(new File(SEGMENT_DIR_NAME));
+  }
+
+  private static String getD1(int row) {
+    return "d1-v" + (row % 3);
+  }
+
+  private static String getD2(int row) {
+    return "d2-v" + (row % 4);
+  }
+
+  private static int getUser(int row) {
+    return (row * 7) % NUM_USERS;
+  }
+
+  @Test
+  public void testMetadata() {
+    FieldSpec fieldSpec = _segment.getSegmentMetadata().getSchema().getFieldSpecFor(HLL_COLUMN);
+    Assert.assertEquals(((MetricFieldSpec) fieldSpec).getDerivedMetricType(), MetricFieldSpec.DerivedMetricType.HLL);
+  }
+
+  @Test
+  public void testDistinctCountHll() {
+    // Expected estimates, keyed by d1 value, "" for all rows
+    Map<String, HyperLogLog> expected = new HashMap<>();
+    Map<String, HyperLogLog> expectedWithFilter = new HashMap<>();
+    for (int row = 0; row < NUM_ROWS; row++) {
+      offer(expected, "", getUser(row));
+      offer(expected, getD1(row), getUser(row));
+      if (getD2(row).equals("d2-v1")) {
+        offer(expectedWithFilter, getD1(row), getUser(row));
+      }
+    }
+
+    checkQuery("select distinctCountHLL(users) from T", expected, false);
+    checkQuery("select distinctCountHLL(users) from T group by d1", expected, true);
+    checkQuery("select distinctCountHLL(users) from T where d2 = 'd2-v1' group by d1", expectedWithFilter, true);
+  }
+
+  private static void offer(Map<String, HyperLogLog> hlls, String key, int user) {
+    HyperLogLog hll = hlls.get(key);
+    if (hll == null) {
+      hll = new HyperLogLog(DistinctCountHLLAggregationFunction.DEFAULT_BIT_SIZE);
+      hlls.put(key, hll);
+    }
+    hll.offer(user);
+  }
+
+  private void checkQuery(String query, Map<String, HyperLogLog> expected, boolean isGroupBy) {
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(query);
+    Assert.assertTrue(RequestUtils.isFitForStarTreeIndex(_segment.getSegmentMetadata(),
+        RequestUtils.generateFilterQueryTree(brokerRequest), brokerRequest, true), query);
+
+    if (!isGroupBy) {
+      IntermediateResultsBlock block =
+          (IntermediateResultsBlock) new AggregationPlanNode(_segment, brokerRequest).run().nextBlock();
+      Assert.assertTrue(block.getAggregationResult().get(0) instanceof CompactHyperLogLog);
+      Assert.assertEquals(((HyperLogLog) block.getAggregationResult().get(0)).cardinality(),
+          expected.get("").cardinality(), query);
+      // Only the aggregated document of the root star node is scanned
+      Assert.assertEquals(block.getNumDocsScanned(), 1);
+      return;
+    }
+
+    IntermediateResultsBlock block =
+        (IntermediateResultsBlock) new AggregationGroupByPlanNode(_segment, brokerRequest).run().nextBlock();
+    AggregationGroupByResult groupByResult = block.getAggregationGroupByResult();
+    Iterator<GroupKeyGenerator.GroupKey> iterator = groupByResult.getGroupKeyIterator();
+    int numGroups = 0;
+    while (iterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = iterator.next();
+      HyperLogLog hll = (HyperLogLog) groupByResult.getResultForKey(groupKey, 0);
+      Assert.assertEquals(hll.cardinality(), expected.get(groupKey.getStringKey()).cardinality(), query);
+      numGroups++;
+    }
+    Assert.assertEquals(numGroups, 3, query);
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import java.io.File;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Builds a segment without star tree index, and ensures that the star tree index configured in the loading config is
+ * created when the segment is loaded, giving the same aggregation results as the raw docs.
+ */
+public class TestStarTreeOnLoad extends BaseStarTreeIndexTest {
+  private static final String SEGMENT_NAME = "starTreeOnLoadSegment";
+  private static final String SEGMENT_DIR_NAME = "/tmp/star-tree-on-load";
+
+  @AfterClass
+  void tearDown() {
+    FileUtils.deleteQuietly(new File(SEGMENT_DIR_NAME));
+  }
+
+  @Test
+  public void test()
+      throws Exception {
+    Schema schema = buildSegment(SEGMENT_DIR_NAME, SEGMENT_NAME, false, null);
+    File indexDir = new File(SEGMENT_DIR_NAME, SEGMENT_NAME);
+
+    IndexSegment segment = Loaders.IndexSegment.load(indexDir, ReadMode.heap);
+    Assert.assertFalse(segment.getSegmentMetadata().hasStarTree());
+    int numRawDocs = segment.getSegmentMetadata().getTotalRawDocs();
+    String crc = segment.getSegmentMetadata().getCrc();
+    long creationTime = segment.getSegmentMetadata().getIndexCreationTime();
+    segment.destroy();
+
+    BaseConfiguration tableDataManagerConfig = new BaseConfiguration();
+    tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE, true);
+    tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_STAR_TREE_MAX_LEAF_RECORDS, 4);
+    IndexLoadingConfigMetadata indexLoadingConfig = new IndexLoadingConfigMetadata(tableDataManagerConfig);
+    Assert.assertTrue(indexLoadingConfig.isLoadingStarTree());
+
+    segment = Loaders.IndexSegment.load(indexDir, ReadMode.heap, indexLoadingConfig);
+    Assert.assertTrue(segment.getSegmentMetadata().hasStarTree());
+    Assert.assertNotNull(segment.getSegmentMetadata().getStarTreeMetadata());
+    Assert.assertEquals(segment.getSegmentMetadata().getTotalRawDocs(), numRawDocs);
+    Assert.assertTrue(segment.getSegmentMetadata().getTotalDocs() > numRawDocs);
+    testHardCodedQueries(segment, schema);
+    // The re-created segment has its own CRC, and keeps matching its ZK metadata through its source CRC, so that it is
+    // not downloaded again
+    SegmentMetadataImpl segmentMetadata = (SegmentMetadataImpl) segment.getSegmentMetadata();
+    Assert.assertFalse(segmentMetadata.getCrc().equals(crc));
+    Assert.assertEquals(segmentMetadata.getSourceCrc(), crc);
+    Assert.assertEquals(segmentMetadata.getIndexCreationTime(), creationTime);
+    segment.destroy();
+    // Only the segment directory is left
+    Assert.assertEquals(new File(SEGMENT_DIR_NAME).list(), new String[]{SEGMENT_NAME});
+
+    // Loading again does not re-create the segment
+    File[] files = indexDir.listFiles();
+    segment = Loaders.IndexSegment.load(indexDir, ReadMode.heap, indexLoadingConfig);
+    Assert.assertTrue(segment.getSegmentMetadata().hasStarTree());
+    Assert.assertEquals(indexDir.listFiles().length, files.length);
+    segment.destroy();
+  }
+}
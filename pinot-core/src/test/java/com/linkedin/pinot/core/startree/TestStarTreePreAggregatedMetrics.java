@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.operator.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
+import com.linkedin.pinot.core.plan.AggregationPlanNode;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Checks that count, min, max and avg computed through the pre-aggregated metric columns of a star tree segment are
+ * the same as the ones computed on a segment without star tree.
+ */
+public class TestStarTreePreAggregatedMetrics extends BaseStarTreeIndexTest {
+  private static final String SEGMENT_DIR_NAME = "/tmp/star-tree-pre-aggregated-metrics";
+  private static final String STAR_TREE_SEGMENT_NAME = "starTreeSegment";
+  private static final String RAW_SEGMENT_NAME = "rawSegment";
+
+  private static final String AGGREGATIONS = "select count(*), sum(m1), min(m1), max(m1), min(m2), avg(m2) from T";
+  private static final String[] QUERIES = new String[]{
+      AGGREGATIONS,
+      AGGREGATIONS + " where d1 = 'd1-v1'",
+      AGGREGATIONS + " where d1 in ('d1-v1', 'd1-v2') and d2 not in ('d2-v1')",
+      AGGREGATIONS + " group by d1",
+      AGGREGATIONS + " where d1 between 'd1-v1' and 'd1-v3' group by d2, d3",
+      AGGREGATIONS + " where d1 = 'd1-v1' or d2 = 'd2-v2'",
+      AGGREGATIONS + " where d1 in ('d1-v1', 'd1-v2') or d3 <> 'd3-v1' group by d2",
+      AGGREGATIONS + " where (d1 = 'd1-v1' or d2 not in ('d2-v1')) and (d3 = 'd3-v0' or d1 = 'd1-v3') group by d4"
+  };
+
+  private IndexSegment _starTreeSegment;
+  private IndexSegment _rawSegment;
+
+  @BeforeClass
+  void setup()
+      throws Exception {
+    StarTreeIndexSpec starTreeIndexSpec = new StarTreeIndexSpec();
+    starTreeIndexSpec.setMaxLeafRecords(1);
+    starTreeIndexSpec.setMaterializedAggregationFunctions(new HashSet<>(
+        Arrays.asList(StarTreeIndexSpec.COUNT_FUNCTION, StarTreeIndexSpec.MIN_FUNCTION,
+            StarTreeIndexSpec.MAX_FUNCTION)));
+    buildSegment(SEGMENT_DIR_NAME, STAR_TREE_SEGMENT_NAME, true, starTreeIndexSpec);
+    buildSegment(SEGMENT_DIR_NAME, RAW_SEGMENT_NAME, false, null);
+    _starTreeSegment = loadSegment(SEGMENT_DIR_NAME, STAR_TREE_SEGMENT_NAME);
+    _rawSegment = loadSegment(SEGMENT_DIR_NAME, RAW_SEGMENT_NAME);
+  }
+
+  @AfterClass
+  void tearDown()
+      throws IOException {
+    _starTreeSegment.destroy();
+    _rawSegment.destroy();
+    FileUtils.deleteDirectory(new File(SEGMENT_DIR_NAME));
+  }
+
+  @Test
+  public void testMetadata() {
+    Assert.assertEquals(new HashSet<>(
+            _starTreeSegment.getSegmentMetadata().getStarTreeMetadata().getMaterializedAggregationFunctions()),
+        new HashSet<>(Arrays.asList("count", "min", "max")));
+    Assert.assertTrue(_starTreeSegment.getSegmentMetadata().getSchema().hasColumn("count__star"));
+    Assert.assertTrue(_starTreeSegment.getSegmentMetadata().getSchema().hasColumn("min__m1"));
+    Assert.assertTrue(_starTreeSegment.getSegmentMetadata().getSchema().hasColumn("max__m2"));
+  }
+
+  @Test
+  public void testAggregations() {
+    for (String query : QUERIES) {
+      BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(query);
+      Assert.assertTrue(RequestUtils.isFitForStarTreeIndex(_starTreeSegment.getSegmentMetadata(),
+          RequestUtils.generateFilterQueryTree(brokerRequest), brokerRequest, true), query);
+      // Count cannot be served from the aggregated documents without the pre-aggregated columns
+      Assert.assertFalse(RequestUtils.isFitForStarTreeIndex(_starTreeSegment.getSegmentMetadata(),
+          RequestUtils.generateFilterQueryTree(brokerRequest), brokerRequest), query);
+
+      IntermediateResultsBlock starTreeBlock = execute(_starTreeSegment, brokerRequest);
+      IntermediateResultsBlock rawBlock = execute(_rawSegment, brokerRequest);
+      Assert.assertEquals(getResults(starTreeBlock, brokerRequest), getResults(rawBlock, brokerRequest), query);
+    }
+
+    // Without filter nor group by, the root star node aggregated document answers the query
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(QUERIES[0]);
+    Assert.assertTrue(execute(_starTreeSegment, brokerRequest).getNumDocsScanned() < execute(_rawSegment,
+        brokerRequest).getNumDocsScanned());
+  }
+
+  @Test
+  public void testSelectStar() {
+    // The pre-aggregated metric columns are not part of the table schema
+    Assert.assertEquals(new HashSet<>(Arrays.asList(SelectionOperatorUtils.getSelectStarColumns(_starTreeSegment))),
+        new HashSet<>(Arrays.asList(_rawSegment.getColumnNames())));
+  }
+
+  @Test
+  public void testPercentileNotServedByStarTree() {
+    // Percentiles have no pre-aggregated metric column, they are computed on the raw documents
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest("select percentile95(m1) from T");
+    Assert.assertFalse(RequestUtils.isFitForStarTreeIndex(_starTreeSegment.getSegmentMetadata(),
+        RequestUtils.generateFilterQueryTree(brokerRequest), brokerRequest, true));
+  }
+
+  private static IntermediateResultsBlock execute(IndexSegment segment, BrokerRequest brokerRequest) {
+    if (brokerRequest.isSetGroupBy()) {
+      return (IntermediateResultsBlock) new AggregationGroupByPlanNode(segment, brokerRequest).run().nextBlock();
+    }
+    return (IntermediateResultsBlock) new AggregationPlanNode(segment, brokerRequest).run().nextBlock();
+  }
+
+  /**
+   * Returns the results keyed by group, as strings so that they compare by value.
+   */
+  private static Map<String, List<String>> getResults(IntermediateResultsBlock block, BrokerRequest brokerRequest) {
+    int numAggregations = brokerRequest.getAggregationsInfoSize();
+    Map<String, List<String>> results = new HashMap<>();
+    if (!brokerRequest.isSetGroupBy()) {
+      List<String> values = new ArrayList<>();
+      for (Serializable result : block.getAggregationResult()) {
+        values.add(toString(result));
+      }
+      results.put("", values);
+      return results;
+    }
+    AggregationGroupByResult groupByResult = block.getAggregationGroupByResult();
+    Iterator<GroupKeyGenerator.GroupKey> iterator = groupByResult.getGroupKeyIterator();
+    while (iterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = iterator.next();
+      List<String> values = new ArrayList<>();
+      for (int i = 0; i < numAggregations; i++) {
+        values.add(toString(groupByResult.getResultForKey(groupKey, i)));
+      }
+      results.put(groupKey.getStringKey(), values);
+    }
+    return results;
+  }
+
+  private static String toString(Serializable result) {
+    if (result instanceof AvgAggregationFunction.AvgPair) {
+      AvgAggregationFunction.AvgPair avgPair = (AvgAggregationFunction.AvgPair) result;
+      return avgPair.getFirst() + "/" + avgPair.getSecond();
+    }
+    return String.valueOf(((Number) result).doubleValue());
+  }
+}
@@ -18,23 +18,32 @@ package com.linkedin.pinot.operator.aggregation;
 import com.linkedin.pinot.common.data.DimensionFieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.request.DateTimeConvertExpression;
 import com.linkedin.pinot.core.common.DataFetcher;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.operator.aggregation.groupby.DefaultGroupKeyGenerator;
 import com.linkedin.pinot.core.operator.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.core.segment.index.loader.Loaders;
 import com.linkedin.pinot.util.TestDataRecordReader;
+import com.yammer.metrics.core.MetricsRegistry;
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -51,15 +60,20 @@ public class DefaultGroupKeyGeneratorTest {
   private static final int MAX_NUM_MULTI_VALUES = 10;
   private static final String[] SINGLE_VALUE_COLUMNS = {"s1", "s2", "s3", "s4", "s5", "s6", "s7", "s8", "s9", "s10"};
   private static final String[] MULTI_VALUE_COLUMNS = {"m1", "m2"};
+  private static final String TIME_COLUMN = "hoursSinceEpoch";
+  private static final int MIN_HOURS_SINCE_EPOCH = 420000;
+  private static final int MAX_HOURS_RANGE = 24 * 30;
 
   private final long _randomSeed = System.currentTimeMillis();
   private final Random _random = new Random(_randomSeed);
   private final String _errorMessage = "Random seed is: " + _randomSeed;
   private DataFetcher _dataFetcher;
+  private final int[] _timeValues = new int[UNIQUE_ROWS];
 
   private static final int TEST_LENGTH = 20;
   private final int[] _testDocIdSet = new int[TEST_LENGTH];
   private final int[] _singleValueGroupKeyBuffer = new int[TEST_LENGTH];
+  private final int[] _multiValueGroupKeysEnd = new int[TEST_LENGTH];
   private final int[][] _multiValueGroupKeyBuffer = new int[TEST_LENGTH][];
 
   @BeforeClass
@@ -83,6 +97,8 @@ public class DefaultGroupKeyGeneratorTest {
         }
         map.put(multiValueColumn, values);
       }
+      _timeValues[i] = MIN_HOURS_SINCE_EPOCH + _random.nextInt(MAX_HOURS_RANGE);
+      map.put(TIME_COLUMN, _timeValues[i]);
       GenericRow genericRow = new GenericRow();
       genericRow.init(map);
       segmentData[i] = genericRow;
@@ -101,6 +117,7 @@ public class DefaultGroupKeyGeneratorTest {
       DimensionFieldSpec dimensionFieldSpec = new DimensionFieldSpec(multiValueColumn, FieldSpec.DataType.INT, false);
       schema.addField(multiValueColumn, dimensionFieldSpec);
     }
+    schema.addField(TIME_COLUMN, new TimeFieldSpec(TIME_COLUMN, FieldSpec.DataType.INT, TimeUnit.HOURS));
 
     SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
     FileUtils.deleteQuietly(new File(INDEX_DIR_PATH));
@@ -150,7 +167,8 @@ public class DefaultGroupKeyGeneratorTest {
 
     // Test initial status.
     DefaultGroupKeyGenerator defaultGroupKeyGenerator = new DefaultGroupKeyGenerator(_dataFetcher, groupByColumns);
-    Assert.assertEquals(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound(), 100000000, _errorMessage);
+    Assert.assertEquals(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound(),
+        ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT + 1, _errorMessage);
     Assert.assertEquals(defaultGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 0, _errorMessage);
     Assert.assertEquals(defaultGroupKeyGenerator.hasMultiValueGroupByColumn(), false, _errorMessage);
 
@@ -168,7 +186,8 @@ public class DefaultGroupKeyGeneratorTest {
 
     // Test initial status.
     DefaultGroupKeyGenerator defaultGroupKeyGenerator = new DefaultGroupKeyGenerator(_dataFetcher, groupByColumns);
-    Assert.assertEquals(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound(), Integer.MAX_VALUE, _errorMessage);
+    Assert.assertEquals(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound(),
+        ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT + 1, _errorMessage);
     Assert.assertEquals(defaultGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 0, _errorMessage);
     Assert.assertEquals(defaultGroupKeyGenerator.hasMultiValueGroupByColumn(), false, _errorMessage);
 
@@ -179,6 +198,87 @@ public class DefaultGroupKeyGeneratorTest {
     testGetUniqueGroupKeys(defaultGroupKeyGenerator.getUniqueGroupKeys(), 2);
   }
 
+  @Test
+  public void testLongMapBasedOffHeap() {
+    // Cardinality product > threshold, and more group keys than the on-heap limit.
+    String[] groupByColumns = {"s1", "s2", "s3", "s4"};
+    int[] docIdSet = new int[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      docIdSet[i] = i;
+    }
+
+    DefaultGroupKeyGenerator onHeapGroupKeyGenerator = new DefaultGroupKeyGenerator(_dataFetcher, groupByColumns);
+    int[] onHeapGroupKeys = new int[NUM_ROWS];
+    onHeapGroupKeyGenerator.generateKeysForDocIdSet(docIdSet, 0, NUM_ROWS, onHeapGroupKeys);
+
+    // Move off-heap after 10 group keys, generating in two calls to also look up group keys once off-heap.
+    DefaultGroupKeyGenerator offHeapGroupKeyGenerator =
+        new DefaultGroupKeyGenerator(_dataFetcher, groupByColumns, NUM_ROWS, 10);
+    int[] offHeapGroupKeys = new int[NUM_ROWS];
+    offHeapGroupKeyGenerator.generateKeysForDocIdSet(docIdSet, 0, NUM_ROWS / 2, offHeapGroupKeys);
+    int[] secondHalfDocIdSet = Arrays.copyOfRange(docIdSet, NUM_ROWS / 2, NUM_ROWS);
+    int[] secondHalfGroupKeys = new int[NUM_ROWS / 2];
+    offHeapGroupKeyGenerator.generateKeysForDocIdSet(secondHalfDocIdSet, 0, NUM_ROWS / 2, secondHalfGroupKeys);
+    System.arraycopy(secondHalfGroupKeys, 0, offHeapGroupKeys, NUM_ROWS / 2, NUM_ROWS / 2);
+    Assert.assertEquals(offHeapGroupKeyGenerator.getCurrentGroupKeyUpperBound(), UNIQUE_ROWS, _errorMessage);
+    Assert.assertFalse(offHeapGroupKeyGenerator.isNumGroupsLimitReached(), _errorMessage);
+
+    // Both generators should map each document onto the same string group key.
+    Map<Integer, String> onHeapGroupKeyToString = getGroupKeyToString(onHeapGroupKeyGenerator);
+    Map<Integer, String> offHeapGroupKeyToString = getGroupKeyToString(offHeapGroupKeyGenerator);
+    Assert.assertEquals(offHeapGroupKeyToString.size(), UNIQUE_ROWS, _errorMessage);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Assert.assertEquals(offHeapGroupKeyToString.get(offHeapGroupKeys[i]),
+          onHeapGroupKeyToString.get(onHeapGroupKeys[i]), _errorMessage);
+    }
+    offHeapGroupKeyGenerator.close();
+  }
+
+  @Test
+  public void testNumGroupsLimit() {
+    // Each unique row has distinct values, so each of them is a new group.
+    int numGroupsLimit = 10;
+    int[] docIdSet = new int[UNIQUE_ROWS];
+    for (int i = 0; i < UNIQUE_ROWS; i++) {
+      docIdSet[i] = i;
+    }
+
+    // Long map based (cardinality product > limit) and array map based storage.
+    String[][] groupByColumnsList = {{"s1"}, {"s1", "s2", "s3", "s4", "s5", "s6", "s7", "s8", "s9", "s10"}};
+    for (String[] groupByColumns : groupByColumnsList) {
+      DefaultGroupKeyGenerator defaultGroupKeyGenerator =
+          new DefaultGroupKeyGenerator(_dataFetcher, groupByColumns, numGroupsLimit);
+      Assert.assertTrue(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound() <= numGroupsLimit + 1, _errorMessage);
+
+      int[] groupKeys = new int[UNIQUE_ROWS];
+      defaultGroupKeyGenerator.generateKeysForDocIdSet(docIdSet, 0, UNIQUE_ROWS, groupKeys);
+      Assert.assertTrue(defaultGroupKeyGenerator.isNumGroupsLimitReached(), _errorMessage);
+      Assert.assertEquals(defaultGroupKeyGenerator.getCurrentGroupKeyUpperBound(), numGroupsLimit + 1, _errorMessage);
+
+      // Documents beyond the limit all get the overflow group key, which is not returned by the iterator.
+      for (int i = 0; i < UNIQUE_ROWS; i++) {
+        Assert.assertEquals(groupKeys[i], Math.min(i, numGroupsLimit), _errorMessage);
+      }
+      testGetUniqueGroupKeys(defaultGroupKeyGenerator.getUniqueGroupKeys(), numGroupsLimit);
+    }
+  }
+
+  /**
+   * Helper method to collect the string group key of each group key.
+   *
+   * @param groupKeyGenerator group key generator.
+   * @return map from group key to string group key.
+   */
+  private Map<Integer, String> getGroupKeyToString(GroupKeyGenerator groupKeyGenerator) {
+    Map<Integer, String> groupKeyToString = new HashMap<>();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupKeyGenerator.getUniqueGroupKeys();
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      groupKeyToString.put(groupKey.getFirst(), groupKey.getStringKey());
+    }
+    return groupKeyToString;
+  }
+
   /**
    * Helper method to compare the values inside the single value group key buffer.
    *
@@ -205,7 +305,7 @@ public class DefaultGroupKeyGeneratorTest {
     Assert.assertEquals(defaultGroupKeyGenerator.hasMultiValueGroupByColumn(), true, _errorMessage);
 
     // Test group key generation.
-    defaultGroupKeyGenerator.generateKeysForDocIdSet(_testDocIdSet, 0, TEST_LENGTH, _multiValueGroupKeyBuffer);
+    generateMultiValueKeys(defaultGroupKeyGenerator);
     int numUniqueKeys = _multiValueGroupKeyBuffer[0].length + _multiValueGroupKeyBuffer[1].length;
     Assert.assertEquals(defaultGroupKeyGenerator.getCurrentGroupKeyUpperBound(), groupKeyUpperBound, _errorMessage);
     compareMultiValueBuffer();
@@ -223,7 +323,7 @@ public class DefaultGroupKeyGeneratorTest {
     Assert.assertEquals(defaultGroupKeyGenerator.hasMultiValueGroupByColumn(), true, _errorMessage);
 
     // Test group key generation.
-    defaultGroupKeyGenerator.generateKeysForDocIdSet(_testDocIdSet, 0, TEST_LENGTH, _multiValueGroupKeyBuffer);
+    generateMultiValueKeys(defaultGroupKeyGenerator);
     int numUniqueKeys = _multiValueGroupKeyBuffer[0].length + _multiValueGroupKeyBuffer[1].length;
     Assert.assertEquals(defaultGroupKeyGenerator.getCurrentGroupKeyUpperBound(), numUniqueKeys, _errorMessage);
     compareMultiValueBuffer();
@@ -241,13 +341,107 @@ public class DefaultGroupKeyGeneratorTest {
     Assert.assertEquals(defaultGroupKeyGenerator.hasMultiValueGroupByColumn(), true, _errorMessage);
 
     // Test group key generation.
-    defaultGroupKeyGenerator.generateKeysForDocIdSet(_testDocIdSet, 0, TEST_LENGTH, _multiValueGroupKeyBuffer);
+    generateMultiValueKeys(defaultGroupKeyGenerator);
     int numUniqueKeys = _multiValueGroupKeyBuffer[0].length + _multiValueGroupKeyBuffer[1].length;
     Assert.assertEquals(defaultGroupKeyGenerator.getCurrentGroupKeyUpperBound(), numUniqueKeys, _errorMessage);
     compareMultiValueBuffer();
     testGetUniqueGroupKeys(defaultGroupKeyGenerator.getUniqueGroupKeys(), numUniqueKeys);
   }
 
+  @Test
+  public void testDateTimeConvert() {
+    // Group by days on an hours time column.
+    String[] groupByColumns = {new DateTimeConvertExpression(TIME_COLUMN, "1:DAYS").toString()};
+    Set<Integer> expectedBuckets = new HashSet<>();
+    for (int timeValue : _timeValues) {
+      expectedBuckets.add(timeValue / 24 * 24);
+    }
+
+    // Test initial status.
+    DefaultGroupKeyGenerator defaultGroupKeyGenerator = new DefaultGroupKeyGenerator(_dataFetcher, groupByColumns);
+    Assert.assertEquals(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound(), expectedBuckets.size(), _errorMessage);
+    Assert.assertEquals(defaultGroupKeyGenerator.hasMultiValueGroupByColumn(), false, _errorMessage);
+
+    // Test group key generation, each group key should map to the day of the document.
+    int[] docIdSet = new int[UNIQUE_ROWS];
+    for (int i = 0; i < UNIQUE_ROWS; i++) {
+      docIdSet[i] = i;
+    }
+    int[] groupKeys = new int[UNIQUE_ROWS];
+    defaultGroupKeyGenerator.generateKeysForDocIdSet(docIdSet, 0, UNIQUE_ROWS, groupKeys);
+    Map<Integer, String> groupKeyToString = new HashMap<>();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = defaultGroupKeyGenerator.getUniqueGroupKeys();
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      groupKeyToString.put(groupKey.getFirst(), groupKey.getStringKey());
+    }
+    Assert.assertEquals(groupKeyToString.size(), expectedBuckets.size(), _errorMessage);
+    for (int i = 0; i < UNIQUE_ROWS; i++) {
+      Assert.assertEquals(groupKeyToString.get(groupKeys[i]), Integer.toString(_timeValues[i] / 24 * 24),
+          _errorMessage);
+    }
+  }
+
+  @Test
+  public void testDateTimeConvertOnRealtimeSegment() throws Exception {
+    // Realtime dictionaries assign ids in insertion order, so the days of the indexed time values are interleaved.
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testSchema")
+        .addSingleValueDimension("dimension", FieldSpec.DataType.STRING)
+        .addTime(TIME_COLUMN, TimeUnit.HOURS, FieldSpec.DataType.INT)
+        .build();
+    RealtimeSegmentImpl realtimeSegment = new RealtimeSegmentImpl(schema, UNIQUE_ROWS, "testTable", "testSegment",
+        schema.getSchemaName(), new ServerMetrics(new MetricsRegistry()));
+    realtimeSegment.setSegmentMetadata(new RealtimeSegmentZKMetadata(), schema);
+    Set<Integer> expectedBuckets = new HashSet<>();
+    for (int timeValue : _timeValues) {
+      Map<String, Object> map = new HashMap<>();
+      map.put("dimension", "dimension");
+      map.put(TIME_COLUMN, timeValue);
+      GenericRow genericRow = new GenericRow();
+      genericRow.init(map);
+      realtimeSegment.index(genericRow);
+      expectedBuckets.add(timeValue / 24 * 24);
+    }
+
+    // Test initial status.
+    String[] groupByColumns = {new DateTimeConvertExpression(TIME_COLUMN, "1:DAYS").toString()};
+    DefaultGroupKeyGenerator defaultGroupKeyGenerator =
+        new DefaultGroupKeyGenerator(new DataFetcher(realtimeSegment), groupByColumns);
+    Assert.assertEquals(defaultGroupKeyGenerator.getGlobalGroupKeyUpperBound(), expectedBuckets.size(), _errorMessage);
+
+    // Test group key generation, each group key should map to the day of the document.
+    int[] docIdSet = new int[UNIQUE_ROWS];
+    for (int i = 0; i < UNIQUE_ROWS; i++) {
+      docIdSet[i] = i;
+    }
+    int[] groupKeys = new int[UNIQUE_ROWS];
+    defaultGroupKeyGenerator.generateKeysForDocIdSet(docIdSet, 0, UNIQUE_ROWS, groupKeys);
+    Map<Integer, String> groupKeyToString = getGroupKeyToString(defaultGroupKeyGenerator);
+    Assert.assertEquals(groupKeyToString.size(), expectedBuckets.size(), _errorMessage);
+    for (int i = 0; i < UNIQUE_ROWS; i++) {
+      Assert.assertEquals(groupKeyToString.get(groupKeys[i]), Integer.toString(_timeValues[i] / 24 * 24),
+          _errorMessage);
+    }
+  }
+
+  /**
+   * Helper method to generate the multi value group keys for the test doc id set, and split them per document into the
+   * multi value group key buffer. Starts from a one element group keys buffer so that it has to be grown.
+   *
+   * @param defaultGroupKeyGenerator group key generator.
+   */
+  private void generateMultiValueKeys(DefaultGroupKeyGenerator defaultGroupKeyGenerator) {
+    int[] groupKeys = defaultGroupKeyGenerator.generateKeysForDocIdSet(_testDocIdSet, 0, TEST_LENGTH,
+        _multiValueGroupKeysEnd, new int[1]);
+    int groupKeysStart = 0;
+    for (int i = 0; i < TEST_LENGTH; i++) {
+      int groupKeysEnd = _multiValueGroupKeysEnd[i];
+      Assert.assertTrue(groupKeysEnd > groupKeysStart, _errorMessage);
+      _multiValueGroupKeyBuffer[i] = Arrays.copyOfRange(groupKeys, groupKeysStart, groupKeysEnd);
+      groupKeysStart = groupKeysEnd;
+    }
+  }
+
   /**
    * Helper method to compare the values inside the multi value group key buffer.
    *
@@ -93,6 +93,52 @@ public class DoubleGroupByResultHolderTest {
     testValues(resultHolder, _expected, 0, MAX_CAPACITY);
   }
 
+  /**
+   * This test is for a result holder that moves off-heap past its on-heap capacity.
+   * - Fills the result holder on-heap, then grows it past its on-heap capacity twice.
+   * - Checks that values and default values are preserved across the moves.
+   */
+  @Test
+  void testOffHeap() {
+    DoubleGroupByResultHolder resultHolder =
+        new DoubleGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY, 2 * INITIAL_CAPACITY, DEFAULT_VALUE);
+
+    for (int i = 0; i < INITIAL_CAPACITY; i++) {
+      resultHolder.setValueForKey(i, _expected[i]);
+    }
+
+    // Grows off-heap, then within off-heap storage.
+    int[] capacities = {4 * INITIAL_CAPACITY, MAX_CAPACITY};
+    int filled = INITIAL_CAPACITY;
+    for (int capacity : capacities) {
+      resultHolder.ensureCapacity(capacity);
+      for (int i = filled; i < capacity; i++) {
+        Assert.assertEquals(resultHolder.getDoubleResult(i), DEFAULT_VALUE, "Random seed: " + RANDOM_SEED);
+        resultHolder.setValueForKey(i, _expected[i]);
+      }
+      filled = capacity;
+      testValues(resultHolder, _expected, 0, capacity);
+    }
+    resultHolder.close();
+  }
+
+  /**
+   * This test is for a result holder grown past the capacity addressable with int byte offsets off-heap.
+   * - Checks that growing it fails instead of overflowing the offsets.
+   */
+  @Test
+  void testMaxOffHeapCapacity() {
+    DoubleGroupByResultHolder resultHolder =
+        new DoubleGroupByResultHolder(INITIAL_CAPACITY, Integer.MAX_VALUE, 2 * INITIAL_CAPACITY, DEFAULT_VALUE);
+    try {
+      resultHolder.ensureCapacity(Integer.MAX_VALUE / 8 + 1);
+      Assert.fail("Growing past the off-heap capacity should fail");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    resultHolder.close();
+  }
+
   /**
    * Helper method to test values within resultHolder against the provided expected values array.
    *
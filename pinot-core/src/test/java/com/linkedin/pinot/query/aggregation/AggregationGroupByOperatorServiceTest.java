@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests the HAVING and ORDER BY clauses of group by queries, on the servers and on the broker.
+ */
+public class AggregationGroupByOperatorServiceTest {
+  private static final String QUERY = "select count(*), max(met), sum(met) from myTable group by dim "
+      + "having count(*) < 4 and sum(met) >= 10 order by sum(met) desc top 2";
+
+  @Test
+  public void testHavingAndOrderBy() throws Exception {
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(QUERY);
+
+    // Servers keep group 'b' even though its partial count on the first server already rejects the HAVING clause.
+    Map<String, Serializable[]> server1Results = new HashMap<>();
+    server1Results.put("a", groupResults(1L, 5.0, 5.0));
+    server1Results.put("b", groupResults(5L, 1.0, 5.0));
+    server1Results.put("c", groupResults(2L, 9.0, 12.0));
+    server1Results.put("d", groupResults(1L, 3.0, 3.0));
+    List<Map<String, Serializable>> server1TrimmedResults = newService(brokerRequest).trimToSize(server1Results, 3);
+    for (Map<String, Serializable> trimmedResult : server1TrimmedResults) {
+      Assert.assertEquals(trimmedResult.keySet(), new HashSet<>(Arrays.asList("a", "b", "c", "d")));
+    }
+
+    // On its own, the partial result of 'b' on the second server satisfies the HAVING clause with the largest sum.
+    Map<String, Serializable[]> server2Results = new HashMap<>();
+    server2Results.put("a", groupResults(2L, 4.0, 8.0));
+    server2Results.put("b", groupResults(1L, 30.0, 30.0));
+    server2Results.put("c", groupResults(2L, 1.0, 1.0));
+    server2Results.put("d", groupResults(1L, 4.0, 4.0));
+    server2Results.put("e", groupResults(1L, 20.0, 20.0));
+    List<Map<String, Serializable>> server2TrimmedResults = newService(brokerRequest).trimToSize(server2Results, 3);
+
+    // On the broker, 'b' has a final count of 6, 'c' a final count of 4 and 'd' a final sum of 7.
+    Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<>();
+    instanceResponseMap.put(new ServerInstance("localhost", 1234),
+        toDataTable(brokerRequest, server1TrimmedResults));
+    instanceResponseMap.put(new ServerInstance("localhost", 5678),
+        toDataTable(brokerRequest, server2TrimmedResults));
+    AggregationGroupByOperatorService brokerService = newService(brokerRequest);
+    List<AggregationResult> aggregationResults =
+        brokerService.renderAggregationGroupByResult(brokerService.reduceGroupByOperators(instanceResponseMap));
+
+    // All the aggregations list the groups in the ORDER BY order.
+    Assert.assertEquals(aggregationResults.size(), 3);
+    String[][] expectedValues = {{"1", "3"}, {"20.00000", "5.00000"}, {"20.00000", "13.00000"}};
+    for (int i = 0; i < 3; i++) {
+      List<GroupByResult> groupByResults = aggregationResults.get(i).getGroupByResult();
+      Assert.assertEquals(groupByResults.size(), 2);
+      Assert.assertEquals(groupByResults.get(0).getGroup(), Arrays.asList("e"));
+      Assert.assertEquals(groupByResults.get(0).getValue(), expectedValues[i][0]);
+      Assert.assertEquals(groupByResults.get(1).getGroup(), Arrays.asList("a"));
+      Assert.assertEquals(groupByResults.get(1).getValue(), expectedValues[i][1]);
+    }
+  }
+
+  @Test
+  public void testTrimOnOrderBy() {
+    BrokerRequest brokerRequest =
+        new Pql2Compiler().compileToBrokerRequest("select count(*), max(met), sum(met) from myTable group by dim "
+            + "order by sum(met) desc top 2");
+
+    // Above the trim threshold, the 5000 groups with the largest sums are kept for all the aggregations.
+    int numGroups = 25000;
+    Map<String, Serializable[]> results = new HashMap<>();
+    for (int i = 0; i < numGroups; i++) {
+      results.put(Integer.toString(i), groupResults(1L, (double) (numGroups - i), (double) i));
+    }
+    List<Map<String, Serializable>> trimmedResults = newService(brokerRequest).trimToSize(results, 3);
+    for (Map<String, Serializable> trimmedResult : trimmedResults) {
+      Assert.assertEquals(trimmedResult.size(), 5000);
+      for (int i = numGroups - 5000; i < numGroups; i++) {
+        Assert.assertTrue(trimmedResult.containsKey(Integer.toString(i)));
+      }
+    }
+  }
+
+  @Test
+  public void testHavingWithOrderByAboveTrimThreshold() throws Exception {
+    BrokerRequest brokerRequest = new Pql2Compiler().compileToBrokerRequest(
+        "select count(*), max(met), sum(met) from myTable group by dim having sum(met) < 10 "
+            + "order by sum(met) desc top 2");
+
+    // Trimming on the ORDER BY clause would only keep the largest sums, none of which satisfies the HAVING clause.
+    int numGroups = 25000;
+    Map<String, Serializable[]> results = new HashMap<>();
+    for (int i = 0; i < numGroups; i++) {
+      results.put(Integer.toString(i), groupResults(1L, (double) i, (double) i));
+    }
+    List<Map<String, Serializable>> serverResults = newService(brokerRequest).trimToSize(results, 3);
+    for (Map<String, Serializable> serverResult : serverResults) {
+      Assert.assertEquals(serverResult.size(), numGroups);
+    }
+
+    Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<>();
+    instanceResponseMap.put(new ServerInstance("localhost", 1234), toDataTable(brokerRequest, serverResults));
+    AggregationGroupByOperatorService brokerService = newService(brokerRequest);
+    List<AggregationResult> aggregationResults =
+        brokerService.renderAggregationGroupByResult(brokerService.reduceGroupByOperators(instanceResponseMap));
+    List<GroupByResult> groupByResults = aggregationResults.get(2).getGroupByResult();
+    Assert.assertEquals(groupByResults.size(), 2);
+    Assert.assertEquals(groupByResults.get(0).getGroup(), Arrays.asList("9"));
+    Assert.assertEquals(groupByResults.get(0).getValue(), "9.00000");
+    Assert.assertEquals(groupByResults.get(1).getGroup(), Arrays.asList("8"));
+    Assert.assertEquals(groupByResults.get(1).getValue(), "8.00000");
+  }
+
+  private static AggregationGroupByOperatorService newService(BrokerRequest brokerRequest) {
+    return new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
+  }
+
+  private static Serializable[] groupResults(long count, double max, double sum) {
+    return new Serializable[]{count, max, sum};
+  }
+
+  private static DataTable toDataTable(BrokerRequest brokerRequest, List<Map<String, Serializable>> results)
+      throws Exception {
+    return new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(brokerRequest), results,
+        true).getAggregationGroupByResultDataTable();
+  }
+}
@@ -56,11 +56,14 @@ import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.operator.BReusableFilteredDocIdSetOperator;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
 import com.linkedin.pinot.core.operator.UReplicatedProjectionOperator;
+import com.linkedin.pinot.core.operator.aggregation.ResultHolderFactory;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.filter.MatchEntireSegmentOperator;
 import com.linkedin.pinot.core.operator.query.AggregationFunctionGroupByOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
 import com.linkedin.pinot.core.operator.query.MDefaultAggregationFunctionGroupByOperator;
+import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
+import com.linkedin.pinot.core.plan.CombinePlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
@@ -408,6 +411,40 @@ public class AggregationGroupByOperatorTest {
     return brokerResponse;
   }
 
+  @Test
+  public void testNumGroupsLimitOnCombine() throws Exception {
+    setupSegmentList(2);
+    final BrokerRequest brokerRequest = getAggregationGroupByNoFilterBrokerRequest();
+
+    // Below the limit, the combine keeps all the groups.
+    IntermediateResultsBlock resultBlock =
+        getCombinedResultBlock(brokerRequest, ResultHolderFactory.DEFAULT_NUM_GROUPS_LIMIT);
+    Assert.assertFalse(resultBlock.isNumGroupsLimitReached());
+    final int numGroups = resultBlock.getAggregationGroupByOperatorResult().get(0).size();
+    Assert.assertTrue(numGroups > 1);
+
+    // The segments are under the limit on their own, but the combine stops adding groups once it reaches it.
+    resultBlock = getCombinedResultBlock(brokerRequest, numGroups - 1);
+    Assert.assertTrue(resultBlock.isNumGroupsLimitReached());
+    for (Map<String, Serializable> groupByResult : resultBlock.getAggregationGroupByOperatorResult()) {
+      Assert.assertEquals(numGroups - 1, groupByResult.size());
+    }
+  }
+
+  private IntermediateResultsBlock getCombinedResultBlock(BrokerRequest brokerRequest, int numGroupsLimit) {
+    final ExecutorService executorService = Executors.newCachedThreadPool(new NamedThreadFactory("test-combine"));
+    try {
+      final CombinePlanNode combinePlanNode =
+          new CombinePlanNode(brokerRequest, executorService, 150000, true, numGroupsLimit);
+      for (SegmentDataManager segmentDataManager : _indexSegmentList) {
+        combinePlanNode.addPlanNode(new AggregationGroupByPlanNode(segmentDataManager.getSegment(), brokerRequest));
+      }
+      return (IntermediateResultsBlock) combinePlanNode.run().nextBlock();
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
   @Test
   public void testEmptyQueryResultsForInterSegmentAggregationGroupBy() throws Exception {
     final int numSegments = 20;
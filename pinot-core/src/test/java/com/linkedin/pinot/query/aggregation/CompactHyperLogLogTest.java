@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.core.query.aggregation.function.hll.CompactHyperLogLog;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class CompactHyperLogLogTest {
+  private static final int LOG2M = 10;
+
+  private final long _randomSeed = System.nanoTime();
+
+  @Test
+  public void testSerialization()
+      throws Exception {
+    // Sparse for few values, dense once most registers are set
+    for (int numValues : new int[]{0, 10, 100, 100000}) {
+      Random random = new Random(_randomSeed);
+      HyperLogLog expected = new HyperLogLog(LOG2M);
+      CompactHyperLogLog hll = new CompactHyperLogLog(LOG2M);
+      for (int i = 0; i < numValues; i++) {
+        int value = random.nextInt();
+        expected.offer(value);
+        hll.offer(value);
+      }
+      String message = "Random seed: " + _randomSeed + ", number of values: " + numValues;
+
+      byte[] bytes = hll.toBytes();
+      Assert.assertTrue(bytes.length <= CompactHyperLogLog.getMaxSerializedSize(LOG2M), message);
+      if (numValues <= 100) {
+        Assert.assertTrue(bytes.length < expected.getBytes().length / 2, message);
+      }
+      Assert.assertEquals(CompactHyperLogLog.fromBytes(bytes).cardinality(), expected.cardinality(), message);
+      Assert.assertEquals(CompactHyperLogLog.fromSerializedString(hll.toSerializedString(), LOG2M).cardinality(),
+          expected.cardinality(), message);
+
+      Serializable deserialized = deserialize(serialize(hll));
+      Assert.assertTrue(deserialized instanceof CompactHyperLogLog, message);
+      Assert.assertEquals(((HyperLogLog) deserialized).cardinality(), expected.cardinality(), message);
+    }
+    Assert.assertEquals(CompactHyperLogLog.fromSerializedString("", LOG2M).cardinality(), 0L);
+  }
+
+  @Test
+  public void testMerge()
+      throws Exception {
+    Random random = new Random(_randomSeed);
+    HyperLogLog expected = new HyperLogLog(LOG2M);
+    CompactHyperLogLog[] hlls = new CompactHyperLogLog[]{new CompactHyperLogLog(LOG2M), new CompactHyperLogLog(LOG2M)};
+    for (int i = 0; i < 5000; i++) {
+      // The second sketch stays sparse
+      int value = random.nextInt();
+      expected.offer(value);
+      hlls[(i % 100 == 0) ? 1 : 0].offer(value);
+    }
+
+    CompactHyperLogLog merged = new CompactHyperLogLog(LOG2M);
+    merged.mergeSerialized(hlls[0].toBytes());
+    merged.mergeSerialized(hlls[1].toBytes());
+    Assert.assertEquals(merged.cardinality(), expected.cardinality(), "Random seed: " + _randomSeed);
+
+    // Sketches from older servers merge with the compact ones
+    HyperLogLog plain = new HyperLogLog(LOG2M);
+    plain.addAll(hlls[0]);
+    plain.addAll(hlls[1]);
+    Assert.assertEquals(plain.cardinality(), expected.cardinality(), "Random seed: " + _randomSeed);
+    CompactHyperLogLog copy = hlls[1].copy();
+    copy.addAll(plain);
+    Assert.assertEquals(copy.cardinality(), expected.cardinality(), "Random seed: " + _randomSeed);
+
+    try {
+      new CompactHyperLogLog(LOG2M + 1).mergeSerialized(hlls[0].toBytes());
+      Assert.fail("Sketches of different sizes should not merge");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  private static byte[] serialize(Serializable object)
+      throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+    objectOutputStream.writeObject(object);
+    objectOutputStream.close();
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private static Serializable deserialize(byte[] bytes)
+      throws Exception {
+    return (Serializable) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+  }
+}
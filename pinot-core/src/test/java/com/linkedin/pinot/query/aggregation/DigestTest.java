@@ -167,7 +167,7 @@ public class DigestTest {
 
                 List<Serializable> aggregationResults2 = getDoubleArrayListResultValues(i);
                 List<Serializable> combinedResult2 = aggregationAccurateFunction.combine(aggregationResults2, CombineLevel.SEGMENT);
-                long actual = (long) PercentileUtil.getValueOnPercentile((DoubleArrayList) combinedResult2.get(0), percentile);
+                long actual = (long) ((PercentileHistogram) combinedResult2.get(0)).getPercentile(percentile);
 
                 TestUtils.assertApproximation(estimate, actual, threshold);
                 sb1.append((int)estimate + ", ");
@@ -214,7 +214,7 @@ public class DigestTest {
 
                 List<Serializable> aggregationResults2 = getDoubleArrayListResultValues(arr, 10, i);
                 List<Serializable> combinedResult2 = aggregationAccurateFunction.combine(aggregationResults2, CombineLevel.SEGMENT);
-                long actual = (long) PercentileUtil.getValueOnPercentile((DoubleArrayList) combinedResult2.get(0), percentile);
+                long actual = (long) ((PercentileHistogram) combinedResult2.get(0)).getPercentile(percentile);
 
                 println(i + ", " + "" + (t2 - t1) + "" + ", " + (t3 - t2) + ", " + getErrorString(actual, estimate));
                 TestUtils.assertApproximation(estimate, actual, threshold);
@@ -254,7 +254,7 @@ public class DigestTest {
                 List<Serializable> aggregationResults2 = getDoubleArrayListResultValues(arr, i, numOfItemsPerList);
                 long t3 = System.nanoTime();
                 List<Serializable> combinedResult2 = aggregationAccurateFunction.combine(aggregationResults2, CombineLevel.SEGMENT);
-                long actual = (long) PercentileUtil.getValueOnPercentile((DoubleArrayList) combinedResult2.get(0), percentile);
+                long actual = (long) ((PercentileHistogram) combinedResult2.get(0)).getPercentile(percentile);
                 long t4 = System.nanoTime();
 
                 println(i + ", " + (t2 - t1) + ", " + (t4 - t3) + ", " + (t2 - t1 + 0.0) / (t4 - t3 + 0.0) + ", "
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import com.linkedin.pinot.core.query.aggregation.function.quantile.PercentileHistogram;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.PercentileUtil;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class PercentileHistogramTest {
+  private static final int[] PERCENTILES = new int[]{50, 90, 95, 99};
+  private static final int NUM_VALUES = 10000;
+  private static final int CARDINALITY = 500;
+
+  private final long _randomSeed = System.nanoTime();
+
+  @Test
+  public void testExactPercentiles() {
+    Random random = new Random(_randomSeed);
+    DoubleArrayList values = new DoubleArrayList();
+    PercentileHistogram histogram = new PercentileHistogram();
+    PercentileHistogram[] partialHistograms = new PercentileHistogram[]{new PercentileHistogram(), new PercentileHistogram()};
+    for (int i = 0; i < NUM_VALUES; i++) {
+      double value = random.nextInt(CARDINALITY) - CARDINALITY / 2 + 0.5;
+      values.add(value);
+      histogram.offer(value);
+      partialHistograms[i % 2].offer(value);
+    }
+    partialHistograms[0].merge(partialHistograms[1]);
+
+    Assert.assertTrue(histogram.isExact());
+    Assert.assertTrue(partialHistograms[0].isExact());
+    for (int percentile : PERCENTILES) {
+      double expected = PercentileUtil.getValueOnPercentile(values, (byte) percentile);
+      Assert.assertEquals(histogram.getPercentile(percentile), expected, "Random seed: " + _randomSeed);
+      Assert.assertEquals(partialHistograms[0].getPercentile(percentile), expected, "Random seed: " + _randomSeed);
+      Assert.assertEquals(PercentileHistogram.fromValues(values).getPercentile(percentile), expected,
+          "Random seed: " + _randomSeed);
+    }
+    Assert.assertEquals(new PercentileHistogram().getPercentile(50), 0.0);
+  }
+
+  @Test
+  public void testSerialization()
+      throws Exception {
+    Random random = new Random(_randomSeed);
+    DoubleArrayList values = new DoubleArrayList();
+    PercentileHistogram histogram = new PercentileHistogram();
+    for (int i = 0; i < NUM_VALUES; i++) {
+      double value = random.nextInt(CARDINALITY);
+      values.add(value);
+      histogram.offer(value);
+    }
+
+    byte[] bytes = serialize(histogram);
+    Assert.assertTrue(bytes.length < serialize(values).length);
+    PercentileHistogram deserialized = (PercentileHistogram) deserialize(bytes);
+    Assert.assertTrue(deserialized.isExact());
+    for (int percentile : PERCENTILES) {
+      Assert.assertEquals(deserialized.getPercentile(percentile), histogram.getPercentile(percentile));
+    }
+  }
+
+  @Test
+  public void testDigestFallback()
+      throws Exception {
+    Random random = new Random(_randomSeed);
+    DoubleArrayList values = new DoubleArrayList();
+    PercentileHistogram histogram = new PercentileHistogram(CARDINALITY / 10);
+    PercentileHistogram exactHistogram = new PercentileHistogram();
+    for (int i = 0; i < NUM_VALUES; i++) {
+      double value = random.nextInt(CARDINALITY);
+      values.add(value);
+      if (i % 2 == 0) {
+        histogram.offer(value);
+      } else {
+        exactHistogram.offer(value);
+      }
+    }
+    Assert.assertFalse(histogram.isExact());
+    Assert.assertTrue(exactHistogram.isExact());
+    histogram.merge(exactHistogram);
+
+    PercentileHistogram deserialized = (PercentileHistogram) deserialize(serialize(histogram));
+    Assert.assertFalse(deserialized.isExact());
+    for (int percentile : PERCENTILES) {
+      double expected = PercentileUtil.getValueOnPercentile(values, (byte) percentile);
+      // Digest error is 5% of the rank
+      Assert.assertEquals(deserialized.getPercentile(percentile), expected, CARDINALITY * 0.05 * 2,
+          "Random seed: " + _randomSeed);
+    }
+  }
+
+  @Test
+  public void testDigestFallbackKeepsFractionalValues()
+      throws Exception {
+    Random random = new Random(_randomSeed);
+    DoubleArrayList values = new DoubleArrayList();
+    PercentileHistogram histogram = new PercentileHistogram(CARDINALITY / 10);
+    for (int i = 0; i < NUM_VALUES; i++) {
+      // Values in [-1, 1), which the digest used to truncate to 0
+      double value = random.nextDouble() * 2 - 1;
+      values.add(value);
+      histogram.offer(value);
+    }
+    Assert.assertFalse(histogram.isExact());
+
+    PercentileHistogram deserialized = (PercentileHistogram) deserialize(serialize(histogram));
+    for (int percentile : PERCENTILES) {
+      double expected = PercentileUtil.getValueOnPercentile(values, (byte) percentile);
+      // Digest error is 5% of the rank, values are uniform over a range of 2
+      Assert.assertEquals(deserialized.getPercentile(percentile), expected, 2 * 0.05 * 2,
+          "Random seed: " + _randomSeed);
+    }
+    Assert.assertTrue(deserialized.getPercentile(99) > 0.5, "Random seed: " + _randomSeed);
+    Assert.assertTrue(deserialized.getPercentile(0) < -0.5, "Random seed: " + _randomSeed);
+  }
+
+  private static byte[] serialize(Serializable object)
+      throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+      objectOutputStream.writeObject(object);
+    }
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes)
+      throws Exception {
+    try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return objectInputStream.readObject();
+    }
+  }
+}
@@ -37,6 +37,7 @@ import org.testng.annotations.Test;
 public class SumAggregationFunctionTest {
   private static final int NUM_VALUES_TO_AGGREGATE = 10000;
   private static final int MAX_NUM_GROUP_KEYS = 100;
+  private static final int MAX_NUM_MULTI_VALUES = 8;
   private static final double DEFAULT_VALUE = 0.0;
   private Random _random;
 
@@ -108,4 +109,47 @@ public class SumAggregationFunctionTest {
       Assert.assertEquals(actual, expected, "Sum Aggregation test failed Expected: " + expectedGroupByResultMap + " Actual: " + actual);
     }
   }
+
+  /**
+   * Tests the method that performs 'sum' aggregation group-by on multi value group-by columns.
+   * - Each value is assigned a random number of randomly generated group keys, laid out one document after the other.
+   * - Aggregation group-by performed using the 'SumAggregationFunction', and compared against
+   *   aggregation group-by performed locally using a hash-map.
+   */
+  @Test
+  void testAggregateGroupByMV() {
+    double[] valuesToAggregate = new double[NUM_VALUES_TO_AGGREGATE];
+    int[] docIdToGroupKeysEnd = new int[NUM_VALUES_TO_AGGREGATE];
+    int[] groupKeys = new int[NUM_VALUES_TO_AGGREGATE * MAX_NUM_MULTI_VALUES];
+
+    Int2DoubleOpenHashMap expectedGroupByResultMap = new Int2DoubleOpenHashMap();
+    expectedGroupByResultMap.defaultReturnValue(DEFAULT_VALUE);
+
+    int numGroupKeys = 0;
+    for (int i = 0; i < NUM_VALUES_TO_AGGREGATE; i++) {
+      valuesToAggregate[i] = _random.nextDouble();
+
+      int numGroupKeysForValue = 1 + _random.nextInt(MAX_NUM_MULTI_VALUES);
+      for (int j = 0; j < numGroupKeysForValue; j++) {
+        int key = _random.nextInt(MAX_NUM_GROUP_KEYS);
+        groupKeys[numGroupKeys++] = key;
+        expectedGroupByResultMap.put(key, expectedGroupByResultMap.get(key) + valuesToAggregate[i]);
+      }
+      docIdToGroupKeysEnd[i] = numGroupKeys;
+    }
+
+    SumAggregationFunction sumAggregationFunction = new SumAggregationFunction();
+    GroupByResultHolder resultHolder =
+        ResultHolderFactory.getGroupByResultHolder(sumAggregationFunction, MAX_NUM_GROUP_KEYS);
+
+    sumAggregationFunction.aggregateGroupByMV(NUM_VALUES_TO_AGGREGATE, docIdToGroupKeysEnd, groupKeys, resultHolder,
+        valuesToAggregate);
+
+    for (Map.Entry<Integer, Double> entry : expectedGroupByResultMap.entrySet()) {
+      int key = entry.getKey();
+      double expected = entry.getValue();
+      double actual = resultHolder.getDoubleResult(key);
+      Assert.assertEquals(actual, expected, 1e-9, "Sum Aggregation test failed Expected: " + expected + " Actual: " + actual);
+    }
+  }
 }
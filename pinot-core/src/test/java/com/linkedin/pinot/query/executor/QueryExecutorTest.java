@@ -41,6 +41,7 @@ import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterQuery;
 import com.linkedin.pinot.common.request.InstanceRequest;
 import com.linkedin.pinot.common.request.QuerySource;
+import com.linkedin.pinot.common.response.broker.OperatorStats;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.data.manager.config.FileBasedInstanceDataManagerConfig;
@@ -51,6 +52,7 @@ import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.query.executor.ServerQueryExecutorV1Impl;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.util.trace.QueryProfile;
 import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
 
 
@@ -234,6 +236,42 @@ public class QueryExecutorTest {
 
   }
 
+  @Test
+  public void testProfiledQuery()
+      throws Exception {
+    BrokerRequest brokerRequest = getCountQuery();
+    brokerRequest.setEnableProfile(true);
+
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName("midas");
+    brokerRequest.setQuerySource(querySource);
+    InstanceRequest instanceRequest = new InstanceRequest(0, brokerRequest);
+    instanceRequest.setSearchSegments(new ArrayList<String>());
+    for (IndexSegment segment : _indexSegmentList) {
+      instanceRequest.getSearchSegments().add(segment.getSegmentName());
+    }
+    DataTable instanceResponse = _queryExecutor.processQuery(instanceRequest);
+    Assert.assertEquals(instanceResponse.getLong(0, 0), 400002L);
+
+    Map<String, OperatorStats> operatorStatsMap = new HashMap<String, OperatorStats>();
+    for (OperatorStats operatorStats : OperatorStats.fromJsonString(
+        instanceResponse.getMetadata().get(QueryProfile.OPERATOR_STATS_METADATA_KEY))) {
+      operatorStatsMap.put(operatorStats.getOperator(), operatorStats);
+    }
+    OperatorStats docIdSetStats = operatorStatsMap.get("BReusableFilteredDocIdSetOperator");
+    Assert.assertEquals(docIdSetStats.getNumOperators(), 2L);
+    Assert.assertEquals(docIdSetStats.getNumDocsOut(), 400002L);
+    OperatorStats projectionStats = operatorStatsMap.get("MProjectionOperator");
+    Assert.assertEquals(projectionStats.getNumDocsIn(), 400002L);
+    Assert.assertTrue(projectionStats.getTimeUsedNs() > 0);
+    Assert.assertTrue(projectionStats.getNumBlocks() > 0);
+
+    // Queries not asking for a profile do not report operator stats
+    brokerRequest.setEnableProfile(false);
+    instanceResponse = _queryExecutor.processQuery(instanceRequest);
+    Assert.assertNull(instanceResponse.getMetadata().get(QueryProfile.OPERATOR_STATS_METADATA_KEY));
+  }
+
   private BrokerRequest getCountQuery() {
     BrokerRequest query = new BrokerRequest();
     AggregationInfo aggregationInfo = getCountAggregationInfo();
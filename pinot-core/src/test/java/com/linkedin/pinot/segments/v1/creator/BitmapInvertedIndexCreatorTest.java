@@ -24,6 +24,7 @@ import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.creator.impl.inv.HeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexBitmapCache;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.io.File;
 import java.io.IOException;
@@ -113,16 +114,46 @@ public class BitmapInvertedIndexCreatorTest {
     Assert.assertTrue(bitmapIndexFile.exists());
     PinotDataBuffer dataBuffer = PinotDataBuffer.fromFile(bitmapIndexFile, ReadMode.mmap,
         FileChannel.MapMode.READ_ONLY, "testing");
+    InvertedIndexBitmapCache bitmapCache = InvertedIndexBitmapCache.getInstance();
+    long cachedBitmaps = bitmapCache.size();
+    long cachedBytes = bitmapCache.getSizeInBytes();
+    long expectedBytes = 0L;
     BitmapInvertedIndexReader reader = new BitmapInvertedIndexReader(dataBuffer, cardinality);
     for (int i = 0; i < cardinality; i++) {
       ImmutableRoaringBitmap bitmap = reader.getImmutable(i);
+      expectedBytes += bitmap.serializedSizeInBytes();
       Set<Integer> expected = postingListMap.get(i);
       Assert.assertEquals(bitmap.getCardinality(), expected.size());
       int[] actual = bitmap.toArray();
       List<Integer> actualList = Ints.asList(actual);
       Assert.assertEquals(actualList, expected);
+      // Second lookup is served from the bitmap cache
+      Assert.assertSame(reader.getImmutable(i), bitmap);
     }
-    dataBuffer.close();
+    Assert.assertEquals(bitmapCache.size(), cachedBitmaps + cardinality);
+    Assert.assertEquals(bitmapCache.getSizeInBytes(), cachedBytes + expectedBytes);
+
+    // Closing the reader drops its bitmaps from the cache
+    reader.close();
+    Assert.assertEquals(bitmapCache.size(), cachedBitmaps);
+    Assert.assertEquals(bitmapCache.getSizeInBytes(), cachedBytes);
+
+    // The cache is bounded by the serialized size of the bitmaps, not by their number
+    long maxBytes = bitmapCache.getMaxBytes();
+    bitmapCache.setMaxBytes(expectedBytes / 2);
+    try {
+      dataBuffer = PinotDataBuffer.fromFile(bitmapIndexFile, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, "testing");
+      reader = new BitmapInvertedIndexReader(dataBuffer, cardinality);
+      for (int i = 0; i < cardinality; i++) {
+        reader.getImmutable(i);
+        Assert.assertTrue(bitmapCache.getSizeInBytes() <= expectedBytes / 2);
+      }
+      Assert.assertTrue(bitmapCache.size() < cardinality);
+      reader.close();
+    } finally {
+      bitmapCache.setMaxBytes(maxBytes);
+    }
+    Assert.assertEquals(bitmapCache.getSizeInBytes(), 0L);
 
   }
 
@@ -19,6 +19,7 @@ import com.linkedin.pinot.common.data.DimensionFieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
@@ -56,6 +57,7 @@ import org.apache.avro.Schema.Field;
 import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.util.Utf8;
+import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -198,6 +200,40 @@ public class DictionariesTest {
     }
   }
 
+  @Test
+  public void testHashIndex() throws Exception {
+    final File segmentDir = INDEX_DIR.listFiles()[0];
+    final IndexSegmentImpl segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap);
+    final IndexLoadingConfigMetadata indexLoadingConfigMetadata =
+        new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    final Set<String> columns = ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataMap().keySet();
+    Assert.assertFalse(columns.isEmpty());
+    indexLoadingConfigMetadata.initLoadingDictionaryHashIndexColumnSet(columns.toArray(new String[0]));
+    final IndexSegmentImpl hashIndexedSegment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap, indexLoadingConfigMetadata);
+
+    for (final String column : columns) {
+      final ImmutableDictionaryReader dictionary = segment.getDictionaryFor(column);
+      final ImmutableDictionaryReader hashIndexedDictionary = hashIndexedSegment.getDictionaryFor(column);
+      Assert.assertFalse(dictionary.hasHashIndex());
+      Assert.assertTrue(hashIndexedDictionary.hasHashIndex());
+
+      for (int dictId = 0; dictId < hashIndexedDictionary.length(); dictId++) {
+        final String value = hashIndexedDictionary.get(dictId).toString();
+        Assert.assertEquals(hashIndexedDictionary.getDictionaryId(value), dictId);
+        Assert.assertEquals(dictionary.getDictionaryId(value), dictId);
+      }
+      for (final Object entry : uniqueEntries.get(column)) {
+        Assert.assertEquals(hashIndexedDictionary.getDictionaryId(entry), dictionary.getDictionaryId(entry));
+      }
+      if (hashIndexedDictionary instanceof StringDictionary) {
+        Assert.assertEquals(hashIndexedDictionary.getDictionaryId("__missing__"), -1);
+      }
+    }
+    segment.destroy();
+    hashIndexedSegment.destroy();
+  }
+
   @Test
   public void testIntColumnPreIndexStatsCollector() throws Exception {
     FieldSpec spec = new DimensionFieldSpec("column1", DataType.INT, true);
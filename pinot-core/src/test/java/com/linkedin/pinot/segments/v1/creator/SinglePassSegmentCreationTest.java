@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.util.TestUtils;
+
+
+/**
+ * Checks that the single pass segment creation produces the same files as the two pass one, and that it reorders the
+ * documents on the configured sort columns.
+ */
+public class SinglePassSegmentCreationTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "SinglePassSegmentCreationTest");
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testSinglePassCreation() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    File twoPassSegmentDir = buildSegment(new File(INDEX_DIR, "twoPass"), 0);
+    File singlePassSegmentDir = buildSegment(new File(INDEX_DIR, "singlePass"), 4);
+
+    String[] fileNames = twoPassSegmentDir.list();
+    Arrays.sort(fileNames);
+    String[] singlePassFileNames = singlePassSegmentDir.list();
+    Arrays.sort(singlePassFileNames);
+    Assert.assertEquals(singlePassFileNames, fileNames);
+
+    for (String fileName : fileNames) {
+      // Holds the creation time
+      if (fileName.equals(V1Constants.SEGMENT_CREATION_META)) {
+        continue;
+      }
+      Assert.assertTrue(
+          FileUtils.contentEquals(new File(singlePassSegmentDir, fileName), new File(twoPassSegmentDir, fileName)),
+          "Mismatch in " + fileName);
+    }
+  }
+
+  @Test
+  public void testSortColumns() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    List<String> sortColumns = Arrays.asList("column3", "column1");
+    File unsortedSegmentDir = buildSegment(new File(INDEX_DIR, "unsorted"), 0, Collections.<String>emptyList());
+    File sortedSegmentDir = buildSegment(new File(INDEX_DIR, "sorted"), 2, sortColumns);
+
+    IndexSegment unsortedSegment = Loaders.IndexSegment.load(unsortedSegmentDir, ReadMode.heap);
+    IndexSegment sortedSegment = Loaders.IndexSegment.load(sortedSegmentDir, ReadMode.heap);
+    try {
+      SegmentMetadataImpl metadata = (SegmentMetadataImpl) sortedSegment.getSegmentMetadata();
+      Assert.assertEquals(metadata.getSortColumns(), sortColumns);
+      Assert.assertTrue(metadata.getColumnMetadataFor("column3").isSorted());
+      Assert.assertTrue(((SegmentMetadataImpl) unsortedSegment.getSegmentMetadata()).getSortColumns().isEmpty());
+
+      // Same rows, ordered on the dictionary ids of the sort columns
+      String[] columns = metadata.getSchema().getColumnNames().toArray(new String[0]);
+      List<String> unsortedRows = readRows(unsortedSegment, columns);
+      List<String> sortedRows = readRows(sortedSegment, columns);
+      Collections.sort(unsortedRows);
+      Collections.sort(sortedRows);
+      Assert.assertEquals(sortedRows, unsortedRows);
+
+      int[] primaryDictIds = readDictIds(sortedSegment, "column3");
+      int[] secondaryDictIds = readDictIds(sortedSegment, "column1");
+      for (int i = 1; i < primaryDictIds.length; i++) {
+        Assert.assertTrue(primaryDictIds[i - 1] <= primaryDictIds[i]);
+        if (primaryDictIds[i - 1] == primaryDictIds[i]) {
+          Assert.assertTrue(secondaryDictIds[i - 1] <= secondaryDictIds[i]);
+        }
+      }
+    } finally {
+      unsortedSegment.destroy();
+      sortedSegment.destroy();
+    }
+  }
+
+  private static List<String> readRows(IndexSegment segment, String[] columns) {
+    int numDocs = segment.getSegmentMetadata().getTotalDocs();
+    StringBuilder[] rows = new StringBuilder[numDocs];
+    for (int docId = 0; docId < numDocs; docId++) {
+      rows[docId] = new StringBuilder();
+    }
+    for (String column : columns) {
+      int[] dictIds = readDictIds(segment, column);
+      for (int docId = 0; docId < numDocs; docId++) {
+        rows[docId].append(segment.getDataSource(column).getDictionary().get(dictIds[docId])).append('|');
+      }
+    }
+    List<String> result = new ArrayList<>(numDocs);
+    for (StringBuilder row : rows) {
+      result.add(row.toString());
+    }
+    return result;
+  }
+
+  private static int[] readDictIds(IndexSegment segment, String column) {
+    DataSource dataSource = segment.getDataSource(column);
+    BlockSingleValIterator iterator = (BlockSingleValIterator) dataSource.nextBlock().getBlockValueSet().iterator();
+    int[] dictIds = new int[segment.getSegmentMetadata().getTotalDocs()];
+    for (int docId = 0; docId < dictIds.length; docId++) {
+      dictIds[docId] = iterator.nextIntVal();
+    }
+    return dictIds;
+  }
+
+  private File buildSegment(File outDir, int numIndexingThreads) throws Exception {
+    return buildSegment(outDir, numIndexingThreads, Collections.<String>emptyList());
+  }
+
+  private File buildSegment(File outDir, int numIndexingThreads, List<String> sortColumns) throws Exception {
+    final String filePath =
+        TestUtils.getFileFromResourceUrl(SinglePassSegmentCreationTest.class.getClassLoader().getResource(AVRO_DATA));
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.createInvertedIndexForAllColumns();
+    config.setNumIndexingThreads(numIndexingThreads);
+    config.setSortColumns(sortColumns);
+
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+    return outDir.listFiles()[0];
+  }
+}
@@ -104,6 +104,14 @@ public class IntArrayBackedImmutableDictionary extends ImmutableDictionaryReader
     return Arrays.binarySearch(dictionary, ((Integer) rawValue).intValue());
   }
 
+  @Override
+  protected Integer getLookupValue(Object rawValue) {
+    if (rawValue instanceof String) {
+      return Integer.parseInt((String) rawValue);
+    }
+    return (Integer) rawValue;
+  }
+
   @Override
   public Object get(int dictionaryId) {
     return new Integer(dictionary[dictionaryId]);
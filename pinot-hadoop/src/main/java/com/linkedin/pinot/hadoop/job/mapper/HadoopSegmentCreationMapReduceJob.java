@@ -169,6 +169,7 @@ public class HadoopSegmentCreationMapReduceJob {
       segmentGeneratorConfig.setReaderConfig(getReaderConfig(fileFormat));
 
       segmentGeneratorConfig.setOutDir(_localDiskSegmentDirectory);
+      segmentGeneratorConfig.setNumIndexingThreads(_properties.getInt("segment.creation.indexing.threads", 0));
 
       // Add the current java package version to the segment metadata
       // properties file.
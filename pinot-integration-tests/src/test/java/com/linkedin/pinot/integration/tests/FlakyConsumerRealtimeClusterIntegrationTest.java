@@ -102,6 +102,11 @@ public class FlakyConsumerRealtimeClusterIntegrationTest extends RealtimeCluster
       _streamProvider.commit(offset);
     }
 
+    @Override
+    public void stopFetching() {
+      _streamProvider.stopFetching();
+    }
+
     @Override
     public void shutdown() throws Exception {
       _streamProvider.shutdown();
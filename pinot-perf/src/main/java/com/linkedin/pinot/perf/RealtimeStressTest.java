@@ -39,6 +39,9 @@ public class RealtimeStressTest extends RealtimeClusterIntegrationTest {
   private static final int MIN_ROW_COUNT = 100_000;
   private static final int ROW_COUNT_FOR_SEGMENT_FLUSH = 10_000;
   private static final long TIMEOUT_MILLIS = 20 * 60 * 1000L; // Twenty minutes
+  // Filtered query served by the inverted index of the consuming segment while rows are being indexed
+  private static final String FILTERED_QUERY =
+      "select count(*) from mytable where Carrier in ('AA', 'DL') and Origin <> 'SFO'";
   private final File _tmpDir = new File("/tmp/" + getHelixClusterName());
   private final String KAFKA_TOPIC = "benchmark-realtime-consumption-speed";
   private static final int SEGMENT_COUNT = 1;
@@ -97,6 +100,8 @@ public class RealtimeStressTest extends RealtimeClusterIntegrationTest {
 
     // Run forever until something breaks or the timeout completes
     long pinotRecordCount = -1L;
+    long previousRecordCount = 0L;
+    long previousTime = System.currentTimeMillis();
     long timeAfterTimeout = System.currentTimeMillis() + TIMEOUT_MILLIS;
     do {
       Thread.sleep(500L);
@@ -108,6 +113,16 @@ public class RealtimeStressTest extends RealtimeClusterIntegrationTest {
         JSONObject firstAggregationResult = aggregationResultsArray.getJSONObject(0);
         String pinotValue = firstAggregationResult.getString("value");
         pinotRecordCount = Long.parseLong(pinotValue);
+
+        long filteredQueryStartTime = System.nanoTime();
+        postQuery(FILTERED_QUERY);
+        long filteredQueryTimeMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - filteredQueryStartTime);
+        long now = System.currentTimeMillis();
+        long rowsPerSecond = (pinotRecordCount - previousRecordCount) * 1000L / Math.max(now - previousTime, 1L);
+        System.out.println(
+            "Indexed rows/sec: " + rowsPerSecond + ", filtered query latency: " + filteredQueryTimeMicros + "us");
+        previousRecordCount = pinotRecordCount;
+        previousTime = now;
       } catch (Exception e) {
         // Ignore
         continue;
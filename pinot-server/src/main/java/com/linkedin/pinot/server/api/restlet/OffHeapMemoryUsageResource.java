@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.server.api.restlet;
+
+import com.linkedin.pinot.common.restlet.swagger.Description;
+import com.linkedin.pinot.common.restlet.swagger.HttpVerb;
+import com.linkedin.pinot.common.restlet.swagger.Paths;
+import com.linkedin.pinot.common.restlet.swagger.Summary;
+import com.linkedin.pinot.common.utils.MmapUtils;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.lang3.tuple.Pair;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.ResourceException;
+import org.restlet.resource.ServerResource;
+
+
+/**
+ * Debug endpoint summarizing the off-heap memory usage by table, segment and index type.
+ */
+public class OffHeapMemoryUsageResource extends ServerResource {
+  // Used for allocations that do not refer to a segment file, such as consuming segments and segment creation
+  private static final String UNATTRIBUTED = "unattributed";
+
+  @Override
+  @HttpVerb("get")
+  @Description("Summarizes the off-heap memory usage by table, segment and index type, along with the direct memory "
+      + "budget of the server")
+  @Summary("View off-heap memory usage by table, segment and index type")
+  @Paths({ "/debug/memory/offheap/summary", "/debug/memory/offheap/summary/" })
+  protected Representation get() throws ResourceException {
+    try {
+      // Table -> segment -> index type -> usage
+      Map<String, Map<String, Map<String, Usage>>> usages = new TreeMap<String, Map<String, Map<String, Usage>>>();
+      for (Pair<MmapUtils.AllocationContext, Integer> allocation : MmapUtils.getAllocationsAndSizes()) {
+        MmapUtils.AllocationContext context = allocation.getKey();
+        Map<String, Map<String, Usage>> segmentUsages = getOrCreate(usages, orUnattributed(context.getTableName()));
+        Map<String, Usage> indexUsages = getOrCreate(segmentUsages, orUnattributed(context.getSegmentName()));
+        String indexType = orUnattributed(context.getIndexType());
+        Usage usage = indexUsages.get(indexType);
+        if (usage == null) {
+          usage = new Usage();
+          indexUsages.put(indexType, usage);
+        }
+        usage.add(context.getAllocationType(), allocation.getValue());
+      }
+
+      JSONObject returnValue = new JSONObject();
+      returnValue.put("directUsage", MmapUtils.getDirectByteBufferUsage());
+      returnValue.put("directBudget", MmapUtils.getDirectMemoryBudget());
+      returnValue.put("mmapUsage", MmapUtils.getMmapBufferUsage());
+      returnValue.put("mmapCount", MmapUtils.getMmapBufferCount());
+
+      JSONObject tablesJson = new JSONObject();
+      for (Map.Entry<String, Map<String, Map<String, Usage>>> tableEntry : usages.entrySet()) {
+        Usage tableUsage = new Usage();
+        JSONObject segmentsJson = new JSONObject();
+        for (Map.Entry<String, Map<String, Usage>> segmentEntry : tableEntry.getValue().entrySet()) {
+          Usage segmentUsage = new Usage();
+          JSONObject indexesJson = new JSONObject();
+          for (Map.Entry<String, Usage> indexEntry : segmentEntry.getValue().entrySet()) {
+            segmentUsage.add(indexEntry.getValue());
+            indexesJson.put(indexEntry.getKey(), indexEntry.getValue().toJson());
+          }
+          tableUsage.add(segmentUsage);
+          segmentsJson.put(segmentEntry.getKey(), segmentUsage.toJson().put("indexes", indexesJson));
+        }
+        tablesJson.put(tableEntry.getKey(), tableUsage.toJson().put("segments", segmentsJson));
+      }
+      returnValue.put("tables", tablesJson);
+
+      return new StringRepresentation(returnValue.toString(2));
+    } catch (JSONException e) {
+      return new StringRepresentation(e.toString());
+    }
+  }
+
+  private static <V> Map<String, V> getOrCreate(Map<String, Map<String, V>> map, String key) {
+    Map<String, V> value = map.get(key);
+    if (value == null) {
+      value = new TreeMap<String, V>();
+      map.put(key, value);
+    }
+    return value;
+  }
+
+  private static String orUnattributed(String name) {
+    return name == null ? UNATTRIBUTED : name;
+  }
+
+  private static class Usage {
+    private long direct;
+    private long mmap;
+
+    void add(MmapUtils.AllocationType allocationType, long size) {
+      if (allocationType == MmapUtils.AllocationType.DIRECT_BYTE_BUFFER) {
+        direct += size;
+      } else {
+        mmap += size;
+      }
+    }
+
+    void add(Usage usage) {
+      direct += usage.direct;
+      mmap += usage.mmap;
+    }
+
+    JSONObject toJson() throws JSONException {
+      JSONObject json = new JSONObject();
+      json.put("direct", direct);
+      json.put("mmap", mmap);
+      return json;
+    }
+  }
+}
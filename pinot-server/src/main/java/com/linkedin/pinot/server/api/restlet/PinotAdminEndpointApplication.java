@@ -28,6 +28,8 @@ import org.restlet.routing.Router;
 public class PinotAdminEndpointApplication extends PinotRestletApplication {
   @Override
   protected void configureRouter(Router router) {
+    // Attached first, its paths start with the ones of MmapDebugResource
+    attachRoutesForClass(router, OffHeapMemoryUsageResource.class);
     attachRoutesForClass(router, MmapDebugResource.class);
     attachRoutesForClass(router, TableSizeResource.class);
 
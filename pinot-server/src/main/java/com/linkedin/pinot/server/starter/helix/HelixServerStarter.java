@@ -47,6 +47,7 @@ import com.linkedin.pinot.common.utils.MmapUtils;
 import com.linkedin.pinot.common.utils.NetUtil;
 import com.linkedin.pinot.common.utils.ZkUtils;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentMetadataLoader;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexBitmapCache;
 import com.linkedin.pinot.server.conf.ServerConf;
 import com.linkedin.pinot.server.starter.ServerInstance;
 import com.yammer.metrics.core.MetricsRegistry;
@@ -90,7 +91,14 @@ public class HelixServerStarter {
                     CommonConstants.Helix.DEFAULT_SERVER_NETTY_PORT));
 
     pinotHelixProperties.addProperty("pinot.server.instance.id", _instanceId);
+    MmapUtils.setDirectMemoryBudget(pinotHelixProperties.getLong(
+        CommonConstants.Server.CONFIG_OF_DIRECT_MEMORY_BUDGET_BYTES,
+        CommonConstants.Server.DEFAULT_DIRECT_MEMORY_BUDGET_BYTES));
+    InvertedIndexBitmapCache.getInstance().setMaxBytes(pinotHelixProperties.getLong(
+        CommonConstants.Server.CONFIG_OF_INVERTED_INDEX_BITMAP_CACHE_MAX_BYTES,
+        CommonConstants.Server.DEFAULT_INVERTED_INDEX_BITMAP_CACHE_MAX_BYTES));
     startServerInstance(pinotHelixProperties);
+    InvertedIndexBitmapCache.getInstance().setServerMetrics(_serverInstance.getServerMetrics());
 
     // Replace all white-spaces from list of zkServers.
     String zkServers = zkServer.replaceAll("\\s+", "");
@@ -165,6 +173,39 @@ public class HelixServerStarter {
               }
             });
 
+    _serverInstance.getServerMetrics().addCallbackGauge(
+        "memory.directByteBufferBudget", new Callable<Long>() {
+              @Override
+              public Long call() throws Exception {
+                return MmapUtils.getDirectMemoryBudget();
+              }
+            });
+
+    // Create metrics for the inverted index bitmap cache, hits and misses are metered per table by the cache itself
+    _serverInstance.getServerMetrics().addCallbackGauge(
+        "invertedIndexBitmapCache.size", new Callable<Long>() {
+              @Override
+              public Long call() throws Exception {
+                return InvertedIndexBitmapCache.getInstance().size();
+              }
+            });
+
+    _serverInstance.getServerMetrics().addCallbackGauge(
+        "invertedIndexBitmapCache.bytes", new Callable<Long>() {
+              @Override
+              public Long call() throws Exception {
+                return InvertedIndexBitmapCache.getInstance().getSizeInBytes();
+              }
+            });
+
+    _serverInstance.getServerMetrics().addCallbackGauge(
+        "invertedIndexBitmapCache.evictions", new Callable<Long>() {
+              @Override
+              public Long call() throws Exception {
+                return InvertedIndexBitmapCache.getInstance().getEvictionCount();
+              }
+            });
+
 
   }
 
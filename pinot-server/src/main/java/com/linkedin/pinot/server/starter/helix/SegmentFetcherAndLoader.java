@@ -202,10 +202,13 @@ public class SegmentFetcherAndLoader {
           segmentMetadataForCheck == null, segmentMetadataFromServer == null, segmentName, tableName);
       return true;
     }
+    // A segment re-created when loaded, e.g. to add a star tree index, is known by the CRC of the segment it was
+    // re-created from
+    String crcFromServer = segmentMetadataFromServer instanceof SegmentMetadataImpl
+        ? ((SegmentMetadataImpl) segmentMetadataFromServer).getSourceCrc() : segmentMetadataFromServer.getCrc();
     LOGGER.info("segmentMetadataForCheck.crc={},segmentMetadataFromServer.crc={} for {} of table {}",
-        segmentMetadataForCheck.getCrc(), segmentMetadataFromServer.getCrc(), segmentName, tableName);
-    if ((!segmentMetadataFromServer.getCrc().equalsIgnoreCase("null"))
-        && (segmentMetadataFromServer.getCrc().equals(segmentMetadataForCheck.getCrc()))) {
+        segmentMetadataForCheck.getCrc(), crcFromServer, segmentName, tableName);
+    if ((!crcFromServer.equalsIgnoreCase("null")) && (crcFromServer.equals(segmentMetadataForCheck.getCrc()))) {
       return false;
     }
     return true;
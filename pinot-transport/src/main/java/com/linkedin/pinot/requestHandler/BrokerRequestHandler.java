@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.requestHandler;
 
+import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -23,15 +25,26 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.thrift.protocol.TCompactProtocol;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.exception.QueryException;
@@ -40,6 +53,8 @@ import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.query.ReduceServiceRegistry;
+import com.linkedin.pinot.common.query.StreamingReduceService;
+import com.linkedin.pinot.common.query.StreamingReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.FilterQuery;
@@ -80,8 +95,10 @@ import io.netty.buffer.ByteBuf;
 public class BrokerRequestHandler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerRequestHandler.class);
+  private static final Pattern EXPLAIN_ANALYZE_PATTERN = Pattern.compile("\\s*explain\\s+analyze\\s+", Pattern.CASE_INSENSITIVE);
   private static final Pql2Compiler REQUEST_COMPILER = new Pql2Compiler();
   private static final String BROKER_RESPONSE_TYPE = "responseType";
+  public static final long DEFAULT_STREAMING_MAX_IN_FLIGHT_BYTES = 64L * 1024 * 1024;
   private final RoutingTable _routingTable;
   private final ScatterGather _scatterGatherer;
   private final ReduceServiceRegistry _reduceServiceRegistry;
@@ -91,12 +108,43 @@ public class BrokerRequestHandler {
   private final BrokerRequestOptimizer _optimizer;
   private AtomicLong _requestIdGenerator;
 
+  // Executor on which asynchronous requests are deserialized and reduced once all server responses are in.
+  private final Executor _reduceExecutor;
+  // Executor used to enforce the broker timeout on asynchronous requests, null if only the transport timeout applies.
+  private final ScheduledExecutorService _timeoutExecutor;
+  // Bytes of server responses of a streaming request received but not yet written to the client, above which reading
+  // from the servers is paused.
+  private final long _streamingMaxInFlightBytes;
+
   //TODO: Currently only using RoundRobin selection. But, this can be allowed to be configured.
   private RoundRobinReplicaSelection _replicaSelection;
 
   public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
       ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
       long brokerTimeOutMs) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, brokerTimeOutMs,
+        MoreExecutors.sameThreadExecutor(), null);
+  }
+
+  /**
+   * @param reduceExecutor Executor used to deserialize and reduce responses for {@link #handleRequestAsync(JSONObject)}
+   * @param timeoutExecutor Executor used to cancel asynchronous requests that exceed the broker timeout
+   */
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      long brokerTimeOutMs, Executor reduceExecutor, ScheduledExecutorService timeoutExecutor) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, brokerTimeOutMs,
+        reduceExecutor, timeoutExecutor, DEFAULT_STREAMING_MAX_IN_FLIGHT_BYTES);
+  }
+
+  /**
+   * @param streamingMaxInFlightBytes Maximum bytes of server responses of a streaming request received but not yet
+   *                                  written to the client
+   */
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      long brokerTimeOutMs, Executor reduceExecutor, ScheduledExecutorService timeoutExecutor,
+      long streamingMaxInFlightBytes) {
     _routingTable = table;
     _timeBoundaryService = timeBoundaryService;
     _reduceServiceRegistry = reduceServiceRegistry;
@@ -106,39 +154,22 @@ public class BrokerRequestHandler {
     _brokerTimeOutMs = brokerTimeOutMs;
     _optimizer = new BrokerRequestOptimizer();
     _requestIdGenerator = new AtomicLong(0);
+    _reduceExecutor = reduceExecutor;
+    _timeoutExecutor = timeoutExecutor;
+    _streamingMaxInFlightBytes = streamingMaxInFlightBytes;
   }
 
   public BrokerResponse handleRequest(JSONObject request) throws Exception {
     final String pql = request.getString("pql");
     final long requestId = _requestIdGenerator.incrementAndGet();
     LOGGER.debug("Query string for requestId {}: {}", requestId, pql);
-    boolean isTraceEnabled = false;
-
-    if (request.has("trace")) {
-      try {
-        isTraceEnabled = Boolean.parseBoolean(request.getString("trace"));
-        LOGGER.info("Trace is set to: {} for query {}", isTraceEnabled, pql);
-      } catch (Exception e) {
-        LOGGER.warn("Invalid trace value: {} for query {}", request.getString("trace"), pql, e);
-      }
-    } else {
-      // ignore, trace is disabled by default
-    }
 
     final long startTime = System.nanoTime();
     final BrokerRequest brokerRequest;
     try {
-      brokerRequest = REQUEST_COMPILER.compileToBrokerRequest(pql);
-      if (isTraceEnabled) {
-        brokerRequest.setEnableTrace(true);
-      }
-      brokerRequest.setResponseFormat(ResponseType.BROKER_RESPONSE_TYPE_NATIVE.name());
+      brokerRequest = compileRequest(request, pql);
     } catch (Exception e) {
-      BrokerResponse brokerResponse = new BrokerResponseNative();
-      brokerResponse.setExceptions(Arrays.asList(QueryException.getException(QueryException.PQL_PARSING_ERROR, e)));
-      _brokerMetrics.addMeteredGlobalValue(BrokerMeter.REQUEST_COMPILATION_EXCEPTIONS, 1);
-      LOGGER.info("Parsing error on query:{}", pql, e);
-      return brokerResponse;
+      return getCompilationErrorResponse(pql, e);
     }
 
     _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.QUERIES, 1);
@@ -157,6 +188,122 @@ public class BrokerRequestHandler {
           }
         });
 
+    return finishResponse(resp, brokerRequest, pql, requestId, startTime, scatterGatherStats);
+  }
+
+  /**
+   * Asynchronous version of {@link #handleRequest(JSONObject)}.
+   *
+   * The request is compiled, routed and scattered on the calling thread, but the calling thread never waits for the
+   * servers to respond. The returned future is chained off the scatter-gather {@link CompositeFuture}s, and the
+   * deserialization and reduce phases run on the reduce executor once all responses are in. If a timeout executor was
+   * provided, requests still pending after the broker timeout are cancelled and reduced with the responses received
+   * so far.
+   *
+   * @param request Json request, with the query under the "pql" key
+   * @return Future for the broker response
+   * @throws Exception
+   */
+  public ListenableFuture<BrokerResponse> handleRequestAsync(JSONObject request) throws Exception {
+    final String pql = request.getString("pql");
+    final long requestId = _requestIdGenerator.incrementAndGet();
+    LOGGER.debug("Query string for async requestId {}: {}", requestId, pql);
+
+    final long startTime = System.nanoTime();
+    final BrokerRequest brokerRequest;
+    try {
+      brokerRequest = compileRequest(request, pql);
+    } catch (Exception e) {
+      return Futures.immediateFuture(getCompilationErrorResponse(pql, e));
+    }
+
+    return processCompiledRequestAsync(brokerRequest, pql, requestId, startTime);
+  }
+
+  private ListenableFuture<BrokerResponse> processCompiledRequestAsync(final BrokerRequest brokerRequest,
+      final String pql, final long requestId, final long startTime) throws InterruptedException {
+    _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.QUERIES, 1);
+
+    final long requestCompilationTime = System.nanoTime() - startTime;
+    _brokerMetrics.addPhaseTiming(brokerRequest, BrokerQueryPhase.REQUEST_COMPILATION, requestCompilationTime);
+    final ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
+
+    ListenableFuture<BrokerResponse> responseFuture =
+        processBrokerRequestAsync(brokerRequest, scatterGatherStats, requestId);
+    return Futures.transform(responseFuture, new Function<BrokerResponse, BrokerResponse>() {
+      @Override
+      public BrokerResponse apply(BrokerResponse resp) {
+        _brokerMetrics.addPhaseTiming(brokerRequest, BrokerQueryPhase.QUERY_EXECUTION,
+            System.nanoTime() - startTime - requestCompilationTime);
+        return finishResponse(resp, brokerRequest, pql, requestId, startTime, scatterGatherStats);
+      }
+    }, MoreExecutors.sameThreadExecutor());
+  }
+
+  private BrokerRequest compileRequest(JSONObject request, String pql) throws Exception {
+    boolean isTraceEnabled = false;
+
+    if (request.has("trace")) {
+      try {
+        isTraceEnabled = Boolean.parseBoolean(request.getString("trace"));
+        LOGGER.info("Trace is set to: {} for query {}", isTraceEnabled, pql);
+      } catch (Exception e) {
+        LOGGER.warn("Invalid trace value: {} for query {}", request.getString("trace"), pql, e);
+      }
+    } else {
+      // ignore, trace is disabled by default
+    }
+
+    // Per-operator execution stats are requested either with the profile option or by prefixing the query with
+    // EXPLAIN ANALYZE
+    boolean isProfileEnabled = false;
+    if (request.has("profile")) {
+      try {
+        isProfileEnabled = Boolean.parseBoolean(request.getString("profile"));
+      } catch (Exception e) {
+        LOGGER.warn("Invalid profile value: {} for query {}", request.getString("profile"), pql, e);
+      }
+    }
+    Matcher explainAnalyzeMatcher = EXPLAIN_ANALYZE_PATTERN.matcher(pql);
+    if (explainAnalyzeMatcher.lookingAt()) {
+      isProfileEnabled = true;
+      pql = pql.substring(explainAnalyzeMatcher.end());
+    }
+
+    // Lowers the number of groups each server keeps per segment for group by queries
+    int numGroupsLimit = -1;
+    if (request.has("numGroupsLimit")) {
+      try {
+        numGroupsLimit = Integer.parseInt(request.getString("numGroupsLimit"));
+      } catch (Exception e) {
+        LOGGER.warn("Invalid numGroupsLimit value: {} for query {}", request.getString("numGroupsLimit"), pql, e);
+      }
+    }
+
+    BrokerRequest brokerRequest = REQUEST_COMPILER.compileToBrokerRequest(pql);
+    if (isTraceEnabled) {
+      brokerRequest.setEnableTrace(true);
+    }
+    if (isProfileEnabled) {
+      brokerRequest.setEnableProfile(true);
+    }
+    if (numGroupsLimit > 0) {
+      brokerRequest.setNumGroupsLimit(numGroupsLimit);
+    }
+    brokerRequest.setResponseFormat(ResponseType.BROKER_RESPONSE_TYPE_NATIVE.name());
+    return brokerRequest;
+  }
+
+  private BrokerResponse getCompilationErrorResponse(String pql, Exception e) {
+    BrokerResponse brokerResponse = new BrokerResponseNative();
+    brokerResponse.setExceptions(Arrays.asList(QueryException.getException(QueryException.PQL_PARSING_ERROR, e)));
+    _brokerMetrics.addMeteredGlobalValue(BrokerMeter.REQUEST_COMPILATION_EXCEPTIONS, 1);
+    LOGGER.info("Parsing error on query:{}", pql, e);
+    return brokerResponse;
+  }
+
+  private BrokerResponse finishResponse(BrokerResponse resp, BrokerRequest brokerRequest, String pql, long requestId,
+      long startTime, ScatterGatherStats scatterGatherStats) {
     // Query processing time is the total time spent in all steps include query parsing, scatter/gather, ser/de etc.
     long queryProcessingTimeInNanos = System.nanoTime() - startTime;
     long queryProcessingTimeInMillis = TimeUnit.MILLISECONDS.convert(queryProcessingTimeInNanos, TimeUnit.NANOSECONDS);
@@ -367,52 +514,13 @@ public class BrokerRequestHandler {
 
       final long deserializationStartTime = System.nanoTime();
 
-      Map<ServerInstance, Throwable> errors = response.getError();
-
-      if (null != responses) {
-        for (Entry<ServerInstance, ByteBuf> e : responses.entrySet()) {
-          try {
-            ByteBuf b = e.getValue();
-            byte[] b2 = new byte[b.readableBytes()];
-            if (b2 == null || b2.length == 0) {
-              continue;
-            }
-            b.readBytes(b2);
-            DataTable r2 = new DataTable(b2);
-            if (errors != null && errors.containsKey(e.getKey())) {
-              Throwable throwable = errors.get(e.getKey());
-              r2.getMetadata().put(DataTable.EXCEPTION_METADATA_KEY, new RequestProcessingException(throwable).toString());
-              _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-            }
-            instanceResponseMap.put(e.getKey(), r2);
-          } catch (Exception ex) {
-            LOGGER.error(
-                "Got exceptions in collect query result for instance " + e.getKey() + ", error: " + ex.getMessage(),
-                ex);
-            _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
-          }
-        }
-      }
+      deserializeResponses(request, responses, response.getError(), instanceResponseMap, null);
       final long deserializationTime = System.nanoTime() - deserializationStartTime;
       _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
     }
 
     // Step 6 : Do the reduce and return
-    try {
-      return _brokerMetrics.timeQueryPhase(request, BrokerQueryPhase.REDUCE, new Callable<BrokerResponse>() {
-        @Override
-        public BrokerResponse call() {
-          BrokerResponse returnValue = reduceService.reduceOnDataTable(request, instanceResponseMap);
-          _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.DOCUMENTS_SCANNED, returnValue.getNumDocsScanned());
-          return returnValue;
-        }
-      });
-    } catch (Exception e) {
-      // Shouldn't happen, this is only here because timeQueryPhase() can throw a checked exception, even though the nested callable can't.
-      LOGGER.error("Caught exception while processing return", e);
-      Utils.rethrowException(e);
-      throw new AssertionError("Should not reach this");
-    }
+    return reduce(request, reduceService, instanceResponseMap);
   }
 
   private Object getDataTableFromBrokerRequestList(final BrokerRequest federatedBrokerRequest,
@@ -479,51 +587,514 @@ public class BrokerRequestHandler {
 
         final long deserializationStartTime = System.nanoTime();
 
-        Map<ServerInstance, Throwable> errors = compositeFuture.getError();
+        deserializeResponses(federatedBrokerRequest, responseMap, compositeFuture.getError(), instanceResponseMap,
+            responseSeq);
+        deserializationTime += System.nanoTime() - deserializationStartTime;
+      }
+    }
+    _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.SCATTER_GATHER, scatterGatherTime);
+    _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
+
+    // Step 6 : Do the reduce and return
+    return reduce(federatedBrokerRequest, reduceService, instanceResponseMap);
+  }
+
+  /**
+   * Asynchronous version of {@link #processBrokerRequest(BrokerRequest, BucketingSelection, ScatterGatherStats, long)}.
+   * Scatters the request (one per physical table for hybrid tables) and returns a future that completes with the
+   * reduced broker response once all the scatter-gather futures are done.
+   */
+  private ListenableFuture<BrokerResponse> processBrokerRequestAsync(final BrokerRequest request,
+      final ScatterGatherStats scatterGatherStats, final long requestId) throws InterruptedException {
+    final ResponseType responseType = BrokerResponseFactory.getResponseType(request.getResponseFormat());
+    final List<BrokerRequest> perTableRequests = getPerTableRequests(request);
+    if (perTableRequests.isEmpty()) {
+      return Futures.<BrokerResponse>immediateFuture(BrokerResponseFactory.getNoTableHitBrokerResponse(responseType));
+    }
+    final ReduceService<? extends BrokerResponse> reduceService = _reduceServiceRegistry.get(responseType);
+    final boolean isFederated = perTableRequests.size() > 1;
+
+    // Step 1-4: route and scatter without waiting for the responses
+    final long scatterGatherStartTime = System.nanoTime();
+    final List<CompositeFuture<ServerInstance, ByteBuf>> compositeFutures =
+        scatterAsync(request, perTableRequests, scatterGatherStats, requestId);
+    if (compositeFutures.isEmpty()) {
+      return Futures.<BrokerResponse>immediateFuture(BrokerResponseFactory.getEmptyBrokerResponse(responseType));
+    }
+
+    final ScheduledFuture<?> timeoutFuture = scheduleTimeout(compositeFutures, requestId);
+
+    // Step 5-6: once all responses are in, deserialize and reduce on the reduce executor
+    return transformOnReduceExecutor(Futures.allAsList(compositeFutures),
+        new Function<List<Map<ServerInstance, ByteBuf>>, BrokerResponse>() {
+          @Override
+          public BrokerResponse apply(List<Map<ServerInstance, ByteBuf>> responses) {
+            if (timeoutFuture != null) {
+              timeoutFuture.cancel(false);
+            }
+            _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.SCATTER_GATHER,
+                System.nanoTime() - scatterGatherStartTime);
+
+            final long deserializationStartTime = System.nanoTime();
+            Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
+            AtomicInteger responseSeq = isFederated ? new AtomicInteger(-1) : null;
+            for (int i = 0; i < responses.size(); i++) {
+              CompositeFuture<ServerInstance, ByteBuf> compositeFuture = compositeFutures.get(i);
+              scatterGatherStats.setResponseTimeMillis(compositeFuture.getResponseTimes());
+              deserializeResponses(request, responses.get(i), compositeFuture.getError(), instanceResponseMap,
+                  responseSeq);
+            }
+            _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.DESERIALIZATION,
+                System.nanoTime() - deserializationStartTime);
+
+            return reduce(request, reduceService, instanceResponseMap);
+          }
+        });
+  }
+
+  /**
+   * Streams the response of a request to the writer. For requests the streaming reduce service can stream, the rows
+   * of each server response are reduced into the writer on the reduce executor as soon as that response arrives, and
+   * the remaining servers are cancelled once the streaming reducer does not need any more rows. Reading from the
+   * servers is paused while the responses waiting to be written exceed the streaming in-flight budget. Other requests
+   * are processed as asynchronous requests and written as a single Json broker response.
+   *
+   * @param request Json request, with the query under the "pql" key
+   * @param streamingReduceService Streaming reduce service used to write the response
+   * @param writer Writer for the response
+   * @return Future completing once the whole response is written
+   * @throws Exception
+   */
+  public ListenableFuture<?> handleStreamingRequest(JSONObject request,
+      final StreamingReduceService streamingReduceService, final Writer writer) throws Exception {
+    final String pql = request.getString("pql");
+    final long requestId = _requestIdGenerator.incrementAndGet();
+    LOGGER.debug("Query string for streaming requestId {}: {}", requestId, pql);
+
+    final long startTime = System.nanoTime();
+    final BrokerRequest brokerRequest;
+    try {
+      brokerRequest = compileRequest(request, pql);
+    } catch (Exception e) {
+      writer.write(getCompilationErrorResponse(pql, e).toJsonString());
+      return Futures.immediateFuture(null);
+    }
+
+    if (!streamingReduceService.isStreamable(brokerRequest)) {
+      return Futures.transform(processCompiledRequestAsync(brokerRequest, pql, requestId, startTime),
+          new Function<BrokerResponse, Void>() {
+            @Override
+            public Void apply(BrokerResponse brokerResponse) {
+              try {
+                writer.write(brokerResponse.toJsonString());
+                return null;
+              } catch (Exception e) {
+                Utils.rethrowException(e);
+                throw new AssertionError("Should not reach this");
+              }
+            }
+          }, MoreExecutors.sameThreadExecutor());
+    }
+
+    _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.QUERIES, 1);
+    _brokerMetrics.addPhaseTiming(brokerRequest, BrokerQueryPhase.REQUEST_COMPILATION, System.nanoTime() - startTime);
+    final ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
+
+    final StreamingReducer streamingReducer = streamingReduceService.startStreaming(brokerRequest, writer);
+    final List<CompositeFuture<ServerInstance, ByteBuf>> compositeFutures =
+        scatterAsync(brokerRequest, getPerTableRequests(brokerRequest), scatterGatherStats, requestId);
+    final ScheduledFuture<?> timeoutFuture = scheduleTimeout(compositeFutures, requestId);
 
-        if (null != responseMap) {
-          for (Entry<ServerInstance, ByteBuf> responseEntry : responseMap.entrySet()) {
-            try {
-              ByteBuf b = responseEntry.getValue();
-              byte[] b2 = new byte[b.readableBytes()];
-              if (b2 == null || b2.length == 0) {
-                continue;
+    final StreamingResponseQueue responseQueue = new StreamingResponseQueue(brokerRequest, pql, streamingReducer,
+        compositeFutures, scatterGatherStats, requestId, startTime);
+    for (CompositeFuture<ServerInstance, ByteBuf> compositeFuture : compositeFutures) {
+      compositeFuture.setResponseListener(responseQueue);
+    }
+    Futures.allAsList(compositeFutures).addListener(new Runnable() {
+      @Override
+      public void run() {
+        if (timeoutFuture != null) {
+          timeoutFuture.cancel(false);
+        }
+        responseQueue.onAllResponsesReceived();
+      }
+    }, MoreExecutors.sameThreadExecutor());
+    return responseQueue.getFinishFuture();
+  }
+
+  /**
+   * Server responses of a streaming request waiting to be written. The network threads only queue the serialized
+   * responses, which are deserialized and reduced into the stream one at a time on the reduce executor, so a slow
+   * client never stalls the network threads. Every response is kept, the streaming in-flight budget bounds the
+   * memory instead by applying backpressure: while the responses queued but not yet written and flushed exceed the
+   * budget, reading from the servers is paused, so the responses still in flight wait in the socket buffers and the
+   * servers block on their writes. Reading resumes once the client has caught up.
+   */
+  private class StreamingResponseQueue implements CompositeFuture.ResponseListener<ServerInstance, ByteBuf>, Runnable {
+    private final BrokerRequest _brokerRequest;
+    private final String _pql;
+    private final StreamingReducer _streamingReducer;
+    private final List<CompositeFuture<ServerInstance, ByteBuf>> _compositeFutures;
+    private final ScatterGatherStats _scatterGatherStats;
+    private final long _requestId;
+    private final long _startTime;
+    private final SettableFuture<Void> _finishFuture = SettableFuture.create();
+
+    // Guarded by this
+    private final ArrayDeque<Pair<Map<ServerInstance, ByteBuf>, Map<ServerInstance, Throwable>>> _pendingResponses =
+        new ArrayDeque<Pair<Map<ServerInstance, ByteBuf>, Map<ServerInstance, Throwable>>>();
+    private long _pendingBytes = 0;
+    private boolean _scheduled = false;
+    private boolean _needMoreResponses = true;
+    private boolean _cancelServers = false;
+    private boolean _allResponsesReceived = false;
+    private boolean _finishing = false;
+    private boolean _readPaused = false;
+
+    StreamingResponseQueue(BrokerRequest brokerRequest, String pql, StreamingReducer streamingReducer,
+        List<CompositeFuture<ServerInstance, ByteBuf>> compositeFutures, ScatterGatherStats scatterGatherStats,
+        long requestId, long startTime) {
+      _brokerRequest = brokerRequest;
+      _pql = pql;
+      _streamingReducer = streamingReducer;
+      _compositeFutures = compositeFutures;
+      _scatterGatherStats = scatterGatherStats;
+      _requestId = requestId;
+      _startTime = startTime;
+    }
+
+    ListenableFuture<Void> getFinishFuture() {
+      return _finishFuture;
+    }
+
+    @Override
+    public void onResponse(Map<ServerInstance, ByteBuf> responses, Map<ServerInstance, Throwable> errors) {
+      // Runs on the network thread while holding the lock of the composite future, only queue the response here
+      synchronized (this) {
+        if (!_needMoreResponses) {
+          return;
+        }
+        _pendingResponses.add(Pair.of(responses, errors));
+        _pendingBytes += getNumBytes(responses);
+        if (!_readPaused && _pendingBytes > _streamingMaxInFlightBytes) {
+          LOGGER.debug("Streaming in-flight budget of {} bytes exceeded for requestId {}, pausing reads from servers",
+              _streamingMaxInFlightBytes, _requestId);
+          setReadPaused(true);
+        }
+        schedule();
+      }
+    }
+
+    /**
+     * Called once all the scatter-gather futures are done, the stream is finished once the queued responses are
+     * written.
+     */
+    synchronized void onAllResponsesReceived() {
+      _allResponsesReceived = true;
+      schedule();
+    }
+
+    // Must be called while holding the lock
+    private void schedule() {
+      if (_scheduled || _finishFuture.isDone()) {
+        return;
+      }
+      _scheduled = true;
+      try {
+        _reduceExecutor.execute(this);
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("Broker reduce executor is saturated, dropping streaming requestId {}", _requestId);
+        _brokerMetrics.addMeteredGlobalValue(BrokerMeter.REQUEST_DROPPED_DUE_TO_REDUCE_QUEUE_FULL, 1);
+        _scheduled = false;
+        _needMoreResponses = false;
+        _pendingResponses.clear();
+        _pendingBytes = 0;
+        setReadPaused(false);
+        _finishFuture.setException(e);
+      }
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Pair<Map<ServerInstance, ByteBuf>, Map<ServerInstance, Throwable>> response;
+        boolean cancelServers;
+        synchronized (this) {
+          cancelServers = _cancelServers;
+          _cancelServers = false;
+          response = _pendingResponses.poll();
+          if (response == null && !cancelServers) {
+            _scheduled = false;
+            if (!_allResponsesReceived || _finishing) {
+              return;
+            }
+            _finishing = true;
+          }
+        }
+        if (cancelServers) {
+          // Cancelling outside of the lock, as cancellation notifies this listener
+          for (CompositeFuture<ServerInstance, ByteBuf> compositeFuture : _compositeFutures) {
+            compositeFuture.cancel(true);
+          }
+        }
+        if (response != null) {
+          // Counted before reducing, which consumes the serialized response
+          long numBytes = getNumBytes(response.getLeft());
+          reduce(response.getLeft(), response.getRight());
+          // The response is written and flushed, release its bytes and resume reading once back within the budget
+          synchronized (this) {
+            if (_needMoreResponses) {
+              _pendingBytes -= numBytes;
+              if (_readPaused && _pendingBytes <= _streamingMaxInFlightBytes) {
+                setReadPaused(false);
               }
-              b.readBytes(b2);
-              DataTable r2 = new DataTable(b2);
-              // Hybrid requests may get response from same instance, so we need to distinguish them.
-              ServerInstance decoratedServerInstance = new ServerInstance(responseEntry.getKey().getHostname(),
-                  responseEntry.getKey().getPort(), responseSeq.incrementAndGet());
-              if (errors != null && errors.containsKey(responseEntry.getKey())) {
-                Throwable throwable = errors.get(responseEntry.getKey());
-                if (throwable != null) {
-                  r2.getMetadata().put("exception", new RequestProcessingException(throwable).toString());
-                  _brokerMetrics.addMeteredQueryValue(federatedBrokerRequest, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-                }
+            }
+          }
+        } else if (!cancelServers) {
+          finish();
+          return;
+        }
+      }
+    }
+
+    private void reduce(Map<ServerInstance, ByteBuf> responses, Map<ServerInstance, Throwable> errors) {
+      Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
+      deserializeResponses(_brokerRequest, responses, errors, instanceResponseMap, null);
+      if (errors != null) {
+        // Servers that failed have no response, report their error through an empty data table
+        for (Entry<ServerInstance, Throwable> error : errors.entrySet()) {
+          if (!instanceResponseMap.containsKey(error.getKey())) {
+            DataTable errorDataTable = new DataTable();
+            errorDataTable.addException(new RequestProcessingException(error.getValue()));
+            instanceResponseMap.put(error.getKey(), errorDataTable);
+            _brokerMetrics.addMeteredQueryValue(_brokerRequest, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+          }
+        }
+      }
+      for (Entry<ServerInstance, DataTable> entry : instanceResponseMap.entrySet()) {
+        boolean needMoreResponses;
+        try {
+          needMoreResponses = _streamingReducer.reduce(entry.getKey(), entry.getValue());
+        } catch (Exception e) {
+          LOGGER.warn("Caught exception while streaming response from {} for requestId {}", entry.getKey(),
+              _requestId, e);
+          needMoreResponses = false;
+        }
+        if (!needMoreResponses) {
+          synchronized (this) {
+            if (_needMoreResponses) {
+              _needMoreResponses = false;
+              _cancelServers = true;
+            }
+            _pendingResponses.clear();
+            _pendingBytes = 0;
+            setReadPaused(false);
+          }
+          return;
+        }
+      }
+    }
+
+    private void finish() {
+      long queryProcessingTimeInMillis =
+          TimeUnit.MILLISECONDS.convert(System.nanoTime() - _startTime, TimeUnit.NANOSECONDS);
+      _brokerMetrics.addPhaseTiming(_brokerRequest, BrokerQueryPhase.QUERY_EXECUTION, System.nanoTime() - _startTime);
+      try {
+        _streamingReducer.finish(queryProcessingTimeInMillis);
+      } catch (Throwable t) {
+        _finishFuture.setException(t);
+        return;
+      }
+      LOGGER.info("Streamed response for requestId:{}, table:{}, total time:{}, scatterGatherStats: {} query: {}",
+          _requestId, _brokerRequest.getQuerySource().getTableName(), queryProcessingTimeInMillis,
+          _scatterGatherStats, _pql);
+      _finishFuture.set(null);
+    }
+
+    // Must be called while holding the lock, so that pausing and resuming are applied in order
+    private void setReadPaused(boolean paused) {
+      _readPaused = paused;
+      for (CompositeFuture<ServerInstance, ByteBuf> compositeFuture : _compositeFutures) {
+        compositeFuture.setReadPaused(paused);
+      }
+    }
+
+    private long getNumBytes(Map<ServerInstance, ByteBuf> responses) {
+      long numBytes = 0;
+      if (responses != null) {
+        for (ByteBuf response : responses.values()) {
+          numBytes += response.readableBytes();
+        }
+      }
+      return numBytes;
+    }
+  }
+
+  /**
+   * Same as {@link Futures#transform(ListenableFuture, Function, Executor)} on the reduce executor, except that the
+   * returned future fails with a {@link RejectedExecutionException} when the reduce executor rejects the task, instead
+   * of never completing. Rejected requests fail fast rather than being reduced on the thread that completed the input.
+   */
+  private <I, O> ListenableFuture<O> transformOnReduceExecutor(final ListenableFuture<I> input,
+      final Function<? super I, ? extends O> function) {
+    final SettableFuture<O> output = SettableFuture.create();
+    input.addListener(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          _reduceExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                output.set(function.apply(input.get()));
+              } catch (ExecutionException e) {
+                output.setException(e.getCause());
+              } catch (Throwable t) {
+                output.setException(t);
               }
-              instanceResponseMap.put(decoratedServerInstance, r2);
-            } catch (Exception ex) {
-              LOGGER.error(
-                  "Got exceptions in collect query result for instance " + responseEntry.getKey() + ", error: " + ex
-                      .getMessage(), ex);
-              _brokerMetrics.addMeteredQueryValue(federatedBrokerRequest, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
             }
+          });
+        } catch (RejectedExecutionException e) {
+          LOGGER.warn("Broker reduce executor is saturated, dropping request");
+          _brokerMetrics.addMeteredGlobalValue(BrokerMeter.REQUEST_DROPPED_DUE_TO_REDUCE_QUEUE_FULL, 1);
+          output.setException(e);
+        }
+      }
+    }, MoreExecutors.sameThreadExecutor());
+    return output;
+  }
+
+  /**
+   * Returns the requests to scatter for the given request: one per physical table for hybrid tables, or an empty list
+   * if no table matches the request.
+   */
+  private List<BrokerRequest> getPerTableRequests(BrokerRequest request) {
+    final List<BrokerRequest> perTableRequests = new ArrayList<BrokerRequest>();
+    if (request.getQuerySource() == null || request.getQuerySource().getTableName() == null) {
+      LOGGER.info("Query contains null table.");
+      return perTableRequests;
+    }
+
+    List<String> matchedTables = getMatchedTables(request);
+    if (matchedTables.size() > 1) {
+      perTableRequests.add(getRealtimeBrokerRequest(request));
+      perTableRequests.add(getOfflineBrokerRequest(request));
+    } else if (matchedTables.size() == 1) {
+      request.getQuerySource().setTableName(matchedTables.get(0));
+      perTableRequests.add(_optimizer.optimize(request));
+    }
+    return perTableRequests;
+  }
+
+  /**
+   * Route and scatter the per table requests without waiting for the responses.
+   *
+   * @return Scatter-gather futures for the tables that have servers to query
+   */
+  private List<CompositeFuture<ServerInstance, ByteBuf>> scatterAsync(BrokerRequest request,
+      List<BrokerRequest> perTableRequests, ScatterGatherStats scatterGatherStats, long requestId)
+      throws InterruptedException {
+    long queryRoutingTime = 0;
+    final List<CompositeFuture<ServerInstance, ByteBuf>> compositeFutures =
+        new ArrayList<CompositeFuture<ServerInstance, ByteBuf>>();
+    for (BrokerRequest perTableRequest : perTableRequests) {
+      final long routingStartTime = System.nanoTime();
+      RoutingTableLookupRequest rtRequest =
+          new RoutingTableLookupRequest(perTableRequest.getQuerySource().getTableName());
+      Map<ServerInstance, SegmentIdSet> segmentServices = _routingTable.findServers(rtRequest);
+      if (segmentServices == null || segmentServices.isEmpty()) {
+        LOGGER.info("Not found ServerInstances to Segments Mapping for Table - {}", rtRequest.getTableName());
+        continue;
+      }
+      queryRoutingTime += System.nanoTime() - routingStartTime;
+
+      ScatterGatherRequestImpl scatterRequest =
+          new ScatterGatherRequestImpl(perTableRequest, segmentServices, _replicaSelection,
+              ReplicaSelectionGranularity.SEGMENT_ID_SET, perTableRequest.getBucketHashKey(), 0, null, requestId,
+              _brokerTimeOutMs);
+      compositeFutures.add(_scatterGatherer.scatterGather(scatterRequest, scatterGatherStats, _brokerMetrics));
+    }
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.QUERY_ROUTING, queryRoutingTime);
+    return compositeFutures;
+  }
+
+  /**
+   * Schedule the cancellation of the given scatter-gather futures once the broker timeout expires. Cancelling a
+   * composite future completes it with the responses received so far, so no thread has to wait for the timeout.
+   *
+   * @return Handle on the scheduled cancellation, or null if no timeout executor is configured
+   */
+  private ScheduledFuture<?> scheduleTimeout(final List<CompositeFuture<ServerInstance, ByteBuf>> compositeFutures,
+      final long requestId) {
+    if (_timeoutExecutor == null) {
+      return null;
+    }
+    return _timeoutExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        for (CompositeFuture<ServerInstance, ByteBuf> compositeFuture : compositeFutures) {
+          if (compositeFuture.cancel(true)) {
+            LOGGER.warn("Timed out waiting for responses for requestId {} after {} ms", requestId, _brokerTimeOutMs);
           }
         }
-        deserializationTime += System.nanoTime() - deserializationStartTime;
+      }
+    }, _brokerTimeOutMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Deserialize the server responses into the instance response map, attaching per server errors to the data tables.
+   *
+   * @param request Broker request used for metrics
+   * @param responses Serialized responses per server, may be null if the gather failed
+   * @param errors Errors per server
+   * @param instanceResponseMap Map to put the deserialized data tables into
+   * @param responseSeq If not null, used to decorate the server instances so that responses from the same server for
+   *                    different tables (hybrid requests) do not override each other
+   */
+  private void deserializeResponses(BrokerRequest request, Map<ServerInstance, ByteBuf> responses,
+      Map<ServerInstance, Throwable> errors, Map<ServerInstance, DataTable> instanceResponseMap,
+      AtomicInteger responseSeq) {
+    if (responses == null) {
+      return;
+    }
+    for (Entry<ServerInstance, ByteBuf> responseEntry : responses.entrySet()) {
+      try {
+        ByteBuf b = responseEntry.getValue();
+        byte[] b2 = new byte[b.readableBytes()];
+        if (b2 == null || b2.length == 0) {
+          continue;
+        }
+        b.readBytes(b2);
+        DataTable r2 = new DataTable(b2);
+        ServerInstance serverInstance = responseEntry.getKey();
+        if (responseSeq != null) {
+          serverInstance =
+              new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), responseSeq.incrementAndGet());
+        }
+        if (errors != null && errors.containsKey(responseEntry.getKey())) {
+          Throwable throwable = errors.get(responseEntry.getKey());
+          if (throwable != null) {
+            r2.getMetadata().put(DataTable.EXCEPTION_METADATA_KEY, new RequestProcessingException(throwable).toString());
+            _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
+          }
+        }
+        instanceResponseMap.put(serverInstance, r2);
+      } catch (Exception ex) {
+        LOGGER.error("Got exceptions in collect query result for instance " + responseEntry.getKey() + ", error: "
+            + ex.getMessage(), ex);
+        _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
       }
     }
-    _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.SCATTER_GATHER, scatterGatherTime);
-    _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
+  }
 
-    // Step 6 : Do the reduce and return
+  private BrokerResponse reduce(final BrokerRequest request, final ReduceService reduceService,
+      final Map<ServerInstance, DataTable> instanceResponseMap) {
     try {
-      return _brokerMetrics.timeQueryPhase(federatedBrokerRequest, BrokerQueryPhase.REDUCE, new Callable<BrokerResponse>() {
+      return _brokerMetrics.timeQueryPhase(request, BrokerQueryPhase.REDUCE, new Callable<BrokerResponse>() {
         @Override
         public BrokerResponse call() {
-          BrokerResponse returnValue = reduceService.reduceOnDataTable(federatedBrokerRequest, instanceResponseMap);
-          _brokerMetrics
-              .addMeteredQueryValue(federatedBrokerRequest, BrokerMeter.DOCUMENTS_SCANNED, returnValue.getNumDocsScanned());
+          BrokerResponse returnValue = reduceService.reduceOnDataTable(request, instanceResponseMap);
+          _brokerMetrics.addMeteredQueryValue(request, BrokerMeter.DOCUMENTS_SCANNED, returnValue.getNumDocsScanned());
           return returnValue;
         }
       });
@@ -107,6 +107,14 @@ public abstract class AbstractCompositeListenableFuture<K, T> implements KeyedFu
     return _state == State.CANCELLED;
   }
 
+  /**
+   * Mark the future as done without waiting on any underlying future. Used when there is nothing to gather so that
+   * listeners registered on this future still get notified.
+   */
+  protected void markDone() {
+    setDone(State.DONE);
+  }
+
   /**
    * Mark complete and notify threads waiting for this condition
    */
@@ -18,6 +18,7 @@ package com.linkedin.pinot.transport.common;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -46,7 +47,7 @@ import org.slf4j.LoggerFactory;
  * @param <K> Key to locate the specific future's value
  * @param <V> Value type of the underlying future
  */
-public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K, V> {
+public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K, V> implements ReadPausable {
   protected static Logger LOGGER = LoggerFactory.getLogger(CompositeFuture.class);
 
   public static enum GatherModeOnError {
@@ -56,6 +57,17 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     AND,
   };
 
+  /**
+   * Listener notified of the result of each underlying future as soon as it is available.
+   */
+  public static interface ResponseListener<K, V> {
+    /**
+     * @param responses Responses of the underlying future, may be null
+     * @param errors Errors of the underlying future, may be null
+     */
+    public void onResponse(Map<K, V> responses, Map<K, Throwable> errors);
+  }
+
   private final Collection<KeyedFuture<K, V>> _futures;
 
   // Composite Response
@@ -71,6 +83,9 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
   // Descriptive name of the future
   private final String _name;
 
+  // Listener for the individual responses, guarded by this
+  private ResponseListener<K, V> _responseListener;
+
   public CompositeFuture(String name, GatherModeOnError mode) {
     _name = name;
     _futures = new ArrayList<KeyedFuture<K, V>>();
@@ -104,6 +119,11 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
         addResponseFutureListener(entry);
       }
     }
+
+    // Nothing to wait for, complete right away so that listeners do not wait forever.
+    if (_futures.isEmpty()) {
+      markDone();
+    }
   }
 
   /**
@@ -117,6 +137,18 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     }
   }
 
+  /**
+   * Pauses or resumes reading the responses of the underlying futures which support it.
+   */
+  @Override
+  public void setReadPaused(boolean paused) {
+    for (KeyedFuture<K, V> entry : _futures) {
+      if (entry instanceof ReadPausable) {
+        ((ReadPausable) entry).setReadPaused(paused);
+      }
+    }
+  }
+
   @Override
   /**
    *
@@ -174,6 +206,20 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     return _delayedResponseMap;
   }
 
+  /**
+   * Register a listener notified of the result of each underlying future as soon as it is available, instead of
+   * waiting for the composite future to complete. Results received before the registration are replayed to the
+   * listener. Notifications are serialized, so the listener does not have to be thread-safe, but it should hand off
+   * any real work as it runs on the network thread completing the underlying future, while holding the lock of this
+   * future.
+   */
+  public synchronized void setResponseListener(ResponseListener<K, V> responseListener) {
+    _responseListener = responseListener;
+    if (!_delayedResponseMap.isEmpty() || !_errorMap.isEmpty()) {
+      responseListener.onResponse(new HashMap<K, V>(_delayedResponseMap), new HashMap<K, Throwable>(_errorMap));
+    }
+  }
+
   /**
    * This method must be called after the 'get' is called, so that all response times are recorded.
    * For now, this method has not been added to the interface.
@@ -186,15 +232,20 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
   protected boolean processFutureResult(String name, Map<K, V> response, Map<K, Throwable> error, long durationMillis) {
     // Get the response time and create another map that can be invoked to get the end time when responses were received for each server.
     boolean ret = false;
-    if (null != response) {
-      LOGGER.debug("Response from {} is {}", name, response);
-      _delayedResponseMap.putAll(response);
-    } else if (null != error) {
-      LOGGER.debug("Error from {} is : {}", name, error);
-      _errorMap.putAll(error);
-
-      if (_gatherMode == GatherModeOnError.SHORTCIRCUIT_AND) {
-        ret = true; // We are done as we got an error
+    synchronized (this) {
+      if (null != response) {
+        LOGGER.debug("Response from {} is {}", name, response);
+        _delayedResponseMap.putAll(response);
+      } else if (null != error) {
+        LOGGER.debug("Error from {} is : {}", name, error);
+        _errorMap.putAll(error);
+
+        if (_gatherMode == GatherModeOnError.SHORTCIRCUIT_AND) {
+          ret = true; // We are done as we got an error
+        }
+      }
+      if (_responseListener != null && (null != response || null != error)) {
+        _responseListener.onResponse(response, response == null ? error : null);
       }
     }
     // TODO May be limit the number of entries here to 10? We don't want to create too much garbage on the broker.
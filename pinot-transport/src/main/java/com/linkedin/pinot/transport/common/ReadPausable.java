@@ -0,0 +1,28 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common;
+
+/**
+ * A pending response whose reading from the network can be paused, so that a consumer which cannot keep up with the
+ * responses holds the servers back instead of buffering their responses.
+ */
+public interface ReadPausable {
+  /**
+   * Pauses or resumes reading the response. Has no effect once the response is complete.
+   * @param paused true to pause reading, false to resume it
+   */
+  void setReadPaused(boolean paused);
+}
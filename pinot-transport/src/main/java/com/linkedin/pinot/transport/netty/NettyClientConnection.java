@@ -21,6 +21,7 @@ import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.transport.common.AsyncResponseFuture;
 import com.linkedin.pinot.transport.common.Callback;
 import com.linkedin.pinot.transport.common.NoneType;
+import com.linkedin.pinot.transport.common.ReadPausable;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -117,14 +118,36 @@ public abstract class NettyClientConnection {
     _requestCallback = callback;
   }
 
+  /**
+   * Pauses or resumes reading the response to the request whose future is passed in. Connections which
+   * cannot pause reading ignore this.
+   * @param future Future of the request whose response is being read
+   * @param paused true to pause reading, false to resume it
+   */
+  protected void setReadPaused(ResponseFuture future, boolean paused) {
+  }
+
   /**
    * Future Handle provided to the request sender to asynchronously wait for response.
    * We use guava API for implementing Futures.
    */
-  public static class ResponseFuture extends AsyncResponseFuture<ServerInstance, ByteBuf> {
+  public static class ResponseFuture extends AsyncResponseFuture<ServerInstance, ByteBuf> implements ReadPausable {
+    // Connection the response is read from, null if reading it cannot be paused
+    private final NettyClientConnection _connection;
 
     public ResponseFuture(ServerInstance key, String ctxt) {
       super(key, ctxt);
+      _connection = null;
+    }
+
+    /**
+     * Future for a response read from the given connection, so that reading it can be paused.
+     * @param key Key for the future
+     * @param connection Connection the response is read from
+     */
+    public ResponseFuture(ServerInstance key, NettyClientConnection connection, String ctxt) {
+      super(key, ctxt);
+      _connection = connection;
     }
 
     /**
@@ -134,6 +157,24 @@ public abstract class NettyClientConnection {
      */
     public ResponseFuture(ServerInstance key, Throwable error, String ctxt) {
       super(key, error, ctxt);
+      _connection = null;
+    }
+
+    @Override
+    public void setReadPaused(boolean paused) {
+      if (null != _connection && !isDone()) {
+        _connection.setReadPaused(this, paused);
+      }
+    }
+
+    /**
+     * Resumes reading before cancelling, so that the response of a cancelled request is still drained and its
+     * connection can be reused.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      setReadPaused(false);
+      return super.cancel(mayInterruptIfRunning);
     }
   }
 
@@ -71,6 +71,9 @@ public class NettyTCPClientConnection extends NettyClientConnection  {
    */
   private final AtomicReference<ResponseFuture> _outstandingFuture;
 
+  // Guards pausing reads, so that a request paused late cannot pause the next request on this connection
+  private final Object _readPauseLock = new Object();
+
   private long _lastRequsetSizeInBytes;
   private long _lastResponseSizeInBytes;
   private TimerContext _lastSendRequestLatency;
@@ -172,7 +175,11 @@ public class NettyTCPClientConnection extends NettyClientConnection  {
     _lastSendRequestLatency = MetricsHelper.startTimer();
     _lastResponseLatency = MetricsHelper.startTimer();
 
-    _outstandingFuture.set(new ResponseFuture(_server, "Response Future for request " + requestId + " to server " + _server + " connId " + getConnId()));
+    synchronized (_readPauseLock) {
+      _outstandingFuture.set(new ResponseFuture(_server, this,
+          "Response Future for request " + requestId + " to server " + _server + " connId " + getConnId()));
+      _channel.config().setAutoRead(true);
+    }
     _lastRequestTimeoutMS = timeoutMS;
     _lastRequestId = requestId;
     _lastError = null;
@@ -239,6 +246,15 @@ public class NettyTCPClientConnection extends NettyClientConnection  {
     return _outstandingFuture.get();
   }
 
+  @Override
+  protected void setReadPaused(ResponseFuture future, boolean paused) {
+    synchronized (_readPauseLock) {
+      if (_outstandingFuture.get() == future && null != _channel) {
+        _channel.config().setAutoRead(!paused);
+      }
+    }
+  }
+
   protected void cancelLastRequestTimeout() {
     if (null != _lastRequestTimeout) {
       _lastRequestTimeout.cancel(); //If task is already executed, no side-effect
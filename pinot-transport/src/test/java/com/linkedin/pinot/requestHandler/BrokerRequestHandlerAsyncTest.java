@@ -0,0 +1,335 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.query.ReduceService;
+import com.linkedin.pinot.common.query.ReduceServiceRegistry;
+import com.linkedin.pinot.common.query.StreamingReduceService;
+import com.linkedin.pinot.common.query.StreamingReducer;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.InstanceResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.routing.RoutingTable;
+import com.linkedin.pinot.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.transport.common.AsyncResponseFuture;
+import com.linkedin.pinot.transport.common.CompositeFuture;
+import com.linkedin.pinot.transport.common.CompositeFuture.GatherModeOnError;
+import com.linkedin.pinot.transport.common.KeyedFuture;
+import com.linkedin.pinot.transport.common.ReadPausable;
+import com.linkedin.pinot.transport.common.SegmentId;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import com.linkedin.pinot.transport.scattergather.ScatterGather;
+import com.linkedin.pinot.transport.scattergather.ScatterGatherRequest;
+import com.linkedin.pinot.transport.scattergather.ScatterGatherStats;
+import com.yammer.metrics.core.MetricsRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+
+/**
+ * Tests for the asynchronous and streaming request paths of {@link BrokerRequestHandler}, with servers whose responses
+ * are completed by the test.
+ */
+public class BrokerRequestHandlerAsyncTest {
+  private static final ServerInstance SERVER = new ServerInstance("localhost", 1234);
+  private static final long BROKER_TIMEOUT_MS = 200L;
+
+  private ScheduledExecutorService _timeoutExecutor;
+  private BrokerMetrics _brokerMetrics;
+
+  @BeforeClass
+  public void setUp() {
+    _timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+    _brokerMetrics = new BrokerMetrics(new MetricsRegistry());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _timeoutExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testResponse() throws Exception {
+    TestScatterGather scatterGather = new TestScatterGather();
+    TestReduceService reduceService = new TestReduceService();
+    BrokerRequestHandler requestHandler =
+        getRequestHandler(scatterGather, reduceService, MoreExecutors.sameThreadExecutor());
+
+    ListenableFuture<BrokerResponse> responseFuture = requestHandler.handleRequestAsync(getRequest());
+    Assert.assertFalse(responseFuture.isDone());
+
+    scatterGather._serverFuture.onSuccess(Unpooled.wrappedBuffer(new DataTable().toBytes()));
+    Assert.assertNotNull(responseFuture.get(10, TimeUnit.SECONDS));
+    Assert.assertEquals(reduceService._numServerResponses, 1);
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    TestScatterGather scatterGather = new TestScatterGather();
+    TestReduceService reduceService = new TestReduceService();
+    BrokerRequestHandler requestHandler =
+        getRequestHandler(scatterGather, reduceService, MoreExecutors.sameThreadExecutor());
+
+    // The server never responds, the request is reduced without its response once the broker timeout expires
+    ListenableFuture<BrokerResponse> responseFuture = requestHandler.handleRequestAsync(getRequest());
+    Assert.assertNotNull(responseFuture.get(10 * BROKER_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(reduceService._numServerResponses, 0);
+    Assert.assertTrue(scatterGather._serverFuture.isCancelled());
+  }
+
+  @Test
+  public void testReduceExecutorRejection() throws Exception {
+    TestScatterGather scatterGather = new TestScatterGather();
+    TestReduceService reduceService = new TestReduceService();
+    Executor rejectingExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    };
+    BrokerRequestHandler requestHandler = getRequestHandler(scatterGather, reduceService, rejectingExecutor);
+
+    // The request fails fast instead of being reduced on the thread completing the response
+    ListenableFuture<BrokerResponse> responseFuture = requestHandler.handleRequestAsync(getRequest());
+    scatterGather._serverFuture.onSuccess(Unpooled.wrappedBuffer(new DataTable().toBytes()));
+    try {
+      responseFuture.get(10, TimeUnit.SECONDS);
+      Assert.fail("Expected the request to be rejected");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    Assert.assertEquals(reduceService._numServerResponses, -1);
+  }
+
+  @Test
+  public void testStreamingInFlightBudget() throws Exception {
+    ServerInstance secondServer = new ServerInstance("localhost", 1235);
+    ServerInstance thirdServer = new ServerInstance("localhost", 1236);
+    TestScatterGather scatterGather = new TestScatterGather(SERVER, secondServer, thirdServer);
+    // Tasks are run by the test, as if a slow client kept the reduce executor busy
+    final List<Runnable> reduceTasks = new ArrayList<Runnable>();
+    Executor reduceExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        reduceTasks.add(command);
+      }
+    };
+    ReduceServiceRegistry reduceServiceRegistry = new ReduceServiceRegistry();
+    reduceServiceRegistry.registerDefault(new TestReduceService());
+    BrokerRequestHandler requestHandler =
+        new BrokerRequestHandler(new TestRoutingTable(), null, scatterGather, reduceServiceRegistry, _brokerMetrics,
+            BROKER_TIMEOUT_MS, reduceExecutor, _timeoutExecutor, 1L);
+    TestStreamingReducer streamingReducer = new TestStreamingReducer();
+
+    ListenableFuture<?> finishFuture = requestHandler.handleStreamingRequest(
+        getRequest().put("streaming", true), streamingReducer, new StringWriter());
+    TestServerFuture thirdServerFuture = scatterGather._serverFutures.get(thirdServer);
+    Assert.assertFalse(thirdServerFuture._readPaused);
+    scatterGather._serverFutures.get(SERVER).onSuccess(Unpooled.wrappedBuffer(new DataTable().toBytes()));
+    scatterGather._serverFutures.get(secondServer).onSuccess(Unpooled.wrappedBuffer(new DataTable().toBytes()));
+
+    // Over budget while the responses are waiting to be written, reading the pending response is paused
+    Assert.assertTrue(streamingReducer._dataTables.isEmpty());
+    Assert.assertTrue(thirdServerFuture._readPaused);
+    Assert.assertEquals(reduceTasks.size(), 1);
+    while (!reduceTasks.isEmpty()) {
+      reduceTasks.remove(0).run();
+    }
+
+    // Reading resumes once the queued responses are written, and no response is dropped
+    Assert.assertFalse(thirdServerFuture._readPaused);
+    Assert.assertFalse(finishFuture.isDone());
+    thirdServerFuture.onSuccess(Unpooled.wrappedBuffer(new DataTable().toBytes()));
+    while (!reduceTasks.isEmpty()) {
+      reduceTasks.remove(0).run();
+    }
+
+    Assert.assertTrue(finishFuture.isDone());
+    finishFuture.get();
+    Assert.assertTrue(streamingReducer._finished);
+    Assert.assertEquals(streamingReducer._dataTables.size(), 3);
+    for (DataTable dataTable : streamingReducer._dataTables.values()) {
+      Assert.assertFalse(hasException(dataTable));
+    }
+  }
+
+  private static boolean hasException(DataTable dataTable) {
+    for (String key : dataTable.getMetadata().keySet()) {
+      if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private BrokerRequestHandler getRequestHandler(ScatterGather scatterGather, ReduceService<?> reduceService,
+      Executor reduceExecutor) {
+    ReduceServiceRegistry reduceServiceRegistry = new ReduceServiceRegistry();
+    reduceServiceRegistry.registerDefault(reduceService);
+    return new BrokerRequestHandler(new TestRoutingTable(), null, scatterGather, reduceServiceRegistry,
+        _brokerMetrics, BROKER_TIMEOUT_MS, reduceExecutor, _timeoutExecutor);
+  }
+
+  private static JSONObject getRequest() throws Exception {
+    return new JSONObject().put("pql", "select count(*) from myTable");
+  }
+
+  /**
+   * Routes the offline table to a single server.
+   */
+  private static class TestRoutingTable implements RoutingTable {
+    @Override
+    public Map<ServerInstance, SegmentIdSet> findServers(RoutingTableLookupRequest request) {
+      if (!request.getTableName().equals("myTable_OFFLINE")) {
+        return null;
+      }
+      SegmentIdSet segmentIdSet = new SegmentIdSet();
+      segmentIdSet.addSegment(new SegmentId("myTable_0"));
+      return Collections.singletonMap(SERVER, segmentIdSet);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public String dumpSnapshot(String tableName) {
+      return "";
+    }
+  }
+
+  /**
+   * Returns a composite future over one future per server, completed by the test.
+   */
+  private static class TestScatterGather implements ScatterGather {
+    private final ServerInstance[] _servers;
+    private final Map<ServerInstance, TestServerFuture> _serverFutures = new HashMap<ServerInstance, TestServerFuture>();
+    private TestServerFuture _serverFuture;
+
+    TestScatterGather(ServerInstance... servers) {
+      _servers = servers.length == 0 ? new ServerInstance[]{SERVER} : servers;
+    }
+
+    @Override
+    public CompositeFuture<ServerInstance, ByteBuf> scatterGather(ScatterGatherRequest scatterRequest,
+        ScatterGatherStats scatterGatherStats, BrokerMetrics brokerMetrics) {
+      List<KeyedFuture<ServerInstance, ByteBuf>> futures = new ArrayList<KeyedFuture<ServerInstance, ByteBuf>>();
+      for (ServerInstance server : _servers) {
+        TestServerFuture future = new TestServerFuture(server);
+        _serverFutures.put(server, future);
+        futures.add(future);
+      }
+      _serverFuture = _serverFutures.get(_servers[0]);
+      CompositeFuture<ServerInstance, ByteBuf> compositeFuture =
+          new CompositeFuture<ServerInstance, ByteBuf>("test", GatherModeOnError.AND);
+      compositeFuture.start(futures);
+      return compositeFuture;
+    }
+  }
+
+  /**
+   * Server response future recording whether reading the response is paused.
+   */
+  private static class TestServerFuture extends AsyncResponseFuture<ServerInstance, ByteBuf> implements ReadPausable {
+    private volatile boolean _readPaused = false;
+
+    TestServerFuture(ServerInstance server) {
+      super(server, "test");
+    }
+
+    @Override
+    public void setReadPaused(boolean paused) {
+      _readPaused = paused;
+    }
+  }
+
+  /**
+   * Streams every request, recording the data tables it reduced.
+   */
+  private static class TestStreamingReducer implements StreamingReduceService, StreamingReducer {
+    private final Map<ServerInstance, DataTable> _dataTables = new HashMap<ServerInstance, DataTable>();
+    private boolean _finished = false;
+
+    @Override
+    public boolean isStreamable(BrokerRequest brokerRequest) {
+      return true;
+    }
+
+    @Override
+    public StreamingReducer startStreaming(BrokerRequest brokerRequest, Writer writer) {
+      return this;
+    }
+
+    @Override
+    public boolean reduce(ServerInstance serverInstance, DataTable dataTable) {
+      _dataTables.put(serverInstance, dataTable);
+      return true;
+    }
+
+    @Override
+    public void finish(long timeUsedMs) {
+      _finished = true;
+    }
+  }
+
+  /**
+   * Records the number of server responses it reduced.
+   */
+  private static class TestReduceService implements ReduceService<BrokerResponseNative> {
+    private volatile int _numServerResponses = -1;
+
+    @Override
+    public BrokerResponseNative reduce(BrokerRequest brokerRequest,
+        Map<ServerInstance, InstanceResponse> instanceResponseMap) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BrokerResponseNative reduceOnDataTable(BrokerRequest brokerRequest,
+        Map<ServerInstance, DataTable> instanceResponseMap) {
+      _numServerResponses = instanceResponseMap.size();
+      return new BrokerResponseNative();
+    }
+  }
+}
@@ -328,6 +328,69 @@ public class CompositeFutureTest {
     executor.shutdown();
   }
 
+  @Test
+  /**
+   * Composite future without any underlying future must complete right away and notify its listeners.
+   * @throws Exception
+   */
+  public void testEmptyComposite() throws Exception {
+    CompositeFuture<String, String> compositeFuture =
+        new CompositeFuture<String, String>("test", GatherModeOnError.SHORTCIRCUIT_AND);
+    compositeFuture.start(null);
+    Assert.assertTrue(compositeFuture.isDone(), "Composite Is Done ? ");
+    Assert.assertFalse(compositeFuture.isCancelled(), "Composite Cancelled ?");
+    Assert.assertTrue(compositeFuture.get().isEmpty(), "Composite No Response :");
+
+    ResponseCompositeFutureClientRunnerListener listener =
+        new ResponseCompositeFutureClientRunnerListener(compositeFuture);
+    compositeFuture.addListener(listener, null);
+    Assert.assertTrue(listener.isDone(), "listener Is Done ? ");
+    Assert.assertTrue(listener.getError().isEmpty(), "listener No Error :");
+  }
+
+  @Test
+  /**
+   * Tests that the response listener sees each response as it arrives, including the ones received before it was set.
+   * @throws Exception
+   */
+  public void testResponseListener() throws Exception {
+    String key1 = "localhost:8080";
+    String key2 = "localhost:8081";
+    AsyncResponseFuture<String, String> future1 = new AsyncResponseFuture<String, String>(key1, "");
+    AsyncResponseFuture<String, String> future2 = new AsyncResponseFuture<String, String>(key2, "");
+    Map<String, KeyedFuture<String, String>> futureMap = new HashMap<String, KeyedFuture<String, String>>();
+    futureMap.put(key1, future1);
+    futureMap.put(key2, future2);
+    CompositeFuture<String, String> compositeFuture = new CompositeFuture<String, String>("a", GatherModeOnError.AND);
+    compositeFuture.start(futureMap.values());
+
+    String message = "dummy Message";
+    future1.onSuccess(message);
+
+    final Map<String, String> responses = new HashMap<String, String>();
+    final Map<String, Throwable> errors = new HashMap<String, Throwable>();
+    compositeFuture.setResponseListener(new CompositeFuture.ResponseListener<String, String>() {
+      @Override
+      public void onResponse(Map<String, String> response, Map<String, Throwable> error) {
+        if (response != null) {
+          responses.putAll(response);
+        }
+        if (error != null) {
+          errors.putAll(error);
+        }
+      }
+    });
+    Assert.assertEquals(responses.size(), 1, "Replayed responses :");
+    Assert.assertEquals(responses.get(key1), message, "Replayed response :");
+    Assert.assertTrue(errors.isEmpty(), "No Error :");
+
+    Exception expectedError = new Exception("error");
+    future2.onError(expectedError);
+    Assert.assertEquals(responses.size(), 1, "Responses :");
+    Assert.assertEquals(errors.get(key2), expectedError, "Error :");
+    Assert.assertTrue(compositeFuture.isDone(), "Composite Is Done ? ");
+  }
+
   @Test
   /**
    * Tests Composite future with one underlying future.